@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.chassis.RedHxChassisBuilder;
+import org.redhelix.core.chassis.RedHxChassisColumnCollection;
+import org.redhelix.core.chassis.RedHxChassisColumnCollectionBuilder;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+
+/**
+ * the time to find every chassis of a fleet with a health of WARNING, once in a list of chassis
+ * objects and once in a {@link RedHxChassisColumnCollection} of the same chassis. One chassis in
+ * ten has a warning.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RedHxInventoryBenchmark {
+
+  @Param({"10000", "100000"})
+  public int chassisCount;
+  private RedHxChassisColumnCollection columnCollection;
+  private List<RedHxChassis> objectList;
+
+  @Setup
+  public void setUp() {
+    final RedHxChassisColumnCollectionBuilder columnBuilder =
+        new RedHxChassisColumnCollectionBuilder(chassisCount);
+
+    objectList = new ArrayList<>(chassisCount);
+
+    for (int index = 0; index < chassisCount; ++index) {
+      final RedHxChassisBuilder builder =
+          new RedHxChassisBuilder(RedHxChassisBuilder.convertChassisType("RackMount"));
+
+      builder.setChassisId(Integer.toString(index));
+      builder.setSerialNumber("SN" + index);
+      builder.setManufacturerName("ManufacturerName");
+      builder.setModelNumber("ProductModelName");
+      builder.setStatusHealth(((index % 10) == 0) ? "Warning" : "OK");
+      builder.setOperatingState("Enabled");
+      builder.setPathToPower("/redfish/v1/Chassis/" + index + "/Power");
+      builder.setPathToThermal("/redfish/v1/Chassis/" + index + "/Thermal");
+      builder.setComputerSystemList(
+          Collections.singletonList("/redfish/v1/Systems/" + index));
+      builder.setCooledByList(Collections.<String>emptyList());
+      builder.setPoweredByList(Collections.<String>emptyList());
+      builder.setSystemManagerList(Collections.singletonList("/redfish/v1/Managers/1"));
+
+      final RedHxChassis chassis = builder.getInstance();
+
+      objectList.add(chassis);
+      columnBuilder.add(chassis);
+    }
+
+    columnCollection = columnBuilder.getInstance();
+  }
+
+  @Benchmark
+  public int scanColumns() {
+    return columnCollection.getChassisList(RedHxOperatingHealthEnum.WARNING).size();
+  }
+
+  @Benchmark
+  public int scanObjects() {
+    final List<RedHxChassis> retVal = new ArrayList<>();
+
+    for (RedHxChassis chassis : objectList) {
+      if (chassis.getOperatingHealth() == RedHxOperatingHealthEnum.WARNING) {
+        retVal.add(chassis);
+      }
+    }
+
+    return retVal.size();
+  }
+}
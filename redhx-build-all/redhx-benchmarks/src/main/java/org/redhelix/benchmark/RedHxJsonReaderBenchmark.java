@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.benchmark;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.redhelix.core.action.RedHxActionProperties;
+import org.redhelix.core.service.root.RedHxServiceRootIdEum;
+import org.redhelix.core.util.RedHxHttpResponseException;
+import org.redhelix.core.util.RedHxParseException;
+import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.core.util.RedHxUriPathImpl;
+import org.redhelix.server.lib.reader.util.AbstractRedfishJsonReader;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+import org.redhelix.server.lib.reader.util.RedHxFetchedEntity;
+import org.redhelix.server.lib.reader.util.RedHxJsonParseModeEnum;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * the time and allocation of {@link AbstractRedfishJsonReader#getActions(String)} and
+ * {@link AbstractRedfishJsonReader#getLinkArray(String)} for the DMTF mockup computer system, which
+ * has a Redfish and an OEM action and two arrays of links. The body is read once with
+ * {@link RedHxAsyncFetchEngine#fetchEntityIfModified} when the trial starts, in the parse mode of
+ * the trial, so only the walk of the parsed body is measured. The methods are protected, the
+ * benchmark calls them through a subclass of the reader.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RedHxJsonReaderBenchmark {
+
+  private static final String JSON_KEY_ACTIONS = "Actions";
+  private static final String JSON_LINK_KEY_CHASSIS = "Chassis";
+  private static final String JSON_LINK_KEY_MANAGED_BY = "ManagedBy";
+
+  @Param({"ENTITY_TREE", "STREAMING"})
+  public String parseMode;
+  private MockupReader reader;
+
+  @Setup
+  public void setUp() throws IOException, URISyntaxException, RedHxHttpResponseException,
+      RedHxParseException, InterruptedException, ExecutionException, TimeoutException {
+    final RedHxUriPath path = new RedHxUriPathImpl(RedHxMockupServer.COMPUTER_SYSTEM_PATH);
+
+    try (RedHxMockupServer server = new RedHxMockupServer(1);
+        RedHxAsyncFetchEngine engine = new RedHxAsyncFetchEngine()) {
+      final RedHxServerConnectionContext ctx = server.createContext();
+
+      ctx.setParseMode(RedHxJsonParseModeEnum.valueOf(parseMode));
+      ctx.openConnection();
+
+      final RedHxFetchedEntity fetched = engine
+          .fetchEntityIfModified(ctx, RedHxServiceRootIdEum.COMPUTER_SYSTEMS, path)
+          .get(10, TimeUnit.SECONDS);
+
+      reader = new MockupReader(ctx, path, fetched);
+    }
+  }
+
+  @Benchmark
+  public Set<RedHxActionProperties> getActions() {
+    return reader.readActions();
+  }
+
+  @Benchmark
+  public void getLinkArray(final Blackhole blackhole) {
+    final List<String> chassisList = reader.readLinkArray(JSON_LINK_KEY_CHASSIS);
+    final List<String> managedByList = reader.readLinkArray(JSON_LINK_KEY_MANAGED_BY);
+
+    blackhole.consume(chassisList);
+    blackhole.consume(managedByList);
+  }
+
+  /**
+   * a reader that only gives the benchmark a parsed body.
+   */
+  private static final class MockupReader extends AbstractRedfishJsonReader {
+
+    MockupReader(final RedHxServerConnectionContext ctx, final RedHxUriPath pathToResource,
+        final RedHxFetchedEntity fetched) throws RedHxParseException {
+      super(ctx, RedHxServiceRootIdEum.COMPUTER_SYSTEMS, pathToResource, fetched);
+    }
+
+    Set<RedHxActionProperties> readActions() {
+      return getActions(JSON_KEY_ACTIONS);
+    }
+
+    List<String> readLinkArray(final String propName) {
+      return getLinkArray(propName);
+    }
+  }
+}
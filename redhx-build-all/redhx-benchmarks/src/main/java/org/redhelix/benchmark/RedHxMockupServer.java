@@ -0,0 +1,218 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.service.root.RedHxTcpProtocolTypeEnum;
+import org.redhelix.core.util.RedHxRedfishProtocolVersionEnum;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * an in-process HTTP server that answers with the DMTF mockup payloads. The benchmarks read the
+ * mockup through it so a reader pays for the same HTTP request and JSON parse it does against a
+ * Redfish server, without the time of a network or a BMC being measured.
+ *
+ * Every payload is read from the class path when the server is created. A request is answered
+ * from memory with no ETag or Last-Modified, so a reader never gets 304 Not Modified and parses the
+ * body each time.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+public final class RedHxMockupServer implements Closeable {
+
+  /**
+   * the path of each resource in the mockup.
+   */
+  public static final String CHASSIS_COLLECTION_PATH = "/redfish/v1/Chassis";
+  public static final String CHASSIS_PATH = "/redfish/v1/Chassis/1";
+  public static final String COMPUTER_SYSTEM_COLLECTION_PATH = "/redfish/v1/Systems";
+  public static final String COMPUTER_SYSTEM_PATH = "/redfish/v1/Systems/1";
+  public static final String ODATA_SERVICE_PATH = "/redfish/v1/odata";
+  public static final String SERVICE_ROOT_PATH = "/redfish/v1";
+  private static final String CONTENT_TYPE = "application/json;charset=utf-8";
+
+  /**
+   * the payload of a resource is the index.json below this class path directory, the layout of the
+   * DSP2043 mockup.
+   */
+  private static final String RESOURCE_DIRECTORY = "/mockup";
+  private static final String RESOURCE_FILE_NAME = "/index.json";
+  private final ExecutorService executor;
+  private final Map<String, byte[]> payloadMap;
+  private final HttpServer server;
+
+  /**
+   * create the server on an ephemeral port of the loopback address and start it.
+   *
+   * @param threadCount the number of threads that answer requests. This shall be greater than
+   *        zero.
+   * @throws IOException if a payload can not be read or the socket can not be bound.
+   */
+  public RedHxMockupServer(final int threadCount) throws IOException {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("Argument \"threadCount\" must be greater than zero.");
+    }
+
+    this.payloadMap = readPayloads(CHASSIS_COLLECTION_PATH, CHASSIS_PATH,
+        COMPUTER_SYSTEM_COLLECTION_PATH, COMPUTER_SYSTEM_PATH, ODATA_SERVICE_PATH,
+        SERVICE_ROOT_PATH);
+    this.executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+      final Thread thread = new Thread(runnable, "RedHx mockup server");
+
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.server.setExecutor(executor);
+    this.server.createContext(SERVICE_ROOT_PATH, this::handle);
+    this.server.start();
+  }
+
+  private RedHxMockupServer() {
+    this.executor = null;
+    this.payloadMap = null;
+    this.server = null;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * create a context that reads the mockup with HTTP and no authentication. The connection is not
+   * opened.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxServerConnectionContext createContext() {
+    return new RedHxServerConnectionContext(RedHxRedfishProtocolVersionEnum.VERSION_1,
+        RedHxTcpProtocolTypeEnum.HTTP, getHostName(), getTcpPortNumber());
+  }
+
+  /**
+   * get the host name the server listens on.
+   *
+   * @return A null is not returned.
+   */
+  public String getHostName() {
+    return server.getAddress().getAddress().getHostAddress();
+  }
+
+  /**
+   * get the payload of a resource, for a benchmark that parses without HTTP.
+   *
+   * @param path the path of the resource, for example {@link #CHASSIS_PATH}.
+   * @return A copy of the payload. A null is returned if the mockup has no such resource.
+   */
+  public byte[] getPayload(final String path) {
+    final byte[] payload = payloadMap.get(trimSlash(path));
+    final byte[] retVal;
+
+    if (payload != null) {
+      retVal = payload.clone();
+    } else {
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the TCP port number the server listens on.
+   *
+   * @return the port number.
+   */
+  public int getTcpPortNumber() {
+    return server.getAddress().getPort();
+  }
+
+  private static Map<String, byte[]> readPayloads(final String... pathArray) throws IOException {
+    final Map<String, byte[]> map = new HashMap<>();
+
+    for (String path : pathArray) {
+      final String resourceName = RESOURCE_DIRECTORY + path + RESOURCE_FILE_NAME;
+
+      try (InputStream in = RedHxMockupServer.class.getResourceAsStream(resourceName)) {
+        if (in == null) {
+          throw new IOException(
+              "The mockup resource " + resourceName + " is not on the class path.");
+        }
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final byte[] byteArray = new byte[4096];
+        int count = in.read(byteArray);
+
+        while (count != -1) {
+          buffer.write(byteArray, 0, count);
+          count = in.read(byteArray);
+        }
+
+        map.put(path, buffer.toByteArray());
+      }
+    }
+
+    return Collections.unmodifiableMap(map);
+  }
+
+  private static String trimSlash(final String path) {
+    final String retVal;
+
+    if ((path.length() > 1) && path.endsWith("/")) {
+      retVal = path.substring(0, path.length() - 1);
+    } else {
+      retVal = path;
+    }
+
+    return retVal;
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    try {
+      final byte[] payload = payloadMap.get(trimSlash(exchange.getRequestURI().getPath()));
+
+      if (payload != null) {
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, payload.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(payload);
+        }
+      } else {
+        exchange.sendResponseHeaders(404, -1);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.chassis.RedHxChassisBuilder;
+import org.redhelix.core.chassis.RedHxChassisCollection;
+import org.redhelix.core.chassis.RedHxChassisColumnFormatter;
+import org.redhelix.core.computer.system.RedHxComputerSystem;
+import org.redhelix.core.computer.system.RedHxComputerSystemColumnFormatter;
+import org.redhelix.core.util.RedHxColumnOutputFormatter.PrintOrder;
+import org.redhelix.core.util.RedHxHttpResponseException;
+import org.redhelix.core.util.RedHxParseException;
+import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.core.util.RedHxUriPathImpl;
+import org.redhelix.server.lib.reader.chassis.RedHxChassisCollectionReader;
+import org.redhelix.server.lib.reader.computer.system.RedHxComputerSystemCollectionReader;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * the time and allocation of the model layer with no HTTP or JSON: building a chassis with
+ * {@link RedHxChassisBuilder} from the values of the DMTF mockup chassis, and printing the mockup
+ * chassis and computer system with the column formatters. The chassis and computer system printed
+ * are read from the {@link RedHxMockupServer} once when the trial starts.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RedHxModelBenchmark {
+
+  private static final String COLUMN_DELIMITER = "  ";
+  private static final List<String> COMPUTER_SYSTEM_LIST =
+      Collections.singletonList(RedHxMockupServer.COMPUTER_SYSTEM_PATH);
+  private static final List<String> SYSTEM_MANAGER_LIST =
+      Collections.singletonList("/redfish/v1/Managers/1");
+
+  @Param({"ALPHA", "SECTION"})
+  public String printOrder;
+  private RedHxChassis chassis;
+  private RedHxChassisColumnFormatter chassisFormatter;
+  private RedHxComputerSystem computerSystem;
+  private RedHxComputerSystemColumnFormatter computerSystemFormatter;
+  private ByteArrayOutputStream output;
+  private PrintStream printStream;
+
+  @Setup
+  public void setUp() throws IOException, URISyntaxException, RedHxHttpResponseException,
+      RedHxParseException {
+    try (RedHxMockupServer server = new RedHxMockupServer(1)) {
+      final RedHxServerConnectionContext ctx = server.createContext();
+      final RedHxChassisCollection chassisCollection;
+
+      ctx.openConnection();
+      chassisCollection = RedHxChassisCollectionReader.readPaths(ctx, Collections
+          .<RedHxUriPath>singleton(new RedHxUriPathImpl(RedHxMockupServer.CHASSIS_PATH)));
+      chassis = chassisCollection.iterator().next();
+      computerSystem = RedHxComputerSystemCollectionReader.readPaths(ctx, chassisCollection)
+          .iterator().next();
+    }
+
+    if (PrintOrder.valueOf(printOrder) == PrintOrder.ALPHA) {
+      chassisFormatter = new RedHxChassisColumnFormatter(true, COLUMN_DELIMITER, true);
+      computerSystemFormatter =
+          new RedHxComputerSystemColumnFormatter(true, COLUMN_DELIMITER, true);
+    } else {
+      chassisFormatter = new RedHxChassisColumnFormatter(true, COLUMN_DELIMITER, true, true);
+      computerSystemFormatter =
+          new RedHxComputerSystemColumnFormatter(true, COLUMN_DELIMITER, true, true);
+    }
+
+    output = new ByteArrayOutputStream(8192);
+    printStream = createPrintStream(output);
+  }
+
+  @Benchmark
+  public RedHxChassis buildChassis() {
+    final RedHxChassisBuilder builder =
+        new RedHxChassisBuilder(RedHxChassisBuilder.convertChassisType("RackMount"));
+
+    builder.setPathToPower("/redfish/v1/Chassis/1/Power");
+    builder.setPathToThermal("/redfish/v1/Chassis/1/Thermal");
+    builder.setStatusHealth("OK");
+    builder.setOperatingState("Enabled");
+    builder.setAssetTag("CustomerWritableThingy");
+    builder.setChassisId("1");
+    builder.setIndicatorLed("Lit");
+    builder.setManufacturerName("ManufacturerName");
+    builder.setModelNumber("ProductModelName");
+    builder.setChassisName("Computer System Chassis");
+    builder.setSerialNumber("2M220100SL");
+    builder.setContainedByLink("/redfish/v1/Chassis/Rack1");
+    builder.setComputerSystemList(COMPUTER_SYSTEM_LIST);
+    builder.setContainsList(Collections.<String>emptyList());
+    builder.setCooledByList(Collections.<String>emptyList());
+    builder.setPoweredByList(Collections.<String>emptyList());
+    builder.setSystemManagerList(SYSTEM_MANAGER_LIST);
+
+    return builder.getInstance();
+  }
+
+  @Benchmark
+  public int printChassis() {
+    output.reset();
+    chassisFormatter.print(chassis, printStream);
+    printStream.flush();
+
+    return output.size();
+  }
+
+  @Benchmark
+  public int printComputerSystem() {
+    output.reset();
+    computerSystemFormatter.print(computerSystem, printStream);
+    printStream.flush();
+
+    return output.size();
+  }
+
+  private static PrintStream createPrintStream(final ByteArrayOutputStream out) {
+    try {
+      return new PrintStream(out, false, "UTF-8");
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
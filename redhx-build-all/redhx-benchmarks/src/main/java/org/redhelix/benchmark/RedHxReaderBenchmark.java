@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.benchmark;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redhelix.core.chassis.RedHxChassisCollection;
+import org.redhelix.core.computer.system.RedHxComputerSystemCollection;
+import org.redhelix.core.util.RedHxHttpResponseException;
+import org.redhelix.core.util.RedHxParseException;
+import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.core.util.RedHxUriPathImpl;
+import org.redhelix.server.lib.reader.chassis.RedHxChassisCollectionReader;
+import org.redhelix.server.lib.reader.computer.system.RedHxComputerSystemCollectionReader;
+import org.redhelix.server.lib.reader.util.RedHxJsonParseModeEnum;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * the time and allocation of reading a chassis and a computer system from the DMTF mockup. Each
+ * operation is one HTTP GET to the {@link RedHxMockupServer} and one parse of the body by
+ * ChassisReader.readChassis or ComputerSystemReader.readComputerSystem, reached through the public
+ * collection readers with no read executor so the read runs on the benchmark thread.
+ *
+ * Both parse modes are measured. Run with -prof gc for the allocation rate.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RedHxReaderBenchmark {
+
+  @Param({"ENTITY_TREE", "STREAMING"})
+  public String parseMode;
+  private RedHxChassisCollection chassisCollection;
+  private Set<RedHxUriPath> chassisPathSet;
+  private RedHxServerConnectionContext ctx;
+  private RedHxMockupServer server;
+
+  @Setup
+  public void setUp() throws IOException, URISyntaxException, RedHxHttpResponseException,
+      RedHxParseException {
+    server = new RedHxMockupServer(1);
+    ctx = server.createContext();
+    ctx.setParseMode(RedHxJsonParseModeEnum.valueOf(parseMode));
+    ctx.openConnection();
+    chassisPathSet = Collections
+        .<RedHxUriPath>singleton(new RedHxUriPathImpl(RedHxMockupServer.CHASSIS_PATH));
+    chassisCollection = RedHxChassisCollectionReader.readPaths(ctx, chassisPathSet);
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.close();
+  }
+
+  @Benchmark
+  public RedHxChassisCollection readChassis()
+      throws RedHxHttpResponseException, URISyntaxException, RedHxParseException {
+    return RedHxChassisCollectionReader.readPaths(ctx, chassisPathSet);
+  }
+
+  @Benchmark
+  public RedHxComputerSystemCollection readComputerSystem()
+      throws RedHxHttpResponseException, URISyntaxException, RedHxParseException {
+    return RedHxComputerSystemCollectionReader.readPaths(ctx, chassisCollection);
+  }
+}
@@ -156,109 +156,118 @@ final class ChassisImpl implements RedHxChassis {
 
   @Override
   public boolean equals(Object obj) {
-    if (this == obj) {
-      return true;
-    }
+    return isEqual(this, obj);
+  }
 
-    if (obj == null) {
-      return false;
+  /**
+   * test if an object is a chassis with the same properties. Every implementation of RedHxChassis
+   * in this package compares with this method, so a chassis equals a view of a
+   * {@link RedHxChassisColumnCollection} with the same values and the other way around.
+   *
+   * @param chassis the chassis whose equals method is called.
+   * @param obj the object compared to it.
+   * @return true if the object is a RedHxChassis and every property is equal.
+   */
+  static boolean isEqual(final RedHxChassis chassis, final Object obj) {
+    if (chassis == obj) {
+      return true;
     }
 
-    if (getClass() != obj.getClass()) {
+    if (!(obj instanceof RedHxChassis)) {
       return false;
     }
 
-    final ChassisImpl other = (ChassisImpl) obj;
+    final RedHxChassis other = (RedHxChassis) obj;
 
-    if (!Objects.equals(this.actionGroup, other.actionGroup)) {
+    if (!Objects.equals(chassis.getActionGroup(), other.getActionGroup())) {
       return false;
     }
 
-    if (!Objects.equals(this.assetTag, other.assetTag)) {
+    if (!Objects.equals(chassis.getAssetTag(), other.getAssetTag())) {
       return false;
     }
 
-    if (!Objects.equals(this.chassisDescription, other.chassisDescription)) {
+    if (!Objects.equals(chassis.getChassisDescription(), other.getChassisDescription())) {
       return false;
     }
 
-    if (!Objects.equals(this.chassisId, other.chassisId)) {
+    if (!Objects.equals(chassis.getChassisId(), other.getChassisId())) {
       return false;
     }
 
-    if (!Objects.equals(this.chassisName, other.chassisName)) {
+    if (!Objects.equals(chassis.getChassisName(), other.getChassisName())) {
       return false;
     }
 
-    if (this.chassisType != other.chassisType) {
+    if (chassis.getChassisType() != other.getChassisType()) {
       return false;
     }
 
-    if (!Objects.equals(this.computerSystemUriPathList, other.computerSystemUriPathList)) {
+    if (!Objects.equals(chassis.getComputerSystemUriPathList(), other.getComputerSystemUriPathList())) {
       return false;
     }
 
-    if (!Objects.equals(this.containedByUriPath, other.containedByUriPath)) {
+    if (!Objects.equals(chassis.getContainedByUriPath(), other.getContainedByUriPath())) {
       return false;
     }
 
-    if (!Objects.equals(this.containsList, other.containsList)) {
+    if (!Objects.equals(chassis.getContainsList(), other.getContainsList())) {
       return false;
     }
 
-    if (!Objects.equals(this.cooledByUriPathList, other.cooledByUriPathList)) {
+    if (!Objects.equals(chassis.getCooledByUriPathList(), other.getCooledByUriPathList())) {
       return false;
     }
 
-    if (this.ledState != other.ledState) {
+    if (chassis.getIndicatorLedState() != other.getIndicatorLedState()) {
       return false;
     }
 
-    if (!Objects.equals(this.logServicesUriPath, other.logServicesUriPath)) {
+    if (!Objects.equals(chassis.getLogServicesUriPath(), other.getLogServicesUriPath())) {
       return false;
     }
 
-    if (!Objects.equals(this.manufacturerName, other.manufacturerName)) {
+    if (!Objects.equals(chassis.getManufacturerName(), other.getManufacturerName())) {
       return false;
     }
 
-    if (!Objects.equals(this.modelNumber, other.modelNumber)) {
+    if (!Objects.equals(chassis.getModelNumber(), other.getModelNumber())) {
       return false;
     }
 
-    if (this.operatingHealth != other.operatingHealth) {
+    if (chassis.getOperatingHealth() != other.getOperatingHealth()) {
       return false;
     }
 
-    if (this.operatingState != other.operatingState) {
+    if (chassis.getOperatingState() != other.getOperatingState()) {
       return false;
     }
 
-    if (!Objects.equals(this.partNumber, other.partNumber)) {
+    if (!Objects.equals(chassis.getPartNumber(), other.getPartNumber())) {
       return false;
     }
 
-    if (!Objects.equals(this.poweredByList, other.poweredByList)) {
+    if (!Objects.equals(chassis.getPoweredByList(), other.getPoweredByList())) {
       return false;
     }
 
-    if (!Objects.equals(this.powerUriPath, other.powerUriPath)) {
+    if (!Objects.equals(chassis.getPowerUriPath(), other.getPowerUriPath())) {
       return false;
     }
 
-    if (!Objects.equals(this.serialNumber, other.serialNumber)) {
+    if (!Objects.equals(chassis.getSerialNumber(), other.getSerialNumber())) {
       return false;
     }
 
-    if (!Objects.equals(this.sku, other.sku)) {
+    if (!Objects.equals(chassis.getSku(), other.getSku())) {
       return false;
     }
 
-    if (!Objects.equals(this.systemManagerUriPathList, other.systemManagerUriPathList)) {
+    if (!Objects.equals(chassis.getSystemManagerUriPathList(), other.getSystemManagerUriPathList())) {
       return false;
     }
 
-    if (!Objects.equals(this.thermalUriPath, other.thermalUriPath)) {
+    if (!Objects.equals(chassis.getThermalUriPath(), other.getThermalUriPath())) {
       return false;
     }
 
@@ -382,11 +391,22 @@ final class ChassisImpl implements RedHxChassis {
 
   @Override
   public int hashCode() {
+    return getHashCode(this);
+  }
+
+  /**
+   * get the hash code of a chassis from the properties {@link #isEqual(RedHxChassis, Object)}
+   * compares, the same for every implementation of RedHxChassis in this package.
+   *
+   * @param chassis the chassis.
+   * @return the hash code.
+   */
+  static int getHashCode(final RedHxChassis chassis) {
     int hash = 5;
 
-    hash = 29 * hash + Objects.hashCode(this.assetTag);
-    hash = 29 * hash + Objects.hashCode(this.chassisId);
-    hash = 29 * hash + Objects.hashCode(this.serialNumber);
+    hash = 29 * hash + Objects.hashCode(chassis.getAssetTag());
+    hash = 29 * hash + Objects.hashCode(chassis.getChassisId());
+    hash = 29 * hash + Objects.hashCode(chassis.getSerialNumber());
 
     return hash;
   }
@@ -43,6 +43,7 @@ import org.redhelix.core.chassis.id.RedHxChassisSerialNumberImpl;
 import org.redhelix.core.util.RedHxIndicatorLedStateEnum;
 import org.redhelix.core.util.RedHxOperatingHealthEnum;
 import org.redhelix.core.util.RedHxOperatingStateEnum;
+import org.redhelix.core.util.RedHxStringPropertyInterner;
 import org.redhelix.core.util.RedHxUriPath;
 import org.redhelix.core.util.RedHxUriPathImpl;
 
@@ -122,7 +123,8 @@ public final class RedHxChassisBuilder {
 
   public void setChassisDescription(String value) {
     if (!value.isEmpty()) {
-      chassisDescription = new RedHxChassisDescriptionImpl(value);
+      chassisDescription =
+          RedHxStringPropertyInterner.intern(new RedHxChassisDescriptionImpl(value));
     } else {
       chassisDescription = null;
     }
@@ -130,7 +132,7 @@ public final class RedHxChassisBuilder {
 
   public void setChassisId(String value) {
     if (!value.isEmpty()) {
-      chassisId = new RedHxChassisIdImpl(value);
+      chassisId = RedHxStringPropertyInterner.intern(new RedHxChassisIdImpl(value));
     } else {
       chassisId = null;
     }
@@ -138,7 +140,7 @@ public final class RedHxChassisBuilder {
 
   public void setChassisModelName(String value) {
     if (!value.isEmpty()) {
-      modelNumber = new RedHxChassisModelNumberImpl(value);
+      modelNumber = RedHxStringPropertyInterner.intern(new RedHxChassisModelNumberImpl(value));
     } else {
       modelNumber = null;
     }
@@ -146,7 +148,7 @@ public final class RedHxChassisBuilder {
 
   public void setChassisName(String value) {
     if (!value.isEmpty()) {
-      chassisName = new RedHxChassisNameImpl(value);
+      chassisName = RedHxStringPropertyInterner.intern(new RedHxChassisNameImpl(value));
     } else {
       chassisName = null;
     }
@@ -156,7 +158,7 @@ public final class RedHxChassisBuilder {
     List<RedHxUriPath> list = new ArrayList<>();
 
     for (String str : valueList) {
-      list.add(new RedHxUriPathImpl(str));
+      list.add(RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(str)));
     }
 
     Collections.sort(list);
@@ -164,14 +166,14 @@ public final class RedHxChassisBuilder {
   }
 
   public void setContainedByLink(String value) {
-    containedByUriPath = new RedHxUriPathImpl(value);
+    containedByUriPath = RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(value));
   }
 
   public void setContainsList(List<String> valueList) {
     List<RedHxUriPathImpl> list = new ArrayList<>();
 
     for (String str : valueList) {
-      list.add(new RedHxUriPathImpl(str));
+      list.add(RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(str)));
     }
 
     Collections.sort(list);
@@ -182,7 +184,7 @@ public final class RedHxChassisBuilder {
     List<RedHxUriPathImpl> list = new ArrayList<>();
 
     for (String str : valueList) {
-      list.add(new RedHxUriPathImpl(str));
+      list.add(RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(str)));
     }
 
     Collections.sort(list);
@@ -200,7 +202,8 @@ public final class RedHxChassisBuilder {
 
   public void setManufacturerName(String value) {
     if (!value.isEmpty()) {
-      this.manufacturerName = new RedHxChassisManufacturerNameImpl(value);
+      this.manufacturerName =
+          RedHxStringPropertyInterner.intern(new RedHxChassisManufacturerNameImpl(value));
     } else {
       manufacturerName = null;
     }
@@ -208,7 +211,7 @@ public final class RedHxChassisBuilder {
 
   public void setModelNumber(String value) {
     if (!value.isEmpty()) {
-      modelNumber = new RedHxChassisModelNumberImpl(value);
+      modelNumber = RedHxStringPropertyInterner.intern(new RedHxChassisModelNumberImpl(value));
     } else {
       modelNumber = null;
     }
@@ -227,19 +230,19 @@ public final class RedHxChassisBuilder {
 
   public void setPartNumber(String value) {
     if (!value.isEmpty()) {
-      partNumber = new RedHxChassisPartNumberImpl(value);
+      partNumber = RedHxStringPropertyInterner.intern(new RedHxChassisPartNumberImpl(value));
     } else {
       partNumber = null;
     }
   }
 
   public void setPathToLogServices(String value) {
-    logServicesUriPath = new RedHxUriPathImpl(value);
+    logServicesUriPath = RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(value));
   }
 
   public void setPathToPower(String value) {
     if (!value.isEmpty()) {
-      powerUriPath = new RedHxUriPathImpl(value);
+      powerUriPath = RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(value));
     } else {
       powerUriPath = null;
     }
@@ -247,7 +250,7 @@ public final class RedHxChassisBuilder {
 
   public void setPathToThermal(String value) {
     if (!value.isEmpty()) {
-      thermalUriPath = new RedHxUriPathImpl(value);
+      thermalUriPath = RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(value));
     } else {
       thermalUriPath = null;
     }
@@ -257,7 +260,7 @@ public final class RedHxChassisBuilder {
     List<RedHxUriPathImpl> list = new ArrayList<>();
 
     for (String str : valueList) {
-      list.add(new RedHxUriPathImpl(str));
+      list.add(RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(str)));
     }
 
     Collections.sort(list);
@@ -274,7 +277,7 @@ public final class RedHxChassisBuilder {
 
   public void setSku(String value) {
     if (!value.isEmpty()) {
-      sku = new RedHxChassisSKUImpl(value);
+      sku = RedHxStringPropertyInterner.intern(new RedHxChassisSKUImpl(value));
     } else {
       sku = null;
     }
@@ -295,7 +298,7 @@ public final class RedHxChassisBuilder {
     List<RedHxUriPathImpl> list = new ArrayList<>();
 
     for (String str : valueList) {
-      list.add(new RedHxUriPathImpl(str));
+      list.add(RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(str)));
     }
 
     Collections.sort(list);
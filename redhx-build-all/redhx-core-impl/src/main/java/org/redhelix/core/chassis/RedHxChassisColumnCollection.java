@@ -0,0 +1,550 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.core.chassis;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import org.redhelix.core.action.RedHxActionGroup;
+import org.redhelix.core.annotations.Immutable;
+import org.redhelix.core.chassis.id.RedHxChassisAssetTag;
+import org.redhelix.core.chassis.id.RedHxChassisDescription;
+import org.redhelix.core.chassis.id.RedHxChassisId;
+import org.redhelix.core.chassis.id.RedHxChassisManufacturerName;
+import org.redhelix.core.chassis.id.RedHxChassisModelNumber;
+import org.redhelix.core.chassis.id.RedHxChassisName;
+import org.redhelix.core.chassis.id.RedHxChassisPartNumber;
+import org.redhelix.core.chassis.id.RedHxChassisSKU;
+import org.redhelix.core.chassis.id.RedHxChassisSerialNumber;
+import org.redhelix.core.util.RedHxIndicatorLedStateEnum;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+import org.redhelix.core.util.RedHxOperatingStateEnum;
+import org.redhelix.core.util.RedHxStringProperty;
+import org.redhelix.core.util.RedHxUriPath;
+
+/**
+ * a collection of chassis stored column by column for an inventory of a whole fleet. A
+ * {@link RedHxChassisCollectionImpl} holds a chassis object with about twenty references for each
+ * chassis, this collection holds one array for each property instead:
+ *
+ * <ul>
+ * <li>an enumeration is a byte array of the ordinal plus one, zero is null.</li>
+ * <li>a string property, URI path or action group is an int array of indexes into a dictionary of
+ * the distinct values of the collection, zero is null. A manufacturer shared by every chassis is
+ * held once.</li>
+ * <li>a list of URI paths is an array of offsets into one flat int array of dictionary indexes.
+ * </li>
+ * </ul>
+ *
+ * A {@link RedHxChassis} returned by {@link #get(int)} or the iterator is a view of one row that
+ * reads the columns when a property is asked for. A scan such as {@link #getChassisList(
+ * RedHxOperatingHealthEnum)} reads a single byte array and creates no object for a chassis that
+ * does not match.
+ *
+ * A collection is created with {@link RedHxChassisColumnCollectionBuilder}.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@Immutable
+public final class RedHxChassisColumnCollection implements RedHxChassisCollection {
+
+  static final int VALUE_ACTION_GROUP = 0;
+  static final int VALUE_ASSET_TAG = 1;
+  static final int VALUE_CHASSIS_DESCRIPTION = 2;
+  static final int VALUE_CHASSIS_ID = 3;
+  static final int VALUE_CHASSIS_NAME = 4;
+  static final int VALUE_CONTAINED_BY_URI_PATH = 5;
+  static final int VALUE_LOG_SERVICES_URI_PATH = 6;
+  static final int VALUE_MANUFACTURER_NAME = 7;
+  static final int VALUE_MODEL_NUMBER = 8;
+  static final int VALUE_PART_NUMBER = 9;
+  static final int VALUE_POWER_URI_PATH = 10;
+  static final int VALUE_SERIAL_NUMBER = 11;
+  static final int VALUE_SKU = 12;
+  static final int VALUE_THERMAL_URI_PATH = 13;
+  static final int VALUE_COLUMN_COUNT = 14;
+  static final int ENUM_CHASSIS_TYPE = 0;
+  static final int ENUM_LED_STATE = 1;
+  static final int ENUM_OPERATING_HEALTH = 2;
+  static final int ENUM_OPERATING_STATE = 3;
+  static final int ENUM_COLUMN_COUNT = 4;
+  static final int LINK_COMPUTER_SYSTEM = 0;
+  static final int LINK_CONTAINS = 1;
+  static final int LINK_COOLED_BY = 2;
+  static final int LINK_POWERED_BY = 3;
+  static final int LINK_SYSTEM_MANAGER = 4;
+  static final int LINK_COLUMN_COUNT = 5;
+  private static final RedHxChassisTypeEnum[] CHASSIS_TYPE_ARRAY = RedHxChassisTypeEnum.values();
+  private static final RedHxIndicatorLedStateEnum[] LED_STATE_ARRAY =
+      RedHxIndicatorLedStateEnum.values();
+  private static final RedHxOperatingHealthEnum[] OPERATING_HEALTH_ARRAY =
+      RedHxOperatingHealthEnum.values();
+  private static final RedHxOperatingStateEnum[] OPERATING_STATE_ARRAY =
+      RedHxOperatingStateEnum.values();
+
+  /**
+   * the distinct values of the collection. The value at index zero is null.
+   */
+  private final Object[] dictionaryArray;
+  private final byte[][] enumColumnArray;
+  private final LinkColumn[] linkColumnArray;
+  private final int size;
+  private final int[][] valueColumnArray;
+
+  RedHxChassisColumnCollection(final int size, final Object[] dictionaryArray,
+      final int[][] valueColumnArray, final byte[][] enumColumnArray,
+      final LinkColumn[] linkColumnArray) {
+    this.size = size;
+    this.dictionaryArray = dictionaryArray;
+    this.valueColumnArray = valueColumnArray;
+    this.enumColumnArray = enumColumnArray;
+    this.linkColumnArray = linkColumnArray;
+  }
+
+  private RedHxChassisColumnCollection() {
+    this.size = 0;
+    this.dictionaryArray = null;
+    this.valueColumnArray = null;
+    this.enumColumnArray = null;
+    this.linkColumnArray = null;
+  }
+
+  /**
+   * get the chassis at an index.
+   *
+   * @param index the index of the chassis, from zero to one less than {@link #size()}.
+   * @return a view of the chassis. A null is not returned.
+   * @throws IndexOutOfBoundsException if the index is not in the collection.
+   */
+  public RedHxChassis get(final int index) {
+    if ((index < 0) || (index >= size)) {
+      throw new IndexOutOfBoundsException("Index " + index + " is not in a collection of " + size
+          + " chassis.");
+    }
+
+    return new ChassisView(this, index);
+  }
+
+  /**
+   * get every chassis of a type.
+   *
+   * @param chassisType the type to find. If null the chassis without a type are returned.
+   * @return the chassis in the order of the collection. A null is not returned.
+   */
+  public List<RedHxChassis> getChassisList(final RedHxChassisTypeEnum chassisType) {
+    return select(enumColumnArray[ENUM_CHASSIS_TYPE], encode(chassisType));
+  }
+
+  /**
+   * get every chassis with an operating health, for example all chassis with a health of
+   * {@link RedHxOperatingHealthEnum#WARNING}.
+   *
+   * @param operatingHealth the health to find. If null the chassis without a health are returned.
+   * @return the chassis in the order of the collection. A null is not returned.
+   */
+  public List<RedHxChassis> getChassisList(final RedHxOperatingHealthEnum operatingHealth) {
+    return select(enumColumnArray[ENUM_OPERATING_HEALTH], encode(operatingHealth));
+  }
+
+  /**
+   * get every chassis in an operating state.
+   *
+   * @param operatingState the state to find. If null the chassis without a state are returned.
+   * @return the chassis in the order of the collection. A null is not returned.
+   */
+  public List<RedHxChassis> getChassisList(final RedHxOperatingStateEnum operatingState) {
+    return select(enumColumnArray[ENUM_OPERATING_STATE], encode(operatingState));
+  }
+
+  /**
+   * get the number of distinct property values held by the collection.
+   *
+   * @return the number of values.
+   */
+  public int getDictionarySize() {
+    return dictionaryArray.length - 1;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public Iterator<RedHxChassis> iterator() {
+    return new Iterator<RedHxChassis>() {
+
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @Override
+      public RedHxChassis next() {
+        if (index >= size) {
+          throw new NoSuchElementException();
+        }
+
+        return new ChassisView(RedHxChassisColumnCollection.this, index++);
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return new ViewList(this, null).toString();
+  }
+
+  static byte encode(final Enum<?> value) {
+    final byte retVal;
+
+    if (value == null) {
+      retVal = 0;
+    } else {
+      retVal = (byte) (value.ordinal() + 1);
+    }
+
+    return retVal;
+  }
+
+  private static <E> E decode(final E[] valueArray, final byte code) {
+    final E retVal;
+
+    if (code == 0) {
+      retVal = null;
+    } else {
+      retVal = valueArray[(code & 0xff) - 1];
+    }
+
+    return retVal;
+  }
+
+  private byte getEnum(final int column, final int index) {
+    return enumColumnArray[column][index];
+  }
+
+  private List<RedHxUriPath> getLinkList(final int column, final int index) {
+    final LinkColumn link = linkColumnArray[column];
+    final List<RedHxUriPath> retVal;
+
+    if (link.nullSet.get(index)) {
+      retVal = null;
+    } else {
+      retVal = new LinkList(this, link.valueArray, link.offsetArray[index],
+          link.offsetArray[index + 1]);
+    }
+
+    return retVal;
+  }
+
+  private Object getValue(final int column, final int index) {
+    return dictionaryArray[valueColumnArray[column][index]];
+  }
+
+  private List<RedHxChassis> select(final byte[] column, final byte code) {
+    int count = 0;
+
+    for (int index = 0; index < size; ++index) {
+      if (column[index] == code) {
+        ++count;
+      }
+    }
+
+    final int[] indexArray = new int[count];
+    int position = 0;
+
+    for (int index = 0; (index < size) && (position < count); ++index) {
+      if (column[index] == code) {
+        indexArray[position++] = index;
+      }
+    }
+
+    return new ViewList(this, indexArray);
+  }
+
+  /**
+   * a column of URI path lists. The paths of the chassis at an index are the dictionary indexes in
+   * valueArray from offsetArray[index] up to offsetArray[index + 1].
+   */
+  static final class LinkColumn {
+
+    private final BitSet nullSet;
+    private final int[] offsetArray;
+    private final int[] valueArray;
+
+    LinkColumn(final int[] offsetArray, final int[] valueArray, final BitSet nullSet) {
+      this.offsetArray = offsetArray;
+      this.valueArray = valueArray;
+      this.nullSet = nullSet;
+    }
+  }
+
+  /**
+   * one chassis of the collection. Each property is read from the columns when it is asked for.
+   */
+  private static final class ChassisView implements RedHxChassis {
+
+    private final RedHxChassisColumnCollection collection;
+    private final int index;
+
+    ChassisView(final RedHxChassisColumnCollection collection, final int index) {
+      this.collection = collection;
+      this.index = index;
+    }
+
+    /**
+     * a view is equal to any chassis, another view or a {@link ChassisImpl}, whose properties are
+     * all equal. Views of different collections or of different rows can be equal.
+     */
+    @Override
+    public boolean equals(final Object obj) {
+      return ChassisImpl.isEqual(this, obj);
+    }
+
+    @Override
+    public RedHxActionGroup getActionGroup() {
+      return (RedHxActionGroup) collection.getValue(VALUE_ACTION_GROUP, index);
+    }
+
+    @Override
+    public RedHxChassisAssetTag getAssetTag() {
+      return (RedHxChassisAssetTag) collection.getValue(VALUE_ASSET_TAG, index);
+    }
+
+    @Override
+    public RedHxChassisDescription getChassisDescription() {
+      return (RedHxChassisDescription) collection.getValue(VALUE_CHASSIS_DESCRIPTION, index);
+    }
+
+    @Override
+    public RedHxChassisId getChassisId() {
+      return (RedHxChassisId) collection.getValue(VALUE_CHASSIS_ID, index);
+    }
+
+    @Override
+    public RedHxChassisName getChassisName() {
+      return (RedHxChassisName) collection.getValue(VALUE_CHASSIS_NAME, index);
+    }
+
+    @Override
+    public RedHxChassisTypeEnum getChassisType() {
+      return decode(CHASSIS_TYPE_ARRAY, collection.getEnum(ENUM_CHASSIS_TYPE, index));
+    }
+
+    @Override
+    public List<RedHxUriPath> getComputerSystemUriPathList() {
+      return collection.getLinkList(LINK_COMPUTER_SYSTEM, index);
+    }
+
+    @Override
+    public RedHxUriPath getContainedByUriPath() {
+      return (RedHxUriPath) collection.getValue(VALUE_CONTAINED_BY_URI_PATH, index);
+    }
+
+    @Override
+    public List<RedHxUriPath> getContainsList() {
+      return collection.getLinkList(LINK_CONTAINS, index);
+    }
+
+    @Override
+    public List<RedHxUriPath> getCooledByUriPathList() {
+      return collection.getLinkList(LINK_COOLED_BY, index);
+    }
+
+    @Override
+    public RedHxIndicatorLedStateEnum getIndicatorLedState() {
+      return decode(LED_STATE_ARRAY, collection.getEnum(ENUM_LED_STATE, index));
+    }
+
+    @Override
+    public RedHxUriPath getLogServicesUriPath() {
+      return (RedHxUriPath) collection.getValue(VALUE_LOG_SERVICES_URI_PATH, index);
+    }
+
+    @Override
+    public RedHxChassisManufacturerName getManufacturerName() {
+      return (RedHxChassisManufacturerName) collection.getValue(VALUE_MANUFACTURER_NAME, index);
+    }
+
+    @Override
+    public RedHxChassisModelNumber getModelNumber() {
+      return (RedHxChassisModelNumber) collection.getValue(VALUE_MODEL_NUMBER, index);
+    }
+
+    @Override
+    public RedHxOperatingHealthEnum getOperatingHealth() {
+      return decode(OPERATING_HEALTH_ARRAY, collection.getEnum(ENUM_OPERATING_HEALTH, index));
+    }
+
+    @Override
+    public RedHxOperatingStateEnum getOperatingState() {
+      return decode(OPERATING_STATE_ARRAY, collection.getEnum(ENUM_OPERATING_STATE, index));
+    }
+
+    @Override
+    public RedHxChassisPartNumber getPartNumber() {
+      return (RedHxChassisPartNumber) collection.getValue(VALUE_PART_NUMBER, index);
+    }
+
+    @Override
+    public List<RedHxUriPath> getPoweredByList() {
+      return collection.getLinkList(LINK_POWERED_BY, index);
+    }
+
+    @Override
+    public RedHxUriPath getPowerUriPath() {
+      return (RedHxUriPath) collection.getValue(VALUE_POWER_URI_PATH, index);
+    }
+
+    @Override
+    public RedHxChassisSerialNumber getSerialNumber() {
+      return (RedHxChassisSerialNumber) collection.getValue(VALUE_SERIAL_NUMBER, index);
+    }
+
+    @Override
+    public RedHxChassisSKU getSku() {
+      return (RedHxChassisSKU) collection.getValue(VALUE_SKU, index);
+    }
+
+    @Override
+    public List<RedHxUriPath> getSystemManagerUriPathList() {
+      return collection.getLinkList(LINK_SYSTEM_MANAGER, index);
+    }
+
+    @Override
+    public RedHxUriPath getThermalUriPath() {
+      return (RedHxUriPath) collection.getValue(VALUE_THERMAL_URI_PATH, index);
+    }
+
+    @Override
+    public int hashCode() {
+      return ChassisImpl.getHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder sb = new StringBuilder("{");
+
+      sb.append("chassisId=").append(getString(getChassisId()));
+      sb.append(", chassisName=").append(getString(getChassisName()));
+      sb.append(", chassisType=").append(getChassisType());
+      sb.append(", manufacturerName=").append(getString(getManufacturerName()));
+      sb.append(", modelNumber=").append(getString(getModelNumber()));
+      sb.append(", serialNumber=").append(getString(getSerialNumber()));
+      sb.append(", operatingHealth=").append(getOperatingHealth());
+      sb.append(", operatingState=").append(getOperatingState());
+      sb.append('}');
+
+      return sb.toString();
+    }
+
+    private static String getString(final RedHxStringProperty property) {
+      final String retVal;
+
+      if (property == null) {
+        retVal = null;
+      } else {
+        retVal = property.getValue();
+      }
+
+      return retVal;
+    }
+  }
+
+  /**
+   * the URI paths of one list column of one chassis.
+   */
+  private static final class LinkList extends AbstractList<RedHxUriPath> implements RandomAccess {
+
+    private final RedHxChassisColumnCollection collection;
+    private final int end;
+    private final int start;
+    private final int[] valueArray;
+
+    LinkList(final RedHxChassisColumnCollection collection, final int[] valueArray,
+        final int start, final int end) {
+      this.collection = collection;
+      this.valueArray = valueArray;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public RedHxUriPath get(final int index) {
+      if ((index < 0) || (index >= (end - start))) {
+        throw new IndexOutOfBoundsException("Index " + index + " is not in a list of "
+            + (end - start) + " paths.");
+      }
+
+      return (RedHxUriPath) collection.dictionaryArray[valueArray[start + index]];
+    }
+
+    @Override
+    public int size() {
+      return end - start;
+    }
+  }
+
+  /**
+   * the chassis at a set of indexes, or every chassis if there is no index array.
+   */
+  private static final class ViewList extends AbstractList<RedHxChassis> implements RandomAccess {
+
+    private final RedHxChassisColumnCollection collection;
+    private final int[] indexArray;
+
+    ViewList(final RedHxChassisColumnCollection collection, final int[] indexArray) {
+      this.collection = collection;
+      this.indexArray = indexArray;
+    }
+
+    @Override
+    public RedHxChassis get(final int index) {
+      final RedHxChassis retVal;
+
+      if (indexArray == null) {
+        retVal = collection.get(index);
+      } else {
+        retVal = new ChassisView(collection, indexArray[index]);
+      }
+
+      return retVal;
+    }
+
+    @Override
+    public int size() {
+      final int retVal;
+
+      if (indexArray == null) {
+        retVal = collection.size;
+      } else {
+        retVal = indexArray.length;
+      }
+
+      return retVal;
+    }
+  }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.core.chassis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.redhelix.core.annotations.NotThreadSafe;
+import org.redhelix.core.chassis.RedHxChassisColumnCollection.LinkColumn;
+import org.redhelix.core.util.RedHxUriPath;
+
+/**
+ * create a {@link RedHxChassisColumnCollection} one chassis at a time. Each property value is
+ * looked up in a dictionary of the values already added, a value that is equal to one added before
+ * is stored as the index of that value.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@NotThreadSafe
+public final class RedHxChassisColumnCollectionBuilder {
+
+  private static final int DEFAULT_CAPACITY = 16;
+  private final List<Object> dictionaryList;
+  private final Map<Object, Integer> dictionaryMap;
+  private final byte[][] enumColumnArray;
+  private final LinkColumnBuilder[] linkColumnArray;
+  private final int[][] valueColumnArray;
+  private int size;
+
+  public RedHxChassisColumnCollectionBuilder() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * create a builder.
+   *
+   * @param capacity the number of chassis expected. The columns grow if more are added.
+   */
+  public RedHxChassisColumnCollectionBuilder(final int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Argument \"capacity\" can not be negative.");
+    }
+
+    this.dictionaryList = new ArrayList<>();
+    this.dictionaryMap = new HashMap<>();
+    this.valueColumnArray =
+        new int[RedHxChassisColumnCollection.VALUE_COLUMN_COUNT][Math.max(capacity, 1)];
+    this.enumColumnArray =
+        new byte[RedHxChassisColumnCollection.ENUM_COLUMN_COUNT][Math.max(capacity, 1)];
+    this.linkColumnArray = new LinkColumnBuilder[RedHxChassisColumnCollection.LINK_COLUMN_COUNT];
+
+    for (int column = 0; column < linkColumnArray.length; ++column) {
+      linkColumnArray[column] = new LinkColumnBuilder(Math.max(capacity, 1));
+    }
+
+    dictionaryList.add(null);
+  }
+
+  /**
+   * add a chassis after the chassis already added.
+   *
+   * @param chassis the chassis to add. This shall not be null.
+   * @return this builder.
+   */
+  public RedHxChassisColumnCollectionBuilder add(final RedHxChassis chassis) {
+    if (chassis == null) {
+      throw new IllegalArgumentException("Argument \"chassis\" can not be null.");
+    }
+
+    ensureCapacity(size + 1);
+
+    setValue(RedHxChassisColumnCollection.VALUE_ACTION_GROUP, chassis.getActionGroup());
+    setValue(RedHxChassisColumnCollection.VALUE_ASSET_TAG, chassis.getAssetTag());
+    setValue(RedHxChassisColumnCollection.VALUE_CHASSIS_DESCRIPTION,
+        chassis.getChassisDescription());
+    setValue(RedHxChassisColumnCollection.VALUE_CHASSIS_ID, chassis.getChassisId());
+    setValue(RedHxChassisColumnCollection.VALUE_CHASSIS_NAME, chassis.getChassisName());
+    setValue(RedHxChassisColumnCollection.VALUE_CONTAINED_BY_URI_PATH,
+        chassis.getContainedByUriPath());
+    setValue(RedHxChassisColumnCollection.VALUE_LOG_SERVICES_URI_PATH,
+        chassis.getLogServicesUriPath());
+    setValue(RedHxChassisColumnCollection.VALUE_MANUFACTURER_NAME, chassis.getManufacturerName());
+    setValue(RedHxChassisColumnCollection.VALUE_MODEL_NUMBER, chassis.getModelNumber());
+    setValue(RedHxChassisColumnCollection.VALUE_PART_NUMBER, chassis.getPartNumber());
+    setValue(RedHxChassisColumnCollection.VALUE_POWER_URI_PATH, chassis.getPowerUriPath());
+    setValue(RedHxChassisColumnCollection.VALUE_SERIAL_NUMBER, chassis.getSerialNumber());
+    setValue(RedHxChassisColumnCollection.VALUE_SKU, chassis.getSku());
+    setValue(RedHxChassisColumnCollection.VALUE_THERMAL_URI_PATH, chassis.getThermalUriPath());
+
+    setEnum(RedHxChassisColumnCollection.ENUM_CHASSIS_TYPE, chassis.getChassisType());
+    setEnum(RedHxChassisColumnCollection.ENUM_LED_STATE, chassis.getIndicatorLedState());
+    setEnum(RedHxChassisColumnCollection.ENUM_OPERATING_HEALTH, chassis.getOperatingHealth());
+    setEnum(RedHxChassisColumnCollection.ENUM_OPERATING_STATE, chassis.getOperatingState());
+
+    addLinkList(RedHxChassisColumnCollection.LINK_COMPUTER_SYSTEM,
+        chassis.getComputerSystemUriPathList());
+    addLinkList(RedHxChassisColumnCollection.LINK_CONTAINS, chassis.getContainsList());
+    addLinkList(RedHxChassisColumnCollection.LINK_COOLED_BY, chassis.getCooledByUriPathList());
+    addLinkList(RedHxChassisColumnCollection.LINK_POWERED_BY, chassis.getPoweredByList());
+    addLinkList(RedHxChassisColumnCollection.LINK_SYSTEM_MANAGER,
+        chassis.getSystemManagerUriPathList());
+
+    ++size;
+
+    return this;
+  }
+
+  /**
+   * add every chassis of a collection, in the order of the collection.
+   *
+   * @param chassisCollection the chassis to add. This shall not be null.
+   * @return this builder.
+   */
+  public RedHxChassisColumnCollectionBuilder addAll(
+      final Iterable<RedHxChassis> chassisCollection) {
+    if (chassisCollection == null) {
+      throw new IllegalArgumentException("Argument \"chassisCollection\" can not be null.");
+    }
+
+    for (RedHxChassis chassis : chassisCollection) {
+      add(chassis);
+    }
+
+    return this;
+  }
+
+  /**
+   * create the collection of the chassis added. The builder may be used to add more chassis and
+   * create another collection.
+   *
+   * @return the collection. A null is not returned.
+   */
+  public RedHxChassisColumnCollection getInstance() {
+    final int[][] valueColumnCopy = new int[valueColumnArray.length][];
+    final byte[][] enumColumnCopy = new byte[enumColumnArray.length][];
+    final LinkColumn[] linkColumnCopy = new LinkColumn[linkColumnArray.length];
+
+    for (int column = 0; column < valueColumnArray.length; ++column) {
+      valueColumnCopy[column] = Arrays.copyOf(valueColumnArray[column], size);
+    }
+
+    for (int column = 0; column < enumColumnArray.length; ++column) {
+      enumColumnCopy[column] = Arrays.copyOf(enumColumnArray[column], size);
+    }
+
+    for (int column = 0; column < linkColumnArray.length; ++column) {
+      linkColumnCopy[column] = linkColumnArray[column].getInstance(size);
+    }
+
+    return new RedHxChassisColumnCollection(size, dictionaryList.toArray(), valueColumnCopy,
+        enumColumnCopy, linkColumnCopy);
+  }
+
+  private void addLinkList(final int column, final List<RedHxUriPath> pathList) {
+    final LinkColumnBuilder link = linkColumnArray[column];
+
+    if (pathList == null) {
+      link.nullSet.set(size);
+    } else {
+      link.ensureCapacity(link.valueCount + pathList.size());
+
+      for (RedHxUriPath path : pathList) {
+        link.valueArray[link.valueCount++] = getDictionaryIndex(path);
+      }
+    }
+
+    link.offsetArray[size + 1] = link.valueCount;
+  }
+
+  private void ensureCapacity(final int capacity) {
+    if (capacity > valueColumnArray[0].length) {
+      final int newCapacity = Math.max(capacity, valueColumnArray[0].length * 2);
+
+      for (int column = 0; column < valueColumnArray.length; ++column) {
+        valueColumnArray[column] = Arrays.copyOf(valueColumnArray[column], newCapacity);
+      }
+
+      for (int column = 0; column < enumColumnArray.length; ++column) {
+        enumColumnArray[column] = Arrays.copyOf(enumColumnArray[column], newCapacity);
+      }
+
+      for (LinkColumnBuilder link : linkColumnArray) {
+        link.offsetArray = Arrays.copyOf(link.offsetArray, newCapacity + 1);
+      }
+    }
+  }
+
+  private int getDictionaryIndex(final Object value) {
+    final int retVal;
+
+    if (value == null) {
+      retVal = 0;
+    } else {
+      final Integer index = dictionaryMap.get(value);
+
+      if (index != null) {
+        retVal = index;
+      } else {
+        retVal = dictionaryList.size();
+        dictionaryList.add(value);
+        dictionaryMap.put(value, retVal);
+      }
+    }
+
+    return retVal;
+  }
+
+  private void setEnum(final int column, final Enum<?> value) {
+    enumColumnArray[column][size] = RedHxChassisColumnCollection.encode(value);
+  }
+
+  private void setValue(final int column, final Object value) {
+    valueColumnArray[column][size] = getDictionaryIndex(value);
+  }
+
+  /**
+   * a list column while chassis are added.
+   */
+  private static final class LinkColumnBuilder {
+
+    private final BitSet nullSet;
+    private int[] offsetArray;
+    private int[] valueArray;
+    private int valueCount;
+
+    LinkColumnBuilder(final int capacity) {
+      this.nullSet = new BitSet();
+      this.offsetArray = new int[capacity + 1];
+      this.valueArray = new int[capacity];
+    }
+
+    void ensureCapacity(final int capacity) {
+      if (capacity > valueArray.length) {
+        valueArray = Arrays.copyOf(valueArray, Math.max(capacity, valueArray.length * 2));
+      }
+    }
+
+    LinkColumn getInstance(final int size) {
+      return new LinkColumn(Arrays.copyOf(offsetArray, size + 1),
+          Arrays.copyOf(valueArray, valueCount), (BitSet) nullSet.clone());
+    }
+  }
+}
@@ -53,6 +53,7 @@ import org.redhelix.core.util.RedHxDnsHostName;
 import org.redhelix.core.util.RedHxDnsHostNameImpl;
 import org.redhelix.core.util.RedHxIndicatorLedStateEnum;
 import org.redhelix.core.util.RedHxOperatingStatus;
+import org.redhelix.core.util.RedHxStringPropertyInterner;
 import org.redhelix.core.util.RedHxUriPath;
 import org.redhelix.core.util.RedHxUriPathImpl;
 
@@ -138,7 +139,7 @@ public final class RedHxComputerSystemBuilder {
 
   public void setBiosVersion(final String value) {
     if (!value.isEmpty()) {
-      biosVersion = new RedHxComputerBiosVersionImpl(value);
+      biosVersion = RedHxStringPropertyInterner.intern(new RedHxComputerBiosVersionImpl(value));
     } else {
       biosVersion = null;
     }
@@ -162,7 +163,8 @@ public final class RedHxComputerSystemBuilder {
 
   public void setBootUefiTarget(final String value) {
     if (!value.isEmpty()) {
-      bootUefiTarget = new RedHxComputerBootUefiTargetSourceOverrideImpl(value);
+      bootUefiTarget = RedHxStringPropertyInterner
+          .intern(new RedHxComputerBootUefiTargetSourceOverrideImpl(value));
     } else {
       bootUefiTarget = null;
     }
@@ -172,7 +174,7 @@ public final class RedHxComputerSystemBuilder {
     List<RedHxUriPath> list = new ArrayList<>();
 
     for (String str : valueList) {
-      list.add(new RedHxUriPathImpl(str));
+      list.add(RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(str)));
     }
 
     Collections.sort(list);
@@ -181,7 +183,7 @@ public final class RedHxComputerSystemBuilder {
 
   public void setComputerId(final String value) {
     if (!value.isEmpty()) {
-      computerId = new RedHxComputerIdImpl(value);
+      computerId = RedHxStringPropertyInterner.intern(new RedHxComputerIdImpl(value));
     } else {
       computerId = null;
     }
@@ -189,7 +191,7 @@ public final class RedHxComputerSystemBuilder {
 
   public void setComputerName(final String value) {
     if (!value.isEmpty()) {
-      computerName = new RedHxComputerNameImpl(value);
+      computerName = RedHxStringPropertyInterner.intern(new RedHxComputerNameImpl(value));
     } else {
       computerName = null;
     }
@@ -201,7 +203,7 @@ public final class RedHxComputerSystemBuilder {
 
   public void setComputerSku(final String value) {
     if (!value.isEmpty()) {
-      computerSku = new RedHxComputerSKUImpl(value);
+      computerSku = RedHxStringPropertyInterner.intern(new RedHxComputerSKUImpl(value));
     } else {
       computerSku = null;
     }
@@ -211,7 +213,7 @@ public final class RedHxComputerSystemBuilder {
     List<RedHxUriPathImpl> list = new ArrayList<>();
 
     for (String str : valueList) {
-      list.add(new RedHxUriPathImpl(str));
+      list.add(RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(str)));
     }
 
     Collections.sort(list);
@@ -220,7 +222,7 @@ public final class RedHxComputerSystemBuilder {
 
   public void setDescription(final String value) {
     if (!value.isEmpty()) {
-      description = new RedHxComputerDescriptionImpl(value);
+      description = RedHxStringPropertyInterner.intern(new RedHxComputerDescriptionImpl(value));
     } else {
       description = null;
     }
@@ -249,7 +251,7 @@ public final class RedHxComputerSystemBuilder {
 
   public void setLogServicesUriPath(final String value) {
     if (!value.isEmpty()) {
-      logServicesUriPath = new RedHxUriPathImpl(value);
+      logServicesUriPath = RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(value));
     } else {
       logServicesUriPath = null;
     }
@@ -257,7 +259,8 @@ public final class RedHxComputerSystemBuilder {
 
   public void setManufacturerName(final String value) {
     if (!value.isEmpty()) {
-      manufacturerName = new RedHxComputerManufacturerNameImpl(value);
+      manufacturerName =
+          RedHxStringPropertyInterner.intern(new RedHxComputerManufacturerNameImpl(value));
     } else {
       manufacturerName = null;
     }
@@ -269,7 +272,8 @@ public final class RedHxComputerSystemBuilder {
 
   public void setModelName(final String value) {
     if (!value.isEmpty()) {
-      modelName = new RedHxComputerProcessorModelNameImpl(value);
+      modelName =
+          RedHxStringPropertyInterner.intern(new RedHxComputerProcessorModelNameImpl(value));
     } else {
       modelName = null;
     }
@@ -277,7 +281,7 @@ public final class RedHxComputerSystemBuilder {
 
   public void setModelNumber(final String value) {
     if (!value.isEmpty()) {
-      modelNumber = new RedHxComputerModelNumberImpl(value);
+      modelNumber = RedHxStringPropertyInterner.intern(new RedHxComputerModelNumberImpl(value));
     } else {
       modelNumber = null;
     }
@@ -285,21 +289,21 @@ public final class RedHxComputerSystemBuilder {
 
   public void setPartNumber(final String value) {
     if (!value.isEmpty()) {
-      partNumber = new RedHxComputerPartNumberImpl(value);
+      partNumber = RedHxStringPropertyInterner.intern(new RedHxComputerPartNumberImpl(value));
     } else {
       partNumber = null;
     }
   }
 
   public void setPathToLogServices(String value) {
-    logServicesUriPath = new RedHxUriPathImpl(value);
+    logServicesUriPath = RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(value));
   }
 
   public void setPoweredByList(List<String> valueList) {
     List<RedHxUriPathImpl> list = new ArrayList<>();
 
     for (String str : valueList) {
-      list.add(new RedHxUriPathImpl(str));
+      list.add(RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(str)));
     }
 
     Collections.sort(list);
@@ -338,7 +342,7 @@ public final class RedHxComputerSystemBuilder {
     List<RedHxUriPathImpl> list = new ArrayList<>();
 
     for (String str : valueList) {
-      list.add(new RedHxUriPathImpl(str));
+      list.add(RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(str)));
     }
 
     Collections.sort(list);
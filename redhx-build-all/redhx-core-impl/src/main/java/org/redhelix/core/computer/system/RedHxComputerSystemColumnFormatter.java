@@ -107,7 +107,7 @@ public final class RedHxComputerSystemColumnFormatter extends RedHxAbstractColum
 
     prompt = "Name";
 
-    if (computerSystem.getName() == null) {
+    if (computerSystem.getName() != null) {
       addRow(prompt, computerSystem.getName().getValue());
     } else {
       addRow(prompt);
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.core.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.redhelix.core.annotations.ThreadSafe;
+
+/**
+ * the canonical instance of each string property. Across a fleet most chassis and computer
+ * systems have the same manufacturer, model, part number and BIOS version and the URI paths of
+ * their members repeat, so the builders pass each new property through {@link #intern} and keep
+ * the instance that is already held by another chassis or computer system. A value then costs one
+ * object no matter how many resources share it.
+ *
+ * Redfish paths are relative to the BMC, so the Id, the vendor default name and description and
+ * the paths such as /redfish/v1/Chassis/1/Power are the same text on almost every host and are
+ * interned. Only a value that is unique to one host, the serial number, asset tag and host name,
+ * is not. Each would add an entry to the table that no other resource shares.
+ *
+ * Two properties are the same if they are of the same class and hold an equal value, which is
+ * what {@link RedHxAbstractStringProperty#equals(Object)} tests. The canonical instances are held
+ * by weak reference, an instance no longer used by any resource is garbage collected and removed
+ * from the table the next time a property is interned.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+public final class RedHxStringPropertyInterner {
+
+  private static final ReferenceQueue<RedHxStringProperty> CLEARED_QUEUE =
+      new ReferenceQueue<RedHxStringProperty>();
+  private static final ConcurrentMap<WeakKey, WeakKey> CANONICAL_MAP =
+      new ConcurrentHashMap<WeakKey, WeakKey>();
+
+  private RedHxStringPropertyInterner() {}
+
+  /**
+   * get the number of canonical instances in the table. Instances that were garbage collected but
+   * not yet removed are counted.
+   *
+   * @return the number of instances.
+   */
+  public static int getSize() {
+    removeCleared();
+
+    return CANONICAL_MAP.size();
+  }
+
+  /**
+   * get the canonical instance of a property.
+   *
+   * @param <T> the class of property.
+   * @param property the property to intern. This shall not be null. The property becomes the
+   *        canonical instance if there is none for its class and value.
+   * @return the instance of the same class and value that was interned first and is still in use,
+   *         otherwise the argument. A null is not returned.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T extends RedHxStringProperty> T intern(final T property) {
+    if (property == null) {
+      throw new IllegalArgumentException("Argument \"property\" can not be null.");
+    }
+
+    removeCleared();
+
+    final WeakKey key = new WeakKey(property, CLEARED_QUEUE);
+    T retVal = null;
+
+    while (retVal == null) {
+      final WeakKey existing = CANONICAL_MAP.putIfAbsent(key, key);
+
+      if (existing == null) {
+        retVal = property;
+      } else {
+        /*
+         * equal keys hold properties of the same class, see RedHxAbstractStringProperty.equals().
+         */
+        retVal = (T) existing.get();
+
+        if (retVal == null) {
+          CANONICAL_MAP.remove(existing, existing);
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  private static void removeCleared() {
+    Reference<? extends RedHxStringProperty> cleared = CLEARED_QUEUE.poll();
+
+    while (cleared != null) {
+      CANONICAL_MAP.remove(cleared, cleared);
+      cleared = CLEARED_QUEUE.poll();
+    }
+  }
+
+  /**
+   * a weak reference to a property that is equal to another key holding an equal property. The
+   * hash code is kept so a key can be removed after the property is garbage collected.
+   */
+  private static final class WeakKey extends WeakReference<RedHxStringProperty> {
+
+    private final int hashCode;
+
+    WeakKey(final RedHxStringProperty property,
+        final ReferenceQueue<RedHxStringProperty> queue) {
+      super(property, queue);
+      this.hashCode = property.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      final boolean retVal;
+
+      if (this == obj) {
+        retVal = true;
+      } else if (!(obj instanceof WeakKey)) {
+        retVal = false;
+      } else {
+        final RedHxStringProperty property = get();
+
+        retVal = (property != null) && property.equals(((WeakKey) obj).get());
+      }
+
+      return retVal;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db;
+
+import java.util.List;
+
+/**
+ * the rows of one table of the inventory that changed after a version. A row that was added,
+ * replaced or removed is listed once no matter how many times it changed. Read the row again to
+ * know whether it still exists.
+ *
+ * @param <K> the id of a row, for example {@link RedHxDbChassisId}.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public interface RedHxDbChangeList<K> {
+
+  /**
+   * get the id of every row that changed.
+   *
+   * @return the ids in ascending order. A null is not returned.
+   */
+  List<K> getIdList();
+
+  /**
+   * get the version of the table the list is complete to. Pass it to the next request for changes
+   * to get only the rows that changed after this list was created.
+   */
+  long getVersion();
+}
@@ -24,6 +24,14 @@ package org.redhelix.server.db;
  */
 public interface RedHxDbChassisId extends Comparable<RedHxDbChassisId> {
 
+  /**
+   * get the number the id was created from. Ids are ordered by this number and a chassis added
+   * later has a larger number.
+   *
+   * @return a number greater than zero.
+   */
+  int getSequenceNumber();
+
   @Override
 
   /**
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db;
+
+import org.redhelix.core.chassis.RedHxChassis;
+
+/**
+ * receives each change to the chassis in the inventory. The listener is called by the thread that
+ * changed the inventory after the change is visible to readers. The changes of the chassis are
+ * passed in the order they were made, because the listener is called before the next change can be
+ * made, so it shall return quickly, not throw and not wait for another thread that changes the
+ * inventory.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public interface RedHxDbChassisListener {
+
+  /**
+   * receive a change to a chassis.
+   *
+   * @param id the id of the chassis. A null is not passed.
+   * @param oldChassis the chassis before the change. A null is passed if the chassis was added.
+   * @param newChassis the chassis after the change. A null is passed if the chassis was removed.
+   */
+  void chassisChanged(RedHxDbChassisId id, RedHxChassis oldChassis, RedHxChassis newChassis);
+}
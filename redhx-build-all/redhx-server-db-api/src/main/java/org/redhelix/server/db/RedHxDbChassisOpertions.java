@@ -14,8 +14,16 @@
  */
 package org.redhelix.server.db;
 
+import java.net.InetAddress;
+import java.util.List;
+import java.util.SortedMap;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.chassis.id.RedHxChassisSerialNumber;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+
 /**
- *
+ * the operations on the chassis in the inventory. A read never blocks, it may run at the same time
+ * as a write and sees either the chassis before or after the write.
  *
  * @since RedHelix Version 0.2
  * @author Hank Bruning
@@ -23,4 +31,131 @@ package org.redhelix.server.db;
  */
 public interface RedHxDbChassisOpertions {
 
+  /**
+   * add a chassis that is read from a Redfish server at an IP address. A new id is created for the
+   * chassis.
+   *
+   * @param ipAddress the address of the Redfish server. This shall not be null.
+   * @param chassis the chassis read from the server. This shall not be null.
+   * @return the id of the new chassis. A null is not returned.
+   */
+  RedHxDbChassisId addChassis(InetAddress ipAddress, RedHxChassis chassis);
+
+  /**
+   * add a listener that is called each time a chassis is added, replaced or removed.
+   *
+   * @param listener the listener. This shall not be null.
+   */
+  void addChassisListener(RedHxDbChassisListener listener);
+
+  /**
+   * replace the chassis stored for an id. Use this each time the chassis is read again from the
+   * Redfish server.
+   *
+   * @param id the id of the chassis. This shall not be null.
+   * @param chassis the new value. This shall not be null.
+   * @return the chassis that was replaced. A null is returned if nothing was stored for the id.
+   */
+  RedHxChassis addChassis(RedHxDbChassisId id, RedHxChassis chassis);
+
+  /**
+   * get a chassis.
+   *
+   * @param id the id of the chassis.
+   * @return A null is returned if there is no chassis for the id.
+   */
+  RedHxChassis getChassis(RedHxDbChassisId id);
+
+  /**
+   * get the chassis that were added, replaced or removed after a version.
+   *
+   * @param version a value returned by {@link #getChassisVersion()} or by
+   *        {@link RedHxDbChangeList#getVersion()}.
+   * @return A null is returned if the version is not one of this inventory or the changes after it
+   *         are no longer kept. Read every chassis again in that case.
+   */
+  RedHxDbChangeList<RedHxDbChassisId> getChassisChangeList(long version);
+
+  /**
+   * get the number of chassis in the inventory.
+   *
+   * @return zero or a positive number.
+   */
+  int getChassisCount();
+
+  /**
+   * get the id with a sequence number. The id is returned even if no chassis is stored for it so
+   * it can be used as the bound of a range of ids.
+   *
+   * @param sequenceNumber the number returned by {@link RedHxDbChassisId#getSequenceNumber()}.
+   *        This shall be greater than zero.
+   * @return A null is not returned.
+   */
+  RedHxDbChassisId getChassisId(int sequenceNumber);
+
+  /**
+   * get the id of a chassis using the serial number. More than one chassis may report the same
+   * serial number, for example a placeholder such as "0000", the lowest id is returned.
+   *
+   * @param serialNumber the serial number reported by the chassis.
+   * @return A null is returned if no chassis has the serial number.
+   * @see #getChassisIdList(RedHxChassisSerialNumber)
+   */
+  RedHxDbChassisId getChassisId(RedHxChassisSerialNumber serialNumber);
+
+  /**
+   * get the id of every chassis read from a Redfish server.
+   *
+   * @param ipAddress the address of the Redfish server.
+   * @return the ids in ascending order. A null is not returned.
+   */
+  List<RedHxDbChassisId> getChassisIdList(InetAddress ipAddress);
+
+  /**
+   * get the id of every chassis with a health.
+   *
+   * @param health the health of the chassis.
+   * @return the ids in ascending order. A null is not returned.
+   */
+  List<RedHxDbChassisId> getChassisIdList(RedHxOperatingHealthEnum health);
+
+  /**
+   * get the id of every chassis with a serial number.
+   *
+   * @param serialNumber the serial number reported by the chassis.
+   * @return the ids in ascending order. A null is not returned.
+   */
+  List<RedHxDbChassisId> getChassisIdList(RedHxChassisSerialNumber serialNumber);
+
+  /**
+   * get every chassis in the inventory at one point in time. The map does not change when the
+   * inventory changes. Until the next change the same map is returned to every caller.
+   *
+   * @return an unmodifiable map sorted by id. A null is not returned.
+   */
+  SortedMap<RedHxDbChassisId, RedHxChassis> getChassisSnapshot();
+
+  /**
+   * get the version of the chassis in the inventory. The version increases each time a chassis is
+   * added, replaced or removed. Read the version before the chassis so a change made while they are
+   * read is in the next change list.
+   *
+   * @return the version to pass to {@link #getChassisChangeList(long)}.
+   */
+  long getChassisVersion();
+
+  /**
+   * remove a listener added by {@link #addChassisListener(RedHxDbChassisListener)}.
+   *
+   * @param listener the listener.
+   */
+  void removeChassisListener(RedHxDbChassisListener listener);
+
+  /**
+   * remove a chassis from the inventory.
+   *
+   * @param id the id of the chassis.
+   * @return the chassis that was removed. A null is returned if nothing was stored for the id.
+   */
+  RedHxChassis removeChassis(RedHxDbChassisId id);
 }
@@ -24,6 +24,14 @@ package org.redhelix.server.db;
  */
 public interface RedHxDbComputerId extends Comparable<RedHxDbComputerId> {
 
+  /**
+   * get the number the id was created from. Ids are ordered by this number and a computer system
+   * added later has a larger number.
+   *
+   * @return a number greater than zero.
+   */
+  int getSequenceNumber();
+
   /**
    * get the chassisId as a string. For a single Chassis the string may change each time the JVM is
    * started.
@@ -15,10 +15,15 @@
 package org.redhelix.server.db;
 
 import java.net.InetAddress;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.UUID;
 import org.redhelix.core.computer.system.RedHxComputerSystem;
+import org.redhelix.core.computer.system.id.RedHxComputerSerialNumber;
 
 /**
- *
+ * the operations on the computer systems in the inventory. A read never blocks, it may run at the
+ * same time as a write and sees either the computer system before or after the write.
  *
  * @since RedHelix Version 0.2
  * @author Hank Bruning
@@ -26,9 +31,107 @@ import org.redhelix.core.computer.system.RedHxComputerSystem;
  */
 public interface RedHxDbComputerSystemOperations {
 
+  /**
+   * add a computer system that is read from a Redfish server at an IP address. A new id is created
+   * for the computer system.
+   *
+   * @param ipAddress the address of the Redfish server. This shall not be null.
+   * @param computerSystem the computer system read from the server. This shall not be null.
+   * @return the id of the new computer system. A null is not returned.
+   */
+  RedHxDbComputerId addComputerSystem(InetAddress ipAddress, RedHxComputerSystem computerSystem);
+
+  /**
+   * replace the computer system stored for an id. Use this each time the computer system is read
+   * again from the Redfish server.
+   *
+   * @param id the id of the computer system. This shall not be null.
+   * @param computerSystem the new value. This shall not be null.
+   * @return the computer system that was replaced. A null is returned if nothing was stored for
+   *         the id.
+   */
   RedHxComputerSystem addComputerSystem(RedHxDbComputerId id, RedHxComputerSystem computerSystem);
 
+  /**
+   * get the id of a computer system read from a Redfish server. If the server has more than one
+   * computer system the one with the smallest id is returned.
+   *
+   * @param ipAddress the address of the Redfish server.
+   * @return A null is returned if there is no computer system for the address.
+   */
   RedHxDbComputerId getComputerSystemId(InetAddress ipAddress);
 
+  /**
+   * get the id of a computer system using the serial number.
+   *
+   * @param serialNumber the serial number reported by the computer system.
+   * @return A null is returned if no computer system has the serial number.
+   */
+  RedHxDbComputerId getComputerSystemId(RedHxComputerSerialNumber serialNumber);
+
+  /**
+   * get the id of a computer system using the UUID.
+   *
+   * @param uuid the UUID reported by the computer system.
+   * @return A null is returned if no computer system has the UUID.
+   */
+  RedHxDbComputerId getComputerSystemId(UUID uuid);
+
+  /**
+   * get the id of every computer system read from a Redfish server.
+   *
+   * @param ipAddress the address of the Redfish server.
+   * @return the ids in ascending order. A null is not returned.
+   */
+  List<RedHxDbComputerId> getComputerSystemIdList(InetAddress ipAddress);
+
+  /**
+   * get a computer system.
+   *
+   * @param id the id of the computer system.
+   * @return A null is returned if there is no computer system for the id.
+   */
   RedHxComputerSystem getComputerSystem(RedHxDbComputerId id);
+
+  /**
+   * get the computer systems that were added, replaced or removed after a version.
+   *
+   * @param version a value returned by {@link #getComputerSystemVersion()} or by
+   *        {@link RedHxDbChangeList#getVersion()}.
+   * @return A null is returned if the version is not one of this inventory or the changes after it
+   *         are no longer kept. Read every computer system again in that case.
+   */
+  RedHxDbChangeList<RedHxDbComputerId> getComputerSystemChangeList(long version);
+
+  /**
+   * get the number of computer systems in the inventory.
+   *
+   * @return zero or a positive number.
+   */
+  int getComputerSystemCount();
+
+  /**
+   * get every computer system in the inventory at one point in time. The map does not change when
+   * the inventory changes. Until the next change the same map is returned to every caller.
+   *
+   * @return an unmodifiable map sorted by id. A null is not returned.
+   */
+  SortedMap<RedHxDbComputerId, RedHxComputerSystem> getComputerSystemSnapshot();
+
+  /**
+   * get the version of the computer systems in the inventory. The version increases each time a
+   * computer system is added, replaced or removed.
+   *
+   * @return the version to pass to {@link #getComputerSystemChangeList(long)}.
+   */
+  long getComputerSystemVersion();
+
+  /**
+   * remove a computer system from the inventory.
+   *
+   * @param id the id of the computer system.
+   * @return the computer system that was removed. A null is returned if nothing was stored for the
+   *         id.
+   */
+  RedHxComputerSystem removeComputerSystem(RedHxDbComputerId id);
 }
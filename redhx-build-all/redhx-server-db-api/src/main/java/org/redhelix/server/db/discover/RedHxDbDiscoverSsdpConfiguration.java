@@ -31,19 +31,42 @@ public interface RedHxDbDiscoverSsdpConfiguration extends RedHxDbDiscoverConfigu
     /**
      * 239.255.255.250 (IPv4 site-local address)
      */
-    SITE_LOCAL_IP_V4, /**
-                       * [FF05::C] (IPv6 site-local)
-                       */
-    SITE_LOCAL_IP_V6, /**
-                       * [FF02::C] (IPv6 link-local)
-                       */
-    SITE_LOCAL_LINK_IP_6, /**
-                           * [FF08::C] (IPv6 organization-local)
-                           */
-    ORGANIZATION_LOCAL_IP_6, /**
-                              * [FF0E::C] (IPv6 global)
-                              */
-    GLOBAL_IP_V6;
+    SITE_LOCAL_IP_V4("239.255.255.250"),
+
+    /**
+     * [FF05::C] (IPv6 site-local)
+     */
+    SITE_LOCAL_IP_V6("FF05::C"),
+
+    /**
+     * [FF02::C] (IPv6 link-local)
+     */
+    SITE_LOCAL_LINK_IP_6("FF02::C"),
+
+    /**
+     * [FF08::C] (IPv6 organization-local)
+     */
+    ORGANIZATION_LOCAL_IP_6("FF08::C"),
+
+    /**
+     * [FF0E::C] (IPv6 global)
+     */
+    GLOBAL_IP_V6("FF0E::C");
+
+    private final String multicastAddress;
+
+    private SimpleServiceDiscoveryProtocolTypeEnum(String multicastAddress) {
+      this.multicastAddress = multicastAddress;
+    }
+
+    /**
+     * get the multicast group the M-SEARCH is sent to. The SSDP UDP port is 1900 for every group.
+     *
+     * @return an IPv4 or IPv6 literal address. A null is not returned.
+     */
+    public String getMulticastAddress() {
+      return multicastAddress;
+    }
   }
 
   SimpleServiceDiscoveryProtocolTypeEnum getSimpleServiceDiscoveryProtocolType();
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db.history;
+
+/**
+ * the kind of value recorded in a history series. Every value is stored as a whole number, the
+ * description of each metric gives the unit.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public enum RedHxDbHistoryMetricEnum {
+  HEALTH("The ordinal of RedHxOperatingHealthEnum.", true), STATE(
+      "The ordinal of RedHxOperatingStateEnum.", true), POWER_CONSUMED_WATTS(
+          "The power consumed in 1/10 of a watt.", false), VOLTAGE(
+              "The voltage reading in 1/10 of a volt.", false);
+
+  private final String desc;
+  private final boolean isTransitionOnly;
+
+  private RedHxDbHistoryMetricEnum(String desc, boolean isTransitionOnly) {
+    this.desc = desc;
+    this.isTransitionOnly = isTransitionOnly;
+  }
+
+  public String getDescription() {
+    return desc;
+  }
+
+  /**
+   * test if only a change of the value is recorded. A health or state that is read again with the
+   * same value is not stored.
+   *
+   * @return true if a sample is stored only when the value changes.
+   */
+  public boolean isTransitionOnly() {
+    return isTransitionOnly;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db.history;
+
+import org.redhelix.core.computer.system.power.RedHxPowerVoltageReading;
+import org.redhelix.core.computer.system.power.RedHxPowerWatts;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+import org.redhelix.core.util.RedHxOperatingStateEnum;
+
+/**
+ * the operations on the history of the devices. A series is the values of one metric of one
+ * device over time, it is named by the caller. The name shall be the same each time the JVM is
+ * started, for example the serial number of the chassis followed by the path of the sensor.
+ *
+ * Samples are only appended. A sample with a time that is not after the last sample of the series
+ * is not stored.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public interface RedHxDbHistoryOperations {
+
+  /**
+   * record the health of a device. The health is stored only if it is not the same as the last
+   * health recorded in the series.
+   *
+   * @param seriesName the name of the series. This shall not be null.
+   * @param timeMilliseconds the time the health was read, in milliseconds since the epoch.
+   * @param health the health read. This shall not be null.
+   * @return true if the sample is stored.
+   */
+  boolean appendHealth(String seriesName, long timeMilliseconds, RedHxOperatingHealthEnum health);
+
+  /**
+   * record the state of a device. The state is stored only if it is not the same as the last state
+   * recorded in the series.
+   *
+   * @param seriesName the name of the series. This shall not be null.
+   * @param timeMilliseconds the time the state was read, in milliseconds since the epoch.
+   * @param state the state read. This shall not be null.
+   * @return true if the sample is stored.
+   */
+  boolean appendState(String seriesName, long timeMilliseconds, RedHxOperatingStateEnum state);
+
+  /**
+   * record a voltage reading.
+   *
+   * @param seriesName the name of the series. This shall not be null.
+   * @param timeMilliseconds the time the voltage was read, in milliseconds since the epoch.
+   * @param voltage the voltage read. This shall not be null.
+   * @return true if the sample is stored.
+   */
+  boolean appendVoltage(String seriesName, long timeMilliseconds,
+      RedHxPowerVoltageReading voltage);
+
+  /**
+   * record the power consumed by a device.
+   *
+   * @param seriesName the name of the series. This shall not be null.
+   * @param timeMilliseconds the time the power was read, in milliseconds since the epoch.
+   * @param watts the power read. This shall not be null.
+   * @return true if the sample is stored.
+   */
+  boolean appendWatts(String seriesName, long timeMilliseconds, RedHxPowerWatts watts);
+
+  /**
+   * read the samples of a series in a time range. The samples are passed to the visitor in
+   * ascending time order as they are decoded.
+   *
+   * @param seriesName the name of the series.
+   * @param metric the metric of the series.
+   * @param fromMilliseconds the start of the range, inclusive.
+   * @param toMilliseconds the end of the range, exclusive.
+   * @param visitor receives the samples. This shall not be null.
+   */
+  void readRange(String seriesName, RedHxDbHistoryMetricEnum metric, long fromMilliseconds,
+      long toMilliseconds, RedHxDbHistoryVisitor visitor);
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db.history;
+
+/**
+ * receives the samples of a history range query one at a time, in ascending time order. The
+ * samples are decoded as they are passed to the visitor so a long range is never held in memory.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public interface RedHxDbHistoryVisitor {
+
+  /**
+   * receive one sample.
+   *
+   * @param timeMilliseconds the time the sample was read, in milliseconds since the epoch.
+   * @param value the value in the unit of the metric. See {@link RedHxDbHistoryMetricEnum}.
+   * @return true to receive the next sample, false to stop the query.
+   */
+  boolean visit(long timeMilliseconds, long value);
+}
@@ -33,12 +33,11 @@ final class ChassisId extends AbstractPersistantId implements RedHxDbChassisId {
 
   @Override
   public int compareTo(RedHxDbChassisId other) {
-    int retVal = this.getSeqId() - super.getSeqId();
-
-    if (retVal != 0) {
-      retVal = this.getSeqId() < super.getSeqId() ? -1 : 1;
-    }
+    return Integer.compare(getSeqId(), other.getSequenceNumber());
+  }
 
-    return retVal;
+  @Override
+  public int getSequenceNumber() {
+    return getSeqId();
   }
 }
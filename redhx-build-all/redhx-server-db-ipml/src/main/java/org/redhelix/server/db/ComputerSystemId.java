@@ -33,12 +33,11 @@ final class ComputerSystemId extends AbstractPersistantId implements RedHxDbComp
 
   @Override
   public int compareTo(RedHxDbComputerId other) {
-    int retVal = this.getSeqId() - super.getSeqId();
-
-    if (retVal != 0) {
-      retVal = (this.getSeqId() < super.getSeqId()) ? -1 : 1;
-    }
+    return Integer.compare(getSeqId(), other.getSequenceNumber());
+  }
 
-    return retVal;
+  @Override
+  public int getSequenceNumber() {
+    return getSeqId();
   }
 }
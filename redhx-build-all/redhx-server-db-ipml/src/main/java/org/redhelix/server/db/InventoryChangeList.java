@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db;
+
+import java.util.Collections;
+import java.util.List;
+import org.redhelix.core.annotations.Immutable;
+
+/**
+ * the rows of an InventoryTable that changed after a version.
+ *
+ * @param <K> the id of a row.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@Immutable
+final class InventoryChangeList<K> implements RedHxDbChangeList<K> {
+
+  private final List<K> idList;
+  private final long version;
+
+  InventoryChangeList(final List<K> idList, final long version) {
+    this.idList = Collections.unmodifiableList(idList);
+    this.version = version;
+  }
+
+  private InventoryChangeList() {
+    this.idList = null;
+    this.version = 0;
+  }
+
+  @Override
+  public List<K> getIdList() {
+    return idList;
+  }
+
+  @Override
+  public long getVersion() {
+    return version;
+  }
+
+  @Override
+  public String toString() {
+    return "InventoryChangeList{" + "version=" + version + ", idList=" + idList + '}';
+  }
+}
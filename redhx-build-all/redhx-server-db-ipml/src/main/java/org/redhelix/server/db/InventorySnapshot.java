@@ -0,0 +1,320 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.redhelix.core.annotations.Immutable;
+
+/**
+ * the rows of an InventoryTable at one version, sorted by id. The snapshot is a copy of every row
+ * at an earlier version, the base, and the rows added, replaced or removed since then, the delta.
+ * A newer snapshot shares the base and copies only the delta, so the first read after a write
+ * costs the number of rows changed since the base was copied instead of the number of rows in the
+ * table. The table copies a new base when the delta grows too large.
+ *
+ * @param <K> the id of a row.
+ * @param <V> the resource stored in a row.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@Immutable
+final class InventorySnapshot<K extends Comparable<? super K>, V> extends AbstractMap<K, V>
+    implements SortedMap<K, V> {
+
+  private final NavigableMap<K, V> base;
+  private final NavigableMap<K, Change<V>> delta;
+
+  /**
+   * the number of rows, computed on the first call of size() of a part of a snapshot. Every
+   * thread computes the same value.
+   */
+  private int size;
+
+  /**
+   * create a snapshot with no delta.
+   *
+   * @param base the rows. The map is not copied and shall not be changed.
+   */
+  InventorySnapshot(final TreeMap<K, V> base) {
+    this(Collections.unmodifiableNavigableMap(base),
+        Collections.unmodifiableNavigableMap(new TreeMap<K, Change<V>>()), base.size());
+  }
+
+  private InventorySnapshot(final NavigableMap<K, V> base,
+      final NavigableMap<K, Change<V>> delta, final int size) {
+    this.base = base;
+    this.delta = delta;
+    this.size = size;
+  }
+
+  private InventorySnapshot() {
+    this.base = null;
+    this.delta = null;
+  }
+
+  /**
+   * create a newer snapshot of the same table. This snapshot is not changed.
+   *
+   * @param changeMap the resource of each row changed after this snapshot. The resource of a
+   *        removed row is null.
+   * @return A null is not returned.
+   */
+  InventorySnapshot<K, V> apply(final Map<K, V> changeMap) {
+    final TreeMap<K, Change<V>> newDelta = new TreeMap<>(delta);
+    int newSize = size();
+
+    for (Map.Entry<K, V> entry : changeMap.entrySet()) {
+      final K id = entry.getKey();
+      final V value = entry.getValue();
+      final boolean isPresent = containsKey(id);
+
+      if (value != null) {
+        newDelta.put(id, new Change<>(value));
+        newSize += isPresent ? 0 : 1;
+      } else {
+        if (base.containsKey(id)) {
+          newDelta.put(id, new Change<V>(null));
+        } else {
+          newDelta.remove(id);
+        }
+
+        newSize -= isPresent ? 1 : 0;
+      }
+    }
+
+    return new InventorySnapshot<>(base, Collections.unmodifiableNavigableMap(newDelta), newSize);
+  }
+
+  @Override
+  public Comparator<? super K> comparator() {
+    return null;
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return InventorySnapshot.this.size();
+      }
+    };
+  }
+
+  @Override
+  public K firstKey() {
+    return entrySet().iterator().next().getKey();
+  }
+
+  @Override
+  public V get(final Object key) {
+    final Change<V> change = delta.get(key);
+    final V retVal;
+
+    if (change != null) {
+      retVal = change.value;
+    } else {
+      retVal = base.get(key);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the number of rows changed after the base was copied.
+   *
+   * @return the number of rows in the delta, including the removed rows.
+   */
+  int getDeltaSize() {
+    return delta.size();
+  }
+
+  @Override
+  public SortedMap<K, V> headMap(final K toKey) {
+    return new InventorySnapshot<>(base.headMap(toKey, false), delta.headMap(toKey, false), -1);
+  }
+
+  /**
+   * get the largest id. The last id of the delta hides the last id of the base only if it is
+   * not smaller.
+   */
+  @Override
+  public K lastKey() {
+    NavigableMap<K, V> baseMap = base;
+    NavigableMap<K, Change<V>> deltaMap = delta;
+    K retVal = null;
+
+    while (retVal == null) {
+      final K baseKey = baseMap.isEmpty() ? null : baseMap.lastKey();
+      final K deltaKey = deltaMap.isEmpty() ? null : deltaMap.lastKey();
+
+      if ((baseKey == null) && (deltaKey == null)) {
+        throw new NoSuchElementException();
+      }
+
+      if ((deltaKey == null) || ((baseKey != null) && (baseKey.compareTo(deltaKey) > 0))) {
+        retVal = baseKey;
+      } else if (deltaMap.get(deltaKey).value != null) {
+        retVal = deltaKey;
+      } else {
+        baseMap = baseMap.headMap(deltaKey, false);
+        deltaMap = deltaMap.headMap(deltaKey, false);
+      }
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public int size() {
+    int retVal = size;
+
+    if (retVal < 0) {
+      final Iterator<Map.Entry<K, V>> it = new EntryIterator();
+
+      retVal = 0;
+
+      while (it.hasNext()) {
+        it.next();
+        ++retVal;
+      }
+
+      size = retVal;
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public SortedMap<K, V> subMap(final K fromKey, final K toKey) {
+    return new InventorySnapshot<>(base.subMap(fromKey, true, toKey, false),
+        delta.subMap(fromKey, true, toKey, false), -1);
+  }
+
+  @Override
+  public SortedMap<K, V> tailMap(final K fromKey) {
+    return new InventorySnapshot<>(base.tailMap(fromKey, true), delta.tailMap(fromKey, true), -1);
+  }
+
+  /**
+   * the resource of a row changed after the base was copied.
+   */
+  @Immutable
+  private static final class Change<V> {
+
+    /**
+     * the resource, null if the row was removed.
+     */
+    private final V value;
+
+    private Change(final V value) {
+      this.value = value;
+    }
+  }
+
+  /**
+   * walk the base and the delta in id order. A row in the delta hides the row of the base with
+   * the same id, a removed row is skipped.
+   */
+  private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+    private final Iterator<Map.Entry<K, V>> baseIterator;
+    private Map.Entry<K, V> baseEntry;
+    private final Iterator<Map.Entry<K, Change<V>>> deltaIterator;
+    private Map.Entry<K, Change<V>> deltaEntry;
+    private Map.Entry<K, V> nextEntry;
+
+    private EntryIterator() {
+      this.baseIterator = base.entrySet().iterator();
+      this.deltaIterator = delta.entrySet().iterator();
+      this.baseEntry = baseIterator.hasNext() ? baseIterator.next() : null;
+      this.deltaEntry = deltaIterator.hasNext() ? deltaIterator.next() : null;
+      this.nextEntry = findNext();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextEntry != null;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      final Map.Entry<K, V> retVal = nextEntry;
+
+      if (retVal == null) {
+        throw new NoSuchElementException();
+      }
+
+      nextEntry = findNext();
+
+      return retVal;
+    }
+
+    private Map.Entry<K, V> findNext() {
+      Map.Entry<K, V> retVal = null;
+
+      while ((retVal == null) && ((baseEntry != null) || (deltaEntry != null))) {
+        final int order;
+
+        if (deltaEntry == null) {
+          order = -1;
+        } else if (baseEntry == null) {
+          order = 1;
+        } else {
+          order = baseEntry.getKey().compareTo(deltaEntry.getKey());
+        }
+
+        if (order < 0) {
+          retVal = baseEntry;
+          baseEntry = baseIterator.hasNext() ? baseIterator.next() : null;
+        } else {
+          final V value = deltaEntry.getValue().value;
+
+          if (value != null) {
+            retVal = new AbstractMap.SimpleImmutableEntry<>(deltaEntry.getKey(), value);
+          }
+
+          if (order == 0) {
+            baseEntry = baseIterator.hasNext() ? baseIterator.next() : null;
+          }
+
+          deltaEntry = deltaIterator.hasNext() ? deltaIterator.next() : null;
+        }
+      }
+
+      return retVal;
+    }
+  }
+}
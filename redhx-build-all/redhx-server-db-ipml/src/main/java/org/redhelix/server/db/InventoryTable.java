@@ -0,0 +1,467 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db;
+
+import java.net.InetAddress;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import org.redhelix.core.annotations.Immutable;
+import org.redhelix.core.annotations.ThreadSafe;
+
+/**
+ * one table of the in-memory inventory, for example the chassis. Each row holds an immutable
+ * resource and the address of the Redfish server it was read from. Besides the id a row can be
+ * found by the address and by each secondary index, for example the serial number.
+ *
+ * Reads do not lock. A write holds the lock of the table so the rows and indexes are changed by
+ * one thread at a time, a reader may see a row before the indexes are updated. The snapshot of the
+ * whole table is built on the first read after a write and shared until the next write. It is
+ * built from the previous snapshot and the rows the change log lists after it, see
+ * {@link InventorySnapshot}, and the whole table is copied only when too many rows have changed
+ * since the last copy.
+ *
+ * Each write increases the version of the table and records the id of the row in a change log, so
+ * the rows changed after a version can be listed without reading the table. The log keeps only the
+ * last change of a row. The ids of the most recent {@link #MAX_REMOVED_COUNT} removed rows are kept,
+ * when an older one is dropped a version before it can no longer be used. The high 32 bits of the
+ * first version are a random epoch chosen when the table is created and each write adds one to the
+ * low bits, so a version of an earlier table, for example one handed out before a restart, is not
+ * mistaken for one of this table.
+ *
+ * @param <K> the id of a row.
+ * @param <V> the resource stored in a row.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+final class InventoryTable<K extends Comparable<? super K>, V> {
+
+  /**
+   * the number of removed rows kept in the change log.
+   */
+  static final int MAX_REMOVED_COUNT = 10000;
+
+  /**
+   * the number of changed rows a snapshot may hold on top of its copy of the table. A larger table
+   * may hold up to the square root of its row count, so the table is copied once in that many
+   * writes and building a snapshot from the previous one stays cheaper than the copy.
+   */
+  static final int MIN_SNAPSHOT_DELTA_SIZE = 64;
+  private static final SecureRandom EPOCH_RANDOM = new SecureRandom();
+  private final ConcurrentMap<InetAddress, ConcurrentSkipListSet<K>> addressIndex;
+  private final NavigableMap<Long, K> changeLog;
+  private final Map<K, Long> changeVersionMap;
+  private final List<Function<V, Object>> indexKeyFunctionList;
+  private final List<ConcurrentMap<Object, ConcurrentSkipListSet<K>>> indexList;
+  private InventorySnapshot<K, V> lastSnapshot;
+  private long lastSnapshotVersion;
+  private long oldestVersion;
+  private final LinkedHashMap<K, Long> removedVersionMap;
+  private final ConcurrentMap<K, Row<V>> rowMap;
+  private volatile SortedMap<K, V> snapshot;
+  private volatile long version;
+
+  /**
+   * create an empty table.
+   *
+   * @param indexKeyFunctionList for each secondary index the function that gets the key of a
+   *        resource. The function returns null if the resource is not in the index.
+   */
+  InventoryTable(final List<Function<V, Object>> indexKeyFunctionList) {
+    this.indexKeyFunctionList = new ArrayList<>(indexKeyFunctionList);
+    this.indexList = new ArrayList<>(indexKeyFunctionList.size());
+    this.rowMap = new ConcurrentHashMap<>();
+    this.addressIndex = new ConcurrentHashMap<>();
+    this.changeLog = new TreeMap<>();
+    this.changeVersionMap = new HashMap<>();
+    this.removedVersionMap = new LinkedHashMap<>();
+    this.version = (EPOCH_RANDOM.nextInt() & 0x7fffffffL) << 32;
+    this.oldestVersion = version;
+
+    for (int i = 0; i < indexKeyFunctionList.size(); ++i) {
+      indexList.add(new ConcurrentHashMap<>());
+    }
+  }
+
+  private InventoryTable() {
+    this.indexKeyFunctionList = null;
+    this.indexList = null;
+    this.rowMap = null;
+    this.addressIndex = null;
+    this.changeLog = null;
+    this.changeVersionMap = null;
+    this.removedVersionMap = null;
+  }
+
+  private static <K> void addToIndex(final ConcurrentMap<Object, ConcurrentSkipListSet<K>> index,
+      final Object key, final K id) {
+    if (key != null) {
+      index.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>()).add(id);
+    }
+  }
+
+  private static <K> K getFirst(final ConcurrentSkipListSet<K> idSet) {
+    K retVal = null;
+
+    if (idSet != null) {
+      final Iterator<K> it = idSet.iterator();
+
+      if (it.hasNext()) {
+        retVal = it.next();
+      }
+    }
+
+    return retVal;
+  }
+
+  private static <K> List<K> getList(final ConcurrentSkipListSet<K> idSet) {
+    final List<K> retVal;
+
+    if (idSet == null) {
+      retVal = Collections.emptyList();
+    } else {
+      retVal = Collections.unmodifiableList(new ArrayList<>(idSet));
+    }
+
+    return retVal;
+  }
+
+  private static <K> void removeFromIndex(
+      final ConcurrentMap<Object, ConcurrentSkipListSet<K>> index, final Object key, final K id) {
+    if (key != null) {
+      final ConcurrentSkipListSet<K> idSet = index.get(key);
+
+      if (idSet != null) {
+        idSet.remove(id);
+
+        if (idSet.isEmpty()) {
+          index.remove(key, idSet);
+        }
+      }
+    }
+  }
+
+  /**
+   * get a resource.
+   *
+   * @param id the id of the row.
+   * @return A null is returned if there is no row for the id.
+   */
+  V get(final K id) {
+    V retVal = null;
+
+    if (id != null) {
+      final Row<V> row = rowMap.get(id);
+
+      if (row != null) {
+        retVal = row.value;
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the rows that were added, replaced or removed after a version.
+   *
+   * @param afterVersion a version returned by {@link #getVersion()} or by a change list.
+   * @return A null is returned if the version is newer than the table or older than the oldest
+   *         change kept.
+   */
+  synchronized RedHxDbChangeList<K> getChangeList(final long afterVersion) {
+    InventoryChangeList<K> retVal = null;
+
+    if ((afterVersion >= oldestVersion) && (afterVersion <= version)) {
+      final List<K> idList = new ArrayList<>(changeLog.tailMap(afterVersion, false).values());
+
+      Collections.sort(idList);
+      retVal = new InventoryChangeList<>(idList, version);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the smallest id of the rows read from an address.
+   *
+   * @return A null is returned if no row was read from the address.
+   */
+  K getFirstId(final InetAddress address) {
+    return (address == null) ? null : getFirst(addressIndex.get(address));
+  }
+
+  /**
+   * get the smallest id of the rows with a key in a secondary index.
+   *
+   * @param indexNumber the position of the index in the list given to the constructor.
+   * @return A null is returned if no row has the key.
+   */
+  K getFirstId(final int indexNumber, final Object key) {
+    return (key == null) ? null : getFirst(indexList.get(indexNumber).get(key));
+  }
+
+  /**
+   * get the id of every row read from an address.
+   *
+   * @return the ids in ascending order. A null is not returned.
+   */
+  List<K> getIdList(final InetAddress address) {
+    return (address == null) ? Collections.<K>emptyList() : getList(addressIndex.get(address));
+  }
+
+  /**
+   * get the id of every row with a key in a secondary index.
+   *
+   * @param indexNumber the position of the index in the list given to the constructor.
+   * @return the ids in ascending order. A null is not returned.
+   */
+  List<K> getIdList(final int indexNumber, final Object key) {
+    return (key == null) ? Collections.<K>emptyList()
+        : getList(indexList.get(indexNumber).get(key));
+  }
+
+  /**
+   * get every resource in the table at one point in time.
+   *
+   * @return an unmodifiable map sorted by id.
+   */
+  SortedMap<K, V> getSnapshot() {
+    SortedMap<K, V> retVal = snapshot;
+
+    if (retVal == null) {
+      synchronized (this) {
+        retVal = snapshot;
+
+        if (retVal == null) {
+          retVal = createSnapshot();
+          snapshot = retVal;
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the version of the table. The version increases with each write.
+   */
+  long getVersion() {
+    return version;
+  }
+
+  /**
+   * store a resource. If the id is already in the table the address it was read from does not
+   * change.
+   *
+   * @param id the id of the row.
+   * @param address the address the resource was read from. A null is allowed for a new row.
+   * @param value the resource.
+   * @return the resource that was replaced. A null is returned if the row is new.
+   */
+  synchronized V put(final K id, final InetAddress address, final V value) {
+    final Row<V> oldRow = rowMap.get(id);
+    final InetAddress rowAddress = (oldRow == null) ? address : oldRow.address;
+    final Row<V> newRow = new Row<>(rowAddress, value, getIndexKeyArray(value));
+    final V retVal;
+
+    rowMap.put(id, newRow);
+
+    if (oldRow == null) {
+      retVal = null;
+
+      if (rowAddress != null) {
+        addressIndex.computeIfAbsent(rowAddress, k -> new ConcurrentSkipListSet<>()).add(id);
+      }
+    } else {
+      retVal = oldRow.value;
+    }
+
+    for (int i = 0; i < indexList.size(); ++i) {
+      final Object oldKey = (oldRow == null) ? null : oldRow.indexKeyArray[i];
+      final Object newKey = newRow.indexKeyArray[i];
+
+      if ((oldKey == null) || !oldKey.equals(newKey)) {
+        removeFromIndex(indexList.get(i), oldKey, id);
+        addToIndex(indexList.get(i), newKey, id);
+      }
+    }
+
+    logChange(id, false);
+    snapshot = null;
+
+    return retVal;
+  }
+
+  /**
+   * remove a row.
+   *
+   * @param id the id of the row.
+   * @return the resource that was removed. A null is returned if there is no row for the id.
+   */
+  synchronized V remove(final K id) {
+    V retVal = null;
+
+    if (id != null) {
+      final Row<V> row = rowMap.remove(id);
+
+      if (row != null) {
+        retVal = row.value;
+
+        if (row.address != null) {
+          final ConcurrentSkipListSet<K> idSet = addressIndex.get(row.address);
+
+          if (idSet != null) {
+            idSet.remove(id);
+
+            if (idSet.isEmpty()) {
+              addressIndex.remove(row.address, idSet);
+            }
+          }
+        }
+
+        for (int i = 0; i < indexList.size(); ++i) {
+          removeFromIndex(indexList.get(i), row.indexKeyArray[i], id);
+        }
+
+        logChange(id, true);
+        snapshot = null;
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the number of rows.
+   */
+  int size() {
+    return rowMap.size();
+  }
+
+  /**
+   * record the write of a row in the change log, replacing the previous change of the row. The
+   * caller holds the lock of the table.
+   */
+  private void logChange(final K id, final boolean isRemoved) {
+    final long changeVersion = version + 1;
+    final Long oldVersion = changeVersionMap.put(id, changeVersion);
+
+    if (oldVersion != null) {
+      changeLog.remove(oldVersion);
+    }
+
+    changeLog.put(changeVersion, id);
+    removedVersionMap.remove(id);
+
+    if (isRemoved) {
+      removedVersionMap.put(id, changeVersion);
+
+      if (removedVersionMap.size() > MAX_REMOVED_COUNT) {
+        final Iterator<Map.Entry<K, Long>> it = removedVersionMap.entrySet().iterator();
+        final Map.Entry<K, Long> eldest = it.next();
+
+        it.remove();
+        changeLog.remove(eldest.getValue());
+        changeVersionMap.remove(eldest.getKey());
+        oldestVersion = eldest.getValue();
+      }
+    }
+
+    version = changeVersion;
+  }
+
+  /**
+   * build the snapshot of the current version from the previous snapshot and the rows changed
+   * after it, or copy every row if the previous snapshot is too far behind. The caller holds the
+   * lock of the table.
+   */
+  private InventorySnapshot<K, V> createSnapshot() {
+    InventorySnapshot<K, V> retVal = null;
+
+    if ((lastSnapshot != null) && (lastSnapshotVersion >= oldestVersion)) {
+      final Collection<K> changedIdCollection =
+          changeLog.tailMap(lastSnapshotVersion, false).values();
+      final int maxDeltaSize =
+          Math.max(MIN_SNAPSHOT_DELTA_SIZE, (int) Math.sqrt(rowMap.size()));
+
+      if ((lastSnapshot.getDeltaSize() + changedIdCollection.size()) <= maxDeltaSize) {
+        final Map<K, V> changeMap = new HashMap<>();
+
+        for (K id : changedIdCollection) {
+          changeMap.put(id, get(id));
+        }
+
+        retVal = lastSnapshot.apply(changeMap);
+      }
+    }
+
+    if (retVal == null) {
+      final TreeMap<K, V> map = new TreeMap<>();
+
+      for (Map.Entry<K, Row<V>> entry : rowMap.entrySet()) {
+        map.put(entry.getKey(), entry.getValue().value);
+      }
+
+      retVal = new InventorySnapshot<>(map);
+    }
+
+    lastSnapshot = retVal;
+    lastSnapshotVersion = version;
+
+    return retVal;
+  }
+
+  private Object[] getIndexKeyArray(final V value) {
+    final Object[] retVal = new Object[indexKeyFunctionList.size()];
+
+    for (int i = 0; i < retVal.length; ++i) {
+      retVal[i] = indexKeyFunctionList.get(i).apply(value);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * a row of the table. The index keys are kept so the old keys can be removed from the indexes
+   * when the resource is replaced.
+   */
+  @Immutable
+  private static final class Row<V> {
+
+    private final InetAddress address;
+    private final Object[] indexKeyArray;
+    private final V value;
+
+    private Row(final InetAddress address, final V value, final Object[] indexKeyArray) {
+      this.address = address;
+      this.value = value;
+      this.indexKeyArray = indexKeyArray;
+    }
+  }
+}
@@ -14,40 +14,275 @@
  */
 package org.redhelix.server.db;
 
-import org.redhelix.server.db.RedHxDbPersistantDatabase;
-import org.redhelix.server.db.RedHxDbComputerId;
 import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.chassis.id.RedHxChassisSerialNumber;
 import org.redhelix.core.computer.system.RedHxComputerSystem;
+import org.redhelix.core.computer.system.id.RedHxComputerSerialNumber;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
 
 /**
+ * the inventory of chassis and computer systems held in memory. The chassis and computer systems
+ * are immutable so they are stored as given, replacing one is a single write that readers see
+ * either before or after. Reads do not lock and a lookup by id, address, UUID, serial number or
+ * health is a hash lookup.
  *
+ * Each table keeps a log of the rows that changed so a client that read the inventory at one
+ * version can ask for only the chassis or computer systems that changed since. Listeners of the
+ * chassis are called after each change, on the thread that made it and while it holds the lock of
+ * the chassis table, so two changes made at the same time reach the listeners in the order they
+ * were written.
  *
  * @since RedHelix Version 0.2
  * @author Hank Bruning
  *
  */
+@ThreadSafe
 public final class RedHxDbPersistantDatabaseImpl implements RedHxDbPersistantDatabase {
 
+  private static final int CHASSIS_HEALTH_INDEX = 1;
+  private static final int CHASSIS_SERIAL_NUMBER_INDEX = 0;
+  private static final int COMPUTER_SERIAL_NUMBER_INDEX = 0;
+  private static final int COMPUTER_UUID_INDEX = 1;
+  private final List<RedHxDbChassisListener> chassisListenerList;
+  private final AtomicInteger chassisSeqId;
+  private final InventoryTable<RedHxDbChassisId, RedHxChassis> chassisTable;
+  private final AtomicInteger computerSeqId;
+  private final InventoryTable<RedHxDbComputerId, RedHxComputerSystem> computerTable;
+
+  /**
+   * create an empty inventory.
+   */
+  public RedHxDbPersistantDatabaseImpl() {
+    final List<Function<RedHxChassis, Object>> chassisIndexList =
+        Arrays.asList(chassis -> getSerialNumberKey(chassis.getSerialNumber()),
+            chassis -> chassis.getOperatingHealth());
+    final List<Function<RedHxComputerSystem, Object>> computerIndexList =
+        Arrays.asList(computer -> getSerialNumberKey(computer.getSerialNumber()),
+            computer -> computer.getUuid());
+
+    this.chassisListenerList = new CopyOnWriteArrayList<>();
+    this.chassisSeqId = new AtomicInteger();
+    this.computerSeqId = new AtomicInteger();
+    this.chassisTable = new InventoryTable<>(chassisIndexList);
+    this.computerTable = new InventoryTable<>(computerIndexList);
+  }
+
+  private static void checkArgument(final Object arg, final String argName) {
+    if (arg == null) {
+      throw new IllegalArgumentException("Argument \"" + argName + "\" can not be null.");
+    }
+  }
+
+  private static Object getSerialNumberKey(final RedHxChassisSerialNumber serialNumber) {
+    return (serialNumber == null) ? null : serialNumber.getValue();
+  }
+
+  private static Object getSerialNumberKey(final RedHxComputerSerialNumber serialNumber) {
+    return (serialNumber == null) ? null : serialNumber.getValue();
+  }
+
+  @Override
+  public RedHxDbChassisId addChassis(final InetAddress ipAddress, final RedHxChassis chassis) {
+    checkArgument(ipAddress, "ipAddress");
+    checkArgument(chassis, "chassis");
+
+    final RedHxDbChassisId retVal = new ChassisId(chassisSeqId.incrementAndGet());
+
+    synchronized (chassisTable) {
+      chassisTable.put(retVal, ipAddress, chassis);
+      fireChassisChanged(retVal, null, chassis);
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public RedHxChassis addChassis(final RedHxDbChassisId id, final RedHxChassis chassis) {
+    checkArgument(id, "id");
+    checkArgument(chassis, "chassis");
+
+    final RedHxChassis retVal;
+
+    synchronized (chassisTable) {
+      retVal = chassisTable.put(id, null, chassis);
+      fireChassisChanged(id, retVal, chassis);
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public void addChassisListener(final RedHxDbChassisListener listener) {
+    checkArgument(listener, "listener");
+
+    chassisListenerList.add(listener);
+  }
+
+  @Override
+  public RedHxDbComputerId addComputerSystem(final InetAddress ipAddress,
+      final RedHxComputerSystem computerSystem) {
+    checkArgument(ipAddress, "ipAddress");
+    checkArgument(computerSystem, "computerSystem");
+
+    final RedHxDbComputerId retVal = new ComputerSystemId(computerSeqId.incrementAndGet());
+
+    computerTable.put(retVal, ipAddress, computerSystem);
+
+    return retVal;
+  }
+
+  @Override
+  public RedHxComputerSystem addComputerSystem(final RedHxDbComputerId id,
+      final RedHxComputerSystem computerSystem) {
+    checkArgument(id, "id");
+    checkArgument(computerSystem, "computerSystem");
+
+    return computerTable.put(id, null, computerSystem);
+  }
+
+  @Override
+  public RedHxChassis getChassis(final RedHxDbChassisId id) {
+    return chassisTable.get(id);
+  }
+
+  @Override
+  public RedHxDbChangeList<RedHxDbChassisId> getChassisChangeList(final long version) {
+    return chassisTable.getChangeList(version);
+  }
+
+  @Override
+  public int getChassisCount() {
+    return chassisTable.size();
+  }
+
+  @Override
+  public RedHxDbChassisId getChassisId(final int sequenceNumber) {
+    if (sequenceNumber < 1) {
+      throw new IllegalArgumentException(
+          "Argument \"sequenceNumber\" must be greater than zero, not " + sequenceNumber);
+    }
+
+    return new ChassisId(sequenceNumber);
+  }
+
   @Override
-  public RedHxComputerSystem addComputerSystem(RedHxDbComputerId id,
-      RedHxComputerSystem computerSystem) {
-    throw new UnsupportedOperationException("Not supported yet."); // To change body of generated
-                                                                   // methods, choose Tools |
-                                                                   // Templates.
+  public RedHxDbChassisId getChassisId(final RedHxChassisSerialNumber serialNumber) {
+    return chassisTable.getFirstId(CHASSIS_SERIAL_NUMBER_INDEX, getSerialNumberKey(serialNumber));
   }
 
   @Override
-  public RedHxComputerSystem getComputerSystem(RedHxDbComputerId id) {
-    throw new UnsupportedOperationException("Not supported yet."); // To change body of generated
-                                                                   // methods, choose Tools |
-                                                                   // Templates.
+  public List<RedHxDbChassisId> getChassisIdList(final InetAddress ipAddress) {
+    return chassisTable.getIdList(ipAddress);
   }
 
   @Override
-  public RedHxDbComputerId getComputerSystemId(InetAddress ipAddress) {
-    throw new UnsupportedOperationException("Not supported yet."); // To change body of generated
-                                                                   // methods, choose Tools |
-                                                                   // Templates.
+  public List<RedHxDbChassisId> getChassisIdList(final RedHxOperatingHealthEnum health) {
+    return chassisTable.getIdList(CHASSIS_HEALTH_INDEX, health);
   }
 
+  @Override
+  public List<RedHxDbChassisId> getChassisIdList(final RedHxChassisSerialNumber serialNumber) {
+    return chassisTable.getIdList(CHASSIS_SERIAL_NUMBER_INDEX, getSerialNumberKey(serialNumber));
+  }
+
+  @Override
+  public SortedMap<RedHxDbChassisId, RedHxChassis> getChassisSnapshot() {
+    return chassisTable.getSnapshot();
+  }
+
+  @Override
+  public long getChassisVersion() {
+    return chassisTable.getVersion();
+  }
+
+  @Override
+  public RedHxComputerSystem getComputerSystem(final RedHxDbComputerId id) {
+    return computerTable.get(id);
+  }
+
+  @Override
+  public RedHxDbChangeList<RedHxDbComputerId> getComputerSystemChangeList(final long version) {
+    return computerTable.getChangeList(version);
+  }
+
+  @Override
+  public int getComputerSystemCount() {
+    return computerTable.size();
+  }
+
+  @Override
+  public RedHxDbComputerId getComputerSystemId(final InetAddress ipAddress) {
+    return computerTable.getFirstId(ipAddress);
+  }
+
+  @Override
+  public RedHxDbComputerId getComputerSystemId(final RedHxComputerSerialNumber serialNumber) {
+    return computerTable.getFirstId(COMPUTER_SERIAL_NUMBER_INDEX,
+        getSerialNumberKey(serialNumber));
+  }
+
+  @Override
+  public RedHxDbComputerId getComputerSystemId(final UUID uuid) {
+    return computerTable.getFirstId(COMPUTER_UUID_INDEX, uuid);
+  }
+
+  @Override
+  public List<RedHxDbComputerId> getComputerSystemIdList(final InetAddress ipAddress) {
+    return computerTable.getIdList(ipAddress);
+  }
+
+  @Override
+  public SortedMap<RedHxDbComputerId, RedHxComputerSystem> getComputerSystemSnapshot() {
+    return computerTable.getSnapshot();
+  }
+
+  @Override
+  public long getComputerSystemVersion() {
+    return computerTable.getVersion();
+  }
+
+  @Override
+  public RedHxChassis removeChassis(final RedHxDbChassisId id) {
+    final RedHxChassis retVal;
+
+    synchronized (chassisTable) {
+      retVal = chassisTable.remove(id);
+
+      if (retVal != null) {
+        fireChassisChanged(id, retVal, null);
+      }
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public void removeChassisListener(final RedHxDbChassisListener listener) {
+    chassisListenerList.remove(listener);
+  }
+
+  @Override
+  public RedHxComputerSystem removeComputerSystem(final RedHxDbComputerId id) {
+    return computerTable.remove(id);
+  }
+
+  /**
+   * call the listeners. The caller holds the lock of the chassis table, the lock InventoryTable
+   * takes for a write, so the next change of the table is not made until the listeners return.
+   */
+  private void fireChassisChanged(final RedHxDbChassisId id, final RedHxChassis oldChassis,
+      final RedHxChassis newChassis) {
+    for (RedHxDbChassisListener listener : chassisListenerList) {
+      listener.chassisChanged(id, oldChassis, newChassis);
+    }
+  }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db.history;
+
+import java.nio.ByteBuffer;
+import org.redhelix.core.annotations.NotThreadSafe;
+
+/**
+ * decode the samples of one chunk, one at a time. This is the reverse of the packing done by
+ * HistorySeries.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@NotThreadSafe
+final class HistoryChunkDecoder {
+
+  private final ByteBuffer buffer;
+  private final int count;
+  private final int wordOffset;
+  private int bitPosition;
+  private int index;
+  private long lastDelta;
+  private long time;
+  private long value;
+
+  /**
+   * create a decoder.
+   *
+   * @param buffer holds the packed words. Only absolute reads are done so the buffer may be shared.
+   * @param wordOffset the byte offset of the first word in the buffer.
+   * @param count the number of samples in the chunk.
+   * @param firstTime the time of the first sample.
+   * @param firstValue the value of the first sample.
+   */
+  HistoryChunkDecoder(final ByteBuffer buffer, final int wordOffset, final int count,
+      final long firstTime, final long firstValue) {
+    this.buffer = buffer;
+    this.wordOffset = wordOffset;
+    this.count = count;
+    this.time = firstTime;
+    this.value = firstValue;
+  }
+
+  private HistoryChunkDecoder() {
+    this.buffer = null;
+    this.wordOffset = 0;
+    this.count = 0;
+  }
+
+  private static long unZigZag(final long bits) {
+    return (bits >>> 1) ^ -(bits & 1);
+  }
+
+  /**
+   * pass the samples in a time range to a visitor.
+   *
+   * @return false if the visitor stopped the query.
+   */
+  boolean visit(final long fromMilliseconds, final long toMilliseconds,
+      final RedHxDbHistoryVisitor visitor) {
+    boolean retVal = true;
+
+    while (retVal && next()) {
+      if (time >= toMilliseconds) {
+        break;
+      }
+
+      if (time >= fromMilliseconds) {
+        retVal = visitor.visit(time, value);
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * move to the next sample.
+   *
+   * @return false if there are no more samples.
+   */
+  private boolean next() {
+    final boolean retVal = index < count;
+
+    if (retVal) {
+      if (index > 0) {
+        lastDelta += readTimeDelta();
+        time += lastDelta;
+        value += readValueDelta();
+      }
+
+      ++index;
+    }
+
+    return retVal;
+  }
+
+  private long readBits(final int bitLength) {
+    final int wordIndex = bitPosition >>> 6;
+    final int freeCount = 64 - (bitPosition & 63);
+    final long word = buffer.getLong(wordOffset + (wordIndex << 3));
+    long retVal;
+
+    if (bitLength <= freeCount) {
+      retVal = word >>> (freeCount - bitLength);
+    } else {
+      final int spillCount = bitLength - freeCount;
+
+      retVal = (word << spillCount)
+          | (buffer.getLong(wordOffset + ((wordIndex + 1) << 3)) >>> (64 - spillCount));
+    }
+
+    if (bitLength < 64) {
+      retVal &= (1L << bitLength) - 1;
+    }
+
+    bitPosition += bitLength;
+
+    return retVal;
+  }
+
+  private long readTimeDelta() {
+    final long retVal;
+
+    if (readBits(1) == 0) {
+      retVal = 0;
+    } else if (readBits(1) == 0) {
+      retVal = unZigZag(readBits(7));
+    } else if (readBits(1) == 0) {
+      retVal = unZigZag(readBits(12));
+    } else if (readBits(1) == 0) {
+      retVal = unZigZag(readBits(20));
+    } else {
+      retVal = unZigZag(readBits(64));
+    }
+
+    return retVal;
+  }
+
+  private long readValueDelta() {
+    final long retVal;
+
+    if (readBits(1) == 0) {
+      retVal = 0;
+    } else if (readBits(1) == 0) {
+      retVal = unZigZag(readBits(6));
+    } else if (readBits(1) == 0) {
+      retVal = unZigZag(readBits(16));
+    } else {
+      retVal = unZigZag(readBits(64));
+    }
+
+    return retVal;
+  }
+}
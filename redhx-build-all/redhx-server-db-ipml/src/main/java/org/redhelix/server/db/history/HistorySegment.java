@@ -0,0 +1,363 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.redhelix.core.annotations.ThreadSafe;
+
+/**
+ * a memory mapped file that holds the chunks of history for one time partition, for example one
+ * day. Chunks are appended. The chunks of a series are linked, each chunk holds the offset of the
+ * previous chunk of the series in the file, so only the offset of the last chunk of each series is
+ * kept in memory.
+ *
+ * The file starts with a header followed by records. A record starts with its length, a length of
+ * zero is the end of the records. A series record gives the name and metric for a series number,
+ * it is written before the first chunk of the series.
+ *
+ * A segment read from disk is not written to, the series numbers in the file are not the numbers
+ * used by the running JVM.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+final class HistorySegment implements Closeable {
+
+  /**
+   * the byte size of a chunk record before the packed words.
+   */
+  static final int CHUNK_HEADER_SIZE = 45;
+  private static final int FILE_HEADER_SIZE = 24;
+  private static final int MAGIC = 0x52484853;
+  private static final byte RECORD_TYPE_CHUNK = 2;
+  private static final byte RECORD_TYPE_SERIES = 1;
+  private static final int VERSION = 1;
+  private final MappedByteBuffer buffer;
+  private final FileChannel channel;
+  private final BitSet definedSeriesSet;
+  private final boolean isWritable;
+  private final int part;
+  private final long partitionMilliseconds;
+  private final long partitionStart;
+  private final Path path;
+  private int[] lastChunkOffsetArray;
+  private int position;
+
+  private HistorySegment(final Path path, final FileChannel channel, final MappedByteBuffer buffer,
+      final long partitionStart, final long partitionMilliseconds, final int part,
+      final boolean isWritable) {
+    this.path = path;
+    this.channel = channel;
+    this.buffer = buffer;
+    this.partitionStart = partitionStart;
+    this.partitionMilliseconds = partitionMilliseconds;
+    this.part = part;
+    this.isWritable = isWritable;
+    this.definedSeriesSet = new BitSet();
+    this.lastChunkOffsetArray = new int[0];
+    this.position = FILE_HEADER_SIZE;
+  }
+
+  private HistorySegment() {
+    this.path = null;
+    this.channel = null;
+    this.buffer = null;
+    this.partitionStart = 0;
+    this.partitionMilliseconds = 0;
+    this.part = 0;
+    this.isWritable = false;
+    this.definedSeriesSet = null;
+  }
+
+  /**
+   * create a new segment file. The file is sparse, disk blocks are used only as chunks are written.
+   *
+   * @param path the file to create. It shall not exist.
+   * @param capacity the largest size of the file in bytes.
+   */
+  static HistorySegment create(final Path path, final long partitionStart,
+      final long partitionMilliseconds, final int part, final int capacity) throws IOException {
+    final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    buffer.putLong(8, partitionStart);
+    buffer.putLong(16, partitionMilliseconds);
+
+    return new HistorySegment(path, channel, buffer, partitionStart, partitionMilliseconds, part,
+        true);
+  }
+
+  /**
+   * open a segment file written by an earlier JVM. Each series found in the file is looked up, or
+   * created, in the series map of the store.
+   *
+   * @param part the part number from the file name.
+   * @param seriesResolver finds the series for a name and metric.
+   */
+  static HistorySegment open(final Path path, final int part,
+      final SeriesResolver seriesResolver) throws IOException {
+    final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+    if ((buffer.limit() < FILE_HEADER_SIZE) || (buffer.getInt(0) != MAGIC)
+        || (buffer.getInt(4) != VERSION)) {
+      channel.close();
+
+      throw new IOException("The file " + path + " is not a RedHelix history segment.");
+    }
+
+    final HistorySegment retVal = new HistorySegment(path, channel, buffer, buffer.getLong(8),
+        buffer.getLong(16), part, false);
+
+    retVal.scan(seriesResolver);
+
+    return retVal;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * write the changed pages of the file to disk.
+   */
+  void force() {
+    if (isWritable) {
+      buffer.force();
+    }
+  }
+
+  /**
+   * get the offset of the last chunk of a series.
+   *
+   * @return zero if the segment has no chunk of the series.
+   */
+  synchronized int getLastChunkOffset(final int seriesNumber) {
+    return (seriesNumber < lastChunkOffsetArray.length) ? lastChunkOffsetArray[seriesNumber] : 0;
+  }
+
+  int getPart() {
+    return part;
+  }
+
+  long getPartitionStart() {
+    return partitionStart;
+  }
+
+  Path getPath() {
+    return path;
+  }
+
+  boolean isWritable() {
+    return isWritable;
+  }
+
+  /**
+   * test if the partition of the segment overlaps a time range.
+   */
+  boolean overlaps(final long fromMilliseconds, final long toMilliseconds) {
+    return (partitionStart < toMilliseconds)
+        && ((partitionStart + partitionMilliseconds) > fromMilliseconds);
+  }
+
+  /**
+   * pass the samples of a series in a time range to a visitor. The chunks are found by following
+   * the links back from the last chunk, then decoded from the oldest.
+   *
+   * @param lastChunkOffset the offset of the last chunk of the series to read, from
+   *        {@link #getLastChunkOffset(int)}.
+   * @return false if the visitor stopped the query.
+   */
+  boolean readRange(final int lastChunkOffset, final long fromMilliseconds,
+      final long toMilliseconds, final RedHxDbHistoryVisitor visitor) {
+    int[] offsetArray = new int[8];
+    int offsetCount = 0;
+    int offset = lastChunkOffset;
+
+    while (offset != 0) {
+      final long firstTime = buffer.getLong(offset + 17);
+      final long lastTime = buffer.getLong(offset + 25);
+
+      if (lastTime < fromMilliseconds) {
+        break;
+      }
+
+      if (firstTime < toMilliseconds) {
+        if (offsetCount == offsetArray.length) {
+          offsetArray = Arrays.copyOf(offsetArray, offsetCount * 2);
+        }
+
+        offsetArray[offsetCount++] = offset;
+      }
+
+      offset = buffer.getInt(offset + 9);
+    }
+
+    boolean retVal = true;
+
+    for (int i = offsetCount - 1; retVal && (i >= 0); --i) {
+      final int chunkOffset = offsetArray[i];
+      final HistoryChunkDecoder decoder =
+          new HistoryChunkDecoder(buffer, chunkOffset + CHUNK_HEADER_SIZE,
+              buffer.getInt(chunkOffset + 13), buffer.getLong(chunkOffset + 17),
+              buffer.getLong(chunkOffset + 33));
+
+      retVal = decoder.visit(fromMilliseconds, toMilliseconds, visitor);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * append the open chunk of a series. The caller holds the lock of the series.
+   *
+   * @return false if the segment does not have room for the chunk.
+   */
+  synchronized boolean writeChunk(final HistorySeries series) {
+    if (!isWritable) {
+      throw new IllegalStateException("The segment " + path + " can not be written.");
+    }
+
+    final int seriesNumber = series.getNumber();
+    final byte[] nameBytes = definedSeriesSet.get(seriesNumber) ? null
+        : series.getName().getBytes(StandardCharsets.UTF_8);
+    final int seriesRecordSize = (nameBytes == null) ? 0 : (12 + nameBytes.length);
+    final int wordCount = series.getWordCount();
+    final int chunkRecordSize = CHUNK_HEADER_SIZE + (wordCount << 3);
+
+    // keep room for the zero length that ends the records
+    if (((long) position + seriesRecordSize + chunkRecordSize + 4) > buffer.capacity()) {
+      return false;
+    }
+
+    if (nameBytes != null) {
+      buffer.put(position + 4, RECORD_TYPE_SERIES);
+      buffer.putInt(position + 5, seriesNumber);
+      buffer.put(position + 9, (byte) series.getMetric().ordinal());
+      buffer.putShort(position + 10, (short) nameBytes.length);
+
+      for (int i = 0; i < nameBytes.length; ++i) {
+        buffer.put(position + 12 + i, nameBytes[i]);
+      }
+
+      buffer.putInt(position, seriesRecordSize);
+      position += seriesRecordSize;
+      definedSeriesSet.set(seriesNumber);
+    }
+
+    final long[] wordArray = series.getWordArray();
+
+    buffer.put(position + 4, RECORD_TYPE_CHUNK);
+    buffer.putInt(position + 5, seriesNumber);
+    buffer.putInt(position + 9, getLastChunkOffset(seriesNumber));
+    buffer.putInt(position + 13, series.getCount());
+    buffer.putLong(position + 17, series.getFirstTime());
+    buffer.putLong(position + 25, series.getLastTime());
+    buffer.putLong(position + 33, series.getFirstValue());
+    buffer.putInt(position + 41, series.getBitCount());
+
+    for (int i = 0; i < wordCount; ++i) {
+      buffer.putLong(position + CHUNK_HEADER_SIZE + (i << 3), wordArray[i]);
+    }
+
+    // the length is written last, a reader of a file that was not closed stops at a zero length
+    buffer.putInt(position, chunkRecordSize);
+    setLastChunkOffset(seriesNumber, position);
+    position += chunkRecordSize;
+
+    return true;
+  }
+
+  /**
+   * read the records of a file written by an earlier JVM to find the last chunk of each series.
+   */
+  private void scan(final SeriesResolver seriesResolver) {
+    final Map<Integer, HistorySeries> fileSeriesMap = new HashMap<>();
+    final RedHxDbHistoryMetricEnum[] metricArray = RedHxDbHistoryMetricEnum.values();
+
+    while ((position + 4) <= buffer.limit()) {
+      final int length = buffer.getInt(position);
+
+      if ((length <= 0) || ((position + length) > buffer.limit())) {
+        break;
+      }
+
+      final byte recordType = buffer.get(position + 4);
+      final int fileSeriesNumber = buffer.getInt(position + 5);
+
+      if (recordType == RECORD_TYPE_SERIES) {
+        final byte[] nameBytes = new byte[buffer.getShort(position + 10)];
+
+        for (int i = 0; i < nameBytes.length; ++i) {
+          nameBytes[i] = buffer.get(position + 12 + i);
+        }
+
+        fileSeriesMap.put(fileSeriesNumber,
+            seriesResolver.getSeries(new String(nameBytes, StandardCharsets.UTF_8),
+                metricArray[buffer.get(position + 9)]));
+      } else if (recordType == RECORD_TYPE_CHUNK) {
+        final HistorySeries series = fileSeriesMap.get(fileSeriesNumber);
+
+        if (series != null) {
+          synchronized (series) {
+            series.setStoredLastTime(buffer.getLong(position + 25));
+          }
+
+          setLastChunkOffset(series.getNumber(), position);
+        }
+      }
+
+      position += length;
+    }
+  }
+
+  private synchronized void setLastChunkOffset(final int seriesNumber, final int offset) {
+    if (seriesNumber >= lastChunkOffsetArray.length) {
+      lastChunkOffsetArray =
+          Arrays.copyOf(lastChunkOffsetArray, Math.max(seriesNumber + 1, seriesNumber * 2));
+    }
+
+    lastChunkOffsetArray[seriesNumber] = offset;
+  }
+
+  @Override
+  public String toString() {
+    return "HistorySegment{" + "path=" + path + ", position=" + position + '}';
+  }
+
+  /**
+   * find the series of the store for a name and metric read from a file.
+   */
+  interface SeriesResolver {
+
+    HistorySeries getSeries(String name, RedHxDbHistoryMetricEnum metric);
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db.history;
+
+import java.util.Arrays;
+import org.redhelix.core.annotations.NotThreadSafe;
+
+/**
+ * one series of the history and the chunk of samples that is still being filled. The samples of a
+ * chunk are packed into bits, the time as the change from the previous time difference and the
+ * value as the change from the previous value. A series read every 30 seconds with a steady value
+ * takes two bits a sample.
+ *
+ * The caller shall hold the lock of the series to use it.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@NotThreadSafe
+final class HistorySeries {
+
+  /**
+   * the number of samples that closes a chunk. At a 30 second cadence this is two hours.
+   */
+  static final int MAX_CHUNK_SAMPLE_COUNT = 240;
+  private static final int INITIAL_WORD_COUNT = 4;
+  private final RedHxDbHistoryMetricEnum metric;
+  private final String name;
+  private final int number;
+  private int bitCount;
+  private long chunkPartitionStart;
+  private int count;
+  private long firstTime;
+  private long firstValue;
+  private boolean hasLastValue;
+  private long lastDelta;
+  private long lastTime;
+  private long lastValue;
+  private long[] wordArray;
+
+  HistorySeries(final String name, final RedHxDbHistoryMetricEnum metric, final int number) {
+    this.name = name;
+    this.metric = metric;
+    this.number = number;
+    this.lastTime = Long.MIN_VALUE;
+    this.wordArray = new long[INITIAL_WORD_COUNT];
+  }
+
+  private HistorySeries() {
+    this.name = null;
+    this.metric = null;
+    this.number = 0;
+  }
+
+  static long zigZag(final long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  /**
+   * add a sample to the open chunk. The sample shall be after the last sample and in the partition
+   * of the chunk, if the chunk is not empty.
+   */
+  void append(final long time, final long value, final long partitionStart) {
+    if (count == 0) {
+      firstTime = time;
+      firstValue = value;
+      lastDelta = 0;
+      chunkPartitionStart = partitionStart;
+    } else {
+      final long delta = time - lastTime;
+
+      writeTimeDelta(delta - lastDelta);
+      writeValueDelta(value - lastValue);
+      lastDelta = delta;
+    }
+
+    ++count;
+    lastTime = time;
+    lastValue = value;
+    hasLastValue = true;
+  }
+
+  /**
+   * test if a sample would be stored. Samples must increase in time, a health or state is stored
+   * only when it changes.
+   */
+  boolean isAccepted(final long time, final long value) {
+    final boolean retVal;
+
+    if (time <= lastTime) {
+      retVal = false;
+    } else if (metric.isTransitionOnly() && hasLastValue) {
+      retVal = value != lastValue;
+    } else {
+      retVal = true;
+    }
+
+    return retVal;
+  }
+
+  int getBitCount() {
+    return bitCount;
+  }
+
+  long getChunkPartitionStart() {
+    return chunkPartitionStart;
+  }
+
+  int getCount() {
+    return count;
+  }
+
+  long getFirstTime() {
+    return firstTime;
+  }
+
+  long getFirstValue() {
+    return firstValue;
+  }
+
+  long getLastTime() {
+    return lastTime;
+  }
+
+  RedHxDbHistoryMetricEnum getMetric() {
+    return metric;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  int getNumber() {
+    return number;
+  }
+
+  /**
+   * get the words that hold the packed samples of the open chunk.
+   *
+   * @return the array is shared, it shall not be changed.
+   */
+  long[] getWordArray() {
+    return wordArray;
+  }
+
+  int getWordCount() {
+    return (bitCount + 63) >>> 6;
+  }
+
+  boolean isChunkFull() {
+    return count >= MAX_CHUNK_SAMPLE_COUNT;
+  }
+
+  /**
+   * empty the open chunk after it is written to a segment. The last time and value are kept so the
+   * next sample is still checked against them.
+   */
+  void resetChunk() {
+    count = 0;
+    bitCount = 0;
+    Arrays.fill(wordArray, 0L);
+  }
+
+  /**
+   * set the time of the last sample stored before the JVM started, so older samples are not
+   * appended.
+   */
+  void setStoredLastTime(final long time) {
+    if (time > lastTime) {
+      lastTime = time;
+    }
+  }
+
+  private void writeBits(final long bits, final int bitLength) {
+    final int wordIndex = bitCount >>> 6;
+    final int freeCount = 64 - (bitCount & 63);
+    final long maskedBits = (bitLength == 64) ? bits : (bits & ((1L << bitLength) - 1));
+
+    if (wordIndex + 1 >= wordArray.length) {
+      wordArray = Arrays.copyOf(wordArray, wordArray.length * 2);
+    }
+
+    if (bitLength <= freeCount) {
+      wordArray[wordIndex] |= maskedBits << (freeCount - bitLength);
+    } else {
+      final int spillCount = bitLength - freeCount;
+
+      wordArray[wordIndex] |= maskedBits >>> spillCount;
+      wordArray[wordIndex + 1] |= maskedBits << (64 - spillCount);
+    }
+
+    bitCount += bitLength;
+  }
+
+  /**
+   * write the change of the time difference. '0' for none, then '10', '110', '1110' and '1111'
+   * followed by 7, 12, 20 or 64 bits.
+   */
+  private void writeTimeDelta(final long deltaOfDelta) {
+    final long bits = zigZag(deltaOfDelta);
+
+    if (bits == 0) {
+      writeBits(0, 1);
+    } else if ((bits >>> 7) == 0) {
+      writeBits(0b10, 2);
+      writeBits(bits, 7);
+    } else if ((bits >>> 12) == 0) {
+      writeBits(0b110, 3);
+      writeBits(bits, 12);
+    } else if ((bits >>> 20) == 0) {
+      writeBits(0b1110, 4);
+      writeBits(bits, 20);
+    } else {
+      writeBits(0b1111, 4);
+      writeBits(bits, 64);
+    }
+  }
+
+  /**
+   * write the change of the value. '0' for none, then '10', '110' and '111' followed by 6, 16 or 64
+   * bits.
+   */
+  private void writeValueDelta(final long delta) {
+    final long bits = zigZag(delta);
+
+    if (bits == 0) {
+      writeBits(0, 1);
+    } else if ((bits >>> 6) == 0) {
+      writeBits(0b10, 2);
+      writeBits(bits, 6);
+    } else if ((bits >>> 16) == 0) {
+      writeBits(0b110, 3);
+      writeBits(bits, 16);
+    } else {
+      writeBits(0b111, 3);
+      writeBits(bits, 64);
+    }
+  }
+}
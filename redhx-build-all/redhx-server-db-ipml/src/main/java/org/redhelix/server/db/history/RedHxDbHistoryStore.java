@@ -0,0 +1,494 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.computer.system.power.RedHxPowerVoltageReading;
+import org.redhelix.core.computer.system.power.RedHxPowerWatts;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+import org.redhelix.core.util.RedHxOperatingStateEnum;
+
+/**
+ * the history of the devices stored in memory mapped files in a directory. Time is divided into
+ * partitions, by default one day, and the chunks of every series for a partition are stored in one
+ * file. A query reads only the files of the partitions it overlaps and only the chunks of its
+ * series, the samples are decoded as they are passed to the visitor.
+ *
+ * The samples of each series are kept in memory until a chunk of two hours is filled, then the
+ * chunk is written to the file. Samples in a chunk that is not full are written by {@link #close()},
+ * they are lost if the JVM stops without calling it.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+public final class RedHxDbHistoryStore implements RedHxDbHistoryOperations, Closeable {
+
+  /**
+   * the largest size of one segment file. The files are sparse so disk blocks are only used for
+   * the chunks written.
+   */
+  public static final int DEFAULT_SEGMENT_CAPACITY = 512 * 1024 * 1024;
+  public static final long DEFAULT_PARTITION_MILLISECONDS = 24L * 60 * 60 * 1000;
+  public static final int MAX_SERIES_NAME_LENGTH = 1024;
+  private static final int MIN_SEGMENT_CAPACITY = 1024 * 1024;
+  private static final Pattern SEGMENT_FILE_PATTERN = Pattern.compile("history-(-?\\d+)-(\\d+)\\.seg");
+  private static final Comparator<HistorySegment> SEGMENT_ORDER =
+      Comparator.comparingLong(HistorySegment::getPartitionStart)
+          .thenComparingInt(HistorySegment::getPart);
+  private final Path directory;
+  private final Map<Long, Integer> nextPartMap;
+  private final long partitionMilliseconds;
+  private final int segmentCapacity;
+  private final ConcurrentMap<SeriesKey, HistorySeries> seriesMap;
+  private final List<HistorySeries> seriesList;
+  private final Map<Long, HistorySegment> writableSegmentMap;
+  private volatile boolean isClosed;
+  private volatile HistorySegment[] segmentArray;
+
+  /**
+   * open the history in a directory with a partition of one day.
+   *
+   * @param directory the directory of the segment files. It is created if it does not exist.
+   * @throws IOException the directory or a segment file can not be read.
+   */
+  public RedHxDbHistoryStore(final Path directory) throws IOException {
+    this(directory, DEFAULT_PARTITION_MILLISECONDS, DEFAULT_SEGMENT_CAPACITY);
+  }
+
+  /**
+   * open the history in a directory.
+   *
+   * @param directory the directory of the segment files. It is created if it does not exist.
+   * @param partitionMilliseconds the time covered by one segment file. This shall be greater than
+   *        zero.
+   * @param segmentCapacity the largest size of one segment file in bytes. When a file is full
+   *        another file is started for the same partition. This shall be at least one megabyte.
+   * @throws IOException the directory or a segment file can not be read.
+   */
+  public RedHxDbHistoryStore(final Path directory, final long partitionMilliseconds,
+      final int segmentCapacity) throws IOException {
+    if (partitionMilliseconds <= 0) {
+      throw new IllegalArgumentException(
+          "Argument \"partitionMilliseconds\" must be greater than zero, not "
+              + partitionMilliseconds);
+    }
+
+    if (segmentCapacity < MIN_SEGMENT_CAPACITY) {
+      throw new IllegalArgumentException("Argument \"segmentCapacity\" must be at least "
+          + MIN_SEGMENT_CAPACITY + ", not " + segmentCapacity);
+    }
+
+    this.directory = directory;
+    this.partitionMilliseconds = partitionMilliseconds;
+    this.segmentCapacity = segmentCapacity;
+    this.seriesMap = new ConcurrentHashMap<>();
+    this.seriesList = new ArrayList<>();
+    this.nextPartMap = new HashMap<>();
+    this.writableSegmentMap = new HashMap<>();
+    this.segmentArray = new HistorySegment[0];
+
+    Files.createDirectories(directory);
+    openSegments();
+  }
+
+  private RedHxDbHistoryStore() {
+    this.directory = null;
+    this.partitionMilliseconds = 0;
+    this.segmentCapacity = 0;
+    this.seriesMap = null;
+    this.seriesList = null;
+    this.nextPartMap = null;
+    this.writableSegmentMap = null;
+  }
+
+  private static void checkArgument(final Object arg, final String argName) {
+    if (arg == null) {
+      throw new IllegalArgumentException("Argument \"" + argName + "\" can not be null.");
+    }
+  }
+
+  /**
+   * convert a reading held as a whole number and tenths to tenths. The tenths of a negative reading
+   * are below the whole number, -12.5 volts is a major of -12 and a minor of 5.
+   */
+  private static long toTenths(final long major, final long minor) {
+    final long retVal;
+
+    if (major < 0) {
+      retVal = (major * 10) - minor;
+    } else {
+      retVal = (major * 10) + minor;
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public boolean appendHealth(final String seriesName, final long timeMilliseconds,
+      final RedHxOperatingHealthEnum health) {
+    checkArgument(health, "health");
+
+    return append(seriesName, RedHxDbHistoryMetricEnum.HEALTH, timeMilliseconds,
+        health.ordinal());
+  }
+
+  @Override
+  public boolean appendState(final String seriesName, final long timeMilliseconds,
+      final RedHxOperatingStateEnum state) {
+    checkArgument(state, "state");
+
+    return append(seriesName, RedHxDbHistoryMetricEnum.STATE, timeMilliseconds, state.ordinal());
+  }
+
+  @Override
+  public boolean appendVoltage(final String seriesName, final long timeMilliseconds,
+      final RedHxPowerVoltageReading voltage) {
+    checkArgument(voltage, "voltage");
+
+    return append(seriesName, RedHxDbHistoryMetricEnum.VOLTAGE, timeMilliseconds,
+        toTenths(voltage.getVoltageMajor(), voltage.getVoltageMinor()));
+  }
+
+  @Override
+  public boolean appendWatts(final String seriesName, final long timeMilliseconds,
+      final RedHxPowerWatts watts) {
+    checkArgument(watts, "watts");
+
+    return append(seriesName, RedHxDbHistoryMetricEnum.POWER_CONSUMED_WATTS, timeMilliseconds,
+        toTenths(watts.getWattsMajor(), watts.getWattsMinor()));
+  }
+
+  /**
+   * write every chunk that is not full to the segment files and close the files. Samples appended
+   * after this are not stored.
+   *
+   * @throws IOException a segment file can not be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    final HistorySeries[] array;
+
+    synchronized (this) {
+      if (isClosed) {
+        return;
+      }
+
+      isClosed = true;
+      array = seriesList.toArray(new HistorySeries[seriesList.size()]);
+    }
+
+    for (HistorySeries series : array) {
+      synchronized (series) {
+        if (series.getCount() > 0) {
+          writeChunk(series);
+        }
+      }
+    }
+
+    IOException closeException = null;
+
+    for (HistorySegment segment : segmentArray) {
+      segment.force();
+
+      try {
+        segment.close();
+      } catch (IOException ex) {
+        closeException = ex;
+      }
+    }
+
+    if (closeException != null) {
+      throw closeException;
+    }
+  }
+
+  /**
+   * write the chunks already in the segment files to disk.
+   */
+  public void force() {
+    for (HistorySegment segment : segmentArray) {
+      segment.force();
+    }
+  }
+
+  /**
+   * get the number of segment files.
+   *
+   * @return zero or a positive number.
+   */
+  public int getSegmentCount() {
+    return segmentArray.length;
+  }
+
+  /**
+   * get the number of series in the history.
+   *
+   * @return zero or a positive number.
+   */
+  public int getSeriesCount() {
+    return seriesMap.size();
+  }
+
+  @Override
+  public void readRange(final String seriesName, final RedHxDbHistoryMetricEnum metric,
+      final long fromMilliseconds, final long toMilliseconds,
+      final RedHxDbHistoryVisitor visitor) {
+    checkArgument(seriesName, "seriesName");
+    checkArgument(metric, "metric");
+    checkArgument(visitor, "visitor");
+
+    final HistorySeries series = seriesMap.get(new SeriesKey(seriesName, metric));
+
+    if ((series == null) || (fromMilliseconds >= toMilliseconds)) {
+      return;
+    }
+
+    final List<HistorySegment> readSegmentList = new ArrayList<>();
+    final List<Integer> lastChunkOffsetList = new ArrayList<>();
+    final ByteBuffer openChunkBuffer;
+    final int openChunkCount;
+    final long openChunkFirstTime;
+    final long openChunkFirstValue;
+
+    /*
+     * the last chunk of each segment and the open chunk are found while holding the lock of the
+     * series, so a chunk written to a segment during the query is neither missed nor read twice.
+     */
+    synchronized (series) {
+      for (HistorySegment segment : segmentArray) {
+        if (segment.overlaps(fromMilliseconds, toMilliseconds)) {
+          final int lastChunkOffset = segment.getLastChunkOffset(series.getNumber());
+
+          if (lastChunkOffset != 0) {
+            readSegmentList.add(segment);
+            lastChunkOffsetList.add(lastChunkOffset);
+          }
+        }
+      }
+
+      openChunkCount = series.getCount();
+      openChunkFirstTime = series.getFirstTime();
+      openChunkFirstValue = series.getFirstValue();
+
+      if ((openChunkCount > 0) && (openChunkFirstTime < toMilliseconds)
+          && (series.getLastTime() >= fromMilliseconds)) {
+        final int wordCount = series.getWordCount();
+        final long[] wordArray = series.getWordArray();
+
+        openChunkBuffer = ByteBuffer.allocate(wordCount << 3);
+
+        for (int i = 0; i < wordCount; ++i) {
+          openChunkBuffer.putLong(i << 3, wordArray[i]);
+        }
+      } else {
+        openChunkBuffer = null;
+      }
+    }
+
+    boolean isVisiting = true;
+
+    for (int i = 0; isVisiting && (i < readSegmentList.size()); ++i) {
+      isVisiting = readSegmentList.get(i).readRange(lastChunkOffsetList.get(i), fromMilliseconds,
+          toMilliseconds, visitor);
+    }
+
+    if (isVisiting && (openChunkBuffer != null)) {
+      new HistoryChunkDecoder(openChunkBuffer, 0, openChunkCount, openChunkFirstTime,
+          openChunkFirstValue).visit(fromMilliseconds, toMilliseconds, visitor);
+    }
+  }
+
+  private boolean append(final String seriesName, final RedHxDbHistoryMetricEnum metric,
+      final long timeMilliseconds, final long value) {
+    checkArgument(seriesName, "seriesName");
+
+    if (seriesName.length() > MAX_SERIES_NAME_LENGTH) {
+      throw new IllegalArgumentException("Argument \"seriesName\" has more than "
+          + MAX_SERIES_NAME_LENGTH + " characters. Invalid name is \"" + seriesName + "\".");
+    }
+
+    if (isClosed) {
+      return false;
+    }
+
+    final HistorySeries series = getSeries(seriesName, metric);
+    final long partitionStart = Math.floorDiv(timeMilliseconds, partitionMilliseconds)
+        * partitionMilliseconds;
+    final boolean retVal;
+
+    synchronized (series) {
+      retVal = series.isAccepted(timeMilliseconds, value);
+
+      if (retVal) {
+        if ((series.getCount() > 0) && (series.isChunkFull()
+            || (series.getChunkPartitionStart() != partitionStart))) {
+          writeChunk(series);
+        }
+
+        series.append(timeMilliseconds, value, partitionStart);
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * create a segment file for a partition. The caller holds the lock of the store.
+   */
+  private HistorySegment createSegment(final long partitionStart) throws IOException {
+    final Integer nextPart = nextPartMap.get(partitionStart);
+    final int part = (nextPart == null) ? 0 : nextPart;
+    final Path path = directory.resolve("history-" + partitionStart + "-" + part + ".seg");
+    final HistorySegment retVal = HistorySegment.create(path, partitionStart,
+        partitionMilliseconds, part, segmentCapacity);
+    final HistorySegment[] newArray = Arrays.copyOf(segmentArray, segmentArray.length + 1);
+
+    newArray[newArray.length - 1] = retVal;
+    Arrays.sort(newArray, SEGMENT_ORDER);
+    segmentArray = newArray;
+    nextPartMap.put(partitionStart, part + 1);
+    writableSegmentMap.put(partitionStart, retVal);
+
+    return retVal;
+  }
+
+  private HistorySeries getSeries(final String seriesName,
+      final RedHxDbHistoryMetricEnum metric) {
+    final SeriesKey key = new SeriesKey(seriesName, metric);
+    HistorySeries retVal = seriesMap.get(key);
+
+    if (retVal == null) {
+      synchronized (this) {
+        retVal = seriesMap.get(key);
+
+        if (retVal == null) {
+          retVal = new HistorySeries(seriesName, metric, seriesList.size());
+          seriesList.add(retVal);
+          seriesMap.put(key, retVal);
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  private void openSegments() throws IOException {
+    final List<HistorySegment> list = new ArrayList<>();
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "history-*.seg")) {
+      for (Path path : stream) {
+        final Matcher matcher = SEGMENT_FILE_PATTERN.matcher(path.getFileName().toString());
+
+        if (matcher.matches()) {
+          final HistorySegment segment =
+              HistorySegment.open(path, Integer.parseInt(matcher.group(2)), this::getSeries);
+          final Integer nextPart = nextPartMap.get(segment.getPartitionStart());
+
+          if ((nextPart == null) || (nextPart <= segment.getPart())) {
+            nextPartMap.put(segment.getPartitionStart(), segment.getPart() + 1);
+          }
+
+          list.add(segment);
+        }
+      }
+    }
+
+    final HistorySegment[] array = list.toArray(new HistorySegment[list.size()]);
+
+    Arrays.sort(array, SEGMENT_ORDER);
+    segmentArray = array;
+  }
+
+  /**
+   * write the open chunk of a series to the segment of its partition. The caller holds the lock of
+   * the series.
+   */
+  private void writeChunk(final HistorySeries series) {
+    final long partitionStart = series.getChunkPartitionStart();
+
+    synchronized (this) {
+      try {
+        HistorySegment segment = writableSegmentMap.get(partitionStart);
+
+        if (segment == null) {
+          segment = createSegment(partitionStart);
+        }
+
+        if (!segment.writeChunk(series)) {
+          segment.force();
+          segment = createSegment(partitionStart);
+          segment.writeChunk(series);
+        }
+      } catch (IOException ex) {
+        throw new UncheckedIOException("The history chunk of " + series.getName()
+            + " can not be written to " + directory, ex);
+      }
+    }
+
+    series.resetChunk();
+  }
+
+  /**
+   * the name and metric of a series.
+   */
+  private static final class SeriesKey {
+
+    private final RedHxDbHistoryMetricEnum metric;
+    private final String name;
+
+    private SeriesKey(final String name, final RedHxDbHistoryMetricEnum metric) {
+      this.name = name;
+      this.metric = metric;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+
+      if (!(obj instanceof SeriesKey)) {
+        return false;
+      }
+
+      final SeriesKey other = (SeriesKey) obj;
+
+      return (metric == other.metric) && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+      return (31 * name.hashCode()) + metric.hashCode();
+    }
+  }
+}
@@ -18,6 +18,7 @@ import java.util.List;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.edm.provider.CsdlAction;
 import org.apache.olingo.commons.api.edm.provider.CsdlActionImport;
+import org.apache.olingo.commons.api.edm.provider.CsdlComplexType;
 
 /**
  *
@@ -34,4 +35,11 @@ public interface RedHxEdmActionProvider {
 
   List<CsdlAction> getActionList(FullQualifiedName actionName);
 
+  /**
+   * get the complex types the actions take as parameters or return.
+   *
+   * @return an empty list if the actions use only primitive types. A null is not returned.
+   */
+  List<CsdlComplexType> getComplexTypeList();
+
 }
@@ -15,10 +15,16 @@
 package org.redhelix.server.action.op.discover;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.edm.provider.CsdlAction;
 import org.apache.olingo.commons.api.edm.provider.CsdlActionImport;
+import org.apache.olingo.commons.api.edm.provider.CsdlComplexType;
+import org.apache.olingo.commons.api.edm.provider.CsdlParameter;
+import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlReturnType;
 import org.redhelix.server.action.RedHxAbstractEdmActionProvider;
 import org.redhelix.server.main.RedHxServiceEdmProvider;
 
@@ -26,6 +32,12 @@ import org.redhelix.server.main.RedHxServiceEdmProvider;
  *
  * Create the Entity Data Model for the RedHelix Discover System service JSON messages. The Discover
  * System message configures how Redfish servers are discovered.
+ * <p>
+ * The action sweeps a range of IP addresses for Redfish services. Called with a begin and end
+ * address it starts a sweep, called without them it reports the progress of the last sweep. Either
+ * way it returns a {@value #CT_DISCOVER_PROGRESS_NAME} with the progress. The seed and resume index
+ * of the progress continue a sweep that was stopped.
+ * </p>
  *
  * @since RedHelix Version 0.2
  * @author Hank Bruning
@@ -43,14 +55,42 @@ public final class RedHxDiscoverSystemEdmProvider extends RedHxAbstractEdmAction
 
   public static final FullQualifiedName DISCOVER_PARAM_1 = new FullQualifiedName(
       RedHxServiceEdmProvider.SCHEMA_NAME_SPACE, ET_DISCOVER_SYSTEM_NAME + ".RedHxDiscoveryParam1");
+
+  /**
+   * the complex type returned by the action.
+   */
+  static final String CT_DISCOVER_PROGRESS_NAME = "discoverSystemProgress";
+  public static final FullQualifiedName CT_DISCOVER_PROGRESS_FQN =
+      new FullQualifiedName(RedHxServiceEdmProvider.SCHEMA_NAME_SPACE, CT_DISCOVER_PROGRESS_NAME);
+
+  /*
+   * the names of the action parameters and of the properties of the progress.
+   */
+  static final String PARAM_BEGIN_ADDRESS = "BeginAddress";
+  static final String PARAM_END_ADDRESS = "EndAddress";
+  static final String PARAM_HTTPS = "Https";
+  static final String PARAM_PROBES_PER_SECOND = "ProbesPerSecond";
+  static final String PARAM_RESUME_INDEX = "ResumeIndex";
+  static final String PARAM_SEED = "Seed";
+  static final String PARAM_TCP_PORT_NUMBER = "TcpPortNumber";
+  static final String PROP_ADDRESS_COUNT = "AddressCount";
+  static final String PROP_BEGIN_ADDRESS = PARAM_BEGIN_ADDRESS;
+  static final String PROP_END_ADDRESS = PARAM_END_ADDRESS;
+  static final String PROP_FOUND_COUNT = "FoundCount";
+  static final String PROP_IS_RUNNING = "IsRunning";
+  static final String PROP_PROBED_COUNT = "ProbedCount";
+  static final String PROP_RESUME_INDEX = PARAM_RESUME_INDEX;
+  static final String PROP_SEED = PARAM_SEED;
   private final List<CsdlActionImport> actionImportList;
   private final List<CsdlAction> actionList;
+  private final List<CsdlComplexType> complexTypeList;
   private final CsdlAction discoverAction;
 
   public RedHxDiscoverSystemEdmProvider() {
     discoverAction = createDiscoverAction();
     actionList = createActionList(discoverAction);
     actionImportList = createActionImportList(discoverAction);
+    complexTypeList = Collections.singletonList(createProgressType());
   }
 
   @Override
@@ -63,6 +103,11 @@ public final class RedHxDiscoverSystemEdmProvider extends RedHxAbstractEdmAction
     return actionList;
   }
 
+  @Override
+  public List<CsdlComplexType> getComplexTypeList() {
+    return complexTypeList;
+  }
+
   @Override
   public List<CsdlAction> getActionList(FullQualifiedName actionName) {
     List<CsdlAction> list = new ArrayList<>();
@@ -73,9 +118,6 @@ public final class RedHxDiscoverSystemEdmProvider extends RedHxAbstractEdmAction
       }
     }
 
-    System.out.println("HFB5: looking up action name=" + actionName.getFullQualifiedNameAsString()
-        + " found " + list.size() + " actions.");
-
     return list;
   }
 
@@ -87,8 +129,6 @@ public final class RedHxDiscoverSystemEdmProvider extends RedHxAbstractEdmAction
     actionImport.setAction(ACTION_NAME_FQN);
 
     list.add(actionImport);
-    System.out.println("HFB5: crating CSDL for discover action=" + actionImport.getName() + ", "
-        + actionImport.getActionFQN().getFullQualifiedNameAsString());
     return list;
   }
 
@@ -101,24 +141,47 @@ public final class RedHxDiscoverSystemEdmProvider extends RedHxAbstractEdmAction
 
   }
 
+  private static CsdlParameter createParameter(final String name, final FullQualifiedName type) {
+    return new CsdlParameter().setName(name).setType(type).setNullable(true);
+  }
+
+  private static CsdlProperty createProperty(final String name, final FullQualifiedName type,
+      final boolean isNullable) {
+    return new CsdlProperty().setName(name).setType(type).setNullable(isNullable);
+  }
+
+  private static CsdlComplexType createProgressType() {
+    final CsdlComplexType complexType = new CsdlComplexType();
+
+    complexType.setName(CT_DISCOVER_PROGRESS_NAME);
+    complexType.setProperties(Arrays.asList(createProperty(PROP_BEGIN_ADDRESS, nameString, true),
+        createProperty(PROP_END_ADDRESS, nameString, true),
+        createProperty(PROP_IS_RUNNING, nameBoolean, false),
+        createProperty(PROP_ADDRESS_COUNT, nameInt64, false),
+        createProperty(PROP_PROBED_COUNT, nameInt64, false),
+        createProperty(PROP_FOUND_COUNT, nameInt64, false),
+        createProperty(PROP_SEED, nameInt64, false),
+        createProperty(PROP_RESUME_INDEX, nameInt64, false)));
+
+    return complexType;
+  }
+
   private CsdlAction createDiscoverAction() {
     CsdlAction action = new CsdlAction();
 
     action.setName(ET_DISCOVER_SYSTEM_NAME);
 
-    //
-    //
-    // // action.setReturnType();
-    // // action.setBound(true);
-    //
-    // List<CsdlParameter> paramList = new ArrayList<>();
-    // CsdlParameter parm = new CsdlParameter().setName("ParameterInt16");
-    //
-    // parm.setType(EdmPrimitiveTypeKind.Int16.getFullQualifiedName());
-    // paramList.add(parm);
-    //
-    // // parm.setReturnType(new CsdlReturnType().setType(nameETTwoBase));
-    // action.setParameters(paramList);
+    /*
+     * every parameter is optional, without the addresses the action only reports progress.
+     */
+    action.setParameters(Arrays.asList(createParameter(PARAM_BEGIN_ADDRESS, nameString),
+        createParameter(PARAM_END_ADDRESS, nameString),
+        createParameter(PARAM_TCP_PORT_NUMBER, nameInt32),
+        createParameter(PARAM_HTTPS, nameBoolean),
+        createParameter(PARAM_PROBES_PER_SECOND, nameInt32),
+        createParameter(PARAM_SEED, nameInt64), createParameter(PARAM_RESUME_INDEX, nameInt64)));
+    action.setReturnType(new CsdlReturnType().setType(CT_DISCOVER_PROGRESS_FQN).setNullable(false));
+
     return action;
   }
 
@@ -14,16 +14,27 @@
  */
 package org.redhelix.server.action.op.discover;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
+import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.Parameter;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmAction;
 import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.commons.api.edm.EdmComplexType;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -38,7 +49,9 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.prefer.Preferences.Return;
 import org.apache.olingo.server.api.prefer.PreferencesApplied;
+import org.apache.olingo.server.api.processor.ActionComplexProcessor;
 import org.apache.olingo.server.api.processor.ActionEntityProcessor;
+import org.apache.olingo.server.api.serializer.ComplexSerializerOptions;
 import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
 import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.UriInfoResource;
@@ -48,40 +61,123 @@ import org.apache.olingo.server.api.uri.UriResourceEntitySet;
 import org.apache.olingo.server.api.uri.UriResourceFunction;
 import org.apache.olingo.server.api.uri.UriResourceNavigation;
 import static org.apache.olingo.server.core.serializer.utils.ContentTypeHelper.isODataMetadataNone;
+import org.redhelix.core.service.root.RedHxTcpProtocolTypeEnum;
 import org.redhelix.server.data.DataProvider;
 import org.redhelix.server.data.EntityActionResult;
+import org.redhelix.server.lib.discover.RedHxDiscoveredEndpoint;
+import org.redhelix.server.lib.discover.RedHxDiscoveryListener;
+import org.redhelix.server.lib.discover.RedHxIpRangeSweep;
+import org.redhelix.server.lib.discover.RedHxIpRangeSweepPolicyBuilder;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  *
  * process an OData Action message requesting the addition of an IP address or subnet to the database of Redfish systems managed by
- * RedHelix.
+ * RedHelix. One processor is shared by every request, the data provider is used by one action at a time.
+ * <p>
+ * The discover system action sweeps a range of IP addresses with a {@link RedHxIpRangeSweep} and returns its progress. One sweep runs at a
+ * time, the request returns as soon as the sweep has started and the sweep thread delivers the Redfish services found to the
+ * {@link RedHxDiscoveryListener}. The fetch engine used to read the service roots is created by the first sweep and closed by
+ * {@link #close()}.
+ * </p>
  *
  * @since RedHelix Version 0.2
  * @author Hank Bruning
  *
  */
 public final class RedHxDiscoveryProcessor
-        implements ActionEntityProcessor    // ,
-
-//ActionComplexProcessor
+        implements ActionEntityProcessor,
+                   ActionComplexProcessor
 {
 
+    private static final Logger LOG = LoggerFactory.getLogger(RedHxDiscoveryProcessor.class);
+    private static final int HTTP_PORT_NUMBER = 80;
     private final DataProvider dataProvider;
+    private final RedHxDiscoveryListener listener;
 
-    // if (RedHxDiscoverSystemEdmProvider.ET_DISCOVER_SYSTEM_NAME.equals(edmEntitySet.getName()))
-    private OData odata;
-    private ServiceMetadata serviceMetadata;
+    /**
+     * guards the sweep and the fetch engine.
+     */
+    private final Object sweepLock;
+    private RedHxAsyncFetchEngine fetchEngine;
 
+    // if (RedHxDiscoverSystemEdmProvider.ET_DISCOVER_SYSTEM_NAME.equals(edmEntitySet.getName()))
+    private volatile OData odata;
+    private volatile ServiceMetadata serviceMetadata;
+    private RedHxIpRangeSweep sweep;
+
+    /**
+     * create the processor. The Redfish services found by a sweep are logged.
+     *
+     * @param odata the OData instance the data provider serializes with. This shall not be null.
+     * @param edm the entity data model of the discovery service. This shall not be null.
+     */
     public RedHxDiscoveryProcessor(final OData odata,
                                    final Edm edm)
     {
+        this(odata,
+             edm,
+             new LoggingDiscoveryListener());
+    }
+
+    /**
+     * create the processor.
+     *
+     * @param odata the OData instance the data provider serializes with. This shall not be null.
+     * @param edm the entity data model of the discovery service. This shall not be null.
+     * @param listener receives the Redfish services found by a sweep, for example to poll them. This shall not be null.
+     */
+    public RedHxDiscoveryProcessor(final OData odata,
+                                   final Edm edm,
+                                   final RedHxDiscoveryListener listener)
+    {
+        if (listener == null)
+        {
+            throw new IllegalArgumentException("Argument \"listener\" can not be null.");
+        }
+
         this.dataProvider = new DataProvider(odata,
                                              edm);
+        this.listener = listener;
+        this.sweepLock = new Object();
     }
 
     private RedHxDiscoveryProcessor()
     {
         this.dataProvider = null;
+        this.listener = null;
+        this.sweepLock = null;
+    }
+
+    /**
+     * stop the sweep that is running and close the fetch engine.
+     */
+    public void close()
+    {
+        synchronized (sweepLock)
+        {
+            if (sweep != null)
+            {
+                sweep.close();
+            }
+
+            if (fetchEngine != null)
+            {
+                try
+                {
+                    fetchEngine.close();
+                }
+                catch (IOException ex)
+                {
+                    LOG.warn("The discovery fetch engine could not be closed.",
+                             ex);
+                }
+
+                fetchEngine = null;
+            }
+        }
     }
 
     @Override
@@ -92,6 +188,79 @@ public final class RedHxDiscoveryProcessor
         this.serviceMetadata = serviceMetadata;
     }
 
+    @Override
+    public void processActionComplex(final ODataRequest request,
+                                     final ODataResponse response,
+                                     final UriInfo uriInfo,
+                                     final ContentType requestFormat,
+                                     final ContentType responseFormat)
+            throws ODataApplicationException,
+                   ODataLibraryException
+    {
+        final EdmAction action
+                        = ((UriResourceAction) uriInfo.asUriInfoResource().getUriResourceParts().get(0)).getAction();
+        final EdmComplexType type = (EdmComplexType) action.getReturnType().getType();
+        final byte[] body = readBody(request.getBody());
+        final Map<String, Parameter> parameters;
+        final Property progress;
+
+        // a request with no parameters only asks for the progress
+        if ((requestFormat == null) || new String(body,
+                                                  StandardCharsets.UTF_8).trim().isEmpty())
+        {
+            parameters = Collections.<String, Parameter>emptyMap();
+        }
+        else
+        {
+            parameters = readParameters(action,
+                                        new ByteArrayInputStream(body),
+                                        requestFormat);
+        }
+
+        synchronized (sweepLock)
+        {
+            if ((getValue(parameters,
+                          RedHxDiscoverSystemEdmProvider.PARAM_BEGIN_ADDRESS) != null)
+                    || (getValue(parameters,
+                                 RedHxDiscoverSystemEdmProvider.PARAM_END_ADDRESS) != null))
+            {
+                startSweep(parameters);
+            }
+
+            progress = createProgress(type);
+        }
+
+        final Return returnPreference = odata.createPreferences(request.getHeaders(HttpHeader.PREFER)).getReturn();
+
+        if ((returnPreference == null) || (returnPreference == Return.REPRESENTATION))
+        {
+            // Olingo has no serializer for full metadata, a complex value has no more metadata to write
+            final ContentType format = ContentType.VALUE_ODATA_METADATA_FULL.equalsIgnoreCase(responseFormat.getParameter(ContentType.PARAMETER_ODATA_METADATA))
+                    ? ContentType.JSON
+                    : responseFormat;
+
+            response.setContent(odata.createSerializer(format).complex(serviceMetadata,
+                                                                       type,
+                                                                       progress,
+                                                                       ComplexSerializerOptions.with().contextURL(isODataMetadataNone(format)
+                                                                               ? null
+                                                                               : ContextURL.with().type(type).build()).build()).getContent());
+            response.setHeader(HttpHeader.CONTENT_TYPE,
+                               format.toContentTypeString());
+            response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+        }
+        else
+        {
+            response.setStatusCode(HttpStatusCode.NO_CONTENT.getStatusCode());
+        }
+
+        if (returnPreference != null)
+        {
+            response.setHeader(HttpHeader.PREFERENCE_APPLIED,
+                               PreferencesApplied.with().returnRepresentation(returnPreference).build().toValueString());
+        }
+    }
+
     @Override
     public void processActionEntity(final ODataRequest request,
                                     final ODataResponse response,
@@ -110,8 +279,13 @@ public final class RedHxDiscoveryProcessor
         final Map<String, Parameter> parameters = readParameters(action,
                                                                  request.getBody(),
                                                                  requestFormat);
-        final EntityActionResult entityResult = dataProvider.processActionEntity(action.getName(),
-                                                                                 parameters);
+        final EntityActionResult entityResult;
+
+        synchronized (dataProvider)
+        {
+            entityResult = dataProvider.processActionEntity(action.getName(),
+                                                            parameters);
+        }
 
         if ((entityResult == null) || (entityResult.getEntity() == null))
         {
@@ -207,6 +381,111 @@ public final class RedHxDiscoveryProcessor
         }
     }
 
+    private static ODataApplicationException badRequest(final String message)
+    {
+        return new ODataApplicationException(message,
+                                             HttpStatusCode.BAD_REQUEST.getStatusCode(),
+                                             Locale.ROOT);
+    }
+
+    private static Property createPrimitive(final String name,
+                                            final Object value)
+    {
+        return new Property(null,
+                            name,
+                            ValueType.PRIMITIVE,
+                            value);
+    }
+
+    /**
+     * get the value of an optional parameter.
+     *
+     * @return null if the parameter was not sent or is null.
+     */
+    private static Object getValue(final Map<String, Parameter> parameters,
+                                   final String name)
+    {
+        final Parameter parameter = parameters.get(name);
+        final Object retVal;
+
+        if (parameter != null)
+        {
+            retVal = parameter.getValue();
+        }
+        else
+        {
+            retVal = null;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * parse an IPv4 or IPv6 literal address. Host names are not accepted so the request never waits for DNS.
+     */
+    private static InetAddress parseAddress(final Object value,
+                                            final String name)
+            throws ODataApplicationException
+    {
+        final String text;
+
+        if (value == null)
+        {
+            throw badRequest("The parameter " + name + " is required to start a sweep.");
+        }
+
+        text = value.toString().trim();
+
+        if ((text.indexOf(':') == -1) && !text.matches("[0-9.]+"))
+        {
+            throw badRequest("The parameter " + name + " is not an IP address, " + text);
+        }
+
+        try
+        {
+            return InetAddress.getByName(text);
+        }
+        catch (UnknownHostException ex)
+        {
+            throw badRequest("The parameter " + name + " is not an IP address, " + text);
+        }
+    }
+
+    /**
+     * read the body of a request. The parameters of an action are small.
+     */
+    private static byte[] readBody(final InputStream body)
+            throws ODataApplicationException
+    {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final byte[] byteArray = new byte[1024];
+
+        if (body != null)
+        {
+            try
+            {
+                int count = body.read(byteArray);
+
+                while (count != -1)
+                {
+                    buffer.write(byteArray,
+                                 0,
+                                 count);
+                    count = body.read(byteArray);
+                }
+            }
+            catch (IOException ex)
+            {
+                throw new ODataApplicationException("The request body could not be read.",
+                                                    HttpStatusCode.BAD_REQUEST.getStatusCode(),
+                                                    Locale.ROOT,
+                                                    ex);
+            }
+        }
+
+        return buffer.toByteArray();
+    }
+
     private static ContextURL getContextUrl(final EdmEntitySet entitySet,
                                             final EdmEntityType entityType,
                                             final boolean isSingleEntity)
@@ -354,4 +633,160 @@ public final class RedHxDiscoveryProcessor
 
         return Collections.<String, Parameter>emptyMap();
     }
+
+    /**
+     * create the progress of the last sweep.
+     */
+    private Property createProgress(final EdmComplexType type)
+    {
+        final ComplexValue value = new ComplexValue();
+        final List<Property> list = value.getValue();
+
+        if (sweep == null)
+        {
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_BEGIN_ADDRESS,
+                                     null));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_END_ADDRESS,
+                                     null));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_IS_RUNNING,
+                                     Boolean.FALSE));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_ADDRESS_COUNT,
+                                     0L));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_PROBED_COUNT,
+                                     0L));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_FOUND_COUNT,
+                                     0L));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_SEED,
+                                     0L));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_RESUME_INDEX,
+                                     0L));
+        }
+        else
+        {
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_BEGIN_ADDRESS,
+                                     sweep.getBeginAddress().getHostAddress()));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_END_ADDRESS,
+                                     sweep.getEndAddress().getHostAddress()));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_IS_RUNNING,
+                                     !sweep.isDone()));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_ADDRESS_COUNT,
+                                     sweep.getAddressCount()));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_PROBED_COUNT,
+                                     sweep.getProbedCount()));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_FOUND_COUNT,
+                                     sweep.getFoundCount()));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_SEED,
+                                     sweep.getSeed()));
+            list.add(createPrimitive(RedHxDiscoverSystemEdmProvider.PROP_RESUME_INDEX,
+                                     sweep.getResumeIndex()));
+        }
+
+        return new Property(type.getFullQualifiedName().getFullQualifiedNameAsString(),
+                            null,
+                            ValueType.COMPLEX,
+                            value);
+    }
+
+    /**
+     * start a sweep of the range in the parameters. The caller holds the sweep lock.
+     */
+    private void startSweep(final Map<String, Parameter> parameters)
+            throws ODataApplicationException
+    {
+        if ((sweep != null) && !sweep.isDone())
+        {
+            throw new ODataApplicationException("The sweep of " + sweep.getBeginAddress().getHostAddress() + " to "
+                    + sweep.getEndAddress().getHostAddress() + " is running.",
+                                                HttpStatusCode.CONFLICT.getStatusCode(),
+                                                Locale.ROOT);
+        }
+
+        final InetAddress beginAddress = parseAddress(getValue(parameters,
+                                                               RedHxDiscoverSystemEdmProvider.PARAM_BEGIN_ADDRESS),
+                                                      RedHxDiscoverSystemEdmProvider.PARAM_BEGIN_ADDRESS);
+        final InetAddress endAddress = parseAddress(getValue(parameters,
+                                                             RedHxDiscoverSystemEdmProvider.PARAM_END_ADDRESS),
+                                                    RedHxDiscoverSystemEdmProvider.PARAM_END_ADDRESS);
+        final Object https = getValue(parameters,
+                                      RedHxDiscoverSystemEdmProvider.PARAM_HTTPS);
+        final Object portNumber = getValue(parameters,
+                                           RedHxDiscoverSystemEdmProvider.PARAM_TCP_PORT_NUMBER);
+        final Object probesPerSecond = getValue(parameters,
+                                                RedHxDiscoverSystemEdmProvider.PARAM_PROBES_PER_SECOND);
+        final Object seed = getValue(parameters,
+                                     RedHxDiscoverSystemEdmProvider.PARAM_SEED);
+        final Object resumeIndex = getValue(parameters,
+                                            RedHxDiscoverSystemEdmProvider.PARAM_RESUME_INDEX);
+        final RedHxIpRangeSweepPolicyBuilder builder = new RedHxIpRangeSweepPolicyBuilder();
+        final RedHxTcpProtocolTypeEnum protocol;
+        final RedHxIpRangeSweep newSweep;
+
+        if (Boolean.FALSE.equals(https))
+        {
+            protocol = RedHxTcpProtocolTypeEnum.HTTP;
+        }
+        else
+        {
+            protocol = RedHxTcpProtocolTypeEnum.HTTPS;
+        }
+
+        try
+        {
+            if (portNumber != null)
+            {
+                builder.setTcpPort(protocol,
+                                   ((Number) portNumber).intValue());
+            }
+            else if (protocol == RedHxTcpProtocolTypeEnum.HTTP)
+            {
+                builder.setTcpPort(protocol,
+                                   HTTP_PORT_NUMBER);
+            }
+
+            if (probesPerSecond != null)
+            {
+                builder.setProbesPerSecond(((Number) probesPerSecond).intValue());
+            }
+
+            if (fetchEngine == null)
+            {
+                fetchEngine = new RedHxAsyncFetchEngine();
+            }
+
+            newSweep = new RedHxIpRangeSweep(fetchEngine,
+                                             builder.getInstance(),
+                                             listener,
+                                             beginAddress,
+                                             endAddress,
+                                             (seed != null)
+                                                     ? ((Number) seed).longValue()
+                                                     : new Random().nextLong(),
+                                             (resumeIndex != null)
+                                                     ? ((Number) resumeIndex).longValue()
+                                                     : 0);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            throw badRequest(ex.getMessage());
+        }
+
+        sweep = newSweep;
+        sweep.start();
+        LOG.info("Started the discovery sweep of " + beginAddress.getHostAddress() + " to " + endAddress.getHostAddress() + " with seed "
+                + sweep.getSeed() + " at index " + sweep.getResumeIndex());
+    }
+
+    /**
+     * log the Redfish services found when no other listener is given.
+     */
+    private static final class LoggingDiscoveryListener
+            implements RedHxDiscoveryListener
+    {
+
+        @Override
+        public void endpointDiscovered(final RedHxDiscoveredEndpoint endpoint)
+        {
+            LOG.info("Discovered the Redfish service " + endpoint.getServiceRootUri());
+        }
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.event;
+
+import org.redhelix.core.annotations.Immutable;
+import org.redhelix.core.chassis.RedHxChassisTypeEnum;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+
+/**
+ * a change to the health, state or power of a chassis. Besides the new value the event holds the
+ * type, rack and health of the chassis so a subscriber filter is tested without reading the
+ * inventory.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@Immutable
+public final class RedHxChassisEvent {
+
+  private final int chassisSequenceNumber;
+  private final RedHxChassisTypeEnum chassisType;
+  private final long eventId;
+  private final RedHxOperatingHealthEnum health;
+  private final String rackPath;
+  private final long timeMilliseconds;
+  private final RedHxEventTypeEnum type;
+  private final String value;
+
+  RedHxChassisEvent(final long eventId, final RedHxEventTypeEnum type,
+      final int chassisSequenceNumber, final RedHxChassisTypeEnum chassisType,
+      final String rackPath, final RedHxOperatingHealthEnum health, final String value,
+      final long timeMilliseconds) {
+    this.eventId = eventId;
+    this.type = type;
+    this.chassisSequenceNumber = chassisSequenceNumber;
+    this.chassisType = chassisType;
+    this.rackPath = rackPath;
+    this.health = health;
+    this.value = value;
+    this.timeMilliseconds = timeMilliseconds;
+  }
+
+  private RedHxChassisEvent() {
+    this.eventId = 0;
+    this.type = null;
+    this.chassisSequenceNumber = 0;
+    this.chassisType = null;
+    this.rackPath = null;
+    this.health = null;
+    this.value = null;
+    this.timeMilliseconds = 0;
+  }
+
+  /**
+   * get the ID of the chassis in the chassis entity set.
+   */
+  public int getChassisSequenceNumber() {
+    return chassisSequenceNumber;
+  }
+
+  /**
+   * get the type of the chassis.
+   *
+   * @return A null is returned if the chassis has no type.
+   */
+  public RedHxChassisTypeEnum getChassisType() {
+    return chassisType;
+  }
+
+  /**
+   * get the number of the event. Each event published by a broker has a larger number than the
+   * one before.
+   */
+  public long getEventId() {
+    return eventId;
+  }
+
+  /**
+   * get the health of the chassis after the change.
+   *
+   * @return A null is returned if the health is not known.
+   */
+  public RedHxOperatingHealthEnum getHealth() {
+    return health;
+  }
+
+  /**
+   * get the path of the rack that contains the chassis.
+   *
+   * @return A null is returned if the chassis is not contained by another chassis.
+   */
+  public String getRackPath() {
+    return rackPath;
+  }
+
+  /**
+   * get the time the change was published, in milliseconds since the epoch.
+   */
+  public long getTimeMilliseconds() {
+    return timeMilliseconds;
+  }
+
+  /**
+   * get what changed.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxEventTypeEnum getType() {
+    return type;
+  }
+
+  /**
+   * get the new value, the JSON keyword of a health or state or the watts of a power reading.
+   *
+   * @return A null is returned if the value is not known.
+   */
+  public String getValue() {
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxChassisEvent{" + "eventId=" + eventId + ", type=" + type + ", chassis="
+        + chassisSequenceNumber + ", value=" + value + '}';
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.event;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.computer.system.power.RedHxPowerWatts;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+import org.redhelix.core.util.RedHxOperatingStateEnum;
+import org.redhelix.server.db.RedHxDbChassisId;
+import org.redhelix.server.db.RedHxDbChassisListener;
+
+/**
+ * turns the changes of the inventory into events and passes each event to the subscribers whose
+ * filter matches it. Publishing only adds the event to the buffer of each subscriber, it never
+ * waits for a console, so a slow console does not slow the thread that changed the inventory.
+ *
+ * The broker listens to the chassis of the inventory. A change of the health or state of a chassis
+ * is an event, a chassis that is read again with the same health and state is not. The power of a
+ * chassis is not in the inventory and nothing in the server reads it yet, so power events are sent
+ * only if a component that reads the power of the chassis calls
+ * {@link #publishPower(RedHxDbChassisId, RedHxChassis, RedHxPowerWatts)}.
+ *
+ * The last {@link #HISTORY_SIZE} events are kept so a console that reconnects with the id of the
+ * last event it received is sent the events it missed. Publishing and subscribing hold one lock, an
+ * event is either in the history a new subscriber is sent or is offered to it, never both or
+ * neither.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+public final class RedHxEventBroker implements RedHxDbChassisListener {
+
+  /**
+   * the name of the servlet context attribute that holds the broker of the web application.
+   */
+  public static final String CONTEXT_ATTRIBUTE = RedHxEventBroker.class.getName();
+
+  /**
+   * the number of events buffered for one subscriber.
+   */
+  static final int BUFFER_SIZE = 256;
+
+  /**
+   * the most subscribers at one time.
+   */
+  static final int MAX_SUBSCRIBER_COUNT = 1000;
+
+  /**
+   * the number of events kept for the consoles that reconnect.
+   */
+  static final int HISTORY_SIZE = BUFFER_SIZE;
+
+  /**
+   * the last events published, the oldest first. The broker's lock is held to read or change it.
+   */
+  private final Deque<RedHxChassisEvent> history;
+  private final List<RedHxEventSubscriber> subscriberList;
+
+  /**
+   * the id of the last event published. The broker's lock is held to read or change it.
+   */
+  private long eventId;
+
+  /**
+   * create a broker with no subscribers.
+   */
+  public RedHxEventBroker() {
+    this.history = new ArrayDeque<>(HISTORY_SIZE);
+    this.subscriberList = new CopyOnWriteArrayList<>();
+  }
+
+  private static String getKeyword(final RedHxOperatingHealthEnum health) {
+    return (health == null) ? null : health.getJsonKeyword();
+  }
+
+  private static String getKeyword(final RedHxOperatingStateEnum state) {
+    return (state == null) ? null : state.getJsonKeyword();
+  }
+
+  private static boolean isEqual(final Object left, final Object right) {
+    return (left == null) ? (right == null) : left.equals(right);
+  }
+
+  @Override
+  public void chassisChanged(final RedHxDbChassisId id, final RedHxChassis oldChassis,
+      final RedHxChassis newChassis) {
+    if (newChassis == null) {
+
+      // a removed chassis is reported as absent
+      publish(RedHxEventTypeEnum.STATE, id, oldChassis,
+          RedHxOperatingStateEnum.ABSENT.getJsonKeyword());
+    } else {
+      final RedHxOperatingHealthEnum oldHealth =
+          (oldChassis == null) ? null : oldChassis.getOperatingHealth();
+      final RedHxOperatingStateEnum oldState =
+          (oldChassis == null) ? null : oldChassis.getOperatingState();
+
+      if ((oldChassis == null) || !isEqual(oldHealth, newChassis.getOperatingHealth())) {
+        publish(RedHxEventTypeEnum.HEALTH, id, newChassis,
+            getKeyword(newChassis.getOperatingHealth()));
+      }
+
+      if ((oldChassis == null) || !isEqual(oldState, newChassis.getOperatingState())) {
+        publish(RedHxEventTypeEnum.STATE, id, newChassis,
+            getKeyword(newChassis.getOperatingState()));
+      }
+    }
+  }
+
+  /**
+   * stop every subscriber.
+   */
+  public void close() {
+    for (RedHxEventSubscriber subscriber : subscriberList) {
+      unsubscribe(subscriber);
+    }
+  }
+
+  /**
+   * get the number of subscribers.
+   */
+  public int getSubscriberCount() {
+    return subscriberList.size();
+  }
+
+  /**
+   * publish a power reading of a chassis. The server does not call this, it is for a reader of the
+   * Power resource of the chassis.
+   *
+   * @param id the id of the chassis. This shall not be null.
+   * @param chassis the chassis. This shall not be null.
+   * @param watts the power consumed. This shall not be null.
+   */
+  public void publishPower(final RedHxDbChassisId id, final RedHxChassis chassis,
+      final RedHxPowerWatts watts) {
+    if (watts == null) {
+      throw new IllegalArgumentException("Argument \"watts\" can not be null.");
+    }
+
+    publish(RedHxEventTypeEnum.POWER, id, chassis,
+        watts.getWattsMajor() + "." + watts.getWattsMinor());
+  }
+
+  /**
+   * add a subscriber that receives the events published from now on.
+   *
+   * @param filter the events the subscriber receives. This shall not be null.
+   * @return A null is returned if there are already {@link #MAX_SUBSCRIBER_COUNT} subscribers.
+   */
+  public RedHxEventSubscriber subscribe(final RedHxEventFilter filter) {
+    return subscribe(filter, -1);
+  }
+
+  /**
+   * add a subscriber that first receives the events published after an event it has already
+   * received, for a console that reconnects. If the history no longer holds every event after it,
+   * or the id is not one this broker published, the missing events are counted as dropped so the
+   * console reads the collection again.
+   *
+   * @param filter the events the subscriber receives. This shall not be null.
+   * @param lastEventId the id of the last event the console received. A negative id receives only
+   *        the events published from now on.
+   * @return A null is returned if there are already {@link #MAX_SUBSCRIBER_COUNT} subscribers.
+   */
+  public RedHxEventSubscriber subscribe(final RedHxEventFilter filter, final long lastEventId) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Argument \"filter\" can not be null.");
+    }
+
+    RedHxEventSubscriber retVal = null;
+
+    synchronized (this) {
+      if (subscriberList.size() < MAX_SUBSCRIBER_COUNT) {
+        retVal = new RedHxEventSubscriber(filter, BUFFER_SIZE);
+
+        if (lastEventId >= 0) {
+          final long firstEventId =
+              history.isEmpty() ? (eventId + 1) : history.peekFirst().getEventId();
+
+          if (lastEventId > eventId) {
+
+            // the id is from before the server was restarted
+            retVal.addDroppedCount(1);
+          } else if (lastEventId + 1 < firstEventId) {
+            retVal.addDroppedCount((int) Math.min(Integer.MAX_VALUE,
+                firstEventId - lastEventId - 1));
+          }
+
+          for (RedHxChassisEvent event : history) {
+            if ((event.getEventId() > lastEventId) && filter.isMatch(event)) {
+              retVal.offer(event);
+            }
+          }
+        }
+
+        subscriberList.add(retVal);
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * remove a subscriber and stop it.
+   *
+   * @param subscriber the subscriber returned by {@link #subscribe(RedHxEventFilter)}.
+   */
+  public void unsubscribe(final RedHxEventSubscriber subscriber) {
+    if (subscriber != null) {
+      synchronized (this) {
+        subscriberList.remove(subscriber);
+      }
+
+      subscriber.close();
+    }
+  }
+
+  private void publish(final RedHxEventTypeEnum type, final RedHxDbChassisId id,
+      final RedHxChassis chassis, final String value) {
+    if (id == null) {
+      throw new IllegalArgumentException("Argument \"id\" can not be null.");
+    }
+
+    if (chassis == null) {
+      throw new IllegalArgumentException("Argument \"chassis\" can not be null.");
+    }
+
+    synchronized (this) {
+      final RedHxChassisEvent event = new RedHxChassisEvent(++eventId, type,
+          id.getSequenceNumber(), chassis.getChassisType(),
+          (chassis.getContainedByUriPath() == null) ? null
+              : chassis.getContainedByUriPath().getValue(),
+          chassis.getOperatingHealth(), value, System.currentTimeMillis());
+
+      if (history.size() >= HISTORY_SIZE) {
+        history.removeFirst();
+      }
+
+      history.addLast(event);
+
+      for (RedHxEventSubscriber subscriber : subscriberList) {
+        if (subscriber.getFilter().isMatch(event)) {
+          subscriber.offer(event);
+        }
+      }
+    }
+  }
+}
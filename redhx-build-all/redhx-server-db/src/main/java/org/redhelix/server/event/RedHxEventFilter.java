@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.event;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import org.redhelix.core.annotations.Immutable;
+import org.redhelix.core.chassis.RedHxChassisTypeEnum;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+
+/**
+ * the events one subscriber receives. Each part of the filter that is set must match, an empty set
+ * or a null matches every event.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@Immutable
+public final class RedHxEventFilter {
+
+  private final Set<RedHxChassisTypeEnum> chassisTypeSet;
+  private final RedHxOperatingHealthEnum minimumHealth;
+  private final String rackPath;
+  private final Set<RedHxEventTypeEnum> typeSet;
+
+  /**
+   * create a filter.
+   *
+   * @param typeSet the kinds of change to receive. This shall not be null.
+   * @param chassisTypeSet the types of chassis to receive changes of. This shall not be null.
+   * @param rackPath the path of the rack the chassis is in. A null matches every chassis.
+   * @param minimumHealth the least severe health a chassis must have after the change, for
+   *        example WARNING receives changes of chassis that are Warning or Critical. A null matches
+   *        every chassis.
+   */
+  public RedHxEventFilter(final Set<RedHxEventTypeEnum> typeSet,
+      final Set<RedHxChassisTypeEnum> chassisTypeSet, final String rackPath,
+      final RedHxOperatingHealthEnum minimumHealth) {
+    if (typeSet == null) {
+      throw new IllegalArgumentException("Argument \"typeSet\" can not be null.");
+    }
+
+    if (chassisTypeSet == null) {
+      throw new IllegalArgumentException("Argument \"chassisTypeSet\" can not be null.");
+    }
+
+    this.typeSet = Collections.unmodifiableSet(
+        typeSet.isEmpty() ? EnumSet.noneOf(RedHxEventTypeEnum.class) : EnumSet.copyOf(typeSet));
+    this.chassisTypeSet = Collections.unmodifiableSet(chassisTypeSet.isEmpty()
+        ? EnumSet.noneOf(RedHxChassisTypeEnum.class) : EnumSet.copyOf(chassisTypeSet));
+    this.rackPath = rackPath;
+    this.minimumHealth = minimumHealth;
+  }
+
+  private RedHxEventFilter() {
+    this.typeSet = null;
+    this.chassisTypeSet = null;
+    this.rackPath = null;
+    this.minimumHealth = null;
+  }
+
+  /**
+   * test if a subscriber with this filter receives an event.
+   *
+   * @param event the event. This shall not be null.
+   * @return true if every part of the filter matches.
+   */
+  public boolean isMatch(final RedHxChassisEvent event) {
+    final boolean retVal;
+
+    if (!typeSet.isEmpty() && !typeSet.contains(event.getType())) {
+      retVal = false;
+    } else if (!chassisTypeSet.isEmpty() && !chassisTypeSet.contains(event.getChassisType())) {
+      retVal = false;
+    } else if ((rackPath != null) && !rackPath.equals(event.getRackPath())) {
+      retVal = false;
+    } else if (minimumHealth != null) {
+      retVal = (event.getHealth() != null)
+          && (event.getHealth().ordinal() >= minimumHealth.ordinal());
+    } else {
+      retVal = true;
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxEventFilter{" + "typeSet=" + typeSet + ", chassisTypeSet=" + chassisTypeSet
+        + ", rackPath=" + rackPath + ", minimumHealth=" + minimumHealth + '}';
+  }
+}
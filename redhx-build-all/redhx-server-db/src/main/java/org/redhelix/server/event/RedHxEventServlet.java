@@ -0,0 +1,529 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.event;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.redhelix.core.chassis.RedHxChassisTypeEnum;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * pushes the health, state and power changes of the chassis to a console as Server-Sent Events. A
+ * console opens one GET request and receives each change that matches its filter, instead of
+ * reading the chassis collection over and over to find the few that changed.
+ *
+ * The filter is set by request parameters, each is optional:
+ * <ul>
+ * <li>type - a comma separated list of health, state and power. Power events are sent only when
+ * a power reading is published to the {@link RedHxEventBroker}, the server does not read the power
+ * of the chassis yet.</li>
+ * <li>chassisType - a comma separated list of RedHxChassisTypeEnum names, for example RACKMOUNT.
+ * </li>
+ * <li>rack - the path of the rack that contains the chassis.</li>
+ * <li>health - OK, Warning or Critical. Only changes of chassis with this health or worse are
+ * sent.</li>
+ * </ul>
+ *
+ * Each event has the name of its type and JSON data with the ID of the chassis in the chassis
+ * entity set. When the console is too slow and events are dropped, a resync event is sent and the
+ * console shall read the collection again. A comment is sent when nothing was sent for
+ * {@link #HEARTBEAT_MILLISECONDS} so a closed connection is found.
+ *
+ * A console that reconnects sends the id of the last event it received in the Last-Event-ID
+ * header, as a browser EventSource does, and is first sent the events it missed. If the broker no
+ * longer has them a resync event is sent instead.
+ *
+ * The request is asynchronous, a console does not hold a container thread. The events are written
+ * with non-blocking I/O by {@link #WRITE_THREAD_COUNT} threads shared by every console, the servlet
+ * shall be mapped with async-supported.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public class RedHxEventServlet extends HttpServlet {
+
+  /**
+   * the longest time without anything written to a console.
+   */
+  static final long HEARTBEAT_MILLISECONDS = 15000;
+
+  /**
+   * the number of threads that write the events to the consoles.
+   */
+  static final int WRITE_THREAD_COUNT = 2;
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+  private static final Logger LOG = LoggerFactory.getLogger(RedHxEventServlet.class);
+  private static final byte[] SUBSCRIBED_COMMENT =
+      ": subscribed\n\n".getBytes(StandardCharsets.UTF_8);
+  private static final long serialVersionUID = 1L;
+  private transient RedHxEventBroker broker;
+  private transient ScheduledExecutorService writeExecutor;
+
+  /**
+   * create the servlet. The broker is read from the servlet context attribute
+   * {@link RedHxEventBroker#CONTEXT_ATTRIBUTE} when the servlet is initialized.
+   */
+  public RedHxEventServlet() {}
+
+  /**
+   * create the servlet.
+   *
+   * @param broker the broker the consoles subscribe to. This shall not be null.
+   */
+  public RedHxEventServlet(final RedHxEventBroker broker) {
+    if (broker == null) {
+      throw new IllegalArgumentException("Argument \"broker\" can not be null.");
+    }
+
+    this.broker = broker;
+  }
+
+  private static RedHxEventFilter createFilter(final HttpServletRequest req) {
+    final Set<RedHxEventTypeEnum> typeSet = EnumSet.noneOf(RedHxEventTypeEnum.class);
+    final Set<RedHxChassisTypeEnum> chassisTypeSet = EnumSet.noneOf(RedHxChassisTypeEnum.class);
+    final String healthParameter = req.getParameter("health");
+    final RedHxOperatingHealthEnum minimumHealth;
+
+    for (String name : split(req.getParameter("type"))) {
+      final RedHxEventTypeEnum type = RedHxEventTypeEnum.getInstance(name);
+
+      if (type == null) {
+        throw new IllegalArgumentException("The event type " + name + " is not valid.");
+      }
+
+      typeSet.add(type);
+    }
+
+    for (String name : split(req.getParameter("chassisType"))) {
+      try {
+        chassisTypeSet.add(RedHxChassisTypeEnum.valueOf(name.toUpperCase(Locale.ROOT)));
+      } catch (IllegalArgumentException ex) {
+        throw new IllegalArgumentException("The chassis type " + name + " is not valid.", ex);
+      }
+    }
+
+    if (healthParameter == null) {
+      minimumHealth = null;
+    } else {
+      minimumHealth = RedHxOperatingHealthEnum.getInstance(healthParameter);
+
+      if (minimumHealth == null) {
+        throw new IllegalArgumentException("The health " + healthParameter + " is not valid.");
+      }
+    }
+
+    return new RedHxEventFilter(typeSet, chassisTypeSet, req.getParameter("rack"), minimumHealth);
+  }
+
+  /**
+   * get the id of the last event a reconnecting console received.
+   *
+   * @return -1 if the request has no Last-Event-ID.
+   * @throws IllegalArgumentException if the Last-Event-ID is not an id the servlet sent.
+   */
+  private static long getLastEventId(final HttpServletRequest req) {
+    final String header = req.getHeader(LAST_EVENT_ID_HEADER);
+    long retVal = -1;
+
+    if ((header != null) && !header.trim().isEmpty()) {
+      try {
+        retVal = Long.parseLong(header.trim());
+      } catch (NumberFormatException ex) {
+        throw new IllegalArgumentException("The Last-Event-ID " + header + " is not valid.", ex);
+      }
+
+      if (retVal < 0) {
+        throw new IllegalArgumentException("The Last-Event-ID " + header + " is not valid.");
+      }
+    }
+
+    return retVal;
+  }
+
+  private static String[] split(final String parameter) {
+    return ((parameter == null) || parameter.isEmpty()) ? new String[0] : parameter.split(",");
+  }
+
+  private static void writeEvent(final StringBuilder buf, final RedHxChassisEvent event)
+      throws IOException {
+    final StringWriter writer = new StringWriter();
+
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+      generator.writeStartObject();
+      generator.writeNumberField("ID", event.getChassisSequenceNumber());
+      generator.writeStringField("ChassisType",
+          (event.getChassisType() == null) ? null : event.getChassisType().name());
+      generator.writeStringField("Rack", event.getRackPath());
+      generator.writeStringField("Health",
+          (event.getHealth() == null) ? null : event.getHealth().getJsonKeyword());
+      generator.writeStringField("Value", event.getValue());
+      generator.writeNumberField("Time", event.getTimeMilliseconds());
+      generator.writeEndObject();
+    }
+
+    buf.append("id: ").append(event.getEventId()).append('\n');
+    buf.append("event: ").append(event.getType().getDescription()).append('\n');
+    buf.append("data: ").append(writer.toString()).append("\n\n");
+  }
+
+  @Override
+  public void destroy() {
+    if (writeExecutor != null) {
+      writeExecutor.shutdownNow();
+    }
+
+    super.destroy();
+  }
+
+  @Override
+  public String getServletInfo() {
+    return "RedHelix Server-Sent Events of chassis changes";
+  }
+
+  @Override
+  public void init() throws ServletException {
+    super.init();
+
+    if (broker == null) {
+      broker = (RedHxEventBroker) getServletContext().getAttribute(
+          RedHxEventBroker.CONTEXT_ATTRIBUTE);
+
+      if (broker == null) {
+        throw new ServletException("The servlet context has no RedHxEventBroker.");
+      }
+    }
+
+    writeExecutor = Executors.newScheduledThreadPool(WRITE_THREAD_COUNT, new ThreadFactory() {
+
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "RedHx event writer");
+
+        thread.setDaemon(true);
+
+        return thread;
+      }
+    });
+  }
+
+  @Override
+  protected void doGet(final HttpServletRequest req, final HttpServletResponse resp)
+      throws ServletException, IOException {
+    final RedHxEventFilter filter;
+    final long lastEventId;
+
+    try {
+      filter = createFilter(req);
+      lastEventId = getLastEventId(req);
+    } catch (IllegalArgumentException ex) {
+      resp.sendError(HttpServletResponse.SC_BAD_REQUEST, ex.getMessage());
+
+      return;
+    }
+
+    final RedHxEventSubscriber subscriber = broker.subscribe(filter, lastEventId);
+
+    if (subscriber == null) {
+      resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+          "Too many consoles are subscribed.");
+
+      return;
+    }
+
+    try {
+      resp.setStatus(HttpServletResponse.SC_OK);
+      resp.setContentType("text/event-stream");
+      resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+      resp.setHeader("Cache-Control", "no-cache");
+
+      final AsyncContext asyncContext = req.startAsync();
+      final EventStream stream =
+          new EventStream(asyncContext, resp.getOutputStream(), subscriber);
+
+      asyncContext.setTimeout(0);
+      asyncContext.addListener(stream);
+      stream.start();
+    } catch (IOException | RuntimeException ex) {
+      broker.unsubscribe(subscriber);
+
+      throw ex;
+    }
+  }
+
+  /**
+   * the response to one console. The container calls onWritePossible when the response can be
+   * written without blocking, the subscriber's listener and the heartbeat schedule a write on the
+   * write executor. Every write is made while the stream's lock is held.
+   */
+  private final class EventStream implements AsyncListener, Runnable, WriteListener {
+
+    private final AsyncContext asyncContext;
+    private ScheduledFuture<?> heartbeatFuture;
+    private boolean isClosed;
+    private boolean isFlushNeeded;
+    private boolean isHeartbeatDue;
+    private final AtomicBoolean isWriteScheduled;
+
+    /**
+     * true if something was written since the last heartbeat.
+     */
+    private boolean isWritten;
+    private final ServletOutputStream out;
+
+    /**
+     * the bytes that could not be written because the response was not ready. Null if none.
+     */
+    private byte[] pending;
+    private final RedHxEventSubscriber subscriber;
+
+    EventStream(final AsyncContext asyncContext, final ServletOutputStream out,
+        final RedHxEventSubscriber subscriber) {
+      this.asyncContext = asyncContext;
+      this.out = out;
+      this.subscriber = subscriber;
+      this.isWriteScheduled = new AtomicBoolean();
+      this.pending = SUBSCRIBED_COMMENT.clone();
+    }
+
+    @Override
+    public void onComplete(final AsyncEvent event) {
+      close(false);
+    }
+
+    @Override
+    public void onError(final AsyncEvent event) {
+      LOG.debug("The event stream of a console is closed.", event.getThrowable());
+      close(true);
+    }
+
+    @Override
+    public void onError(final Throwable ex) {
+
+      // the console closed the connection
+      LOG.debug("The event stream of a console is closed.", ex);
+      close(true);
+    }
+
+    @Override
+    public void onStartAsync(final AsyncEvent event) {}
+
+    @Override
+    public void onTimeout(final AsyncEvent event) {
+      close(true);
+    }
+
+    @Override
+    public void onWritePossible() {
+      write();
+    }
+
+    /**
+     * write on the write executor.
+     */
+    @Override
+    public void run() {
+      isWriteScheduled.set(false);
+      write();
+    }
+
+    /**
+     * start writing. The subscriber's listener is set after the write listener so no write is
+     * scheduled before the response is in non-blocking mode, the events published in between are
+     * in the subscriber's buffer and written by the first onWritePossible.
+     */
+    void start() {
+      out.setWriteListener(this);
+      subscriber.setListener(new Runnable() {
+
+        @Override
+        public void run() {
+          scheduleWrite();
+        }
+      });
+
+      final ScheduledFuture<?> future = writeExecutor.scheduleAtFixedRate(new Runnable() {
+
+        @Override
+        public void run() {
+          heartbeat();
+        }
+      }, HEARTBEAT_MILLISECONDS, HEARTBEAT_MILLISECONDS, TimeUnit.MILLISECONDS);
+
+      synchronized (this) {
+        if (isClosed) {
+          future.cancel(false);
+        } else {
+          heartbeatFuture = future;
+        }
+      }
+    }
+
+    /**
+     * stop the stream and remove its subscriber from the broker.
+     *
+     * @param isComplete true to complete the asynchronous request, false if it is complete.
+     */
+    private void close(final boolean isComplete) {
+      boolean isFirstClose = false;
+
+      synchronized (this) {
+        if (!isClosed) {
+          isClosed = true;
+          isFirstClose = true;
+          pending = null;
+
+          if (heartbeatFuture != null) {
+            heartbeatFuture.cancel(false);
+          }
+        }
+      }
+
+      if (isFirstClose) {
+        broker.unsubscribe(subscriber);
+
+        if (isComplete) {
+          try {
+            asyncContext.complete();
+          } catch (IllegalStateException ex) {
+
+            // the container completed the request first
+            LOG.debug("The event stream of a console is already complete.", ex);
+          }
+        }
+      }
+    }
+
+    private synchronized void heartbeat() {
+      isHeartbeatDue = !isWritten;
+      isWritten = false;
+      scheduleWrite();
+    }
+
+    /**
+     * get the next bytes to send, the events in the subscriber's buffer or a heartbeat.
+     *
+     * @return null if there is nothing to send.
+     */
+    private byte[] nextChunk() throws IOException {
+      final int droppedCount = subscriber.takeDroppedCount();
+      final List<RedHxChassisEvent> eventList = subscriber.poll();
+      final StringBuilder buf = new StringBuilder();
+      final byte[] retVal;
+
+      if (droppedCount > 0) {
+        buf.append("event: resync\ndata: {\"Dropped\":").append(droppedCount).append("}\n\n");
+      }
+
+      for (RedHxChassisEvent event : eventList) {
+        writeEvent(buf, event);
+      }
+
+      if ((buf.length() == 0) && isHeartbeatDue) {
+        buf.append(": keep-alive\n\n");
+      }
+
+      isHeartbeatDue = false;
+
+      if (buf.length() == 0) {
+        retVal = null;
+      } else {
+        retVal = buf.toString().getBytes(StandardCharsets.UTF_8);
+      }
+
+      return retVal;
+    }
+
+    private void scheduleWrite() {
+      if (isWriteScheduled.compareAndSet(false, true)) {
+        try {
+          writeExecutor.execute(this);
+        } catch (RejectedExecutionException ex) {
+
+          // the servlet is destroyed
+          isWriteScheduled.set(false);
+        }
+      }
+    }
+
+    /**
+     * write while the response is ready. When it is not, the container calls onWritePossible once
+     * it is.
+     */
+    private void write() {
+      boolean isSubscriberClosed = false;
+
+      synchronized (this) {
+        try {
+          while (!isClosed && !isSubscriberClosed && out.isReady()) {
+            if (pending == null) {
+              pending = nextChunk();
+            }
+
+            if (pending != null) {
+              out.write(pending);
+              pending = null;
+              isFlushNeeded = true;
+              isWritten = true;
+            } else if (isFlushNeeded) {
+              isFlushNeeded = false;
+              out.flush();
+            } else {
+              isSubscriberClosed = subscriber.isClosed();
+
+              if (!isSubscriberClosed) {
+                break;
+              }
+            }
+          }
+        } catch (IOException | IllegalStateException ex) {
+
+          // the console closed the connection
+          LOG.debug("The event stream of a console is closed.", ex);
+          isSubscriberClosed = true;
+        }
+      }
+
+      if (isSubscriberClosed) {
+        close(true);
+      }
+    }
+  }
+}
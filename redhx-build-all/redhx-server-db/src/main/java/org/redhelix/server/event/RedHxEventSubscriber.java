@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import org.redhelix.core.annotations.ThreadSafe;
+
+/**
+ * the events waiting to be sent to one console. The broker adds events and the response of the
+ * console takes them, either by waiting in {@link #take(long)} or by taking them without waiting
+ * when its listener is run.
+ *
+ * The buffer is bounded so a slow console does not hold memory without limit. An event for a
+ * chassis and type already in the buffer replaces the value of the older event, which keeps its
+ * place, so the console receives only the latest health of a chassis that changes many times.
+ * When the buffer is full the oldest event is dropped and counted, the console is then told to
+ * read the collection again.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+public final class RedHxEventSubscriber {
+
+  private final int capacity;
+  private final LinkedHashMap<String, RedHxChassisEvent> eventMap;
+  private final RedHxEventFilter filter;
+  private int droppedCount;
+  private boolean isClosed;
+  private Runnable listener;
+
+  RedHxEventSubscriber(final RedHxEventFilter filter, final int capacity) {
+    this.filter = filter;
+    this.capacity = capacity;
+    this.eventMap = new LinkedHashMap<>();
+  }
+
+  private RedHxEventSubscriber() {
+    this.filter = null;
+    this.capacity = 0;
+    this.eventMap = null;
+  }
+
+  /**
+   * stop the subscriber. A thread waiting in {@link #take(long)} returns.
+   */
+  public void close() {
+    final Runnable toRun;
+
+    synchronized (this) {
+      isClosed = true;
+      eventMap.clear();
+      notifyAll();
+      toRun = listener;
+    }
+
+    if (toRun != null) {
+      toRun.run();
+    }
+  }
+
+  /**
+   * set the code run after an event is added and after the subscriber is closed. It is run by the
+   * thread that published the event, it shall only hand the work to another thread.
+   *
+   * @param listener null for none.
+   */
+  public synchronized void setListener(final Runnable listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * get the filter of the subscriber.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxEventFilter getFilter() {
+    return filter;
+  }
+
+  /**
+   * test if the subscriber is stopped.
+   */
+  public synchronized boolean isClosed() {
+    return isClosed;
+  }
+
+  /**
+   * get the number of events dropped because the buffer was full since the last call, and set it
+   * to zero.
+   */
+  public synchronized int takeDroppedCount() {
+    final int retVal = droppedCount;
+
+    droppedCount = 0;
+
+    return retVal;
+  }
+
+  /**
+   * take every event in the buffer, waiting until there is one.
+   *
+   * @param timeoutMilliseconds the longest time to wait.
+   * @return the events in the order they were added. The list is empty if the time passed, the
+   *         subscriber is closed or events were dropped. A null is not returned.
+   * @throws InterruptedException if the thread is interrupted while it waits.
+   */
+  public synchronized List<RedHxChassisEvent> take(final long timeoutMilliseconds)
+      throws InterruptedException {
+    final long endTime = System.currentTimeMillis() + timeoutMilliseconds;
+    long waitTime = timeoutMilliseconds;
+
+    while (eventMap.isEmpty() && (droppedCount == 0) && !isClosed && (waitTime > 0)) {
+      wait(waitTime);
+      waitTime = endTime - System.currentTimeMillis();
+    }
+
+    return poll();
+  }
+
+  /**
+   * take every event in the buffer without waiting.
+   *
+   * @return the events in the order they were added. A null is not returned.
+   */
+  public synchronized List<RedHxChassisEvent> poll() {
+    final List<RedHxChassisEvent> retVal;
+
+    if (eventMap.isEmpty()) {
+      retVal = Collections.emptyList();
+    } else {
+      retVal = new ArrayList<>(eventMap.values());
+      eventMap.clear();
+    }
+
+    return retVal;
+  }
+
+  /**
+   * count events that were not added, for a console that missed them while it was not subscribed.
+   */
+  synchronized void addDroppedCount(final int count) {
+    droppedCount += count;
+  }
+
+  /**
+   * add an event that matches the filter.
+   */
+  void offer(final RedHxChassisEvent event) {
+    final Runnable toRun;
+
+    synchronized (this) {
+      if (!isClosed) {
+        final String key = event.getChassisSequenceNumber() + ":" + event.getType().ordinal();
+
+        if (!eventMap.containsKey(key) && (eventMap.size() >= capacity)) {
+          final Iterator<RedHxChassisEvent> it = eventMap.values().iterator();
+
+          it.next();
+          it.remove();
+          ++droppedCount;
+        }
+
+        eventMap.put(key, event);
+        notifyAll();
+        toRun = listener;
+      } else {
+        toRun = null;
+      }
+    }
+
+    if (toRun != null) {
+      toRun.run();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.event;
+
+/**
+ * the kinds of change a console can be told about. The description is the name of the event in
+ * the Server-Sent Events stream and the value of the type request parameter.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public enum RedHxEventTypeEnum {
+  HEALTH("health"), POWER("power"), STATE("state");
+
+  private final String desc;
+
+  private RedHxEventTypeEnum(final String desc) {
+    this.desc = desc;
+  }
+
+  public String getDescription() {
+    return desc;
+  }
+
+  /**
+   * convert from the name of an event to the enumeration.
+   *
+   * @param desc the name of the event.
+   * @return null if the argument is not the name of an event otherwise the enumeration.
+   */
+  public static RedHxEventTypeEnum getInstance(final String desc) {
+    RedHxEventTypeEnum retVal = null;
+
+    for (RedHxEventTypeEnum tmp : values()) {
+      if (tmp.desc.equals(desc)) {
+        retVal = tmp;
+
+        break;
+      }
+    }
+
+    return retVal;
+  }
+}
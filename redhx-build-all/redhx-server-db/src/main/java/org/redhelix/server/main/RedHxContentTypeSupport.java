@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
+import org.apache.olingo.server.api.serializer.RepresentationType;
+import org.redhelix.core.annotations.Immutable;
+
+/**
+ * add odata.metadata=full to the JSON formats of action parameters and of a complex value. The
+ * Olingo client sends and asks for full metadata by default, and the discover system action
+ * returns its progress as a complex value. A complex value has no navigation or edit links, so it
+ * is answered with the minimal JSON of the Olingo serializer, which holds all of its metadata.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@Immutable
+final class RedHxContentTypeSupport implements CustomContentTypeSupport {
+
+  @Override
+  public List<ContentType> modifySupportedContentTypes(final List<ContentType> defaultList,
+      final RepresentationType type) {
+    final List<ContentType> retVal;
+
+    if (((type == RepresentationType.ACTION_PARAMETERS) || (type == RepresentationType.COMPLEX))
+        && !defaultList.contains(ContentType.JSON_FULL_METADATA)) {
+      retVal = new ArrayList<ContentType>(defaultList);
+      retVal.add(ContentType.JSON_FULL_METADATA);
+    } else {
+      retVal = defaultList;
+    }
+
+    return retVal;
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.main;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.processor.MetadataProcessor;
+import org.apache.olingo.server.api.processor.ServiceDocumentProcessor;
+import org.apache.olingo.server.api.serializer.SerializerResult;
+import org.apache.olingo.server.api.uri.UriInfo;
+
+/**
+ * serve the $metadata document and the service document from bytes serialized once. The schema
+ * does not change while the servlet runs, so each document is serialized the first time it is
+ * asked for in a format and then copied to every response. Each document has a strong ETag, a
+ * request with a matching If-None-Match is answered with 304 Not Modified and no body.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class RedHxMetadataProcessor implements MetadataProcessor, ServiceDocumentProcessor {
+
+  /**
+   * the largest number of service documents kept. The service document holds the base URI of the
+   * request, a client can send any host name so the cache is bounded.
+   */
+  private static final int MAX_SERVICE_DOCUMENT_COUNT = 32;
+  private static final char[] HEX_DIGIT_ARRAY = "0123456789abcdef".toCharArray();
+  private final ConcurrentMap<String, CachedDocument> metadataMap;
+  private final ConcurrentMap<String, CachedDocument> serviceDocumentMap;
+  private volatile OData odata;
+  private volatile ServiceMetadata serviceMetadata;
+
+  public RedHxMetadataProcessor() {
+    this.metadataMap = new ConcurrentHashMap<>();
+    this.serviceDocumentMap = new ConcurrentHashMap<>();
+  }
+
+  private static CachedDocument createDocument(final SerializerResult result) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[8192];
+
+    try (InputStream in = result.getContent()) {
+      int count;
+
+      while ((count = in.read(buffer)) >= 0) {
+        out.write(buffer, 0, count);
+      }
+    } catch (IOException ex) {
+      throw new ODataRuntimeException("The metadata document could not be serialized.", ex);
+    }
+
+    return new CachedDocument(out.toByteArray());
+  }
+
+  @Override
+  public void init(final OData odata, final ServiceMetadata serviceMetadata) {
+    this.odata = odata;
+    this.serviceMetadata = serviceMetadata;
+  }
+
+  @Override
+  public void readMetadata(final ODataRequest request, final ODataResponse response,
+      final UriInfo uriInfo, final ContentType responseFormat)
+      throws ODataApplicationException, ODataLibraryException {
+    final String key = responseFormat.toContentTypeString();
+    CachedDocument document = metadataMap.get(key);
+
+    if (document == null) {
+      document =
+          createDocument(odata.createSerializer(responseFormat).metadataDocument(serviceMetadata));
+      metadataMap.putIfAbsent(key, document);
+    }
+
+    writeDocument(document, request, response, responseFormat);
+  }
+
+  @Override
+  public void readServiceDocument(final ODataRequest request, final ODataResponse response,
+      final UriInfo uriInfo, final ContentType responseFormat)
+      throws ODataApplicationException, ODataLibraryException {
+    final String key = responseFormat.toContentTypeString() + " " + request.getRawBaseUri();
+    CachedDocument document = serviceDocumentMap.get(key);
+
+    if (document == null) {
+      document = createDocument(odata.createSerializer(responseFormat)
+          .serviceDocument(serviceMetadata, request.getRawBaseUri()));
+
+      if (serviceDocumentMap.size() < MAX_SERVICE_DOCUMENT_COUNT) {
+        serviceDocumentMap.putIfAbsent(key, document);
+      }
+    }
+
+    writeDocument(document, request, response, responseFormat);
+  }
+
+  private void writeDocument(final CachedDocument document, final ODataRequest request,
+      final ODataResponse response, final ContentType responseFormat)
+      throws ODataLibraryException {
+    final boolean isNotModified = odata.createETagHelper().checkReadPreconditions(
+        document.eTag, request.getHeaders(HttpHeader.IF_MATCH),
+        request.getHeaders(HttpHeader.IF_NONE_MATCH));
+
+    response.setHeader(HttpHeader.ETAG, document.eTag);
+
+    if (isNotModified) {
+      response.setStatusCode(HttpStatusCode.NOT_MODIFIED.getStatusCode());
+    } else {
+      response.setContent(new ByteArrayInputStream(document.body));
+      response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+      response.setHeader(HttpHeader.CONTENT_TYPE, responseFormat.toContentTypeString());
+      response.setHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(document.body.length));
+    }
+  }
+
+  /**
+   * a serialized document and its strong ETag, the quoted SHA-1 of the bytes.
+   */
+  private static final class CachedDocument {
+
+    private final byte[] body;
+    private final String eTag;
+
+    private CachedDocument(final byte[] body) {
+      final StringBuilder sb = new StringBuilder("\"");
+
+      try {
+        for (byte digestByte : MessageDigest.getInstance("SHA-1").digest(body)) {
+          sb.append(HEX_DIGIT_ARRAY[(digestByte >> 4) & 0xf]);
+          sb.append(HEX_DIGIT_ARRAY[digestByte & 0xf]);
+        }
+      } catch (NoSuchAlgorithmException ex) {
+        throw new ODataRuntimeException("The JVM does not support SHA-1.", ex);
+      }
+
+      sb.append('"');
+      this.body = body;
+      this.eTag = sb.toString();
+    }
+  }
+}
@@ -16,16 +16,18 @@ package org.redhelix.server.main;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.edm.provider.CsdlAbstractEdmProvider;
 import org.apache.olingo.commons.api.edm.provider.CsdlAction;
 import org.apache.olingo.commons.api.edm.provider.CsdlActionImport;
+import org.apache.olingo.commons.api.edm.provider.CsdlComplexType;
 import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainer;
 import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainerInfo;
 import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
 import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
-import org.apache.olingo.commons.api.edm.provider.CsdlEnumType;
 import org.apache.olingo.commons.api.edm.provider.CsdlSchema;
 import org.apache.olingo.commons.api.ex.ODataException;
 import org.redhelix.server.action.RedHxEdmActionProvider;
@@ -39,6 +41,10 @@ import org.redhelix.server.message.op.chassis.RedHxChassisServiceEdmProvider;
  * data model by adding them to the static list in {@link #createEdmList() }. Each entry in the
  * liust implements the {@link org.redhelix.server.message.edm.RedHxEdmEntityProvider} class which
  * is a package public class that describes each of the major services provided by RedHelix.
+ * <p>
+ * The schema, the entity container and the maps used to look up each part of them are built once
+ * when the class is loaded. The CSDL objects are shared by every caller and shall not be changed.
+ * </p>
  *
  * @since RedHelix Version 0.2
  * @author Hank Bruning
@@ -61,28 +67,40 @@ public final class RedHxServiceEdmProvider extends CsdlAbstractEdmProvider {
   private static final String CONTAINER_NAME = "DefaultContainer";
   private static final FullQualifiedName CONTAINER =
       new FullQualifiedName(SCHEMA_NAME_SPACE, CONTAINER_NAME);
-  private static final List<RedHxEdmEntityProvider> EDM_ENTITY_PROVIDER_LIST = createEdmList();
-  private static final List<RedHxEdmActionProvider> EDM_ACTION_PROVIDER_LIST = createActionList();
   protected static final List<CsdlAction> EMPTY_ACTION_LIST =
       Collections.unmodifiableList(new ArrayList<CsdlAction>());
+  private static final List<RedHxEdmEntityProvider> EDM_ENTITY_PROVIDER_LIST = createEdmList();
+  private static final List<RedHxEdmActionProvider> EDM_ACTION_PROVIDER_LIST = createActionList();
+  private static final Map<FullQualifiedName, List<CsdlAction>> ACTION_MAP = createActionMap();
+  private static final Map<FullQualifiedName, CsdlComplexType> COMPLEX_TYPE_MAP =
+      createComplexTypeMap();
+  private static final Map<FullQualifiedName, CsdlEntityType> ENTITY_TYPE_MAP =
+      createEntityTypeMap();
+  private static final CsdlEntityContainer ENTITY_CONTAINER = createEntityContainer();
+  private static final Map<String, CsdlActionImport> ACTION_IMPORT_MAP = createActionImportMap();
+  private static final Map<String, CsdlEntitySet> ENTITY_SET_MAP = createEntitySetMap();
+  private static final CsdlEntityContainerInfo ENTITY_CONTAINER_INFO =
+      new CsdlEntityContainerInfo().setContainerName(CONTAINER);
+  private static final List<CsdlSchema> SCHEMA_LIST = createSchemaList();
 
   public RedHxServiceEdmProvider() {}
 
   @Override
-  public List<CsdlAction> getActions(FullQualifiedName actionName) throws ODataException {
-    List<CsdlAction> list = null;
-
-    /**
-     * todo change this lookup to a map.get();
-     */
-    for (RedHxEdmActionProvider edmProvider : EDM_ACTION_PROVIDER_LIST) {
-      list = edmProvider.getActionList(actionName);
+  public CsdlActionImport getActionImport(FullQualifiedName entityContainer,
+      String actionImportName) {
+    CsdlActionImport actionImport = null;
 
-      if (!list.isEmpty()) {
-        break;
-      }
+    if (CONTAINER.equals(entityContainer)) {
+      actionImport = ACTION_IMPORT_MAP.get(actionImportName);
     }
 
+    return actionImport;
+  }
+
+  @Override
+  public List<CsdlAction> getActions(FullQualifiedName actionName) throws ODataException {
+    List<CsdlAction> list = ACTION_MAP.get(actionName);
+
     if (list == null) {
       list = EMPTY_ACTION_LIST;
     }
@@ -90,8 +108,118 @@ public final class RedHxServiceEdmProvider extends CsdlAbstractEdmProvider {
     return list;
   }
 
+  @Override
+  public CsdlComplexType getComplexType(FullQualifiedName complexTypeName) {
+    return COMPLEX_TYPE_MAP.get(complexTypeName);
+  }
+
   @Override
   public CsdlEntityContainer getEntityContainer() {
+    return ENTITY_CONTAINER;
+  }
+
+  @Override
+  public CsdlEntityContainerInfo getEntityContainerInfo(FullQualifiedName entityContainerName) {
+    CsdlEntityContainerInfo entityContainerInfo = null;
+
+    if ((entityContainerName == null) || entityContainerName.equals(CONTAINER)) {
+      entityContainerInfo = ENTITY_CONTAINER_INFO;
+    }
+
+    return entityContainerInfo;
+  }
+
+  @Override
+  public CsdlEntitySet getEntitySet(FullQualifiedName entityContainer, String entitySetName) {
+    CsdlEntitySet entitySet = null;
+
+    if (CONTAINER.equals(entityContainer)) {
+      entitySet = ENTITY_SET_MAP.get(entitySetName);
+    }
+
+    return entitySet;
+  }
+
+  @Override
+  public CsdlEntityType getEntityType(FullQualifiedName entityTypeName) {
+    return ENTITY_TYPE_MAP.get(entityTypeName);
+  }
+
+  @Override
+  public List<CsdlSchema> getSchemas() {
+    return SCHEMA_LIST;
+  }
+
+  private static List<RedHxEdmActionProvider> createActionList() {
+    List<RedHxEdmActionProvider> list = new ArrayList<>();
+
+    list.add(new RedHxDiscoverSystemEdmProvider());
+    return list;
+  }
+
+  private static Map<String, CsdlActionImport> createActionImportMap() {
+    final Map<String, CsdlActionImport> map = new HashMap<>();
+
+    for (CsdlActionImport actionImport : ENTITY_CONTAINER.getActionImports()) {
+      map.put(actionImport.getName(), actionImport);
+    }
+
+    return Collections.unmodifiableMap(map);
+  }
+
+  /**
+   * group the actions by name. Overloaded actions share a name.
+   */
+  private static Map<FullQualifiedName, List<CsdlAction>> createActionMap() {
+    final Map<FullQualifiedName, List<CsdlAction>> map = new HashMap<>();
+
+    for (RedHxEdmActionProvider edmProvider : EDM_ACTION_PROVIDER_LIST) {
+      for (CsdlAction action : edmProvider.getActionList()) {
+        final FullQualifiedName actionName =
+            new FullQualifiedName(SCHEMA_NAME_SPACE, action.getName());
+        List<CsdlAction> list = map.get(actionName);
+
+        if (list == null) {
+          list = new ArrayList<>();
+          map.put(actionName, list);
+        }
+
+        list.add(action);
+      }
+    }
+
+    for (Map.Entry<FullQualifiedName, List<CsdlAction>> entry : map.entrySet()) {
+      entry.setValue(Collections.unmodifiableList(entry.getValue()));
+    }
+
+    return Collections.unmodifiableMap(map);
+  }
+
+  private static Map<FullQualifiedName, CsdlComplexType> createComplexTypeMap() {
+    final Map<FullQualifiedName, CsdlComplexType> map = new HashMap<>();
+
+    for (RedHxEdmActionProvider edmProvider : EDM_ACTION_PROVIDER_LIST) {
+      for (CsdlComplexType complexType : edmProvider.getComplexTypeList()) {
+        map.put(new FullQualifiedName(SCHEMA_NAME_SPACE, complexType.getName()), complexType);
+      }
+    }
+
+    return Collections.unmodifiableMap(map);
+  }
+
+  private static List<RedHxEdmEntityProvider> createEdmList() {
+    List<RedHxEdmEntityProvider> list = new ArrayList<>();
+
+    /*
+     * aranged in alph order by RedHx name.
+     */
+    list.add(new RedHxChassisServiceEdmProvider());
+    // list.add(new RedHxComputerSystemServiceEdmProvider());
+
+    return list;
+  }
+
+  private static CsdlEntityContainer createEntityContainer() {
 
     // create EntityContainer
     CsdlEntityContainer entityContainer = new CsdlEntityContainer();
@@ -119,93 +247,49 @@ public final class RedHxServiceEdmProvider extends CsdlAbstractEdmProvider {
       actionImportsList.addAll(edmProvider.getActionImportList());
     }
 
-    System.out.println("HFB5: adding " + actionImportsList.size() + " actions to container.");
     entityContainer.setActionImports(actionImportsList);
 
     return entityContainer;
   }
 
-  @Override
-  public CsdlEntityContainerInfo getEntityContainerInfo(FullQualifiedName entityContainerName) {
-    CsdlEntityContainerInfo entityContainerInfo = null;
-
-    if ((entityContainerName == null) || entityContainerName.equals(CONTAINER)) {
-      entityContainerInfo = new CsdlEntityContainerInfo();
-      entityContainerInfo.setContainerName(CONTAINER);
+  private static Map<String, CsdlEntitySet> createEntitySetMap() {
+    final Map<String, CsdlEntitySet> map = new HashMap<>();
 
+    for (CsdlEntitySet entitySet : ENTITY_CONTAINER.getEntitySets()) {
+      map.put(entitySet.getName(), entitySet);
     }
 
-    return entityContainerInfo;
+    return Collections.unmodifiableMap(map);
   }
 
-  @Override
-  public CsdlEntitySet getEntitySet(FullQualifiedName entityContainer, String entitySetName) {
-    CsdlEntitySet entitySet = null;
-
-    if (entityContainer.equals(CONTAINER)) {
-      for (RedHxEdmEntityProvider edmProvider : EDM_ENTITY_PROVIDER_LIST) {
-        if (entitySetName.equals(edmProvider.getEntitySetName())) {
-          entitySet = new CsdlEntitySet();
-          entitySet.setName(edmProvider.getEntitySetName());
-          entitySet.setType(edmProvider.getFqdName());
-
-          break;
-        }
-      }
-    }
-
-    return entitySet;
-  }
-
-  @Override
-  public CsdlEntityType getEntityType(FullQualifiedName entityTypeName) {
-    CsdlEntityType entityType = null;
+  private static Map<FullQualifiedName, CsdlEntityType> createEntityTypeMap() {
+    final Map<FullQualifiedName, CsdlEntityType> map = new HashMap<>();
 
     for (RedHxEdmEntityProvider edmProvider : EDM_ENTITY_PROVIDER_LIST) {
-      if (entityTypeName.equals(edmProvider.getFqdName())) {
-        entityType = edmProvider.getEntityType();
-
-        break;
-      }
+      map.put(edmProvider.getFqdName(), edmProvider.getEntityType());
     }
 
-    return entityType;
+    return Collections.unmodifiableMap(map);
   }
 
-  @Override
-  public List<CsdlSchema> getSchemas() {
+  private static List<CsdlSchema> createSchemaList() {
 
     // create Schema
     CsdlSchema schema = new CsdlSchema();
 
     schema.setNamespace(SCHEMA_NAME_SPACE);
 
-    /*
-     * set all enum type.
-     */
-    List<CsdlEnumType> enumTypesList = new ArrayList<>();
-
-    for (RedHxEdmEntityProvider edmProvider : EDM_ENTITY_PROVIDER_LIST) {
-      enumTypesList.addAll(edmProvider.getEnumTypeList());
-    }
-
-    // // get an enums defind by the actions.
-    // for (RedHxEdmActionProvider edmProvider : EDM_ACTION_PROVIDER_LIST)
-    // {
-    // enumTypesList.addAll(edmProvider.getEnumTypeList());
-    // }
-    // schema.setEnumTypes(enumTypesList);
-
     /*
      * set Entity types
      */
     List<CsdlEntityType> entityTypes = new ArrayList<>();
 
     for (RedHxEdmEntityProvider edmProvider : EDM_ENTITY_PROVIDER_LIST) {
-      entityTypes.add(edmProvider.getEntityType());
+      entityTypes.add(ENTITY_TYPE_MAP.get(edmProvider.getFqdName()));
     }
 
     schema.setEntityTypes(entityTypes);
+    schema.setComplexTypes(new ArrayList<CsdlComplexType>(COMPLEX_TYPE_MAP.values()));
 
     /*
      * set Actions
@@ -216,37 +300,12 @@ public final class RedHxServiceEdmProvider extends CsdlAbstractEdmProvider {
       actionList.addAll(edmProvider.getActionList());
     }
 
-    System.out.println("HFB5: added " + actionList.size() + " actions.");
     schema.setActions(actionList);
     /**
      * set the entity container
      */
-    schema.setEntityContainer(getEntityContainer());
-
-    // finally
-    List<CsdlSchema> schemas = new ArrayList<>();
-
-    schemas.add(schema);
-
-    return schemas;
-  }
+    schema.setEntityContainer(ENTITY_CONTAINER);
 
-  private static List<RedHxEdmActionProvider> createActionList() {
-    List<RedHxEdmActionProvider> list = new ArrayList<>();
-
-    list.add(new RedHxDiscoverSystemEdmProvider());
-    return list;
-  }
-
-  private static List<RedHxEdmEntityProvider> createEdmList() {
-    List<RedHxEdmEntityProvider> list = new ArrayList<>();
-
-    /*
-     * aranged in alph order by RedHx name.
-     */
-    list.add(new RedHxChassisServiceEdmProvider());
-    // list.add(new RedHxComputerSystemServiceEdmProvider());
-
-    return list;
+    return Collections.singletonList(schema);
   }
 }
@@ -15,7 +15,7 @@
 package org.redhelix.server.main;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Collections;
 import javax.persistence.EntityManager;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -26,11 +26,20 @@ import org.apache.olingo.server.api.ODataHttpHandler;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.edmx.EdmxReference;
 import org.redhelix.server.action.op.discover.RedHxDiscoveryProcessor;
+import org.redhelix.server.db.RedHxDbPersistantDatabase;
+import org.redhelix.server.db.RedHxDbPersistantDatabaseImpl;
+import org.redhelix.server.event.RedHxEventBroker;
 import org.redhelix.server.message.op.chassis.RedHxChassisCollectionProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * the RedHelix OData service. The entity data model, the service metadata and the processors are
+ * created once by {@link #init()} and shared by every request. Only the OData handler is created
+ * for each request because the Olingo handler is not thread safe. The inventory the processors
+ * read is passed to the constructor, a container that uses the no argument constructor gets an
+ * empty in-memory inventory. The fields are transient, what init() builds is not serialized with
+ * the servlet.
  *
  * @author Hank Bruning
  */
@@ -38,7 +47,49 @@ public class RedHxServlet extends HttpServlet {
 
   private static final long serialVersionUID = 1L;
   private static final Logger LOG = LoggerFactory.getLogger(RedHxServlet.class);
-  private EntityManager entityManager;
+  private transient RedHxChassisCollectionProcessor chassisCollectionProcessor;
+  private final transient RedHxDbPersistantDatabase database;
+  private transient RedHxDiscoveryProcessor discoveryProcessor;
+  private transient RedHxContentTypeSupport contentTypeSupport;
+  private transient EntityManager entityManager;
+  private transient RedHxEventBroker eventBroker;
+  private transient RedHxMetadataProcessor metadataProcessor;
+  private transient OData odata;
+  private transient ServiceMetadata serviceMetadata;
+
+  /**
+   * create the servlet with an empty in-memory inventory.
+   */
+  public RedHxServlet() {
+    this(new RedHxDbPersistantDatabaseImpl());
+  }
+
+  /**
+   * create the servlet.
+   *
+   * @param database the inventory read by the OData service. This shall not be null.
+   */
+  public RedHxServlet(final RedHxDbPersistantDatabase database) {
+    if (database == null) {
+      throw new IllegalArgumentException("Argument \"database\" can not be null.");
+    }
+
+    this.database = database;
+  }
+
+  @Override
+  public void destroy() {
+    if (eventBroker != null) {
+      database.removeChassisListener(eventBroker);
+      eventBroker.close();
+    }
+
+    if (discoveryProcessor != null) {
+      discoveryProcessor.close();
+    }
+
+    super.destroy();
+  }
 
   /**
    * Returns a short description of the servlet.
@@ -58,6 +109,24 @@ public class RedHxServlet extends HttpServlet {
     // Persistence.createEntityManagerFactory("org.redhelix.persistanceUnit");
     // final EntityManager entityManager = entityManagerFactory.createEntityManager();
 
+    try {
+      odata = OData.newInstance();
+      serviceMetadata = odata.createServiceMetadata(new RedHxServiceEdmProvider(),
+          Collections.<EdmxReference>emptyList());
+      metadataProcessor = new RedHxMetadataProcessor();
+      chassisCollectionProcessor = new RedHxChassisCollectionProcessor(database);
+      discoveryProcessor = new RedHxDiscoveryProcessor(odata, serviceMetadata.getEdm());
+      contentTypeSupport = new RedHxContentTypeSupport();
+
+      // the changes of the inventory are pushed to the consoles by RedHxEventServlet
+      eventBroker = new RedHxEventBroker();
+      database.addChassisListener(eventBroker);
+      getServletContext().setAttribute(RedHxEventBroker.CONTEXT_ATTRIBUTE, eventBroker);
+    } catch (RuntimeException ex) {
+      LOG.error("The RedHelix OData service could not be created.", ex);
+
+      throw new ServletException(ex);
+    }
   }
 
   @Override
@@ -66,19 +135,20 @@ public class RedHxServlet extends HttpServlet {
     try {
 
       /*
-       * create odata handler and configure it with CsdlEdmProvider and Processor. todo: this needs
-       * to be rewritten the list does not have to be recreated each time. The advantage of this is
-       * that the multiple threads calling this are seperated.
+       * the handler keeps the state of one request so it is created each time. Registering a
+       * processor only sets the OData and service metadata that the processor already has.
        */
-      OData odata = OData.newInstance();
-      ServiceMetadata edm = odata.createServiceMetadata(new RedHxServiceEdmProvider(),
-          new ArrayList<EdmxReference>());
-      ODataHttpHandler handler = odata.createHandler(edm);
-
-      System.out.println("HFB5: in service call. " + req.getAuthType() + ", " + req.getContentType()
-          + ", " + req.getPathInfo());
-      handler.register(new RedHxChassisCollectionProcessor());
-      handler.register(new RedHxDiscoveryProcessor(odata, edm.getEdm()));
+      final ODataHttpHandler handler = odata.createHandler(serviceMetadata);
+
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("service call. " + req.getAuthType() + ", " + req.getContentType() + ", "
+            + req.getPathInfo());
+      }
+
+      handler.register(metadataProcessor);
+      handler.register(chassisCollectionProcessor);
+      handler.register(discoveryProcessor);
+      handler.register(contentTypeSupport);
 
       // let the handler do the work
       handler.process(req, resp);
@@ -14,12 +14,25 @@
  */
 package org.redhelix.server.message.op.chassis;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -30,6 +43,8 @@ import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.prefer.Preferences;
+import org.apache.olingo.server.api.prefer.PreferencesApplied;
 import org.apache.olingo.server.api.processor.EntityCollectionProcessor;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
@@ -38,10 +53,41 @@ import org.apache.olingo.server.api.serializer.SerializerResult;
 import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.UriResource;
 import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.CustomQueryOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectItem;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.chassis.id.RedHxChassisSerialNumberImpl;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+import org.redhelix.server.db.RedHxDbChangeList;
+import org.redhelix.server.db.RedHxDbChassisId;
+import org.redhelix.server.db.RedHxDbChassisOpertions;
+import org.redhelix.server.query.RedHxQuery;
+import org.redhelix.server.query.RedHxQueryResult;
+import org.redhelix.server.serializer.RedHxJsonCollectionInputStream;
+import org.redhelix.server.serializer.RedHxRemovedEntity;
 
 /**
+ * read the collection of chassis. One processor is shared by every request so it keeps no state
+ * of a request.
  *
+ * $filter, $orderby, $skip, $top and $count are evaluated against the chassis in the inventory
+ * and only the chassis that are returned are converted to entities. When the filter requires the
+ * ID, SerialNumber or Health to equal a literal the inventory index is read instead of every
+ * chassis.
+ *
+ * A response holds no more than {@link #MAX_PAGE_SIZE} chassis, or fewer if the client sends the
+ * odata.maxpagesize preference. When more chassis match, the response has an @odata.nextLink with
+ * a $skiptoken that is the position of the last chassis in the sort order.
+ *
+ * JSON with minimal or no metadata is written by RedHxJsonCollectionInputStream while the response
+ * is sent, so a chassis is converted to JSON only when the client is ready for it. Other formats
+ * are serialized by Olingo into memory.
+ *
+ * A read with the odata.track-changes preference and no $orderby, $skip or $top ends with a delta
+ * link. The link holds the version of the inventory in the custom option deltatoken. Reading it
+ * returns only the chassis added, changed or removed since, from the change log of the inventory.
  *
  * @since RedHelix Version 0.2
  * @author Hank Bruning
@@ -49,8 +95,31 @@ import org.apache.olingo.server.api.uri.queryoption.SelectOption;
  */
 public final class RedHxChassisCollectionProcessor implements EntityCollectionProcessor {
 
-  private OData odata;
-  private ServiceMetadata serviceMetadata;
+  /**
+   * the most chassis returned in one response. A client may ask for smaller pages with the
+   * odata.maxpagesize preference.
+   */
+  static final int MAX_PAGE_SIZE = 1000;
+  private final RedHxDbChassisOpertions chassisOperations;
+  private volatile OData odata;
+  private volatile ServiceMetadata serviceMetadata;
+
+  /**
+   * create the processor.
+   *
+   * @param chassisOperations the inventory the chassis are read from. This shall not be null.
+   */
+  public RedHxChassisCollectionProcessor(final RedHxDbChassisOpertions chassisOperations) {
+    if (chassisOperations == null) {
+      throw new IllegalArgumentException("Argument \"chassisOperations\" can not be null.");
+    }
+
+    this.chassisOperations = chassisOperations;
+  }
+
+  private RedHxChassisCollectionProcessor() {
+    this.chassisOperations = null;
+  }
 
   @Override
   public void init(OData odata, ServiceMetadata serviceMetadata) {
@@ -69,159 +138,378 @@ public final class RedHxChassisCollectionProcessor implements EntityCollectionPr
     UriResourceEntitySet uriResourceEntitySet = (UriResourceEntitySet) resourcePaths.get(0);
     EdmEntitySet edmEntitySet = uriResourceEntitySet.getEntitySet();
 
-    // 2nd: fetch the data from backend for this requested EntitySetName and deliver as EntitySet
-    EntityCollection entityCollection = getData(edmEntitySet);
-    EntityCollection modifiedEntityCollection = new EntityCollection();
-    List<Entity> modifiedEntityList = new ArrayList<Entity>();
-
-    modifiedEntityList.addAll(entityCollection.getEntities());
-
-    // // 3rd: Apply system query option
-    // // The system query options have to be applied in a defined order
-    // // 3.1.) $filter
-    // modifiedEntityList = applyFilterQueryOption(modifiedEntityList, uriInfo.getFilterOption());
-    //
-    // // 3.2.) $orderby
-    // modifiedEntityList = applyOrderQueryOption(modifiedEntityList, uriInfo.getOrderByOption());
-    //
-    // // 3.3.) $count
-    // modifiedEntityList = applyCountQueryOption(modifiedEntityCollection, modifiedEntityList,
-    // uriInfo.getCountOption());
-    //
-    // // 3.4.) $skip
-    // modifiedEntityList = applySkipQueryOption(modifiedEntityList, uriInfo.getSkipOption());
-    //
-    // // 3.5.) $top
-    // modifiedEntityList = applyTopQueryOption(modifiedEntityList, uriInfo.getTopOption());
-    //
-    // // 3.6.) Server driven paging (not part of this tutorial)
-    // // 3.7.) $expand
-    // modifiedEntityList = applyExpandQueryOption(modifiedEntityList, edmEntitySet,
-    // uriInfo.getExpandOption());
-    // 3.8.) $select
-    SelectOption selectOption = uriInfo.getSelectOption();
-
-    // Set the (may) modified entityList to the new entity collection
-    modifiedEntityCollection.getEntities().addAll(modifiedEntityList);
+    if (!RedHxChassisServiceEdmProvider.ET_CHASSIS_NAME.equals(edmEntitySet.getName())) {
+      throw new ODataApplicationException("The entity set " + edmEntitySet.getName()
+          + " is not supported.", HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+    }
 
-    // 4th: create a serializer based on the requested format (json)
-    ODataSerializer serializer = odata.createSerializer(responseFormat);
+    // 2nd: apply $filter, $orderby, $count, $skip, $top and $skiptoken to the inventory
+    final Preferences preferences = odata.createPreferences(request.getHeaders(HttpHeader.PREFER));
+    final Integer preferredPageSize = preferences.getMaxPageSize();
+    final int pageSize = ((preferredPageSize == null) || (preferredPageSize < 1)) ? MAX_PAGE_SIZE
+        : Math.min(preferredPageSize, MAX_PAGE_SIZE);
+    final RedHxQuery<Map.Entry<RedHxDbChassisId, RedHxChassis>> query = RedHxQuery
+        .create(uriInfo, RedHxChassisPropertyEnum.getNameMap(), RedHxChassisPropertyEnum.ID);
 
     // we need the property names of the $select, in order to build the context URL
+    SelectOption selectOption = uriInfo.getSelectOption();
     EdmEntityType edmEntityType = edmEntitySet.getEntityType();
     String selectList = odata.createUriHelper().buildContextURLSelectList(edmEntityType,
         uriInfo.getExpandOption(), selectOption);
-    ContextURL contextUrl =
-        ContextURL.with().entitySet(edmEntitySet).selectList(selectList).build();
+    final String deltaToken = getCustomOption(uriInfo, RedHxQuery.DELTA_TOKEN_OPTION);
+
+    if (deltaToken != null) {
+      readDelta(request, response, responseFormat, query, edmEntitySet, selectOption, selectList,
+          deltaToken);
+
+      return;
+    }
+
+    /*
+     * a tracked read returns a delta link on the last page. The version is read before the
+     * chassis, a chassis that changes while the pages are read is also in the first delta.
+     */
+    final String trackedVersion = getCustomOption(uriInfo, RedHxQuery.TRACK_CHANGES_OPTION);
+    final boolean isTracked =
+        query.isDeltaSupported() && (preferences.hasTrackChanges() || (trackedVersion != null));
+    final long version = (trackedVersion == null) ? chassisOperations.getChassisVersion()
+        : parseVersion(trackedVersion);
+    final RedHxQueryResult<Map.Entry<RedHxDbChassisId, RedHxChassis>> result =
+        query.execute(getRowIterator(query), pageSize);
+    URI nextLink = query.getNextLink(request, result);
+    URI deltaLink = null;
+
+    if (isTracked) {
+      if (nextLink == null) {
+        deltaLink = query.getDeltaLink(request, Long.toString(version));
+      } else if (trackedVersion == null) {
+        nextLink = URI.create(
+            nextLink.toString() + "&" + RedHxQuery.TRACK_CHANGES_OPTION + "=" + version);
+      }
+    }
+
+    final InputStream content;
+
+    if (isStreamed(responseFormat)) {
+
+      // 3rd: the JSON of each chassis is created while the response is written
+      try {
+        content = new RedHxJsonCollectionInputStream<>(
+            getContextUrl(responseFormat, edmEntitySet, selectList, ""), result.getCount(),
+            nextLink, deltaLink, result.getRowList().iterator(),
+            getSelectedPropertyList(selectOption),
+            Collections.<RedHxRemovedEntity>emptyList());
+      } catch (IOException ex) {
+        throw new ODataApplicationException("The response could not be created.",
+            HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, ex);
+      }
+    } else {
+
+      // 3rd: only the chassis returned become entities
+      final EntityCollection entityCollection = new EntityCollection();
+      final List<Entity> entityList = entityCollection.getEntities();
+
+      for (Map.Entry<RedHxDbChassisId, RedHxChassis> row : result.getRowList()) {
+        entityList.add(createEntity(row));
+      }
+
+      entityCollection.setCount(result.getCount());
+      entityCollection.setNext(nextLink);
+      entityCollection.setDeltaLink(deltaLink);
 
-    // adding the selectOption to the serializerOpts will actually tell the lib to do the job
-    final String id = request.getRawBaseUri() + "/" + edmEntitySet.getName();
-    EntityCollectionSerializerOptions opts = EntityCollectionSerializerOptions.with()
-        .contextURL(contextUrl).count(uriInfo.getCountOption()).select(selectOption)
-        .expand(uriInfo.getExpandOption()).id(id).build();
+      // 4th: create a serializer based on the requested format
+      ODataSerializer serializer = odata.createSerializer(responseFormat);
+      ContextURL contextUrl =
+          ContextURL.with().entitySet(edmEntitySet).selectList(selectList).build();
 
-    // and serialize the content: transform from the EntitySet object to InputStream
-    SerializerResult serializerResult =
-        serializer.entityCollection(serviceMetadata, edmEntityType, modifiedEntityCollection, opts);
-    InputStream serializedContent = serializerResult.getContent();
+      // adding the selectOption to the serializerOpts will actually tell the lib to do the job
+      final String id = request.getRawBaseUri() + "/" + edmEntitySet.getName();
+      EntityCollectionSerializerOptions opts = EntityCollectionSerializerOptions.with()
+          .contextURL(contextUrl).count(uriInfo.getCountOption()).select(selectOption)
+          .expand(uriInfo.getExpandOption()).id(id).build();
+
+      // and serialize the content: transform from the EntitySet object to InputStream
+      SerializerResult serializerResult =
+          serializer.entityCollection(serviceMetadata, edmEntityType, entityCollection, opts);
+
+      content = serializerResult.getContent();
+    }
 
     // 5th: configure the response object: set the body, headers and status code
-    response.setContent(serializedContent);
+    response.setContent(content);
     response.setStatusCode(HttpStatusCode.OK.getStatusCode());
     response.setHeader(HttpHeader.CONTENT_TYPE, responseFormat.toContentTypeString());
+
+    final boolean isTrackChangesApplied = isTracked && preferences.hasTrackChanges();
+
+    if ((preferredPageSize != null) || isTrackChangesApplied) {
+      final PreferencesApplied.Builder builder = PreferencesApplied.with();
+
+      if (preferredPageSize != null) {
+        builder.maxPageSize(pageSize);
+      }
+
+      if (isTrackChangesApplied) {
+        builder.trackChanges();
+      }
+
+      response.setHeader(HttpHeader.PREFERENCE_APPLIED, builder.build().toValueString());
+    }
+  }
+
+  private static Entity createEntity(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+    final Entity retVal = new Entity();
+
+    for (RedHxChassisPropertyEnum property : RedHxChassisPropertyEnum.values()) {
+      retVal.addProperty(
+          new Property(null, property.getName(), ValueType.PRIMITIVE, property.getValue(row)));
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the context URL of a response written by RedHxJsonCollectionInputStream.
+   *
+   * @return A null is returned for odata.metadata=none.
+   */
+  private static String getContextUrl(final ContentType responseFormat,
+      final EdmEntitySet edmEntitySet, final String selectList, final String suffix) {
+    final String retVal;
+
+    if (ContentType.VALUE_ODATA_METADATA_NONE
+        .equalsIgnoreCase(responseFormat.getParameter(ContentType.PARAMETER_ODATA_METADATA))) {
+      retVal = null;
+    } else {
+      retVal = "$metadata#" + edmEntitySet.getName()
+          + ((selectList == null) ? "" : "(" + selectList + ")") + suffix;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the value of a custom query option.
+   *
+   * @return A null is returned if the option is not in the request.
+   */
+  private static String getCustomOption(final UriInfo uriInfo, final String name) {
+    for (CustomQueryOption option : uriInfo.getCustomQueryOptions()) {
+      if (name.equals(option.getName())) {
+        return option.getText();
+      }
+    }
+
+    return null;
   }
 
-  // private OData odata;
-  // private ServiceMetadata serviceMetadata;
-  //
-  // @Override
-  // public void init(OData odata, ServiceMetadata serviceMetadata) {
-  // this.odata = odata;
-  // this.serviceMetadata = serviceMetadata;
-  // }
-  //
-  // @Override
-  // public void readEntityCollection(ODataRequest request, ODataResponse response, UriInfo uriInfo,
-  // ContentType responseFormat) throws ODataApplicationException, SerializerException {
-  //
-  //// The filter RedHxFilterHardware will work with request.getRawQueryPath()
-  //// 1st we have retrieve the requested EntitySet from the uriInfo object (representation of the
-  //// parsed service URI)
-  // List<UriResource> resourcePaths = uriInfo.getUriResourceParts();
-  // UriResourceEntitySet uriResourceEntitySet = (UriResourceEntitySet) resourcePaths.get(0); // in
-  //
-  //// our
-  //// example,
-  //// the
-  //// first
-  //// segment
-  //// is
-  //// the
-  //// EntitySet
-  // EdmEntitySet edmEntitySet = uriResourceEntitySet.getEntitySet();
-  //
-  //// 2nd: fetch the data from backend for this requested EntitySetName
-  //// it has to be delivered as EntitySet object
-  // EntityCollection entitySet = getData(edmEntitySet);
-  //
-  //// 3rd: create a serializer based on the requested format (json)
-  // ODataFormat format = ODataFormat.fromContentType(responseFormat);
-  // ODataSerializer serializer = odata.createSerializer(format);
-  //
-  //// 4th: Now serialize the content: transform from the EntitySet object to InputStream
-  // EdmEntityType edmEntityType = edmEntitySet.getEntityType();
-  // ContextURL contextUrl = ContextURL.with().entitySet(edmEntitySet).build();
-  // EntityCollectionSerializerOptions opts =
-  // EntityCollectionSerializerOptions.with().contextURL(contextUrl).build();
-  // SerializerResult serializedContent =
-  // serializer.entityCollection(serviceMetadata, edmEntityType, entitySet, opts);
-  //
-  //// Finally: configure the response object: set the body, headers and status code
-  // response.setContent(serializedContent.getContent());
-  // response.setStatusCode(HttpStatusCode.OK.getStatusCode());
-  // response.setHeader(HttpHeader.CONTENT_TYPE, responseFormat.toContentTypeString());
-  // }
-  //
-  private EntityCollection getData(EdmEntitySet edmEntitySet) {
-    EntityCollection entityCollection = new EntityCollection();
-
-    // check for which EdmEntitySet the data is requested
-    if (RedHxChassisServiceEdmProvider.ET_CHASSIS_NAME.equals(edmEntitySet.getName())) {
-      List<Entity> entityList = entityCollection.getEntities();
-
-      // add some sample product entities
-      // entityList.add(new Entity().addProperty(new Property(null,
-      // "ID",
-      // ValueType.PRIMITIVE,
-      // 1)).addProperty(new Property(null,
-      // "Name",
-      // ValueType.PRIMITIVE,
-      // "Notebook Basic 15")).addProperty(new Property(null,
-      // "Description",
-      // ValueType.PRIMITIVE,
-      // "Notebook Basic, 1.7GHz - 15 XGA - 1024MB DDR2 SDRAM - 40GB")));
-      // entityList.add(new Entity().addProperty(new Property(null,
-      // "ID",
-      // ValueType.PRIMITIVE,
-      // 2)).addProperty(new Property(null,
-      // "Name",
-      // ValueType.PRIMITIVE,
-      // "1UMTS PDA")).addProperty(new Property(null,
-      // "Description",
-      // ValueType.PRIMITIVE,
-      // "Ultrafast 3G UMTS/HSDPA Pocket PC, supports GSM network")));
-      // entityList.add(new Entity().addProperty(new Property(null,
-      // "ID",
-      // ValueType.PRIMITIVE,
-      // 3)).addProperty(new Property(null,
-      // "Name",
-      // ValueType.PRIMITIVE,
-      // "Ergo Screen")).addProperty(new Property(null,
-      // "Description",
-      // ValueType.PRIMITIVE,
-      // "17 Optimum Resolution 1024 x 768 @ 85Hz, resolution 1280 x 960")));
-    }
-
-    return entityCollection;
+  /**
+   * get the properties selected by $select in the order of the entity type.
+   */
+  private static List<RedHxChassisPropertyEnum> getSelectedPropertyList(
+      final SelectOption selectOption) {
+    final List<RedHxChassisPropertyEnum> retVal;
+
+    if (selectOption == null) {
+      retVal = Arrays.asList(RedHxChassisPropertyEnum.values());
+    } else {
+      final Set<String> nameSet = new HashSet<>();
+      boolean isStar = false;
+
+      for (SelectItem item : selectOption.getSelectItems()) {
+        if (item.isStar()) {
+          isStar = true;
+        } else if (item.getResourcePath() != null) {
+          final List<UriResource> partList = item.getResourcePath().getUriResourceParts();
+
+          if (partList.get(0) instanceof UriResourceProperty) {
+            nameSet.add(((UriResourceProperty) partList.get(0)).getProperty().getName());
+          }
+        }
+      }
+
+      retVal = new ArrayList<>();
+
+      for (RedHxChassisPropertyEnum property : RedHxChassisPropertyEnum.values()) {
+        if (isStar || nameSet.contains(property.getName())) {
+          retVal.add(property);
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * test if the response is written by RedHxJsonCollectionInputStream. It writes JSON with
+   * minimal or no metadata, the Olingo serializer is used for full metadata.
+   */
+  private static boolean isStreamed(final ContentType responseFormat) {
+    return responseFormat.isCompatible(ContentType.APPLICATION_JSON)
+        && !ContentType.VALUE_ODATA_METADATA_FULL
+            .equalsIgnoreCase(responseFormat.getParameter(ContentType.PARAMETER_ODATA_METADATA));
+  }
+
+  /**
+   * read the version of the inventory from a delta link or the next link of a tracked read.
+   */
+  private static long parseVersion(final String text) throws ODataApplicationException {
+    try {
+      return Long.parseLong(text);
+    } catch (NumberFormatException ex) {
+      throw new ODataApplicationException("The delta token " + text + " is not valid.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, ex);
+    }
+  }
+
+  /**
+   * get the chassis in a snapshot of the inventory in id order. The page of a $skiptoken without
+   * $orderby starts after an id, the chassis before it are not read.
+   */
+  private Iterator<Map.Entry<RedHxDbChassisId, RedHxChassis>> getSnapshotIterator(
+      final Object startKey) {
+    final SortedMap<RedHxDbChassisId, RedHxChassis> snapshot =
+        chassisOperations.getChassisSnapshot();
+    final Iterator<Map.Entry<RedHxDbChassisId, RedHxChassis>> retVal;
+    final long startSequenceNumber =
+        (startKey instanceof Number) ? ((Number) startKey).longValue() + 1 : 1;
+
+    if (startSequenceNumber > Integer.MAX_VALUE) {
+      retVal = Collections.<Map.Entry<RedHxDbChassisId, RedHxChassis>>emptyIterator();
+    } else if (startSequenceNumber <= 1) {
+      retVal = snapshot.entrySet().iterator();
+    } else {
+      retVal = snapshot.tailMap(chassisOperations.getChassisId((int) startSequenceNumber))
+          .entrySet().iterator();
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get a row for each id that still has a chassis. A chassis removed after the index was read is
+   * skipped.
+   */
+  private List<Map.Entry<RedHxDbChassisId, RedHxChassis>> getRowList(
+      final List<RedHxDbChassisId> idList) {
+    final List<Map.Entry<RedHxDbChassisId, RedHxChassis>> retVal = new ArrayList<>(idList.size());
+
+    for (RedHxDbChassisId chassisId : idList) {
+      final RedHxChassis chassis = chassisOperations.getChassis(chassisId);
+
+      if (chassis != null) {
+        retVal.add(new AbstractMap.SimpleImmutableEntry<>(chassisId, chassis));
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * pick the rows the query scans. An index is used when the filter requires the ID, SerialNumber
+   * or Health to equal a literal, otherwise every chassis in a snapshot of the inventory is
+   * scanned in id order. The filter is still evaluated on each row.
+   */
+  private Iterator<Map.Entry<RedHxDbChassisId, RedHxChassis>> getRowIterator(
+      final RedHxQuery<Map.Entry<RedHxDbChassisId, RedHxChassis>> query) {
+    final Object idValue = query.getEqualityValue(RedHxChassisPropertyEnum.ID);
+    final Object serialNumberValue = query.getEqualityValue(RedHxChassisPropertyEnum.SERIAL_NUMBER);
+    final Object healthValue = query.getEqualityValue(RedHxChassisPropertyEnum.HEALTH);
+    final List<RedHxDbChassisId> idList;
+
+    if (idValue instanceof Number) {
+      final long sequenceNumber = ((Number) idValue).longValue();
+
+      if ((sequenceNumber < 1) || (sequenceNumber > Integer.MAX_VALUE)) {
+        idList = Collections.emptyList();
+      } else {
+        idList = Collections.singletonList(chassisOperations.getChassisId((int) sequenceNumber));
+      }
+    } else if (serialNumberValue instanceof String) {
+      idList = chassisOperations
+          .getChassisIdList(new RedHxChassisSerialNumberImpl((String) serialNumberValue));
+    } else if (healthValue instanceof String) {
+      final RedHxOperatingHealthEnum health =
+          RedHxOperatingHealthEnum.getInstance((String) healthValue);
+
+      if (health == null) {
+        idList = Collections.emptyList();
+      } else {
+        idList = chassisOperations.getChassisIdList(health);
+      }
+    } else {
+      return getSnapshotIterator(query.getScanStartKey());
+    }
+
+    return getRowList(idList).iterator();
+  }
+
+  /**
+   * write the chassis that changed after the version in a delta link. A chassis that still
+   * matches the $filter is written as an entity, one that was removed or no longer matches is
+   * written as a deleted entity. The delta ends with the link to the next changes.
+   */
+  private void readDelta(final ODataRequest request, final ODataResponse response,
+      final ContentType responseFormat,
+      final RedHxQuery<Map.Entry<RedHxDbChassisId, RedHxChassis>> query,
+      final EdmEntitySet edmEntitySet, final SelectOption selectOption, final String selectList,
+      final String deltaToken) throws ODataApplicationException {
+    if (!query.isDeltaSupported() || query.isCountRequested()
+        || (query.getScanStartKey() != null)) {
+      throw new ODataApplicationException(
+          "$orderby, $skip, $top, $count and $skiptoken can not be used with a delta link.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+    }
+
+    if (!isStreamed(responseFormat)) {
+      throw new ODataApplicationException(
+          "A delta response is only written as JSON with minimal or no metadata.",
+          HttpStatusCode.NOT_ACCEPTABLE.getStatusCode(), Locale.ROOT);
+    }
+
+    final RedHxDbChangeList<RedHxDbChassisId> changeList =
+        chassisOperations.getChassisChangeList(parseVersion(deltaToken));
+
+    if (changeList == null) {
+      throw new ODataApplicationException(
+          "The delta token " + deltaToken + " has expired, read the collection again.",
+          HttpStatusCode.GONE.getStatusCode(), Locale.ROOT);
+    }
+
+    final List<Map.Entry<RedHxDbChassisId, RedHxChassis>> rowList = new ArrayList<>();
+    final List<RedHxRemovedEntity> removedList = new ArrayList<>();
+
+    for (RedHxDbChassisId chassisId : changeList.getIdList()) {
+      final RedHxChassis chassis = chassisOperations.getChassis(chassisId);
+
+      if (chassis == null) {
+        removedList.add(new RedHxRemovedEntity(edmEntitySet.getName(),
+            chassisId.getSequenceNumber(), RedHxRemovedEntity.ReasonEnum.DELETED));
+      } else {
+        final Map.Entry<RedHxDbChassisId, RedHxChassis> row =
+            new AbstractMap.SimpleImmutableEntry<>(chassisId, chassis);
+
+        if (query.isMatch(row)) {
+          rowList.add(row);
+        } else {
+          removedList.add(new RedHxRemovedEntity(edmEntitySet.getName(),
+              chassisId.getSequenceNumber(), RedHxRemovedEntity.ReasonEnum.CHANGED));
+        }
+      }
+    }
+
+    final URI deltaLink = query.getDeltaLink(request, Long.toString(changeList.getVersion()));
+
+    try {
+      response.setContent(new RedHxJsonCollectionInputStream<>(
+          getContextUrl(responseFormat, edmEntitySet, selectList, "/$delta"), null, null,
+          deltaLink, rowList.iterator(), getSelectedPropertyList(selectOption), removedList));
+    } catch (IOException ex) {
+      throw new ODataApplicationException("The response could not be created.",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, ex);
+    }
+
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, responseFormat.toContentTypeString());
   }
 }
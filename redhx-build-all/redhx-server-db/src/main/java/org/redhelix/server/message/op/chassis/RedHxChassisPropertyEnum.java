@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ *
+ */
+package org.redhelix.server.message.op.chassis;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.util.RedHxStringProperty;
+import org.redhelix.server.db.RedHxDbChassisId;
+import org.redhelix.server.query.RedHxQueryProperty;
+
+/**
+ * the properties of the chassis entity type. Each property reads its value from the id and the
+ * chassis stored in the inventory, so the same definition creates the entity data model, evaluates
+ * a query and fills in the entities that are returned.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public enum RedHxChassisPropertyEnum
+    implements RedHxQueryProperty<Map.Entry<RedHxDbChassisId, RedHxChassis>> {
+  ID("ID", EdmPrimitiveTypeKind.Int32, "The id of the chassis in RedHelix.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return row.getKey().getSequenceNumber();
+    }
+  },
+  NAME("Name", EdmPrimitiveTypeKind.String, "The name of the chassis.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return getString(row.getValue().getChassisName());
+    }
+  },
+  DESCRIPTION("Description", EdmPrimitiveTypeKind.String, "The description of the chassis.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return getString(row.getValue().getChassisDescription());
+    }
+  },
+  ASSET_TAG("AssetTag", EdmPrimitiveTypeKind.String, "The asset tag set by the user.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return getString(row.getValue().getAssetTag());
+    }
+  },
+  MANUFACTURER("Manufacturer", EdmPrimitiveTypeKind.String, "The manufacturer of the chassis.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return getString(row.getValue().getManufacturerName());
+    }
+  },
+  MODEL("Model", EdmPrimitiveTypeKind.String, "The model number of the chassis.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return getString(row.getValue().getModelNumber());
+    }
+  },
+  SKU("SKU", EdmPrimitiveTypeKind.String, "The stock keeping unit of the chassis.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return getString(row.getValue().getSku());
+    }
+  },
+  SERIAL_NUMBER("SerialNumber", EdmPrimitiveTypeKind.String, "The serial number of the chassis.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return getString(row.getValue().getSerialNumber());
+    }
+  },
+  PART_NUMBER("PartNumber", EdmPrimitiveTypeKind.String, "The part number of the chassis.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return getString(row.getValue().getPartNumber());
+    }
+  },
+  INDICATOR_LED("IndicatorLED", EdmPrimitiveTypeKind.String,
+      "The state of the indicator LED.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return (row.getValue().getIndicatorLedState() == null) ? null
+          : row.getValue().getIndicatorLedState().getJsonKeyword();
+    }
+  },
+  HEALTH("Health", EdmPrimitiveTypeKind.String, "The health of the chassis.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return (row.getValue().getOperatingHealth() == null) ? null
+          : row.getValue().getOperatingHealth().getJsonKeyword();
+    }
+  },
+  STATE("State", EdmPrimitiveTypeKind.String, "The state of the chassis.") {
+    @Override
+    public Object getValue(final Map.Entry<RedHxDbChassisId, RedHxChassis> row) {
+      return (row.getValue().getOperatingState() == null) ? null
+          : row.getValue().getOperatingState().getJsonKeyword();
+    }
+  };
+
+  private static final Map<String, RedHxChassisPropertyEnum> NAME_MAP = createNameMap();
+  private final String desc;
+  private final String name;
+  private final EdmPrimitiveTypeKind type;
+
+  private RedHxChassisPropertyEnum(final String name, final EdmPrimitiveTypeKind type,
+      final String desc) {
+    this.name = name;
+    this.type = type;
+    this.desc = desc;
+  }
+
+  /**
+   * get every property by the name used in the entity data model.
+   *
+   * @return an unmodifiable map in the order the properties are declared. A null is not returned.
+   */
+  public static Map<String, RedHxChassisPropertyEnum> getNameMap() {
+    return NAME_MAP;
+  }
+
+  private static Map<String, RedHxChassisPropertyEnum> createNameMap() {
+    final Map<String, RedHxChassisPropertyEnum> map = new LinkedHashMap<>();
+
+    for (RedHxChassisPropertyEnum property : values()) {
+      map.put(property.name, property);
+    }
+
+    return Collections.unmodifiableMap(map);
+  }
+
+  private static String getString(final RedHxStringProperty property) {
+    return (property == null) ? null : property.getValue();
+  }
+
+  /**
+   * get a human readable description of the property.
+   *
+   * @return A null is not returned.
+   */
+  public String getDescription() {
+    return desc;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public EdmPrimitiveTypeKind getType() {
+    return type;
+  }
+}
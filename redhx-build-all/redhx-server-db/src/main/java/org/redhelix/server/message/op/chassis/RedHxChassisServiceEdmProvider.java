@@ -14,9 +14,9 @@
  */
 package org.redhelix.server.message.op.chassis;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
-import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import java.util.List;
 import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
 import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
 import org.apache.olingo.commons.api.edm.provider.CsdlPropertyRef;
@@ -47,30 +47,31 @@ public final class RedHxChassisServiceEdmProvider extends RedHxAbstractEdmEntity
   }
 
   /**
+   * create the chassis entity type. There is one property for each RedHxChassisPropertyEnum and
+   * the key is the RedHelix id of the chassis.
    *
-   *
-   * @return
+   * @return A null is not returned.
    */
   @Override
   public CsdlEntityType getEntityType() {
     // create EntityType properties
-    CsdlProperty id =
-        new CsdlProperty().setName("ID").setType(EdmPrimitiveTypeKind.Int32.getFullQualifiedName());
-    CsdlProperty name = new CsdlProperty().setName("Name")
-        .setType(EdmPrimitiveTypeKind.String.getFullQualifiedName());
-    CsdlProperty description = new CsdlProperty().setName("Description")
-        .setType(EdmPrimitiveTypeKind.String.getFullQualifiedName());
+    final List<CsdlProperty> propertyList = new ArrayList<>();
+
+    for (RedHxChassisPropertyEnum property : RedHxChassisPropertyEnum.values()) {
+      propertyList.add(new CsdlProperty().setName(property.getName())
+          .setType(property.getType().getFullQualifiedName()));
+    }
 
     // create CsdlPropertyRef for Key element
     CsdlPropertyRef propertyRef = new CsdlPropertyRef();
 
-    propertyRef.setName("ID");
+    propertyRef.setName(RedHxChassisPropertyEnum.ID.getName());
 
     // configure EntityType
     CsdlEntityType entityType = new CsdlEntityType();
 
     entityType.setName(ET_CHASSIS_NAME);
-    entityType.setProperties(Arrays.asList(id, name, description));
+    entityType.setProperties(propertyList);
     entityType.setKey(Collections.singletonList(propertyRef));
 
     return entityType;
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.metrics;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.redhelix.server.lib.metrics.RedHxFetchMetrics;
+import org.redhelix.server.lib.metrics.RedHxMetricsTextFormat;
+
+/**
+ * the scrape endpoint of the poll pipeline metrics. A GET returns the fetch latency, parse time,
+ * bytes, 304 Not Modified ratio and failures of each kind of Redfish resource, the responses by
+ * HTTP status, the scheduler lag and the gauges, in the Prometheus text format. The statistics of
+ * each Redfish server are added when the request parameter hosts is true, they are left out by
+ * default because a fleet has thousands of servers.
+ *
+ * When the servlet is initialized the metrics are also registered with the platform MBean server
+ * as {@link RedHxFetchMetrics#OBJECT_NAME}, so they can be read with a JMX console.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public class RedHxMetricsServlet extends HttpServlet {
+
+  private static final long serialVersionUID = 1L;
+  private transient boolean isMBeanRegistered;
+  private final transient RedHxFetchMetrics metrics;
+
+  /**
+   * create the servlet for the metrics shared by the process.
+   */
+  public RedHxMetricsServlet() {
+    this(RedHxFetchMetrics.getInstance());
+  }
+
+  /**
+   * create the servlet.
+   *
+   * @param metrics the metrics to expose. This shall not be null.
+   */
+  public RedHxMetricsServlet(final RedHxFetchMetrics metrics) {
+    if (metrics == null) {
+      throw new IllegalArgumentException("Argument \"metrics\" can not be null.");
+    }
+
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void destroy() {
+    if (isMBeanRegistered) {
+      metrics.unregisterMBean();
+      isMBeanRegistered = false;
+    }
+
+    super.destroy();
+  }
+
+  @Override
+  public String getServletInfo() {
+    return "RedHelix poll pipeline metrics";
+  }
+
+  @Override
+  public void init() throws ServletException {
+    super.init();
+    isMBeanRegistered = metrics.registerMBean();
+  }
+
+  @Override
+  protected void doGet(final HttpServletRequest req, final HttpServletResponse resp)
+      throws ServletException, IOException {
+    final boolean isHostIncluded = Boolean.parseBoolean(req.getParameter("hosts"));
+
+    resp.setStatus(HttpServletResponse.SC_OK);
+    resp.setContentType(RedHxMetricsTextFormat.CONTENT_TYPE);
+    resp.setHeader("Cache-Control", "no-cache");
+
+    final Writer writer = new OutputStreamWriter(resp.getOutputStream(), StandardCharsets.UTF_8);
+
+    RedHxMetricsTextFormat.write(metrics, isHostIncluded, writer);
+  }
+}
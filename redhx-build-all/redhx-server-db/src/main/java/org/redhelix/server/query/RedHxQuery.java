@@ -0,0 +1,594 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.query;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.redhelix.core.annotations.Immutable;
+import org.redhelix.server.query.RedHxQueryExpressionCompiler.AndExpression;
+import org.redhelix.server.query.RedHxQueryExpressionCompiler.ComparisonExpression;
+import org.redhelix.server.query.RedHxQueryExpressionCompiler.ConstantExpression;
+import org.redhelix.server.query.RedHxQueryExpressionCompiler.PropertyExpression;
+
+/**
+ * the system query options $filter, $orderby, $skip, $top and $count of one request, evaluated
+ * against the rows of the inventory rather than against Olingo entities. Only the rows that are
+ * returned need to be converted to entities and serialized.
+ *
+ * The caller picks the rows to scan. When the filter requires a property to equal a literal,
+ * {@link #getEqualityValue(RedHxQueryProperty)} returns the literal so an index of the inventory
+ * can be used instead of the whole inventory. Without $orderby and $count the scan stops as soon
+ * as a page is full. With $orderby only the rows of the page are kept while the rows are scanned.
+ *
+ * A result has no more rows than the page size. If more rows match, the result has a $skiptoken
+ * that holds the $orderby values and the key of the last row. The next page starts after that
+ * position in the sort order, so paging is not disturbed by rows that are added or removed between
+ * pages.
+ *
+ * A query without $orderby, $skip and $top can be tracked. The last page then has a delta link,
+ * reading it returns the rows that changed after the first page was read.
+ *
+ * @param <R> the type of row in the inventory.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@Immutable
+public final class RedHxQuery<R> {
+
+  /**
+   * the custom query option of a delta link. Olingo does not accept $deltatoken so the version of
+   * the inventory is sent in a custom query option, a delta link is opaque to the client.
+   */
+  public static final String DELTA_TOKEN_OPTION = "deltatoken";
+
+  /**
+   * the custom query option that the next link of a tracked read carries. It holds the version of
+   * the inventory when the first page was read, the delta link of the last page starts there.
+   */
+  public static final String TRACK_CHANGES_OPTION = "trackchanges";
+  private static final String[] DELTA_OPTION_ARRAY =
+      {"$count", "$skip", "$skiptoken", "$top", DELTA_TOKEN_OPTION, TRACK_CHANGES_OPTION};
+  private static final String[] PAGING_OPTION_ARRAY = {"$skip", "$skiptoken", "$top"};
+  private final Object[] afterKeyArray;
+  private final boolean[] descendingArray;
+  private final RedHxQueryExpression<R> filter;
+  private final boolean isCountRequested;
+  private final RedHxQueryProperty<R> keyProperty;
+  private final List<RedHxQueryExpression<R>> orderByList;
+  private final int skip;
+  private final int top;
+
+  private RedHxQuery(final RedHxQueryExpression<R> filter,
+      final List<RedHxQueryExpression<R>> orderByList, final boolean[] descendingArray,
+      final RedHxQueryProperty<R> keyProperty, final Object[] afterKeyArray, final int skip,
+      final int top, final boolean isCountRequested) {
+    this.filter = filter;
+    this.orderByList = orderByList;
+    this.descendingArray = descendingArray;
+    this.keyProperty = keyProperty;
+    this.afterKeyArray = afterKeyArray;
+    this.skip = skip;
+    this.top = top;
+    this.isCountRequested = isCountRequested;
+  }
+
+  private RedHxQuery() {
+    this.filter = null;
+    this.orderByList = null;
+    this.descendingArray = null;
+    this.keyProperty = null;
+    this.afterKeyArray = null;
+    this.skip = 0;
+    this.top = 0;
+    this.isCountRequested = false;
+  }
+
+  /**
+   * create the query of a request.
+   *
+   * @param <R> the type of row in the inventory.
+   * @param uriInfo the parsed URI of the request. This shall not be null.
+   * @param propertyMap the properties of the entity type by name. This shall not be null.
+   * @param keyProperty the key of the entity type. The rows the query scans are in ascending order
+   *        of the key and it orders rows that $orderby finds equal so the result is the same each
+   *        time. This shall not be null.
+   * @return A null is not returned.
+   * @throws ODataApplicationException if a query option uses an expression that is not supported
+   *         or the $skiptoken is not valid.
+   */
+  public static <R> RedHxQuery<R> create(final UriInfo uriInfo,
+      final Map<String, ? extends RedHxQueryProperty<R>> propertyMap,
+      final RedHxQueryProperty<R> keyProperty) throws ODataApplicationException {
+    if (uriInfo == null) {
+      throw new IllegalArgumentException("Argument \"uriInfo\" can not be null.");
+    }
+
+    if (propertyMap == null) {
+      throw new IllegalArgumentException("Argument \"propertyMap\" can not be null.");
+    }
+
+    if (keyProperty == null) {
+      throw new IllegalArgumentException("Argument \"keyProperty\" can not be null.");
+    }
+
+    final RedHxQueryExpressionCompiler<R> compiler =
+        new RedHxQueryExpressionCompiler<>(propertyMap);
+    final RedHxQueryExpression<R> filter;
+    final List<RedHxQueryExpression<R>> orderByList = new ArrayList<>();
+    final boolean[] descendingArray;
+
+    if (uriInfo.getFilterOption() == null) {
+      filter = null;
+    } else {
+      filter = compiler.compile(uriInfo.getFilterOption().getExpression());
+    }
+
+    if (uriInfo.getOrderByOption() == null) {
+      descendingArray = new boolean[0];
+    } else {
+      final List<OrderByItem> itemList = uriInfo.getOrderByOption().getOrders();
+
+      descendingArray = new boolean[itemList.size()];
+
+      for (int i = 0; i < itemList.size(); ++i) {
+        orderByList.add(compiler.compile(itemList.get(i).getExpression()));
+        descendingArray[i] = itemList.get(i).isDescending();
+      }
+    }
+
+    final int skip = (uriInfo.getSkipOption() == null) ? 0 : uriInfo.getSkipOption().getValue();
+    final int top =
+        (uriInfo.getTopOption() == null) ? Integer.MAX_VALUE : uriInfo.getTopOption().getValue();
+    final boolean isCountRequested =
+        (uriInfo.getCountOption() != null) && uriInfo.getCountOption().getValue();
+    final Object[] afterKeyArray;
+
+    if (uriInfo.getSkipTokenOption() == null) {
+      afterKeyArray = null;
+    } else {
+      afterKeyArray =
+          RedHxSkipToken.decode(uriInfo.getSkipTokenOption().getValue(), orderByList.size() + 1);
+    }
+
+    return new RedHxQuery<>(filter, Collections.unmodifiableList(orderByList), descendingArray,
+        keyProperty, afterKeyArray, Math.max(0, skip), Math.max(0, top), isCountRequested);
+  }
+
+  /**
+   * create a link from the request URI without some query options.
+   */
+  private static StringBuilder createLink(final ODataRequest request,
+      final String[] droppedOptionArray) {
+    final StringBuilder retVal = new StringBuilder(request.getRawBaseUri());
+    final String rawQuery = request.getRawQueryPath();
+    char separator = '?';
+
+    retVal.append(request.getRawODataPath());
+
+    if (rawQuery != null) {
+      for (String option : rawQuery.split("&")) {
+        final int equals = option.indexOf('=');
+        final String name = decodeName((equals < 0) ? option : option.substring(0, equals));
+
+        if (!option.isEmpty() && !Arrays.asList(droppedOptionArray).contains(name)) {
+          retVal.append(separator).append(option);
+          separator = '&';
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  private static String decodeName(final String name) {
+    try {
+      return URLDecoder.decode(name, StandardCharsets.UTF_8.name());
+    } catch (UnsupportedEncodingException | IllegalArgumentException ex) {
+      return name;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <R> Object findEqualityValue(final RedHxQueryExpression<R> expression,
+      final RedHxQueryProperty<R> property) {
+    Object retVal = null;
+
+    if (expression instanceof AndExpression) {
+      final AndExpression<R> and = (AndExpression<R>) expression;
+
+      retVal = findEqualityValue(and.getLeft(), property);
+
+      if (retVal == null) {
+        retVal = findEqualityValue(and.getRight(), property);
+      }
+    } else if (expression instanceof ComparisonExpression) {
+      final ComparisonExpression<R> comparison = (ComparisonExpression<R>) expression;
+
+      if (comparison.getOperator() == BinaryOperatorKind.EQ) {
+        retVal = getConstant(comparison.getLeft(), comparison.getRight(), property);
+
+        if (retVal == null) {
+          retVal = getConstant(comparison.getRight(), comparison.getLeft(), property);
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  private static <R> Object getConstant(final RedHxQueryExpression<R> member,
+      final RedHxQueryExpression<R> constant, final RedHxQueryProperty<R> property) {
+    Object retVal = null;
+
+    if ((member instanceof PropertyExpression) && (constant instanceof ConstantExpression)
+        && ((PropertyExpression<R>) member).getProperty().equals(property)) {
+      retVal = ((ConstantExpression<R>) constant).getValue();
+    }
+
+    return retVal;
+  }
+
+  /**
+   * apply the query to rows of the inventory.
+   *
+   * @param rowIterator the rows to scan in ascending order of the key. It may be every row in the
+   *        inventory or only the rows found with an index.
+   * @param maxPageSize the largest number of rows to return. This shall be greater than zero.
+   * @return A null is not returned.
+   * @throws ODataApplicationException if the filter or order can not be evaluated for a row.
+   */
+  public RedHxQueryResult<R> execute(final Iterator<? extends R> rowIterator,
+      final int maxPageSize) throws ODataApplicationException {
+    if (maxPageSize < 1) {
+      throw new IllegalArgumentException(
+          "Argument \"maxPageSize\" must be greater than zero, not " + maxPageSize);
+    }
+
+    final RedHxQueryResult<R> retVal;
+
+    if (top == 0) {
+      retVal = executeEmpty(rowIterator);
+    } else if (orderByList.isEmpty()) {
+      retVal = executeInKeyOrder(rowIterator, Math.min(top, maxPageSize));
+    } else {
+      retVal = executeSorted(rowIterator, Math.min(top, maxPageSize));
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the literal a property must equal for a row to match the filter. Only comparisons joined
+   * by "and" at the top of the filter are used, a comparison under "or" or "not" is not.
+   *
+   * @param property the property that can be looked up with an index.
+   * @return A null is returned if the filter does not require the property to equal a literal.
+   */
+  public Object getEqualityValue(final RedHxQueryProperty<R> property) {
+    final Object retVal;
+
+    if (filter == null) {
+      retVal = null;
+    } else {
+      retVal = findEqualityValue(filter, property);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * create the link a client reads to get the changes after a version of the inventory. The link is
+   * the request URI with the paging options and $count removed, so it keeps the $filter and $select
+   * of the collection.
+   *
+   * @param request the request the collection or the changes were read for.
+   * @param deltaToken the version of the inventory the client has read. This shall not be null.
+   * @return A null is not returned.
+   */
+  public URI getDeltaLink(final ODataRequest request, final String deltaToken) {
+    if (deltaToken == null) {
+      throw new IllegalArgumentException("Argument \"deltaToken\" can not be null.");
+    }
+
+    final StringBuilder buf = createLink(request, DELTA_OPTION_ARRAY);
+
+    buf.append((buf.indexOf("?") < 0) ? '?' : '&').append(DELTA_TOKEN_OPTION).append('=')
+        .append(deltaToken);
+
+    return URI.create(buf.toString());
+  }
+
+  /**
+   * create the link to the next page of a result. The link is the request URI with the
+   * $skiptoken of the result, $skip removed because it was applied to this page and $top reduced
+   * by the rows of this page.
+   *
+   * @param request the request the result was read for.
+   * @param result the result of {@link #execute(Iterator, int)}.
+   * @return A null is returned if the result is the last page.
+   */
+  public URI getNextLink(final ODataRequest request, final RedHxQueryResult<R> result) {
+    if (result.getSkipToken() == null) {
+      return null;
+    }
+
+    final StringBuilder buf = createLink(request, PAGING_OPTION_ARRAY);
+    char separator = (buf.indexOf("?") < 0) ? '?' : '&';
+
+    if (top != Integer.MAX_VALUE) {
+      buf.append(separator).append("$top=").append(top - result.getRowList().size());
+      separator = '&';
+    }
+
+    buf.append(separator).append("$skiptoken=").append(result.getSkipToken());
+
+    return URI.create(buf.toString());
+  }
+
+  /**
+   * get the key of the row a page starts after when the rows are scanned in key order. Rows with a
+   * smaller or equal key can be left out of the scan. This is only returned when there is no
+   * $orderby and no $count, because the count includes the rows before the page.
+   *
+   * @return A null is returned if every row must be scanned.
+   */
+  public Object getScanStartKey() {
+    final Object retVal;
+
+    if ((afterKeyArray != null) && orderByList.isEmpty() && !isCountRequested) {
+      retVal = afterKeyArray[afterKeyArray.length - 1];
+    } else {
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the value of $skip.
+   *
+   * @return zero if $skip was not in the request.
+   */
+  public int getSkip() {
+    return skip;
+  }
+
+  /**
+   * get the value of $top.
+   *
+   * @return Integer.MAX_VALUE if $top was not in the request.
+   */
+  public int getTop() {
+    return top;
+  }
+
+  /**
+   * test if $count=true was in the request.
+   *
+   * @return true if the number of rows that match the filter is returned.
+   */
+  public boolean isCountRequested() {
+    return isCountRequested;
+  }
+
+  /**
+   * test if the changes to the result of the query can be read with a delta link. The rows of a
+   * delta are not ordered or counted, so a query with $orderby, $skip or $top has no delta link.
+   *
+   * @return true if the query has no $orderby, $skip or $top.
+   */
+  public boolean isDeltaSupported() {
+    return orderByList.isEmpty() && (skip == 0) && (top == Integer.MAX_VALUE);
+  }
+
+  /**
+   * test if a row matches the $filter.
+   *
+   * @param row the row to test.
+   * @return true if the query has no $filter or the filter is true for the row.
+   * @throws ODataApplicationException if the filter can not be evaluated for the row.
+   */
+  public boolean isMatch(final R row) throws ODataApplicationException {
+    return (filter == null) || Boolean.TRUE.equals(filter.evaluate(row));
+  }
+
+  /**
+   * the result of $top=0, which has no rows. The rows are only scanned if they must be counted.
+   */
+  private RedHxQueryResult<R> executeEmpty(final Iterator<? extends R> rowIterator)
+      throws ODataApplicationException {
+    int count = 0;
+
+    if (isCountRequested) {
+      while (rowIterator.hasNext()) {
+        if (isMatch(rowIterator.next())) {
+          ++count;
+        }
+      }
+    }
+
+    return createResult(Collections.<R>emptyList(), count, false);
+  }
+
+  private RedHxQueryResult<R> executeInKeyOrder(final Iterator<? extends R> rowIterator,
+      final int pageSize) throws ODataApplicationException {
+    final List<R> pageList = new ArrayList<>();
+    boolean hasMore = false;
+    int count = 0;
+    int pageMatchCount = 0;
+
+    while (rowIterator.hasNext()) {
+      final R row = rowIterator.next();
+
+      if (isMatch(row)) {
+        ++count;
+
+        if ((afterKeyArray == null) || (compareKeyArrays(getSortKeyArray(row), afterKeyArray) > 0)) {
+          ++pageMatchCount;
+
+          if (pageMatchCount > skip) {
+            if (pageList.size() < pageSize) {
+              pageList.add(row);
+            } else {
+              hasMore = pageSize < top;
+
+              if (!isCountRequested) {
+                break;
+              }
+            }
+          }
+        }
+
+        if (!isCountRequested && (pageList.size() >= pageSize) && (pageSize >= top)) {
+          break;
+        }
+      }
+    }
+
+    return createResult(pageList, count, hasMore);
+  }
+
+  private RedHxQueryResult<R> executeSorted(final Iterator<? extends R> rowIterator,
+      final int pageSize) throws ODataApplicationException {
+
+    // one row more than the page is kept to know if there is a next page
+    final long limit = (long) skip + pageSize + 1;
+    final Comparator<SortRow<R>> comparator = new SortRowComparator();
+    final PriorityQueue<SortRow<R>> heap = new PriorityQueue<>(
+        (int) Math.max(1, Math.min(limit, 1024)), Collections.reverseOrder(comparator));
+    final List<SortRow<R>> sortList;
+    int count = 0;
+
+    /*
+     * the heap holds the smallest rows seen so far with the largest on top, a row that is larger
+     * than every row kept is dropped as soon as it is read.
+     */
+    while (rowIterator.hasNext()) {
+      final R row = rowIterator.next();
+
+      if (isMatch(row)) {
+        ++count;
+
+        final SortRow<R> sortRow = new SortRow<>(row, getSortKeyArray(row));
+
+        if ((afterKeyArray != null) && (compareKeyArrays(sortRow.keyArray, afterKeyArray) <= 0)) {
+          continue;
+        }
+
+        if (heap.size() < limit) {
+          heap.add(sortRow);
+        } else if (comparator.compare(sortRow, heap.peek()) < 0) {
+          heap.poll();
+          heap.add(sortRow);
+        }
+      }
+    }
+
+    sortList = new ArrayList<>(heap);
+    Collections.sort(sortList, comparator);
+
+    final List<R> pageList = new ArrayList<>();
+    final int end = Math.min(sortList.size(), skip + pageSize);
+
+    for (int i = skip; i < end; ++i) {
+      pageList.add(sortList.get(i).row);
+    }
+
+    return createResult(pageList, count, (sortList.size() > end) && (pageSize < top));
+  }
+
+  /**
+   * compare the sort keys of two rows, the $orderby values in the requested direction followed by
+   * the key in ascending order.
+   */
+  private int compareKeyArrays(final Object[] left, final Object[] right) {
+    for (int i = 0; i < left.length; ++i) {
+      final int compare = RedHxQueryExpressionCompiler.compareValues(left[i], right[i]);
+
+      if (compare != 0) {
+        return ((i < descendingArray.length) && descendingArray[i]) ? -compare : compare;
+      }
+    }
+
+    return 0;
+  }
+
+  private RedHxQueryResult<R> createResult(final List<R> pageList, final int count,
+      final boolean hasMore) throws ODataApplicationException {
+    final String skipToken;
+
+    if (hasMore && !pageList.isEmpty()) {
+      skipToken = RedHxSkipToken.encode(getSortKeyArray(pageList.get(pageList.size() - 1)));
+    } else {
+      skipToken = null;
+    }
+
+    return new RedHxQueryResult<>(pageList, isCountRequested ? Integer.valueOf(count) : null,
+        skipToken);
+  }
+
+  private Object[] getSortKeyArray(final R row) throws ODataApplicationException {
+    final Object[] retVal = new Object[orderByList.size() + 1];
+
+    for (int i = 0; i < orderByList.size(); ++i) {
+      retVal[i] = orderByList.get(i).evaluate(row);
+    }
+
+    retVal[orderByList.size()] = keyProperty.getValue(row);
+
+    return retVal;
+  }
+
+  /**
+   * a row and the values of the $orderby expressions and the key for the row. The values are read
+   * once so sorting does not evaluate the expressions again.
+   */
+  private static final class SortRow<R> {
+
+    private final Object[] keyArray;
+    private final R row;
+
+    SortRow(final R row, final Object[] keyArray) {
+      this.row = row;
+      this.keyArray = keyArray;
+    }
+  }
+
+  /**
+   * the order of $orderby followed by the order of the key.
+   */
+  private final class SortRowComparator implements Comparator<SortRow<R>> {
+
+    @Override
+    public int compare(final SortRow<R> left, final SortRow<R> right) {
+      return compareKeyArrays(left.keyArray, right.keyArray);
+    }
+  }
+}
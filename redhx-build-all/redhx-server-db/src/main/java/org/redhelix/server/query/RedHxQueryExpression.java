@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.query;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * a $filter or $orderby expression compiled once for a request and then evaluated for each row.
+ *
+ * @param <R> the type of row in the inventory.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public interface RedHxQueryExpression<R> {
+
+  /**
+   * evaluate the expression for a row.
+   *
+   * @param row the row in the inventory. This shall not be null.
+   * @return the value of the expression. A null is returned if the value is the OData null.
+   * @throws ODataApplicationException if the expression can not be evaluated for the row.
+   */
+  Object evaluate(R row) throws ODataApplicationException;
+}
@@ -0,0 +1,548 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.query;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+import org.redhelix.core.annotations.NotThreadSafe;
+
+/**
+ * compile the expression tree Olingo parsed from $filter or $orderby into a tree of
+ * RedHxQueryExpression. Members are resolved to a RedHxQueryProperty and literals are converted to
+ * Java values once, so evaluating a row only reads the properties the expression uses.
+ *
+ * The comparison and logical operators and the string methods are supported. Arithmetic, lambda
+ * and type expressions are answered with 501 Not Implemented.
+ *
+ * @param <R> the type of row in the inventory.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@NotThreadSafe
+final class RedHxQueryExpressionCompiler<R> implements ExpressionVisitor<RedHxQueryExpression<R>> {
+
+  private final Map<String, ? extends RedHxQueryProperty<R>> propertyMap;
+
+  RedHxQueryExpressionCompiler(final Map<String, ? extends RedHxQueryProperty<R>> propertyMap) {
+    this.propertyMap = propertyMap;
+  }
+
+  private RedHxQueryExpressionCompiler() {
+    this.propertyMap = null;
+  }
+
+  /**
+   * compare two values of an expression. Numbers of different classes are compared by value. A
+   * null is less than every other value.
+   *
+   * @return a negative number, zero or a positive number.
+   */
+  @SuppressWarnings("unchecked")
+  static int compareValues(final Object left, final Object right) {
+    final int retVal;
+
+    if (left == null) {
+      retVal = (right == null) ? 0 : -1;
+    } else if (right == null) {
+      retVal = 1;
+    } else if ((left instanceof Number) && (right instanceof Number)) {
+      retVal = compareNumbers((Number) left, (Number) right);
+    } else if ((left instanceof Comparable) && left.getClass().equals(right.getClass())) {
+      retVal = ((Comparable<Object>) left).compareTo(right);
+    } else {
+      retVal = left.toString().compareTo(right.toString());
+    }
+
+    return retVal;
+  }
+
+  /**
+   * compile an expression.
+   *
+   * @param expression the expression parsed by Olingo.
+   * @return A null is not returned.
+   * @throws ODataApplicationException if the expression is not supported.
+   */
+  RedHxQueryExpression<R> compile(final Expression expression) throws ODataApplicationException {
+    try {
+      return expression.accept(this);
+    } catch (ExpressionVisitException ex) {
+      throw new ODataApplicationException(ex.getMessage(),
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, ex);
+    }
+  }
+
+  @Override
+  public RedHxQueryExpression<R> visitAlias(final String aliasName)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Parameter aliases");
+  }
+
+  @Override
+  public RedHxQueryExpression<R> visitBinaryOperator(final BinaryOperatorKind operator,
+      final RedHxQueryExpression<R> left, final RedHxQueryExpression<R> right)
+      throws ExpressionVisitException, ODataApplicationException {
+    final RedHxQueryExpression<R> retVal;
+
+    switch (operator) {
+      case AND:
+        retVal = new AndExpression<>(left, right);
+        break;
+
+      case OR:
+        retVal = new OrExpression<>(left, right);
+        break;
+
+      case EQ:
+      case NE:
+      case GT:
+      case GE:
+      case LT:
+      case LE:
+        retVal = new ComparisonExpression<>(operator, left, right);
+        break;
+
+      default:
+        throw notImplemented("The operator " + operator);
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public RedHxQueryExpression<R> visitEnum(final EdmEnumType type, final List<String> enumValues)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Enumeration literals");
+  }
+
+  @Override
+  public RedHxQueryExpression<R> visitLambdaExpression(final String lambdaFunction,
+      final String lambdaVariable, final Expression expression)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Lambda expressions");
+  }
+
+  @Override
+  public RedHxQueryExpression<R> visitLambdaReference(final String variableName)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Lambda expressions");
+  }
+
+  @Override
+  public RedHxQueryExpression<R> visitLiteral(final Literal literal)
+      throws ExpressionVisitException, ODataApplicationException {
+    final EdmType type = literal.getType();
+    final Object value;
+
+    if (type == null) {
+
+      // the only literal without a type is null
+      value = null;
+    } else if (type instanceof EdmPrimitiveType) {
+      final EdmPrimitiveType primitiveType = (EdmPrimitiveType) type;
+
+      try {
+        value = primitiveType.valueOfString(primitiveType.fromUriLiteral(literal.getText()), null,
+            null, null, null, null, primitiveType.getDefaultType());
+      } catch (EdmPrimitiveTypeException ex) {
+        throw new ODataApplicationException("The literal " + literal.getText() + " is not valid.",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, ex);
+      }
+    } else {
+      throw notImplemented("The literal " + literal.getText());
+    }
+
+    return new ConstantExpression<R>(value);
+  }
+
+  @Override
+  public RedHxQueryExpression<R> visitMember(final UriInfoResource member)
+      throws ExpressionVisitException, ODataApplicationException {
+    final List<UriResource> partList = member.getUriResourceParts();
+
+    if ((partList.size() != 1) || !(partList.get(0) instanceof UriResourcePrimitiveProperty)) {
+      throw notImplemented("Only primitive properties of the entity may be used, the member "
+          + partList);
+    }
+
+    final String name = ((UriResourcePrimitiveProperty) partList.get(0)).getProperty().getName();
+    final RedHxQueryProperty<R> property = propertyMap.get(name);
+
+    if (property == null) {
+      throw notImplemented("The property " + name);
+    }
+
+    return new PropertyExpression<>(property);
+  }
+
+  @Override
+  public RedHxQueryExpression<R> visitMethodCall(final MethodKind methodCall,
+      final List<RedHxQueryExpression<R>> parameterList)
+      throws ExpressionVisitException, ODataApplicationException {
+    switch (methodCall) {
+      case CONTAINS:
+      case STARTSWITH:
+      case ENDSWITH:
+      case LENGTH:
+      case INDEXOF:
+      case SUBSTRING:
+      case TOLOWER:
+      case TOUPPER:
+      case TRIM:
+      case CONCAT:
+        break;
+
+      default:
+        throw notImplemented("The method " + methodCall);
+    }
+
+    return new MethodExpression<>(methodCall, parameterList);
+  }
+
+  @Override
+  public RedHxQueryExpression<R> visitTypeLiteral(final EdmType type)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Type literals");
+  }
+
+  @Override
+  public RedHxQueryExpression<R> visitUnaryOperator(final UnaryOperatorKind operator,
+      final RedHxQueryExpression<R> operand)
+      throws ExpressionVisitException, ODataApplicationException {
+    if (operator != UnaryOperatorKind.NOT) {
+      throw notImplemented("The operator " + operator);
+    }
+
+    return new NotExpression<>(operand);
+  }
+
+  private static int compareNumbers(final Number left, final Number right) {
+    final int retVal;
+
+    if (isIntegral(left) && isIntegral(right)) {
+      retVal = Long.compare(left.longValue(), right.longValue());
+    } else if ((left instanceof Double) || (left instanceof Float) || (right instanceof Double)
+        || (right instanceof Float)) {
+      retVal = Double.compare(left.doubleValue(), right.doubleValue());
+    } else {
+      retVal = new BigDecimal(left.toString()).compareTo(new BigDecimal(right.toString()));
+    }
+
+    return retVal;
+  }
+
+  private static boolean isIntegral(final Number value) {
+    return (value instanceof Integer) || (value instanceof Long) || (value instanceof Short)
+        || (value instanceof Byte);
+  }
+
+  private static ODataApplicationException notImplemented(final String what) {
+    return new ODataApplicationException(what + " is not supported in a query.",
+        HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+
+  /**
+   * true only if both sides are true. The right side is not evaluated if the left side is not true.
+   */
+  static final class AndExpression<R> implements RedHxQueryExpression<R> {
+
+    private final RedHxQueryExpression<R> left;
+    private final RedHxQueryExpression<R> right;
+
+    AndExpression(final RedHxQueryExpression<R> left, final RedHxQueryExpression<R> right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public Object evaluate(final R row) throws ODataApplicationException {
+      return Boolean.TRUE.equals(left.evaluate(row)) && Boolean.TRUE.equals(right.evaluate(row));
+    }
+
+    RedHxQueryExpression<R> getLeft() {
+      return left;
+    }
+
+    RedHxQueryExpression<R> getRight() {
+      return right;
+    }
+  }
+
+  /**
+   * eq, ne, gt, ge, lt and le. Only eq and ne are true when a side is null.
+   */
+  static final class ComparisonExpression<R> implements RedHxQueryExpression<R> {
+
+    private final RedHxQueryExpression<R> left;
+    private final BinaryOperatorKind operator;
+    private final RedHxQueryExpression<R> right;
+
+    ComparisonExpression(final BinaryOperatorKind operator, final RedHxQueryExpression<R> left,
+        final RedHxQueryExpression<R> right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public Object evaluate(final R row) throws ODataApplicationException {
+      final Object leftValue = left.evaluate(row);
+      final Object rightValue = right.evaluate(row);
+      final boolean retVal;
+
+      if ((leftValue == null) || (rightValue == null)) {
+        if (operator == BinaryOperatorKind.EQ) {
+          retVal = leftValue == rightValue;
+        } else if (operator == BinaryOperatorKind.NE) {
+          retVal = leftValue != rightValue;
+        } else {
+          retVal = false;
+        }
+      } else {
+        final int compare = compareValues(leftValue, rightValue);
+
+        switch (operator) {
+          case EQ:
+            retVal = compare == 0;
+            break;
+
+          case NE:
+            retVal = compare != 0;
+            break;
+
+          case GT:
+            retVal = compare > 0;
+            break;
+
+          case GE:
+            retVal = compare >= 0;
+            break;
+
+          case LT:
+            retVal = compare < 0;
+            break;
+
+          default:
+            retVal = compare <= 0;
+            break;
+        }
+      }
+
+      return retVal;
+    }
+
+    RedHxQueryExpression<R> getLeft() {
+      return left;
+    }
+
+    BinaryOperatorKind getOperator() {
+      return operator;
+    }
+
+    RedHxQueryExpression<R> getRight() {
+      return right;
+    }
+  }
+
+  /**
+   * a literal in the expression.
+   */
+  static final class ConstantExpression<R> implements RedHxQueryExpression<R> {
+
+    private final Object value;
+
+    ConstantExpression(final Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public Object evaluate(final R row) {
+      return value;
+    }
+
+    Object getValue() {
+      return value;
+    }
+  }
+
+  /**
+   * a string method. The value is null if a parameter is null.
+   */
+  static final class MethodExpression<R> implements RedHxQueryExpression<R> {
+
+    private final MethodKind method;
+    private final List<RedHxQueryExpression<R>> parameterList;
+
+    MethodExpression(final MethodKind method, final List<RedHxQueryExpression<R>> parameterList) {
+      this.method = method;
+      this.parameterList = parameterList;
+    }
+
+    @Override
+    public Object evaluate(final R row) throws ODataApplicationException {
+      final String[] valueArray = new String[parameterList.size()];
+
+      for (int i = 0; i < valueArray.length; ++i) {
+        final Object value = parameterList.get(i).evaluate(row);
+
+        if (value == null) {
+          return null;
+        }
+
+        valueArray[i] = value.toString();
+      }
+
+      final Object retVal;
+
+      switch (method) {
+        case CONTAINS:
+          retVal = valueArray[0].contains(valueArray[1]);
+          break;
+
+        case STARTSWITH:
+          retVal = valueArray[0].startsWith(valueArray[1]);
+          break;
+
+        case ENDSWITH:
+          retVal = valueArray[0].endsWith(valueArray[1]);
+          break;
+
+        case LENGTH:
+          retVal = valueArray[0].length();
+          break;
+
+        case INDEXOF:
+          retVal = valueArray[0].indexOf(valueArray[1]);
+          break;
+
+        case SUBSTRING:
+          retVal = substring(valueArray);
+          break;
+
+        case TOLOWER:
+          retVal = valueArray[0].toLowerCase(Locale.ROOT);
+          break;
+
+        case TOUPPER:
+          retVal = valueArray[0].toUpperCase(Locale.ROOT);
+          break;
+
+        case TRIM:
+          retVal = valueArray[0].trim();
+          break;
+
+        default:
+          retVal = valueArray[0] + valueArray[1];
+          break;
+      }
+
+      return retVal;
+    }
+
+    private static String substring(final String[] valueArray) throws ODataApplicationException {
+      final String value = valueArray[0];
+      final int start;
+      final int length;
+
+      try {
+        start = Math.min(Math.max(0, Integer.parseInt(valueArray[1])), value.length());
+        length = (valueArray.length > 2) ? Math.max(0, Integer.parseInt(valueArray[2]))
+            : value.length() - start;
+      } catch (NumberFormatException ex) {
+        throw new ODataApplicationException("The substring position is not an integer.",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, ex);
+      }
+
+      return value.substring(start, Math.min(value.length(), start + length));
+    }
+  }
+
+  /**
+   * true if the operand is false. The OData null stays null.
+   */
+  static final class NotExpression<R> implements RedHxQueryExpression<R> {
+
+    private final RedHxQueryExpression<R> operand;
+
+    NotExpression(final RedHxQueryExpression<R> operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    public Object evaluate(final R row) throws ODataApplicationException {
+      final Object value = operand.evaluate(row);
+
+      return (value instanceof Boolean) ? !((Boolean) value) : null;
+    }
+  }
+
+  /**
+   * true if either side is true. The right side is not evaluated if the left side is true.
+   */
+  static final class OrExpression<R> implements RedHxQueryExpression<R> {
+
+    private final RedHxQueryExpression<R> left;
+    private final RedHxQueryExpression<R> right;
+
+    OrExpression(final RedHxQueryExpression<R> left, final RedHxQueryExpression<R> right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public Object evaluate(final R row) throws ODataApplicationException {
+      return Boolean.TRUE.equals(left.evaluate(row)) || Boolean.TRUE.equals(right.evaluate(row));
+    }
+  }
+
+  /**
+   * a property of the row.
+   */
+  static final class PropertyExpression<R> implements RedHxQueryExpression<R> {
+
+    private final RedHxQueryProperty<R> property;
+
+    PropertyExpression(final RedHxQueryProperty<R> property) {
+      this.property = property;
+    }
+
+    @Override
+    public Object evaluate(final R row) {
+      return property.getValue(row);
+    }
+
+    RedHxQueryProperty<R> getProperty() {
+      return property;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.query;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+
+/**
+ * a primitive property of an entity type that a query can filter and order on. The value is read
+ * directly from the row stored in the inventory so no Olingo entity is created for a row that is
+ * not returned.
+ *
+ * @param <R> the type of row in the inventory, for example the id and the chassis.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public interface RedHxQueryProperty<R> {
+
+  /**
+   * get the name of the property in the entity data model.
+   *
+   * @return A null is not returned.
+   */
+  String getName();
+
+  /**
+   * get the type of the property in the entity data model.
+   *
+   * @return A null is not returned.
+   */
+  EdmPrimitiveTypeKind getType();
+
+  /**
+   * read the value of the property from a row.
+   *
+   * @param row the row in the inventory. This shall not be null.
+   * @return a String, Integer or Boolean. A null is returned if the row has no value.
+   */
+  Object getValue(R row);
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.query;
+
+import java.util.Collections;
+import java.util.List;
+import org.redhelix.core.annotations.Immutable;
+
+/**
+ * the rows a query returns after $filter, $orderby, $skip and $top and, if $count was requested,
+ * the number of rows that matched the filter. A result is one page, if more rows match it has the
+ * $skiptoken of the next page.
+ *
+ * @param <R> the type of row in the inventory.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@Immutable
+public final class RedHxQueryResult<R> {
+
+  private final Integer count;
+  private final List<R> rowList;
+  private final String skipToken;
+
+  RedHxQueryResult(final List<R> rowList, final Integer count, final String skipToken) {
+    this.rowList = Collections.unmodifiableList(rowList);
+    this.count = count;
+    this.skipToken = skipToken;
+  }
+
+  private RedHxQueryResult() {
+    this.rowList = null;
+    this.count = null;
+    this.skipToken = null;
+  }
+
+  /**
+   * get the number of rows that matched $filter before $skip and $top were applied.
+   *
+   * @return A null is returned if $count was not requested.
+   */
+  public Integer getCount() {
+    return count;
+  }
+
+  /**
+   * get the rows to return in the order requested by $orderby.
+   *
+   * @return A null is not returned.
+   */
+  public List<R> getRowList() {
+    return rowList;
+  }
+
+  /**
+   * get the $skiptoken of the next page.
+   *
+   * @return A null is returned if this is the last page.
+   */
+  public String getSkipToken() {
+    return skipToken;
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxQueryResult{" + "count=" + count + ", rowCount=" + rowList.size() + ", skipToken="
+        + skipToken + '}';
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.query;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * encode and decode the $skiptoken of a page. The token holds the $orderby values and the key of
+ * the last row of the page, the next page starts with the first row that sorts after them. Because
+ * the token is a position in the sort order and not a row number, rows added or removed while a
+ * client pages do not make the next page skip or repeat a row.
+ *
+ * Each value is written as a type code, the length of the text, a colon and the text. The result
+ * is base64url encoded so it can be put in a URL without escaping.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+final class RedHxSkipToken {
+
+  private static final char CODE_BOOLEAN = 'b';
+  private static final char CODE_DECIMAL = 'd';
+  private static final char CODE_DOUBLE = 'f';
+  private static final char CODE_INTEGER = 'i';
+  private static final char CODE_NULL = 'n';
+  private static final char CODE_STRING = 's';
+
+  private RedHxSkipToken() {}
+
+  /**
+   * decode a token.
+   *
+   * @param token the value of $skiptoken.
+   * @param valueCount the number of values the token must hold.
+   * @return A null is not returned.
+   * @throws ODataApplicationException if the token was not created by {@link #encode(Object[])}
+   *         for a query with the same $orderby.
+   */
+  static Object[] decode(final String token, final int valueCount)
+      throws ODataApplicationException {
+    final Object[] retVal = new Object[valueCount];
+    final String text;
+    int index = 0;
+
+    if (!Base64.isBase64(token)) {
+      throw invalidToken(token, null);
+    }
+
+    text = new String(Base64.decodeBase64(token), StandardCharsets.UTF_8);
+
+    try {
+      for (int i = 0; i < valueCount; ++i) {
+        final char code = text.charAt(index);
+        final int colon = text.indexOf(':', index);
+        final int length = Integer.parseInt(text.substring(index + 1, colon));
+        final String value = text.substring(colon + 1, colon + 1 + length);
+
+        switch (code) {
+          case CODE_NULL:
+            retVal[i] = null;
+            break;
+
+          case CODE_BOOLEAN:
+            retVal[i] = Boolean.valueOf(value);
+            break;
+
+          case CODE_INTEGER:
+            retVal[i] = Long.valueOf(value);
+            break;
+
+          case CODE_DECIMAL:
+            retVal[i] = new BigDecimal(value);
+            break;
+
+          case CODE_DOUBLE:
+            retVal[i] = Double.valueOf(value);
+            break;
+
+          case CODE_STRING:
+            retVal[i] = value;
+            break;
+
+          default:
+            throw invalidToken(token, null);
+        }
+
+        index = colon + 1 + length;
+      }
+    } catch (IndexOutOfBoundsException | NumberFormatException ex) {
+      throw invalidToken(token, ex);
+    }
+
+    if (index != text.length()) {
+      throw invalidToken(token, null);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * create a token.
+   *
+   * @param valueArray the $orderby values and the key of the last row of a page.
+   * @return A null is not returned.
+   */
+  static String encode(final Object[] valueArray) {
+    final StringBuilder buf = new StringBuilder();
+
+    for (Object value : valueArray) {
+      final char code;
+      final String text;
+
+      if (value == null) {
+        code = CODE_NULL;
+        text = "";
+      } else if (value instanceof Boolean) {
+        code = CODE_BOOLEAN;
+        text = value.toString();
+      } else if ((value instanceof Integer) || (value instanceof Long) || (value instanceof Short)
+          || (value instanceof Byte)) {
+        code = CODE_INTEGER;
+        text = value.toString();
+      } else if ((value instanceof Double) || (value instanceof Float)) {
+        code = CODE_DOUBLE;
+        text = Double.toString(((Number) value).doubleValue());
+      } else if (value instanceof Number) {
+        code = CODE_DECIMAL;
+        text = new BigDecimal(value.toString()).toPlainString();
+      } else {
+        code = CODE_STRING;
+        text = value.toString();
+      }
+
+      buf.append(code).append(text.length()).append(':').append(text);
+    }
+
+    return Base64.encodeBase64URLSafeString(buf.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static ODataApplicationException invalidToken(final String token, final Exception ex) {
+    return new ODataApplicationException("The $skiptoken " + token + " is not valid.",
+        HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, ex);
+  }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.serializer;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.redhelix.core.annotations.NotThreadSafe;
+import org.redhelix.server.query.RedHxQueryProperty;
+
+/**
+ * the OData JSON of an entity collection, created while the response is written. Olingo copies
+ * the content of a response to the servlet output stream, and this stream creates the JSON of the
+ * next few rows only when Olingo asks for more bytes. Because no Content-Length is known the
+ * servlet container sends the response with chunked transfer encoding. The first bytes are sent
+ * before any row is converted and the memory used does not depend on the number of rows.
+ *
+ * Only the primitive properties of a row are written, which is all the RedHelix entity types
+ * have. The caller uses the Olingo serializer for odata.metadata=full and for XML.
+ *
+ * A delta response also lists the entities removed from the collection after the rows, and ends
+ * with the @odata.deltaLink the client uses to ask for the next changes.
+ *
+ * @param <R> the type of row in the inventory.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@NotThreadSafe
+public final class RedHxJsonCollectionInputStream<R> extends InputStream {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  /**
+   * the JSON of rows is created until the buffer holds this many bytes.
+   */
+  private static final int FILL_SIZE = 8192;
+  private final ExposedByteArrayOutputStream buffer;
+  private final String contextUrl;
+  private final Integer count;
+  private final URI deltaLink;
+  private final JsonGenerator generator;
+  private final URI nextLink;
+  private final List<? extends RedHxQueryProperty<R>> propertyList;
+  private final List<RedHxRemovedEntity> removedList;
+  private final Iterator<? extends R> rowIterator;
+  private int position;
+  private StateEnum state;
+
+  /**
+   * create the stream.
+   *
+   * @param contextUrl the value of @odata.context. If null no context is written, as for
+   *        odata.metadata=none.
+   * @param count the value of @odata.count. If null no count is written.
+   * @param nextLink the value of @odata.nextLink. If null no next link is written.
+   * @param rowIterator the rows to write. A row is read only when its JSON is needed.
+   * @param propertyList the properties of each row to write, in order. This shall not be null.
+   * @throws IOException if the JSON generator can not be created.
+   */
+  public RedHxJsonCollectionInputStream(final String contextUrl, final Integer count,
+      final URI nextLink, final Iterator<? extends R> rowIterator,
+      final List<? extends RedHxQueryProperty<R>> propertyList) throws IOException {
+    this(contextUrl, count, nextLink, null, rowIterator, propertyList,
+        Collections.<RedHxRemovedEntity>emptyList());
+  }
+
+  /**
+   * create the stream of a collection that may be a delta response.
+   *
+   * @param contextUrl the value of @odata.context. If null no context is written, as for
+   *        odata.metadata=none.
+   * @param count the value of @odata.count. If null no count is written.
+   * @param nextLink the value of @odata.nextLink. If null no next link is written.
+   * @param deltaLink the value of @odata.deltaLink. If null no delta link is written.
+   * @param rowIterator the rows to write. A row is read only when its JSON is needed.
+   * @param propertyList the properties of each row to write, in order. This shall not be null.
+   * @param removedList the entities to write as deleted entities after the rows. This shall not be
+   *        null.
+   * @throws IOException if the JSON generator can not be created.
+   */
+  public RedHxJsonCollectionInputStream(final String contextUrl, final Integer count,
+      final URI nextLink, final URI deltaLink, final Iterator<? extends R> rowIterator,
+      final List<? extends RedHxQueryProperty<R>> propertyList,
+      final List<RedHxRemovedEntity> removedList) throws IOException {
+    if (rowIterator == null) {
+      throw new IllegalArgumentException("Argument \"rowIterator\" can not be null.");
+    }
+
+    if (propertyList == null) {
+      throw new IllegalArgumentException("Argument \"propertyList\" can not be null.");
+    }
+
+    if (removedList == null) {
+      throw new IllegalArgumentException("Argument \"removedList\" can not be null.");
+    }
+
+    this.contextUrl = contextUrl;
+    this.count = count;
+    this.nextLink = nextLink;
+    this.deltaLink = deltaLink;
+    this.rowIterator = rowIterator;
+    this.propertyList = propertyList;
+    this.removedList = removedList;
+    this.buffer = new ExposedByteArrayOutputStream(FILL_SIZE * 2);
+    this.generator = JSON_FACTORY.createGenerator(buffer, JsonEncoding.UTF8);
+    this.state = StateEnum.START;
+  }
+
+  private RedHxJsonCollectionInputStream() {
+    this.contextUrl = null;
+    this.count = null;
+    this.nextLink = null;
+    this.deltaLink = null;
+    this.rowIterator = null;
+    this.propertyList = null;
+    this.removedList = null;
+    this.buffer = null;
+    this.generator = null;
+  }
+
+  @Override
+  public int available() {
+    return buffer.size() - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    state = StateEnum.DONE;
+    generator.close();
+  }
+
+  @Override
+  public int read() throws IOException {
+    final int retVal;
+
+    if (!ensureAvailable()) {
+      retVal = -1;
+    } else {
+      retVal = buffer.getBuffer()[position++] & 0xff;
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public int read(final byte[] byteArray, final int offset, final int length) throws IOException {
+    final int retVal;
+
+    if (length == 0) {
+      retVal = 0;
+    } else if (!ensureAvailable()) {
+      retVal = -1;
+    } else {
+      retVal = Math.min(length, buffer.size() - position);
+      System.arraycopy(buffer.getBuffer(), position, byteArray, offset, retVal);
+      position += retVal;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * make sure there is a byte to read, creating the JSON of more rows if the buffer is empty.
+   *
+   * @return false at the end of the JSON.
+   */
+  private boolean ensureAvailable() throws IOException {
+    while (position >= buffer.size()) {
+      if (state == StateEnum.DONE) {
+        return false;
+      }
+
+      buffer.reset();
+      position = 0;
+      fill();
+    }
+
+    return true;
+  }
+
+  private void fill() throws IOException {
+    if (state == StateEnum.START) {
+      generator.writeStartObject();
+
+      if (contextUrl != null) {
+        generator.writeStringField("@odata.context", contextUrl);
+      }
+
+      if (count != null) {
+        generator.writeNumberField("@odata.count", count);
+      }
+
+      generator.writeArrayFieldStart("value");
+      state = StateEnum.ROWS;
+    }
+
+    while ((state == StateEnum.ROWS) && (buffer.size() < FILL_SIZE)) {
+      if (rowIterator.hasNext()) {
+        writeRow(rowIterator.next());
+        generator.flush();
+      } else {
+        for (RedHxRemovedEntity removed : removedList) {
+          writeRemoved(removed);
+        }
+
+        generator.writeEndArray();
+
+        if (nextLink != null) {
+          generator.writeStringField("@odata.nextLink", nextLink.toASCIIString());
+        }
+
+        if (deltaLink != null) {
+          generator.writeStringField("@odata.deltaLink", deltaLink.toASCIIString());
+        }
+
+        generator.writeEndObject();
+        generator.close();
+        state = StateEnum.DONE;
+      }
+    }
+
+    if (state != StateEnum.DONE) {
+      generator.flush();
+    }
+  }
+
+  private void writeRemoved(final RedHxRemovedEntity removed) throws IOException {
+    generator.writeStartObject();
+
+    if (contextUrl != null) {
+      generator.writeStringField("@odata.context", removed.getContextUrl());
+    }
+
+    generator.writeStringField("id", removed.getId());
+    generator.writeStringField("reason", removed.getReason().getDescription());
+    generator.writeEndObject();
+  }
+
+  private void writeRow(final R row) throws IOException {
+    generator.writeStartObject();
+
+    for (RedHxQueryProperty<R> property : propertyList) {
+      final Object value = property.getValue(row);
+
+      generator.writeFieldName(property.getName());
+
+      if (value == null) {
+        generator.writeNull();
+      } else if (value instanceof Integer) {
+        generator.writeNumber((Integer) value);
+      } else if (value instanceof Long) {
+        generator.writeNumber((Long) value);
+      } else if (value instanceof Boolean) {
+        generator.writeBoolean((Boolean) value);
+      } else {
+        generator.writeString(value.toString());
+      }
+    }
+
+    generator.writeEndObject();
+  }
+
+  private enum StateEnum {
+    START, ROWS, DONE
+  }
+
+  /**
+   * a ByteArrayOutputStream that lets the bytes be read without a copy.
+   */
+  private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+    ExposedByteArrayOutputStream(final int size) {
+      super(size);
+    }
+
+    byte[] getBuffer() {
+      return buf;
+    }
+  }
+}
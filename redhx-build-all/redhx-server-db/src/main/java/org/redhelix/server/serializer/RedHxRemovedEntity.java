@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.serializer;
+
+import org.redhelix.core.annotations.Immutable;
+
+/**
+ * an entity a delta response reports as removed from a collection, either because it was deleted
+ * or because it changed and no longer matches the $filter of the collection.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@Immutable
+public final class RedHxRemovedEntity {
+
+  private final String entitySetName;
+  private final Object key;
+  private final ReasonEnum reason;
+
+  /**
+   * create the entity.
+   *
+   * @param entitySetName the name of the entity set the entity was in. This shall not be null.
+   * @param key the key of the entity. This shall not be null.
+   * @param reason why the entity was removed. This shall not be null.
+   */
+  public RedHxRemovedEntity(final String entitySetName, final Object key,
+      final ReasonEnum reason) {
+    if (entitySetName == null) {
+      throw new IllegalArgumentException("Argument \"entitySetName\" can not be null.");
+    }
+
+    if (key == null) {
+      throw new IllegalArgumentException("Argument \"key\" can not be null.");
+    }
+
+    if (reason == null) {
+      throw new IllegalArgumentException("Argument \"reason\" can not be null.");
+    }
+
+    this.entitySetName = entitySetName;
+    this.key = key;
+    this.reason = reason;
+  }
+
+  private RedHxRemovedEntity() {
+    this.entitySetName = null;
+    this.key = null;
+    this.reason = null;
+  }
+
+  /**
+   * get the context URL of a deleted entity, relative to the service root.
+   *
+   * @return A null is not returned.
+   */
+  public String getContextUrl() {
+    return "$metadata#" + entitySetName + "/$deletedEntity";
+  }
+
+  /**
+   * get the id of the entity, for example chassis(5).
+   *
+   * @return A null is not returned.
+   */
+  public String getId() {
+    return entitySetName + "(" + key + ")";
+  }
+
+  /**
+   * get why the entity was removed.
+   *
+   * @return A null is not returned.
+   */
+  public ReasonEnum getReason() {
+    return reason;
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxRemovedEntity{" + "id=" + getId() + ", reason=" + reason + '}';
+  }
+
+  /**
+   * the reason of a removed entity as it is written in a delta response.
+   */
+  public enum ReasonEnum {
+
+    CHANGED("changed"), DELETED("deleted");
+
+    private final String desc;
+
+    private ReasonEnum(final String desc) {
+      this.desc = desc;
+    }
+
+    public String getDescription() {
+      return desc;
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package org.redhelix.core.chassis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+
+/**
+ * Store chassis column by column and read them back through the views of the collection.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class ChassisColumnCollectionTest
+{
+
+    private static void assertSameProperties(RedHxChassis expected,
+                                             RedHxChassis actual)
+    {
+        assertEquals(expected.getActionGroup(),
+                     actual.getActionGroup());
+        assertEquals(expected.getAssetTag(),
+                     actual.getAssetTag());
+        assertEquals(expected.getChassisDescription(),
+                     actual.getChassisDescription());
+        assertEquals(expected.getChassisId(),
+                     actual.getChassisId());
+        assertEquals(expected.getChassisName(),
+                     actual.getChassisName());
+        assertEquals(expected.getChassisType(),
+                     actual.getChassisType());
+        assertEquals(expected.getComputerSystemUriPathList(),
+                     actual.getComputerSystemUriPathList());
+        assertEquals(expected.getContainedByUriPath(),
+                     actual.getContainedByUriPath());
+        assertEquals(expected.getContainsList(),
+                     actual.getContainsList());
+        assertEquals(expected.getCooledByUriPathList(),
+                     actual.getCooledByUriPathList());
+        assertEquals(expected.getIndicatorLedState(),
+                     actual.getIndicatorLedState());
+        assertEquals(expected.getLogServicesUriPath(),
+                     actual.getLogServicesUriPath());
+        assertEquals(expected.getManufacturerName(),
+                     actual.getManufacturerName());
+        assertEquals(expected.getModelNumber(),
+                     actual.getModelNumber());
+        assertEquals(expected.getOperatingHealth(),
+                     actual.getOperatingHealth());
+        assertEquals(expected.getOperatingState(),
+                     actual.getOperatingState());
+        assertEquals(expected.getPartNumber(),
+                     actual.getPartNumber());
+        assertEquals(expected.getPoweredByList(),
+                     actual.getPoweredByList());
+        assertEquals(expected.getPowerUriPath(),
+                     actual.getPowerUriPath());
+        assertEquals(expected.getSerialNumber(),
+                     actual.getSerialNumber());
+        assertEquals(expected.getSku(),
+                     actual.getSku());
+        assertEquals(expected.getSystemManagerUriPathList(),
+                     actual.getSystemManagerUriPathList());
+        assertEquals(expected.getThermalUriPath(),
+                     actual.getThermalUriPath());
+    }
+
+    /**
+     * a chassis with every property set. The type, LED and state are the last of their enumerations so the ordinal
+     * plus one is stored at its largest.
+     */
+    private static RedHxChassis createFullChassis(String serialNumber,
+                                                  String health)
+    {
+        final RedHxChassisTypeEnum[] typeArray = RedHxChassisTypeEnum.values();
+        final RedHxChassisBuilder builder = new RedHxChassisBuilder(typeArray[typeArray.length - 1]);
+
+        builder.setAssetTag("Tag-" + serialNumber);
+        builder.setChassisDescription("Rack mounted " + serialNumber);
+        builder.setChassisId("1U");
+        builder.setChassisName("Rack7-" + serialNumber);
+        builder.setComputerSystemList(Arrays.asList("/redfish/v1/Systems/1",
+                                                    "/redfish/v1/Systems/2"));
+        builder.setContainedByLink("/redfish/v1/Chassis/Rack7");
+        builder.setContainsList(Collections.<String>emptyList());
+        builder.setCooledByList(Arrays.asList("/redfish/v1/Chassis/1U/Thermal#/Fans/0"));
+        builder.setIndicatorLed("Unknown");
+        builder.setManufacturerName("Contoso");
+        builder.setModelNumber("3500RX");
+        builder.setOperatingState("Starting");
+        builder.setPartNumber("224071-J23");
+        builder.setPathToLogServices("/redfish/v1/Chassis/1U/LogServices");
+        builder.setPathToPower("/redfish/v1/Chassis/1U/Power");
+        builder.setPathToThermal("/redfish/v1/Chassis/1U/Thermal");
+        builder.setPoweredByList(Arrays.asList("/redfish/v1/Chassis/1U/Power#/PowerSupplies/0",
+                                               "/redfish/v1/Chassis/1U/Power#/PowerSupplies/1"));
+        builder.setSerialNumber(serialNumber);
+        builder.setSku("8675309");
+        builder.setStatusHealth(health);
+        builder.setSystemManagerList(Arrays.asList("/redfish/v1/Managers/1"));
+
+        return builder.getInstance();
+    }
+
+    /**
+     * each chassis read back from the collection has the properties of the chassis it was made from, whether they
+     * are null, empty or set.
+     */
+    @Test
+    public void roundTripTest()
+    {
+        final List<RedHxChassis> chassisList = new ArrayList<>();
+
+        chassisList.add(createFullChassis("SN1",
+                                          "OK"));
+
+        // only the lists a chassis must have are set. Each value is stored as dictionary index zero, each enumeration
+        // as zero and the Contains list as null.
+        final RedHxChassisBuilder emptyBuilder = new RedHxChassisBuilder(null);
+
+        emptyBuilder.setComputerSystemList(Collections.<String>emptyList());
+        emptyBuilder.setCooledByList(Collections.<String>emptyList());
+        emptyBuilder.setPoweredByList(Collections.<String>emptyList());
+        emptyBuilder.setSystemManagerList(Collections.<String>emptyList());
+        chassisList.add(emptyBuilder.getInstance());
+        chassisList.add(createFullChassis("SN2",
+                                          "Critical"));
+
+        final RedHxChassisColumnCollection collection = new RedHxChassisColumnCollectionBuilder().addAll(chassisList).getInstance();
+
+        assertEquals(chassisList.size(),
+                     collection.size());
+
+        for (int index = 0; index < chassisList.size(); ++index)
+        {
+            assertSameProperties(chassisList.get(index),
+                                 collection.get(index));
+        }
+
+        final RedHxChassis emptyChassis = collection.get(1);
+
+        assertNull(emptyChassis.getChassisType());
+        assertNull(emptyChassis.getSerialNumber());
+        assertNull(emptyChassis.getOperatingHealth());
+        assertNull(emptyChassis.getContainsList());
+        assertEquals(Collections.emptyList(),
+                     emptyChassis.getPoweredByList());
+        assertEquals(Collections.emptyList(),
+                     collection.get(0).getContainsList());
+
+        // the links of the chassis after the empty one start at the right offsets
+        assertEquals(2,
+                     collection.get(2).getComputerSystemUriPathList().size());
+        assertEquals("/redfish/v1/Chassis/1U/Power#/PowerSupplies/1",
+                     collection.get(2).getPoweredByList().get(1).getValue());
+
+        assertEquals(1,
+                     collection.getChassisList(RedHxOperatingHealthEnum.CRITICAL).size());
+        assertEquals(1,
+                     collection.getChassisList((RedHxOperatingHealthEnum) null).size());
+    }
+
+    /**
+     * views are equal when their properties are equal, as two chassis are. A view and the chassis it was built from
+     * are equal both ways and have the same hash code.
+     */
+    @Test
+    public void equalsTest()
+    {
+        final RedHxChassis chassis = createFullChassis("SN1",
+                                                       "OK");
+        final RedHxChassisColumnCollection collection = new RedHxChassisColumnCollectionBuilder().add(chassis)
+                .add(createFullChassis("SN2",
+                                       "OK"))
+                .getInstance();
+        final RedHxChassisColumnCollection sameCollection = new RedHxChassisColumnCollectionBuilder().add(createFullChassis("SN0",
+                                                                                                                           "OK"))
+                .add(chassis)
+                .getInstance();
+
+        assertEquals(collection.get(0),
+                     sameCollection.get(1));
+        assertEquals(collection.get(0).hashCode(),
+                     sameCollection.get(1).hashCode());
+        assertFalse(collection.get(0).equals(collection.get(1)));
+        assertFalse(collection.get(0).equals(sameCollection.get(0)));
+        assertEquals(collection.get(0),
+                     collection.iterator().next());
+
+        assertEquals(chassis,
+                     collection.get(0));
+        assertEquals(collection.get(0),
+                     chassis);
+        assertEquals(chassis.hashCode(),
+                     collection.get(0).hashCode());
+        assertFalse(chassis.equals(collection.get(1)));
+        assertFalse(collection.get(1).equals(chassis));
+    }
+}
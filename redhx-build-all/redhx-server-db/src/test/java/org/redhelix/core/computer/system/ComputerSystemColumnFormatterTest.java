@@ -0,0 +1,81 @@
+package org.redhelix.core.computer.system;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.redhelix.core.util.RedHxUriPathImpl;
+
+/**
+ * Print a computer system in columns.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class ComputerSystemColumnFormatterTest
+{
+
+    private static String print(RedHxComputerSystem computerSystem)
+            throws Exception
+    {
+        final RedHxComputerSystemColumnFormatter formatter = new RedHxComputerSystemColumnFormatter(true,
+                                                                                                    "|",
+                                                                                                    true);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (PrintStream streamOut = new PrintStream(out,
+                                                     true,
+                                                     "UTF-8"))
+        {
+            formatter.print(computerSystem,
+                            streamOut);
+        }
+
+        return new String(out.toByteArray(),
+                          StandardCharsets.UTF_8);
+    }
+
+    private static RedHxComputerSystemBuilder createBuilder()
+    {
+        final RedHxComputerSystemBuilder builder = new RedHxComputerSystemBuilder(new RedHxUriPathImpl("/redfish/v1/Systems/1"));
+
+        builder.setChassisList(Collections.<String>emptyList());
+        builder.setCooledByList(Collections.<String>emptyList());
+        builder.setPoweredByList(Collections.<String>emptyList());
+        builder.setSystemManagerList(Collections.<String>emptyList());
+
+        return builder;
+    }
+
+    /**
+     * a computer system that has no Name is printed with an empty Name row.
+     */
+    @Test
+    public void noNameTest()
+            throws Exception
+    {
+        final String output = print(createBuilder().getInstance());
+
+        assertTrue(output,
+                   output.contains("Name"));
+        assertTrue(output,
+                   output.contains("/redfish/v1/Systems/1"));
+    }
+
+    @Test
+    public void nameTest()
+            throws Exception
+    {
+        final RedHxComputerSystemBuilder builder = createBuilder();
+
+        builder.setComputerName("WebFrontEnd483");
+
+        final String output = print(builder.getInstance());
+
+        assertTrue(output,
+                   output.contains("WebFrontEnd483"));
+    }
+}
@@ -0,0 +1,107 @@
+package org.redhelix.core.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.chassis.RedHxChassisBuilder;
+import org.redhelix.core.chassis.RedHxChassisTypeEnum;
+
+/**
+ * Intern the string properties of chassis built from the same values.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class StringPropertyInternerTest
+{
+
+    private static RedHxChassis createChassis(String serialNumber)
+    {
+        final RedHxChassisBuilder builder = new RedHxChassisBuilder(RedHxChassisTypeEnum.BLADE);
+
+        builder.setChassisDescription("Rack mounted chassis");
+        builder.setChassisId("1");
+        builder.setChassisName("Chassis");
+        builder.setComputerSystemList(Collections.singletonList("/redfish/v1/Systems/1"));
+        builder.setCooledByList(Collections.<String>emptyList());
+        builder.setManufacturerName("Contoso");
+        builder.setPathToLogServices("/redfish/v1/Chassis/1/LogServices");
+        builder.setPathToPower("/redfish/v1/Chassis/1/Power");
+        builder.setPathToThermal("/redfish/v1/Chassis/1/Thermal");
+        builder.setPoweredByList(Collections.<String>emptyList());
+        builder.setSerialNumber(serialNumber);
+        builder.setSystemManagerList(Collections.<String>emptyList());
+
+        return builder.getInstance();
+    }
+
+    /**
+     * two builders given the same Id, name, description and paths share one instance of each. The serial number is
+     * unique to a host and is not interned.
+     */
+    @Test
+    public void sharedInstanceTest()
+    {
+        final RedHxChassis first = createChassis("SN1");
+        final RedHxChassis second = createChassis("SN1");
+
+        assertSame(first.getChassisId(),
+                   second.getChassisId());
+        assertSame(first.getChassisName(),
+                   second.getChassisName());
+        assertSame(first.getChassisDescription(),
+                   second.getChassisDescription());
+        assertSame(first.getManufacturerName(),
+                   second.getManufacturerName());
+        assertSame(first.getPowerUriPath(),
+                   second.getPowerUriPath());
+        assertSame(first.getThermalUriPath(),
+                   second.getThermalUriPath());
+        assertSame(first.getLogServicesUriPath(),
+                   second.getLogServicesUriPath());
+        assertSame(first.getComputerSystemUriPathList().get(0),
+                   second.getComputerSystemUriPathList().get(0));
+
+        assertEquals(first.getSerialNumber(),
+                     second.getSerialNumber());
+        assertNotSame(first.getSerialNumber(),
+                      second.getSerialNumber());
+    }
+
+    /**
+     * once nothing references the canonical instance it is dropped, and the next equal property becomes the canonical
+     * instance.
+     */
+    @Test
+    public void droppedEntryTest() throws InterruptedException
+    {
+        final String value = "/redfish/v1/Chassis/" + System.nanoTime();
+        RedHxUriPath canonical = RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(value));
+
+        assertSame(canonical,
+                   RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(value)));
+
+        final WeakReference<RedHxUriPath> canonicalRef = new WeakReference<>(canonical);
+
+        canonical = null;
+
+        for (int count = 0; (count < 100) && (canonicalRef.get() != null); ++count)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(canonicalRef.get());
+
+        final RedHxUriPath replacement = new RedHxUriPathImpl(value);
+
+        assertSame(replacement,
+                   RedHxStringPropertyInterner.intern(replacement));
+    }
+}
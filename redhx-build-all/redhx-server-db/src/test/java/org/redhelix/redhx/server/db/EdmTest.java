@@ -1,19 +1,32 @@
 package org.redhelix.redhx.server.db;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
 import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.communication.request.retrieve.EdmMetadataRequest;
 import org.apache.olingo.client.api.communication.request.retrieve.ODataServiceDocumentRequest;
 import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmSchema;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.provider.CsdlActionImport;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainer;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
 import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
 import org.junit.Assert;
 import org.junit.Test;
+import org.redhelix.server.main.RedHxServiceEdmProvider;
 
 /**
  * Read a service OData Entity Data Model(EDM) and validate it contains only one schema with the
- * namespace of {@link #RED_HELIX_NAME_SPACE}.
+ * namespace of {@link #RED_HELIX_NAME_SPACE}. The $metadata and service documents are read again
+ * with the ETag of the first read, and the parts of the schema are looked up by name in the EDM
+ * provider.
  *
  * @since RedHelix Version 0.2
  * @author Hank Bruning
@@ -21,7 +34,9 @@ import org.junit.Test;
  */
 public final class EdmTest extends RedHexlixAbstractServiceTest {
 
+  private static final String METADATA_PATH = "/$metadata";
   private static final String RED_HELIX_NAME_SPACE = "RedHelixOData.moon";
+  private static final String SERVICE_DOCUMENT_PATH = "/";
 
   @Test
   public void getEdmTest() throws Exception {
@@ -47,4 +62,125 @@ public final class EdmTest extends RedHexlixAbstractServiceTest {
 
     return response.getBody();
   }
+
+  /**
+   * the $metadata document is served from the same bytes with the same strong ETag every time.
+   */
+  @Test
+  public void cachedMetadataTest() throws Exception {
+    final HttpURLConnection first = openConnection(METADATA_PATH, null);
+    final byte[] body = readBody(first);
+    final String eTag = first.getHeaderField(HttpHeader.ETAG);
+
+    Assert.assertEquals(HttpURLConnection.HTTP_OK, first.getResponseCode());
+    Assert.assertNotNull(eTag);
+    Assert.assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+    Assert.assertEquals(body.length, first.getContentLength());
+
+    final HttpURLConnection second = openConnection(METADATA_PATH, null);
+
+    Assert.assertTrue(Arrays.equals(body, readBody(second)));
+    Assert.assertEquals(eTag, second.getHeaderField(HttpHeader.ETAG));
+  }
+
+  /**
+   * a read of the $metadata or service document with a matching If-None-Match is answered 304
+   * Not Modified with no body, a read with another ETag gets the document.
+   */
+  @Test
+  public void notModifiedTest() throws Exception {
+    for (String path : new String[] {METADATA_PATH, SERVICE_DOCUMENT_PATH}) {
+      final HttpURLConnection first = openConnection(path, null);
+      final String eTag = first.getHeaderField(HttpHeader.ETAG);
+
+      readBody(first);
+      Assert.assertNotNull(path, eTag);
+
+      final HttpURLConnection notModified = openConnection(path, eTag);
+
+      Assert.assertEquals(path, HttpURLConnection.HTTP_NOT_MODIFIED,
+          notModified.getResponseCode());
+      Assert.assertEquals(path, eTag, notModified.getHeaderField(HttpHeader.ETAG));
+      Assert.assertEquals(path, 0, readBody(notModified).length);
+
+      final HttpURLConnection modified = openConnection(path, "\"0\"");
+
+      Assert.assertEquals(path, HttpURLConnection.HTTP_OK, modified.getResponseCode());
+      Assert.assertTrue(path, readBody(modified).length > 0);
+    }
+  }
+
+  /**
+   * every entity set and action import of the container is found by its name, an unknown name or
+   * container is not.
+   */
+  @Test
+  public void providerLookupTest() throws Exception {
+    final RedHxServiceEdmProvider provider = new RedHxServiceEdmProvider();
+    final FullQualifiedName container =
+        provider.getEntityContainerInfo(null).getContainerName();
+    final FullQualifiedName otherContainer =
+        new FullQualifiedName(RED_HELIX_NAME_SPACE, "OtherContainer");
+    final CsdlEntityContainer entityContainer = provider.getEntityContainer();
+
+    Assert.assertFalse(entityContainer.getEntitySets().isEmpty());
+    Assert.assertFalse(entityContainer.getActionImports().isEmpty());
+
+    for (CsdlEntitySet entitySet : entityContainer.getEntitySets()) {
+      Assert.assertSame(entitySet, provider.getEntitySet(container, entitySet.getName()));
+      Assert.assertNull(provider.getEntitySet(otherContainer, entitySet.getName()));
+    }
+
+    for (CsdlActionImport actionImport : entityContainer.getActionImports()) {
+      Assert.assertSame(actionImport,
+          provider.getActionImport(container, actionImport.getName()));
+      Assert.assertNull(provider.getActionImport(otherContainer, actionImport.getName()));
+      Assert.assertFalse(provider.getActions(actionImport.getActionFQN()).isEmpty());
+    }
+
+    Assert.assertNull(provider.getEntitySet(container, "Unknown"));
+    Assert.assertNull(provider.getActionImport(container, "Unknown"));
+    Assert.assertNull(provider.getEntityContainerInfo(otherContainer));
+    Assert.assertTrue(
+        provider.getActions(new FullQualifiedName(RED_HELIX_NAME_SPACE, "Unknown")).isEmpty());
+    Assert.assertNull(
+        provider.getEntityType(new FullQualifiedName(RED_HELIX_NAME_SPACE, "Unknown")));
+    Assert.assertSame(provider.getSchemas(), new RedHxServiceEdmProvider().getSchemas());
+  }
+
+  private HttpURLConnection openConnection(String path, String ifNoneMatch) throws IOException {
+    final HttpURLConnection retVal =
+        (HttpURLConnection) new URL(getServiceUrl() + path).openConnection();
+
+    if (METADATA_PATH.equals(path)) {
+      retVal.setRequestProperty(HttpHeader.ACCEPT,
+          ContentType.APPLICATION_XML.toContentTypeString());
+    } else {
+      retVal.setRequestProperty(HttpHeader.ACCEPT,
+          ContentType.APPLICATION_JSON.toContentTypeString());
+    }
+
+    if (ifNoneMatch != null) {
+      retVal.setRequestProperty(HttpHeader.IF_NONE_MATCH, ifNoneMatch);
+    }
+
+    return retVal;
+  }
+
+  private static byte[] readBody(HttpURLConnection connection) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[8192];
+
+    connection.getResponseCode();
+
+    try (InputStream in = connection.getInputStream()) {
+      int count;
+
+      while ((count = in.read(buffer)) >= 0) {
+        out.write(buffer, 0, count);
+      }
+    }
+
+    return out.toByteArray();
+  }
 }
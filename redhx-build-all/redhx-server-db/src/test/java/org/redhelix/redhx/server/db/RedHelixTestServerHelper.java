@@ -36,13 +36,21 @@ public final class RedHelixTestServerHelper
     }
 
     static TJWSEmbeddedJaxrsServer startServer()
+    {
+        return startServer(new RedHxServlet());
+    }
+
+    /**
+     * Start the embedded HTTP server with a servlet that may read an inventory created by the test.
+     *
+     * @param servlet the servlet to serve.
+     * @return the started server.
+     */
+    public static TJWSEmbeddedJaxrsServer startServer(RedHxServlet servlet)
     {
         TJWSEmbeddedJaxrsServer tjws = new TJWSEmbeddedJaxrsServer();
 
         tjws.setPort(TCP_PORT_NUMBER);
-
-        RedHxServlet servlet = new RedHxServlet();
-
         tjws.addServlet(HTTP_URL, servlet);
         tjws.start();
 
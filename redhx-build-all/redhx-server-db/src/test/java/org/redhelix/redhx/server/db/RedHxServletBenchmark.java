@@ -0,0 +1,151 @@
+package org.redhelix.redhx.server.db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.edmx.EdmxReference;
+import org.jboss.resteasy.plugins.server.tjws.TJWSEmbeddedJaxrsServer;
+import org.redhelix.server.action.op.discover.RedHxDiscoveryProcessor;
+import org.redhelix.server.main.RedHxServiceEdmProvider;
+
+/**
+ * measure the overhead the RedHelix servlet adds to each request. This is not a unit test, run the
+ * main method from the test class path.
+ *
+ * The first part measures, without HTTP, the work done for each request when the service metadata
+ * and processors are built for each request and the work done when they are shared. The second part sends GET requests for the
+ * service document and $metadata to the embedded server from several threads.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class RedHxServletBenchmark {
+
+  private static final int HTTP_REQUEST_COUNT = 2000;
+  private static final int HTTP_THREAD_COUNT = 8;
+  private static final int IN_PROCESS_COUNT = 500;
+
+  private RedHxServletBenchmark() {
+
+  }
+
+  public static void main(String[] args) throws Exception {
+
+    /*
+     * the embedded server does not disable Nagle on a reused connection, every reused request
+     * waits 40 ms for the delayed ACK and the benchmark would measure only that.
+     */
+    System.setProperty("http.keepAlive", "false");
+    measureInProcess();
+    measureHttp("", "application/json");
+    measureHttp("/$metadata", "application/xml");
+  }
+
+  private static void measureHttp(final String path, final String accept) throws Exception {
+    final TJWSEmbeddedJaxrsServer server = RedHelixTestServerHelper.startServer();
+    final URL url = new URL("http://localhost:" + RedHelixTestServerHelper.TCP_PORT_NUMBER
+        + RedHelixTestServerHelper.HTTP_URL + path);
+    final ExecutorService executor = Executors.newFixedThreadPool(HTTP_THREAD_COUNT);
+
+    try {
+      runHttp(executor, url, accept, HTTP_REQUEST_COUNT / 4);
+
+      final long startNano = System.nanoTime();
+
+      runHttp(executor, url, accept, HTTP_REQUEST_COUNT);
+
+      final double seconds = (System.nanoTime() - startNano) / 1e9;
+
+      System.out.printf("GET %-12s %d requests, %d threads: %.0f requests/second%n",
+          path.isEmpty() ? "/" : path, HTTP_REQUEST_COUNT, HTTP_THREAD_COUNT,
+          HTTP_REQUEST_COUNT / seconds);
+    } finally {
+      executor.shutdown();
+      server.stop();
+    }
+  }
+
+  private static void measureInProcess() {
+    final OData sharedOData = OData.newInstance();
+    final ServiceMetadata sharedMetadata = sharedOData
+        .createServiceMetadata(new RedHxServiceEdmProvider(), Collections.<EdmxReference>emptyList());
+
+    for (int pass = 0; pass < 2; ++pass) {
+      long startNano = System.nanoTime();
+
+      for (int i = 0; i < IN_PROCESS_COUNT; ++i) {
+        final OData odata = OData.newInstance();
+        final ServiceMetadata metadata = odata.createServiceMetadata(new RedHxServiceEdmProvider(),
+            Collections.<EdmxReference>emptyList());
+
+        // the EDM is built lazily, ask for the schema the way the first request does
+        metadata.getEdm().getSchemas();
+        odata.createHandler(metadata);
+        new RedHxDiscoveryProcessor(odata, metadata.getEdm());
+      }
+
+      final double perRequestBefore = (System.nanoTime() - startNano) / 1e3 / IN_PROCESS_COUNT;
+
+      startNano = System.nanoTime();
+
+      for (int i = 0; i < IN_PROCESS_COUNT; ++i) {
+        sharedMetadata.getEdm().getSchemas();
+        sharedOData.createHandler(sharedMetadata);
+      }
+
+      final double perRequestAfter = (System.nanoTime() - startNano) / 1e3 / IN_PROCESS_COUNT;
+
+      if (pass > 0) {
+        System.out.printf("per request setup: %.1f us building the EDM each time, %.1f us shared%n",
+            perRequestBefore, perRequestAfter);
+      }
+    }
+  }
+
+  private static void readFully(final URL url, final String accept) throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    final byte[] buffer = new byte[8192];
+
+    connection.setRequestProperty("Accept", accept);
+
+    try (InputStream in = connection.getInputStream()) {
+      while (in.read(buffer) >= 0) {
+        // discard the body so the connection can be reused
+      }
+    }
+  }
+
+  private static void runHttp(final ExecutorService executor, final URL url, final String accept,
+      final int requestCount) throws Exception {
+    final List<Future<Void>> futureList = new ArrayList<>();
+
+    for (int t = 0; t < HTTP_THREAD_COUNT; ++t) {
+      futureList.add(executor.submit(new Callable<Void>() {
+
+        @Override
+        public Void call() throws IOException {
+          for (int i = 0; i < (requestCount / HTTP_THREAD_COUNT); ++i) {
+            readFully(url, accept);
+          }
+
+          return null;
+        }
+      }));
+    }
+
+    for (Future<Void> future : futureList) {
+      future.get();
+    }
+  }
+}
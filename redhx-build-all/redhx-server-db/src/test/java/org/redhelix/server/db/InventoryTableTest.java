@@ -0,0 +1,452 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Write rows to an inventory table and read them back by the secondary indexes, from a snapshot and from the change
+ * log. The snapshots built from the previous snapshot are compared with a copy of the rows.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class InventoryTableTest
+{
+
+    /**
+     * the secondary index of the first letter of a resource.
+     */
+    private static final int LETTER_INDEX = 0;
+
+    /**
+     * the secondary index of the length of a resource. A resource starting with x is not in it.
+     */
+    private static final int LENGTH_INDEX = 1;
+    private InetAddress addressA;
+    private InetAddress addressB;
+    private InventoryTable<Integer, String> table;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        final Function<String, Object> letterFunction = new Function<String, Object>()
+        {
+            @Override
+            public Object apply(String value)
+            {
+                return value.substring(0,
+                                       1);
+            }
+        };
+        final Function<String, Object> lengthFunction = new Function<String, Object>()
+        {
+            @Override
+            public Object apply(String value)
+            {
+                return value.startsWith("x") ? null : value.length();
+            }
+        };
+
+        addressA = InetAddress.getByName("10.0.0.1");
+        addressB = InetAddress.getByName("10.0.0.2");
+        table = new InventoryTable<Integer, String>(Arrays.asList(letterFunction,
+                                                                  lengthFunction));
+    }
+
+    @Test
+    public void secondaryIndexTest()
+    {
+        assertNull(table.put(1,
+                             addressA,
+                             "apple"));
+        table.put(2,
+                  addressA,
+                  "avocado");
+        table.put(3,
+                  addressB,
+                  "banana");
+        table.put(4,
+                  null,
+                  "xeno");
+
+        assertEquals(Arrays.asList(1,
+                                   2),
+                     table.getIdList(LETTER_INDEX,
+                                     "a"));
+        assertEquals(Integer.valueOf(3),
+                     table.getFirstId(LETTER_INDEX,
+                                      "b"));
+        assertEquals(Integer.valueOf(4),
+                     table.getFirstId(LETTER_INDEX,
+                                      "x"));
+        assertEquals(Collections.singletonList(1),
+                     table.getIdList(LENGTH_INDEX,
+                                     5));
+        assertEquals(Collections.<Integer>emptyList(),
+                     table.getIdList(LENGTH_INDEX,
+                                     4));
+        assertEquals(Arrays.asList(1,
+                                   2),
+                     table.getIdList(addressA));
+
+        /*
+         * a replaced row moves to its new index keys but keeps the address it was first read from.
+         */
+        assertEquals("avocado",
+                     table.put(2,
+                               addressB,
+                               "blueberry"));
+        assertEquals(Collections.singletonList(1),
+                     table.getIdList(LETTER_INDEX,
+                                     "a"));
+        assertEquals(Arrays.asList(2,
+                                   3),
+                     table.getIdList(LETTER_INDEX,
+                                     "b"));
+        assertEquals(Collections.<Integer>emptyList(),
+                     table.getIdList(LENGTH_INDEX,
+                                     7));
+        assertEquals(Arrays.asList(1,
+                                   2),
+                     table.getIdList(addressA));
+        assertEquals(Collections.singletonList(3),
+                     table.getIdList(addressB));
+
+        assertEquals("apple",
+                     table.remove(1));
+        assertNull(table.remove(1));
+        assertNull(table.get(1));
+        assertNull(table.getFirstId(LETTER_INDEX,
+                                    "a"));
+        assertEquals(Integer.valueOf(2),
+                     table.getFirstId(addressA));
+        assertEquals(3,
+                     table.size());
+    }
+
+    /**
+     * a snapshot is shared until the next write and is not changed by it.
+     */
+    @Test
+    public void snapshotTest()
+    {
+        table.put(1,
+                  addressA,
+                  "apple");
+        table.put(2,
+                  addressA,
+                  "avocado");
+
+        final SortedMap<Integer, String> snapshot = table.getSnapshot();
+
+        assertSame(snapshot,
+                   table.getSnapshot());
+
+        table.put(1,
+                  addressA,
+                  "apricot");
+        table.remove(2);
+        table.put(3,
+                  addressB,
+                  "banana");
+
+        assertEquals(Arrays.asList(1,
+                                   2),
+                     Arrays.asList(snapshot.keySet().toArray()));
+        assertEquals("apple",
+                     snapshot.get(1));
+
+        final SortedMap<Integer, String> newSnapshot = table.getSnapshot();
+
+        assertEquals(Arrays.asList(1,
+                                   3),
+                     Arrays.asList(newSnapshot.keySet().toArray()));
+        assertEquals("apricot",
+                     newSnapshot.get(1));
+
+        try
+        {
+            snapshot.put(4,
+                         "cherry");
+            fail("A snapshot was changed.");
+        }
+        catch (UnsupportedOperationException ex)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * each write adds one to the version and the change log lists the last change of each row once.
+     */
+    @Test
+    public void changeListTest()
+    {
+        final long firstVersion = table.getVersion();
+
+        assertEquals(0,
+                     firstVersion & 0xffffffffL);
+
+        table.put(1,
+                  addressA,
+                  "apple");
+        table.put(2,
+                  addressA,
+                  "avocado");
+
+        final long version = table.getVersion();
+
+        assertEquals(firstVersion + 2,
+                     version);
+
+        RedHxDbChangeList<Integer> changeList = table.getChangeList(firstVersion);
+
+        assertEquals(Arrays.asList(1,
+                                   2),
+                     changeList.getIdList());
+        assertEquals(version,
+                     changeList.getVersion());
+
+        table.put(3,
+                  addressB,
+                  "banana");
+        table.remove(2);
+        table.put(1,
+                  addressA,
+                  "apricot");
+
+        assertEquals(Arrays.asList(1,
+                                   2,
+                                   3),
+                     table.getChangeList(version).getIdList());
+        assertEquals(Arrays.asList(1,
+                                   2,
+                                   3),
+                     table.getChangeList(firstVersion).getIdList());
+
+        changeList = table.getChangeList(table.getVersion());
+
+        assertEquals(Collections.<Integer>emptyList(),
+                     changeList.getIdList());
+        assertEquals(table.getVersion(),
+                     changeList.getVersion());
+
+        assertNull(table.getChangeList(table.getVersion() + 1));
+        assertNull(table.getChangeList(firstVersion - 1));
+    }
+
+    /**
+     * when the oldest removed row is dropped from the change log a version before its removal can no longer be used.
+     */
+    @Test
+    public void removedLimitTest()
+    {
+        final long firstVersion = table.getVersion();
+
+        for (int i = 0; i <= InventoryTable.MAX_REMOVED_COUNT; ++i)
+        {
+            table.put(i,
+                      addressA,
+                      "row" + i);
+            table.remove(i);
+        }
+
+        assertEquals(0,
+                     table.size());
+        assertNull(table.getChangeList(firstVersion));
+        assertNull(table.getChangeList(firstVersion + 1));
+
+        final RedHxDbChangeList<Integer> changeList = table.getChangeList(firstVersion + 2);
+
+        assertNotNull(changeList);
+
+        final List<Integer> idList = changeList.getIdList();
+
+        assertEquals(InventoryTable.MAX_REMOVED_COUNT,
+                     idList.size());
+        assertEquals(Integer.valueOf(1),
+                     idList.get(0));
+    }
+
+    private static void assertSnapshot(SortedMap<Integer, String> expected,
+                                       SortedMap<Integer, String> snapshot)
+    {
+        assertEquals(expected,
+                     snapshot);
+        assertEquals(new ArrayList<>(expected.keySet()),
+                     new ArrayList<>(snapshot.keySet()));
+        assertEquals(expected.size(),
+                     snapshot.size());
+
+        if (!expected.isEmpty())
+        {
+            final Integer middle = (expected.firstKey() + expected.lastKey()) / 2;
+
+            assertEquals(expected.firstKey(),
+                         snapshot.firstKey());
+            assertEquals(expected.lastKey(),
+                         snapshot.lastKey());
+            assertEquals(expected.tailMap(middle),
+                         snapshot.tailMap(middle));
+            assertEquals(expected.headMap(middle).size(),
+                         snapshot.headMap(middle).size());
+            assertEquals(expected.headMap(middle).lastKey(),
+                         snapshot.headMap(middle).lastKey());
+            assertEquals(expected.subMap(expected.firstKey(),
+                                         middle),
+                         snapshot.subMap(expected.firstKey(),
+                                         middle));
+        }
+    }
+
+    /**
+     * snapshots built from the previous snapshot and the change log hold the same rows as a copy of the table, and a
+     * snapshot handed out earlier does not change. The table has more rows than a snapshot may hold changed, so a
+     * snapshot is also copied again from the table.
+     */
+    @Test
+    public void incrementalSnapshotTest()
+    {
+        final Random random = new Random(7);
+        final TreeMap<Integer, String> expected = new TreeMap<>();
+        final List<SortedMap<Integer, String>> oldSnapshotList = new ArrayList<>();
+        final List<SortedMap<Integer, String>> oldExpectedList = new ArrayList<>();
+        final int rowCount = 20 * InventoryTable.MIN_SNAPSHOT_DELTA_SIZE;
+
+        for (int i = 0; i < rowCount; ++i)
+        {
+            table.put(i,
+                      addressA,
+                      "row" + i);
+            expected.put(i,
+                         "row" + i);
+        }
+
+        assertSnapshot(expected,
+                       table.getSnapshot());
+
+        for (int write = 0; write < (4 * rowCount); ++write)
+        {
+            final int id = random.nextInt(rowCount + 100);
+
+            if (random.nextInt(3) == 0)
+            {
+                assertEquals(expected.remove(id),
+                             table.remove(id));
+            }
+            else
+            {
+                assertEquals(expected.put(id,
+                                          "row" + id + "." + write),
+                             table.put(id,
+                                       addressA,
+                                       "row" + id + "." + write));
+            }
+
+            if ((write % 7) == 0)
+            {
+                assertSnapshot(expected,
+                               table.getSnapshot());
+            }
+
+            if ((write % 500) == 0)
+            {
+                oldSnapshotList.add(table.getSnapshot());
+                oldExpectedList.add(new TreeMap<>(expected));
+            }
+        }
+
+        table.remove(expected.lastKey());
+        expected.remove(expected.lastKey());
+        assertSnapshot(expected,
+                       table.getSnapshot());
+
+        for (int i = 0; i < oldSnapshotList.size(); ++i)
+        {
+            assertSnapshot(oldExpectedList.get(i),
+                           oldSnapshotList.get(i));
+        }
+    }
+
+    /**
+     * a snapshot of an emptied table is empty, and the last key skips the rows removed after the copy.
+     */
+    @Test
+    public void removedSnapshotTest()
+    {
+        table.put(1,
+                  addressA,
+                  "apple");
+        table.put(2,
+                  addressA,
+                  "banana");
+        table.getSnapshot();
+        table.remove(2);
+
+        assertEquals(Integer.valueOf(1),
+                     table.getSnapshot().lastKey());
+
+        table.remove(1);
+
+        final SortedMap<Integer, String> snapshot = table.getSnapshot();
+
+        assertTrue(snapshot.isEmpty());
+        assertNull(snapshot.get(1));
+
+        try
+        {
+            snapshot.lastKey();
+            fail("An empty snapshot has a last key.");
+        }
+        catch (NoSuchElementException ex)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * ids are ordered by their sequence number, not by the string.
+     */
+    @Test
+    public void idOrderTest()
+    {
+        assertTrue(new ChassisId(2).compareTo(new ChassisId(10)) < 0);
+        assertTrue(new ChassisId(10).compareTo(new ChassisId(2)) > 0);
+        assertEquals(0,
+                     new ChassisId(3).compareTo(new ChassisId(3)));
+        assertTrue(new ComputerSystemId(2).compareTo(new ComputerSystemId(10)) < 0);
+        assertEquals(10,
+                     new ComputerSystemId(10).getSequenceNumber());
+    }
+}
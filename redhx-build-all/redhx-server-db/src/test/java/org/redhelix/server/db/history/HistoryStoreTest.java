@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.db.history;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.redhelix.core.computer.system.power.RedHxPowerVoltageReading;
+import org.redhelix.core.computer.system.power.supply.RedHxPowerSupplyLineInputVoltageImpl;
+
+/**
+ * Read back the samples written to the history store, from the open chunk, from the chunks written
+ * to the segment files and after the store is opened again.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class HistoryStoreTest
+{
+
+    private static final long HOUR_MILLISECONDS = 60L * 60 * 1000;
+    private static final String SERIES_NAME = "Chassis/1/Power/Voltages/0";
+
+    /**
+     * the start of a partition, so the samples cross into the next partition.
+     */
+    private static final long START_MILLISECONDS = 1000L * HOUR_MILLISECONDS;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static RedHxPowerVoltageReading createVoltage(int major,
+                                                          int minor)
+    {
+        return new RedHxPowerSupplyLineInputVoltageImpl((short) major,
+                                                        (byte) minor);
+    }
+
+    private static List<long[]> readAll(RedHxDbHistoryStore store)
+    {
+        final List<long[]> retVal = new ArrayList<long[]>();
+
+        store.readRange(SERIES_NAME,
+                        RedHxDbHistoryMetricEnum.VOLTAGE,
+                        0,
+                        Long.MAX_VALUE,
+                        new RedHxDbHistoryVisitor()
+                        {
+                            @Override
+                            public boolean visit(long timeMilliseconds,
+                                                 long value)
+                            {
+                                retVal.add(new long[]
+                                {
+                                    timeMilliseconds, value
+                                });
+
+                                return true;
+                            }
+                        });
+
+        return retVal;
+    }
+
+    private static void assertSamples(List<long[]> expectedList,
+                                      List<long[]> actualList)
+    {
+        assertEquals(expectedList.size(),
+                     actualList.size());
+
+        for (int i = 0; i < expectedList.size(); ++i)
+        {
+            assertEquals("time of sample " + i,
+                         expectedList.get(i)[0],
+                         actualList.get(i)[0]);
+            assertEquals("value of sample " + i,
+                         expectedList.get(i)[1],
+                         actualList.get(i)[1]);
+        }
+    }
+
+    /**
+     * a negative reading keeps its tenths, -12.5 volts is stored as -125.
+     */
+    @Test
+    public void negativeVoltageTest()
+            throws IOException
+    {
+        try (RedHxDbHistoryStore store = new RedHxDbHistoryStore(folder.newFolder().toPath()))
+        {
+            store.appendVoltage(SERIES_NAME,
+                                START_MILLISECONDS,
+                                createVoltage(-12,
+                                              5));
+            store.appendVoltage(SERIES_NAME,
+                                START_MILLISECONDS + 1000,
+                                createVoltage(0,
+                                              0));
+            store.appendVoltage(SERIES_NAME,
+                                START_MILLISECONDS + 2000,
+                                createVoltage(12,
+                                              5));
+            store.appendVoltage(SERIES_NAME,
+                                START_MILLISECONDS + 3000,
+                                createVoltage(-100,
+                                              0));
+
+            final List<long[]> list = readAll(store);
+
+            assertEquals(4,
+                         list.size());
+            assertEquals(-125,
+                         list.get(0)[1]);
+            assertEquals(0,
+                         list.get(1)[1]);
+            assertEquals(125,
+                         list.get(2)[1]);
+            assertEquals(-1000,
+                         list.get(3)[1]);
+        }
+    }
+
+    /**
+     * enough samples to fill several chunks and cross a partition, with time and value deltas that
+     * are zero, negative, small and as large as the voltage allows.
+     */
+    @Test
+    public void roundTripTest()
+            throws IOException
+    {
+        final List<long[]> expectedList = new ArrayList<long[]>();
+        final Path directory = folder.newFolder().toPath();
+        long time = START_MILLISECONDS;
+
+        try (RedHxDbHistoryStore store = new RedHxDbHistoryStore(directory,
+                                                                 HOUR_MILLISECONDS,
+                                                                 1024 * 1024))
+        {
+            for (int i = 0; i < 1000; ++i)
+            {
+                final int major;
+                final int minor;
+
+                switch (i % 5)
+                {
+                    case 0:
+                        major = 600;
+                        minor = 0;
+                        break;
+                    case 1:
+                        major = -100;
+                        minor = 0;
+                        break;
+                    case 2:
+                        major = -3;
+                        minor = 3;
+                        break;
+                    case 3:
+                        major = -3;
+                        minor = 3;
+                        break;
+                    default:
+                        major = i % 13;
+                        minor = i % 10;
+                        break;
+                }
+
+                /*
+                 * a regular interval, a repeated interval, and a gap of minutes now and then.
+                 */
+                if ((i % 97) == 0)
+                {
+                    time += 7 * 60 * 1000 + i;
+                }
+                else
+                {
+                    time += 10 * 1000;
+                }
+
+                assertTrue(store.appendVoltage(SERIES_NAME,
+                                               time,
+                                               createVoltage(major,
+                                                             minor)));
+
+                final long tenths = (major < 0) ? (major * 10L - minor) : (major * 10L + minor);
+
+                expectedList.add(new long[]
+                {
+                    time, tenths
+                });
+            }
+
+            assertTrue(time - START_MILLISECONDS > HOUR_MILLISECONDS);
+            assertSamples(expectedList,
+                          readAll(store));
+        }
+
+        try (RedHxDbHistoryStore store = new RedHxDbHistoryStore(directory,
+                                                                 HOUR_MILLISECONDS,
+                                                                 1024 * 1024))
+        {
+            assertTrue(store.getSegmentCount() > 1);
+            assertSamples(expectedList,
+                          readAll(store));
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package org.redhelix.server.event;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.chassis.RedHxChassisBuilder;
+import org.redhelix.core.chassis.RedHxChassisTypeEnum;
+import org.redhelix.core.util.RedHxOperatingHealthEnum;
+import org.redhelix.server.db.RedHxDbChassisId;
+import org.redhelix.server.db.RedHxDbPersistantDatabaseImpl;
+
+/**
+ * Push the changes of the chassis to a console with Server-Sent Events. The servlet runs in Jetty, it needs the
+ * asynchronous requests of Servlet 3.1.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class EventServletTest
+{
+
+    private static final String EVENT_URL = "/RedHelix.svc/events";
+    private static final RedHxEventFilter HEALTH_FILTER = new RedHxEventFilter(EnumSet.of(RedHxEventTypeEnum.HEALTH),
+                                                                               EnumSet.noneOf(RedHxChassisTypeEnum.class),
+                                                                               null,
+                                                                               null);
+
+    private static RedHxChassis createChassis(String serialNumber,
+                                              String health)
+            throws Exception
+    {
+        final RedHxChassisBuilder builder = new RedHxChassisBuilder(RedHxChassisTypeEnum.RACKMOUNT);
+
+        builder.setChassisName("Rack7-" + serialNumber);
+        builder.setSerialNumber(serialNumber);
+        builder.setStatusHealth(health);
+        builder.setComputerSystemList(Collections.<String>emptyList());
+        builder.setCooledByList(Collections.<String>emptyList());
+        builder.setPoweredByList(Collections.<String>emptyList());
+        builder.setSystemManagerList(Collections.<String>emptyList());
+
+        return builder.getInstance();
+    }
+
+    /**
+     * open the event stream of a console and read the comment sent when it is subscribed.
+     *
+     * @param lastEventId the Last-Event-ID header, null for none.
+     */
+    private static BufferedReader openStream(Server server,
+                                             String query,
+                                             String lastEventId)
+            throws IOException
+    {
+        final HttpURLConnection connection = openConnection(server,
+                                                            query,
+                                                            lastEventId);
+        final BufferedReader reader;
+
+        assertEquals(HttpURLConnection.HTTP_OK,
+                     connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("text/event-stream"));
+
+        reader = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                                                          StandardCharsets.UTF_8));
+        assertEquals(": subscribed",
+                     reader.readLine());
+        assertEquals("",
+                     reader.readLine());
+
+        return reader;
+    }
+
+    private static HttpURLConnection openConnection(Server server,
+                                                    String query,
+                                                    String lastEventId)
+            throws IOException
+    {
+        final URL url = new URL("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                                + ((ServerConnector) server.getConnectors()[0]).getLocalPort() + EVENT_URL + query);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+        connection.setReadTimeout(10000);
+
+        if (lastEventId != null)
+        {
+            connection.setRequestProperty("Last-Event-ID",
+                                          lastEventId);
+        }
+
+        return connection;
+    }
+
+    /**
+     * read one event and check its type and the ID and value of its chassis.
+     *
+     * @return the id of the event.
+     */
+    private static long readEvent(BufferedReader reader,
+                                  RedHxDbChassisId chassisId,
+                                  String value)
+            throws IOException
+    {
+        final String idLine = reader.readLine();
+
+        assertTrue(idLine,
+                   idLine.startsWith("id: "));
+        assertEquals("event: health",
+                     reader.readLine());
+
+        final String data = reader.readLine();
+
+        assertTrue(data,
+                   data.startsWith("data: {\"ID\":" + chassisId.getSequenceNumber() + ","));
+        assertTrue(data,
+                   data.contains("\"Value\":\"" + value + "\""));
+        assertEquals("",
+                     reader.readLine());
+
+        return Long.parseLong(idLine.substring("id: ".length()));
+    }
+
+    /**
+     * run the servlet in Jetty on an ephemeral port of the loopback address.
+     *
+     * @param maxThreadCount the most threads of the container.
+     */
+    private static Server startServer(RedHxEventBroker broker,
+                                      int maxThreadCount)
+            throws Exception
+    {
+        final QueuedThreadPool threadPool = new QueuedThreadPool(maxThreadCount,
+                                                                 maxThreadCount);
+        final Server server;
+        final ServerConnector connector;
+        final ServletContextHandler handler = new ServletContextHandler();
+        final ServletHolder holder = new ServletHolder(new RedHxEventServlet(broker));
+
+        threadPool.setReservedThreads(0);
+        server = new Server(threadPool);
+        connector = new ServerConnector(server,
+                                        1,
+                                        1);
+        connector.setHost(InetAddress.getLoopbackAddress().getHostAddress());
+        server.addConnector(connector);
+        holder.setAsyncSupported(true);
+        handler.addServlet(holder,
+                           EVENT_URL);
+        server.setHandler(handler);
+        server.start();
+
+        return server;
+    }
+
+    /**
+     * more consoles than the container has threads each receive their events, a console does not hold a thread.
+     */
+    @Test
+    public void asyncTest()
+            throws Exception
+    {
+        final RedHxDbPersistantDatabaseImpl database = new RedHxDbPersistantDatabaseImpl();
+        final RedHxEventBroker broker = new RedHxEventBroker();
+        final InetAddress address = InetAddress.getByName("192.168.7.1");
+        final RedHxDbChassisId chassisId = database.addChassis(address,
+                                                               createChassis("SN1", "OK"));
+        final Server server = startServer(broker,
+                                          8);
+        final List<BufferedReader> readerList = new ArrayList<>();
+
+        database.addChassisListener(broker);
+
+        try
+        {
+            for (int i = 0; i < 20; ++i)
+            {
+                readerList.add(openStream(server,
+                                          "?type=health",
+                                          null));
+            }
+
+            assertEquals(20,
+                         broker.getSubscriberCount());
+
+            database.addChassis(chassisId,
+                                createChassis("SN1", "Warning"));
+
+            for (BufferedReader reader : readerList)
+            {
+                readEvent(reader,
+                          chassisId,
+                          "Warning");
+            }
+        }
+        finally
+        {
+            for (BufferedReader reader : readerList)
+            {
+                reader.close();
+            }
+
+            broker.close();
+            server.stop();
+        }
+    }
+
+    /**
+     * a console that reconnects with the id of the last event it received is sent the events it missed. An id the
+     * broker did not publish is answered with a resync event, an id that is not a number with 400 Bad Request.
+     */
+    @Test
+    public void resumeTest()
+            throws Exception
+    {
+        final RedHxDbPersistantDatabaseImpl database = new RedHxDbPersistantDatabaseImpl();
+        final RedHxEventBroker broker = new RedHxEventBroker();
+        final InetAddress address = InetAddress.getByName("192.168.7.1");
+        final RedHxDbChassisId firstId = database.addChassis(address,
+                                                             createChassis("SN1", "OK"));
+        final RedHxDbChassisId secondId = database.addChassis(address,
+                                                              createChassis("SN2", "OK"));
+        final Server server = startServer(broker,
+                                          16);
+        final long lastEventId;
+
+        database.addChassisListener(broker);
+
+        try
+        {
+            try (BufferedReader reader = openStream(server,
+                                                    "?type=health",
+                                                    null))
+            {
+                database.addChassis(firstId,
+                                    createChassis("SN1", "Warning"));
+                lastEventId = readEvent(reader,
+                                        firstId,
+                                        "Warning");
+            }
+
+            // the console is not connected
+            database.addChassis(firstId,
+                                createChassis("SN1", "Critical"));
+            database.addChassis(secondId,
+                                createChassis("SN2", "Warning"));
+
+            try (BufferedReader reader = openStream(server,
+                                                    "?type=health",
+                                                    Long.toString(lastEventId)))
+            {
+                readEvent(reader,
+                          firstId,
+                          "Critical");
+                readEvent(reader,
+                          secondId,
+                          "Warning");
+            }
+
+            try (BufferedReader reader = openStream(server,
+                                                    "?type=health",
+                                                    Long.toString(lastEventId + 1000)))
+            {
+                assertEquals("event: resync",
+                             reader.readLine());
+            }
+
+            assertEquals(HttpURLConnection.HTTP_BAD_REQUEST,
+                         openConnection(server,
+                                        "?type=health",
+                                        "abc").getResponseCode());
+        }
+        finally
+        {
+            broker.close();
+            server.stop();
+        }
+    }
+
+    /**
+     * a subscriber that resumes after more events than the history holds is told how many it missed.
+     */
+    @Test
+    public void historyTest()
+            throws Exception
+    {
+        final RedHxDbPersistantDatabaseImpl database = new RedHxDbPersistantDatabaseImpl();
+        final RedHxEventBroker broker = new RedHxEventBroker();
+        final InetAddress address = InetAddress.getByName("192.168.7.1");
+        final RedHxEventSubscriber subscriber;
+
+        database.addChassisListener(broker);
+
+        // each new chassis is a health and a state event
+        for (int i = 0; i < RedHxEventBroker.HISTORY_SIZE; ++i)
+        {
+            database.addChassis(address,
+                                createChassis("SN-" + i, "OK"));
+        }
+
+        subscriber = broker.subscribe(HEALTH_FILTER,
+                                      0);
+
+        assertEquals(RedHxEventBroker.HISTORY_SIZE,
+                     subscriber.takeDroppedCount());
+        assertEquals(RedHxEventBroker.HISTORY_SIZE / 2,
+                     subscriber.poll().size());
+        broker.close();
+    }
+
+    /**
+     * subscribers added from many threads at the same time never pass the limit.
+     */
+    @Test
+    public void subscriberLimitTest()
+            throws Exception
+    {
+        final RedHxEventBroker broker = new RedHxEventBroker();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Future<Integer>> futureList = new ArrayList<>();
+        int subscribedCount = 0;
+
+        try
+        {
+            for (int t = 0; t < 8; ++t)
+            {
+                futureList.add(executor.submit(new Callable<Integer>()
+                {
+                    @Override
+                    public Integer call()
+                            throws Exception
+                    {
+                        int retVal = 0;
+
+                        startLatch.await();
+
+                        for (int i = 0; i < (RedHxEventBroker.MAX_SUBSCRIBER_COUNT / 4); ++i)
+                        {
+                            if (broker.subscribe(HEALTH_FILTER) != null)
+                            {
+                                ++retVal;
+                            }
+                        }
+
+                        return retVal;
+                    }
+                }));
+            }
+
+            startLatch.countDown();
+
+            for (Future<Integer> future : futureList)
+            {
+                subscribedCount += future.get(30,
+                                              TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals(RedHxEventBroker.MAX_SUBSCRIBER_COUNT,
+                     subscribedCount);
+        assertEquals(RedHxEventBroker.MAX_SUBSCRIBER_COUNT,
+                     broker.getSubscriberCount());
+        assertNull(broker.subscribe(HEALTH_FILTER));
+
+        broker.close();
+
+        assertEquals(0,
+                     broker.getSubscriberCount());
+        assertNotNull(broker.subscribe(HEALTH_FILTER));
+    }
+
+    /**
+     * a console that does not read is sent the latest health of a chassis once, and told to read again when its
+     * buffer overflows.
+     */
+    @Test
+    public void slowSubscriberTest()
+            throws Exception
+    {
+        final RedHxDbPersistantDatabaseImpl database = new RedHxDbPersistantDatabaseImpl();
+        final RedHxEventBroker broker = new RedHxEventBroker();
+        final RedHxEventSubscriber subscriber = broker.subscribe(HEALTH_FILTER);
+        final InetAddress address = InetAddress.getByName("192.168.7.1");
+
+        database.addChassisListener(broker);
+
+        final RedHxDbChassisId chassisId = database.addChassis(address,
+                                                               createChassis("SN1", "OK"));
+
+        database.addChassis(chassisId,
+                            createChassis("SN1", "Warning"));
+        database.addChassis(chassisId,
+                            createChassis("SN1", "Critical"));
+
+        List<RedHxChassisEvent> eventList = subscriber.take(0);
+
+        assertEquals(1,
+                     eventList.size());
+        assertEquals("Critical",
+                     eventList.get(0).getValue());
+        assertEquals(0,
+                     subscriber.takeDroppedCount());
+
+        for (int i = 0; i < (RedHxEventBroker.BUFFER_SIZE + 5); ++i)
+        {
+            database.addChassis(address,
+                                createChassis("SN-" + i, "OK"));
+        }
+
+        eventList = subscriber.take(0);
+
+        assertEquals(RedHxEventBroker.BUFFER_SIZE,
+                     eventList.size());
+        assertEquals(5,
+                     subscriber.takeDroppedCount());
+
+        broker.unsubscribe(subscriber);
+        assertTrue(subscriber.isClosed());
+        assertEquals(0,
+                     broker.getSubscriberCount());
+    }
+
+    @Test
+    public void streamTest()
+            throws Exception
+    {
+        final RedHxDbPersistantDatabaseImpl database = new RedHxDbPersistantDatabaseImpl();
+        final RedHxEventBroker broker = new RedHxEventBroker();
+        final InetAddress address = InetAddress.getByName("192.168.7.1");
+        final RedHxDbChassisId okId = database.addChassis(address,
+                                                          createChassis("SN1", "OK"));
+        final RedHxDbChassisId warningId = database.addChassis(address,
+                                                               createChassis("SN2", "OK"));
+        final Server server = startServer(broker,
+                                          16);
+
+        database.addChassisListener(broker);
+
+        try
+        {
+            try (BufferedReader reader = openStream(server,
+                                                    "?type=health&health=Warning&chassisType=RackMount",
+                                                    null))
+            {
+                // the OK chassis is filtered out by the health of the subscriber
+                database.addChassis(okId,
+                                    createChassis("SN1", "OK"));
+                database.addChassis(warningId,
+                                    createChassis("SN2", "Warning"));
+
+                assertTrue(reader.readLine().startsWith("id: "));
+                assertEquals("event: health",
+                             reader.readLine());
+
+                final String data = reader.readLine();
+
+                assertTrue(data,
+                           data.startsWith("data: {\"ID\":" + warningId.getSequenceNumber() + ",\"ChassisType\":\"RACKMOUNT\""));
+                assertTrue(data,
+                           data.contains("\"Value\":\"Warning\""));
+            }
+        }
+        finally
+        {
+            broker.close();
+            server.stop();
+        }
+
+        assertEquals(RedHxOperatingHealthEnum.WARNING,
+                     database.getChassis(warningId).getOperatingHealth());
+    }
+}
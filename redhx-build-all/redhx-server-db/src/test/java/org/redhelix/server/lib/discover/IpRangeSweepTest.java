@@ -0,0 +1,401 @@
+package org.redhelix.server.lib.discover;
+
+import java.net.InetAddress;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.redhelix.core.service.root.RedHxTcpProtocolTypeEnum;
+import org.redhelix.server.lib.reader.MockupBmc;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+
+/**
+ * Map the indexes of IPv4 and IPv6 sweeps to addresses, and sweep the loopback addresses for a fake BMC listening on
+ * one of them.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class IpRangeSweepTest
+{
+
+    /**
+     * the range swept for the fake BMC. Only 127.0.0.1 has a listening port, a connect to another address is refused.
+     */
+    private static final String BEGIN_LOOPBACK = "127.0.0.1";
+    private static final String END_LOOPBACK = "127.0.0.32";
+    private static final long SEED = 42;
+    private MockupBmc bmc;
+    private RedHxAsyncFetchEngine engine;
+    private List<RedHxDiscoveredEndpoint> foundList;
+    private RedHxDiscoveryListener listener;
+
+    private static InetAddress getByName(String name)
+            throws Exception
+    {
+        return InetAddress.getByName(name);
+    }
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        bmc = new MockupBmc();
+        engine = new RedHxAsyncFetchEngine();
+        foundList = new CopyOnWriteArrayList<>();
+        listener = new RedHxDiscoveryListener()
+        {
+            @Override
+            public void endpointDiscovered(RedHxDiscoveredEndpoint endpoint)
+            {
+                foundList.add(endpoint);
+            }
+        };
+    }
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        engine.close();
+        bmc.close();
+    }
+
+    private RedHxIpRangeSweep createSweep(String beginAddress,
+                                          String endAddress,
+                                          long seed,
+                                          long startIndex)
+            throws Exception
+    {
+        return createSweep(beginAddress,
+                           endAddress,
+                           seed,
+                           startIndex,
+                           RedHxIpRangeSweepPolicyBuilder.DEFAULT_PROBES_PER_SECOND);
+    }
+
+    private RedHxIpRangeSweep createSweep(String beginAddress,
+                                          String endAddress,
+                                          long seed,
+                                          long startIndex,
+                                          int probesPerSecond)
+            throws Exception
+    {
+        final RedHxIpRangeSweepPolicyBuilder builder = new RedHxIpRangeSweepPolicyBuilder();
+
+        builder.setTcpPort(RedHxTcpProtocolTypeEnum.HTTP,
+                           bmc.getUri(MockupBmc.SERVICE_ROOT_PATH).getPort());
+        builder.setProbesPerSecond(probesPerSecond);
+
+        return new RedHxIpRangeSweep(engine,
+                                     builder.getInstance(),
+                                     listener,
+                                     getByName(beginAddress),
+                                     getByName(endAddress),
+                                     seed,
+                                     startIndex);
+    }
+
+    /**
+     * check every index of a range maps to a different address in the range, so each address is probed once.
+     */
+    private void assertPermutation(String beginAddress,
+                                   String endAddress,
+                                   long expectedCount,
+                                   long seed)
+            throws Exception
+    {
+        final RedHxIpRangeSweep sweep = createSweep(beginAddress,
+                                                    endAddress,
+                                                    seed,
+                                                    0);
+        final Set<InetAddress> addressSet = new HashSet<>();
+
+        assertEquals(expectedCount,
+                     sweep.getAddressCount());
+
+        for (long i = 0; i < expectedCount; ++i)
+        {
+            final InetAddress address = sweep.getAddress(i);
+
+            assertEquals(getByName(beginAddress).getClass(),
+                         address.getClass());
+            assertTrue(address + " was probed twice.",
+                       addressSet.add(address));
+        }
+
+        assertTrue(addressSet.contains(getByName(beginAddress)));
+        assertTrue(addressSet.contains(getByName(endAddress)));
+    }
+
+    private long findIndex(RedHxIpRangeSweep sweep,
+                           String address)
+            throws Exception
+    {
+        final InetAddress wanted = getByName(address);
+
+        for (long i = 0; i < sweep.getAddressCount(); ++i)
+        {
+            if (wanted.equals(sweep.getAddress(i)))
+            {
+                return i;
+            }
+        }
+
+        throw new AssertionError(address + " is not in the sweep.");
+    }
+
+    @Test
+    public void permutationTest()
+            throws Exception
+    {
+        for (long seed = 0; seed < 8; ++seed)
+        {
+            assertPermutation("10.0.0.0",
+                              "10.0.3.231",
+                              1000,
+                              seed);
+            assertPermutation("192.168.1.0",
+                              "192.168.1.255",
+                              256,
+                              seed);
+            assertPermutation("10.0.0.1",
+                              "10.0.0.3",
+                              3,
+                              seed);
+        }
+    }
+
+    /**
+     * a /32 is one address and a /31 two, both below the count a multiplier is chosen for. The last addresses of the
+     * IPv4 and IPv6 spaces do not overflow the address length.
+     */
+    @Test
+    public void edgeRangeTest()
+            throws Exception
+    {
+        assertPermutation("10.1.2.3",
+                          "10.1.2.3",
+                          1,
+                          SEED);
+        assertPermutation("10.1.2.2",
+                          "10.1.2.3",
+                          2,
+                          SEED);
+        assertPermutation("255.255.255.250",
+                          "255.255.255.255",
+                          6,
+                          SEED);
+        assertPermutation("2001:db8::1",
+                          "2001:db8::1",
+                          1,
+                          SEED);
+        assertPermutation("2001:db8::fff0",
+                          "2001:db8::1:f",
+                          32,
+                          SEED);
+        assertPermutation("ffff:ffff:ffff:ffff:ffff:ffff:ffff:fff0",
+                          "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff",
+                          16,
+                          SEED);
+
+        final RedHxIpRangeSweep sweep = createSweep("0.0.0.0",
+                                                    "255.255.255.255",
+                                                    SEED,
+                                                    0);
+
+        assertEquals(RedHxIpRangeSweep.MAX_ADDRESS_COUNT,
+                     sweep.getAddressCount());
+        assertEquals(4,
+                     sweep.getAddress(RedHxIpRangeSweep.MAX_ADDRESS_COUNT - 1).getAddress().length);
+    }
+
+    @Test
+    public void invalidRangeTest()
+            throws Exception
+    {
+        final String[][] rangeArray =
+        {
+            {
+                "10.0.0.2", "10.0.0.1"
+            },
+            {
+                "10.0.0.1", "2001:db8::1"
+            },
+            {
+                "2001:db8::", "2001:db8::1:0:0"
+            }
+        };
+
+        for (String[] range : rangeArray)
+        {
+            try
+            {
+                createSweep(range[0],
+                            range[1],
+                            SEED,
+                            0);
+                fail("The range " + range[0] + " to " + range[1] + " was accepted.");
+            }
+            catch (IllegalArgumentException ex)
+            {
+                // expected
+            }
+        }
+
+        try
+        {
+            createSweep(BEGIN_LOOPBACK,
+                        END_LOOPBACK,
+                        SEED,
+                        33);
+            fail("A start index after the range was accepted.");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void sweepTest()
+            throws Exception
+    {
+        final RedHxIpRangeSweep sweep = createSweep(BEGIN_LOOPBACK,
+                                                    END_LOOPBACK,
+                                                    SEED,
+                                                    0);
+
+        sweep.start();
+        sweep.getDoneFuture().get(30,
+                                  TimeUnit.SECONDS);
+
+        assertEquals(32,
+                     sweep.getProbedCount());
+        assertEquals(32,
+                     sweep.getResumeIndex());
+        assertEquals(1,
+                     sweep.getFoundCount());
+        assertEquals(1,
+                     foundList.size());
+        assertEquals(BEGIN_LOOPBACK,
+                     foundList.get(0).getHostName());
+    }
+
+    /**
+     * a sweep started at a resume index probes only the indexes from it on.
+     */
+    @Test
+    public void resumeIndexTest()
+            throws Exception
+    {
+        final long bmcIndex = findIndex(createSweep(BEGIN_LOOPBACK,
+                                                    END_LOOPBACK,
+                                                    SEED,
+                                                    0),
+                                        BEGIN_LOOPBACK);
+        RedHxIpRangeSweep sweep = createSweep(BEGIN_LOOPBACK,
+                                              END_LOOPBACK,
+                                              SEED,
+                                              bmcIndex + 1);
+
+        sweep.start();
+        sweep.getDoneFuture().get(30,
+                                  TimeUnit.SECONDS);
+
+        assertEquals(0,
+                     sweep.getFoundCount());
+        assertEquals(32,
+                     sweep.getProbedCount());
+
+        sweep = createSweep(BEGIN_LOOPBACK,
+                            END_LOOPBACK,
+                            SEED,
+                            bmcIndex);
+        sweep.start();
+        sweep.getDoneFuture().get(30,
+                                  TimeUnit.SECONDS);
+
+        assertEquals(1,
+                     sweep.getFoundCount());
+
+        sweep = createSweep(BEGIN_LOOPBACK,
+                            END_LOOPBACK,
+                            SEED,
+                            32);
+        sweep.start();
+
+        assertTrue(sweep.isDone());
+    }
+
+    /**
+     * a sweep closed part way resumes where it stopped and the second sweep probes the rest of the range.
+     */
+    @Test
+    public void closeResumeTest()
+            throws Exception
+    {
+        final RedHxIpRangeSweep sweep = createSweep(BEGIN_LOOPBACK,
+                                                    END_LOOPBACK,
+                                                    SEED,
+                                                    0,
+                                                    20);
+
+        sweep.start();
+        Thread.sleep(400);
+        sweep.close();
+
+        final long resumeIndex = sweep.getResumeIndex();
+
+        assertTrue(sweep.isDone());
+        assertTrue("The resume index is " + resumeIndex + ".",
+                   (resumeIndex > 0) && (resumeIndex < 32));
+        assertTrue(resumeIndex <= sweep.getProbedCount());
+
+        final RedHxIpRangeSweep resumed = createSweep(BEGIN_LOOPBACK,
+                                                      END_LOOPBACK,
+                                                      SEED,
+                                                      resumeIndex);
+
+        resumed.start();
+        resumed.getDoneFuture().get(30,
+                                    TimeUnit.SECONDS);
+
+        assertEquals(32,
+                     resumed.getProbedCount());
+    }
+
+    /**
+     * the connects are started no faster than the probe rate, after a burst of a tenth of a second of probes.
+     */
+    @Test
+    public void rateTest()
+            throws Exception
+    {
+        final RedHxIpRangeSweep sweep = createSweep(BEGIN_LOOPBACK,
+                                                    END_LOOPBACK,
+                                                    SEED,
+                                                    0,
+                                                    40);
+        final long startNanoTime = System.nanoTime();
+
+        sweep.start();
+        sweep.getDoneFuture().get(30,
+                                  TimeUnit.SECONDS);
+
+        final long elapsedMilliseconds = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanoTime);
+
+        assertEquals(32,
+                     sweep.getProbedCount());
+        assertTrue("The sweep took " + elapsedMilliseconds + " ms.",
+                   elapsedMilliseconds >= 650);
+    }
+}
@@ -0,0 +1,104 @@
+package org.redhelix.server.lib.discover;
+
+import java.net.URI;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+import org.redhelix.core.util.RedHxRedfishProtocolVersionEnum;
+
+/**
+ * Parse the datagrams a Redfish service sends in answer to an SSDP M-SEARCH.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class SsdpDiscoveryEngineTest
+{
+
+    private static final String SEARCH_TARGET = "ST: " + RedHxSsdpDiscoveryEngine.REDFISH_SEARCH_TARGET + "\r\n";
+
+    @Test
+    public void validResponseTest()
+    {
+        final RedHxDiscoveredEndpoint endpoint = RedHxSsdpDiscoveryEngine.parseResponse("HTTP/1.1 200 OK\r\n"
+                                                                                        + "CACHE-CONTROL: max-age=1800\r\n"
+                                                                                        + SEARCH_TARGET
+                                                                                        + "USN: uuid:92384634-2938-2342-8820-489239905423::urn:dmtf-org:service:redfish-rest:1\r\n"
+                                                                                        + "AL: https://10.1.2.3:8443/redfish/v1/\r\n"
+                                                                                        + "LOCATION: http://10.1.2.3/description.xml\r\n"
+                                                                                        + "\r\n");
+
+        assertNotNull(endpoint);
+        assertEquals(URI.create("https://10.1.2.3:8443/redfish/v1/"),
+                     endpoint.getServiceRootUri());
+        assertEquals("10.1.2.3",
+                     endpoint.getHostName());
+        assertEquals(8443,
+                     endpoint.getTcpPortNumber());
+        assertEquals(RedHxRedfishProtocolVersionEnum.VERSION_1,
+                     endpoint.getRedfishProtocolVersion());
+        assertEquals("92384634-2938-2342-8820-489239905423",
+                     endpoint.getUuid());
+        assertEquals(endpoint.getUuid(),
+                     endpoint.getKey());
+    }
+
+    /**
+     * without an AL header the service root is taken from LOCATION, and without a USN the service root is the key.
+     */
+    @Test
+    public void locationResponseTest()
+    {
+        final RedHxDiscoveredEndpoint endpoint = RedHxSsdpDiscoveryEngine.parseResponse("HTTP/1.1 200 OK\n"
+                                                                                        + SEARCH_TARGET
+                                                                                        + "location: http://bmc.example.com/redfish/v1/\n"
+                                                                                        + "\n");
+
+        assertNotNull(endpoint);
+        assertEquals(URI.create("http://bmc.example.com/redfish/v1/"),
+                     endpoint.getServiceRootUri());
+        assertEquals(80,
+                     endpoint.getTcpPortNumber());
+        assertNull(endpoint.getUuid());
+        assertEquals("http://bmc.example.com/redfish/v1/",
+                     endpoint.getKey());
+    }
+
+    @Test
+    public void noLocationResponseTest()
+    {
+        assertNull(RedHxSsdpDiscoveryEngine.parseResponse("HTTP/1.1 200 OK\r\n"
+                                                          + SEARCH_TARGET
+                                                          + "USN: uuid:92384634-2938-2342-8820-489239905423\r\n"
+                                                          + "\r\n"));
+        assertNull(RedHxSsdpDiscoveryEngine.parseResponse("HTTP/1.1 200 OK\r\n"
+                                                          + SEARCH_TARGET
+                                                          + "AL: /redfish/v1/\r\n"
+                                                          + "\r\n"));
+    }
+
+    @Test
+    public void notRedfishResponseTest()
+    {
+        assertNull(RedHxSsdpDiscoveryEngine.parseResponse("NOTIFY * HTTP/1.1\r\n"
+                                                          + "NT: " + RedHxSsdpDiscoveryEngine.REDFISH_SEARCH_TARGET + "\r\n"
+                                                          + "AL: https://10.1.2.3/redfish/v1/\r\n"
+                                                          + "\r\n"));
+        assertNull(RedHxSsdpDiscoveryEngine.parseResponse("HTTP/1.1 404 Not Found\r\n"
+                                                          + SEARCH_TARGET
+                                                          + "AL: https://10.1.2.3/redfish/v1/\r\n"
+                                                          + "\r\n"));
+        assertNull(RedHxSsdpDiscoveryEngine.parseResponse("HTTP/1.1 200 OK\r\n"
+                                                          + "ST: upnp:rootdevice\r\n"
+                                                          + "LOCATION: http://10.1.2.3/description.xml\r\n"
+                                                          + "\r\n"));
+        assertNull(RedHxSsdpDiscoveryEngine.parseResponse("HTTP/1.1 200 OK\r\n"
+                                                          + "ST: urn:dmtf-org:service:redfish-rest:2\r\n"
+                                                          + "AL: https://10.1.2.3/redfish/v1/\r\n"
+                                                          + "\r\n"));
+        assertNull(RedHxSsdpDiscoveryEngine.parseResponse("\u0000\u0001 binary"));
+        assertNull(RedHxSsdpDiscoveryEngine.parseResponse(""));
+    }
+}
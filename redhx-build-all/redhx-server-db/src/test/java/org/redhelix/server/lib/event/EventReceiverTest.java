@@ -0,0 +1,481 @@
+package org.redhelix.server.lib.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.redhelix.core.chassis.RedHxChassisCollection;
+import org.redhelix.core.computer.system.RedHxComputerSystemCollection;
+import org.redhelix.core.service.root.RedHxTcpProtocolTypeEnum;
+import org.redhelix.core.util.RedHxRedfishProtocolVersionEnum;
+import org.redhelix.server.lib.poll.RedHxPollListener;
+import org.redhelix.server.lib.poll.RedHxPollPolicyBuilder;
+import org.redhelix.server.lib.poll.RedHxPollScheduler;
+import org.redhelix.server.lib.poll.RedHxPollTypeEnum;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+import org.redhelix.server.lib.reader.util.RedHxCrawlResult;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * Subscribe to the events of a fake BMC and post events to the receiver with the Context of the subscription and
+ * with Contexts that were never handed out.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class EventReceiverTest
+{
+
+    private static final String EVENT_SERVICE_PATH = "/redfish/v1/EventService";
+    private static final String MEMBER_PATH = "/redfish/v1/EventService/Destinations/1";
+
+    /**
+     * not the path a client would guess, the manager shall take it from the EventService.
+     */
+    private static final String SUBSCRIPTIONS_PATH = "/redfish/v1/EventService/Destinations";
+    private final BlockingQueue<String> deleteQueue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> postQueue = new LinkedBlockingQueue<>();
+    private final CountDownLatch postLatch = new CountDownLatch(1);
+    private HttpServer bmc;
+    private RedHxServerConnectionContext ctx;
+    private RedHxAsyncFetchEngine engine;
+    private RedHxEventSubscriptionManager manager;
+    private RedHxEventReceiver receiver;
+    private volatile boolean hasSubscriptions = true;
+
+    private static byte[] readAll(InputStream in)
+            throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int count;
+
+        while ((count = in.read(buffer)) > 0)
+        {
+            out.write(buffer,
+                      0,
+                      count);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange,
+                                String json)
+            throws IOException
+    {
+        final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type",
+                                          "application/json;charset=utf-8");
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK,
+                                     body.length);
+
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(body);
+        }
+    }
+
+    /**
+     * the BMC lists an EventService in its service root, links the EventService to its Subscriptions collection,
+     * records the body of the subscription POST and the path of each DELETE. The POST is not answered until the post latch is counted down.
+     */
+    private void handleBmc(HttpExchange exchange)
+            throws IOException
+    {
+        final String method = exchange.getRequestMethod();
+        final String path = exchange.getRequestURI().getPath();
+
+        try
+        {
+            if ("GET".equals(method) && path.startsWith("/redfish/v1/odata"))
+            {
+                respond(exchange,
+                        "{\"@odata.context\":\"/redfish/v1/$metadata\",\"value\":["
+                        + "{\"name\":\"Service\",\"kind\":\"Singleton\",\"url\":\"/redfish/v1/\"},"
+                        + "{\"name\":\"EventService\",\"kind\":\"Singleton\",\"url\":\"/redfish/v1/EventService\"}]}");
+            }
+            else if ("GET".equals(method) && path.equals(EVENT_SERVICE_PATH))
+            {
+                final StringBuilder json = new StringBuilder("{\"@odata.id\":\"" + EVENT_SERVICE_PATH
+                                                             + "\",\"Id\":\"EventService\"");
+
+                if (hasSubscriptions)
+                {
+                    json.append(",\"Subscriptions\":{\"@odata.id\":\"").append(SUBSCRIPTIONS_PATH).append("\"}");
+                }
+
+                respond(exchange,
+                        json.append('}').toString());
+            }
+            else if ("POST".equals(method) && path.equals(SUBSCRIPTIONS_PATH))
+            {
+                postQueue.add(new String(readAll(exchange.getRequestBody()),
+                                         StandardCharsets.UTF_8));
+                postLatch.await(10,
+                                TimeUnit.SECONDS);
+                exchange.getResponseHeaders().set("Location",
+                                                  MEMBER_PATH);
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_CREATED,
+                                             -1);
+            }
+            else if ("DELETE".equals(method))
+            {
+                deleteQueue.add(path);
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_NO_CONTENT,
+                                             -1);
+            }
+            else
+            {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND,
+                                             -1);
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    private int postEvent(String contextId)
+            throws IOException
+    {
+        final StringBuilder json = new StringBuilder("{\"Events\":[{\"EventType\":\"StatusChange\","
+                                                     + "\"OriginOfCondition\":{\"@odata.id\":\"/redfish/v1/Chassis/1\"}}]");
+
+        if (contextId != null)
+        {
+            json.append(",\"Context\":\"").append(contextId).append('"');
+        }
+
+        json.append('}');
+
+        return postBody(json.toString(),
+                        false);
+    }
+
+    /**
+     * post a body to the receiver.
+     *
+     * @param isChunked true to send the body chunked, without a Content-Length.
+     * @return the HTTP status of the response.
+     */
+    private int postBody(String json,
+                         boolean isChunked)
+            throws IOException
+    {
+        final URL url = receiver.getDestinationUri(InetAddress.getLoopbackAddress().getHostAddress()).toURL();
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+
+        if (isChunked)
+        {
+            connection.setChunkedStreamingMode(4096);
+        }
+
+        try (OutputStream out = connection.getOutputStream())
+        {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        final int retVal = connection.getResponseCode();
+
+        connection.disconnect();
+
+        return retVal;
+    }
+
+    private String takePostedContext()
+            throws Exception
+    {
+        final String body = postQueue.poll(10,
+                                           TimeUnit.SECONDS);
+
+        assertNotNull("The subscription was not posted.",
+                      body);
+
+        return new ObjectMapper().readTree(body).get("Context").asText();
+    }
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        final InetAddress loopback = InetAddress.getLoopbackAddress();
+
+        bmc = HttpServer.create(new InetSocketAddress(loopback,
+                                                      0),
+                                0);
+        bmc.createContext("/redfish/v1",
+                          new HttpHandler()
+                  {
+                      @Override
+                      public void handle(HttpExchange exchange)
+                              throws IOException
+                      {
+                          handleBmc(exchange);
+                      }
+                  });
+        bmc.start();
+
+        ctx = new RedHxServerConnectionContext(RedHxRedfishProtocolVersionEnum.VERSION_1,
+                                               RedHxTcpProtocolTypeEnum.HTTP,
+                                               loopback.getHostAddress(),
+                                               bmc.getAddress().getPort());
+        engine = new RedHxAsyncFetchEngine();
+        engine.openConnection(ctx).get(10,
+                                       TimeUnit.SECONDS);
+
+        final RedHxPollScheduler scheduler = new RedHxPollScheduler(engine,
+                                                                    new RedHxPollPolicyBuilder().getInstance(),
+                                                                    new RedHxPollListener()
+                                                            {
+                                                                @Override
+                                                                public void pollCompleted(RedHxServerConnectionContext ctx,
+                                                                                          RedHxPollTypeEnum pollType,
+                                                                                          RedHxCrawlResult<RedHxChassisCollection> chassisResult,
+                                                                                          RedHxCrawlResult<RedHxComputerSystemCollection> computerSystemResult)
+                                                                {
+                                                                }
+
+                                                                @Override
+                                                                public void pollFailed(RedHxServerConnectionContext ctx,
+                                                                                       RedHxPollTypeEnum pollType,
+                                                                                       Throwable cause,
+                                                                                       int consecutiveFailureCount)
+                                                                {
+                                                                }
+                                                            });
+
+        // the fake BMC does not post events, the receiver is sent them by the test
+        manager = new RedHxEventSubscriptionManager(engine,
+                                                    URI.create("http://localhost" + RedHxEventReceiver.DEFAULT_PATH));
+        receiver = new RedHxEventReceiver(new InetSocketAddress(loopback,
+                                                                0),
+                                          RedHxEventReceiver.DEFAULT_PATH,
+                                          1,
+                                          manager,
+                                          scheduler);
+        receiver.start();
+    }
+
+    @After
+    public void tearDown()
+            throws IOException
+    {
+        postLatch.countDown();
+
+        if (receiver != null)
+        {
+            receiver.close();
+        }
+
+        if (engine != null)
+        {
+            engine.close();
+        }
+
+        if (bmc != null)
+        {
+            bmc.stop(0);
+        }
+    }
+
+    /**
+     * only an event that carries the Context of a subscription is used. The Context is not the address of the BMC.
+     */
+    @Test
+    public void contextTest()
+            throws Exception
+    {
+        postLatch.countDown();
+
+        assertTrue(manager.subscribe(ctx).get(10,
+                                              TimeUnit.SECONDS));
+
+        final String contextId = takePostedContext();
+
+        assertEquals(contextId,
+                     manager.getContextId(ctx));
+        assertFalse(contextId.contains(ctx.getHostName()));
+        assertEquals(HttpURLConnection.HTTP_NO_CONTENT,
+                     postEvent(contextId));
+        assertEquals(1,
+                     receiver.getEventCount());
+        assertEquals(0,
+                     receiver.getUnknownContextCount());
+
+        assertEquals(HttpURLConnection.HTTP_NO_CONTENT,
+                     postEvent(ctx.getHostName() + ":" + ctx.getTcpPortNumber()));
+        assertEquals(HttpURLConnection.HTTP_NO_CONTENT,
+                     postEvent(null));
+        assertEquals(1,
+                     receiver.getEventCount());
+        assertEquals(2,
+                     receiver.getUnknownContextCount());
+
+        assertTrue(manager.unsubscribe(ctx).get(10,
+                                                TimeUnit.SECONDS));
+        assertEquals(MEMBER_PATH,
+                     deleteQueue.poll(10,
+                                      TimeUnit.SECONDS));
+        assertNull(manager.getContext(contextId));
+
+        // the Context of a deleted subscription is no longer accepted
+        assertEquals(HttpURLConnection.HTTP_NO_CONTENT,
+                     postEvent(contextId));
+        assertEquals(1,
+                     receiver.getEventCount());
+        assertEquals(3,
+                     receiver.getUnknownContextCount());
+    }
+
+    /**
+     * an EventService without a Subscriptions collection is not subscribed and nothing is posted to it.
+     */
+    @Test
+    public void noSubscriptionsTest()
+            throws Exception
+    {
+        hasSubscriptions = false;
+        postLatch.countDown();
+
+        assertFalse(manager.subscribe(ctx).get(10,
+                                               TimeUnit.SECONDS));
+        assertEquals(0,
+                     manager.getSubscriptionCount());
+        assertNull(manager.getContextId(ctx));
+        assertTrue(postQueue.isEmpty());
+    }
+
+    /**
+     * a subscription removed while its POST is in flight is deleted from the BMC once the POST is answered.
+     */
+    @Test
+    public void unsubscribeWhilePostingTest()
+            throws Exception
+    {
+        final CompletableFuture<Boolean> subscribeFuture = manager.subscribe(ctx);
+
+        takePostedContext();
+
+        final CompletableFuture<Boolean> unsubscribeFuture = manager.unsubscribe(ctx);
+
+        assertEquals(0,
+                     manager.getSubscriptionCount());
+        assertFalse(unsubscribeFuture.isDone());
+        assertTrue(deleteQueue.isEmpty());
+
+        postLatch.countDown();
+
+        assertTrue(subscribeFuture.get(10,
+                                       TimeUnit.SECONDS));
+        assertTrue(unsubscribeFuture.get(10,
+                                         TimeUnit.SECONDS));
+        assertEquals(MEMBER_PATH,
+                     deleteQueue.poll(10,
+                                      TimeUnit.SECONDS));
+    }
+
+    /**
+     * a chunked body larger than the limit is answered 413 without being read to the end, a small chunked body is
+     * read.
+     */
+    @Test
+    public void chunkedBodyTest()
+            throws Exception
+    {
+        postLatch.countDown();
+
+        final StringBuilder json = new StringBuilder("{\"Events\":[],\"Pad\":\"");
+
+        while (json.length() < (2 * 1024 * 1024))
+        {
+            json.append("0123456789abcdef");
+        }
+
+        json.append("\"}");
+
+        int statusCode;
+
+        try
+        {
+            statusCode = postBody(json.toString(),
+                                  true);
+        }
+        catch (IOException ex)
+        {
+            // the receiver may close the connection before the rest of the body is sent
+            statusCode = HttpURLConnection.HTTP_ENTITY_TOO_LARGE;
+        }
+
+        assertEquals(HttpURLConnection.HTTP_ENTITY_TOO_LARGE,
+                     statusCode);
+        assertEquals(HttpURLConnection.HTTP_NO_CONTENT,
+                     postBody("{\"Events\":[]}",
+                              true));
+        assertEquals(1,
+                     receiver.getUnknownContextCount());
+    }
+
+    /**
+     * an OriginOfCondition that is not a URI or a path is answered 400 and its event is not used.
+     */
+    @Test
+    public void malformedOriginTest()
+            throws Exception
+    {
+        postLatch.countDown();
+
+        assertTrue(manager.subscribe(ctx).get(10,
+                                              TimeUnit.SECONDS));
+
+        final String contextId = takePostedContext();
+
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST,
+                     postBody("{\"Context\":\"" + contextId + "\",\"Events\":[{\"EventType\":\"StatusChange\","
+                              + "\"OriginOfCondition\":\"http://bad host/redfish/v1/Chassis/1\"}]}",
+                              false));
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST,
+                     postBody("{\"Context\":\"" + contextId + "\",\"Events\":[{\"EventType\":\"StatusChange\","
+                              + "\"OriginOfCondition\":\"http:opaque\"}]}",
+                              false));
+        assertEquals(0,
+                     receiver.getEventCount());
+        assertEquals(HttpURLConnection.HTTP_NO_CONTENT,
+                     postEvent(contextId));
+        assertEquals(1,
+                     receiver.getEventCount());
+    }
+}
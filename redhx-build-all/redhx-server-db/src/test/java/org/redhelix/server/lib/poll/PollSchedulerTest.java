@@ -0,0 +1,459 @@
+package org.redhelix.server.lib.poll;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.redhelix.core.chassis.RedHxChassisCollection;
+import org.redhelix.core.computer.system.RedHxComputerSystemCollection;
+import org.redhelix.server.lib.metrics.RedHxFetchMetrics;
+import org.redhelix.server.lib.reader.MockupBmc;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+import org.redhelix.server.lib.reader.util.RedHxCrawlResult;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * Check the order the poll tasks are taken in, the jitter, the back off and the slots of the periodic polls, and poll
+ * fake BMCs to check the global and per-server limits on the polls in flight.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class PollSchedulerTest
+{
+
+    private static final long HOUR_MILLISECONDS = 60L * 60L * 1000L;
+    private final List<MockupBmc> bmcList = new ArrayList<MockupBmc>();
+    private RedHxAsyncFetchEngine engine;
+
+    private static RedHxPollPolicyBuilder createBuilder()
+    {
+        final RedHxPollPolicyBuilder builder = new RedHxPollPolicyBuilder();
+
+        builder.setInventoryIntervalMilliseconds(HOUR_MILLISECONDS);
+        builder.setStatusIntervalMilliseconds(HOUR_MILLISECONDS);
+
+        return builder;
+    }
+
+    private MockupBmc createBmc(long responseDelayMilliseconds)
+            throws Exception
+    {
+        final MockupBmc bmc = new MockupBmc();
+
+        bmc.setResponseDelay(responseDelayMilliseconds);
+        bmcList.add(bmc);
+
+        return bmc;
+    }
+
+    private RedHxPollScheduler createScheduler(RedHxPollPolicy policy,
+                                               final CountDownLatch completedLatch)
+    {
+        return new RedHxPollScheduler(engine,
+                                      policy,
+                                      new RedHxPollListener()
+                              {
+                                  @Override
+                                  public void pollCompleted(RedHxServerConnectionContext ctx,
+                                                            RedHxPollTypeEnum pollType,
+                                                            RedHxCrawlResult<RedHxChassisCollection> chassisResult,
+                                                            RedHxCrawlResult<RedHxComputerSystemCollection> computerSystemResult)
+                                  {
+                                      completedLatch.countDown();
+                                  }
+
+                                  @Override
+                                  public void pollFailed(RedHxServerConnectionContext ctx,
+                                                         RedHxPollTypeEnum pollType,
+                                                         Throwable cause,
+                                                         int consecutiveFailureCount)
+                                  {
+                                  }
+                              });
+    }
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        engine = new RedHxAsyncFetchEngine();
+    }
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        engine.close();
+
+        for (MockupBmc bmc : bmcList)
+        {
+            bmc.close();
+        }
+    }
+
+    /**
+     * the task due first is taken first, whatever order the tasks were added in.
+     */
+    @Test
+    public void dueOrderTest()
+            throws Exception
+    {
+        final DelayQueue<PollTask> queue = new DelayQueue<PollTask>();
+        final long now = System.nanoTime();
+        final long[] offsetArray =
+        {
+            30, 10, 20, 0
+        };
+
+        for (long offset : offsetArray)
+        {
+            queue.add(new PollTask(null,
+                                   RedHxPollTypeEnum.STATUS,
+                                   true,
+                                   now + TimeUnit.MILLISECONDS.toNanos(offset)));
+        }
+
+        long previousDue = Long.MIN_VALUE;
+
+        for (int i = 0; i < offsetArray.length; ++i)
+        {
+            final PollTask task = queue.take();
+
+            assertTrue(task.getDueNanoTime() > previousDue);
+            assertTrue(task.getDelay(TimeUnit.NANOSECONDS) <= 0);
+            previousDue = task.getDueNanoTime();
+        }
+
+        assertEquals(now + TimeUnit.MILLISECONDS.toNanos(30),
+                     previousDue);
+    }
+
+    /**
+     * a retried task is taken again at the retry time but keeps the time it was due, the time the scheduler lag is
+     * measured from.
+     */
+    @Test
+    public void retryTest()
+    {
+        final long now = System.nanoTime();
+        final long retry = now + TimeUnit.SECONDS.toNanos(1);
+        final PollTask task = new PollTask(null,
+                                           RedHxPollTypeEnum.STATUS,
+                                           true,
+                                           now).retry(retry);
+
+        assertEquals(now,
+                     task.getDueNanoTime());
+        assertEquals(now,
+                     task.getSlotNanoTime());
+        assertEquals(retry,
+                     task.getNextRunNanoTime());
+        assertTrue(task.getDelay(TimeUnit.MILLISECONDS) > 500);
+
+        final PollTask rescheduled = task.reschedule(retry);
+
+        assertEquals(retry,
+                     rescheduled.getDueNanoTime());
+        assertEquals(now,
+                     rescheduled.getSlotNanoTime());
+    }
+
+    /**
+     * a poll that waited for the running poll of its server is recorded with the lag from when it was due.
+     */
+    @Test
+    public void schedulerLagTest()
+            throws Exception
+    {
+        final RedHxFetchMetrics metrics = new RedHxFetchMetrics();
+        final MockupBmc bmc = createBmc(50);
+        final CountDownLatch completedLatch = new CountDownLatch(2);
+
+        engine.close();
+        engine = new RedHxAsyncFetchEngine(2,
+                                           20,
+                                           4,
+                                           10000,
+                                           ForkJoinPool.commonPool(),
+                                           metrics);
+
+        try (RedHxPollScheduler scheduler = createScheduler(createBuilder().getInstance(),
+                                                             completedLatch))
+        {
+            final RedHxServerConnectionContext ctx = bmc.createContext();
+
+            scheduler.start();
+            assertTrue(scheduler.addHost(ctx));
+            assertTrue(scheduler.requestPoll(ctx,
+                                             RedHxPollTypeEnum.INVENTORY));
+            assertTrue(scheduler.requestPoll(ctx,
+                                             RedHxPollTypeEnum.INVENTORY));
+            assertTrue(completedLatch.await(20,
+                                            TimeUnit.SECONDS));
+        }
+
+        assertEquals(2,
+                     metrics.getSchedulerLagHistogram().getCount());
+        assertTrue(metrics.getSchedulerLagHistogram().getMax() >= 900);
+    }
+
+    @Test
+    public void jitterTest()
+    {
+        final RedHxPollPolicyBuilder builder = createBuilder();
+
+        builder.setJitterFraction(0.1);
+
+        final RedHxPollScheduler scheduler = createScheduler(builder.getInstance(),
+                                                             new CountDownLatch(0));
+
+        for (int i = 0; i < 10000; ++i)
+        {
+            final long jittered = scheduler.jitter(60000);
+
+            assertTrue(jittered >= 54000);
+            assertTrue(jittered <= 66000);
+            assertTrue(scheduler.jitter(1) >= 1);
+        }
+
+        builder.setJitterFraction(0);
+
+        assertEquals(60000,
+                     createScheduler(builder.getInstance(),
+                                     new CountDownLatch(0)).jitter(60000));
+    }
+
+    /**
+     * the back off doubles for each failure in a row up to the maximum, with and without jitter.
+     */
+    @Test
+    public void backoffTest()
+    {
+        final RedHxPollPolicyBuilder builder = createBuilder();
+
+        builder.setJitterFraction(0);
+        builder.setBackoffMilliseconds(1000,
+                                       8000);
+
+        RedHxPollScheduler scheduler = createScheduler(builder.getInstance(),
+                                                       new CountDownLatch(0));
+
+        assertEquals(1000,
+                     scheduler.backoffMilliseconds(1));
+        assertEquals(2000,
+                     scheduler.backoffMilliseconds(2));
+        assertEquals(4000,
+                     scheduler.backoffMilliseconds(3));
+        assertEquals(8000,
+                     scheduler.backoffMilliseconds(4));
+        assertEquals(8000,
+                     scheduler.backoffMilliseconds(5));
+        assertEquals(8000,
+                     scheduler.backoffMilliseconds(1000));
+
+        builder.setJitterFraction(0.5);
+        scheduler = createScheduler(builder.getInstance(),
+                                    new CountDownLatch(0));
+
+        for (int i = 0; i < 1000; ++i)
+        {
+            final long backoff = scheduler.backoffMilliseconds(4);
+
+            assertTrue(backoff >= 4000);
+            assertTrue(backoff <= 8000);
+        }
+    }
+
+    /**
+     * the next slot is one interval after the previous slot, not after the end of the poll, and the slots that have
+     * passed are skipped.
+     */
+    @Test
+    public void nextSlotTest()
+    {
+        final RedHxPollPolicyBuilder builder = createBuilder();
+
+        builder.setJitterFraction(0);
+        builder.setStatusIntervalMilliseconds(1000);
+
+        final RedHxPollScheduler scheduler = createScheduler(builder.getInstance(),
+                                                             new CountDownLatch(0));
+        final long slot = System.nanoTime();
+        final long second = TimeUnit.SECONDS.toNanos(1);
+        final PollTask task = new PollTask(null,
+                                           RedHxPollTypeEnum.STATUS,
+                                           true,
+                                           slot);
+        PollTask next = scheduler.nextSlot(task,
+                                           slot + TimeUnit.MILLISECONDS.toNanos(300));
+
+        assertEquals(slot + second,
+                     next.getSlotNanoTime());
+        assertEquals(slot + second,
+                     next.getDueNanoTime());
+
+        next = scheduler.nextSlot(next.reschedule(slot + (5 * second)),
+                                  slot + (3 * second) + TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertEquals(slot + (4 * second),
+                     next.getSlotNanoTime());
+
+        next = scheduler.nextSlot(next,
+                                  slot + (6 * second));
+
+        assertEquals(slot + (6 * second),
+                     next.getSlotNanoTime());
+    }
+
+    @Test
+    public void policyTest()
+    {
+        final RedHxPollPolicy policy = new RedHxPollPolicyBuilder().getInstance();
+
+        assertEquals(RedHxPollPolicyBuilder.DEFAULT_STATUS_INTERVAL_MILLISECONDS,
+                     policy.getStatusIntervalMilliseconds());
+        assertEquals(RedHxPollPolicyBuilder.DEFAULT_MAX_POLLS_IN_FLIGHT,
+                     policy.getMaxPollsInFlight());
+
+        final RedHxPollPolicyBuilder builder = new RedHxPollPolicyBuilder();
+
+        builder.setBackoffMilliseconds(2000,
+                                       1000);
+
+        try
+        {
+            builder.getInstance();
+            fail("A minimum back off greater than the maximum was accepted.");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+
+        try
+        {
+            builder.setJitterFraction(1);
+            fail("A jitter fraction of 1 was accepted.");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+
+        try
+        {
+            builder.setMaxPollsInFlight(0);
+            fail("No polls in flight was accepted.");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * with one poll in flight allowed the servers are polled one after the other.
+     */
+    @Test
+    public void globalLimitTest()
+            throws Exception
+    {
+        assertEquals(1,
+                     pollAll(1));
+    }
+
+    /**
+     * the test of the global limit can see polls that overlap.
+     */
+    @Test
+    public void noGlobalLimitTest()
+            throws Exception
+    {
+        assertTrue(pollAll(3) > 1);
+    }
+
+    /**
+     * polls of the same server requested at the same time run one after the other.
+     */
+    @Test
+    public void perHostLimitTest()
+            throws Exception
+    {
+        final MockupBmc bmc = createBmc(20);
+        final RedHxPollPolicyBuilder builder = createBuilder();
+        final CountDownLatch completedLatch = new CountDownLatch(3);
+
+        builder.setMaxPollsInFlight(4);
+
+        try (RedHxPollScheduler scheduler = createScheduler(builder.getInstance(),
+                                                             completedLatch))
+        {
+            final RedHxServerConnectionContext ctx = bmc.createContext();
+
+            scheduler.start();
+            assertTrue(scheduler.addHost(ctx));
+
+            for (int i = 0; i < 3; ++i)
+            {
+                assertTrue(scheduler.requestPoll(ctx,
+                                                 RedHxPollTypeEnum.INVENTORY));
+            }
+
+            assertTrue(completedLatch.await(20,
+                                            TimeUnit.SECONDS));
+        }
+
+        assertEquals(1,
+                     bmc.getMaxActiveCount());
+    }
+
+    /**
+     * poll three servers at the same time.
+     *
+     * @return the largest number of the servers answering a GET at the same time.
+     */
+    private int pollAll(int maxPollsInFlight)
+            throws Exception
+    {
+        final AtomicInteger activeCount = new AtomicInteger();
+        final AtomicInteger maxActiveCount = new AtomicInteger();
+        final RedHxPollPolicyBuilder builder = createBuilder();
+        final CountDownLatch completedLatch = new CountDownLatch(3);
+
+        builder.setMaxPollsInFlight(maxPollsInFlight);
+
+        try (RedHxPollScheduler scheduler = createScheduler(builder.getInstance(),
+                                                             completedLatch))
+        {
+            scheduler.start();
+
+            for (int i = 0; i < 3; ++i)
+            {
+                final MockupBmc bmc = createBmc(100);
+                final RedHxServerConnectionContext ctx = bmc.createContext();
+
+                bmc.setSharedActiveCount(activeCount,
+                                         maxActiveCount);
+                assertTrue(scheduler.addHost(ctx));
+                assertTrue(scheduler.requestPoll(ctx,
+                                                 RedHxPollTypeEnum.INVENTORY));
+            }
+
+            assertTrue(completedLatch.await(20,
+                                            TimeUnit.SECONDS));
+        }
+
+        return maxActiveCount.get();
+    }
+}
@@ -0,0 +1,208 @@
+package org.redhelix.server.lib.reader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.chassis.RedHxChassisCollection;
+import org.redhelix.core.computer.system.RedHxComputerSystem;
+import org.redhelix.core.computer.system.RedHxComputerSystemCollection;
+import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.core.util.RedHxUriPathImpl;
+import org.redhelix.server.lib.reader.chassis.RedHxChassisCollectionReader;
+import org.redhelix.server.lib.reader.computer.system.RedHxComputerSystemCollectionReader;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+import org.redhelix.server.lib.reader.util.RedHxConditionalReadCache;
+import org.redhelix.server.lib.reader.util.RedHxJsonParseModeEnum;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * Read the mockup Chassis and ComputerSystem twice from a BMC that sends ETags. The second read is conditional and the
+ * resource built by the first read is returned when the BMC answers 304 Not Modified.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class ConditionalReadTest
+{
+
+    private static final Set<RedHxUriPath> CHASSIS_PATH_SET = Collections.<RedHxUriPath>singleton(new RedHxUriPathImpl(MockupBmc.CHASSIS_PATH));
+    private MockupBmc bmc;
+
+    private static RedHxChassis readChassis(RedHxServerConnectionContext ctx)
+            throws Exception
+    {
+        return RedHxChassisCollectionReader.readPaths(ctx,
+                                                      CHASSIS_PATH_SET).iterator().next();
+    }
+
+    private RedHxServerConnectionContext openContext(RedHxJsonParseModeEnum parseMode)
+            throws Exception
+    {
+        final RedHxServerConnectionContext ctx = bmc.createContext();
+
+        ctx.setParseMode(parseMode);
+        ctx.openConnection();
+
+        return ctx;
+    }
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        bmc = new MockupBmc();
+        bmc.setETagEnabled(true);
+    }
+
+    @After
+    public void tearDown()
+    {
+        bmc.close();
+    }
+
+    @Test
+    public void entityTreeNotModifiedTest()
+            throws Exception
+    {
+        notModifiedTest(RedHxJsonParseModeEnum.ENTITY_TREE);
+    }
+
+    @Test
+    public void streamingNotModifiedTest()
+            throws Exception
+    {
+        notModifiedTest(RedHxJsonParseModeEnum.STREAMING);
+    }
+
+    private void notModifiedTest(RedHxJsonParseModeEnum parseMode)
+            throws Exception
+    {
+        final RedHxServerConnectionContext ctx = openContext(parseMode);
+        final RedHxConditionalReadCache cache = ctx.getConditionalReadCache();
+        final RedHxChassisCollection chassisCollection = RedHxChassisCollectionReader.readPaths(ctx,
+                                                                                                CHASSIS_PATH_SET);
+        final RedHxComputerSystemCollection systems = RedHxComputerSystemCollectionReader.readPaths(ctx,
+                                                                                                     chassisCollection);
+        final RedHxChassis chassis = chassisCollection.iterator().next();
+        final RedHxComputerSystem computer = systems.iterator().next();
+
+        assertEquals(2,
+                     cache.size());
+        assertEquals(2,
+                     cache.getModifiedCount());
+        assertEquals(0,
+                     cache.getNotModifiedCount());
+
+        final RedHxChassisCollection chassisCollection2 = RedHxChassisCollectionReader.readPaths(ctx,
+                                                                                                 CHASSIS_PATH_SET);
+
+        assertSame(chassis,
+                   chassisCollection2.iterator().next());
+        assertSame(computer,
+                   RedHxComputerSystemCollectionReader.readPaths(ctx,
+                                                                 chassisCollection2).iterator().next());
+        assertEquals(2,
+                     cache.getModifiedCount());
+        assertEquals(2,
+                     cache.getNotModifiedCount());
+        assertEquals(2,
+                     bmc.getRequestCount(MockupBmc.CHASSIS_PATH));
+        assertEquals(1,
+                     bmc.getNotModifiedCount(MockupBmc.CHASSIS_PATH));
+        assertEquals(1,
+                     bmc.getNotModifiedCount(MockupBmc.COMPUTER_SYSTEM_PATH));
+    }
+
+    /**
+     * a resource that changed on the BMC is sent again with a new ETag and the new resource replaces the cached one.
+     */
+    @Test
+    public void modifiedTest()
+            throws Exception
+    {
+        final RedHxServerConnectionContext ctx = openContext(RedHxJsonParseModeEnum.STREAMING);
+        final RedHxChassis chassis = readChassis(ctx);
+        final String json = new String(MockupBmc.readPayload(MockupBmc.CHASSIS_PATH),
+                                       StandardCharsets.UTF_8);
+
+        bmc.setPayload(MockupBmc.CHASSIS_PATH,
+                       json.replace("\"ManufacturerName\"",
+                                    "\"OtherManufacturer\""));
+
+        final RedHxChassis changed = readChassis(ctx);
+
+        assertNotSame(chassis,
+                      changed);
+        assertEquals("OtherManufacturer",
+                     changed.getManufacturerName().getValue());
+        assertSame(changed,
+                   readChassis(ctx));
+        assertEquals(2,
+                     ctx.getConditionalReadCache().getModifiedCount());
+        assertEquals(1,
+                     ctx.getConditionalReadCache().getNotModifiedCount());
+    }
+
+    /**
+     * a BMC that sends no ETag or Last-Modified is read in full every time and nothing is cached.
+     */
+    @Test
+    public void noValidatorTest()
+            throws Exception
+    {
+        bmc.setETagEnabled(false);
+
+        final RedHxServerConnectionContext ctx = openContext(RedHxJsonParseModeEnum.ENTITY_TREE);
+        final RedHxChassis chassis = readChassis(ctx);
+
+        assertNotSame(chassis,
+                      readChassis(ctx));
+        assertEquals(0,
+                     ctx.getConditionalReadCache().size());
+        assertEquals(0,
+                     ctx.getConditionalReadCache().getNotModifiedCount());
+        assertEquals(0,
+                     bmc.getNotModifiedCount(MockupBmc.CHASSIS_PATH));
+    }
+
+    /**
+     * the non-blocking read sends the same conditional GET and shares the cache with the blocking readers.
+     */
+    @Test
+    public void asyncNotModifiedTest()
+            throws Exception
+    {
+        try (RedHxAsyncFetchEngine engine = new RedHxAsyncFetchEngine())
+        {
+            final RedHxServerConnectionContext ctx = bmc.createContext();
+            final RedHxUriPath path = CHASSIS_PATH_SET.iterator().next();
+
+            engine.openConnection(ctx).get(10,
+                                           TimeUnit.SECONDS);
+
+            final RedHxChassis chassis = RedHxChassisCollectionReader.readChassisAsync(engine,
+                                                                                       ctx,
+                                                                                       path).get(10,
+                                                                                                 TimeUnit.SECONDS);
+
+            assertSame(chassis,
+                       RedHxChassisCollectionReader.readChassisAsync(engine,
+                                                                     ctx,
+                                                                     path).get(10,
+                                                                               TimeUnit.SECONDS));
+            assertEquals(1,
+                         ctx.getConditionalReadCache().getNotModifiedCount());
+            assertEquals(1,
+                         bmc.getNotModifiedCount(MockupBmc.CHASSIS_PATH));
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package org.redhelix.server.lib.reader;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.redhelix.core.service.root.RedHxTcpProtocolTypeEnum;
+import org.redhelix.core.util.RedHxRedfishProtocolVersionEnum;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * A fake BMC that answers a GET with the DMTF mockup payload in src/test/resources/mockup. The number of GETs of each
+ * path is counted, the payload of a path can be replaced and a path can be made to answer 404 Not Found. If ETags are
+ * enabled each payload is sent with an ETag and a GET with a matching If-None-Match is answered 304 Not Modified. The
+ * GETs are answered on a thread pool, each after an optional delay, and the largest number answered at the same time
+ * is kept.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class MockupBmc implements Closeable
+{
+
+    public static final String CHASSIS_PATH = "/redfish/v1/Chassis/1";
+    public static final String COMPUTER_SYSTEM_PATH = "/redfish/v1/Systems/1";
+    public static final String ODATA_SERVICE_PATH = "/redfish/v1/odata";
+    public static final String SERVICE_ROOT_PATH = "/redfish/v1";
+    private final Map<String, AtomicInteger> notModifiedCountMap = new ConcurrentHashMap<>();
+    private final Set<String> notFoundSet = ConcurrentHashMap.newKeySet();
+    private final Map<String, byte[]> payloadMap = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestCountMap = new ConcurrentHashMap<>();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger maxActiveCount = new AtomicInteger();
+    private final HttpServer server;
+    private volatile long responseDelayMilliseconds;
+    private volatile AtomicInteger sharedActiveCount;
+    private volatile AtomicInteger sharedMaxActiveCount;
+    private volatile boolean isETagEnabled;
+
+    /**
+     * start the BMC on an ephemeral port of the loopback address.
+     *
+     * @throws IOException if the socket can not be bound.
+     */
+    public MockupBmc()
+            throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                                         0),
+                                   0);
+        server.createContext(SERVICE_ROOT_PATH,
+                             new HttpHandler()
+                     {
+                         @Override
+                         public void handle(HttpExchange exchange)
+                                 throws IOException
+                         {
+                             handleGet(exchange);
+                         }
+                     });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * read the mockup payload of a resource from the class path.
+     *
+     * @param path the path of the resource, for example {@link #CHASSIS_PATH}.
+     * @return null if the mockup has no such resource.
+     */
+    public static byte[] readPayload(String path)
+            throws IOException
+    {
+        try (InputStream in = MockupBmc.class.getResourceAsStream("/mockup" + trimSlash(path) + "/index.json"))
+        {
+            if (in == null)
+            {
+                return null;
+            }
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int count;
+
+            while ((count = in.read(buffer)) > 0)
+            {
+                out.write(buffer,
+                          0,
+                          count);
+            }
+
+            return out.toByteArray();
+        }
+    }
+
+    private static String trimSlash(String path)
+    {
+        if ((path.length() > 1) && path.endsWith("/"))
+        {
+            return path.substring(0,
+                                  path.length() - 1);
+        }
+
+        return path;
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * create a context that reads this BMC with HTTP. The connection is not opened.
+     */
+    public RedHxServerConnectionContext createContext()
+    {
+        return new RedHxServerConnectionContext(RedHxRedfishProtocolVersionEnum.VERSION_1,
+                                                RedHxTcpProtocolTypeEnum.HTTP,
+                                                server.getAddress().getAddress().getHostAddress(),
+                                                server.getAddress().getPort());
+    }
+
+    private static int getCount(Map<String, AtomicInteger> countMap,
+                                String path)
+    {
+        final AtomicInteger count = countMap.get(trimSlash(path));
+
+        return (count != null) ? count.get() : 0;
+    }
+
+    private static void increment(Map<String, AtomicInteger> countMap,
+                                  String path)
+    {
+        countMap.putIfAbsent(path,
+                             new AtomicInteger());
+        countMap.get(path).incrementAndGet();
+    }
+
+    private static void enter(AtomicInteger active,
+                              AtomicInteger maxActive)
+    {
+        final int count = active.incrementAndGet();
+        int max = maxActive.get();
+
+        while ((count > max) && !maxActive.compareAndSet(max,
+                                                         count))
+        {
+            max = maxActive.get();
+        }
+    }
+
+    /**
+     * get the HTTP URI of a path on this BMC.
+     */
+    public URI getUri(String path)
+    {
+        return URI.create("http://" + server.getAddress().getAddress().getHostAddress() + ":"
+                          + server.getAddress().getPort() + path);
+    }
+
+    /**
+     * get the largest number of GETs this BMC answered at the same time.
+     */
+    public int getMaxActiveCount()
+    {
+        return maxActiveCount.get();
+    }
+
+    /**
+     * get the number of GETs of a path answered 304 Not Modified.
+     */
+    public int getNotModifiedCount(String path)
+    {
+        return getCount(notModifiedCountMap,
+                        path);
+    }
+
+    /**
+     * get the number of GETs of a path.
+     */
+    public int getRequestCount(String path)
+    {
+        return getCount(requestCountMap,
+                        path);
+    }
+
+    /**
+     * count the GETs answered at the same time by this BMC in counters shared with other BMCs.
+     *
+     * @param activeCount the number of GETs being answered.
+     * @param maxActiveCount the largest value of activeCount.
+     */
+    public void setSharedActiveCount(AtomicInteger activeCount,
+                                     AtomicInteger maxActiveCount)
+    {
+        this.sharedMaxActiveCount = maxActiveCount;
+        this.sharedActiveCount = activeCount;
+    }
+
+    /**
+     * wait before answering each GET.
+     */
+    public void setResponseDelay(long milliseconds)
+    {
+        this.responseDelayMilliseconds = milliseconds;
+    }
+
+    /**
+     * send an ETag with each payload and answer 304 Not Modified to a GET whose If-None-Match is the ETag of the
+     * payload, or stop doing so.
+     */
+    public void setETagEnabled(boolean isETagEnabled)
+    {
+        this.isETagEnabled = isETagEnabled;
+    }
+
+    /**
+     * answer a GET of a path with a payload instead of the one in the mockup.
+     */
+    public void setPayload(String path,
+                           String json)
+    {
+        payloadMap.put(trimSlash(path),
+                       json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * answer 404 Not Found to a GET of a path, or stop doing so.
+     */
+    public void setNotFound(String path,
+                            boolean isNotFound)
+    {
+        if (isNotFound)
+        {
+            notFoundSet.add(trimSlash(path));
+        }
+        else
+        {
+            notFoundSet.remove(trimSlash(path));
+        }
+    }
+
+    private void handleGet(HttpExchange exchange)
+            throws IOException
+    {
+        final AtomicInteger sharedActive = sharedActiveCount;
+        final AtomicInteger sharedMaxActive = sharedMaxActiveCount;
+
+        enter(activeCount,
+              maxActiveCount);
+
+        if (sharedActive != null)
+        {
+            enter(sharedActive,
+                  sharedMaxActive);
+        }
+
+        try
+        {
+            if (responseDelayMilliseconds > 0)
+            {
+                try
+                {
+                    Thread.sleep(responseDelayMilliseconds);
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            final String path = trimSlash(exchange.getRequestURI().getPath());
+
+            increment(requestCountMap,
+                      path);
+
+            byte[] payload = payloadMap.get(path);
+
+            if (payload == null)
+            {
+                payload = readPayload(path);
+            }
+
+            if (notFoundSet.contains(path))
+            {
+                payload = null;
+            }
+
+            final String eTag = (payload != null) && isETagEnabled ? "\"" + Integer.toHexString(Arrays.hashCode(payload)) + "\"" : null;
+
+            if ((eTag != null) && eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+            {
+                increment(notModifiedCountMap,
+                          path);
+                exchange.getResponseHeaders().set("ETag",
+                                                  eTag);
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED,
+                                             -1);
+            }
+            else if (payload != null)
+            {
+                if (eTag != null)
+                {
+                    exchange.getResponseHeaders().set("ETag",
+                                                      eTag);
+                }
+
+                exchange.getResponseHeaders().set("Content-Type",
+                                                  "application/json;charset=utf-8");
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK,
+                                             payload.length);
+
+                try (OutputStream out = exchange.getResponseBody())
+                {
+                    out.write(payload);
+                }
+            }
+            else
+            {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND,
+                                             -1);
+            }
+        }
+        finally
+        {
+            exchange.close();
+            activeCount.decrementAndGet();
+
+            if (sharedActive != null)
+            {
+                sharedActive.decrementAndGet();
+            }
+        }
+    }
+}
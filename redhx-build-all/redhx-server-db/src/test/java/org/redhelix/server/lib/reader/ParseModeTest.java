@@ -0,0 +1,175 @@
+package org.redhelix.server.lib.reader;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.chassis.RedHxChassisCollection;
+import org.redhelix.core.computer.system.RedHxComputerSystem;
+import org.redhelix.core.computer.system.RedHxComputerSystemCollection;
+import org.redhelix.core.service.root.RedHxServiceRootIdEum;
+import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.core.util.RedHxUriPathImpl;
+import org.redhelix.server.lib.reader.chassis.RedHxChassisCollectionReader;
+import org.redhelix.server.lib.reader.computer.system.RedHxComputerSystemCollectionReader;
+import org.redhelix.core.action.RedHxActionProperties;
+import org.redhelix.server.lib.reader.util.AbstractRedfishJsonReader;
+import org.redhelix.server.lib.reader.util.RedHxJsonParseModeEnum;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * Read the mockup Chassis and ComputerSystem with the Olingo entity tree and with the streaming parser and compare the
+ * resources that are built.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class ParseModeTest
+{
+
+    private MockupBmc bmc;
+
+    /**
+     * the values the protected get methods of the reader return for the mockup ComputerSystem.
+     */
+    private static List<Object> readProperties(RedHxServerConnectionContext ctx)
+            throws Exception
+    {
+        return new ComputerSystemPropertyReader(ctx).read();
+    }
+
+    private RedHxServerConnectionContext openContext(RedHxJsonParseModeEnum parseMode)
+            throws Exception
+    {
+        final RedHxServerConnectionContext ctx = bmc.createContext();
+
+        ctx.setParseMode(parseMode);
+        ctx.openConnection();
+
+        return ctx;
+    }
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        bmc = new MockupBmc();
+    }
+
+    @After
+    public void tearDown()
+    {
+        bmc.close();
+    }
+
+    /**
+     * both modes build the same chassis and computer system, including the object valued properties such as LogServices
+     * and the actions.
+     */
+    @Test
+    public void sameResourceTest()
+            throws Exception
+    {
+        final Set<RedHxUriPath> pathSet = Collections.<RedHxUriPath>singleton(new RedHxUriPathImpl(MockupBmc.CHASSIS_PATH));
+        final RedHxServerConnectionContext entityCtx = openContext(RedHxJsonParseModeEnum.ENTITY_TREE);
+        final RedHxServerConnectionContext streamingCtx = openContext(RedHxJsonParseModeEnum.STREAMING);
+        final RedHxChassisCollection entityChassis = RedHxChassisCollectionReader.readPaths(entityCtx,
+                                                                                            pathSet);
+        final RedHxChassisCollection streamingChassis = RedHxChassisCollectionReader.readPaths(streamingCtx,
+                                                                                               pathSet);
+
+        assertEquals(1,
+                     entityChassis.size());
+
+        final RedHxChassis chassis = entityChassis.iterator().next();
+
+        assertEquals(chassis,
+                     streamingChassis.iterator().next());
+        assertEquals("/redfish/v1/Chassis/1/LogServices",
+                     chassis.getLogServicesUriPath().getValue());
+        assertEquals("/redfish/v1/Chassis/1/Power",
+                     chassis.getPowerUriPath().getValue());
+        assertEquals(1,
+                     chassis.getActionGroup().getActionSet().size());
+
+        final RedHxComputerSystemCollection entitySystems = RedHxComputerSystemCollectionReader.readPaths(entityCtx,
+                                                                                                          entityChassis);
+        final RedHxComputerSystemCollection streamingSystems = RedHxComputerSystemCollectionReader.readPaths(streamingCtx,
+                                                                                                             streamingChassis);
+
+        assertEquals(1,
+                     entitySystems.size());
+
+        final RedHxComputerSystem computer = entitySystems.iterator().next();
+
+        assertEquals(computer,
+                     streamingSystems.iterator().next());
+        assertEquals("/redfish/v1/Systems/1/LogServices",
+                     computer.getLogServicesUriPath().getValue());
+        assertEquals(2,
+                     computer.getActionGroup().getActionSet().size());
+        assertFalse(computer.getHostname().getValue().isEmpty());
+    }
+
+    /**
+     * a number, an object and the actions are returned the same way in both modes. A number is its text, an object is
+     * its odata.id and the actions are those of the property that is asked for.
+     */
+    @Test
+    public void samePropertyTest()
+            throws Exception
+    {
+        final List<Object> entityList = readProperties(openContext(RedHxJsonParseModeEnum.ENTITY_TREE));
+        final List<Object> streamingList = readProperties(openContext(RedHxJsonParseModeEnum.STREAMING));
+
+        assertEquals(entityList,
+                     streamingList);
+        assertEquals("8",
+                     entityList.get(0));
+        assertEquals("16",
+                     entityList.get(1));
+        assertEquals("/redfish/v1/Systems/1/EthernetInterfaces",
+                     entityList.get(2));
+        assertEquals(null,
+                     entityList.get(3));
+        assertEquals(2,
+                     ((Set<?>) entityList.get(4)).size());
+        assertEquals(Collections.emptySet(),
+                     entityList.get(5));
+    }
+
+    private static final class ComputerSystemPropertyReader
+            extends AbstractRedfishJsonReader
+    {
+
+        ComputerSystemPropertyReader(RedHxServerConnectionContext ctx)
+                throws Exception
+        {
+            super(ctx,
+                  RedHxServiceRootIdEum.COMPUTER_SYSTEMS,
+                  new RedHxUriPathImpl(MockupBmc.COMPUTER_SYSTEM_PATH));
+        }
+
+        List<Object> read()
+        {
+            final Set<RedHxActionProperties> actionSet = getActions("Actions");
+            final Set<RedHxActionProperties> statusActionSet = getActions("Status");
+
+            return Arrays.<Object>asList(getComplexValue("ProcessorSummary",
+                                                         "Count"),
+                                         getComplexValue("MemorySummary",
+                                                         "TotalSystemMemoryGiB"),
+                                         getOptionalProperty("EthernetInterfaces"),
+                                         getOptionalProperty("Links"),
+                                         actionSet,
+                                         statusActionSet);
+        }
+    }
+}
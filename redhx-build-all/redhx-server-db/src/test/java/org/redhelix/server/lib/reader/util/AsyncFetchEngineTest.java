@@ -0,0 +1,99 @@
+package org.redhelix.server.lib.reader.util;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.redhelix.core.util.RedHxHttpResponseException;
+import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.server.lib.reader.MockupBmc;
+import org.redhelix.server.lib.reader.chassis.RedHxChassisPathCollectionReader;
+
+/**
+ * Read the chassis collection of a fake BMC with the non-blocking fetch engine.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class AsyncFetchEngineTest
+{
+
+    private MockupBmc bmc;
+    private RedHxAsyncFetchEngine engine;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        bmc = new MockupBmc();
+        engine = new RedHxAsyncFetchEngine();
+    }
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        engine.close();
+        bmc.close();
+    }
+
+    @Test
+    public void readChassisCollectionTest()
+            throws Exception
+    {
+        final RedHxServerConnectionContext ctx = bmc.createContext();
+
+        engine.openConnection(ctx).get(10,
+                                       TimeUnit.SECONDS);
+
+        final Set<RedHxUriPath> pathSet = RedHxChassisPathCollectionReader.readChassisCollectionAsync(engine,
+                                                                                                     ctx).get(10,
+                                                                                                              TimeUnit.SECONDS);
+
+        assertEquals(1,
+                     pathSet.size());
+        assertEquals(MockupBmc.CHASSIS_PATH,
+                     pathSet.iterator().next().getValue());
+    }
+
+    /**
+     * a service root with no Chassis link fails the future instead of throwing from the call.
+     */
+    @Test
+    public void missingChassisLinkTest()
+            throws Exception
+    {
+        bmc.setPayload(MockupBmc.ODATA_SERVICE_PATH,
+                       "{\"@odata.context\":\"/redfish/v1/$metadata\",\"value\":["
+                       + "{\"name\":\"Service\",\"kind\":\"Singleton\",\"url\":\"/redfish/v1/\"},"
+                       + "{\"name\":\"Systems\",\"kind\":\"Singleton\",\"url\":\"/redfish/v1/Systems\"}]}");
+
+        final RedHxServerConnectionContext ctx = bmc.createContext();
+
+        engine.openConnection(ctx).get(10,
+                                       TimeUnit.SECONDS);
+
+        final CompletableFuture<Set<RedHxUriPath>> future = RedHxChassisPathCollectionReader.readChassisCollectionAsync(engine,
+                                                                                                                       ctx);
+
+        try
+        {
+            future.get(10,
+                       TimeUnit.SECONDS);
+            fail("A service root without a Chassis link was read.");
+        }
+        catch (ExecutionException ex)
+        {
+            assertTrue(ex.getCause() instanceof RedHxHttpResponseException);
+            assertEquals(404,
+                         ((RedHxHttpResponseException) ex.getCause()).getHttpErrorCode());
+        }
+    }
+}
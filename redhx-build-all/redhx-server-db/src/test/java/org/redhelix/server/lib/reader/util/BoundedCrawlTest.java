@@ -0,0 +1,192 @@
+package org.redhelix.server.lib.reader.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.core.util.RedHxUriPathImpl;
+
+/**
+ * Crawl paths with readers that complete later, at once, with null or never.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class BoundedCrawlTest
+{
+
+    private static List<RedHxUriPath> createPathList(int count)
+    {
+        final List<RedHxUriPath> list = new ArrayList<>(count);
+
+        for (int i = 0; i < count; ++i)
+        {
+            list.add(new RedHxUriPathImpl("/redfish/v1/Chassis/" + i));
+        }
+
+        return list;
+    }
+
+    /**
+     * no more than the maximum number of reads are in flight, and the resources are in the order of the paths.
+     */
+    @Test
+    public void concurrencyTest()
+            throws Exception
+    {
+        final int maxConcurrent = 4;
+        final AtomicInteger inFlightCount = new AtomicInteger();
+        final AtomicInteger maxInFlightCount = new AtomicInteger();
+        final ScheduledExecutorService executor = Executors.newScheduledThreadPool(8);
+        final List<RedHxUriPath> pathList = createPathList(40);
+
+        try
+        {
+            final RedHxCrawlResult<List<String>> result = RedHxBoundedCrawl.crawl(pathList,
+                                                                                  new Function<RedHxUriPath, CompletableFuture<String>>()
+                                                                          {
+                                                                              @Override
+                                                                              public CompletableFuture<String> apply(final RedHxUriPath path)
+                                                                              {
+                                                                                  final CompletableFuture<String> future = new CompletableFuture<>();
+                                                                                  final int count = inFlightCount.incrementAndGet();
+                                                                                  int max = maxInFlightCount.get();
+
+                                                                                  while ((count > max) && !maxInFlightCount.compareAndSet(max,
+                                                                                                                                         count))
+                                                                                  {
+                                                                                      max = maxInFlightCount.get();
+                                                                                  }
+
+                                                                                  executor.schedule(new Runnable()
+                                                                                  {
+                                                                                      @Override
+                                                                                      public void run()
+                                                                                      {
+                                                                                          inFlightCount.decrementAndGet();
+                                                                                          future.complete(path.getValue());
+                                                                                      }
+                                                                                  },
+                                                                                                    5,
+                                                                                                    TimeUnit.MILLISECONDS);
+
+                                                                                  return future;
+                                                                              }
+                                                                          },
+                                                                                  maxConcurrent,
+                                                                                  0).get(30,
+                                                                                         TimeUnit.SECONDS);
+
+            assertTrue(result.isComplete());
+            assertEquals(maxConcurrent,
+                         maxInFlightCount.get());
+            assertEquals(pathList.size(),
+                         result.getCollection().size());
+
+            for (int i = 0; i < pathList.size(); ++i)
+            {
+                assertEquals(pathList.get(i).getValue(),
+                             result.getCollection().get(i));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * reads that are complete when they are returned do not recurse on the stack of the crawl.
+     */
+    @Test
+    public void completedReadTest()
+            throws Exception
+    {
+        final int count = 200000;
+        final RedHxCrawlResult<List<String>> result = RedHxBoundedCrawl.crawl(createPathList(count),
+                                                                              new Function<RedHxUriPath, CompletableFuture<String>>()
+                                                                      {
+                                                                          @Override
+                                                                          public CompletableFuture<String> apply(RedHxUriPath path)
+                                                                          {
+                                                                              return CompletableFuture.completedFuture(path.getValue());
+                                                                          }
+                                                                      },
+                                                                              2,
+                                                                              0).get(30,
+                                                                                     TimeUnit.SECONDS);
+
+        assertEquals(count,
+                     result.getCollection().size());
+    }
+
+    /**
+     * a read that completes with null is reported in the error map.
+     */
+    @Test
+    public void nullReadTest()
+            throws Exception
+    {
+        final List<RedHxUriPath> pathList = createPathList(3);
+        final RedHxUriPath nullPath = pathList.get(1);
+        final RedHxCrawlResult<List<String>> result = RedHxBoundedCrawl.crawl(pathList,
+                                                                              new Function<RedHxUriPath, CompletableFuture<String>>()
+                                                                      {
+                                                                          @Override
+                                                                          public CompletableFuture<String> apply(RedHxUriPath path)
+                                                                          {
+                                                                              return CompletableFuture.completedFuture(path.equals(nullPath) ? null : path.getValue());
+                                                                          }
+                                                                      },
+                                                                              2,
+                                                                              0).get(30,
+                                                                                     TimeUnit.SECONDS);
+
+        assertEquals(2,
+                     result.getCollection().size());
+        assertEquals(1,
+                     result.getErrorMap().size());
+        assertTrue(result.getErrorMap().get(nullPath) instanceof IllegalStateException);
+    }
+
+    /**
+     * reads that do not complete before the deadline are reported as timed out.
+     */
+    @Test
+    public void deadlineTest()
+            throws Exception
+    {
+        final List<RedHxUriPath> pathList = createPathList(5);
+        final RedHxCrawlResult<List<String>> result = RedHxBoundedCrawl.crawl(pathList,
+                                                                              new Function<RedHxUriPath, CompletableFuture<String>>()
+                                                                      {
+                                                                          @Override
+                                                                          public CompletableFuture<String> apply(RedHxUriPath path)
+                                                                          {
+                                                                              return new CompletableFuture<>();
+                                                                          }
+                                                                      },
+                                                                              2,
+                                                                              100).get(30,
+                                                                                       TimeUnit.SECONDS);
+
+        assertTrue(result.getCollection().isEmpty());
+        assertEquals(pathList.size(),
+                     result.getErrorMap().size());
+
+        for (Throwable ex : result.getErrorMap().values())
+        {
+            assertTrue(ex instanceof TimeoutException);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.redhelix.server.lib.reader.util;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.redhelix.server.lib.reader.MockupBmc;
+
+/**
+ * Send GETs through a pooled transport and check the pool limits and that a connection is returned to the pool when
+ * the response is returned.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class PooledHttpClientTest
+{
+
+    private static final int MAX_CONNECTION_PER_HOST = 2;
+    private static final int MAX_CONNECTION_TOTAL = 8;
+    private static final int REQUEST_COUNT = 8;
+    private MockupBmc bmc;
+    private RedHxPooledHttpClientFactory factory;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        bmc = new MockupBmc();
+        factory = new RedHxPooledHttpClientFactory(MAX_CONNECTION_TOTAL,
+                                                   MAX_CONNECTION_PER_HOST,
+                                                   RedHxPooledHttpClientFactory.DEFAULT_KEEP_ALIVE_MILLISECONDS,
+                                                   RedHxPooledHttpClientFactory.DEFAULT_TIMEOUT_MILLISECONDS);
+    }
+
+    @After
+    public void tearDown()
+    {
+        factory.shutdown();
+        bmc.close();
+    }
+
+    private HttpResponse get(URI uri)
+            throws Exception
+    {
+        return factory.create(HttpMethod.GET,
+                              uri).execute(new HttpGet(uri));
+    }
+
+    @Test
+    public void poolSizeTest()
+    {
+        final PoolStats stats = factory.getPoolStats();
+
+        assertEquals(MAX_CONNECTION_TOTAL,
+                     stats.getMax());
+        assertEquals(0,
+                     stats.getLeased());
+        assertEquals(MAX_CONNECTION_PER_HOST,
+                     factory.getMaxConnectionPerHost());
+    }
+
+    /**
+     * the body is read before the response is returned, so the connection is back in the pool even though the
+     * response is never closed, and the next GET reuses it.
+     */
+    @Test
+    public void connectionReturnedTest()
+            throws Exception
+    {
+        final URI uri = bmc.getUri(MockupBmc.CHASSIS_PATH);
+        final HttpResponse response = get(uri);
+
+        assertEquals(200,
+                     response.getStatusLine().getStatusCode());
+        assertEquals(0,
+                     factory.getPoolStats().getLeased());
+        assertEquals(1,
+                     factory.getPoolStats().getAvailable());
+
+        get(uri);
+
+        assertEquals(1,
+                     factory.getPoolStats().getAvailable());
+        assertTrue(EntityUtils.toString(response.getEntity()).contains("\"Id\""));
+    }
+
+    /**
+     * concurrent GETs of one server never use more connections than the per server limit.
+     */
+    @Test
+    public void perRouteLimitTest()
+            throws Exception
+    {
+        final URI uri = bmc.getUri(MockupBmc.CHASSIS_PATH);
+        final ExecutorService executor = Executors.newFixedThreadPool(REQUEST_COUNT);
+        final List<Future<HttpResponse>> futureList = new ArrayList<>();
+
+        bmc.setResponseDelay(100);
+
+        try
+        {
+            for (int i = 0; i < REQUEST_COUNT; ++i)
+            {
+                futureList.add(executor.submit(new Callable<HttpResponse>()
+                {
+                    @Override
+                    public HttpResponse call()
+                            throws Exception
+                    {
+                        return get(uri);
+                    }
+                }));
+            }
+
+            for (Future<HttpResponse> future : futureList)
+            {
+                assertEquals(200,
+                             future.get(30,
+                                        TimeUnit.SECONDS).getStatusLine().getStatusCode());
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals(REQUEST_COUNT,
+                     bmc.getRequestCount(MockupBmc.CHASSIS_PATH));
+        assertEquals(MAX_CONNECTION_PER_HOST,
+                     bmc.getMaxActiveCount());
+        assertEquals(MAX_CONNECTION_PER_HOST,
+                     factory.getPoolStats().getAvailable());
+    }
+}
@@ -0,0 +1,196 @@
+package org.redhelix.server.lib.reader.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.redhelix.core.service.root.RedHxTcpProtocolTypeEnum;
+import org.redhelix.core.util.RedHxRedfishProtocolVersionEnum;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Submit reads that wait a short time to a read executor and count the reads running at the same time, in the JVM
+ * and for each Redfish server.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class ReadExecutorTest
+{
+
+    private static final long READ_MILLISECONDS = 50;
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final ConcurrentMap<String, AtomicInteger> hostActiveMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> hostMaxActiveMap = new ConcurrentHashMap<>();
+    private final AtomicInteger maxActiveCount = new AtomicInteger();
+    private RedHxReadExecutor executor;
+
+    private static RedHxServerConnectionContext createContext(int serverNumber)
+    {
+        return new RedHxServerConnectionContext(RedHxRedfishProtocolVersionEnum.VERSION_1,
+                                                RedHxTcpProtocolTypeEnum.HTTPS,
+                                                "10.0.0." + serverNumber,
+                                                443);
+    }
+
+    private static void enter(AtomicInteger active,
+                              AtomicInteger maxActive)
+    {
+        final int count = active.incrementAndGet();
+        int max = maxActive.get();
+
+        while ((count > max) && !maxActive.compareAndSet(max,
+                                                         count))
+        {
+            max = maxActive.get();
+        }
+    }
+
+    @Before
+    public void setUp()
+    {
+        activeCount.set(0);
+        maxActiveCount.set(0);
+        hostActiveMap.clear();
+        hostMaxActiveMap.clear();
+    }
+
+    @After
+    public void tearDown()
+    {
+        if (executor != null)
+        {
+            executor.close();
+        }
+    }
+
+    /**
+     * a read that records how many reads run at the same time, in total and to its server.
+     */
+    private Callable<String> createRead(final RedHxServerConnectionContext ctx)
+    {
+        final String host = ctx.getHostName();
+
+        hostActiveMap.putIfAbsent(host,
+                                  new AtomicInteger());
+        hostMaxActiveMap.putIfAbsent(host,
+                                     new AtomicInteger());
+
+        return new Callable<String>()
+        {
+            @Override
+            public String call()
+                    throws Exception
+            {
+                enter(activeCount,
+                      maxActiveCount);
+                enter(hostActiveMap.get(host),
+                      hostMaxActiveMap.get(host));
+
+                try
+                {
+                    Thread.sleep(READ_MILLISECONDS);
+                }
+                finally
+                {
+                    hostActiveMap.get(host).decrementAndGet();
+                    activeCount.decrementAndGet();
+                }
+
+                return host;
+            }
+        };
+    }
+
+    private void submitAll(List<RedHxServerConnectionContext> ctxList,
+                           int readsPerServer)
+            throws Exception
+    {
+        final List<CompletableFuture<String>> futureList = new ArrayList<>();
+
+        for (int i = 0; i < readsPerServer; ++i)
+        {
+            for (RedHxServerConnectionContext ctx : ctxList)
+            {
+                futureList.add(executor.submit(ctx,
+                                               createRead(ctx)));
+            }
+        }
+
+        for (CompletableFuture<String> future : futureList)
+        {
+            future.get(30,
+                       TimeUnit.SECONDS);
+        }
+
+        assertEquals(0,
+                     executor.getActiveReadCount());
+        assertEquals(futureList.size(),
+                     executor.getCompletedReadCount());
+    }
+
+    /**
+     * the reads of one server never run more than the per server cap at the same time, the reads of other servers
+     * are not held back by it.
+     */
+    @Test
+    public void perHostLimitTest()
+            throws Exception
+    {
+        final List<RedHxServerConnectionContext> ctxList = new ArrayList<>();
+
+        executor = new RedHxReadExecutor(100,
+                                         2);
+
+        for (int i = 1; i <= 3; ++i)
+        {
+            ctxList.add(createContext(i));
+        }
+
+        submitAll(ctxList,
+                  6);
+
+        for (AtomicInteger hostMax : hostMaxActiveMap.values())
+        {
+            assertEquals(2,
+                         hostMax.get());
+        }
+
+        assertTrue(maxActiveCount.get() > 2);
+        assertTrue(executor.getPermitWaitCount() > 0);
+    }
+
+    /**
+     * the reads of all servers never run more than the JVM cap at the same time.
+     */
+    @Test
+    public void globalLimitTest()
+            throws Exception
+    {
+        final List<RedHxServerConnectionContext> ctxList = new ArrayList<>();
+
+        executor = new RedHxReadExecutor(3,
+                                         RedHxReadExecutor.DEFAULT_MAX_READS_PER_HOST);
+
+        for (int i = 1; i <= 6; ++i)
+        {
+            ctxList.add(createContext(i));
+        }
+
+        submitAll(ctxList,
+                  2);
+
+        assertEquals(3,
+                     maxActiveCount.get());
+        assertTrue(executor.getPermitWaitCount() > 0);
+    }
+}
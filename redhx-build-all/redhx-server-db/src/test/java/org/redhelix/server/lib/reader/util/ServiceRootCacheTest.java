@@ -0,0 +1,246 @@
+package org.redhelix.server.lib.reader.util;
+
+import java.net.HttpURLConnection;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.olingo.client.api.communication.ODataClientErrorException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.redhelix.core.service.root.RedHxServiceRootIdEum;
+import org.redhelix.core.util.RedHxUriPathImpl;
+import org.redhelix.server.lib.reader.MockupBmc;
+import org.redhelix.server.lib.reader.chassis.RedHxChassisPathCollectionReader;
+
+/**
+ * Open connections to a fake BMC and check when the process-wide service root cache reads the service root again.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class ServiceRootCacheTest
+{
+
+    private static final String CHASSIS_COLLECTION_PATH = "/redfish/v1/Chassis";
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private MockupBmc bmc;
+    private RedHxServiceRootCache cache;
+
+    private RedHxServerConnectionContext openContext()
+            throws Exception
+    {
+        final RedHxServerConnectionContext ctx = bmc.createContext();
+
+        ctx.openConnection();
+
+        return ctx;
+    }
+
+    private int getServiceRootReadCount()
+    {
+        return bmc.getRequestCount(MockupBmc.ODATA_SERVICE_PATH);
+    }
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        bmc = new MockupBmc();
+        cache = RedHxServiceRootCache.getInstance();
+    }
+
+    @After
+    public void tearDown()
+    {
+        cache.setTimeToLiveMilliseconds(RedHxServiceRootCache.DEFAULT_TIME_TO_LIVE_MILLISECONDS);
+        bmc.close();
+    }
+
+    /**
+     * a second open uses the cached service root until the time to live has passed.
+     */
+    @Test
+    public void timeToLiveTest()
+            throws Exception
+    {
+        cache.setTimeToLiveMilliseconds(500);
+        openContext();
+
+        assertEquals(1,
+                     getServiceRootReadCount());
+
+        final long hitCount = cache.getHitCount();
+        final RedHxServerConnectionContext ctx = openContext();
+
+        assertTrue(ctx.isConnectionOpen());
+        assertEquals(1,
+                     getServiceRootReadCount());
+        assertEquals(hitCount + 1,
+                     cache.getHitCount());
+
+        Thread.sleep(600);
+
+        final long missCount = cache.getMissCount();
+
+        openContext();
+        assertEquals(2,
+                     getServiceRootReadCount());
+        assertEquals(missCount + 1,
+                     cache.getMissCount());
+    }
+
+    /**
+     * a 404 Not Found for the chassis collection listed in the service root removes the server from the cache.
+     */
+    @Test
+    public void notFoundTest()
+            throws Exception
+    {
+        final RedHxServerConnectionContext ctx = openContext();
+
+        bmc.setNotFound(CHASSIS_COLLECTION_PATH,
+                        true);
+
+        try
+        {
+            RedHxChassisPathCollectionReader.readChassisCollection(ctx);
+            fail("A chassis collection that is not found was read.");
+        }
+        catch (ODataClientErrorException ex)
+        {
+            assertEquals(HttpURLConnection.HTTP_NOT_FOUND,
+                         ex.getStatusLine().getStatusCode());
+        }
+
+        assertFalse(ctx.isConnectionOpen());
+
+        bmc.setNotFound(CHASSIS_COLLECTION_PATH,
+                        false);
+        ctx.openConnection();
+
+        assertTrue(ctx.isConnectionOpen());
+        assertEquals(2,
+                     getServiceRootReadCount());
+        assertEquals(1,
+                     RedHxChassisPathCollectionReader.readChassisCollection(ctx).size());
+    }
+
+    /**
+     * the non-blocking read removes the server from the cache on a 404 of a service, but not on a 404 of a resource
+     * below it.
+     */
+    @Test
+    public void asyncNotFoundTest()
+            throws Exception
+    {
+        try (RedHxAsyncFetchEngine engine = new RedHxAsyncFetchEngine())
+        {
+            final RedHxServerConnectionContext ctx = openContext();
+
+            bmc.setNotFound(MockupBmc.CHASSIS_PATH,
+                            true);
+
+            try
+            {
+                engine.fetchEntity(ctx,
+                                   RedHxServiceRootIdEum.CHASSIS,
+                                   new RedHxUriPathImpl(MockupBmc.CHASSIS_PATH)).get(10,
+                                                                                     TimeUnit.SECONDS);
+                fail("A chassis that is not found was read.");
+            }
+            catch (ExecutionException ex)
+            {
+                // expected
+            }
+
+            assertTrue(ctx.isConnectionOpen());
+
+            bmc.setNotFound(CHASSIS_COLLECTION_PATH,
+                            true);
+
+            try
+            {
+                RedHxChassisPathCollectionReader.readChassisCollectionAsync(engine,
+                                                                            ctx).get(10,
+                                                                                     TimeUnit.SECONDS);
+                fail("A chassis collection that is not found was read.");
+            }
+            catch (ExecutionException ex)
+            {
+                // expected
+            }
+
+            assertFalse(ctx.isConnectionOpen());
+
+            openContext();
+            assertEquals(2,
+                         getServiceRootReadCount());
+        }
+    }
+
+    /**
+     * the conditional read removes the server from the cache on a 404 of a service the same way the plain read does.
+     */
+    @Test
+    public void asyncIfModifiedNotFoundTest()
+            throws Exception
+    {
+        try (RedHxAsyncFetchEngine engine = new RedHxAsyncFetchEngine())
+        {
+            final RedHxServerConnectionContext ctx = openContext();
+
+            bmc.setNotFound(CHASSIS_COLLECTION_PATH,
+                            true);
+
+            try
+            {
+                engine.fetchEntityIfModified(ctx,
+                                             RedHxServiceRootIdEum.CHASSIS,
+                                             new RedHxUriPathImpl(CHASSIS_COLLECTION_PATH)).get(10,
+                                                                                                TimeUnit.SECONDS);
+                fail("A chassis collection that is not found was read.");
+            }
+            catch (ExecutionException ex)
+            {
+                // expected
+            }
+
+            assertFalse(ctx.isConnectionOpen());
+
+            openContext();
+            assertEquals(2,
+                         getServiceRootReadCount());
+        }
+    }
+
+    /**
+     * a service root saved to a file is used after it is loaded, without reading the server.
+     */
+    @Test
+    public void saveLoadTest()
+            throws Exception
+    {
+        final Path file = folder.getRoot().toPath().resolve("service-root.cache");
+
+        openContext();
+        assertTrue(cache.save(file) >= 1);
+
+        cache.clear();
+        assertEquals(0,
+                     cache.size());
+        assertTrue(cache.load(file) >= 1);
+
+        openContext();
+        assertEquals(1,
+                     getServiceRootReadCount());
+    }
+}
@@ -0,0 +1,218 @@
+package org.redhelix.server.main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.jboss.resteasy.plugins.server.tjws.TJWSEmbeddedJaxrsServer;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.redhelix.core.chassis.RedHxChassisBuilder;
+import org.redhelix.core.chassis.RedHxChassisTypeEnum;
+import org.redhelix.redhx.server.db.RedHelixTestServerHelper;
+import org.redhelix.server.db.RedHxDbChassisId;
+import org.redhelix.server.db.RedHxDbPersistantDatabaseImpl;
+
+/**
+ * Send the $metadata, service document and chassis requests to one servlet from several threads at the same time. The
+ * processors and service metadata are shared by the requests, each response shall be the one a request sent alone
+ * gets.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class ServletConcurrencyTest
+{
+
+    private static final int CHASSIS_COUNT = 8;
+    private static final int REQUEST_COUNT = 40;
+    private static final int THREAD_COUNT = 8;
+    private static final List<RedHxDbChassisId> CHASSIS_ID_LIST = new ArrayList<>();
+    private static TJWSEmbeddedJaxrsServer embeddedServer;
+
+    @AfterClass
+    public static void afterClass()
+            throws Exception
+    {
+        embeddedServer.stop();
+    }
+
+    @BeforeClass
+    public static void beforeClass()
+            throws Exception
+    {
+        final RedHxDbPersistantDatabaseImpl database = new RedHxDbPersistantDatabaseImpl();
+
+        for (int i = 0; i < CHASSIS_COUNT; ++i)
+        {
+            final RedHxChassisBuilder builder = new RedHxChassisBuilder(RedHxChassisTypeEnum.RACKMOUNT);
+
+            builder.setChassisName(getChassisName(i));
+            builder.setSerialNumber("SN" + i);
+            builder.setStatusHealth("OK");
+            builder.setComputerSystemList(Collections.<String>emptyList());
+            builder.setCooledByList(Collections.<String>emptyList());
+            builder.setPoweredByList(Collections.<String>emptyList());
+            builder.setSystemManagerList(Collections.<String>emptyList());
+            CHASSIS_ID_LIST.add(database.addChassis(InetAddress.getByName("192.168.12.1"),
+                                                    builder.getInstance()));
+        }
+
+        embeddedServer = RedHelixTestServerHelper.startServer(new RedHxServlet(database));
+    }
+
+    private static String getChassisName(int index)
+    {
+        return "Rack16-" + index;
+    }
+
+    /**
+     * GET a path of the service and return the body. The connection is not kept alive, the embedded server would
+     * delay each reused request by the TCP delayed ACK.
+     */
+    private static String get(String path,
+                              ContentType accept)
+            throws IOException
+    {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:"
+                                                                        + RedHelixTestServerHelper.TCP_PORT_NUMBER
+                                                                        + RedHelixTestServerHelper.HTTP_URL + path).openConnection();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+
+        connection.setRequestProperty(HttpHeader.ACCEPT,
+                                      accept.toContentTypeString());
+        connection.setRequestProperty("Connection",
+                                      "close");
+
+        assertEquals(path,
+                     HttpURLConnection.HTTP_OK,
+                     connection.getResponseCode());
+
+        try (InputStream in = connection.getInputStream())
+        {
+            int count;
+
+            while ((count = in.read(buffer)) >= 0)
+            {
+                out.write(buffer,
+                          0,
+                          count);
+            }
+        }
+
+        return new String(out.toByteArray(),
+                          StandardCharsets.UTF_8);
+    }
+
+    private static String getChassisPath(int index)
+    {
+        return "/chassis?$filter=ID%20eq%20" + CHASSIS_ID_LIST.get(index).getSequenceNumber();
+    }
+
+    @Test
+    public void concurrentRequestTest()
+            throws Exception
+    {
+        final String metadata = get("/$metadata",
+                                    ContentType.APPLICATION_XML);
+        final String serviceDocument = get("/",
+                                           ContentType.APPLICATION_JSON);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Future<Void>> futureList = new ArrayList<>();
+
+        assertTrue(metadata.contains(RedHxServiceEdmProvider.SCHEMA_NAME_SPACE));
+
+        try
+        {
+            for (int t = 0; t < THREAD_COUNT; ++t)
+            {
+                final int threadIndex = t;
+
+                futureList.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call()
+                            throws Exception
+                    {
+                        startLatch.await();
+
+                        for (int i = 0; i < (REQUEST_COUNT / THREAD_COUNT); ++i)
+                        {
+                            final int index = (threadIndex + i) % CHASSIS_COUNT;
+
+                            switch ((threadIndex + i) % 3)
+                            {
+                                case 0:
+                                    assertEquals(metadata,
+                                                 get("/$metadata",
+                                                     ContentType.APPLICATION_XML));
+                                    break;
+                                case 1:
+                                    assertEquals(serviceDocument,
+                                                 get("/",
+                                                     ContentType.APPLICATION_JSON));
+                                    break;
+                                default:
+                                    final String chassis = get(getChassisPath(index),
+                                                               ContentType.APPLICATION_JSON);
+
+                                    assertTrue(chassis,
+                                               chassis.contains("\"" + getChassisName(index) + "\""));
+
+                                    for (int other = 0; other < CHASSIS_COUNT; ++other)
+                                    {
+                                        assertTrue(chassis,
+                                                   (other == index)
+                                                   || !chassis.contains("\"" + getChassisName(other) + "\""));
+                                    }
+                                    break;
+                            }
+                        }
+
+                        return null;
+                    }
+                }));
+            }
+
+            startLatch.countDown();
+
+            for (Future<Void> future : futureList)
+            {
+                future.get(60,
+                           TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals(Arrays.asList(metadata,
+                                   serviceDocument),
+                     Arrays.asList(get("/$metadata",
+                                       ContentType.APPLICATION_XML),
+                                   get("/",
+                                       ContentType.APPLICATION_JSON)));
+    }
+}
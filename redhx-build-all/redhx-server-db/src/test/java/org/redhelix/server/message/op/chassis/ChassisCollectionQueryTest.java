@@ -0,0 +1,462 @@
+package org.redhelix.server.message.op.chassis;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataDeltaRequest;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataEntitySetRequest;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.client.api.domain.ClientDeletedEntity;
+import org.apache.olingo.client.api.domain.ClientDelta;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.uri.URIBuilder;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.jboss.resteasy.plugins.server.tjws.TJWSEmbeddedJaxrsServer;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.redhelix.core.chassis.RedHxChassis;
+import org.redhelix.core.chassis.RedHxChassisBuilder;
+import org.redhelix.core.chassis.RedHxChassisTypeEnum;
+import org.redhelix.redhx.server.db.RedHelixTestServerHelper;
+import org.redhelix.server.db.RedHxDbChassisId;
+import org.redhelix.server.db.RedHxDbPersistantDatabaseImpl;
+import org.redhelix.server.main.RedHxServlet;
+
+/**
+ * Read the chassis collection with the OData system query options and server driven paging. The inventory holds ten
+ * chassis, every third one is critical.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class ChassisCollectionQueryTest
+{
+
+    private static final int CHASSIS_COUNT = 10;
+    private static RedHxDbPersistantDatabaseImpl database;
+    private static TJWSEmbeddedJaxrsServer embeddedServer;
+    private final ODataClient client;
+    private final String serviceUrl;
+
+    public ChassisCollectionQueryTest()
+    {
+        client = ODataClientFactory.getClient();
+        serviceUrl = "http://localhost:" + RedHelixTestServerHelper.TCP_PORT_NUMBER + RedHelixTestServerHelper.HTTP_URL;
+    }
+
+    @AfterClass
+    public static void afterClass()
+            throws Exception
+    {
+        embeddedServer.stop();
+    }
+
+    @BeforeClass
+    public static void beforeClass()
+            throws Exception
+    {
+        database = new RedHxDbPersistantDatabaseImpl();
+
+        for (int i = 1; i <= CHASSIS_COUNT; ++i)
+        {
+            addChassis("Rack12-" + (char) ('A' + i),
+                       "SN" + i,
+                       ((i % 3) == 0) ? "Critical" : "OK");
+        }
+
+        embeddedServer = RedHelixTestServerHelper.startServer(new RedHxServlet(database));
+    }
+
+    private static RedHxDbChassisId addChassis(String name,
+                                               String serialNumber,
+                                               String health)
+            throws Exception
+    {
+        return database.addChassis(InetAddress.getByName("192.168.12.1"),
+                                   createChassis(name, serialNumber, health));
+    }
+
+    private static RedHxChassis createChassis(String name,
+                                              String serialNumber,
+                                              String health)
+    {
+        final RedHxChassisBuilder builder = new RedHxChassisBuilder(RedHxChassisTypeEnum.RACKMOUNT);
+
+        builder.setChassisName(name);
+        builder.setSerialNumber(serialNumber);
+        builder.setStatusHealth(health);
+        builder.setComputerSystemList(Collections.<String>emptyList());
+        builder.setCooledByList(Collections.<String>emptyList());
+        builder.setPoweredByList(Collections.<String>emptyList());
+        builder.setSystemManagerList(Collections.<String>emptyList());
+
+        return builder.getInstance();
+    }
+
+    @Test
+    public void countTest()
+            throws Exception
+    {
+        final ClientEntitySet entitySet = read(newChassisUri().count(true).top(0));
+
+        assertEquals(Integer.valueOf(CHASSIS_COUNT),
+                     entitySet.getCount());
+        assertEquals(0,
+                     entitySet.getEntities().size());
+    }
+
+    @Test
+    public void filterOrderByTopTest()
+            throws Exception
+    {
+        final ClientEntitySet entitySet = read(newChassisUri().filter("Health eq 'Critical'")
+                .orderBy("Name desc")
+                .top(2)
+                .count(true));
+        final List<ClientEntity> entityList = entitySet.getEntities();
+
+        assertEquals(Integer.valueOf(3),
+                     entitySet.getCount());
+        assertEquals(2,
+                     entityList.size());
+        assertEquals("Rack12-J",
+                     getValue(entityList.get(0), "Name"));
+        assertEquals("Rack12-G",
+                     getValue(entityList.get(1), "Name"));
+    }
+
+    @Test
+    public void filterSerialNumberTest()
+            throws Exception
+    {
+        final ClientEntitySet entitySet = read(newChassisUri().filter("SerialNumber eq 'SN5' and startswith(Name,'Rack12')"));
+
+        assertEquals(1,
+                     entitySet.getEntities().size());
+        assertEquals("5",
+                     getValue(entitySet.getEntities().get(0), "ID"));
+        assertNull(entitySet.getCount());
+    }
+
+    /**
+     * a placeholder serial number reported by more than one chassis finds every one of them.
+     */
+    @Test
+    public void filterSharedSerialNumberTest()
+            throws Exception
+    {
+        final RedHxDbChassisId firstId = addChassis("Rack14-A",
+                                                    "0000",
+                                                    "OK");
+        final RedHxDbChassisId secondId = addChassis("Rack14-B",
+                                                     "0000",
+                                                     "Critical");
+
+        try
+        {
+            final ClientEntitySet entitySet = read(newChassisUri().filter("SerialNumber eq '0000'")
+                    .orderBy("Name"));
+            final List<ClientEntity> entityList = entitySet.getEntities();
+
+            assertEquals(2,
+                         entityList.size());
+            assertEquals("Rack14-A",
+                         getValue(entityList.get(0), "Name"));
+            assertEquals("Rack14-B",
+                         getValue(entityList.get(1), "Name"));
+        }
+        finally
+        {
+            database.removeChassis(firstId);
+            database.removeChassis(secondId);
+        }
+    }
+
+    @Test
+    public void selectTest()
+            throws Exception
+    {
+        final ClientEntitySet entitySet = read(newChassisUri().filter("ID eq 3").select("Name,Health"));
+        final ClientEntity entity = entitySet.getEntities().get(0);
+
+        assertEquals(1,
+                     entitySet.getEntities().size());
+        assertEquals("Rack12-D",
+                     getValue(entity, "Name"));
+        assertEquals(2,
+                     entity.getProperties().size());
+    }
+
+    /**
+     * $top=0 returns an empty page, with the count of the matching chassis if $count was asked for.
+     */
+    @Test
+    public void topZeroTest()
+            throws Exception
+    {
+        ClientEntitySet entitySet = read(newChassisUri().orderBy("Name desc").top(0));
+
+        assertEquals(0,
+                     entitySet.getEntities().size());
+        assertNull(entitySet.getNext());
+
+        entitySet = read(newChassisUri().filter("Health eq 'Critical'")
+                .top(0)
+                .count(true));
+        assertEquals(Integer.valueOf(3),
+                     entitySet.getCount());
+        assertEquals(0,
+                     entitySet.getEntities().size());
+        assertNull(entitySet.getNext());
+    }
+
+    @Test
+    public void skipTest()
+            throws Exception
+    {
+        final List<ClientEntity> entityList = read(newChassisUri().skip(8)).getEntities();
+
+        assertEquals(2,
+                     entityList.size());
+        assertEquals("9",
+                     getValue(entityList.get(0), "ID"));
+        assertEquals("10",
+                     getValue(entityList.get(1), "ID"));
+    }
+
+    @Test
+    public void pagingTest()
+            throws Exception
+    {
+        final List<String> idList = new ArrayList<>();
+        ClientEntitySet entitySet = read(newChassisUri().build(),
+                                         4);
+        int pageCount = 1;
+
+        while (entitySet.getNext() != null)
+        {
+            assertEquals(4,
+                         entitySet.getEntities().size());
+
+            for (ClientEntity entity : entitySet.getEntities())
+            {
+                idList.add(getValue(entity, "ID"));
+            }
+
+            entitySet = read(entitySet.getNext(),
+                             4);
+            ++pageCount;
+        }
+
+        for (ClientEntity entity : entitySet.getEntities())
+        {
+            idList.add(getValue(entity, "ID"));
+        }
+
+        assertEquals(3,
+                     pageCount);
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6", "7", "8", "9", "10"),
+                     idList);
+    }
+
+    @Test
+    public void pagingWithUpdateTest()
+            throws Exception
+    {
+        final URI firstUri = newChassisUri().orderBy("Name desc").top(7).build();
+        final ClientEntitySet firstPage = read(firstUri,
+                                               3);
+        final List<String> nameList = new ArrayList<>();
+
+        for (ClientEntity entity : firstPage.getEntities())
+        {
+            nameList.add(getValue(entity, "Name"));
+        }
+
+        assertEquals(Arrays.asList("Rack12-K", "Rack12-J", "Rack12-I"),
+                     nameList);
+        assertTrue(firstPage.getNext().toString().contains("$top=4"));
+
+        /*
+         * a chassis that sorts before the first page and one that sorts inside the second page are added between the
+         * pages. Only the second one is returned and no chassis is returned twice.
+         */
+        final RedHxDbChassisId beforeId = addChassis("Rack12-Z", "SN-Z", "OK");
+        final RedHxDbChassisId insideId = addChassis("Rack12-Hz", "SN-Hz", "OK");
+
+        try
+        {
+            ClientEntitySet entitySet = read(firstPage.getNext(),
+                                             3);
+
+            while (true)
+            {
+                for (ClientEntity entity : entitySet.getEntities())
+                {
+                    nameList.add(getValue(entity, "Name"));
+                }
+
+                if (entitySet.getNext() == null)
+                {
+                    break;
+                }
+
+                entitySet = read(entitySet.getNext(),
+                                 3);
+            }
+        }
+        finally
+        {
+            database.removeChassis(beforeId);
+            database.removeChassis(insideId);
+        }
+
+        assertEquals(Arrays.asList("Rack12-K", "Rack12-J", "Rack12-I", "Rack12-Hz", "Rack12-H", "Rack12-G", "Rack12-F"),
+                     nameList);
+    }
+
+    @Test
+    public void trackChangesTest()
+            throws Exception
+    {
+        final URI firstUri = newChassisUri().filter("Health eq 'Critical'").select("ID,Name,Health").build();
+        final ODataEntitySetRequest<ClientEntitySet> request = client.getRetrieveRequestFactory().getEntitySetRequest(firstUri);
+
+        request.setFormat(ContentType.APPLICATION_JSON);
+        request.setPrefer(client.newPreferences().trackChanges() + "," + client.newPreferences().maxPageSize(2));
+
+        final ODataRetrieveResponse<ClientEntitySet> response = request.execute();
+        ClientEntitySet entitySet = response.getBody();
+        int criticalCount = entitySet.getEntities().size();
+
+        assertTrue(response.getHeader(HttpHeader.PREFERENCE_APPLIED).iterator().next().contains("odata.track-changes"));
+        assertNull(entitySet.getDeltaLink());
+
+        while (entitySet.getNext() != null)
+        {
+            entitySet = read(entitySet.getNext(),
+                             0);
+            criticalCount += entitySet.getEntities().size();
+        }
+
+        assertEquals(3,
+                     criticalCount);
+        assertTrue(entitySet.getDeltaLink() != null);
+
+        /*
+         * chassis 6 leaves the filter, chassis 9 is removed, a new critical chassis is added and chassis 3 is read
+         * again. A chassis outside the filter that changes is also reported as removed.
+         */
+        final RedHxDbChassisId changedId = database.getChassisId(6);
+        final RedHxDbChassisId removedId = database.getChassisId(9);
+        final RedHxChassis changedChassis = database.getChassis(changedId);
+        final RedHxChassis removedChassis = database.getChassis(removedId);
+        final RedHxDbChassisId addedId;
+
+        database.addChassis(changedId,
+                            createChassis("Rack12-G", "SN6", "OK"));
+        database.removeChassis(removedId);
+        database.addChassis(database.getChassisId(3),
+                            database.getChassis(database.getChassisId(3)));
+        addedId = addChassis("Rack12-Y", "SN-Y", "Critical");
+
+        try
+        {
+            final ClientDelta delta = readDelta(entitySet.getDeltaLink());
+            final List<String> idList = new ArrayList<>();
+            final List<String> removedList = new ArrayList<>();
+
+            for (ClientEntity entity : delta.getEntities())
+            {
+                idList.add(getValue(entity, "ID"));
+            }
+
+            for (ClientDeletedEntity entity : delta.getDeletedEntities())
+            {
+                final String id = entity.getId().toString();
+
+                removedList.add(id.substring(id.lastIndexOf('/') + 1) + " " + entity.getReason());
+            }
+
+            assertEquals(Arrays.asList("3", String.valueOf(addedId.getSequenceNumber())),
+                         idList);
+            assertEquals(Arrays.asList("chassis(6) changed", "chassis(9) deleted"),
+                         removedList);
+
+            // nothing changed after the delta
+            final ClientDelta emptyDelta = readDelta(delta.getDeltaLink());
+
+            assertTrue(emptyDelta.getEntities().isEmpty());
+            assertTrue(emptyDelta.getDeletedEntities().isEmpty());
+        }
+        finally
+        {
+            database.removeChassis(addedId);
+            database.addChassis(changedId,
+                                changedChassis);
+            database.addChassis(removedId,
+                                removedChassis);
+        }
+    }
+
+    private String getValue(ClientEntity entity,
+                            String propertyName)
+    {
+        return entity.getProperty(propertyName).getPrimitiveValue().toString();
+    }
+
+    private URIBuilder newChassisUri()
+    {
+        return client.newURIBuilder(serviceUrl).appendEntitySetSegment(RedHxChassisServiceEdmProvider.ET_CHASSIS_NAME);
+    }
+
+    private ClientDelta readDelta(URI uri)
+    {
+        final ODataDeltaRequest request = client.getRetrieveRequestFactory().getDeltaRequest(uri);
+
+        request.setFormat(ContentType.APPLICATION_JSON);
+
+        return request.execute().getBody();
+    }
+
+    private ClientEntitySet read(URIBuilder uriBuilder)
+    {
+        return read(uriBuilder.build(),
+                    0);
+    }
+
+    private ClientEntitySet read(URI uri,
+                                 int maxPageSize)
+    {
+        final ODataEntitySetRequest<ClientEntitySet> request = client.getRetrieveRequestFactory().getEntitySetRequest(uri);
+
+        request.setFormat(ContentType.APPLICATION_JSON);
+
+        if (maxPageSize > 0)
+        {
+            request.setPrefer(client.newPreferences().maxPageSize(maxPageSize));
+        }
+
+        final ODataRetrieveResponse<ClientEntitySet> response = request.execute();
+
+        if (maxPageSize > 0)
+        {
+            assertEquals("odata.maxpagesize=" + maxPageSize,
+                         response.getHeader(HttpHeader.PREFERENCE_APPLIED).iterator().next());
+        }
+
+        return response.getBody();
+    }
+}
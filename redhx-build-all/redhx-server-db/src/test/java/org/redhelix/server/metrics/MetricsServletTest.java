@@ -0,0 +1,165 @@
+package org.redhelix.server.metrics;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.management.ObjectName;
+import org.jboss.resteasy.plugins.server.tjws.TJWSEmbeddedJaxrsServer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.redhelix.redhx.server.db.RedHelixTestServerHelper;
+import org.redhelix.server.lib.metrics.RedHxFetchMetrics;
+import org.redhelix.server.lib.metrics.RedHxHistogram;
+
+/**
+ * Scrape the poll pipeline metrics.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+public final class MetricsServletTest
+{
+
+    private static final String METRICS_URL = "/RedHelix.svc/metrics";
+
+    /**
+     * a percentile is within the precision of the histogram.
+     */
+    @Test
+    public void histogramTest()
+    {
+        final RedHxHistogram histogram = new RedHxHistogram(5,
+                                                            TimeUnit.HOURS.toMicros(1));
+
+        for (long value = 1; value <= 10000; ++value)
+        {
+            histogram.record(value);
+        }
+
+        assertEquals(10000,
+                     histogram.getCount());
+        assertEquals(10000,
+                     histogram.getMax());
+        assertTrue(Math.abs(histogram.getValueAtPercentile(50) - 5000) <= (5000 / 32));
+        assertTrue(Math.abs(histogram.getValueAtPercentile(99) - 9900) <= (9900 / 32));
+        assertEquals(10000,
+                     histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void resourceTypeTest()
+    {
+        assertEquals("/redfish/v1/Chassis/{id}/Power",
+                     RedHxFetchMetrics.getResourceType("/redfish/v1/Chassis/1U-7/Power"));
+        assertEquals("/redfish/v1/Systems",
+                     RedHxFetchMetrics.getResourceType("/redfish/v1/Systems/"));
+        assertEquals("/redfish/v1/odata",
+                     RedHxFetchMetrics.getResourceType("/redfish/v1/odata"));
+        assertEquals(RedHxFetchMetrics.OTHER_RESOURCE_TYPE,
+                     RedHxFetchMetrics.getResourceType("/index.html"));
+    }
+
+    @Test
+    public void scrapeTest()
+            throws Exception
+    {
+        final RedHxFetchMetrics metrics = new RedHxFetchMetrics();
+        final URI chassisUri = new URI("http://192.168.7.1:8000/redfish/v1/Chassis/1");
+        final TJWSEmbeddedJaxrsServer embeddedServer = new TJWSEmbeddedJaxrsServer();
+
+        metrics.recordResponse(chassisUri,
+                               200,
+                               TimeUnit.MILLISECONDS.toNanos(40));
+        metrics.recordBytes(chassisUri,
+                            1500);
+        metrics.recordParse(chassisUri,
+                            TimeUnit.MICROSECONDS.toNanos(300));
+        metrics.recordResponse(chassisUri,
+                               304,
+                               TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.recordResponse(chassisUri,
+                               503,
+                               TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.recordFailure(chassisUri,
+                              TimeUnit.SECONDS.toNanos(30));
+        metrics.recordSchedulerLag(TimeUnit.MILLISECONDS.toNanos(250));
+        metrics.registerGauge("redhx_poll_queue_depth",
+                              new LongSupplier()
+                              {
+                                  @Override
+                                  public long getAsLong()
+                                  {
+                                      return 7;
+                                  }
+                              });
+
+        embeddedServer.setPort(RedHelixTestServerHelper.TCP_PORT_NUMBER);
+        embeddedServer.addServlet(METRICS_URL,
+                                  new RedHxMetricsServlet(metrics));
+        embeddedServer.start();
+
+        try
+        {
+            final URL url = new URL("http://localhost:" + RedHelixTestServerHelper.TCP_PORT_NUMBER + METRICS_URL
+                                    + "?hosts=true");
+            final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            final List<String> lineList = new ArrayList<>();
+
+            assertEquals(HttpURLConnection.HTTP_OK,
+                         connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/plain"));
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                                                                                   StandardCharsets.UTF_8)))
+            {
+                String line = reader.readLine();
+
+                while (line != null)
+                {
+                    lineList.add(line);
+                    line = reader.readLine();
+                }
+            }
+
+            assertTrue(lineList.toString(),
+                       lineList.contains("redhx_fetch_latency_seconds_count{resource=\"/redfish/v1/Chassis/{id}\"} 4"));
+            assertTrue(lineList.toString(),
+                       lineList.contains("redhx_fetch_bytes_total{resource=\"/redfish/v1/Chassis/{id}\"} 1500"));
+            assertTrue(lineList.toString(),
+                       lineList.contains("redhx_fetch_failures_total{resource=\"/redfish/v1/Chassis/{id}\"} 2"));
+            assertTrue(lineList.toString(),
+                       lineList.contains("redhx_fetch_not_modified_ratio{resource=\"/redfish/v1/Chassis/{id}\"} 0.5000"));
+            assertTrue(lineList.toString(),
+                       lineList.contains("redhx_fetch_parse_seconds_count{resource=\"/redfish/v1/Chassis/{id}\"} 1"));
+            assertTrue(lineList.toString(),
+                       lineList.contains("redhx_fetch_status_total{status=\"503\"} 1"));
+            assertTrue(lineList.toString(),
+                       lineList.contains("redhx_fetch_status_total{status=\"io\"} 1"));
+            assertTrue(lineList.toString(),
+                       lineList.contains("redhx_poll_scheduler_lag_seconds_count 1"));
+            assertTrue(lineList.toString(),
+                       lineList.contains("redhx_poll_queue_depth 7"));
+            assertTrue(lineList.toString(),
+                       lineList.contains("redhx_host_fetch_failures_total{host=\"192.168.7.1:8000\"} 2"));
+
+            assertEquals(2L,
+                         ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(RedHxFetchMetrics.OBJECT_NAME),
+                                                                                "ResponseCount"));
+            connection.disconnect();
+        }
+        finally
+        {
+            embeddedServer.stop();
+        }
+    }
+}
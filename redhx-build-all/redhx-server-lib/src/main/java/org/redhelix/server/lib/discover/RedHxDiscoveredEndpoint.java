@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.discover;
+
+import java.net.URI;
+import org.redhelix.core.annotations.Immutable;
+import org.redhelix.core.service.root.RedHxTcpProtocolTypeEnum;
+import org.redhelix.core.util.RedHxRedfishProtocolVersionEnum;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * a Redfish service found by discovery. It holds what is needed to create the
+ * {@link RedHxServerConnectionContext} of the service, including the Redfish version the
+ * connection requires.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@Immutable
+public final class RedHxDiscoveredEndpoint {
+
+  private final RedHxRedfishProtocolVersionEnum redfishProtocolVersion;
+  private final URI serviceRootUri;
+  private final String uuid;
+
+  /**
+   * create the endpoint.
+   *
+   * @param serviceRootUri the absolute URI of the Redfish service root, for example
+   *        https://10.1.2.3/redfish/v1/. This shall not be null.
+   * @param redfishProtocolVersion the Redfish version of the service. This shall not be null.
+   * @param uuid the UUID of the service. If null the service is identified by its URI.
+   */
+  public RedHxDiscoveredEndpoint(final URI serviceRootUri,
+      final RedHxRedfishProtocolVersionEnum redfishProtocolVersion, final String uuid) {
+    if ((serviceRootUri == null) || (serviceRootUri.getHost() == null)) {
+      throw new IllegalArgumentException("Argument \"serviceRootUri\" must have a host.");
+    }
+
+    if (redfishProtocolVersion == null) {
+      throw new IllegalArgumentException("Argument \"redfishProtocolVersion\" can not be null.");
+    }
+
+    this.serviceRootUri = serviceRootUri;
+    this.redfishProtocolVersion = redfishProtocolVersion;
+    this.uuid = uuid;
+  }
+
+  private RedHxDiscoveredEndpoint() {
+    this.serviceRootUri = null;
+    this.redfishProtocolVersion = null;
+    this.uuid = null;
+  }
+
+  /**
+   * create the context of a connection to the service without HTTP authentication.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxServerConnectionContext createContext() {
+    return new RedHxServerConnectionContext(redfishProtocolVersion, getTcpProtocolType(),
+        getHostName(), getTcpPortNumber());
+  }
+
+  /**
+   * create the context of a connection to the service with basic HTTP authentication.
+   *
+   * @param userName the user name. This shall not be null.
+   * @param password the password of the user. This shall not be null.
+   * @return A null is not returned.
+   */
+  public RedHxServerConnectionContext createContext(final String userName,
+      final String password) {
+    return new RedHxServerConnectionContext(redfishProtocolVersion, getTcpProtocolType(),
+        getHostName(), getTcpPortNumber(), userName, password);
+  }
+
+  /**
+   * get the host of the service. An IPv6 address is returned without brackets.
+   *
+   * @return A null is not returned.
+   */
+  public String getHostName() {
+    final String host = serviceRootUri.getHost();
+    final String retVal;
+
+    if (host.startsWith("[") && host.endsWith("]")) {
+      retVal = host.substring(1, host.length() - 1);
+    } else {
+      retVal = host;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the key discovery uses to find a service it has already seen.
+   *
+   * @return the UUID or, if the service did not send one, the service root URI.
+   */
+  public String getKey() {
+    final String retVal;
+
+    if (uuid != null) {
+      retVal = uuid;
+    } else {
+      retVal = serviceRootUri.toString();
+    }
+
+    return retVal;
+  }
+
+  public RedHxRedfishProtocolVersionEnum getRedfishProtocolVersion() {
+    return redfishProtocolVersion;
+  }
+
+  public URI getServiceRootUri() {
+    return serviceRootUri;
+  }
+
+  /**
+   * get the TCP port of the service. If the URI has no port the default of its scheme is returned.
+   *
+   * @return the TCP port number.
+   */
+  public int getTcpPortNumber() {
+    final int retVal;
+
+    if (serviceRootUri.getPort() != -1) {
+      retVal = serviceRootUri.getPort();
+    } else if (getTcpProtocolType() == RedHxTcpProtocolTypeEnum.HTTPS) {
+      retVal = 443;
+    } else {
+      retVal = 80;
+    }
+
+    return retVal;
+  }
+
+  public RedHxTcpProtocolTypeEnum getTcpProtocolType() {
+    final RedHxTcpProtocolTypeEnum retVal;
+
+    if ("http".equalsIgnoreCase(serviceRootUri.getScheme())) {
+      retVal = RedHxTcpProtocolTypeEnum.HTTP;
+    } else {
+      retVal = RedHxTcpProtocolTypeEnum.HTTPS;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the UUID of the service.
+   *
+   * @return null if the service did not send one.
+   */
+  public String getUuid() {
+    return uuid;
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxDiscoveredEndpoint{" + "serviceRootUri=" + serviceRootUri + ", uuid=" + uuid
+        + '}';
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.discover;
+
+/**
+ * receives the Redfish services found by discovery. Each service is delivered once per discovery
+ * engine, the first time it answers. The method is called on the discovery thread so it shall not
+ * block.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+public interface RedHxDiscoveryListener {
+
+  /**
+   * called when a Redfish service has been found that was not found before.
+   *
+   * @param endpoint the service.
+   */
+  void endpointDiscovered(RedHxDiscoveredEndpoint endpoint);
+}
@@ -0,0 +1,539 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.discover;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.util.RedHxRedfishProtocolVersionEnum;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * find the Redfish services in a range of IPv4 or IPv6 addresses. Each address is probed with a
+ * non-blocking TCP connect to the Redfish port and, if the port is open, a GET of the service root
+ * /redfish/v1 with the {@link RedHxAsyncFetchEngine}. A service root that parses is delivered to
+ * the {@link RedHxDiscoveryListener}.
+ * <p>
+ * The connects are started at the rate of the {@link RedHxIpRangeSweepPolicy} by one thread with a
+ * selector, so thousands of connects wait at the same time without a thread each. The addresses
+ * are not probed in order. Index i of the sweep is mapped to the address at (a * i + b) mod n from
+ * the start of the range, where n is the size of the range and a and b are chosen from the seed,
+ * so consecutive probes land far apart and no single switch or subnet gets every connect at once.
+ * </p>
+ * <p>
+ * A sweep can be stopped and started again where it left off. The seed and
+ * {@link #getResumeIndex()} given to a new sweep of the same range probe the addresses the first
+ * sweep had not finished.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+public final class RedHxIpRangeSweep implements Closeable {
+
+  /**
+   * the largest range that can be swept, the size of the whole IPv4 address space.
+   */
+  public static final long MAX_ADDRESS_COUNT = 1L << 32;
+  private static final String SERVICE_ROOT_PATH = "/redfish/v1/";
+
+  /**
+   * the time the sweep thread waits for connects to complete before it starts more.
+   */
+  private static final long TICK_MILLISECONDS = 10;
+  private final long addressCount;
+  private final int addressLength;
+  private final InetAddress beginAddress;
+  private final BigInteger beginValue;
+  private final CompletableFuture<Void> doneFuture;
+  private final InetAddress endAddress;
+  private final RedHxAsyncFetchEngine engine;
+  private final AtomicLong foundCount;
+  private final long increment;
+  private final AtomicInteger inFlightCount;
+  private final ConcurrentSkipListSet<Long> inFlightSet;
+  private final RedHxDiscoveryListener listener;
+  private final Logger logger;
+  private final long multiplier;
+  private final RedHxIpRangeSweepPolicy policy;
+  private final AtomicLong probedCount;
+  private final long seed;
+  private final long startIndex;
+  private final Thread sweepThread;
+  private volatile boolean isRunning;
+  private volatile long nextIndex;
+
+  /**
+   * create the sweep. No address is probed until {@link #start()} is called.
+   *
+   * @param engine reads the service root of an open port. This shall not be null.
+   * @param policy the probe rate and port. This shall not be null.
+   * @param listener receives the services found. This shall not be null.
+   * @param beginAddress the first address of the range. This shall not be null.
+   * @param endAddress the last address of the range, of the same family as the first. This shall
+   *        not be null.
+   * @param seed chooses the order the addresses are probed in.
+   * @param startIndex the number of addresses to skip, zero for a new sweep or the resume index of
+   *        an earlier sweep with the same range and seed.
+   */
+  public RedHxIpRangeSweep(final RedHxAsyncFetchEngine engine,
+      final RedHxIpRangeSweepPolicy policy, final RedHxDiscoveryListener listener,
+      final InetAddress beginAddress, final InetAddress endAddress, final long seed,
+      final long startIndex) {
+    if ((engine == null) || (policy == null) || (listener == null)) {
+      throw new IllegalArgumentException("The engine, policy and listener can not be null.");
+    }
+
+    if ((beginAddress == null) || (endAddress == null)) {
+      throw new IllegalArgumentException("The begin and end address can not be null.");
+    }
+
+    if ((beginAddress instanceof Inet4Address) != (endAddress instanceof Inet4Address)) {
+      throw new IllegalArgumentException("The begin address " + beginAddress.getHostAddress()
+          + " and end address " + endAddress.getHostAddress() + " are not the same IP version.");
+    }
+
+    final BigInteger endValue = new BigInteger(1, endAddress.getAddress());
+    final BigInteger countValue;
+
+    this.beginValue = new BigInteger(1, beginAddress.getAddress());
+    countValue = endValue.subtract(beginValue).add(BigInteger.ONE);
+
+    if (countValue.signum() <= 0) {
+      throw new IllegalArgumentException("The begin address " + beginAddress.getHostAddress()
+          + " is after the end address " + endAddress.getHostAddress() + ".");
+    }
+
+    if (countValue.compareTo(BigInteger.valueOf(MAX_ADDRESS_COUNT)) > 0) {
+      throw new IllegalArgumentException(
+          "The range has " + countValue + " addresses, more than " + MAX_ADDRESS_COUNT + ".");
+    }
+
+    this.addressCount = countValue.longValue();
+
+    if ((startIndex < 0) || (startIndex > addressCount)) {
+      throw new IllegalArgumentException(
+          "The start index " + startIndex + " is not between 0 and " + addressCount + ".");
+    }
+
+    this.engine = engine;
+    this.policy = policy;
+    this.listener = listener;
+    this.beginAddress = beginAddress;
+    this.endAddress = endAddress;
+    this.addressLength = beginAddress.getAddress().length;
+    this.seed = seed;
+    this.startIndex = startIndex;
+    this.nextIndex = startIndex;
+
+    final Random random = new Random(seed);
+
+    this.multiplier = chooseMultiplier(random, addressCount);
+    this.increment = Math.floorMod(random.nextLong(), addressCount);
+    this.logger = LoggerFactory.getLogger(RedHxIpRangeSweep.class);
+    this.doneFuture = new CompletableFuture<>();
+    this.foundCount = new AtomicLong();
+    this.probedCount = new AtomicLong();
+    this.inFlightCount = new AtomicInteger();
+    this.inFlightSet = new ConcurrentSkipListSet<>();
+    this.sweepThread = new Thread(this::runSweep, "RedHx IP sweep " + beginAddress.getHostAddress());
+    this.sweepThread.setDaemon(true);
+  }
+
+  private RedHxIpRangeSweep() {
+    this.engine = null;
+    this.policy = null;
+    this.listener = null;
+    this.beginAddress = null;
+    this.endAddress = null;
+    this.beginValue = null;
+    this.addressCount = 0;
+    this.addressLength = 0;
+    this.seed = 0;
+    this.startIndex = 0;
+    this.multiplier = 0;
+    this.increment = 0;
+    this.logger = null;
+    this.doneFuture = null;
+    this.foundCount = null;
+    this.probedCount = null;
+    this.inFlightCount = null;
+    this.inFlightSet = null;
+    this.sweepThread = null;
+  }
+
+  /**
+   * stop the sweep. The connects that are waiting are closed and the service roots being read are
+   * not delivered. The resume index is kept.
+   */
+  @Override
+  public void close() {
+    isRunning = false;
+    sweepThread.interrupt();
+    doneFuture.complete(null);
+  }
+
+  /**
+   * get the number of addresses in the range.
+   *
+   * @return a value from 1 up to {@link #MAX_ADDRESS_COUNT}.
+   */
+  public long getAddressCount() {
+    return addressCount;
+  }
+
+  public InetAddress getBeginAddress() {
+    return beginAddress;
+  }
+
+  /**
+   * get a future completed when every address has been probed or the sweep is closed.
+   *
+   * @return A null is not returned.
+   */
+  public CompletableFuture<Void> getDoneFuture() {
+    return doneFuture;
+  }
+
+  public InetAddress getEndAddress() {
+    return endAddress;
+  }
+
+  /**
+   * get the number of Redfish services found.
+   *
+   * @return the number of services delivered to the listener.
+   */
+  public long getFoundCount() {
+    return foundCount.get();
+  }
+
+  /**
+   * get the number of addresses whose probe has completed, including those skipped by the start
+   * index.
+   *
+   * @return a value from the start index up to the address count.
+   */
+  public long getProbedCount() {
+    return startIndex + probedCount.get();
+  }
+
+  /**
+   * get the start index that resumes this sweep. Every index before it has been probed.
+   *
+   * @return a value from the start index up to the address count.
+   */
+  public long getResumeIndex() {
+    final long dispatchedIndex = nextIndex;
+    long retVal;
+
+    try {
+      retVal = Math.min(dispatchedIndex, inFlightSet.first());
+    } catch (NoSuchElementException ex) {
+      retVal = dispatchedIndex;
+    }
+
+    return retVal;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * get whether every address has been probed or the sweep has been closed.
+   *
+   * @return true if the done future is complete.
+   */
+  public boolean isDone() {
+    return doneFuture.isDone();
+  }
+
+  /**
+   * start probing on the sweep thread.
+   */
+  public void start() {
+    isRunning = true;
+
+    if (startIndex == addressCount) {
+      doneFuture.complete(null);
+    } else {
+      sweepThread.start();
+    }
+  }
+
+  /**
+   * choose a multiplier that has no common factor with the address count, so the mapping of index
+   * to address is a permutation.
+   */
+  private static long chooseMultiplier(final Random random, final long addressCount) {
+    long retVal;
+
+    if (addressCount < 3) {
+      retVal = 1;
+    } else {
+      retVal = 1 + Math.floorMod(random.nextLong(), addressCount - 1);
+
+      while (BigInteger.valueOf(retVal).gcd(BigInteger.valueOf(addressCount)).intValue() != 1) {
+        retVal = (retVal % (addressCount - 1)) + 1;
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the address probed for a sweep index.
+   *
+   * @param index a value from 0 up to, but not including, the address count.
+   * @return A null is not returned.
+   */
+  InetAddress getAddress(final long index) throws UnknownHostException {
+    /*
+     * the multiplier and index are below 2^32 so their product fits in 64 unsigned bits.
+     */
+    final long offset =
+        (Long.remainderUnsigned(multiplier * index, addressCount) + increment) % addressCount;
+    final byte[] valueArray = beginValue.add(BigInteger.valueOf(offset)).toByteArray();
+    final byte[] addressArray = new byte[addressLength];
+    final int copyLength = Math.min(valueArray.length, addressLength);
+
+    System.arraycopy(valueArray, valueArray.length - copyLength, addressArray,
+        addressLength - copyLength, copyLength);
+
+    return InetAddress.getByAddress(addressArray);
+  }
+
+  /**
+   * create the endpoint of the service root of an address.
+   *
+   * @return null if the URI can not be created.
+   */
+  private RedHxDiscoveredEndpoint createEndpoint(final InetAddress address) {
+    RedHxDiscoveredEndpoint retVal = null;
+
+    try {
+      retVal = new RedHxDiscoveredEndpoint(
+          new URI(policy.getTcpProtocol().name().toLowerCase(Locale.ROOT), null,
+              address.getHostAddress(), policy.getTcpPortNumber(), SERVICE_ROOT_PATH, null, null),
+          RedHxRedfishProtocolVersionEnum.VERSION_1, null);
+    } catch (URISyntaxException ex) {
+      logger.debug("Can not create the service root URI of " + address + ". " + ex);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * close the channels of connects that have taken longer than the timeout.
+   */
+  private void expireConnects(final Selector selector, final long nowNanoTime) {
+    for (SelectionKey key : selector.keys()) {
+      final Probe probe = (Probe) key.attachment();
+
+      if (key.isValid() && (nowNanoTime - probe.deadlineNanoTime > 0)) {
+        closeQuietly(key);
+        finish(probe.index);
+      }
+    }
+  }
+
+  private void closeQuietly(final SelectionKey key) {
+    key.cancel();
+
+    try {
+      key.channel().close();
+    } catch (IOException ex) {
+      logger.debug("Can not close a probe channel. " + ex);
+    }
+  }
+
+  /**
+   * mark the probe of an index complete.
+   */
+  private void finish(final long index) {
+    inFlightSet.remove(index);
+    probedCount.incrementAndGet();
+
+    if ((inFlightCount.decrementAndGet() == 0) && (nextIndex >= addressCount)) {
+      doneFuture.complete(null);
+    }
+  }
+
+  /**
+   * complete the connect of a channel the selector reported ready.
+   */
+  private void finishConnect(final SelectionKey key) {
+    final Probe probe = (Probe) key.attachment();
+    boolean isOpen;
+
+    try {
+      isOpen = ((SocketChannel) key.channel()).finishConnect();
+    } catch (IOException ex) {
+      isOpen = false;
+    }
+
+    closeQuietly(key);
+
+    if (isOpen) {
+      readServiceRoot(probe.index, probe.address);
+    } else {
+      finish(probe.index);
+    }
+  }
+
+  /**
+   * read the service root of an address with an open port.
+   */
+  private void readServiceRoot(final long index, final InetAddress address) {
+    final RedHxDiscoveredEndpoint endpoint = createEndpoint(address);
+
+    if (endpoint == null) {
+      finish(index);
+    } else {
+      engine.openConnection(endpoint.createContext()).whenComplete((ignore, ex) -> {
+        try {
+          if ((ex == null) && isRunning) {
+            foundCount.incrementAndGet();
+            listener.endpointDiscovered(endpoint);
+          }
+        } catch (RuntimeException listenerEx) {
+          logger.error("The discovery listener failed for " + endpoint, listenerEx);
+        } finally {
+          finish(index);
+        }
+      });
+    }
+  }
+
+  private void runSweep() {
+    final double probesPerNano = policy.getProbesPerSecond() / 1.0e9;
+    final double maxBudget = Math.max(1.0, policy.getProbesPerSecond() / 10.0);
+    final long connectTimeoutNanos =
+        TimeUnit.MILLISECONDS.toNanos(policy.getConnectTimeoutMilliseconds());
+    double budget = 0;
+    long lastNanoTime = System.nanoTime();
+
+    try (Selector selector = Selector.open()) {
+      while (isRunning && ((nextIndex < addressCount) || !selector.keys().isEmpty())) {
+        final long now = System.nanoTime();
+
+        budget = Math.min(maxBudget, budget + ((now - lastNanoTime) * probesPerNano));
+        lastNanoTime = now;
+
+        while ((budget >= 1.0) && (nextIndex < addressCount)
+            && (inFlightCount.get() < policy.getMaxProbesInFlight())) {
+          startConnect(selector, nextIndex, now + connectTimeoutNanos);
+          budget -= 1.0;
+        }
+
+        selector.select(TICK_MILLISECONDS);
+
+        for (SelectionKey key : selector.selectedKeys()) {
+          finishConnect(key);
+        }
+
+        selector.selectedKeys().clear();
+        expireConnects(selector, System.nanoTime());
+      }
+
+      for (SelectionKey key : selector.keys()) {
+        closeQuietly(key);
+      }
+    } catch (IOException ex) {
+      logger.error("The sweep of " + beginAddress.getHostAddress() + " to "
+          + endAddress.getHostAddress() + " stopped.", ex);
+      isRunning = false;
+      doneFuture.completeExceptionally(ex);
+    }
+  }
+
+  /**
+   * start the connect of a sweep index and move to the next index.
+   */
+  private void startConnect(final Selector selector, final long index,
+      final long deadlineNanoTime) {
+    SocketChannel channel = null;
+
+    /*
+     * the count limits the probes in flight, size() of the set is not constant time. The set only
+     * gives the lowest index in flight to getResumeIndex().
+     */
+    inFlightCount.incrementAndGet();
+    inFlightSet.add(index);
+    nextIndex = index + 1;
+
+    try {
+      final InetAddress address = getAddress(index);
+
+      channel = SocketChannel.open();
+      channel.configureBlocking(false);
+
+      if (channel.connect(new InetSocketAddress(address, policy.getTcpPortNumber()))) {
+        channel.close();
+        readServiceRoot(index, address);
+      } else {
+        channel.register(selector, SelectionKey.OP_CONNECT,
+            new Probe(index, address, deadlineNanoTime));
+      }
+    } catch (IOException ex) {
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException closeEx) {
+          logger.debug("Can not close a probe channel. " + closeEx);
+        }
+      }
+
+      finish(index);
+    }
+  }
+
+  /**
+   * the connect of one address.
+   */
+  private static final class Probe {
+
+    private final InetAddress address;
+    private final long deadlineNanoTime;
+    private final long index;
+
+    Probe(final long index, final InetAddress address, final long deadlineNanoTime) {
+      this.index = index;
+      this.address = address;
+      this.deadlineNanoTime = deadlineNanoTime;
+    }
+  }
+}
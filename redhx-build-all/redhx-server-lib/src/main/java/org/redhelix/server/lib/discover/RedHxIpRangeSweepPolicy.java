@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.discover;
+
+import org.redhelix.core.annotations.Immutable;
+import org.redhelix.core.service.root.RedHxTcpProtocolTypeEnum;
+
+/**
+ * how fast an {@link RedHxIpRangeSweep} probes and which port it probes. A policy is created with
+ * the {@link RedHxIpRangeSweepPolicyBuilder}.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@Immutable
+public final class RedHxIpRangeSweepPolicy {
+
+  private final long connectTimeoutMilliseconds;
+  private final int maxProbesInFlight;
+  private final int probesPerSecond;
+  private final int tcpPortNumber;
+  private final RedHxTcpProtocolTypeEnum tcpProtocol;
+
+  RedHxIpRangeSweepPolicy(final int probesPerSecond, final int maxProbesInFlight,
+      final long connectTimeoutMilliseconds, final RedHxTcpProtocolTypeEnum tcpProtocol,
+      final int tcpPortNumber) {
+    this.probesPerSecond = probesPerSecond;
+    this.maxProbesInFlight = maxProbesInFlight;
+    this.connectTimeoutMilliseconds = connectTimeoutMilliseconds;
+    this.tcpProtocol = tcpProtocol;
+    this.tcpPortNumber = tcpPortNumber;
+  }
+
+  private RedHxIpRangeSweepPolicy() {
+    this.probesPerSecond = 0;
+    this.maxProbesInFlight = 0;
+    this.connectTimeoutMilliseconds = 0;
+    this.tcpProtocol = null;
+    this.tcpPortNumber = 0;
+  }
+
+  /**
+   * get the time a TCP connect may take before the address is treated as having no Redfish
+   * service.
+   *
+   * @return the timeout in milliseconds.
+   */
+  public long getConnectTimeoutMilliseconds() {
+    return connectTimeoutMilliseconds;
+  }
+
+  /**
+   * get the largest number of addresses being connected to or read at the same time.
+   *
+   * @return a value greater than zero.
+   */
+  public int getMaxProbesInFlight() {
+    return maxProbesInFlight;
+  }
+
+  /**
+   * get the number of TCP connects started each second.
+   *
+   * @return a value greater than zero.
+   */
+  public int getProbesPerSecond() {
+    return probesPerSecond;
+  }
+
+  public int getTcpPortNumber() {
+    return tcpPortNumber;
+  }
+
+  public RedHxTcpProtocolTypeEnum getTcpProtocol() {
+    return tcpProtocol;
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxIpRangeSweepPolicy{" + "probesPerSecond=" + probesPerSecond
+        + ", maxProbesInFlight=" + maxProbesInFlight + ", connectTimeoutMilliseconds="
+        + connectTimeoutMilliseconds + ", tcpProtocol=" + tcpProtocol + ", tcpPortNumber="
+        + tcpPortNumber + '}';
+  }
+}
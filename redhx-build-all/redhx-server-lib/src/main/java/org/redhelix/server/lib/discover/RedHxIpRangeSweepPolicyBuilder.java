@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.discover;
+
+import org.redhelix.core.annotations.NotThreadSafe;
+import org.redhelix.core.service.root.RedHxTcpProtocolTypeEnum;
+
+/**
+ * create a {@link RedHxIpRangeSweepPolicy}. Every value has a default so only the values that
+ * differ need to be set. The defaults sweep a /16 in a little over a minute.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@NotThreadSafe
+public final class RedHxIpRangeSweepPolicyBuilder {
+
+  public static final long DEFAULT_CONNECT_TIMEOUT_MILLISECONDS = 1000;
+  public static final int DEFAULT_MAX_PROBES_IN_FLIGHT = 2048;
+  public static final int DEFAULT_PROBES_PER_SECOND = 1000;
+  public static final int DEFAULT_TCP_PORT_NUMBER = 443;
+  private long connectTimeoutMilliseconds;
+  private int maxProbesInFlight;
+  private int probesPerSecond;
+  private int tcpPortNumber;
+  private RedHxTcpProtocolTypeEnum tcpProtocol;
+
+  public RedHxIpRangeSweepPolicyBuilder() {
+    this.connectTimeoutMilliseconds = DEFAULT_CONNECT_TIMEOUT_MILLISECONDS;
+    this.maxProbesInFlight = DEFAULT_MAX_PROBES_IN_FLIGHT;
+    this.probesPerSecond = DEFAULT_PROBES_PER_SECOND;
+    this.tcpPortNumber = DEFAULT_TCP_PORT_NUMBER;
+    this.tcpProtocol = RedHxTcpProtocolTypeEnum.HTTPS;
+  }
+
+  /**
+   * create the policy.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxIpRangeSweepPolicy getInstance() {
+    return new RedHxIpRangeSweepPolicy(probesPerSecond, maxProbesInFlight,
+        connectTimeoutMilliseconds, tcpProtocol, tcpPortNumber);
+  }
+
+  public void setConnectTimeoutMilliseconds(long connectTimeoutMilliseconds) {
+    if (connectTimeoutMilliseconds < 1) {
+      throw new IllegalArgumentException(
+          "Argument \"connectTimeoutMilliseconds\" must be greater than zero.");
+    }
+
+    this.connectTimeoutMilliseconds = connectTimeoutMilliseconds;
+  }
+
+  public void setMaxProbesInFlight(int maxProbesInFlight) {
+    if (maxProbesInFlight < 1) {
+      throw new IllegalArgumentException(
+          "Argument \"maxProbesInFlight\" must be greater than zero.");
+    }
+
+    this.maxProbesInFlight = maxProbesInFlight;
+  }
+
+  /**
+   * set the probe budget. Keep it below what the switches and firewalls between RedHelix and the
+   * BMCs accept as new connections per second.
+   *
+   * @param probesPerSecond the number of TCP connects started each second.
+   */
+  public void setProbesPerSecond(int probesPerSecond) {
+    if (probesPerSecond < 1) {
+      throw new IllegalArgumentException("Argument \"probesPerSecond\" must be greater than zero.");
+    }
+
+    this.probesPerSecond = probesPerSecond;
+  }
+
+  /**
+   * set the port of the Redfish service.
+   *
+   * @param tcpProtocol HTTP or HTTPS. This shall not be null.
+   * @param tcpPortNumber the TCP port, from 1 to 65535.
+   */
+  public void setTcpPort(RedHxTcpProtocolTypeEnum tcpProtocol, int tcpPortNumber) {
+    if (tcpProtocol == null) {
+      throw new IllegalArgumentException("Argument \"tcpProtocol\" can not be null.");
+    }
+
+    if ((tcpPortNumber < 1) || (tcpPortNumber > 65535)) {
+      throw new IllegalArgumentException(
+          "The TCP port number " + tcpPortNumber + " is not between 1 and 65535.");
+    }
+
+    this.tcpProtocol = tcpProtocol;
+    this.tcpPortNumber = tcpPortNumber;
+  }
+}
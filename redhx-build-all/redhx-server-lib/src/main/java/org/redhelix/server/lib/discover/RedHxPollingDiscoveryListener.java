@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.discover;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.server.lib.poll.RedHxPollScheduler;
+
+/**
+ * add each Redfish service found by discovery to a {@link RedHxPollScheduler}, so its first
+ * inventory poll is sent without waiting for discovery to finish. A service found by more than one
+ * discovery, for example by SSDP and by an IP range, is added once.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+public final class RedHxPollingDiscoveryListener implements RedHxDiscoveryListener {
+
+  private final Set<String> addedSet;
+  private final String password;
+  private final RedHxPollScheduler scheduler;
+  private final String userName;
+
+  /**
+   * create the listener for services that do not use HTTP authentication.
+   *
+   * @param scheduler polls the services. This shall not be null.
+   */
+  public RedHxPollingDiscoveryListener(final RedHxPollScheduler scheduler) {
+    this(scheduler, null, null);
+  }
+
+  /**
+   * create the listener for services that use basic HTTP authentication.
+   *
+   * @param scheduler polls the services. This shall not be null.
+   * @param userName the user name of every service. If null no authentication is used.
+   * @param password the password of the user.
+   */
+  public RedHxPollingDiscoveryListener(final RedHxPollScheduler scheduler, final String userName,
+      final String password) {
+    if (scheduler == null) {
+      throw new IllegalArgumentException("Argument \"scheduler\" can not be null.");
+    }
+
+    this.scheduler = scheduler;
+    this.userName = userName;
+    this.password = password;
+    this.addedSet = ConcurrentHashMap.newKeySet();
+  }
+
+  private RedHxPollingDiscoveryListener() {
+    this.scheduler = null;
+    this.userName = null;
+    this.password = null;
+    this.addedSet = null;
+  }
+
+  @Override
+  public void endpointDiscovered(final RedHxDiscoveredEndpoint endpoint) {
+    if (addedSet.add(endpoint.getHostName() + ":" + endpoint.getTcpPortNumber())) {
+      if (userName != null) {
+        scheduler.addHost(endpoint.createContext(userName, password));
+      } else {
+        scheduler.addHost(endpoint.createContext());
+      }
+    }
+  }
+
+  /**
+   * get the number of services added to the scheduler.
+   *
+   * @return the number of services, each host and port is counted once.
+   */
+  public int getAddedCount() {
+    return addedSet.size();
+  }
+}
@@ -0,0 +1,533 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.discover;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.ProtocolFamily;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.util.RedHxRedfishProtocolVersionEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * find Redfish services with the Simple Service Discovery Protocol, Redfish specification v1.0
+ * section 8.4. An M-SEARCH for the Redfish search target is sent to each multicast group from every
+ * network interface that can reach the group, and the answers are read until the MX time has
+ * passed. All the groups and interfaces of a search share one non-blocking selector so a search
+ * takes the MX time no matter how many segments answer.
+ * <p>
+ * A service is delivered to the {@link RedHxDiscoveryListener} as soon as its answer is read. A
+ * service answers once for each interface and group it is reached on, and again in every search,
+ * the answers are merged by the UUID in the USN header or, without a UUID, by the service root URI
+ * in the AL header. The Redfish version is taken from the ST header of the answer.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+public final class RedHxSsdpDiscoveryEngine implements Closeable {
+
+  /**
+   * the default number of routers an M-SEARCH may cross. Site local groups are routed between
+   * segments only if the TTL is greater than one.
+   */
+  public static final int DEFAULT_MULTICAST_TTL = 4;
+
+  /**
+   * the search target of a Redfish service, the number after the last colon is the major version
+   * of the Redfish protocol.
+   */
+  public static final String REDFISH_SEARCH_TARGET = "urn:dmtf-org:service:redfish-rest:1";
+
+  /**
+   * the UDP port of every SSDP multicast group.
+   */
+  public static final int SSDP_PORT = 1900;
+  private static final String HEADER_AL = "AL";
+  private static final String HEADER_LOCATION = "LOCATION";
+  private static final String HEADER_ST = "ST";
+  private static final String HEADER_USN = "USN";
+  private static final int MAX_DATAGRAM_SIZE = 2048;
+  private static final int MAX_MX_SECONDS = 5;
+
+  /**
+   * the time in milliseconds between the copies of an M-SEARCH. UDP may drop a datagram so each
+   * search is sent {@link #SEND_COUNT} times.
+   */
+  private static final long RESEND_MILLISECONDS = 300;
+  private static final String SEARCH_TARGET_PREFIX = "urn:dmtf-org:service:redfish-rest:";
+  private static final int SEND_COUNT = 3;
+  private static final String USN_UUID_PREFIX = "uuid:";
+  private final ExecutorService executor;
+  private final ConcurrentMap<String, RedHxDiscoveredEndpoint> knownMap;
+  private final Set<URI> knownUriSet;
+  private final RedHxDiscoveryListener listener;
+  private final Logger logger;
+  private final int multicastTtl;
+
+  /**
+   * create the engine with the default multicast TTL.
+   *
+   * @param listener receives the services found. This shall not be null.
+   */
+  public RedHxSsdpDiscoveryEngine(final RedHxDiscoveryListener listener) {
+    this(listener, DEFAULT_MULTICAST_TTL);
+  }
+
+  /**
+   * create the engine.
+   *
+   * @param listener receives the services found. This shall not be null.
+   * @param multicastTtl the number of routers an M-SEARCH may cross, from 1 to 255.
+   */
+  public RedHxSsdpDiscoveryEngine(final RedHxDiscoveryListener listener,
+      final int multicastTtl) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Argument \"listener\" can not be null.");
+    }
+
+    if ((multicastTtl < 1) || (multicastTtl > 255)) {
+      throw new IllegalArgumentException(
+          "The multicast TTL of " + multicastTtl + " is not between 1 and 255.");
+    }
+
+    this.listener = listener;
+    this.multicastTtl = multicastTtl;
+    this.logger = LoggerFactory.getLogger(RedHxSsdpDiscoveryEngine.class);
+    this.knownMap = new ConcurrentHashMap<>();
+    this.knownUriSet = ConcurrentHashMap.newKeySet();
+    this.executor = Executors.newCachedThreadPool(runnable -> {
+      final Thread thread = new Thread(runnable, "RedHx SSDP search");
+
+      thread.setDaemon(true);
+
+      return thread;
+    });
+  }
+
+  private RedHxSsdpDiscoveryEngine() {
+    this.listener = null;
+    this.multicastTtl = 0;
+    this.logger = null;
+    this.knownMap = null;
+    this.knownUriSet = null;
+    this.executor = null;
+  }
+
+  /**
+   * stop the searches that are running.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * get the number of services found by every search of this engine.
+   *
+   * @return the number of services, each counted once however many times it answered.
+   */
+  public int getKnownCount() {
+    return knownMap.size();
+  }
+
+  /**
+   * send an M-SEARCH to multicast groups and read the answers. The method returns at once, the
+   * search runs on its own thread.
+   *
+   * @param groupCollection the multicast groups to search, for example 239.255.255.250 and FF05::C.
+   *        This shall not be null or empty.
+   * @param mxSeconds the longest time in seconds a service may wait before it answers, from 1 to 5.
+   *        The search ends one second after this time.
+   * @return the future completed with every service that answered, including those found by an
+   *         earlier search. If no network interface can send to any of the groups it completes
+   *         exceptionally with an UncheckedIOException.
+   */
+  public CompletableFuture<List<RedHxDiscoveredEndpoint>> search(
+      final Collection<InetAddress> groupCollection, final int mxSeconds) {
+    if ((groupCollection == null) || groupCollection.isEmpty()) {
+      throw new IllegalArgumentException("Argument \"groupCollection\" can not be null or empty.");
+    }
+
+    for (InetAddress group : groupCollection) {
+      if (!group.isMulticastAddress()) {
+        throw new IllegalArgumentException(group.getHostAddress() + " is not a multicast group.");
+      }
+    }
+
+    if ((mxSeconds < 1) || (mxSeconds > MAX_MX_SECONDS)) {
+      throw new IllegalArgumentException(
+          "The MX of " + mxSeconds + " seconds is not between 1 and " + MAX_MX_SECONDS + ".");
+    }
+
+    final List<InetAddress> groupList = new ArrayList<>(groupCollection);
+
+    return CompletableFuture.supplyAsync(() -> runSearch(groupList, mxSeconds), executor);
+  }
+
+  /**
+   * create the M-SEARCH sent to a group.
+   */
+  private static byte[] createSearchMessage(final InetAddress group, final int mxSeconds) {
+    final String host;
+
+    if (group instanceof Inet6Address) {
+      host = "[" + group.getHostAddress() + "]:" + SSDP_PORT;
+    } else {
+      host = group.getHostAddress() + ":" + SSDP_PORT;
+    }
+
+    return ("M-SEARCH * HTTP/1.1\r\n" + "HOST: " + host + "\r\n" + "MAN: \"ssdp:discover\"\r\n"
+        + "MX: " + mxSeconds + "\r\n" + "ST: " + REDFISH_SEARCH_TARGET + "\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * get the Redfish version of the major version in a search target.
+   *
+   * @return null if the version is not supported.
+   */
+  private static RedHxRedfishProtocolVersionEnum getProtocolVersion(final String searchTarget) {
+    final String version = searchTarget.substring(SEARCH_TARGET_PREFIX.length());
+    final int colon = version.indexOf(':');
+    final String major;
+    final RedHxRedfishProtocolVersionEnum retVal;
+
+    if (colon != -1) {
+      major = version.substring(0, colon);
+    } else {
+      major = version;
+    }
+
+    if ("1".equals(major)) {
+      retVal = RedHxRedfishProtocolVersionEnum.VERSION_1;
+    } else {
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the network interfaces that can send to a group.
+   */
+  private static List<NetworkInterface> getInterfaceList(final InetAddress group)
+      throws IOException {
+    final List<NetworkInterface> retVal = new ArrayList<>();
+
+    for (NetworkInterface ni : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+      if (ni.isUp() && ni.supportsMulticast() && !ni.isLoopback()) {
+        for (InetAddress address : Collections.list(ni.getInetAddresses())) {
+          if ((address instanceof Inet6Address) == (group instanceof Inet6Address)) {
+            retVal.add(ni);
+
+            break;
+          }
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * parse the answer to an M-SEARCH.
+   *
+   * @param text the datagram.
+   * @return null if the datagram is not the answer of a Redfish service of a supported version.
+   */
+  static RedHxDiscoveredEndpoint parseResponse(final String text) {
+    final String[] lineArray = text.split("\r?\n");
+    final Map<String, String> headerMap = new HashMap<>();
+    RedHxDiscoveredEndpoint retVal = null;
+
+    if ((lineArray.length > 0) && lineArray[0].toUpperCase(Locale.ROOT).startsWith("HTTP/1.1 200")) {
+      for (int i = 1; i < lineArray.length; ++i) {
+        final int colon = lineArray[i].indexOf(':');
+
+        if (colon > 0) {
+          headerMap.put(lineArray[i].substring(0, colon).trim().toUpperCase(Locale.ROOT),
+              lineArray[i].substring(colon + 1).trim());
+        }
+      }
+
+      final String searchTarget = headerMap.get(HEADER_ST);
+      final String location;
+
+      if (headerMap.containsKey(HEADER_AL)) {
+        location = headerMap.get(HEADER_AL);
+      } else {
+        location = headerMap.get(HEADER_LOCATION);
+      }
+
+      if ((searchTarget != null) && searchTarget.startsWith(SEARCH_TARGET_PREFIX)
+          && (location != null)) {
+        final RedHxRedfishProtocolVersionEnum version = getProtocolVersion(searchTarget);
+
+        try {
+          final URI uri = new URI(location);
+
+          if ((version != null) && uri.isAbsolute() && (uri.getHost() != null)) {
+            retVal = new RedHxDiscoveredEndpoint(uri, version, getUuid(headerMap.get(HEADER_USN)));
+          }
+        } catch (URISyntaxException ex) {
+          retVal = null;
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the UUID from a USN such as uuid:1234::urn:dmtf-org:service:redfish-rest:1.
+   */
+  private static String getUuid(final String usn) {
+    String retVal = null;
+
+    if ((usn != null) && usn.regionMatches(true, 0, USN_UUID_PREFIX, 0, USN_UUID_PREFIX.length())) {
+      final int end = usn.indexOf("::");
+
+      if (end == -1) {
+        retVal = usn.substring(USN_UUID_PREFIX.length());
+      } else {
+        retVal = usn.substring(USN_UUID_PREFIX.length(), end);
+      }
+
+      retVal = retVal.toLowerCase(Locale.ROOT);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * remember a service and deliver it to the listener if no search has found it before.
+   */
+  private void deliver(final RedHxDiscoveredEndpoint endpoint) {
+    if ((knownMap.putIfAbsent(endpoint.getKey(), endpoint) == null)
+        && knownUriSet.add(endpoint.getServiceRootUri())) {
+      try {
+        listener.endpointDiscovered(endpoint);
+      } catch (RuntimeException ex) {
+        logger.error("The discovery listener failed for " + endpoint, ex);
+      }
+    }
+  }
+
+  /**
+   * open a channel for each group and interface that can send to the group. If no interface is
+   * found for a group the system default interface is used.
+   */
+  private List<SearchChannel> openChannels(final Selector selector,
+      final List<InetAddress> groupList, final int mxSeconds) throws IOException {
+    final List<SearchChannel> retVal = new ArrayList<>();
+
+    for (InetAddress group : groupList) {
+      final ProtocolFamily family;
+      final byte[] message = createSearchMessage(group, mxSeconds);
+      final InetSocketAddress target = new InetSocketAddress(group, SSDP_PORT);
+      final List<NetworkInterface> interfaceList = getInterfaceList(group);
+
+      if (group instanceof Inet4Address) {
+        family = StandardProtocolFamily.INET;
+      } else {
+        family = StandardProtocolFamily.INET6;
+      }
+
+      if (interfaceList.isEmpty()) {
+        interfaceList.add(null);
+      }
+
+      for (NetworkInterface ni : interfaceList) {
+        DatagramChannel channel = null;
+
+        try {
+          channel = DatagramChannel.open(family);
+          channel.configureBlocking(false);
+          channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, multicastTtl);
+
+          if (ni != null) {
+            channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, ni);
+          }
+
+          channel.bind(null);
+          channel.register(selector, SelectionKey.OP_READ);
+          retVal.add(new SearchChannel(channel, target, message));
+        } catch (IOException | UnsupportedOperationException ex) {
+          logger.debug("Can not search " + group.getHostAddress() + " from " + ni + ". " + ex);
+
+          if (channel != null) {
+            channel.close();
+          }
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * read every datagram waiting on a channel.
+   */
+  private void receive(final DatagramChannel channel, final ByteBuffer buffer,
+      final Set<String> foundKeySet, final List<RedHxDiscoveredEndpoint> foundList)
+      throws IOException {
+    while (true) {
+      buffer.clear();
+
+      if (channel.receive(buffer) == null) {
+        break;
+      }
+
+      buffer.flip();
+
+      final RedHxDiscoveredEndpoint endpoint =
+          parseResponse(StandardCharsets.US_ASCII.decode(buffer).toString());
+
+      if ((endpoint != null) && foundKeySet.add(endpoint.getKey())) {
+        foundList.add(endpoint);
+        deliver(endpoint);
+      }
+    }
+  }
+
+  private List<RedHxDiscoveredEndpoint> runSearch(final List<InetAddress> groupList,
+      final int mxSeconds) {
+    final List<RedHxDiscoveredEndpoint> retVal = new ArrayList<>();
+    final Set<String> foundKeySet = new HashSet<>();
+    final ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+    List<SearchChannel> channelList = Collections.emptyList();
+
+    try (Selector selector = Selector.open()) {
+      channelList = openChannels(selector, groupList, mxSeconds);
+
+      if (channelList.isEmpty()) {
+        throw new IOException("No network interface can send to " + groupList + ".");
+      }
+
+      final long startNanoTime = System.nanoTime();
+      final long endNanoTime = startNanoTime + TimeUnit.SECONDS.toNanos(mxSeconds + 1);
+      long nextSendNanoTime = startNanoTime;
+      int sendCount = 0;
+
+      while (!Thread.currentThread().isInterrupted()) {
+        final long now = System.nanoTime();
+        final long waitUntil;
+
+        if ((sendCount < SEND_COUNT) && (now >= nextSendNanoTime)) {
+          for (SearchChannel searchChannel : channelList) {
+            searchChannel.send();
+          }
+
+          ++sendCount;
+          nextSendNanoTime += TimeUnit.MILLISECONDS.toNanos(RESEND_MILLISECONDS);
+        }
+
+        if (now >= endNanoTime) {
+          break;
+        }
+
+        if (sendCount < SEND_COUNT) {
+          waitUntil = Math.min(nextSendNanoTime, endNanoTime);
+        } else {
+          waitUntil = endNanoTime;
+        }
+
+        selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitUntil - now)));
+
+        for (SelectionKey key : selector.selectedKeys()) {
+          receive((DatagramChannel) key.channel(), buffer, foundKeySet, retVal);
+        }
+
+        selector.selectedKeys().clear();
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      for (SearchChannel searchChannel : channelList) {
+        searchChannel.close();
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * a channel that sends the M-SEARCH of one group from one network interface.
+   */
+  private final class SearchChannel {
+
+    private final DatagramChannel channel;
+    private final byte[] message;
+    private final InetSocketAddress target;
+
+    SearchChannel(final DatagramChannel channel, final InetSocketAddress target,
+        final byte[] message) {
+      this.channel = channel;
+      this.target = target;
+      this.message = message;
+    }
+
+    void close() {
+      try {
+        channel.close();
+      } catch (IOException ex) {
+        logger.debug("Can not close the SSDP channel of " + target + ". " + ex);
+      }
+    }
+
+    /**
+     * send the M-SEARCH. A network that is down is logged, the other channels still search.
+     */
+    void send() {
+      try {
+        channel.send(ByteBuffer.wrap(message), target);
+      } catch (IOException ex) {
+        logger.debug("Can not send an M-SEARCH to " + target + ". " + ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.event;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.core.util.RedHxUriPathImpl;
+import org.redhelix.server.lib.poll.RedHxPollScheduler;
+import org.redhelix.server.lib.poll.RedHxPollTypeEnum;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * the HTTP listener the Redfish servers POST their events to. The body of each POST is read with a
+ * streaming parser and only the Context, the EventType and the OriginOfCondition of each event are
+ * kept. Each event asks the {@link RedHxPollScheduler} to read again only the resource it names,
+ * the scheduler merges the reads asked for by a burst of events. The response is sent as soon as
+ * the body has been parsed, no Redfish server is read on the listener threads.
+ * <p>
+ * A ResourceAdded or ResourceRemoved event asks for an inventory poll because the chassis found
+ * by the last inventory poll are no longer correct.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+public final class RedHxEventReceiver implements Closeable {
+
+  /**
+   * the path the listener answers, it is added to the host and port to create the destination of
+   * a subscription.
+   */
+  public static final String DEFAULT_PATH = "/redhelix/events";
+
+  /**
+   * the largest body accepted. An event POST holds a few events, anything larger is not read. A
+   * body sent without a Content-Length, for example chunked, is read up to this size.
+   */
+  private static final int MAX_BODY_SIZE = 1024 * 1024;
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final String METHOD_POST = "POST";
+  private static final String TYPE_RESOURCE_ADDED = "ResourceAdded";
+  private static final String TYPE_RESOURCE_REMOVED = "ResourceRemoved";
+  private final AtomicLong eventCount;
+  private final ExecutorService executor;
+  private final Logger logger;
+  private final RedHxEventSubscriptionManager manager;
+  private final String path;
+  private final RedHxPollScheduler scheduler;
+  private final HttpServer server;
+  private final AtomicLong unknownContextCount;
+
+  /**
+   * create the listener and bind its socket. No event is received until {@link #start()} is called.
+   *
+   * @param address the address and port to listen on.
+   * @param path the path of the destination, for example {@link #DEFAULT_PATH}.
+   * @param threadCount the number of threads that parse event bodies. This shall be greater than
+   *        zero.
+   * @param manager finds the Redfish server an event came from. This shall not be null.
+   * @param scheduler reads the resources named by the events. This shall not be null.
+   * @throws IOException if the socket can not be bound.
+   */
+  public RedHxEventReceiver(final InetSocketAddress address, final String path,
+      final int threadCount, final RedHxEventSubscriptionManager manager,
+      final RedHxPollScheduler scheduler) throws IOException {
+    if ((address == null) || (path == null) || (manager == null) || (scheduler == null)) {
+      throw new IllegalArgumentException(
+          "The address, path, subscription manager and scheduler can not be null.");
+    }
+
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("Argument \"threadCount\" must be greater than zero.");
+    }
+
+    this.path = path;
+    this.manager = manager;
+    this.scheduler = scheduler;
+    this.logger = LoggerFactory.getLogger(RedHxEventReceiver.class);
+    this.eventCount = new AtomicLong();
+    this.unknownContextCount = new AtomicLong();
+    this.executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+      final Thread thread = new Thread(runnable, "RedHx event receiver");
+
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    this.server = HttpServer.create(address, 0);
+    this.server.setExecutor(executor);
+    this.server.createContext(path, this::handle);
+  }
+
+  private RedHxEventReceiver() {
+    this.path = null;
+    this.manager = null;
+    this.scheduler = null;
+    this.logger = null;
+    this.eventCount = null;
+    this.unknownContextCount = null;
+    this.executor = null;
+    this.server = null;
+  }
+
+  /**
+   * stop listening. The POSTs being handled are given one second to complete.
+   */
+  @Override
+  public void close() {
+    server.stop(1);
+    executor.shutdown();
+
+    try {
+      executor.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * get the URI a Redfish server shall POST events to.
+   *
+   * @param hostName the name or address of this host as seen by the Redfish servers.
+   * @return A null is not returned.
+   */
+  public URI getDestinationUri(final String hostName) {
+    return URI.create("http://" + hostName + ":" + server.getAddress().getPort() + path);
+  }
+
+  /**
+   * get the number of events received from subscribed Redfish servers.
+   *
+   * @return the number of events in the POSTs with the Context of a subscription.
+   */
+  public long getEventCount() {
+    return eventCount.get();
+  }
+
+  /**
+   * get the number of event POSTs whose Context is not the Context of a subscription. They are
+   * answered but not used.
+   *
+   * @return the number of POSTs.
+   */
+  public long getUnknownContextCount() {
+    return unknownContextCount.get();
+  }
+
+  /**
+   * start receiving events.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * get the path of a resource from an OriginOfCondition, which some servers send as an absolute
+   * URI.
+   *
+   * @return null if the event has no OriginOfCondition.
+   * @throws IllegalArgumentException if the OriginOfCondition is not a URI or a path.
+   */
+  private static RedHxUriPath getPath(final String origin) {
+    final RedHxUriPath retVal;
+
+    if ((origin == null) || origin.isEmpty()) {
+      retVal = null;
+    } else if (origin.startsWith("http:") || origin.startsWith("https:")) {
+      final String path = URI.create(origin).getPath();
+
+      if ((path == null) || path.isEmpty()) {
+        throw new IllegalArgumentException("The URI " + origin + " has no path.");
+      }
+
+      retVal = new RedHxUriPathImpl(path);
+    } else {
+      retVal = new RedHxUriPathImpl(origin);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * read an OriginOfCondition, which is a link object in Redfish 1.0 and a string in some servers.
+   */
+  private static String readOrigin(final JsonParser parser) throws IOException {
+    String retVal = null;
+
+    if (parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+      retVal = parser.getText();
+    } else if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String name = parser.getCurrentName();
+
+        parser.nextToken();
+
+        if ("@odata.id".equals(name) && (parser.getCurrentToken() == JsonToken.VALUE_STRING)) {
+          retVal = parser.getText();
+        } else {
+          parser.skipChildren();
+        }
+      }
+    } else {
+      parser.skipChildren();
+    }
+
+    return retVal;
+  }
+
+  /**
+   * read the events of a POST body.
+   *
+   * @param eventList receives the EventType and OriginOfCondition of each event.
+   * @return the Context of the body.
+   */
+  private static String readBody(final InputStream in, final List<String[]> eventList)
+      throws IOException {
+    String retVal = null;
+
+    try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException("An event POST must be a JSON object.",
+            parser.getCurrentLocation());
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String name = parser.getCurrentName();
+
+        parser.nextToken();
+
+        if ("Context".equals(name) && (parser.getCurrentToken() == JsonToken.VALUE_STRING)) {
+          retVal = parser.getText();
+        } else if ("Events".equals(name) && (parser.getCurrentToken() == JsonToken.START_ARRAY)) {
+          while (parser.nextToken() == JsonToken.START_OBJECT) {
+            eventList.add(readEvent(parser));
+          }
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  private static String[] readEvent(final JsonParser parser) throws IOException {
+    final String[] retVal = new String[2];
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+
+      parser.nextToken();
+
+      if ("EventType".equals(name) && (parser.getCurrentToken() == JsonToken.VALUE_STRING)) {
+        retVal[0] = parser.getText();
+      } else if ("OriginOfCondition".equals(name)) {
+        retVal[1] = readOrigin(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * ask the scheduler for the reads an event needs.
+   */
+  private void dispatch(final RedHxServerConnectionContext ctx, final String eventType,
+      final RedHxUriPath originPath) {
+    if (TYPE_RESOURCE_ADDED.equals(eventType) || TYPE_RESOURCE_REMOVED.equals(eventType)) {
+      scheduler.requestPoll(ctx, RedHxPollTypeEnum.INVENTORY);
+    } else if (originPath != null) {
+      scheduler.requestRead(ctx, originPath);
+    } else {
+      scheduler.requestPoll(ctx, RedHxPollTypeEnum.STATUS);
+    }
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    try {
+      final int statusCode;
+
+      if (!METHOD_POST.equals(exchange.getRequestMethod())) {
+        statusCode = HttpURLConnection.HTTP_BAD_METHOD;
+      } else if (getContentLength(exchange) > MAX_BODY_SIZE) {
+        statusCode = HttpURLConnection.HTTP_ENTITY_TOO_LARGE;
+      } else {
+        statusCode = receive(exchange);
+      }
+
+      exchange.sendResponseHeaders(statusCode, -1);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private static long getContentLength(final HttpExchange exchange) {
+    final String value = exchange.getRequestHeaders().getFirst("Content-Length");
+    long retVal = 0;
+
+    if (value != null) {
+      try {
+        retVal = Long.parseLong(value.trim());
+      } catch (NumberFormatException ex) {
+        retVal = 0;
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * parse the body of a POST and dispatch its events.
+   *
+   * @return the HTTP status of the response.
+   */
+  private int receive(final HttpExchange exchange) {
+    final List<String[]> eventList = new ArrayList<>();
+    final List<RedHxUriPath> originPathList = new ArrayList<>();
+    String contextId = null;
+    int retVal = HttpURLConnection.HTTP_NO_CONTENT;
+
+    try (InputStream in = new LimitedInputStream(exchange.getRequestBody(), MAX_BODY_SIZE)) {
+      contextId = readBody(in, eventList);
+    } catch (BodyTooLargeException ex) {
+      logger.debug("An event POST from " + exchange.getRemoteAddress() + " is too large.");
+      retVal = HttpURLConnection.HTTP_ENTITY_TOO_LARGE;
+    } catch (IOException ex) {
+      logger.debug("Can not read an event from " + exchange.getRemoteAddress() + ". " + ex);
+      retVal = HttpURLConnection.HTTP_BAD_REQUEST;
+    }
+
+    if (retVal == HttpURLConnection.HTTP_NO_CONTENT) {
+      try {
+        for (String[] event : eventList) {
+          originPathList.add(getPath(event[1]));
+        }
+      } catch (IllegalArgumentException ex) {
+        logger.debug("An event from " + exchange.getRemoteAddress()
+            + " has an OriginOfCondition that is not a path. " + ex);
+        retVal = HttpURLConnection.HTTP_BAD_REQUEST;
+      }
+    }
+
+    if (retVal == HttpURLConnection.HTTP_NO_CONTENT) {
+      final RedHxServerConnectionContext ctx = manager.getContext(contextId);
+
+      if (ctx == null) {
+        unknownContextCount.incrementAndGet();
+      } else {
+        eventCount.addAndGet(eventList.size());
+
+        for (int i = 0; i < eventList.size(); ++i) {
+          dispatch(ctx, eventList.get(i)[0], originPathList.get(i));
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * thrown by {@link LimitedInputStream} when a body is larger than its limit.
+   */
+  private static final class BodyTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    BodyTooLargeException(final long limit) {
+      super("The body is larger than " + limit + " bytes.");
+    }
+  }
+
+  /**
+   * a stream that throws {@link BodyTooLargeException} when more than a limit is read from it, so a
+   * body without a Content-Length is not read without a bound.
+   */
+  private static final class LimitedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long count;
+
+    LimitedInputStream(final InputStream in, final long limit) {
+      super(in);
+      this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int retVal = super.read();
+
+      if (retVal != -1) {
+        addCount(1);
+      }
+
+      return retVal;
+    }
+
+    @Override
+    public int read(final byte[] byteArray, final int offset, final int length)
+        throws IOException {
+      final int retVal = super.read(byteArray, offset, length);
+
+      if (retVal > 0) {
+        addCount(retVal);
+      }
+
+      return retVal;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      final long retVal = super.skip(n);
+
+      addCount(retVal);
+
+      return retVal;
+    }
+
+    private void addCount(final long readCount) throws BodyTooLargeException {
+      count += readCount;
+
+      if (count > limit) {
+        throw new BodyTooLargeException(limit);
+      }
+    }
+  }
+}
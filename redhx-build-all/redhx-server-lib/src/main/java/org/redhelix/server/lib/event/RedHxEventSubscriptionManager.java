@@ -0,0 +1,328 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.event;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.security.SecureRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.service.root.RedHxServiceRootIdEum;
+import org.redhelix.server.lib.reader.util.AbstractRedfishJsonReader;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * create and delete the event subscriptions RedHelix holds on a fleet of Redfish servers. Each
+ * subscription asks the server to POST its events to one destination URI, where the
+ * {@link RedHxEventReceiver} listens. The Context of each subscription is a random token that is
+ * sent back in every event so the receiver can find the connection the event belongs to. The token
+ * can not be guessed from the address of the server, so a host that did not receive the
+ * subscription can not post events that are taken as coming from a subscribed server.
+ * <p>
+ * A Redfish server that has no EventService in its service root is not subscribed, it is kept up to
+ * date by polling alone.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+public final class RedHxEventSubscriptionManager {
+
+  /**
+   * the Redfish event types a subscription asks for.
+   */
+  private static final String[] EVENT_TYPE_ARRAY =
+      {"StatusChange", "ResourceUpdated", "ResourceAdded", "ResourceRemoved", "Alert"};
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  /**
+   * the property of the EventService that links to the collection of its subscriptions.
+   */
+  private static final String JSON_KEY_SUBSCRIPTIONS = "Subscriptions";
+
+  /**
+   * the number of random bytes in a Context.
+   */
+  private static final int CONTEXT_BYTE_COUNT = 16;
+
+  /**
+   * the subscriptions by their Context.
+   */
+  private final ConcurrentMap<String, Subscription> contextMap;
+  private final URI destinationUri;
+  private final RedHxAsyncFetchEngine engine;
+  private final SecureRandom random;
+
+  /**
+   * the subscriptions by the host name and port of their server.
+   */
+  private final ConcurrentMap<String, Subscription> serverMap;
+
+  /**
+   * create the manager.
+   *
+   * @param engine sends the HTTP requests. This shall not be null.
+   * @param destinationUri the absolute URI the Redfish servers POST their events to. This shall not
+   *        be null.
+   */
+  public RedHxEventSubscriptionManager(final RedHxAsyncFetchEngine engine,
+      final URI destinationUri) {
+    if ((engine == null) || (destinationUri == null)) {
+      throw new IllegalArgumentException("The engine and destination URI can not be null.");
+    }
+
+    this.engine = engine;
+    this.destinationUri = destinationUri;
+    this.random = new SecureRandom();
+    this.contextMap = new ConcurrentHashMap<>();
+    this.serverMap = new ConcurrentHashMap<>();
+  }
+
+  private RedHxEventSubscriptionManager() {
+    this.engine = null;
+    this.destinationUri = null;
+    this.random = null;
+    this.contextMap = null;
+    this.serverMap = null;
+  }
+
+  /**
+   * get the Context sent in the subscription of a Redfish server.
+   *
+   * @param ctx the server.
+   * @return null if the server is not subscribed.
+   */
+  public String getContextId(final RedHxServerConnectionContext ctx) {
+    final Subscription subscription = serverMap.get(getServerKey(ctx));
+    final String retVal;
+
+    if (subscription != null) {
+      retVal = subscription.contextId;
+    } else {
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the Redfish server that was subscribed with a Context.
+   *
+   * @param contextId the Context of an event.
+   * @return null if no server was subscribed with the Context.
+   */
+  public RedHxServerConnectionContext getContext(final String contextId) {
+    final Subscription subscription;
+    final RedHxServerConnectionContext retVal;
+
+    if (contextId != null) {
+      subscription = contextMap.get(contextId);
+    } else {
+      subscription = null;
+    }
+
+    if (subscription != null) {
+      retVal = subscription.ctx;
+    } else {
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the number of Redfish servers that have a subscription.
+   *
+   * @return the number of servers subscribed or being subscribed, a subscription whose POST has
+   *         not been answered is counted.
+   */
+  public int getSubscriptionCount() {
+    return serverMap.size();
+  }
+
+  /**
+   * create a subscription on a Redfish server. The connection must have been opened so the
+   * EventService is known. The EventService is read for the URI of its Subscriptions collection,
+   * the EventDestination is POSTed to that collection.
+   *
+   * @param ctx the opened connection to the server.
+   * @return a future completed with false if the server has no EventService, the EventService has
+   *         no Subscriptions collection or the server is already subscribed, and with true when the
+   *         subscription has been created. If the server rejects the subscription the future
+   *         completes exceptionally with a RedHxHttpResponseException.
+   */
+  public CompletableFuture<Boolean> subscribe(final RedHxServerConnectionContext ctx) {
+    final URI eventServiceUri = ctx.getServiceUri(RedHxServiceRootIdEum.EVENT_SERVICE);
+    final Subscription subscription = new Subscription(ctx, createContextId());
+
+    if ((eventServiceUri == null)
+        || (serverMap.putIfAbsent(getServerKey(ctx), subscription) != null)) {
+      return CompletableFuture.completedFuture(Boolean.FALSE);
+    }
+
+    contextMap.put(subscription.contextId, subscription);
+
+    return engine.fetchEntity(ctx, RedHxServiceRootIdEum.EVENT_SERVICE, eventServiceUri)
+        .thenCompose(eventService -> {
+          final String collectionId =
+              AbstractRedfishJsonReader.getODataId(eventService, JSON_KEY_SUBSCRIPTIONS);
+
+          if (collectionId == null) {
+            return CompletableFuture.completedFuture(Boolean.FALSE);
+          }
+
+          return engine
+              .postEntity(ctx, RedHxServiceRootIdEum.EVENT_SERVICE,
+                  eventServiceUri.resolve(collectionId),
+                  createSubscriptionJson(subscription.contextId))
+              .thenApply(memberUri -> {
+                subscription.memberFuture.complete(memberUri);
+
+                return Boolean.TRUE;
+              });
+        }).handle((isSubscribed, ex) -> {
+          if ((ex != null) || !isSubscribed) {
+            serverMap.remove(getServerKey(ctx), subscription);
+            contextMap.remove(subscription.contextId, subscription);
+            subscription.memberFuture.complete(null);
+
+            if (ex != null) {
+              throw wrap(ex);
+            }
+          }
+
+          return isSubscribed;
+        });
+  }
+
+  /**
+   * delete the subscription of a Redfish server. The server is forgotten even if the DELETE fails,
+   * a BMC drops subscriptions whose destination stops answering. If the POST that creates the
+   * subscription has not been answered the DELETE is sent when it is, so the subscription is not
+   * left on the server.
+   *
+   * @param ctx the server.
+   * @return a future completed with false if the server was not subscribed.
+   */
+  public CompletableFuture<Boolean> unsubscribe(final RedHxServerConnectionContext ctx) {
+    final Subscription subscription = serverMap.remove(getServerKey(ctx));
+    final CompletableFuture<Boolean> retVal;
+
+    if (subscription == null) {
+      retVal = CompletableFuture.completedFuture(Boolean.FALSE);
+    } else {
+      contextMap.remove(subscription.contextId, subscription);
+      retVal = subscription.memberFuture.thenCompose(memberUri -> {
+        if (memberUri == null) {
+          return CompletableFuture.completedFuture(Boolean.TRUE);
+        }
+
+        return engine.deleteResource(ctx, RedHxServiceRootIdEum.EVENT_SERVICE, memberUri)
+            .thenApply(ignore -> Boolean.TRUE);
+      });
+    }
+
+    return retVal;
+  }
+
+  /**
+   * create the random Context of a subscription.
+   */
+  private String createContextId() {
+    final byte[] byteArray = new byte[CONTEXT_BYTE_COUNT];
+    final StringBuilder builder = new StringBuilder(CONTEXT_BYTE_COUNT * 2);
+
+    random.nextBytes(byteArray);
+
+    for (byte value : byteArray) {
+      builder.append(Character.forDigit((value >> 4) & 0xF, 16));
+      builder.append(Character.forDigit(value & 0xF, 16));
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * create the JSON of an EventDestination.
+   */
+  private byte[] createSubscriptionJson(final String contextId) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeStringField("Destination", destinationUri.toASCIIString());
+      generator.writeArrayFieldStart("EventTypes");
+
+      for (String eventType : EVENT_TYPE_ARRAY) {
+        generator.writeString(eventType);
+      }
+
+      generator.writeEndArray();
+      generator.writeStringField("Context", contextId);
+      generator.writeStringField("Protocol", "Redfish");
+      generator.writeEndObject();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+
+    return out.toByteArray();
+  }
+
+  private static String getServerKey(final RedHxServerConnectionContext ctx) {
+    return ctx.getHostName() + ":" + ctx.getTcpPortNumber();
+  }
+
+  private static RuntimeException wrap(final Throwable ex) {
+    final RuntimeException retVal;
+
+    if (ex instanceof RuntimeException) {
+      retVal = (RuntimeException) ex;
+    } else {
+      retVal = new CompletionException(ex);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * the subscription held on one Redfish server.
+   */
+  private static final class Subscription {
+
+    private final String contextId;
+    private final RedHxServerConnectionContext ctx;
+
+    /**
+     * completed when the POST is answered with the URI of the EventDestination the server created.
+     * It is completed with null if the EventService could not be read, the POST failed or the
+     * server did not send a Location.
+     */
+    private final CompletableFuture<URI> memberFuture;
+
+    Subscription(final RedHxServerConnectionContext ctx, final String contextId) {
+      this.ctx = ctx;
+      this.contextId = contextId;
+      this.memberFuture = new CompletableFuture<>();
+    }
+  }
+}
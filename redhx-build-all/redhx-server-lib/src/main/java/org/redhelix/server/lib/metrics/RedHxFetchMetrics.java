@@ -0,0 +1,520 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.redhelix.core.annotations.ThreadSafe;
+
+/**
+ * the measurements of the poll pipeline, used to tell whether a slow refresh is caused by the
+ * network, the BMCs or the parsing in RedHelix. For each kind of Redfish resource and for each
+ * Redfish server it has the fetch latency, the bytes read, the 304 Not Modified ratio and the
+ * failures. For each kind of resource it also has the parse time. The HTTP status of every
+ * response, how late the polls start and the gauges registered by the engine and the scheduler
+ * are kept for the whole process.
+ * <p>
+ * The kind of a resource is its path with the member IDs replaced by {id}, for example
+ * /redfish/v1/Chassis/{id}/Power, so the number of kinds does not grow with the fleet. A Redfish
+ * server uses about 1 KB, a fleet of 40,000 servers about 40 MB.
+ * </p>
+ * <p>
+ * One instance, {@link #getInstance()}, is shared by every {@link
+ * org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine} in the process that is not given
+ * its own. It is read by the scrape endpoint of the RedHelix server and by JMX after
+ * {@link #registerMBean()}.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+public final class RedHxFetchMetrics implements RedHxFetchMetricsMXBean {
+
+  /**
+   * the name of the MBean registered by {@link #registerMBean()}.
+   */
+  public static final String OBJECT_NAME = "org.redhelix:type=FetchMetrics";
+
+  /**
+   * the kind given to every resource after this many kinds have been seen, so a server with
+   * unusual paths can not fill the memory.
+   */
+  public static final String OTHER_RESOURCE_TYPE = "other";
+
+  /**
+   * the key of the requests that got no HTTP response in {@link #getStatusCounts()}.
+   */
+  public static final String STATUS_IO_FAILURE = "io";
+  private static final long HIGHEST_HOST_LATENCY_MILLISECONDS = TimeUnit.MINUTES.toMillis(2);
+  private static final long HIGHEST_LATENCY_MICROSECONDS = TimeUnit.HOURS.toMicros(1);
+  private static final long HIGHEST_SCHEDULER_LAG_MILLISECONDS = TimeUnit.HOURS.toMillis(1);
+  private static final int HOST_SUB_BUCKET_BITS = 3;
+  private static final int HTTP_PORT_NUMBER = 80;
+  private static final int HTTPS_PORT_NUMBER = 443;
+  private static final RedHxFetchMetrics INSTANCE = new RedHxFetchMetrics();
+  private static final int MAX_RESOURCE_TYPE_COUNT = 256;
+  private static final String REDFISH_ROOT_PATH = "/redfish/v1";
+  private static final int SUB_BUCKET_BITS = 5;
+  private final ConcurrentMap<String, List<LongSupplier>> gaugeMap;
+  private final ConcurrentMap<String, RedHxFetchStatistics> hostMap;
+  private final ConcurrentMap<String, RedHxHistogram> parseHistogramMap;
+  private final ConcurrentMap<String, RedHxFetchStatistics> resourceTypeMap;
+  private final RedHxHistogram schedulerLagHistogram;
+  private final ConcurrentMap<String, AtomicLong> statusCountMap;
+
+  /**
+   * create empty metrics, for an engine that shall not share {@link #getInstance()}.
+   */
+  public RedHxFetchMetrics() {
+    this.gaugeMap = new ConcurrentHashMap<>();
+    this.hostMap = new ConcurrentHashMap<>();
+    this.parseHistogramMap = new ConcurrentHashMap<>();
+    this.resourceTypeMap = new ConcurrentHashMap<>();
+    this.schedulerLagHistogram =
+        new RedHxHistogram(SUB_BUCKET_BITS, HIGHEST_SCHEDULER_LAG_MILLISECONDS);
+    this.statusCountMap = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * get the metrics shared by the process.
+   *
+   * @return A null is not returned.
+   */
+  public static RedHxFetchMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * get the key of a Redfish server in {@link #getHostMap()}.
+   *
+   * @param hostName the host name or address of the server.
+   * @param tcpPortNumber the TCP port of the server.
+   * @return A null is not returned.
+   */
+  public static String getHostKey(final String hostName, final int tcpPortNumber) {
+    return hostName + ":" + tcpPortNumber;
+  }
+
+  /**
+   * get the kind of a Redfish resource, its path with every member ID replaced by {id}.
+   *
+   * @param path the path of the resource, for example /redfish/v1/Systems/1/Processors/CPU1.
+   * @return the kind, for example /redfish/v1/Systems/{id}/Processors/{id}.
+   *         {@link #OTHER_RESOURCE_TYPE} is returned if the path is not below /redfish/v1.
+   */
+  public static String getResourceType(final String path) {
+    final String retVal;
+
+    if ((path == null) || !path.startsWith(REDFISH_ROOT_PATH)) {
+      retVal = OTHER_RESOURCE_TYPE;
+    } else {
+      final String[] segmentArray = path.substring(REDFISH_ROOT_PATH.length()).split("/");
+      final StringBuilder buf = new StringBuilder(REDFISH_ROOT_PATH);
+      int position = 0;
+
+      /*
+       * a Redfish path alternates between a collection or property name and a member ID.
+       */
+      for (String segment : segmentArray) {
+        if (!segment.isEmpty()) {
+          buf.append('/').append(((position % 2) == 0) ? segment : "{id}");
+          position++;
+        }
+      }
+
+      retVal = buf.toString();
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public long getByteCount() {
+    long retVal = 0;
+
+    for (RedHxFetchStatistics statistics : resourceTypeMap.values()) {
+      retVal += statistics.getByteCount();
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public long getFailureCount() {
+    long retVal = 0;
+
+    for (RedHxFetchStatistics statistics : resourceTypeMap.values()) {
+      retVal += statistics.getFailureCount();
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the current value of each gauge. A gauge registered more than once, for example by two
+   * engines, has the sum of the values.
+   *
+   * @return A null is not returned. The map is sorted by name.
+   */
+  @Override
+  public Map<String, Long> getGauges() {
+    final Map<String, Long> retVal = new TreeMap<>();
+
+    for (Map.Entry<String, List<LongSupplier>> entry : gaugeMap.entrySet()) {
+      long value = 0;
+
+      for (LongSupplier supplier : entry.getValue()) {
+        value += supplier.getAsLong();
+      }
+
+      if (!entry.getValue().isEmpty()) {
+        retVal.put(entry.getKey(), value);
+      }
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public int getHostCount() {
+    return hostMap.size();
+  }
+
+  /**
+   * get the statistics of each Redfish server. The latency of a server is in milliseconds.
+   *
+   * @return A null is not returned. The key is from {@link #getHostKey(String, int)}.
+   */
+  public Map<String, RedHxFetchStatistics> getHostMap() {
+    return Collections.unmodifiableMap(hostMap);
+  }
+
+  @Override
+  public String getHostSummary(final String hostName, final int tcpPortNumber) {
+    final RedHxFetchStatistics statistics = hostMap.get(getHostKey(hostName, tcpPortNumber));
+
+    return (statistics == null) ? null : statistics.toString();
+  }
+
+  @Override
+  public Map<String, Double> getLatencyP99MillisecondsByResourceType() {
+    final Map<String, Double> retVal = new TreeMap<>();
+
+    for (Map.Entry<String, RedHxFetchStatistics> entry : resourceTypeMap.entrySet()) {
+      retVal.put(entry.getKey(),
+          toMilliseconds(entry.getValue().getLatencyHistogram().getValueAtPercentile(99)));
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public double getNotModifiedRatio() {
+    long notModified = 0;
+    long total = 0;
+
+    for (RedHxFetchStatistics statistics : resourceTypeMap.values()) {
+      notModified += statistics.getNotModifiedCount();
+      total += statistics.getNotModifiedCount() + statistics.getOkCount();
+    }
+
+    return (total == 0) ? 0 : ((double) notModified / total);
+  }
+
+  /**
+   * get the time to parse the body of each kind of resource, in microseconds.
+   *
+   * @return A null is not returned. The key is the resource type.
+   */
+  public Map<String, RedHxHistogram> getParseHistogramMap() {
+    return Collections.unmodifiableMap(parseHistogramMap);
+  }
+
+  @Override
+  public Map<String, Double> getParseP99MillisecondsByResourceType() {
+    final Map<String, Double> retVal = new TreeMap<>();
+
+    for (Map.Entry<String, RedHxHistogram> entry : parseHistogramMap.entrySet()) {
+      retVal.put(entry.getKey(), toMilliseconds(entry.getValue().getValueAtPercentile(99)));
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the statistics of each kind of resource. The latency is in microseconds.
+   *
+   * @return A null is not returned. The key is from {@link #getResourceType(String)}.
+   */
+  public Map<String, RedHxFetchStatistics> getResourceTypeMap() {
+    return Collections.unmodifiableMap(resourceTypeMap);
+  }
+
+  @Override
+  public long getResponseCount() {
+    long retVal = 0;
+
+    for (RedHxFetchStatistics statistics : resourceTypeMap.values()) {
+      retVal += statistics.getOkCount() + statistics.getNotModifiedCount();
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get how late the polls started after they were due, in milliseconds. A lag that grows means
+   * the scheduler can not keep up, usually because the polls in flight are at their limit.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxHistogram getSchedulerLagHistogram() {
+    return schedulerLagHistogram;
+  }
+
+  @Override
+  public double getSchedulerLagP99Milliseconds() {
+    return schedulerLagHistogram.getValueAtPercentile(99);
+  }
+
+  @Override
+  public Map<String, Long> getStatusCounts() {
+    final Map<String, Long> retVal = new TreeMap<>();
+
+    for (Map.Entry<String, AtomicLong> entry : statusCountMap.entrySet()) {
+      retVal.put(entry.getKey(), entry.getValue().get());
+    }
+
+    return retVal;
+  }
+
+  /**
+   * add the bytes of a decoded response body.
+   *
+   * @param uri the URI of the resource.
+   * @param byteCount the length of the body.
+   */
+  public void recordBytes(final URI uri, final long byteCount) {
+    getResourceTypeStatistics(uri).recordBytes(byteCount);
+    getHostStatistics(uri).recordBytes(byteCount);
+  }
+
+  /**
+   * add a request that got no HTTP response, because the connection failed, timed out or was
+   * cancelled.
+   *
+   * @param uri the URI of the resource.
+   * @param latencyNanos the time from sending the request to the failure.
+   */
+  public void recordFailure(final URI uri, final long latencyNanos) {
+    getResourceTypeStatistics(uri).recordFailure(latencyNanos);
+    getHostStatistics(uri).recordFailure(latencyNanos);
+    getStatusCount(STATUS_IO_FAILURE).incrementAndGet();
+  }
+
+  /**
+   * add the time to parse a response body.
+   *
+   * @param uri the URI of the resource.
+   * @param parseNanos the time to parse.
+   */
+  public void recordParse(final URI uri, final long parseNanos) {
+    final String resourceType = getBoundedResourceType(uri);
+    RedHxHistogram histogram = parseHistogramMap.get(resourceType);
+
+    if (histogram == null) {
+      histogram = parseHistogramMap.computeIfAbsent(resourceType,
+          key -> new RedHxHistogram(SUB_BUCKET_BITS, HIGHEST_LATENCY_MICROSECONDS));
+    }
+
+    histogram.record(TimeUnit.NANOSECONDS.toMicros(parseNanos));
+  }
+
+  /**
+   * add a request that got an HTTP response.
+   *
+   * @param uri the URI of the resource.
+   * @param statusCode the HTTP status of the response.
+   * @param latencyNanos the time from sending the request to having received the whole response.
+   */
+  public void recordResponse(final URI uri, final int statusCode, final long latencyNanos) {
+    getResourceTypeStatistics(uri).recordResponse(statusCode, latencyNanos);
+    getHostStatistics(uri).recordResponse(statusCode, latencyNanos);
+    getStatusCount(Integer.toString(statusCode)).incrementAndGet();
+  }
+
+  /**
+   * add how late a poll started after it was due.
+   *
+   * @param lagNanos the time from when the poll was due to when it was sent.
+   */
+  public void recordSchedulerLag(final long lagNanos) {
+    schedulerLagHistogram.record(TimeUnit.NANOSECONDS.toMillis(lagNanos));
+  }
+
+  /**
+   * add a gauge, a value read when the metrics are read. A gauge shall be quick and shall not
+   * block.
+   *
+   * @param name the name of the gauge, for example redhx_fetch_in_flight.
+   * @param supplier reads the value. This shall not be null.
+   */
+  public void registerGauge(final String name, final LongSupplier supplier) {
+    if ((name == null) || (supplier == null)) {
+      throw new IllegalArgumentException("The name and supplier of a gauge can not be null.");
+    }
+
+    gaugeMap.computeIfAbsent(name, key -> new CopyOnWriteArrayList<>()).add(supplier);
+  }
+
+  /**
+   * register these metrics with the platform MBean server under {@link #OBJECT_NAME}.
+   *
+   * @return false if an MBean is already registered under the name.
+   */
+  public boolean registerMBean() {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    boolean retVal = true;
+
+    try {
+      server.registerMBean(this, new ObjectName(OBJECT_NAME));
+    } catch (InstanceAlreadyExistsException ex) {
+      retVal = false;
+    } catch (JMException ex) {
+      throw new IllegalStateException("Can not register " + OBJECT_NAME, ex);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * remove a Redfish server that is no longer polled.
+   *
+   * @param hostName the host name or address of the server.
+   * @param tcpPortNumber the TCP port of the server.
+   */
+  public void removeHost(final String hostName, final int tcpPortNumber) {
+    hostMap.remove(getHostKey(hostName, tcpPortNumber));
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxFetchMetrics{" + "responses=" + getResponseCount() + ", failures="
+        + getFailureCount() + ", notModifiedRatio=" + getNotModifiedRatio() + ", hosts="
+        + getHostCount() + '}';
+  }
+
+  /**
+   * remove a gauge added by {@link #registerGauge(String, LongSupplier)}.
+   *
+   * @param name the name of the gauge.
+   * @param supplier the supplier that was registered.
+   */
+  public void unregisterGauge(final String name, final LongSupplier supplier) {
+    final List<LongSupplier> list = gaugeMap.get(name);
+
+    if (list != null) {
+      list.remove(supplier);
+    }
+  }
+
+  /**
+   * remove the MBean registered by {@link #registerMBean()}. It has no effect if it is not
+   * registered.
+   */
+  public void unregisterMBean() {
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+    } catch (InstanceNotFoundException ex) {
+      // not registered
+    } catch (JMException ex) {
+      throw new IllegalStateException("Can not unregister " + OBJECT_NAME, ex);
+    }
+  }
+
+  private static double toMilliseconds(final long microseconds) {
+    return microseconds / 1000.0;
+  }
+
+  private String getBoundedResourceType(final URI uri) {
+    final String resourceType = getResourceType(uri.getPath());
+    final String retVal;
+
+    if (resourceTypeMap.containsKey(resourceType)
+        || (resourceTypeMap.size() < MAX_RESOURCE_TYPE_COUNT)) {
+      retVal = resourceType;
+    } else {
+      retVal = OTHER_RESOURCE_TYPE;
+    }
+
+    return retVal;
+  }
+
+  private RedHxFetchStatistics getHostStatistics(final URI uri) {
+    final int port;
+
+    if (uri.getPort() != -1) {
+      port = uri.getPort();
+    } else {
+      port = "https".equalsIgnoreCase(uri.getScheme()) ? HTTPS_PORT_NUMBER : HTTP_PORT_NUMBER;
+    }
+
+    final String hostKey = getHostKey(uri.getHost(), port);
+    RedHxFetchStatistics retVal = hostMap.get(hostKey);
+
+    if (retVal == null) {
+      retVal = hostMap.computeIfAbsent(hostKey, key -> new RedHxFetchStatistics(
+          TimeUnit.MILLISECONDS, HOST_SUB_BUCKET_BITS, HIGHEST_HOST_LATENCY_MILLISECONDS));
+    }
+
+    return retVal;
+  }
+
+  private RedHxFetchStatistics getResourceTypeStatistics(final URI uri) {
+    final String resourceType = getBoundedResourceType(uri);
+    RedHxFetchStatistics retVal = resourceTypeMap.get(resourceType);
+
+    if (retVal == null) {
+      retVal = resourceTypeMap.computeIfAbsent(resourceType, key -> new RedHxFetchStatistics(
+          TimeUnit.MICROSECONDS, SUB_BUCKET_BITS, HIGHEST_LATENCY_MICROSECONDS));
+    }
+
+    return retVal;
+  }
+
+  private AtomicLong getStatusCount(final String status) {
+    AtomicLong retVal = statusCountMap.get(status);
+
+    if (retVal == null) {
+      retVal = statusCountMap.computeIfAbsent(status, key -> new AtomicLong());
+    }
+
+    return retVal;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.metrics;
+
+import java.util.Map;
+
+/**
+ * the JMX view of {@link RedHxFetchMetrics}. The latencies are in milliseconds so they can be
+ * charted by a JMX console without a conversion.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+public interface RedHxFetchMetricsMXBean {
+
+  /**
+   * get the number of bytes of all decoded response bodies.
+   *
+   * @return zero or more.
+   */
+  long getByteCount();
+
+  /**
+   * get the number of requests that failed, with an HTTP error status or with no response.
+   *
+   * @return zero or more.
+   */
+  long getFailureCount();
+
+  /**
+   * get the current value of each gauge, for example the HTTP requests in flight and the depth
+   * of the poll queue.
+   *
+   * @return A null is not returned. The key is the name of the gauge.
+   */
+  Map<String, Long> getGauges();
+
+  /**
+   * get the number of Redfish servers that have been fetched from.
+   *
+   * @return zero or more.
+   */
+  int getHostCount();
+
+  /**
+   * get a one line summary of the fetches from one Redfish server.
+   *
+   * @param hostName the host name or address of the server.
+   * @param tcpPortNumber the TCP port of the server.
+   * @return A null is returned if nothing was fetched from the server.
+   */
+  String getHostSummary(String hostName, int tcpPortNumber);
+
+  /**
+   * get the 99th percentile of the fetch latency of each kind of resource.
+   *
+   * @return A null is not returned. The key is the resource type, for example
+   *         /redfish/v1/Chassis/{id}.
+   */
+  Map<String, Double> getLatencyP99MillisecondsByResourceType();
+
+  /**
+   * get the fraction of the successful reads that were answered 304 Not Modified.
+   *
+   * @return from 0 to 1.
+   */
+  double getNotModifiedRatio();
+
+  /**
+   * get the 99th percentile of the time to parse each kind of resource.
+   *
+   * @return A null is not returned. The key is the resource type.
+   */
+  Map<String, Double> getParseP99MillisecondsByResourceType();
+
+  /**
+   * get the number of requests answered with a 2xx status or 304 Not Modified.
+   *
+   * @return zero or more.
+   */
+  long getResponseCount();
+
+  /**
+   * get the 99th percentile of how late the polls started after they were due.
+   *
+   * @return the lag in milliseconds.
+   */
+  double getSchedulerLagP99Milliseconds();
+
+  /**
+   * get the number of responses of each HTTP status. Requests that got no response are counted
+   * under the key "io".
+   *
+   * @return A null is not returned.
+   */
+  Map<String, Long> getStatusCounts();
+}
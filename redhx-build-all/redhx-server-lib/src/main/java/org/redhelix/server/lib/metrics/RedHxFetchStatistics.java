@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.redhelix.core.annotations.ThreadSafe;
+
+/**
+ * the fetches of one kind of Redfish resource, or of one Redfish server: how long the requests
+ * took, how many bytes were read, how many were answered 304 Not Modified and how many failed.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+public final class RedHxFetchStatistics {
+
+  private final AtomicLong byteCount;
+  private final AtomicLong failureCount;
+  private final RedHxHistogram latencyHistogram;
+  private final TimeUnit latencyUnit;
+  private final AtomicLong notModifiedCount;
+  private final AtomicLong okCount;
+
+  /**
+   * create empty statistics.
+   *
+   * @param latencyUnit the unit the latency is recorded in.
+   * @param subBucketBits the precision of the latency histogram, see {@link RedHxHistogram}.
+   * @param highestTrackableLatency the highest latency, in the latency unit, that is recorded
+   *        exactly.
+   */
+  RedHxFetchStatistics(final TimeUnit latencyUnit, final int subBucketBits,
+      final long highestTrackableLatency) {
+    this.latencyUnit = latencyUnit;
+    this.latencyHistogram = new RedHxHistogram(subBucketBits, highestTrackableLatency);
+    this.byteCount = new AtomicLong();
+    this.failureCount = new AtomicLong();
+    this.notModifiedCount = new AtomicLong();
+    this.okCount = new AtomicLong();
+  }
+
+  private RedHxFetchStatistics() {
+    this.latencyUnit = null;
+    this.latencyHistogram = null;
+    this.byteCount = null;
+    this.failureCount = null;
+    this.notModifiedCount = null;
+    this.okCount = null;
+  }
+
+  /**
+   * get the number of bytes of the decoded response bodies.
+   *
+   * @return zero or more.
+   */
+  public long getByteCount() {
+    return byteCount.get();
+  }
+
+  /**
+   * get the number of requests that failed, with an HTTP status that is not 2xx or 304 or with no
+   * response at all.
+   *
+   * @return zero or more.
+   */
+  public long getFailureCount() {
+    return failureCount.get();
+  }
+
+  /**
+   * get the time from sending a request to having received the whole response, of every request
+   * that was answered or failed.
+   *
+   * @return A null is not returned. The values are in {@link #getLatencyUnit()}.
+   */
+  public RedHxHistogram getLatencyHistogram() {
+    return latencyHistogram;
+  }
+
+  public TimeUnit getLatencyUnit() {
+    return latencyUnit;
+  }
+
+  /**
+   * get the number of requests answered 304 Not Modified.
+   *
+   * @return zero or more.
+   */
+  public long getNotModifiedCount() {
+    return notModifiedCount.get();
+  }
+
+  /**
+   * get the fraction of the successful reads that were answered 304 Not Modified. The higher it
+   * is the less a poll costs the BMC, the network and the parser.
+   *
+   * @return from 0 to 1. Zero is returned if nothing was read.
+   */
+  public double getNotModifiedRatio() {
+    final long notModified = notModifiedCount.get();
+    final long total = notModified + okCount.get();
+
+    return (total == 0) ? 0 : ((double) notModified / total);
+  }
+
+  /**
+   * get the number of requests answered with a 2xx status.
+   *
+   * @return zero or more.
+   */
+  public long getOkCount() {
+    return okCount.get();
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxFetchStatistics{" + "ok=" + getOkCount() + ", notModified="
+        + getNotModifiedCount() + ", failure=" + getFailureCount() + ", bytes=" + getByteCount()
+        + ", latency=" + latencyHistogram + ' ' + latencyUnit + '}';
+  }
+
+  void recordBytes(final long count) {
+    byteCount.addAndGet(count);
+  }
+
+  void recordFailure(final long latencyNanos) {
+    failureCount.incrementAndGet();
+    latencyHistogram.record(latencyUnit.convert(latencyNanos, TimeUnit.NANOSECONDS));
+  }
+
+  void recordResponse(final int statusCode, final long latencyNanos) {
+    if (statusCode == 304) {
+      notModifiedCount.incrementAndGet();
+    } else if ((statusCode / 100) == 2) {
+      okCount.incrementAndGet();
+    } else {
+      failureCount.incrementAndGet();
+    }
+
+    latencyHistogram.record(latencyUnit.convert(latencyNanos, TimeUnit.NANOSECONDS));
+  }
+}
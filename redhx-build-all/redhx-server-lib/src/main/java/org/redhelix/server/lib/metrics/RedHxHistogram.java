@@ -0,0 +1,206 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.redhelix.core.annotations.ThreadSafe;
+
+/**
+ * a histogram of positive values with a fixed relative precision, in the manner of an HDR
+ * histogram. The values below 2<sup>n</sup>, where n is the number of sub bucket bits, each have
+ * their own bucket. Above that every power of two is split into 2<sup>n</sup> buckets of equal
+ * width, so a recorded value is known to within 1 part in 2<sup>n</sup> and the memory used
+ * grows with the logarithm of the highest value, not with the value.
+ * <p>
+ * Recording is a few atomic increments and never blocks, so it is done on the selector and parse
+ * threads. A percentile read while values are recorded may miss the values recorded during the
+ * read.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+public final class RedHxHistogram {
+
+  private final AtomicLongArray bucketArray;
+  private final AtomicLong count;
+  private final long highestTrackableValue;
+  private final AtomicLong max;
+  private final int subBucketBits;
+  private final int subBucketCount;
+  private final AtomicLong sum;
+
+  /**
+   * create an empty histogram.
+   *
+   * @param subBucketBits the precision, from 1 to 10. 5 records a value to within about 3%.
+   * @param highestTrackableValue a larger value is counted as this value. The sum and maximum
+   *        keep the value that was recorded. This shall be greater than 2<sup>n</sup>.
+   */
+  public RedHxHistogram(final int subBucketBits, final long highestTrackableValue) {
+    if ((subBucketBits < 1) || (subBucketBits > 10)) {
+      throw new IllegalArgumentException("Argument \"subBucketBits\" must be from 1 to 10.");
+    }
+
+    if (highestTrackableValue <= (1L << subBucketBits)) {
+      throw new IllegalArgumentException("The highest trackable value " + highestTrackableValue
+          + " is not greater than " + (1L << subBucketBits) + ".");
+    }
+
+    this.subBucketBits = subBucketBits;
+    this.subBucketCount = 1 << subBucketBits;
+    this.highestTrackableValue = highestTrackableValue;
+    this.bucketArray = new AtomicLongArray(getBucketIndex(highestTrackableValue) + 1);
+    this.count = new AtomicLong();
+    this.max = new AtomicLong();
+    this.sum = new AtomicLong();
+  }
+
+  private RedHxHistogram() {
+    this.subBucketBits = 0;
+    this.subBucketCount = 0;
+    this.highestTrackableValue = 0;
+    this.bucketArray = null;
+    this.count = null;
+    this.max = null;
+    this.sum = null;
+  }
+
+  /**
+   * get the number of values recorded.
+   *
+   * @return zero or more.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * get the largest value recorded.
+   *
+   * @return zero if no value was recorded.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * get the mean of the values recorded.
+   *
+   * @return zero if no value was recorded.
+   */
+  public double getMean() {
+    final long currentCount = count.get();
+
+    return (currentCount == 0) ? 0 : ((double) sum.get() / currentCount);
+  }
+
+  /**
+   * get the sum of the values recorded.
+   *
+   * @return zero or more.
+   */
+  public long getSum() {
+    return sum.get();
+  }
+
+  /**
+   * get the value below which a percentage of the recorded values fall. The highest value of the
+   * bucket that holds the percentile is returned, never more than the largest value recorded.
+   *
+   * @param percentile from 0 to 100.
+   * @return zero if no value was recorded.
+   */
+  public long getValueAtPercentile(final double percentile) {
+    if ((percentile < 0) || (percentile > 100)) {
+      throw new IllegalArgumentException("Argument \"percentile\" must be from 0 to 100.");
+    }
+
+    final long currentCount = count.get();
+    final long rank = Math.max(1, (long) Math.ceil((percentile / 100.0) * currentCount));
+    long retVal = 0;
+
+    if (currentCount > 0) {
+      long seen = 0;
+      int i = 0;
+
+      retVal = max.get();
+
+      while ((seen < rank) && (i < bucketArray.length())) {
+        seen += bucketArray.get(i);
+
+        if (seen >= rank) {
+          retVal = Math.min(getHighestValueOfBucket(i), retVal);
+        }
+
+        i++;
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * add a value.
+   *
+   * @param value a negative value is counted as zero.
+   */
+  public void record(final long value) {
+    final long positive = Math.max(0, value);
+
+    bucketArray.incrementAndGet(getBucketIndex(Math.min(positive, highestTrackableValue)));
+    sum.addAndGet(positive);
+    max.accumulateAndGet(positive, Math::max);
+    count.incrementAndGet();
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxHistogram{" + "count=" + getCount() + ", mean=" + getMean() + ", p50="
+        + getValueAtPercentile(50) + ", p99=" + getValueAtPercentile(99) + ", max=" + getMax()
+        + '}';
+  }
+
+  private int getBucketIndex(final long value) {
+    final int retVal;
+
+    if (value < subBucketCount) {
+      retVal = (int) value;
+    } else {
+      final int exponent = 63 - Long.numberOfLeadingZeros(value);
+      final int shift = exponent - subBucketBits;
+
+      retVal = ((shift + 1) << subBucketBits) + (int) ((value >>> shift) - subBucketCount);
+    }
+
+    return retVal;
+  }
+
+  private long getHighestValueOfBucket(final int index) {
+    final long retVal;
+
+    if (index < subBucketCount) {
+      retVal = index;
+    } else {
+      final int shift = (index >> subBucketBits) - 1;
+      final long mantissa = (index & (subBucketCount - 1)) + subBucketCount;
+
+      retVal = ((mantissa + 1) << shift) - 1;
+    }
+
+    return retVal;
+  }
+}
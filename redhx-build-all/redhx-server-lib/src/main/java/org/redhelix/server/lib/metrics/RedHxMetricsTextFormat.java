@@ -0,0 +1,196 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.redhelix.core.annotations.Immutable;
+
+/**
+ * writes {@link RedHxFetchMetrics} in the Prometheus text exposition format, version 0.0.4, so
+ * they can be scraped by Prometheus or read by a person with curl. A histogram is written as a
+ * summary with the 50th, 90th, 99th and 100th percentiles, and every time is in seconds.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@Immutable
+public final class RedHxMetricsTextFormat {
+
+  /**
+   * the value of the Content-Type header of the format.
+   */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final double[] PERCENTILE_ARRAY = {50, 90, 99, 100};
+
+  private RedHxMetricsTextFormat() {
+  }
+
+  /**
+   * write the metrics.
+   *
+   * @param metrics the metrics to write. This shall not be null.
+   * @param isHostIncluded true to write the statistics of every Redfish server. For a large fleet
+   *        this is many thousands of lines.
+   * @param writer the destination. It is not closed.
+   * @throws IOException if the writer fails.
+   */
+  public static void write(final RedHxFetchMetrics metrics, final boolean isHostIncluded,
+      final Writer writer) throws IOException {
+    if ((metrics == null) || (writer == null)) {
+      throw new IllegalArgumentException("The metrics and writer can not be null.");
+    }
+
+    final Map<String, RedHxFetchStatistics> resourceTypeMap =
+        new TreeMap<>(metrics.getResourceTypeMap());
+
+    writeHeader(writer, "redhx_fetch_latency_seconds", "summary",
+        "Time from sending a request to receiving the whole response.");
+
+    for (Map.Entry<String, RedHxFetchStatistics> entry : resourceTypeMap.entrySet()) {
+      writeSummary(writer, "redhx_fetch_latency_seconds", "resource", entry.getKey(),
+          entry.getValue().getLatencyHistogram(), entry.getValue().getLatencyUnit());
+    }
+
+    writeHeader(writer, "redhx_fetch_parse_seconds", "summary",
+        "Time to parse a response body.");
+
+    for (Map.Entry<String, RedHxHistogram> entry : new TreeMap<>(metrics.getParseHistogramMap())
+        .entrySet()) {
+      writeSummary(writer, "redhx_fetch_parse_seconds", "resource", entry.getKey(),
+          entry.getValue(), TimeUnit.MICROSECONDS);
+    }
+
+    writeStatistics(writer, "redhx_fetch", "resource", resourceTypeMap);
+    writeHeader(writer, "redhx_fetch_status_total", "counter",
+        "Responses by HTTP status, io is a request with no response.");
+
+    for (Map.Entry<String, Long> entry : metrics.getStatusCounts().entrySet()) {
+      writeSample(writer, "redhx_fetch_status_total", "status", entry.getKey(),
+          Long.toString(entry.getValue()));
+    }
+
+    writeHeader(writer, "redhx_poll_scheduler_lag_seconds", "summary",
+        "Time from when a poll was due to when it was sent.");
+    writeSummary(writer, "redhx_poll_scheduler_lag_seconds", null, null,
+        metrics.getSchedulerLagHistogram(), TimeUnit.MILLISECONDS);
+
+    for (Map.Entry<String, Long> entry : metrics.getGauges().entrySet()) {
+      writeHeader(writer, entry.getKey(), "gauge", null);
+      writeSample(writer, entry.getKey(), null, null, Long.toString(entry.getValue()));
+    }
+
+    if (isHostIncluded) {
+      final Map<String, RedHxFetchStatistics> hostMap = new TreeMap<>(metrics.getHostMap());
+
+      writeHeader(writer, "redhx_host_fetch_latency_seconds", "summary",
+          "Time from sending a request to a Redfish server to receiving the whole response.");
+
+      for (Map.Entry<String, RedHxFetchStatistics> entry : hostMap.entrySet()) {
+        writeSummary(writer, "redhx_host_fetch_latency_seconds", "host", entry.getKey(),
+            entry.getValue().getLatencyHistogram(), entry.getValue().getLatencyUnit());
+      }
+
+      writeStatistics(writer, "redhx_host_fetch", "host", hostMap);
+    }
+
+    writer.flush();
+  }
+
+  private static String escape(final String labelValue) {
+    return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static String formatSeconds(final long value, final TimeUnit unit) {
+    return Double.toString(unit.toNanos(value) / 1e9);
+  }
+
+  private static void writeHeader(final Writer writer, final String name, final String type,
+      final String help) throws IOException {
+    if (help != null) {
+      writer.write("# HELP " + name + " " + help + "\n");
+    }
+
+    writer.write("# TYPE " + name + " " + type + "\n");
+  }
+
+  private static void writeSample(final Writer writer, final String name,
+      final String labelName, final String labelValue, final String value) throws IOException {
+    writer.write(name);
+
+    if (labelName != null) {
+      writer.write("{" + labelName + "=\"" + escape(labelValue) + "\"}");
+    }
+
+    writer.write(" " + value + "\n");
+  }
+
+  private static void writeStatistics(final Writer writer, final String prefix,
+      final String labelName, final Map<String, RedHxFetchStatistics> statisticsMap)
+      throws IOException {
+    writeHeader(writer, prefix + "_bytes_total", "counter", "Bytes of decoded response bodies.");
+
+    for (Map.Entry<String, RedHxFetchStatistics> entry : statisticsMap.entrySet()) {
+      writeSample(writer, prefix + "_bytes_total", labelName, entry.getKey(),
+          Long.toString(entry.getValue().getByteCount()));
+    }
+
+    writeHeader(writer, prefix + "_failures_total", "counter",
+        "Requests with an HTTP error status or no response.");
+
+    for (Map.Entry<String, RedHxFetchStatistics> entry : statisticsMap.entrySet()) {
+      writeSample(writer, prefix + "_failures_total", labelName, entry.getKey(),
+          Long.toString(entry.getValue().getFailureCount()));
+    }
+
+    writeHeader(writer, prefix + "_not_modified_ratio", "gauge",
+        "Fraction of successful reads answered 304 Not Modified.");
+
+    for (Map.Entry<String, RedHxFetchStatistics> entry : statisticsMap.entrySet()) {
+      writeSample(writer, prefix + "_not_modified_ratio", labelName, entry.getKey(),
+          String.format(Locale.ROOT, "%.4f", entry.getValue().getNotModifiedRatio()));
+    }
+  }
+
+  /**
+   * write a histogram as the samples of a Prometheus summary.
+   */
+  private static void writeSummary(final Writer writer, final String name,
+      final String labelName, final String labelValue, final RedHxHistogram histogram,
+      final TimeUnit unit) throws IOException {
+    final String label;
+
+    if (labelName == null) {
+      label = "";
+    } else {
+      label = labelName + "=\"" + escape(labelValue) + "\",";
+    }
+
+    for (double percentile : PERCENTILE_ARRAY) {
+      writer.write(name + "{" + label + "quantile=\"" + (percentile / 100) + "\"} "
+          + formatSeconds(histogram.getValueAtPercentile(percentile), unit) + "\n");
+    }
+
+    final String sampleLabel = (labelName == null) ? "" : ("{" + label.substring(0,
+        label.length() - 1) + "}");
+
+    writer.write(name + "_sum" + sampleLabel + " " + formatSeconds(histogram.getSum(), unit)
+        + "\n");
+    writer.write(name + "_count" + sampleLabel + " " + histogram.getCount() + "\n");
+  }
+}
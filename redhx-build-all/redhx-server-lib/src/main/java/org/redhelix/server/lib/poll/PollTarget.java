@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.poll;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * the poll state of one Redfish server held by the scheduler.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+final class PollTarget {
+
+  private final RedHxServerConnectionContext ctx;
+  private long backoffUntilNanoTime;
+  private Set<RedHxUriPath> chassisPathSet;
+  private int failureCount;
+  private final Set<RedHxUriPath> pendingPathSet;
+  private boolean isPolling;
+  private volatile boolean isRemoved;
+
+  PollTarget(final RedHxServerConnectionContext ctx) {
+    this.ctx = ctx;
+    this.pendingPathSet = new HashSet<>();
+  }
+
+  private PollTarget() {
+    this.ctx = null;
+    this.pendingPathSet = null;
+  }
+
+  /**
+   * add chassis to re-read because of events. Events that arrive before the read starts are merged
+   * into the same read.
+   *
+   * @param pathSet the chassis to read.
+   * @return true if no chassis were waiting to be read, the caller queues the read.
+   */
+  synchronized boolean addPendingPaths(final Set<RedHxUriPath> pathSet) {
+    final boolean retVal = pendingPathSet.isEmpty();
+
+    pendingPathSet.addAll(pathSet);
+
+    return retVal && !pendingPathSet.isEmpty();
+  }
+
+  /**
+   * mark the end of a poll started by {@link #tryStartPoll()}.
+   */
+  synchronized void endPoll() {
+    isPolling = false;
+  }
+
+  /**
+   * get the time left before the server can be polled again after a failure.
+   *
+   * @param nowNanoTime the current value of System.nanoTime().
+   * @return the time in nanoseconds, zero or less if the server can be polled.
+   */
+  synchronized long getBackoffRemainingNanos(final long nowNanoTime) {
+    final long retVal;
+
+    if (failureCount > 0) {
+      retVal = backoffUntilNanoTime - nowNanoTime;
+    } else {
+      retVal = 0;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the chassis found by the last inventory poll.
+   *
+   * @return null if there has not been a successful inventory poll.
+   */
+  synchronized Set<RedHxUriPath> getChassisPathSet() {
+    return chassisPathSet;
+  }
+
+  RedHxServerConnectionContext getContext() {
+    return ctx;
+  }
+
+  boolean isRemoved() {
+    return isRemoved;
+  }
+
+  void markRemoved() {
+    isRemoved = true;
+  }
+
+  /**
+   * record a failed poll.
+   *
+   * @param backoffUntilNanoTime the value of System.nanoTime() before which the server is not
+   *        polled.
+   * @return the number of polls in a row that have failed.
+   */
+  synchronized int recordFailure(final long backoffUntilNanoTime) {
+    this.backoffUntilNanoTime = backoffUntilNanoTime;
+
+    return ++failureCount;
+  }
+
+  /**
+   * record a poll that read the server.
+   */
+  synchronized void recordSuccess() {
+    failureCount = 0;
+  }
+
+  /**
+   * get the number of polls in a row that have failed.
+   *
+   * @return zero if the last poll succeeded.
+   */
+  synchronized int getFailureCount() {
+    return failureCount;
+  }
+
+  synchronized void setChassisPathSet(final Set<RedHxUriPath> chassisPathSet) {
+    this.chassisPathSet = chassisPathSet;
+  }
+
+  /**
+   * get and clear the chassis waiting to be re-read because of events.
+   *
+   * @return A null is not returned.
+   */
+  synchronized Set<RedHxUriPath> takePendingPaths() {
+    final Set<RedHxUriPath> retVal;
+
+    if (pendingPathSet.isEmpty()) {
+      retVal = Collections.emptySet();
+    } else {
+      retVal = new HashSet<>(pendingPathSet);
+      pendingPathSet.clear();
+    }
+
+    return retVal;
+  }
+
+  /**
+   * start a poll unless one is already running for the server. An inventory and a status poll of
+   * the same server never run at the same time.
+   *
+   * @return true if the poll can start.
+   */
+  synchronized boolean tryStartPoll() {
+    final boolean retVal = !isPolling;
+
+    isPolling = true;
+
+    return retVal;
+  }
+}
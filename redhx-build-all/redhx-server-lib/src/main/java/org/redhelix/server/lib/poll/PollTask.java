@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.poll;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import org.redhelix.core.annotations.Immutable;
+
+/**
+ * a poll of one Redfish server that is due at a point in time. Periodic tasks are put back in the
+ * queue by the scheduler when the poll completes, other tasks are run once.
+ * <p>
+ * A periodic task keeps the slot it belongs to, the time it is due without the jitter. The next
+ * slot is the previous one plus the interval, so the time a poll takes does not move the polls
+ * that follow it.
+ * </p>
+ * <p>
+ * A task that is put back in the queue because its server is being polled keeps the time it was
+ * due, so the lag of the poll is measured from when it was due and not from the retry.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@Immutable
+final class PollTask implements Delayed {
+
+  private final long dueNanoTime;
+  private final boolean isPeriodic;
+  private final long nextRunNanoTime;
+  private final RedHxPollTypeEnum pollType;
+  private final long slotNanoTime;
+  private final PollTarget target;
+
+  PollTask(final PollTarget target, final RedHxPollTypeEnum pollType, final boolean isPeriodic,
+      final long dueNanoTime) {
+    this(target, pollType, isPeriodic, dueNanoTime, dueNanoTime, dueNanoTime);
+  }
+
+  private PollTask(final PollTarget target, final RedHxPollTypeEnum pollType,
+      final boolean isPeriodic, final long slotNanoTime, final long dueNanoTime,
+      final long nextRunNanoTime) {
+    this.target = target;
+    this.pollType = pollType;
+    this.isPeriodic = isPeriodic;
+    this.slotNanoTime = slotNanoTime;
+    this.dueNanoTime = dueNanoTime;
+    this.nextRunNanoTime = nextRunNanoTime;
+  }
+
+  private PollTask() {
+    this.target = null;
+    this.pollType = null;
+    this.isPeriodic = false;
+    this.slotNanoTime = 0;
+    this.dueNanoTime = 0;
+    this.nextRunNanoTime = 0;
+  }
+
+  @Override
+  public int compareTo(Delayed other) {
+    final int retVal;
+
+    if (other instanceof PollTask) {
+      retVal = Long.compare(nextRunNanoTime, ((PollTask) other).nextRunNanoTime);
+    } else {
+      retVal = Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+
+    return retVal;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return this == obj;
+  }
+
+  @Override
+  public long getDelay(TimeUnit unit) {
+    return unit.convert(nextRunNanoTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public int hashCode() {
+    return System.identityHashCode(this);
+  }
+
+  /**
+   * create the task of the next slot of a periodic poll.
+   *
+   * @param nextSlotNanoTime the value of System.nanoTime() of the slot without jitter.
+   * @param nextDueNanoTime the value of System.nanoTime() when the task is due.
+   * @return the task. A null is not returned.
+   */
+  PollTask next(final long nextSlotNanoTime, final long nextDueNanoTime) {
+    return new PollTask(target, pollType, isPeriodic, nextSlotNanoTime, nextDueNanoTime,
+        nextDueNanoTime);
+  }
+
+  /**
+   * create the same task due at a different time, for example after the back off of its server.
+   * The slot does not change.
+   *
+   * @param nextDueNanoTime the value of System.nanoTime() when the task is due.
+   * @return the task. A null is not returned.
+   */
+  PollTask reschedule(final long nextDueNanoTime) {
+    return new PollTask(target, pollType, isPeriodic, slotNanoTime, nextDueNanoTime,
+        nextDueNanoTime);
+  }
+
+  /**
+   * create the same task to be taken from the queue again later. The time it is due does not
+   * change.
+   *
+   * @param retryNanoTime the value of System.nanoTime() when the task is taken again.
+   * @return the task. A null is not returned.
+   */
+  PollTask retry(final long retryNanoTime) {
+    return new PollTask(target, pollType, isPeriodic, slotNanoTime, dueNanoTime, retryNanoTime);
+  }
+
+  /**
+   * get the time the task is due. A retry does not change it.
+   *
+   * @return the value of System.nanoTime() when the task is due.
+   */
+  long getDueNanoTime() {
+    return dueNanoTime;
+  }
+
+  /**
+   * get the time the task is taken from the queue.
+   *
+   * @return the value of System.nanoTime() when the task is taken.
+   */
+  long getNextRunNanoTime() {
+    return nextRunNanoTime;
+  }
+
+  RedHxPollTypeEnum getPollType() {
+    return pollType;
+  }
+
+  /**
+   * get the slot of a periodic task, the time it is due without the jitter.
+   *
+   * @return the value of System.nanoTime() of the slot.
+   */
+  long getSlotNanoTime() {
+    return slotNanoTime;
+  }
+
+  PollTarget getTarget() {
+    return target;
+  }
+
+  boolean isPeriodic() {
+    return isPeriodic;
+  }
+}
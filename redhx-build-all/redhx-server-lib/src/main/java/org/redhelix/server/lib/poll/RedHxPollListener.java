@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.poll;
+
+import org.redhelix.core.chassis.RedHxChassisCollection;
+import org.redhelix.core.computer.system.RedHxComputerSystemCollection;
+import org.redhelix.server.lib.reader.util.RedHxCrawlResult;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * receives the results of the polls sent by {@link RedHxPollScheduler}. The methods are called on
+ * the threads that parse the HTTP responses so they shall not block.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+public interface RedHxPollListener {
+
+  /**
+   * called when a poll has read the Redfish server. Some resources may not have been read, they are
+   * in the error map of each result.
+   *
+   * @param ctx the Redfish server that was polled.
+   * @param pollType the kind of poll.
+   * @param chassisResult the chassis read.
+   * @param computerSystemResult the computer systems read.
+   */
+  void pollCompleted(RedHxServerConnectionContext ctx, RedHxPollTypeEnum pollType,
+      RedHxCrawlResult<RedHxChassisCollection> chassisResult,
+      RedHxCrawlResult<RedHxComputerSystemCollection> computerSystemResult);
+
+  /**
+   * called when a poll could not read the Redfish server. The server will not be polled again until
+   * its back off time has passed.
+   *
+   * @param ctx the Redfish server that was polled.
+   * @param pollType the kind of poll.
+   * @param cause the reason the poll failed.
+   * @param consecutiveFailureCount the number of polls in a row that have failed for the server.
+   */
+  void pollFailed(RedHxServerConnectionContext ctx, RedHxPollTypeEnum pollType, Throwable cause,
+      int consecutiveFailureCount);
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.poll;
+
+import org.redhelix.core.annotations.Immutable;
+
+/**
+ * how often and how hard {@link RedHxPollScheduler} polls each Redfish server. Create it with
+ * {@link RedHxPollPolicyBuilder}.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@Immutable
+public final class RedHxPollPolicy {
+
+  private final long crawlDeadlineMilliseconds;
+  private final long inventoryIntervalMilliseconds;
+  private final double jitterFraction;
+  private final long maxBackoffMilliseconds;
+  private final int maxConcurrentPerHost;
+  private final int maxPollsInFlight;
+  private final long minBackoffMilliseconds;
+  private final long statusIntervalMilliseconds;
+
+  RedHxPollPolicy(final long inventoryIntervalMilliseconds, final long statusIntervalMilliseconds,
+      final double jitterFraction, final long minBackoffMilliseconds,
+      final long maxBackoffMilliseconds, final int maxConcurrentPerHost,
+      final long crawlDeadlineMilliseconds, final int maxPollsInFlight) {
+    this.inventoryIntervalMilliseconds = inventoryIntervalMilliseconds;
+    this.statusIntervalMilliseconds = statusIntervalMilliseconds;
+    this.jitterFraction = jitterFraction;
+    this.minBackoffMilliseconds = minBackoffMilliseconds;
+    this.maxBackoffMilliseconds = maxBackoffMilliseconds;
+    this.maxConcurrentPerHost = maxConcurrentPerHost;
+    this.crawlDeadlineMilliseconds = crawlDeadlineMilliseconds;
+    this.maxPollsInFlight = maxPollsInFlight;
+  }
+
+  private RedHxPollPolicy() {
+    this.inventoryIntervalMilliseconds = 0;
+    this.statusIntervalMilliseconds = 0;
+    this.jitterFraction = 0;
+    this.minBackoffMilliseconds = 0;
+    this.maxBackoffMilliseconds = 0;
+    this.maxConcurrentPerHost = 0;
+    this.crawlDeadlineMilliseconds = 0;
+    this.maxPollsInFlight = 0;
+  }
+
+  /**
+   * get the time one poll of a single Redfish server must complete in.
+   *
+   * @return the deadline in milliseconds.
+   */
+  public long getCrawlDeadlineMilliseconds() {
+    return crawlDeadlineMilliseconds;
+  }
+
+  /**
+   * get the time between two inventory polls of the same Redfish server.
+   *
+   * @return the interval in milliseconds.
+   */
+  public long getInventoryIntervalMilliseconds() {
+    return inventoryIntervalMilliseconds;
+  }
+
+  /**
+   * get the fraction of an interval each poll is randomly moved by. With 0.1 a 60 second interval
+   * is between 54 and 66 seconds.
+   *
+   * @return a value from 0, no jitter, up to but not including 1.
+   */
+  public double getJitterFraction() {
+    return jitterFraction;
+  }
+
+  /**
+   * get the longest time a failing Redfish server is left alone.
+   *
+   * @return the back off in milliseconds.
+   */
+  public long getMaxBackoffMilliseconds() {
+    return maxBackoffMilliseconds;
+  }
+
+  /**
+   * get the maximum number of HTTP requests in flight to one Redfish server.
+   *
+   * @return the number of requests, at least one.
+   */
+  public int getMaxConcurrentPerHost() {
+    return maxConcurrentPerHost;
+  }
+
+  /**
+   * get the maximum number of Redfish servers being polled at the same time.
+   *
+   * @return the number of servers, at least one.
+   */
+  public int getMaxPollsInFlight() {
+    return maxPollsInFlight;
+  }
+
+  /**
+   * get the time a Redfish server is left alone after its first failed poll. The time doubles for
+   * each poll in a row that fails.
+   *
+   * @return the back off in milliseconds.
+   */
+  public long getMinBackoffMilliseconds() {
+    return minBackoffMilliseconds;
+  }
+
+  /**
+   * get the time between two status polls of the same Redfish server.
+   *
+   * @return the interval in milliseconds.
+   */
+  public long getStatusIntervalMilliseconds() {
+    return statusIntervalMilliseconds;
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxPollPolicy{" + "inventoryIntervalMilliseconds=" + inventoryIntervalMilliseconds
+        + ", statusIntervalMilliseconds=" + statusIntervalMilliseconds + ", jitterFraction="
+        + jitterFraction + ", minBackoffMilliseconds=" + minBackoffMilliseconds
+        + ", maxBackoffMilliseconds=" + maxBackoffMilliseconds + ", maxConcurrentPerHost="
+        + maxConcurrentPerHost + ", crawlDeadlineMilliseconds=" + crawlDeadlineMilliseconds
+        + ", maxPollsInFlight=" + maxPollsInFlight + '}';
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.poll;
+
+import org.redhelix.core.annotations.NotThreadSafe;
+
+/**
+ * create a {@link RedHxPollPolicy}. Every value has a default so only the values that differ need
+ * to be set.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@NotThreadSafe
+public final class RedHxPollPolicyBuilder {
+
+  public static final long DEFAULT_CRAWL_DEADLINE_MILLISECONDS = 30L * 1000L;
+  public static final long DEFAULT_INVENTORY_INTERVAL_MILLISECONDS = 15L * 60L * 1000L;
+  public static final double DEFAULT_JITTER_FRACTION = 0.1;
+  public static final long DEFAULT_MAX_BACKOFF_MILLISECONDS = 30L * 60L * 1000L;
+  public static final int DEFAULT_MAX_CONCURRENT_PER_HOST = 4;
+  public static final int DEFAULT_MAX_POLLS_IN_FLIGHT = 1000;
+  public static final long DEFAULT_MIN_BACKOFF_MILLISECONDS = 30L * 1000L;
+  public static final long DEFAULT_STATUS_INTERVAL_MILLISECONDS = 60L * 1000L;
+  private long crawlDeadlineMilliseconds;
+  private long inventoryIntervalMilliseconds;
+  private double jitterFraction;
+  private long maxBackoffMilliseconds;
+  private int maxConcurrentPerHost;
+  private int maxPollsInFlight;
+  private long minBackoffMilliseconds;
+  private long statusIntervalMilliseconds;
+
+  public RedHxPollPolicyBuilder() {
+    this.crawlDeadlineMilliseconds = DEFAULT_CRAWL_DEADLINE_MILLISECONDS;
+    this.inventoryIntervalMilliseconds = DEFAULT_INVENTORY_INTERVAL_MILLISECONDS;
+    this.jitterFraction = DEFAULT_JITTER_FRACTION;
+    this.maxBackoffMilliseconds = DEFAULT_MAX_BACKOFF_MILLISECONDS;
+    this.maxConcurrentPerHost = DEFAULT_MAX_CONCURRENT_PER_HOST;
+    this.maxPollsInFlight = DEFAULT_MAX_POLLS_IN_FLIGHT;
+    this.minBackoffMilliseconds = DEFAULT_MIN_BACKOFF_MILLISECONDS;
+    this.statusIntervalMilliseconds = DEFAULT_STATUS_INTERVAL_MILLISECONDS;
+  }
+
+  /**
+   * create the policy.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxPollPolicy getInstance() {
+    if (minBackoffMilliseconds > maxBackoffMilliseconds) {
+      throw new IllegalArgumentException("The minimum back off of " + minBackoffMilliseconds
+          + " is greater than the maximum back off of " + maxBackoffMilliseconds);
+    }
+
+    return new RedHxPollPolicy(inventoryIntervalMilliseconds, statusIntervalMilliseconds,
+        jitterFraction, minBackoffMilliseconds, maxBackoffMilliseconds, maxConcurrentPerHost,
+        crawlDeadlineMilliseconds, maxPollsInFlight);
+  }
+
+  public void setBackoffMilliseconds(long minBackoffMilliseconds, long maxBackoffMilliseconds) {
+    if ((minBackoffMilliseconds < 1) || (maxBackoffMilliseconds < 1)) {
+      throw new IllegalArgumentException("The back off times must be greater than zero.");
+    }
+
+    this.minBackoffMilliseconds = minBackoffMilliseconds;
+    this.maxBackoffMilliseconds = maxBackoffMilliseconds;
+  }
+
+  public void setCrawlDeadlineMilliseconds(long crawlDeadlineMilliseconds) {
+    this.crawlDeadlineMilliseconds = crawlDeadlineMilliseconds;
+  }
+
+  public void setInventoryIntervalMilliseconds(long inventoryIntervalMilliseconds) {
+    this.inventoryIntervalMilliseconds = checkInterval(inventoryIntervalMilliseconds);
+  }
+
+  /**
+   * set the fraction of an interval each poll is randomly moved by.
+   *
+   * @param jitterFraction a value from 0, no jitter, up to but not including 1.
+   */
+  public void setJitterFraction(double jitterFraction) {
+    if ((jitterFraction < 0) || (jitterFraction >= 1)) {
+      throw new IllegalArgumentException(
+          "Argument \"jitterFraction\" must be from 0 up to 1, not " + jitterFraction);
+    }
+
+    this.jitterFraction = jitterFraction;
+  }
+
+  public void setMaxConcurrentPerHost(int maxConcurrentPerHost) {
+    if (maxConcurrentPerHost < 1) {
+      throw new IllegalArgumentException(
+          "Argument \"maxConcurrentPerHost\" must be greater than zero.");
+    }
+
+    this.maxConcurrentPerHost = maxConcurrentPerHost;
+  }
+
+  public void setMaxPollsInFlight(int maxPollsInFlight) {
+    if (maxPollsInFlight < 1) {
+      throw new IllegalArgumentException("Argument \"maxPollsInFlight\" must be greater than zero.");
+    }
+
+    this.maxPollsInFlight = maxPollsInFlight;
+  }
+
+  public void setStatusIntervalMilliseconds(long statusIntervalMilliseconds) {
+    this.statusIntervalMilliseconds = checkInterval(statusIntervalMilliseconds);
+  }
+
+  private static long checkInterval(long intervalMilliseconds) {
+    if (intervalMilliseconds < 1) {
+      throw new IllegalArgumentException(
+          "A poll interval must be greater than zero, not " + intervalMilliseconds);
+    }
+
+    return intervalMilliseconds;
+  }
+}
@@ -0,0 +1,590 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.poll;
+
+import java.io.Closeable;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.chassis.RedHxChassisCollection;
+import org.redhelix.core.computer.system.RedHxComputerSystemCollection;
+import org.redhelix.core.service.root.RedHxServiceRootIdEum;
+import org.redhelix.core.util.RedHxParseException;
+import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.server.lib.metrics.RedHxFetchMetrics;
+import org.redhelix.server.lib.reader.chassis.RedHxChassisCollectionReader;
+import org.redhelix.server.lib.reader.chassis.RedHxChassisPathCollectionReader;
+import org.redhelix.server.lib.reader.computer.system.RedHxComputerSystemCollectionReader;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+import org.redhelix.server.lib.reader.util.RedHxCrawlResult;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * poll a fleet of Redfish servers. Each server has an inventory poll and a status poll, each with
+ * its own interval from the {@link RedHxPollPolicy}. The first poll of a server is placed at a
+ * random point in the first status interval and every following poll is moved by a random
+ * jitter, so adding thousands of servers at once does not send thousands of requests at once. The
+ * next poll of a server is one interval after the slot of the previous poll, not after the time it
+ * completed, and a slot that has already passed is skipped.
+ * <p>
+ * A server whose poll fails is not polled again until its back off time has passed. The back off
+ * doubles for each failure in a row up to the maximum in the policy and is reset by the first poll
+ * that succeeds.
+ * </p>
+ * <p>
+ * A single thread waits for the next poll that is due. It never blocks on the network, the HTTP
+ * requests are sent with the {@link RedHxAsyncFetchEngine} and the results are delivered to the
+ * {@link RedHxPollListener} on the threads that parse the responses. When the maximum number of
+ * polls are in flight the thread waits for one of them to end before it takes the next task, the
+ * tasks that are due stay in the queue in the order they are due.
+ * </p>
+ * <p>
+ * A server that pushes Redfish events asks for a targeted read with
+ * {@link #requestRead(RedHxServerConnectionContext, RedHxUriPath)}. Only the chassis that contain
+ * the changed resource are read, and the events that arrive while a read is waiting are merged into
+ * it. This lets the status interval be hours instead of minutes for those servers.
+ * </p>
+ * <p>
+ * How late each poll starts after it was due, and the number of polls queued and in flight, are
+ * recorded in the {@link RedHxFetchMetrics} of the engine.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+public final class RedHxPollScheduler implements Closeable {
+
+  /**
+   * the name of the gauge of the polls in flight in {@link RedHxFetchMetrics}.
+   */
+  public static final String GAUGE_POLLS_IN_FLIGHT = "redhx_poll_in_flight";
+
+  /**
+   * the name of the gauge of the polls waiting in the queue in {@link RedHxFetchMetrics}.
+   */
+  public static final String GAUGE_QUEUE_DEPTH = "redhx_poll_queue_depth";
+
+  /**
+   * the time to wait before trying again to start a poll of a server that is already being polled.
+   */
+  private static final long BUSY_RETRY_MILLISECONDS = 1000;
+
+  private final RedHxAsyncFetchEngine engine;
+  private final RedHxPollListener listener;
+  private final Logger logger;
+  private final Semaphore pollPermits;
+  private final AtomicInteger pollsInFlight;
+  private final LongSupplier pollsInFlightGauge;
+  private final RedHxPollPolicy policy;
+  private final LongSupplier queueDepthGauge;
+  private final Thread schedulerThread;
+  private final ConcurrentMap<RedHxServerConnectionContext, PollTarget> targetMap;
+  private final DelayQueue<PollTask> taskQueue;
+  private volatile boolean isRunning;
+
+  /**
+   * create the scheduler. No server is polled until {@link #start()} is called.
+   *
+   * @param engine sends the HTTP requests. This shall not be null.
+   * @param policy how often to poll. This shall not be null.
+   * @param listener receives the results of each poll. This shall not be null.
+   */
+  public RedHxPollScheduler(final RedHxAsyncFetchEngine engine, final RedHxPollPolicy policy,
+      final RedHxPollListener listener) {
+    if ((engine == null) || (policy == null) || (listener == null)) {
+      throw new IllegalArgumentException("The engine, policy and listener can not be null.");
+    }
+
+    this.engine = engine;
+    this.policy = policy;
+    this.listener = listener;
+    this.logger = LoggerFactory.getLogger(RedHxPollScheduler.class);
+    this.pollPermits = new Semaphore(policy.getMaxPollsInFlight());
+    this.pollsInFlight = new AtomicInteger();
+    this.targetMap = new ConcurrentHashMap<>();
+    this.taskQueue = new DelayQueue<>();
+    this.pollsInFlightGauge = pollsInFlight::get;
+    this.queueDepthGauge = taskQueue::size;
+    this.schedulerThread = new Thread(this::runScheduler, "RedHx poll scheduler");
+    this.schedulerThread.setDaemon(true);
+  }
+
+  private RedHxPollScheduler() {
+    this.engine = null;
+    this.policy = null;
+    this.listener = null;
+    this.logger = null;
+    this.pollPermits = null;
+    this.pollsInFlight = null;
+    this.pollsInFlightGauge = null;
+    this.queueDepthGauge = null;
+    this.targetMap = null;
+    this.taskQueue = null;
+    this.schedulerThread = null;
+  }
+
+  /**
+   * add a Redfish server to the fleet. If the connection has not been opened it is opened by the
+   * first inventory poll.
+   *
+   * @param ctx the Redfish server to poll.
+   * @return false if the server was already being polled.
+   */
+  public boolean addHost(final RedHxServerConnectionContext ctx) {
+    final PollTarget target = new PollTarget(ctx);
+    final boolean isAdded = targetMap.putIfAbsent(ctx, target) == null;
+
+    if (isAdded) {
+      final long now = System.nanoTime();
+      final long spreadMilliseconds = Math.min(policy.getStatusIntervalMilliseconds(),
+          policy.getInventoryIntervalMilliseconds());
+      final long firstDue = now + TimeUnit.MILLISECONDS
+          .toNanos(ThreadLocalRandom.current().nextLong(spreadMilliseconds));
+
+      taskQueue.add(new PollTask(target, RedHxPollTypeEnum.INVENTORY, true, firstDue));
+      taskQueue.add(new PollTask(target, RedHxPollTypeEnum.STATUS, true,
+          firstDue + jitter(policy.getStatusIntervalMilliseconds())));
+    }
+
+    return isAdded;
+  }
+
+  /**
+   * stop polling and remove every server.
+   */
+  @Override
+  public void close() {
+    isRunning = false;
+    schedulerThread.interrupt();
+    engine.getMetrics().unregisterGauge(GAUGE_POLLS_IN_FLIGHT, pollsInFlightGauge);
+    engine.getMetrics().unregisterGauge(GAUGE_QUEUE_DEPTH, queueDepthGauge);
+
+    for (PollTarget target : targetMap.values()) {
+      target.markRemoved();
+    }
+
+    targetMap.clear();
+    taskQueue.clear();
+  }
+
+  /**
+   * get the number of Redfish servers being polled.
+   *
+   * @return the number of servers added and not removed.
+   */
+  public int getHostCount() {
+    return targetMap.size();
+  }
+
+  /**
+   * get the number of consecutive failed polls of a Redfish server.
+   *
+   * @param ctx the server.
+   * @return the count or -1 if the server is not being polled.
+   */
+  public int getFailureCount(final RedHxServerConnectionContext ctx) {
+    final PollTarget target = targetMap.get(ctx);
+    final int retVal;
+
+    if (target != null) {
+      retVal = target.getFailureCount();
+    } else {
+      retVal = -1;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * remove a Redfish server from the fleet. A poll of the server that is running completes but its
+   * result is not delivered to the listener.
+   *
+   * @param ctx the server to remove.
+   * @return false if the server was not being polled.
+   */
+  public boolean removeHost(final RedHxServerConnectionContext ctx) {
+    final PollTarget target = targetMap.remove(ctx);
+
+    if (target != null) {
+      target.markRemoved();
+      engine.getMetrics().removeHost(ctx.getHostName(), ctx.getTcpPortNumber());
+    }
+
+    return target != null;
+  }
+
+  /**
+   * poll a Redfish server now, outside of its normal interval. The normal polls of the server are
+   * not changed. If the server is being polled the request waits for that poll to end. The request
+   * is ignored while the server is being backed off.
+   *
+   * @param ctx the server to poll. It must have been added.
+   * @param pollType the kind of poll.
+   * @return false if the server is not being polled by this scheduler.
+   */
+  public boolean requestPoll(final RedHxServerConnectionContext ctx,
+      final RedHxPollTypeEnum pollType) {
+    final PollTarget target = targetMap.get(ctx);
+
+    if (target != null) {
+      taskQueue.add(new PollTask(target, pollType, false, System.nanoTime()));
+    }
+
+    return target != null;
+  }
+
+  /**
+   * read again the chassis that contains a resource, outside of the normal interval. This is called
+   * when a Redfish server pushes an event about the resource. The requests for the same server that
+   * arrive before the read starts are merged into one read. If the resource is not in a chassis
+   * found by the last inventory poll, for example a computer system, a status poll is requested.
+   * The request is ignored while the server is being backed off.
+   *
+   * @param ctx the server that sent the event. It must have been added.
+   * @param resourcePath the path of the resource that changed. This shall not be null.
+   * @return false if the server is not being polled by this scheduler.
+   */
+  public boolean requestRead(final RedHxServerConnectionContext ctx,
+      final RedHxUriPath resourcePath) {
+    if (resourcePath == null) {
+      throw new IllegalArgumentException("Argument \"resourcePath\" can not be null.");
+    }
+
+    final PollTarget target = targetMap.get(ctx);
+    final boolean retVal;
+
+    if (target == null) {
+      retVal = false;
+    } else {
+      final Set<RedHxUriPath> knownPathSet = target.getChassisPathSet();
+      final Set<RedHxUriPath> chassisPathSet = new HashSet<>();
+
+      if (knownPathSet != null) {
+        final String resource = trimSlash(resourcePath.getValue());
+
+        for (RedHxUriPath chassisPath : knownPathSet) {
+          final String chassis = trimSlash(chassisPath.getValue());
+
+          if (resource.equals(chassis) || resource.startsWith(chassis + "/")) {
+            chassisPathSet.add(chassisPath);
+          }
+        }
+      }
+
+      if (chassisPathSet.isEmpty()) {
+        retVal = requestPoll(ctx, RedHxPollTypeEnum.STATUS);
+      } else {
+        if (target.addPendingPaths(chassisPathSet)) {
+          taskQueue.add(new PollTask(target, RedHxPollTypeEnum.EVENT, false, System.nanoTime()));
+        }
+
+        retVal = true;
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * start the thread that sends the polls.
+   */
+  public void start() {
+    isRunning = true;
+    engine.getMetrics().registerGauge(GAUGE_POLLS_IN_FLIGHT, pollsInFlightGauge);
+    engine.getMetrics().registerGauge(GAUGE_QUEUE_DEPTH, queueDepthGauge);
+    schedulerThread.start();
+  }
+
+  /**
+   * get the back off time after a number of failures in a row.
+   */
+  long backoffMilliseconds(final int failureCount) {
+    final int shift = Math.min(failureCount - 1, 30);
+    final long backoff = Math.min(policy.getMaxBackoffMilliseconds(),
+        policy.getMinBackoffMilliseconds() << shift);
+
+    return Math.min(policy.getMaxBackoffMilliseconds(), jitter(backoff));
+  }
+
+  /**
+   * read the chassis in the path set and then the computer systems in each chassis.
+   */
+  private CompletableFuture<Void> crawl(final PollTarget target, final RedHxPollTypeEnum pollType,
+      final Set<RedHxUriPath> chassisPathSet, final long deadlineNanoTime) {
+    final RedHxServerConnectionContext ctx = target.getContext();
+
+    return RedHxChassisCollectionReader
+        .crawlPaths(engine, ctx, chassisPathSet, policy.getMaxConcurrentPerHost(),
+            remainingMilliseconds(deadlineNanoTime))
+        .thenCompose(chassisResult -> {
+          if (!chassisPathSet.isEmpty() && chassisResult.getCollection().isEmpty()) {
+            /*
+             * a reader that returns null leaves no resource and no error for its path.
+             */
+            if (chassisResult.getErrorMap().isEmpty()) {
+              throw new CompletionException(new RedHxParseException(RedHxServiceRootIdEum.CHASSIS,
+                  "None of the " + chassisPathSet.size() + " chassis of " + ctx.getHostName()
+                      + " were read and no error was reported."));
+            }
+
+            throw new CompletionException(chassisResult.getErrorMap().values().iterator().next());
+          }
+
+          return RedHxComputerSystemCollectionReader
+              .crawlPaths(engine, ctx, chassisResult.getCollection(),
+                  policy.getMaxConcurrentPerHost(), remainingMilliseconds(deadlineNanoTime))
+              .thenAccept(computerResult -> deliverCompleted(target, pollType, chassisResult,
+                  computerResult));
+        });
+  }
+
+  private void deliverCompleted(final PollTarget target, final RedHxPollTypeEnum pollType,
+      final RedHxCrawlResult<RedHxChassisCollection> chassisResult,
+      final RedHxCrawlResult<RedHxComputerSystemCollection> computerResult) {
+    target.recordSuccess();
+
+    if (!target.isRemoved()) {
+      try {
+        listener.pollCompleted(target.getContext(), pollType, chassisResult, computerResult);
+      } catch (RuntimeException ex) {
+        logger.error("The poll listener failed for " + target.getContext().getHostName(), ex);
+      }
+    }
+  }
+
+  private void deliverFailed(final PollTarget target, final RedHxPollTypeEnum pollType,
+      final Throwable ex) {
+    final Throwable cause;
+
+    if ((ex instanceof CompletionException) && (ex.getCause() != null)) {
+      cause = ex.getCause();
+    } else {
+      cause = ex;
+    }
+
+    /*
+     * only one poll of a server runs at a time so the count can not change under this method.
+     */
+    final long backoffUntil = System.nanoTime()
+        + TimeUnit.MILLISECONDS.toNanos(backoffMilliseconds(target.getFailureCount() + 1));
+    final int failureCount = target.recordFailure(backoffUntil);
+
+    logger.debug("Poll of " + target.getContext().getHostName() + " failed " + failureCount
+        + " times in a row. " + cause);
+
+    if (!target.isRemoved()) {
+      try {
+        listener.pollFailed(target.getContext(), pollType, cause, failureCount);
+      } catch (RuntimeException listenerEx) {
+        logger.error("The poll listener failed for " + target.getContext().getHostName(),
+            listenerEx);
+      }
+    }
+  }
+
+  /**
+   * move an interval by a random amount within the jitter fraction of the policy.
+   */
+  long jitter(final long intervalMilliseconds) {
+    final double offset = (ThreadLocalRandom.current().nextDouble() * 2.0) - 1.0;
+    final long jittered =
+        intervalMilliseconds + (long) (intervalMilliseconds * policy.getJitterFraction() * offset);
+
+    return Math.max(1, jittered);
+  }
+
+  private static long remainingMilliseconds(final long deadlineNanoTime) {
+    return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanoTime - System.nanoTime()));
+  }
+
+  private static String trimSlash(final String path) {
+    final String retVal;
+
+    if (path.endsWith("/")) {
+      retVal = path.substring(0, path.length() - 1);
+    } else {
+      retVal = path;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * create the task of the next slot of a periodic poll. The slots that have passed while the poll
+   * ran or waited are skipped.
+   *
+   * @param task the task of the poll that ended.
+   * @param nowNanoTime the current value of System.nanoTime().
+   * @return the task, its slot is at or after the current time. A null is not returned.
+   */
+  PollTask nextSlot(final PollTask task, final long nowNanoTime) {
+    final long intervalMilliseconds;
+
+    if (task.getPollType() == RedHxPollTypeEnum.INVENTORY) {
+      intervalMilliseconds = policy.getInventoryIntervalMilliseconds();
+    } else {
+      intervalMilliseconds = policy.getStatusIntervalMilliseconds();
+    }
+
+    final long intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMilliseconds);
+    long slot = task.getSlotNanoTime() + intervalNanos;
+
+    if (slot < nowNanoTime) {
+      slot += ((nowNanoTime - slot + intervalNanos - 1) / intervalNanos) * intervalNanos;
+    }
+
+    return task.next(slot,
+        slot + TimeUnit.MILLISECONDS.toNanos(jitter(intervalMilliseconds) - intervalMilliseconds));
+  }
+
+  /**
+   * start the poll of a task that is due. The caller holds a poll permit.
+   *
+   * @return false if the poll was not started, the caller releases the permit.
+   */
+  private boolean dispatch(final PollTask task) {
+    final PollTarget target = task.getTarget();
+    final long now = System.nanoTime();
+    final long backoffRemaining = target.getBackoffRemainingNanos(now);
+    boolean retVal = false;
+
+    /*
+     * the task of a removed server is dropped.
+     */
+    if (!target.isRemoved()) {
+      if (backoffRemaining > 0) {
+        if (task.isPeriodic()) {
+          taskQueue.add(task.reschedule(now + backoffRemaining));
+        } else if (task.getPollType() == RedHxPollTypeEnum.EVENT) {
+          target.takePendingPaths();
+        }
+      } else if (!target.tryStartPoll()) {
+        /*
+         * a requested poll or event read waits for the running poll so the server is read again
+         * after it, the change that caused the request may not be in the running poll.
+         */
+        taskQueue.add(task.retry(now + TimeUnit.MILLISECONDS.toNanos(BUSY_RETRY_MILLISECONDS)));
+      } else {
+        engine.getMetrics().recordSchedulerLag(now - task.getDueNanoTime());
+        startPoll(task);
+        retVal = true;
+      }
+    }
+
+    return retVal;
+  }
+
+  private void runScheduler() {
+    while (isRunning) {
+      try {
+        /*
+         * the permit is taken before the task so a saturated scheduler waits here, the tasks that
+         * are due are not taken from the queue and put back.
+         */
+        pollPermits.acquire();
+
+        boolean isStarted = false;
+
+        try {
+          isStarted = dispatch(taskQueue.take());
+        } finally {
+          if (!isStarted) {
+            pollPermits.release();
+          }
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+
+        break;
+      }
+    }
+  }
+
+  private void startPoll(final PollTask task) {
+    final PollTarget target = task.getTarget();
+    final RedHxServerConnectionContext ctx = target.getContext();
+    final Set<RedHxUriPath> knownPathSet = target.getChassisPathSet();
+    final long deadlineNanoTime = System.nanoTime()
+        + TimeUnit.MILLISECONDS.toNanos(policy.getCrawlDeadlineMilliseconds());
+    final RedHxPollTypeEnum pollType;
+
+    /*
+     * a status or event poll needs the chassis found by an inventory poll.
+     */
+    if ((task.getPollType() == RedHxPollTypeEnum.INVENTORY) || (knownPathSet == null)) {
+      pollType = RedHxPollTypeEnum.INVENTORY;
+    } else {
+      pollType = task.getPollType();
+    }
+
+    CompletableFuture<Void> pollFuture;
+
+    pollsInFlight.incrementAndGet();
+
+    try {
+      if (pollType == RedHxPollTypeEnum.STATUS) {
+        pollFuture = crawl(target, pollType, knownPathSet, deadlineNanoTime);
+      } else if (pollType == RedHxPollTypeEnum.EVENT) {
+        pollFuture = crawl(target, pollType, target.takePendingPaths(), deadlineNanoTime);
+      } else {
+        if (ctx.isConnectionOpen()) {
+          pollFuture = CompletableFuture.completedFuture(null);
+        } else {
+          pollFuture = engine.openConnection(ctx);
+        }
+
+        pollFuture = pollFuture
+            .thenCompose(ignore -> RedHxChassisPathCollectionReader
+                .readChassisCollectionAsync(engine, ctx))
+            .thenCompose(pathSet -> {
+              target.setChassisPathSet(pathSet);
+
+              return crawl(target, pollType, pathSet, deadlineNanoTime);
+            });
+      }
+    } catch (RuntimeException ex) {
+      pollFuture = new CompletableFuture<>();
+      pollFuture.completeExceptionally(ex);
+    }
+
+    pollFuture.whenComplete((ignore, ex) -> {
+      try {
+        if (ex != null) {
+          deliverFailed(target, pollType, ex);
+        }
+      } finally {
+        target.endPoll();
+        pollsInFlight.decrementAndGet();
+        pollPermits.release();
+
+        if (task.isPeriodic() && !target.isRemoved() && isRunning) {
+          taskQueue.add(nextSlot(task, System.nanoTime()));
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.poll;
+
+/**
+ * the kinds of poll the scheduler sends to a Redfish server.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+public enum RedHxPollTypeEnum {
+  /**
+   * read the chassis collection to find chassis that were added or removed, then read every chassis
+   * and computer system.
+   */
+  INVENTORY("Inventory"),
+
+  /**
+   * read the chassis and computer systems found by the last inventory poll to update their health
+   * and state.
+   */
+  STATUS("Status"),
+
+  /**
+   * read only the chassis named by events the Redfish server pushed, and the computer systems in
+   * them.
+   */
+  EVENT("Event");
+
+  private final String desc;
+
+  private RedHxPollTypeEnum(String desc) {
+    this.desc = desc;
+  }
+
+  public String getDescription() {
+    return desc;
+  }
+}
@@ -25,6 +25,7 @@ import org.redhelix.core.util.RedHxHttpResponseException;
 import org.redhelix.core.util.RedHxParseException;
 import org.redhelix.core.util.RedHxUriPath;
 import org.redhelix.server.lib.reader.util.AbstractRedfishJsonReader;
+import org.redhelix.server.lib.reader.util.RedHxFetchedEntity;
 import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
 
 /**
@@ -63,10 +64,15 @@ final class ChassisReader extends AbstractRedfishJsonReader {
   private final static String JSON_SUB_KEY_STATUS_STATE = "State";
 
   ChassisReader(RedHxServerConnectionContext ctx, RedHxUriPath pathToChassis)
-      throws URISyntaxException, RedHxHttpResponseException {
+      throws URISyntaxException, RedHxHttpResponseException, RedHxParseException {
     super(ctx, RedHxServiceRootIdEum.CHASSIS, pathToChassis);
   }
 
+  ChassisReader(RedHxServerConnectionContext ctx, RedHxUriPath pathToChassis,
+      RedHxFetchedEntity fetched) throws RedHxParseException {
+    super(ctx, RedHxServiceRootIdEum.CHASSIS, pathToChassis, fetched);
+  }
+
   /**
    * parse the JSON response into a RedHxChassis class. It create method sent the HTTP request for
    * the chassis message an validated that a JSON message had been received.
@@ -79,6 +85,10 @@ final class ChassisReader extends AbstractRedfishJsonReader {
    */
   RedHxChassis readChassis()
       throws RedHxHttpResponseException, RedHxParseException, URISyntaxException {
+    if (isNotModified()) {
+      return (RedHxChassis) getNotModifiedResource();
+    }
+
     String tmpStr;
 
     tmpStr = getOptionalProperty(JSON_KEY_CHASSIS_TYPE);
@@ -253,6 +263,8 @@ final class ChassisReader extends AbstractRedfishJsonReader {
     //
     final RedHxChassis chassis = builder.getInstance();
 
+    cacheResource(chassis);
+
     return chassis;
   }
 }
@@ -17,12 +17,19 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.redhelix.core.chassis.RedHxChassis;
 import org.redhelix.core.chassis.RedHxChassisCollection;
 import org.redhelix.core.chassis.RedHxChassisCollectionImpl;
+import org.redhelix.core.service.root.RedHxServiceRootIdEum;
 import org.redhelix.core.util.RedHxHttpResponseException;
 import org.redhelix.core.util.RedHxParseException;
 import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+import org.redhelix.server.lib.reader.util.RedHxBoundedCrawl;
+import org.redhelix.server.lib.reader.util.RedHxCrawlResult;
+import org.redhelix.server.lib.reader.util.RedHxReadExecutor;
 import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
 
 /**
@@ -37,7 +44,8 @@ public final class RedHxChassisCollectionReader {
   private RedHxChassisCollectionReader() {}
 
   /**
-   * read a set of paths for chassis.
+   * read a set of paths for chassis. If the context has a {@link RedHxReadExecutor} each chassis is
+   * read on its own thread, otherwise they are read one after the other on the calling thread.
    *
    * @param ctx the client connection to the Redfish Server.
    * @param chassisPathSet the set of paths that point chassis. This use usually provided by the
@@ -51,13 +59,35 @@ public final class RedHxChassisCollectionReader {
       Set<RedHxUriPath> chassisPathSet)
           throws RedHxHttpResponseException, URISyntaxException, RedHxParseException {
     final List<RedHxChassis> list = new ArrayList<>();
+    final RedHxReadExecutor executor = ctx.getReadExecutor();
 
-    for (RedHxUriPath link : chassisPathSet) {
-      ChassisReader reader = new ChassisReader(ctx, link);
-      RedHxChassis chassis = reader.readChassis();
+    if (executor != null) {
+      final List<CompletableFuture<RedHxChassis>> futureList = new ArrayList<>();
+
+      for (RedHxUriPath link : chassisPathSet) {
+        futureList.add(executor.submit(ctx, () -> new ChassisReader(ctx, link).readChassis()));
+      }
+
+      try {
+        for (CompletableFuture<RedHxChassis> future : futureList) {
+          RedHxChassis chassis = RedHxReadExecutor.awaitRead(future);
 
-      if (chassis != null) {
-        list.add(chassis);
+          if (chassis != null) {
+            list.add(chassis);
+          }
+        }
+      } finally {
+        // a failed read is thrown before the rest are awaited, they are not needed
+        RedHxReadExecutor.cancelReads(futureList);
+      }
+    } else {
+      for (RedHxUriPath link : chassisPathSet) {
+        ChassisReader reader = new ChassisReader(ctx, link);
+        RedHxChassis chassis = reader.readChassis();
+
+        if (chassis != null) {
+          list.add(chassis);
+        }
       }
     }
 
@@ -65,4 +95,86 @@ public final class RedHxChassisCollectionReader {
 
     return chassisList;
   }
+
+  /**
+   * read a single chassis without blocking the calling thread. If the chassis was read before and
+   * has not changed on the server the chassis from the previous read is returned.
+   *
+   * @param engine the engine that sends the HTTP request.
+   * @param ctx the client connection to the Redfish Server.
+   * @param chassisPath the path to the chassis.
+   * @return a future completed with the chassis, or completed exceptionally with a
+   *         RedHxHttpResponseException or RedHxParseException.
+   */
+  public static CompletableFuture<RedHxChassis> readChassisAsync(RedHxAsyncFetchEngine engine,
+      RedHxServerConnectionContext ctx, RedHxUriPath chassisPath) {
+    return engine.fetchEntityIfModified(ctx, RedHxServiceRootIdEum.CHASSIS, chassisPath)
+        .thenApply(fetched -> {
+          try {
+            return new ChassisReader(ctx, chassisPath, fetched).readChassis();
+          } catch (RedHxHttpResponseException | RedHxParseException | URISyntaxException ex) {
+            throw new CompletionException(ex);
+          }
+        });
+  }
+
+  /**
+   * read a set of paths for chassis without blocking the calling thread. All of the chassis are
+   * requested at the same time. If any chassis can not be read the returned future completes
+   * exceptionally.
+   *
+   * @param engine the engine that sends the HTTP requests.
+   * @param ctx the client connection to the Redfish Server.
+   * @param chassisPathSet the set of paths that point chassis.
+   * @return a future completed with the chassis collection.
+   */
+  public static CompletableFuture<RedHxChassisCollection> readPathsAsync(
+      RedHxAsyncFetchEngine engine, RedHxServerConnectionContext ctx,
+      Set<RedHxUriPath> chassisPathSet) {
+    final List<CompletableFuture<RedHxChassis>> futureList = new ArrayList<>();
+
+    for (RedHxUriPath link : chassisPathSet) {
+      futureList.add(readChassisAsync(engine, ctx, link));
+    }
+
+    return CompletableFuture.allOf(futureList.toArray(new CompletableFuture<?>[futureList.size()]))
+        .thenApply(ignore -> {
+          final List<RedHxChassis> list = new ArrayList<>();
+
+          for (CompletableFuture<RedHxChassis> future : futureList) {
+            RedHxChassis chassis = future.join();
+
+            if (chassis != null) {
+              list.add(chassis);
+            }
+          }
+
+          return new RedHxChassisCollectionImpl(list);
+        });
+  }
+
+  /**
+   * read a set of paths for chassis with several reads in flight at the same time. Unlike
+   * {@link #readPaths} a chassis that can not be read does not stop the crawl, the error is
+   * returned in the result with the chassis that were read.
+   *
+   * @param engine the engine that sends the HTTP requests.
+   * @param ctx the client connection to the Redfish Server.
+   * @param chassisPathSet the set of paths that point chassis.
+   * @param maxConcurrentPerHost the maximum number of reads in flight to the Redfish server.
+   * @param deadlineMilliseconds the time the whole crawl must complete in. Chassis not read by then
+   *        are reported with a TimeoutException. If this is not greater than zero there is no
+   *        deadline.
+   * @return a future completed with the chassis read and the errors. It does not complete
+   *         exceptionally.
+   */
+  public static CompletableFuture<RedHxCrawlResult<RedHxChassisCollection>> crawlPaths(
+      RedHxAsyncFetchEngine engine, RedHxServerConnectionContext ctx,
+      Set<RedHxUriPath> chassisPathSet, int maxConcurrentPerHost, long deadlineMilliseconds) {
+    return RedHxBoundedCrawl
+        .crawl(chassisPathSet, path -> readChassisAsync(engine, ctx, path), maxConcurrentPerHost,
+            deadlineMilliseconds)
+        .thenApply(result -> new RedHxCrawlResult<RedHxChassisCollection>(
+            new RedHxChassisCollectionImpl(result.getCollection()), result.getErrorMap()));
+  }
 }
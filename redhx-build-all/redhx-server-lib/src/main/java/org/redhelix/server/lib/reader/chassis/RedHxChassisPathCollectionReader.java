@@ -16,6 +16,9 @@ package org.redhelix.server.lib.reader.chassis;
 import java.net.HttpURLConnection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.apache.olingo.client.api.communication.ODataClientErrorException;
 import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
 import org.apache.olingo.client.api.domain.ClientAnnotation;
 import org.apache.olingo.client.api.domain.ClientComplexValue;
@@ -25,8 +28,10 @@ import org.apache.olingo.client.api.domain.ClientValue;
 import org.redhelix.core.chassis.RedHxChassisParseException;
 import org.redhelix.core.service.root.RedHxServiceRootIdEum;
 import org.redhelix.core.util.RedHxHttpResponseException;
+import org.redhelix.core.util.RedHxStringPropertyInterner;
 import org.redhelix.core.util.RedHxUriPath;
 import org.redhelix.core.util.RedHxUriPathImpl;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
 import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
 
 /**
@@ -54,7 +59,8 @@ public final class RedHxChassisPathCollectionReader {
 
   /**
    * get a set of Paths used to identify unique chassis. Each Path can be used in a URL to identify
-   * a chassis.
+   * a chassis. If the server answers 404 Not Found the cached service root of the server is
+   * invalidated.
    *
    * @param ctx the communication context to single Redfish server.
    * @return A set of Paths. No element in the set is null.
@@ -63,46 +69,92 @@ public final class RedHxChassisPathCollectionReader {
    */
   public static Set<RedHxUriPath> readChassisCollection(RedHxServerConnectionContext ctx)
       throws RedHxChassisParseException, RedHxHttpResponseException {
-    final ODataRetrieveResponse<ClientEntity> response = ctx.getChassisEntityRequest().execute();
-    final Set<RedHxUriPath> chassisPathSet = new HashSet<>();
+    final ODataRetrieveResponse<ClientEntity> response;
+
+    try {
+      response = ctx.getChassisEntityRequest().execute();
+    } catch (ODataClientErrorException ex) {
+      if (ex.getStatusLine().getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+        ctx.invalidateServiceRoot();
+      }
+
+      throw ex;
+    }
+
+    final Set<RedHxUriPath> chassisPathSet;
 
     if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
-      ClientEntity entity = response.getBody();
+      chassisPathSet = getChassisPathSet(response.getBody());
+    } else {
+      if (response.getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+        ctx.invalidateServiceRoot();
+      }
 
-      /**
-       * get the JSON entity
-       */
-      ClientProperty chassisProperty = entity.getProperty(JSON_CHASSIS_COLLECTION_KEYWORD);
+      throw new RedHxHttpResponseException(RedHxServiceRootIdEum.CHASSIS, response.getStatusCode(),
+          "Can not read Chassis Collection.");
+    }
 
-      for (ClientValue chassisValue : chassisProperty.getCollectionValue()) {
-        ClientComplexValue cplx = chassisValue.asComplex();
+    return chassisPathSet;
+  }
 
-        if (cplx != null) {
-          ClientAnnotation anno = cplx.getAnnotations().get(0);
+  /**
+   * get the set of Paths used to identify unique chassis without blocking the calling thread.
+   *
+   * @param engine the engine that sends the HTTP request.
+   * @param ctx the communication context to single Redfish server.
+   * @return a future completed with the set of paths, or completed exceptionally with a
+   *         RedHxHttpResponseException or RedHxChassisParseException. If the service root has no
+   *         Chassis link the future completes exceptionally with a RedHxHttpResponseException.
+   */
+  public static CompletableFuture<Set<RedHxUriPath>> readChassisCollectionAsync(
+      RedHxAsyncFetchEngine engine, RedHxServerConnectionContext ctx) {
+    return engine
+        .fetchEntity(ctx, RedHxServiceRootIdEum.CHASSIS,
+            ctx.getServiceUri(RedHxServiceRootIdEum.CHASSIS))
+        .thenApply(entity -> {
+          try {
+            return getChassisPathSet(entity);
+          } catch (RedHxChassisParseException ex) {
+            throw new CompletionException(ex);
+          }
+        });
+  }
+
+  private static Set<RedHxUriPath> getChassisPathSet(ClientEntity entity)
+      throws RedHxChassisParseException {
+    final Set<RedHxUriPath> chassisPathSet = new HashSet<>();
 
-          if (anno.getTerm().equals(ODATA_SINGLE_CHASSIS_KEYWORD)) {
-            String chassisPath = anno.getValue().toString();
+    /**
+     * get the JSON entity
+     */
+    ClientProperty chassisProperty = entity.getProperty(JSON_CHASSIS_COLLECTION_KEYWORD);
 
-            if (chassisPath == null) {
-              throw new RedHxChassisParseException(
-                  "The JSON annotation pointing to a specific chassis was null.");
-            }
+    for (ClientValue chassisValue : chassisProperty.getCollectionValue()) {
+      ClientComplexValue cplx = chassisValue.asComplex();
 
-            RedHxUriPath path = new RedHxUriPathImpl(chassisPath);
+      if (cplx != null) {
+        ClientAnnotation anno = cplx.getAnnotations().get(0);
 
-            chassisPathSet.add(path);
-          } else {
+        if (anno.getTerm().equals(ODATA_SINGLE_CHASSIS_KEYWORD)) {
+          String chassisPath = anno.getValue().toString();
+
+          if (chassisPath == null) {
             throw new RedHxChassisParseException(
-                "Unable to find keyword " + ODATA_SINGLE_CHASSIS_KEYWORD);
+                "The JSON annotation pointing to a specific chassis was null.");
           }
+
+          RedHxUriPath path =
+              RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(chassisPath));
+
+          chassisPathSet.add(path);
         } else {
-          throw new RedHxChassisParseException("The JSON message did not contains a class "
-              + ClientComplexValue.class.getSimpleName());
+          throw new RedHxChassisParseException(
+              "Unable to find keyword " + ODATA_SINGLE_CHASSIS_KEYWORD);
         }
+      } else {
+        throw new RedHxChassisParseException("The JSON message did not contains a class "
+            + ClientComplexValue.class.getSimpleName());
       }
-    } else {
-      throw new RedHxHttpResponseException(RedHxServiceRootIdEum.CHASSIS, response.getStatusCode(),
-          "Can not read Chassis Collection.");
     }
 
     return chassisPathSet;
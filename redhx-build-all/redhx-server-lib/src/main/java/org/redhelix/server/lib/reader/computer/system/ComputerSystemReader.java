@@ -26,6 +26,7 @@ import org.redhelix.core.util.RedHxOperatingStatus;
 import org.redhelix.core.util.RedHxParseException;
 import org.redhelix.core.util.RedHxUriPath;
 import org.redhelix.server.lib.reader.util.AbstractRedfishJsonReader;
+import org.redhelix.server.lib.reader.util.RedHxFetchedEntity;
 import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -79,12 +80,19 @@ final class ComputerSystemReader extends AbstractRedfishJsonReader {
   private final StringBuilder logMsgBuilder;
 
   ComputerSystemReader(RedHxServerConnectionContext ctx, RedHxUriPath pathToChassis)
-      throws URISyntaxException, RedHxHttpResponseException {
+      throws URISyntaxException, RedHxHttpResponseException, RedHxParseException {
     super(ctx, RedHxServiceRootIdEum.COMPUTER_SYSTEMS, pathToChassis);
     this.logger = LoggerFactory.getLogger(ComputerSystemReader.class);
     this.logMsgBuilder = new StringBuilder();
   }
 
+  ComputerSystemReader(RedHxServerConnectionContext ctx, RedHxUriPath pathToComputerSystem,
+      RedHxFetchedEntity fetched) throws RedHxParseException {
+    super(ctx, RedHxServiceRootIdEum.COMPUTER_SYSTEMS, pathToComputerSystem, fetched);
+    this.logger = LoggerFactory.getLogger(ComputerSystemReader.class);
+    this.logMsgBuilder = new StringBuilder();
+  }
+
   /**
    * parse the JSON response into a RedHxComputerSystem class. It create method sent the HTTP
    * request for the chassis message an validated that a JSON message had been received.
@@ -97,6 +105,10 @@ final class ComputerSystemReader extends AbstractRedfishJsonReader {
    */
   RedHxComputerSystem readComputerSystem()
       throws RedHxHttpResponseException, RedHxParseException, URISyntaxException {
+    if (isNotModified()) {
+      return (RedHxComputerSystem) getNotModifiedResource();
+    }
+
     String tmpStr;
     RedHxComputerSystemBuilder builder = new RedHxComputerSystemBuilder(super.getUriPath());
 
@@ -304,6 +316,8 @@ final class ComputerSystemReader extends AbstractRedfishJsonReader {
     //
     final RedHxComputerSystem computer = builder.getInstance();
 
+    cacheResource(computer);
+
     return computer;
   }
 
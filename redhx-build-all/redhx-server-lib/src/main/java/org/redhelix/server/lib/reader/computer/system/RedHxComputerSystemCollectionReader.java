@@ -15,15 +15,24 @@ package org.redhelix.server.lib.reader.computer.system;
 
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.redhelix.core.chassis.RedHxChassis;
 import org.redhelix.core.chassis.RedHxChassisCollection;
 import org.redhelix.core.computer.system.RedHxComputerSystem;
 import org.redhelix.core.computer.system.RedHxComputerSystemCollection;
 import org.redhelix.core.computer.system.RedHxComputerSystemCollectionImpl;
+import org.redhelix.core.service.root.RedHxServiceRootIdEum;
 import org.redhelix.core.util.RedHxHttpResponseException;
 import org.redhelix.core.util.RedHxParseException;
 import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+import org.redhelix.server.lib.reader.util.RedHxBoundedCrawl;
+import org.redhelix.server.lib.reader.util.RedHxCrawlResult;
+import org.redhelix.server.lib.reader.util.RedHxReadExecutor;
 import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
 
 /**
@@ -38,7 +47,9 @@ public final class RedHxComputerSystemCollectionReader {
   private RedHxComputerSystemCollectionReader() {}
 
   /**
-   * read all computer systems in a collection of chassis.
+   * read all computer systems in a collection of chassis. If the context has a
+   * {@link RedHxReadExecutor} each computer system is read on its own thread, otherwise they are
+   * read one after the other on the calling thread.
    *
    * @param ctx
    * @param chassisCollection
@@ -51,14 +62,39 @@ public final class RedHxComputerSystemCollectionReader {
       RedHxChassisCollection chassisCollection)
           throws RedHxHttpResponseException, URISyntaxException, RedHxParseException {
     final List<RedHxComputerSystem> list = new ArrayList<>();
+    final RedHxReadExecutor executor = ctx.getReadExecutor();
 
-    for (RedHxChassis chassis : chassisCollection) {
-      for (RedHxUriPath uriPath : chassis.getComputerSystemUriPathList()) {
-        ComputerSystemReader reader = new ComputerSystemReader(ctx, uriPath);
-        RedHxComputerSystem computer = reader.readComputerSystem();
+    if (executor != null) {
+      final List<CompletableFuture<RedHxComputerSystem>> futureList = new ArrayList<>();
+
+      for (RedHxChassis chassis : chassisCollection) {
+        for (RedHxUriPath uriPath : chassis.getComputerSystemUriPathList()) {
+          futureList.add(executor.submit(ctx,
+              () -> new ComputerSystemReader(ctx, uriPath).readComputerSystem()));
+        }
+      }
 
-        if (computer != null) {
-          list.add(computer);
+      try {
+        for (CompletableFuture<RedHxComputerSystem> future : futureList) {
+          RedHxComputerSystem computer = RedHxReadExecutor.awaitRead(future);
+
+          if (computer != null) {
+            list.add(computer);
+          }
+        }
+      } finally {
+        // a failed read is thrown before the rest are awaited, they are not needed
+        RedHxReadExecutor.cancelReads(futureList);
+      }
+    } else {
+      for (RedHxChassis chassis : chassisCollection) {
+        for (RedHxUriPath uriPath : chassis.getComputerSystemUriPathList()) {
+          ComputerSystemReader reader = new ComputerSystemReader(ctx, uriPath);
+          RedHxComputerSystem computer = reader.readComputerSystem();
+
+          if (computer != null) {
+            list.add(computer);
+          }
         }
       }
     }
@@ -67,4 +103,98 @@ public final class RedHxComputerSystemCollectionReader {
 
     return collection;
   }
+
+  /**
+   * read a single computer system without blocking the calling thread. If the computer system was
+   * read before and has not changed on the server the one from the previous read is returned.
+   *
+   * @param engine the engine that sends the HTTP request.
+   * @param ctx the client connection to the Redfish Server.
+   * @param computerSystemPath the path to the computer system.
+   * @return a future completed with the computer system, or completed exceptionally with a
+   *         RedHxHttpResponseException or RedHxParseException.
+   */
+  public static CompletableFuture<RedHxComputerSystem> readComputerSystemAsync(
+      RedHxAsyncFetchEngine engine, RedHxServerConnectionContext ctx,
+      RedHxUriPath computerSystemPath) {
+    return engine
+        .fetchEntityIfModified(ctx, RedHxServiceRootIdEum.COMPUTER_SYSTEMS, computerSystemPath)
+        .thenApply(fetched -> {
+          try {
+            return new ComputerSystemReader(ctx, computerSystemPath, fetched)
+                .readComputerSystem();
+          } catch (RedHxHttpResponseException | RedHxParseException | URISyntaxException ex) {
+            throw new CompletionException(ex);
+          }
+        });
+  }
+
+  /**
+   * read all computer systems in a collection of chassis without blocking the calling thread. All
+   * of the computer systems are requested at the same time. If any computer system can not be read
+   * the returned future completes exceptionally.
+   *
+   * @param engine the engine that sends the HTTP requests.
+   * @param ctx the client connection to the Redfish Server.
+   * @param chassisCollection the chassis that contain the computer systems.
+   * @return a future completed with the computer system collection.
+   */
+  public static CompletableFuture<RedHxComputerSystemCollection> readPathsAsync(
+      RedHxAsyncFetchEngine engine, RedHxServerConnectionContext ctx,
+      RedHxChassisCollection chassisCollection) {
+    final List<CompletableFuture<RedHxComputerSystem>> futureList = new ArrayList<>();
+
+    for (RedHxChassis chassis : chassisCollection) {
+      for (RedHxUriPath uriPath : chassis.getComputerSystemUriPathList()) {
+        futureList.add(readComputerSystemAsync(engine, ctx, uriPath));
+      }
+    }
+
+    return CompletableFuture.allOf(futureList.toArray(new CompletableFuture<?>[futureList.size()]))
+        .thenApply(ignore -> {
+          final List<RedHxComputerSystem> list = new ArrayList<>();
+
+          for (CompletableFuture<RedHxComputerSystem> future : futureList) {
+            RedHxComputerSystem computer = future.join();
+
+            if (computer != null) {
+              list.add(computer);
+            }
+          }
+
+          return new RedHxComputerSystemCollectionImpl(list);
+        });
+  }
+
+  /**
+   * read all computer systems in a collection of chassis with several reads in flight at the same
+   * time. Unlike {@link #readPaths} a computer system that can not be read does not stop the crawl,
+   * the error is returned in the result with the computer systems that were read.
+   *
+   * @param engine the engine that sends the HTTP requests.
+   * @param ctx the client connection to the Redfish Server.
+   * @param chassisCollection the chassis that contain the computer systems.
+   * @param maxConcurrentPerHost the maximum number of reads in flight to the Redfish server.
+   * @param deadlineMilliseconds the time the whole crawl must complete in. Computer systems not
+   *        read by then are reported with a TimeoutException. If this is not greater than zero
+   *        there is no deadline.
+   * @return a future completed with the computer systems read and the errors. It does not complete
+   *         exceptionally.
+   */
+  public static CompletableFuture<RedHxCrawlResult<RedHxComputerSystemCollection>> crawlPaths(
+      RedHxAsyncFetchEngine engine, RedHxServerConnectionContext ctx,
+      RedHxChassisCollection chassisCollection, int maxConcurrentPerHost,
+      long deadlineMilliseconds) {
+    final Set<RedHxUriPath> pathSet = new LinkedHashSet<>();
+
+    for (RedHxChassis chassis : chassisCollection) {
+      pathSet.addAll(chassis.getComputerSystemUriPathList());
+    }
+
+    return RedHxBoundedCrawl
+        .crawl(pathSet, path -> readComputerSystemAsync(engine, ctx, path), maxConcurrentPerHost,
+            deadlineMilliseconds)
+        .thenApply(result -> new RedHxCrawlResult<RedHxComputerSystemCollection>(
+            new RedHxComputerSystemCollectionImpl(result.getCollection()), result.getErrorMap()));
+  }
 }
@@ -13,13 +13,26 @@
  */
 package org.redhelix.server.lib.reader.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
 import org.apache.olingo.client.api.communication.request.retrieve.ODataEntityRequest;
 import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
 import org.apache.olingo.client.api.domain.ClientAnnotation;
@@ -28,6 +41,10 @@ import org.apache.olingo.client.api.domain.ClientComplexValue;
 import org.apache.olingo.client.api.domain.ClientEntity;
 import org.apache.olingo.client.api.domain.ClientProperty;
 import org.apache.olingo.client.api.domain.ClientValue;
+import org.apache.olingo.client.api.http.HttpClientException;
+import org.apache.olingo.client.api.http.HttpClientFactory;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpMethod;
 import org.redhelix.core.action.RedHxActionName;
 import org.redhelix.core.action.RedHxActionNameImpl;
 import org.redhelix.core.action.RedHxActionProperties;
@@ -39,6 +56,8 @@ import org.redhelix.core.util.RedHxOperatingHealthRollupEnum;
 import org.redhelix.core.util.RedHxOperatingStateEnum;
 import org.redhelix.core.util.RedHxOperatingStatus;
 import org.redhelix.core.util.RedHxOperatingStatusImpl;
+import org.redhelix.core.util.RedHxParseException;
+import org.redhelix.core.util.RedHxStringPropertyInterner;
 import org.redhelix.core.util.RedHxUriPath;
 import org.redhelix.core.util.RedHxUriPathImpl;
 import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
@@ -56,6 +75,8 @@ import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
  */
 public abstract class AbstractRedfishJsonReader {
 
+  private static final String JSON_KEY_OEM = "Oem";
+  private static final String JSON_KEY_TARGET = "target";
   private static final String ODATA_ID_FLAG = "odata.id";
   private final static String JSON_SUB_KEY_STATUS_HEALTH = "Health";
   private final static String JSON_SUB_KEY_STATUS_STATE = "State";
@@ -67,71 +88,294 @@ public abstract class AbstractRedfishJsonReader {
                                                                                   // but the mockups
                                                                                   // have upper
                                                                                   // case.
+  private final RedHxConditionalReadCache cache;
+  private final Map<String, Map<String, String>> complexMapCache;
+  private final RedfishJsonDocument document;
   private final ClientEntity entity;
-  private final boolean isResponseValid;
+  private final String eTag;
+  private final boolean isNotModified;
+  private final String lastModified;
+  private final Object notModifiedResource;
   private final RedHxUriPath uriPath;
 
   /**
    * create a reader and exeucte an HTTP get for the data in Redfish link. If the response has an
    * HTTP error an exception is throw an no other methods in the class can be called. As a result
    * all methods in subclass of this do not perform error checking for the HTTP response.
+   * <p>
+   * If the resource is in the context's {@link RedHxConditionalReadCache} the request is
+   * conditional. When the server answers 304 Not Modified {@link #isNotModified()} is true and the
+   * subclass returns {@link #getNotModifiedResource()} instead of parsing.
+   * </p>
+   * <p>
+   * The body is parsed the way the context's {@link RedHxJsonParseModeEnum} selects. The get
+   * methods for JSON properties return the same values in either mode.
+   * </p>
    *
    * @param ctx
    * @param serviceRootId
    * @param pathToResource
    * @throws URISyntaxException
    * @throws RedHxHttpResponseException
+   * @throws RedHxParseException if the body is parsed with the streaming parser and it is not a
+   *         JSON object.
    */
   protected AbstractRedfishJsonReader(final RedHxServerConnectionContext ctx,
       final RedHxServiceRootIdEum serviceRootId, final RedHxUriPath pathToResource)
-          throws URISyntaxException, RedHxHttpResponseException {
-    this.uriPath = pathToResource;
-
-    final ODataEntityRequest<ClientEntity> req = ctx.getEntityRequest(pathToResource);
-    final ODataRetrieveResponse<ClientEntity> response = req.execute();
-
-    this.isResponseValid = response.getStatusCode() == HttpURLConnection.HTTP_OK;
+          throws URISyntaxException, RedHxHttpResponseException, RedHxParseException {
+    this(ctx, serviceRootId, pathToResource, fetch(ctx, serviceRootId, pathToResource));
+  }
 
-    if (isResponseValid) {
-      entity = response.getBody();
+  /**
+   * create a reader for the result of a conditional read by
+   * {@link RedHxAsyncFetchEngine#fetchEntityIfModified}. The resource built by the subclass is
+   * saved in the context's {@link RedHxConditionalReadCache}.
+   *
+   * @param ctx the context the resource was read with.
+   * @param serviceRootId the Redfish service the resource is part of. It is used to report errors.
+   * @param pathToResource the path the entity was read from.
+   * @param fetched the entity, the raw body or the resource that was not modified. This shall not
+   *        be null.
+   * @throws RedHxParseException if the fetched body is not a JSON object.
+   */
+  protected AbstractRedfishJsonReader(final RedHxServerConnectionContext ctx,
+      final RedHxServiceRootIdEum serviceRootId, final RedHxUriPath pathToResource,
+      final RedHxFetchedEntity fetched) throws RedHxParseException {
+    this.uriPath = pathToResource;
+    this.entity = fetched.getEntity();
+    this.cache = ctx.getConditionalReadCache();
+    this.complexMapCache = new HashMap<>();
+    this.eTag = fetched.getETag();
+    this.isNotModified = fetched.isNotModified();
+    this.lastModified = fetched.getLastModified();
+    this.notModifiedResource = fetched.getNotModifiedResource();
+
+    if (fetched.getDocument() != null) {
+      this.document = fetched.getDocument();
+    } else if (fetched.getBody() != null) {
+      this.document = parseDocument(serviceRootId, pathToResource, fetched.getBody());
     } else {
-      throw new RedHxHttpResponseException(serviceRootId, response.getStatusCode(),
-          "Can not read " + serviceRootId + " " + pathToResource);
+      this.document = null;
     }
   }
 
   private AbstractRedfishJsonReader() {
+    this.cache = null;
+    this.complexMapCache = null;
+    this.document = null;
     this.entity = null;
-    this.isResponseValid = false;
+    this.eTag = null;
+    this.isNotModified = false;
+    this.lastModified = null;
+    this.notModifiedResource = null;
     this.uriPath = null;
   }
 
-  public RedHxUriPath getUriPath() {
-    return uriPath;
+  /**
+   * execute the HTTP get. If the resource is cached the request is conditional.
+   */
+  private static RedHxFetchedEntity fetch(final RedHxServerConnectionContext ctx,
+      final RedHxServiceRootIdEum serviceRootId, final RedHxUriPath pathToResource)
+          throws URISyntaxException, RedHxHttpResponseException {
+    final RedHxConditionalReadCache cache = ctx.getConditionalReadCache();
+    final RedHxConditionalReadCache.Entry cached = cache.get(pathToResource);
+    final RedHxFetchedEntity retVal;
+
+    if (ctx.getParseMode() == RedHxJsonParseModeEnum.STREAMING) {
+      retVal = fetchBody(ctx, serviceRootId, pathToResource, cached);
+    } else {
+      final ODataEntityRequest<ClientEntity> req = ctx.getEntityRequest(pathToResource);
+
+      if (cached != null) {
+        if (cached.getETag() != null) {
+          req.setIfNoneMatch(cached.getETag());
+        }
+
+        if (cached.getLastModified() != null) {
+          req.addCustomHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+        }
+      }
+
+      final ODataRetrieveResponse<ClientEntity> response = req.execute();
+
+      if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+        retVal = new RedHxFetchedEntity(response.getBody(), response.getETag(),
+            getFirstHeader(response, HttpHeaders.LAST_MODIFIED));
+      } else if ((cached != null)
+          && (response.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED)) {
+        response.close();
+        retVal = new RedHxFetchedEntity(cached.getResource());
+      } else {
+        throw new RedHxHttpResponseException(serviceRootId, response.getStatusCode(),
+            "Can not read " + serviceRootId + " " + pathToResource);
+      }
+    }
+
+    if (retVal.isNotModified()) {
+      cache.recordNotModified();
+    }
+
+    return retVal;
   }
 
-  protected String getActionPath(String propName) {
+  /**
+   * execute the HTTP get on the context's HTTP transport and keep the raw body for the streaming
+   * parser.
+   */
+  private static RedHxFetchedEntity fetchBody(final RedHxServerConnectionContext ctx,
+      final RedHxServiceRootIdEum serviceRootId, final RedHxUriPath pathToResource,
+      final RedHxConditionalReadCache.Entry cached)
+          throws URISyntaxException, RedHxHttpResponseException {
+    final URI uri = ctx.getResourceUri(pathToResource);
+    final HttpGet get = new HttpGet(uri);
+    final HttpClientFactory clientFactory =
+        ctx.getClient().getConfiguration().getHttpClientFactory();
+    final HttpClient httpClient = clientFactory.create(HttpMethod.GET, uri);
+    final String authorization = ctx.getAuthorization();
+    final int statusCode;
+    final RedHxFetchedEntity retVal;
+
+    if (authorization != null) {
+      get.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+    }
 
-    // use a tree set so the actions are in alpa order with the key being the action name.
-    final ClientProperty clientProp = entity.getProperty(propName);
-    String str;
+    get.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toContentTypeString());
 
-    if (clientProp != null) {
-      str = clientProp.getValue().toString();
+    if (cached != null) {
+      if (cached.getETag() != null) {
+        get.addHeader(HttpHeaders.IF_NONE_MATCH, cached.getETag());
+      }
+
+      if (cached.getLastModified() != null) {
+        get.addHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+      }
+    }
+
+    try {
+      final HttpResponse response = httpClient.execute(get);
+
+      statusCode = response.getStatusLine().getStatusCode();
+
+      if (statusCode == HttpURLConnection.HTTP_OK) {
+        retVal = new RedHxFetchedEntity(EntityUtils.toByteArray(response.getEntity()),
+            getFirstHeader(response, HttpHeaders.ETAG),
+            getFirstHeader(response, HttpHeaders.LAST_MODIFIED));
+      } else {
+        EntityUtils.consumeQuietly(response.getEntity());
+
+        if ((cached != null) && (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED)) {
+          retVal = new RedHxFetchedEntity(cached.getResource());
+        } else {
+          retVal = null;
+        }
+      }
+    } catch (IOException ex) {
+      throw new HttpClientException(ex);
+    } finally {
+      clientFactory.close(httpClient);
+    }
+
+    if (retVal == null) {
+      throw new RedHxHttpResponseException(serviceRootId, statusCode,
+          "Can not read " + serviceRootId + " " + pathToResource);
+    }
+
+    return retVal;
+  }
+
+  private static String getFirstHeader(final HttpResponse response, final String headerName) {
+    final Header header = response.getFirstHeader(headerName);
+    final String retVal;
+
+    if (header != null) {
+      retVal = header.getValue();
     } else {
-      str = null;
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
+  private static String getFirstHeader(final ODataRetrieveResponse<ClientEntity> response,
+      final String headerName) {
+    final Collection<String> valueCollection = response.getHeader(headerName);
+    final String retVal;
+
+    if ((valueCollection != null) && !valueCollection.isEmpty()) {
+      retVal = valueCollection.iterator().next();
+    } else {
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
+  private static RedfishJsonDocument parseDocument(final RedHxServiceRootIdEum serviceRootId,
+      final RedHxUriPath pathToResource, final byte[] body) throws RedHxParseException {
+    try {
+      return RedfishJsonDocument.parse(new ByteArrayInputStream(body));
+    } catch (IOException ex) {
+      throw new RedHxParseException(serviceRootId,
+          "Can not parse " + pathToResource.getValue() + ". " + ex.getMessage());
     }
+  }
 
-    return str;
+  /**
+   * save the resource the subclass built from the response so the next read of the same path can
+   * be conditional. It has no effect if the reader was not created from a context.
+   *
+   * @param resource the resource built from the entity.
+   */
+  protected void cacheResource(final Object resource) {
+    if (cache != null) {
+      cache.put(uriPath, eTag, lastModified, resource);
+    }
   }
 
+  /**
+   * get the resource built by the previous read when the server answered 304 Not Modified.
+   *
+   * @return null if the resource was modified.
+   */
+  protected Object getNotModifiedResource() {
+    return notModifiedResource;
+  }
+
+  /**
+   * test if the server answered 304 Not Modified. If it did there is no entity to parse and none
+   * of the get methods for JSON properties can be called.
+   *
+   * @return
+   */
+  protected boolean isNotModified() {
+    return isNotModified;
+  }
+
+  public RedHxUriPath getUriPath() {
+    return uriPath;
+  }
+
+  protected String getActionPath(String propName) {
+    return getOptionalProperty(propName);
+  }
+
+  /**
+   * from the JSON response get the actions of a property. An action is a member of the property
+   * with a target, the members of its Oem member are actions too.
+   *
+   * @param propName the top level JSON property name, Actions for a Redfish resource.
+   * @return an empty set if there is no such property. A null is not returned.
+   */
   protected Set<RedHxActionProperties> getActions(String propName) {
+    if (document != null) {
+      return document.getActionSet(propName);
+    }
 
     // use a tree set so the actions are in alpa order with the key being the action name.
     Set<RedHxActionProperties> set = new TreeSet<>();
     final ClientProperty clientProp = entity.getProperty(propName);
 
-    if (clientProp != null) {
+    if ((clientProp != null) && clientProp.hasComplexValue()) {
       /*
        * HFB5: the action is , XXXXXXXXX
        * anno=org.apache.olingo.client.core.domain.ClientComplexValueImpl@7f3b84b8[
@@ -157,41 +401,27 @@ public abstract class AbstractRedfishJsonReader {
        * ], annotations=[]}} typeName=<null> ] ], annotations=[]}} typeName=<null> ] ],
        * annotations=[]}} typeName=<null> ]
        */
-      ClientComplexValue cplx = clientProp.getComplexValue();
-      Iterator<ClientProperty> iter = cplx.iterator();
+      Iterator<ClientProperty> iter = clientProp.getComplexValue().iterator();
 
       while (iter.hasNext()) {
         ClientProperty cp = iter.next();
 
-        if (cp.getName().equals("Oem")) {
+        if (!cp.hasComplexValue()) {
+          continue;
+        }
+
+        if (cp.getName().equals(JSON_KEY_OEM)) {
           Iterator<ClientProperty> iter2 = cp.getComplexValue().iterator();
 
           while (iter2.hasNext()) {
-            ClientProperty cp2 = iter2.next();
-            RedHxActionName actionName = new RedHxActionNameImpl(cp2.getName());
-            ClientValue cValue = cp2.getComplexValue().get("target").getValue();
-            RedHxUriPath actionsPath = new RedHxUriPathImpl(cValue.toString());
-            RedHxActionProperties action = new RedHxActionPropertiesImpl(actionName, actionsPath);
-
-            set.add(action);
+            addAction(set, iter2.next());
           }
         } else {
-          ClientComplexValue cplx2 = cp.getComplexValue();
-          Iterator<ClientProperty> iter2 = cplx2.iterator();
-
           /**
            * todo: this does not read the ResetType@Redfish.AllowableValues for the Reset action. I
            * can't find them using olingo beta3.
            */
-          while (iter2.hasNext()) {
-            ClientProperty cp2 = iter2.next();
-            RedHxActionName actionName = new RedHxActionNameImpl(cp.getName());
-            ClientValue cValue = cplx2.get("target").getValue();
-            RedHxUriPath actionsPath = new RedHxUriPathImpl(cValue.toString());
-            RedHxActionProperties action = new RedHxActionPropertiesImpl(actionName, actionsPath);
-
-            set.add(action);
-          }
+          addAction(set, cp);
         }
       }
     }
@@ -199,6 +429,73 @@ public abstract class AbstractRedfishJsonReader {
     return set;
   }
 
+  /**
+   * add an action if the property is an object with a target, the same test
+   * {@link RedfishJsonDocument} makes.
+   */
+  private static void addAction(final Set<RedHxActionProperties> set,
+      final ClientProperty actionProp) {
+    if (actionProp.hasComplexValue()) {
+      final ClientProperty targetProp = actionProp.getComplexValue().get(JSON_KEY_TARGET);
+      final String target;
+
+      if (targetProp != null) {
+        target = toText(targetProp.getValue());
+      } else {
+        target = null;
+      }
+
+      if (target != null) {
+        set.add(new RedHxActionPropertiesImpl(
+            RedHxStringPropertyInterner.intern(new RedHxActionNameImpl(actionProp.getName())),
+            RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(target))));
+      }
+    }
+  }
+
+  /**
+   * get the odata.id annotation of an object.
+   *
+   * @return null if the object has no odata.id.
+   */
+  private static String getODataId(final ClientComplexValue cplx) {
+    String retVal = null;
+
+    for (ClientAnnotation anno : cplx.getAnnotations()) {
+      if (anno.getTerm().equals(ODATA_ID_FLAG)) {
+        retVal = anno.getValue().toString();
+
+        break;
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * convert a value of the entity tree to the text the streaming parser keeps for the same JSON
+   * value. A scalar is its text, an object is its odata.id, a null or an array is null.
+   */
+  private static String toText(final ClientValue value) {
+    final String retVal;
+
+    if (value == null) {
+      retVal = null;
+    } else if (value.isPrimitive()) {
+      if (value.asPrimitive().toValue() != null) {
+        retVal = value.toString();
+      } else {
+        retVal = null;
+      }
+    } else if (value.isComplex()) {
+      retVal = getODataId(value.asComplex());
+    } else {
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
   /**
    * from the JSON response get the value of an anotation.
    *
@@ -206,23 +503,27 @@ public abstract class AbstractRedfishJsonReader {
    * @return
    */
   protected String getAnnotation(String propName) {
-    final ClientProperty clientProp = entity.getProperty(propName);
-    String retVal;
-
-    if (clientProp != null) {
-      retVal = null;
-
-      ClientComplexValue cplx = clientProp.getComplexValue();
+    if (document != null) {
+      return document.getODataId(propName);
+    }
 
-      for (int i = 0; i < cplx.getAnnotations().size(); ++i) {
-        ClientAnnotation anno = cplx.getAnnotations().get(i);
+    return getODataId(entity, propName);
+  }
 
-        if (anno.getTerm().equals(ODATA_ID_FLAG)) {
-          retVal = anno.getValue().toString();
+  /**
+   * get the odata.id of a property of an entity that is an object, for example the Subscriptions
+   * collection of the EventService.
+   *
+   * @param entity the parsed resource.
+   * @param propName the name of the property.
+   * @return null if the property is missing, is not an object or the object has no odata.id.
+   */
+  public static String getODataId(final ClientEntity entity, final String propName) {
+    final ClientProperty clientProp = entity.getProperty(propName);
+    final String retVal;
 
-          break;
-        }
-      }
+    if ((clientProp != null) && clientProp.hasComplexValue()) {
+      retVal = getODataId(clientProp.getComplexValue());
     } else {
       retVal = null;
     }
@@ -238,20 +539,52 @@ public abstract class AbstractRedfishJsonReader {
    * @return
    */
   protected String getComplexValue(String primaryKeyName, String subKeyName) {
-    final ClientProperty clientProp = entity.getProperty(primaryKeyName);
-    String retVal;
-
-    if (clientProp != null) {
-      ClientComplexValue cplx = clientProp.getComplexValue();
+    final String retVal;
 
-      /*
-       * I would expect this code that is commented out should work but does not. It only gets the
-       * first element(the propName2 im the complex type final ClientProperty subProp =
-       * cplx.get(propName2); retVal = subProp.getValue().toString();
-       */
-      retVal = (String) cplx.asJavaMap().get(subKeyName);
+    if (document != null) {
+      retVal = document.getComplexMap(primaryKeyName).get(subKeyName);
     } else {
-      retVal = null;
+      retVal = getComplexMap(primaryKeyName).get(subKeyName);
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the scalar members of a complex property as text, the same map
+   * {@link RedfishJsonDocument#getComplexMap(String)} holds. The map is built once per property and
+   * kept for the other sub keys.
+   *
+   * @param primaryKeyName
+   * @return an empty map if there is no such property.
+   */
+  private Map<String, String> getComplexMap(String primaryKeyName) {
+    Map<String, String> retVal = complexMapCache.get(primaryKeyName);
+
+    if (retVal == null) {
+      final ClientProperty clientProp = entity.getProperty(primaryKeyName);
+
+      if ((clientProp != null) && clientProp.hasComplexValue()) {
+        /*
+         * I would expect cplx.get(subKeyName) to work but does not. It only gets the first element
+         * in the complex type.
+         */
+        retVal = new HashMap<>();
+
+        for (ClientProperty member : clientProp.getComplexValue()) {
+          if (member.hasPrimitiveValue()) {
+            final String text = toText(member.getValue());
+
+            if (text != null) {
+              retVal.put(member.getName(), text);
+            }
+          }
+        }
+      } else {
+        retVal = Collections.emptyMap();
+      }
+
+      complexMapCache.put(primaryKeyName, retVal);
     }
 
     return retVal;
@@ -264,6 +597,10 @@ public abstract class AbstractRedfishJsonReader {
    * @return
    */
   protected List<String> getLinkArray(String propName) {
+    if (document != null) {
+      return document.getLinkArray(propName);
+    }
+
     final ClientProperty clientProp = entity.getProperty("Links");
     List<String> list = new ArrayList<>();
 
@@ -278,14 +615,10 @@ public abstract class AbstractRedfishJsonReader {
         ClientCollectionValue<ClientValue> collection2 = prop2.getCollectionValue();
 
         for (ClientValue cv : collection2) {
-          List<ClientAnnotation> annotationList = cv.asComplex().getAnnotations();
-
-          if (annotationList.size() == 1) {
-            ClientAnnotation anno = annotationList.get(0);
-
-            if (anno.getTerm().equals(ODATA_ID_FLAG)) {
-              String link = anno.getValue().toString();
+          if (cv.isComplex()) {
+            String link = getODataId(cv.asComplex());
 
+            if (link != null) {
               list.add(link);
             }
           }
@@ -303,6 +636,10 @@ public abstract class AbstractRedfishJsonReader {
    * @return
    */
   protected String getLinkSingle(String propName) {
+    if (document != null) {
+      return document.getLinkSingle(propName);
+    }
+
     final ClientProperty clientProp = entity.getProperty("Links");
     String retVal;
 
@@ -312,17 +649,8 @@ public abstract class AbstractRedfishJsonReader {
       ClientComplexValue cplx = clientProp.getComplexValue();
       ClientProperty prop2 = cplx.get(propName);
 
-      if ((prop2 != null) && !prop2.hasCollectionValue()) {
-        List<ClientAnnotation> annotationList =
-            prop2.getComplexValue().asComplex().getAnnotations();
-
-        if (annotationList.size() == 1) {
-          ClientAnnotation anno = annotationList.get(0);
-
-          if (anno.getTerm().equals(ODATA_ID_FLAG)) {
-            retVal = anno.getValue().toString();
-          }
-        }
+      if ((prop2 != null) && prop2.hasComplexValue()) {
+        retVal = getODataId(prop2.getComplexValue());
       }
     } else {
       retVal = null;
@@ -377,16 +705,21 @@ public abstract class AbstractRedfishJsonReader {
 
   /**
    * from the JSON response read a property they may be present. If it is not a null is returned.
+   * If the property is an object its odata.id is returned, if it is an array a null is returned.
    *
    * @param propName
    * @return
    */
   protected String getOptionalProperty(String propName) {
+    if (document != null) {
+      return document.getProperty(propName);
+    }
+
     final ClientProperty clientProp = entity.getProperty(propName);
     final String retVal;
 
     if (clientProp != null) {
-      retVal = clientProp.getValue().toString();
+      retVal = toText(clientProp.getValue());
     } else {
       retVal = null;
     }
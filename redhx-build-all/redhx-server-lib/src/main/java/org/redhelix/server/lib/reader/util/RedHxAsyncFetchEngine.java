@@ -0,0 +1,610 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.reader.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.util.EntityUtils;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.serialization.ODataDeserializerException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.service.root.RedHxServiceRootIdEum;
+import org.redhelix.core.util.RedHxHttpResponseException;
+import org.redhelix.core.util.RedHxParseException;
+import org.redhelix.core.util.RedHxUriPath;
+import org.redhelix.server.lib.metrics.RedHxFetchMetrics;
+
+/**
+ * read Redfish resources without holding a thread for each HTTP request. All requests share a
+ * small number of selector threads so thousands of reads can be in flight at the same time. When
+ * the response has been received the JSON is parsed on the parse executor, never on a selector
+ * thread, and the returned future is completed.
+ * <p>
+ * A single engine is intended to be shared by every {@link RedHxServerConnectionContext} in the
+ * JVM. The connection to each context must have been opened before it is used with this class.
+ * </p>
+ * <p>
+ * The latency, status and body size of every request and the time to parse every body are
+ * recorded in the engine's {@link RedHxFetchMetrics}.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+public final class RedHxAsyncFetchEngine implements Closeable {
+
+  /**
+   * the default number of TCP connections open at the same time to all Redfish servers.
+   */
+  public static final int DEFAULT_MAX_CONNECTION_TOTAL = 4096;
+
+  /**
+   * the default number of TCP connections open at the same time to a single Redfish server. BMCs
+   * have very small web servers so this is kept low.
+   */
+  public static final int DEFAULT_MAX_CONNECTION_PER_HOST = 4;
+
+  /**
+   * the default time in milliseconds to wait for a TCP connection or for data on the socket.
+   */
+  public static final int DEFAULT_TIMEOUT_MILLISECONDS = 30000;
+
+  /**
+   * the name of the gauge of the requests in flight in {@link RedHxFetchMetrics}.
+   */
+  public static final String GAUGE_IN_FLIGHT = "redhx_fetch_in_flight";
+  private static final String ENCODING_GZIP = "gzip";
+  private static final String MIME_JSON = "application/json";
+  private final CloseableHttpAsyncClient httpClient;
+  private final AtomicInteger inFlightCount;
+  private final LongSupplier inFlightGauge;
+  private final RedHxFetchMetrics metrics;
+  private final Executor parseExecutor;
+
+  /**
+   * create an engine with one selector thread per CPU and the default connection limits. The JSON
+   * is parsed on the common fork join pool.
+   */
+  public RedHxAsyncFetchEngine() {
+    this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_CONNECTION_TOTAL,
+        DEFAULT_MAX_CONNECTION_PER_HOST, DEFAULT_TIMEOUT_MILLISECONDS, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * create an engine and start its selector threads.
+   *
+   * @param ioThreadCount the number of selector threads. This shall be greater than zero.
+   * @param maxConnectionTotal the maximum number of TCP connections open to all Redfish servers.
+   * @param maxConnectionPerHost the maximum number of TCP connections open to one Redfish server.
+   * @param timeoutMilliseconds the time to wait for a connection to open or for data on a socket.
+   * @param parseExecutor runs the JSON parsing after the bytes are received. This shall not be
+   *        null.
+   */
+  public RedHxAsyncFetchEngine(final int ioThreadCount, final int maxConnectionTotal,
+      final int maxConnectionPerHost, final int timeoutMilliseconds,
+      final Executor parseExecutor) {
+    this(ioThreadCount, maxConnectionTotal, maxConnectionPerHost, timeoutMilliseconds,
+        parseExecutor, RedHxFetchMetrics.getInstance());
+  }
+
+  /**
+   * create an engine that records in its own metrics and start its selector threads.
+   *
+   * @param ioThreadCount the number of selector threads. This shall be greater than zero.
+   * @param maxConnectionTotal the maximum number of TCP connections open to all Redfish servers.
+   * @param maxConnectionPerHost the maximum number of TCP connections open to one Redfish server.
+   * @param timeoutMilliseconds the time to wait for a connection to open or for data on a socket.
+   * @param parseExecutor runs the JSON parsing after the bytes are received. This shall not be
+   *        null.
+   * @param metrics records every request. This shall not be null.
+   */
+  public RedHxAsyncFetchEngine(final int ioThreadCount, final int maxConnectionTotal,
+      final int maxConnectionPerHost, final int timeoutMilliseconds,
+      final Executor parseExecutor, final RedHxFetchMetrics metrics) {
+    if (parseExecutor == null) {
+      throw new IllegalArgumentException("Argument \"parseExecutor\" can not be null.");
+    }
+
+    if (metrics == null) {
+      throw new IllegalArgumentException("Argument \"metrics\" can not be null.");
+    }
+
+    final IOReactorConfig ioConfig = IOReactorConfig.custom().setIoThreadCount(ioThreadCount)
+        .setConnectTimeout(timeoutMilliseconds).setSoTimeout(timeoutMilliseconds).build();
+    final RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(timeoutMilliseconds).setSocketTimeout(timeoutMilliseconds).build();
+
+    this.httpClient = HttpAsyncClients.custom().setDefaultIOReactorConfig(ioConfig)
+        .setDefaultRequestConfig(requestConfig).setMaxConnTotal(maxConnectionTotal)
+        .setMaxConnPerRoute(maxConnectionPerHost)
+        .setSSLContext(RedHxPooledHttpClientFactory.getSharedSslContext()).build();
+    this.inFlightCount = new AtomicInteger();
+    this.inFlightGauge = inFlightCount::get;
+    this.metrics = metrics;
+    this.parseExecutor = parseExecutor;
+    this.metrics.registerGauge(GAUGE_IN_FLIGHT, inFlightGauge);
+    this.httpClient.start();
+  }
+
+  /**
+   * stop the selector threads. Requests that have not completed are cancelled.
+   *
+   * @throws IOException
+   */
+  @Override
+  public void close() throws IOException {
+    metrics.unregisterGauge(GAUGE_IN_FLIGHT, inFlightGauge);
+    httpClient.close();
+  }
+
+  /**
+   * send an HTTP GET for a Redfish resource. The method returns as soon as the request has been
+   * queued. If the HTTP response is not 200 the future completes exceptionally with a
+   * {@link RedHxHttpResponseException}, if the JSON can not be parsed it completes with a
+   * {@link RedHxParseException}.
+   *
+   * @param ctx the opened connection to the Redfish server.
+   * @param serviceRootId the Redfish service the resource is part of. It is used to report errors.
+   * @param pathToResource the path of the resource to read.
+   * @return the future completed with the parsed entity. A null is not returned.
+   */
+  public CompletableFuture<ClientEntity> fetchEntity(final RedHxServerConnectionContext ctx,
+      final RedHxServiceRootIdEum serviceRootId, final RedHxUriPath pathToResource) {
+    final URI uri;
+
+    try {
+      uri = ctx.getResourceUri(pathToResource);
+    } catch (URISyntaxException ex) {
+      final CompletableFuture<ClientEntity> failedFuture = new CompletableFuture<>();
+
+      failedFuture.completeExceptionally(ex);
+
+      return failedFuture;
+    }
+
+    return fetchEntity(ctx, serviceRootId, uri);
+  }
+
+  /**
+   * send an HTTP GET for a Redfish resource identified by an absolute URI, for example one of the
+   * URIs in the service root. If the server answers 404 Not Found for a URI in the service root the
+   * service root is invalidated, see {@link RedHxServerConnectionContext#invalidateServiceRoot()}.
+   *
+   * @param ctx the opened connection to the Redfish server.
+   * @param serviceRootId the Redfish service the resource is part of. It is used to report errors.
+   * @param uri the URI of the resource to read. If this is null, as
+   *        {@link RedHxServerConnectionContext#getServiceUri} returns for a service the server does
+   *        not provide, the future completes exceptionally with a
+   *        {@link RedHxHttpResponseException} for 404 Not Found.
+   * @return the future completed with the parsed entity. A null is not returned.
+   * @see #fetchEntity(RedHxServerConnectionContext, RedHxServiceRootIdEum, RedHxUriPath)
+   */
+  public CompletableFuture<ClientEntity> fetchEntity(final RedHxServerConnectionContext ctx,
+      final RedHxServiceRootIdEum serviceRootId, final URI uri) {
+    if (uri == null) {
+      final CompletableFuture<ClientEntity> failedFuture = new CompletableFuture<>();
+
+      failedFuture.completeExceptionally(new RedHxHttpResponseException(serviceRootId,
+          HttpURLConnection.HTTP_NOT_FOUND, "The service root of " + ctx.getHostName()
+              + " does not have a link to " + serviceRootId + "."));
+
+      return failedFuture;
+    }
+
+    return execute(ctx, uri, null).thenApplyAsync(response -> {
+      if (response.getStatusLine().getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+        ctx.reportNotFound(uri);
+      }
+
+      return readEntity(ctx, serviceRootId, uri, response);
+    }, parseExecutor);
+  }
+
+  /**
+   * send a conditional HTTP GET for a Redfish resource. If the resource is in the context's
+   * {@link RedHxConditionalReadCache} its ETag and Last-Modified are sent, and a 304 Not Modified
+   * response completes the future with the resource built by the previous read. If the context
+   * parses with {@link RedHxJsonParseModeEnum#STREAMING} the body is returned without being parsed.
+   * Otherwise this is the same as {@link #fetchEntity(RedHxServerConnectionContext,
+   * RedHxServiceRootIdEum, RedHxUriPath)}.
+   *
+   * @param ctx the opened connection to the Redfish server.
+   * @param serviceRootId the Redfish service the resource is part of. It is used to report errors.
+   * @param pathToResource the path of the resource to read.
+   * @return the future completed with the parsed entity or the cached resource. A null is not
+   *         returned.
+   */
+  public CompletableFuture<RedHxFetchedEntity> fetchEntityIfModified(
+      final RedHxServerConnectionContext ctx, final RedHxServiceRootIdEum serviceRootId,
+      final RedHxUriPath pathToResource) {
+    final URI uri;
+
+    try {
+      uri = ctx.getResourceUri(pathToResource);
+    } catch (URISyntaxException ex) {
+      final CompletableFuture<RedHxFetchedEntity> failedFuture = new CompletableFuture<>();
+
+      failedFuture.completeExceptionally(ex);
+
+      return failedFuture;
+    }
+
+    final RedHxConditionalReadCache cache = ctx.getConditionalReadCache();
+    final RedHxConditionalReadCache.Entry cached = cache.get(pathToResource);
+
+    return execute(ctx, uri, cached).thenApplyAsync(response -> {
+      final RedHxFetchedEntity retVal;
+
+      if (response.getStatusLine().getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+        ctx.reportNotFound(uri);
+      }
+
+      if ((cached != null) && (response.getStatusLine()
+          .getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED)) {
+        EntityUtils.consumeQuietly(response.getEntity());
+        cache.recordNotModified();
+        retVal = new RedHxFetchedEntity(cached.getResource());
+      } else if (ctx.getParseMode() == RedHxJsonParseModeEnum.STREAMING) {
+        retVal = new RedHxFetchedEntity(readDocument(serviceRootId, uri, response),
+            getHeaderValue(response, HttpHeaders.ETAG),
+            getHeaderValue(response, HttpHeaders.LAST_MODIFIED));
+      } else {
+        retVal = new RedHxFetchedEntity(readEntity(ctx, serviceRootId, uri, response),
+            getHeaderValue(response, HttpHeaders.ETAG),
+            getHeaderValue(response, HttpHeaders.LAST_MODIFIED));
+      }
+
+      return retVal;
+    }, parseExecutor);
+  }
+
+  /**
+   * send an HTTP DELETE for a Redfish resource, for example an event subscription. A 404 Not Found
+   * response completes the future normally because the resource is gone either way.
+   *
+   * @param ctx the opened connection to the Redfish server.
+   * @param serviceRootId the Redfish service the resource is part of. It is used to report errors.
+   * @param uri the URI of the resource to delete.
+   * @return a future completed when the server has answered, or completed exceptionally with a
+   *         {@link RedHxHttpResponseException}.
+   */
+  public CompletableFuture<Void> deleteResource(final RedHxServerConnectionContext ctx,
+      final RedHxServiceRootIdEum serviceRootId, final URI uri) {
+    return send(ctx, new HttpDelete(uri)).thenAccept(response -> {
+      final int statusCode = response.getStatusLine().getStatusCode();
+
+      EntityUtils.consumeQuietly(response.getEntity());
+
+      if ((statusCode / 100 != 2) && (statusCode != HttpURLConnection.HTTP_NOT_FOUND)) {
+        throw new CompletionException(new RedHxHttpResponseException(serviceRootId, statusCode,
+            "Can not delete " + serviceRootId + " " + uri.getPath()));
+      }
+    });
+  }
+
+  /**
+   * send an HTTP POST that creates a member of a Redfish collection, for example an event
+   * subscription.
+   *
+   * @param ctx the opened connection to the Redfish server.
+   * @param serviceRootId the Redfish service the collection is part of. It is used to report
+   *        errors.
+   * @param uri the URI of the collection.
+   * @param jsonBody the UTF-8 JSON of the member to create. This shall not be null.
+   * @return the future completed with the absolute URI of the created member taken from the
+   *         Location header. If the server does not send a Location the future is completed with
+   *         null. If the response is not 201 Created the future completes exceptionally with a
+   *         {@link RedHxHttpResponseException}.
+   */
+  public CompletableFuture<URI> postEntity(final RedHxServerConnectionContext ctx,
+      final RedHxServiceRootIdEum serviceRootId, final URI uri, final byte[] jsonBody) {
+    if (jsonBody == null) {
+      throw new IllegalArgumentException("Argument \"jsonBody\" can not be null.");
+    }
+
+    final HttpPost post = new HttpPost(uri);
+    final ByteArrayEntity entity = new ByteArrayEntity(jsonBody);
+
+    entity.setContentType(MIME_JSON);
+    post.setEntity(entity);
+
+    return send(ctx, post).thenApply(response -> {
+      final int statusCode = response.getStatusLine().getStatusCode();
+      final String location = getHeaderValue(response, HttpHeaders.LOCATION);
+      final URI retVal;
+
+      EntityUtils.consumeQuietly(response.getEntity());
+
+      if (statusCode != HttpURLConnection.HTTP_CREATED) {
+        throw new CompletionException(new RedHxHttpResponseException(serviceRootId, statusCode,
+            "Can not create a member of " + serviceRootId + " " + uri.getPath()));
+      }
+
+      if (location != null) {
+        retVal = uri.resolve(location);
+      } else {
+        retVal = null;
+      }
+
+      return retVal;
+    });
+  }
+
+  /**
+   * get the number of HTTP requests that have been sent and whose response has not been received.
+   *
+   * @return the number of requests waiting for a response, zero when the engine is idle.
+   */
+  public int getInFlightCount() {
+    return inFlightCount.get();
+  }
+
+  /**
+   * get the metrics the requests of this engine are recorded in.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxFetchMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * open a connection to a Redfish server without blocking the calling thread. This reads the
+   * service root the same way as {@link RedHxServerConnectionContext#openConnection()}, if it is
+   * in the {@link RedHxServiceRootCache} the future is already complete when it is returned.
+   *
+   * @param ctx the connection to open.
+   * @return a future completed when the service root has been read, or completed exceptionally
+   *         with a RedHxHttpResponseException or RedHxParseException.
+   */
+  public CompletableFuture<Void> openConnection(final RedHxServerConnectionContext ctx) {
+    if (ctx.openConnectionFromCache()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    final URI uri;
+
+    try {
+      uri = ctx.getServiceRootEntitySetUri();
+    } catch (URISyntaxException ex) {
+      final CompletableFuture<Void> failedFuture = new CompletableFuture<>();
+
+      failedFuture.completeExceptionally(ex);
+
+      return failedFuture;
+    }
+
+    final RedHxServiceRootIdEum serviceRootId = RedHxServiceRootIdEum.REDFISH_SERVICE;
+
+    return execute(ctx, uri, null).thenAcceptAsync(response -> {
+      final byte[] body = readBody(serviceRootId, uri, response);
+
+      try {
+        final long parseStart = System.nanoTime();
+        final ClientEntitySet entitySet = ctx.getClient().getReader()
+            .readEntitySet(new ByteArrayInputStream(body), getContentType(response));
+
+        metrics.recordParse(uri, System.nanoTime() - parseStart);
+        ctx.setServiceRootLocator(entitySet.getEntities());
+      } catch (ODataDeserializerException | URISyntaxException | IllegalArgumentException ex) {
+        throw new CompletionException(new RedHxParseException(serviceRootId,
+            "Can not parse the service root " + uri + ". " + ex.getMessage()));
+      }
+    }, parseExecutor);
+  }
+
+  /**
+   * send the GET. If there is a cached entry its validators are sent so the server can answer 304.
+   */
+  private CompletableFuture<HttpResponse> execute(final RedHxServerConnectionContext ctx,
+      final URI uri, final RedHxConditionalReadCache.Entry cached) {
+    final HttpGet get = new HttpGet(uri);
+
+    get.addHeader(HttpHeaders.ACCEPT_ENCODING, ENCODING_GZIP);
+
+    if (cached != null) {
+      if (cached.getETag() != null) {
+        get.addHeader(HttpHeaders.IF_NONE_MATCH, cached.getETag());
+      }
+
+      if (cached.getLastModified() != null) {
+        get.addHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+      }
+    }
+
+    return send(ctx, get);
+  }
+
+  /**
+   * add the authorization of the context to a request and send it.
+   */
+  private CompletableFuture<HttpResponse> send(final RedHxServerConnectionContext ctx,
+      final HttpUriRequest request) {
+    final CompletableFuture<HttpResponse> responseFuture = new CompletableFuture<>();
+    final String authorization = ctx.getAuthorization();
+
+    if (authorization != null) {
+      request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+    }
+
+    request.addHeader(HttpHeaders.ACCEPT, MIME_JSON);
+    inFlightCount.incrementAndGet();
+
+    final long startTime = System.nanoTime();
+
+    httpClient.execute(request, new FutureCallback<HttpResponse>() {
+
+      @Override
+      public void completed(HttpResponse response) {
+        inFlightCount.decrementAndGet();
+        metrics.recordResponse(request.getURI(), response.getStatusLine().getStatusCode(),
+            System.nanoTime() - startTime);
+        responseFuture.complete(response);
+      }
+
+      @Override
+      public void failed(Exception ex) {
+        inFlightCount.decrementAndGet();
+        metrics.recordFailure(request.getURI(), System.nanoTime() - startTime);
+        responseFuture.completeExceptionally(ex);
+      }
+
+      @Override
+      public void cancelled() {
+        inFlightCount.decrementAndGet();
+        metrics.recordFailure(request.getURI(), System.nanoTime() - startTime);
+        responseFuture.cancel(false);
+      }
+    });
+
+    return responseFuture;
+  }
+
+  /**
+   * validate the HTTP status and parse the body into an entity.
+   */
+  private ClientEntity readEntity(final RedHxServerConnectionContext ctx,
+      final RedHxServiceRootIdEum serviceRootId, final URI uri, final HttpResponse response) {
+    final byte[] body = readBody(serviceRootId, uri, response);
+    final long parseStart = System.nanoTime();
+
+    try {
+      final ClientEntity retVal = ctx.getClient().getReader()
+          .readEntity(new ByteArrayInputStream(body), getContentType(response));
+
+      metrics.recordParse(uri, System.nanoTime() - parseStart);
+
+      return retVal;
+    } catch (ODataDeserializerException | IllegalArgumentException ex) {
+      throw new CompletionException(new RedHxParseException(serviceRootId,
+          "Can not parse " + uri.getPath() + ". " + ex.getMessage()));
+    }
+  }
+
+  /**
+   * validate the HTTP status and parse the body into a document for a streaming reader.
+   */
+  private RedfishJsonDocument readDocument(final RedHxServiceRootIdEum serviceRootId,
+      final URI uri, final HttpResponse response) {
+    final byte[] body = readBody(serviceRootId, uri, response);
+    final long parseStart = System.nanoTime();
+
+    try {
+      final RedfishJsonDocument retVal =
+          RedfishJsonDocument.parse(new ByteArrayInputStream(body));
+
+      metrics.recordParse(uri, System.nanoTime() - parseStart);
+
+      return retVal;
+    } catch (IOException ex) {
+      throw new CompletionException(new RedHxParseException(serviceRootId,
+          "Can not parse " + uri.getPath() + ". " + ex.getMessage()));
+    }
+  }
+
+  /**
+   * validate the HTTP status and get the decoded body of the response.
+   */
+  private byte[] readBody(final RedHxServiceRootIdEum serviceRootId, final URI uri,
+      final HttpResponse response) {
+    final int statusCode = response.getStatusLine().getStatusCode();
+
+    if (statusCode != HttpURLConnection.HTTP_OK) {
+      throw new CompletionException(new RedHxHttpResponseException(serviceRootId, statusCode,
+          "Can not read " + serviceRootId + " " + uri.getPath()));
+    }
+
+    try {
+      final byte[] retVal = EntityUtils.toByteArray(getDecodedEntity(response));
+
+      if (retVal != null) {
+        metrics.recordBytes(uri, retVal.length);
+      }
+
+      return retVal;
+    } catch (IOException | IllegalArgumentException ex) {
+      throw new CompletionException(new RedHxParseException(serviceRootId,
+          "Can not read the body of " + uri.getPath() + ". " + ex.getMessage()));
+    }
+  }
+
+  private static ContentType getContentType(final HttpResponse response) {
+    final Header header = response.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+    final ContentType retVal;
+
+    if (header != null) {
+      retVal = ContentType.parse(header.getValue());
+    } else {
+      retVal = ContentType.JSON;
+    }
+
+    return retVal;
+  }
+
+  private static String getHeaderValue(final HttpResponse response, final String headerName) {
+    final Header header = response.getFirstHeader(headerName);
+    final String retVal;
+
+    if (header != null) {
+      retVal = header.getValue();
+    } else {
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
+  private static HttpEntity getDecodedEntity(final HttpResponse response) {
+    final HttpEntity entity = response.getEntity();
+    final Header encoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+    final HttpEntity retVal;
+
+    if ((encoding != null) && ENCODING_GZIP.equalsIgnoreCase(encoding.getValue())) {
+      retVal = new GzipDecompressingEntity(entity);
+    } else {
+      retVal = entity;
+    }
+
+    return retVal;
+  }
+}
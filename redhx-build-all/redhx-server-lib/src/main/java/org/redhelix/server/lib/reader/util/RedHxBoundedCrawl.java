@@ -0,0 +1,301 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.reader.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.util.RedHxUriPath;
+
+/**
+ * read many resources from one Redfish server at the same time. No more than a fixed number of
+ * reads are in flight to the server, the next path is started as soon as a read completes. A read
+ * that fails or completes with null does not stop the crawl, its error is recorded and the crawl
+ * continues. When the deadline passes the crawl completes with the resources read so far and
+ * every other path is reported with a TimeoutException.
+ *
+ * @param <T> the type of resource read, for example RedHxChassis.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+public final class RedHxBoundedCrawl<T> {
+
+  private static final ScheduledThreadPoolExecutor DEADLINE_TIMER = createDeadlineTimer();
+  private final CompletableFuture<RedHxCrawlResult<List<T>>> crawlFuture;
+  private final Throwable[] errorArray;
+  private final CompletableFuture<?>[] futureArray;
+  private final int maxConcurrent;
+  private final List<RedHxUriPath> pathList;
+  private final Function<RedHxUriPath, CompletableFuture<T>> reader;
+  private final Object[] resultArray;
+  private ScheduledFuture<?> deadlineTask;
+  private boolean isFinished;
+  private boolean isLaunching;
+  private int launchCount;
+  private int nextIndex;
+  private int outstandingCount;
+
+  private RedHxBoundedCrawl(final Collection<RedHxUriPath> pathCollection,
+      final Function<RedHxUriPath, CompletableFuture<T>> reader, final int maxConcurrent) {
+    this.pathList = new ArrayList<>(pathCollection);
+    this.reader = reader;
+    this.maxConcurrent = maxConcurrent;
+    this.resultArray = new Object[pathList.size()];
+    this.errorArray = new Throwable[pathList.size()];
+    this.futureArray = new CompletableFuture<?>[pathList.size()];
+    this.crawlFuture = new CompletableFuture<>();
+  }
+
+  private RedHxBoundedCrawl() {
+    this.pathList = null;
+    this.reader = null;
+    this.maxConcurrent = 0;
+    this.resultArray = null;
+    this.errorArray = null;
+    this.futureArray = null;
+    this.crawlFuture = null;
+  }
+
+  /**
+   * start reading a collection of paths from one Redfish server.
+   *
+   * @param <T> the type of resource read.
+   * @param pathCollection the paths to read. The order of the resources in the result is the order
+   *        of this collection.
+   * @param reader starts the read of a single path. It shall not block.
+   * @param maxConcurrent the maximum number of reads in flight at the same time. This shall be
+   *        greater than zero.
+   * @param deadlineMilliseconds the time from now the whole crawl must complete in. If this is not
+   *        greater than zero there is no deadline.
+   * @return a future completed with the resources read and the errors. It does not complete
+   *         exceptionally.
+   */
+  public static <T> CompletableFuture<RedHxCrawlResult<List<T>>> crawl(
+      final Collection<RedHxUriPath> pathCollection,
+      final Function<RedHxUriPath, CompletableFuture<T>> reader, final int maxConcurrent,
+      final long deadlineMilliseconds) {
+    if (maxConcurrent < 1) {
+      throw new IllegalArgumentException(
+          "Argument \"maxConcurrent\" must be greater than zero, not " + maxConcurrent);
+    }
+
+    final RedHxBoundedCrawl<T> crawl =
+        new RedHxBoundedCrawl<>(pathCollection, reader, maxConcurrent);
+
+    crawl.start(deadlineMilliseconds);
+
+    return crawl.crawlFuture;
+  }
+
+  private static ScheduledThreadPoolExecutor createDeadlineTimer() {
+    final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+      final Thread thread = new Thread(runnable, "RedHx crawl deadline");
+
+      thread.setDaemon(true);
+
+      return thread;
+    });
+
+    timer.setRemoveOnCancelPolicy(true);
+
+    return timer;
+  }
+
+  /**
+   * get the cause of a failed read. The futures returned by the readers wrap their exceptions.
+   */
+  private static Throwable unwrap(final Throwable ex) {
+    final Throwable retVal;
+
+    if ((ex instanceof CompletionException) && (ex.getCause() != null)) {
+      retVal = ex.getCause();
+    } else {
+      retVal = ex;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * called when the deadline passes. Reads in flight are cancelled and paths not read are reported
+   * as timed out.
+   */
+  private void expire() {
+    final List<CompletableFuture<?>> cancelList = new ArrayList<>();
+
+    synchronized (this) {
+      if (isFinished) {
+        return;
+      }
+
+      for (int i = 0; i < pathList.size(); ++i) {
+        if ((resultArray[i] == null) && (errorArray[i] == null)) {
+          errorArray[i] = new TimeoutException(
+              "The crawl deadline passed before " + pathList.get(i).getValue() + " was read.");
+
+          if (futureArray[i] != null) {
+            cancelList.add(futureArray[i]);
+          }
+        }
+      }
+    }
+
+    finish();
+
+    for (CompletableFuture<?> future : cancelList) {
+      future.cancel(false);
+    }
+  }
+
+  /**
+   * complete the crawl future. Only the first call has an effect.
+   */
+  @SuppressWarnings("unchecked")
+  private void finish() {
+    final List<T> list = new ArrayList<>();
+    final Map<RedHxUriPath, Throwable> errorMap = new LinkedHashMap<>();
+
+    synchronized (this) {
+      if (isFinished) {
+        return;
+      }
+
+      isFinished = true;
+
+      if (deadlineTask != null) {
+        deadlineTask.cancel(false);
+      }
+
+      for (int i = 0; i < pathList.size(); ++i) {
+        if (errorArray[i] != null) {
+          errorMap.put(pathList.get(i), errorArray[i]);
+        } else if (resultArray[i] != null) {
+          list.add((T) resultArray[i]);
+        }
+      }
+    }
+
+    crawlFuture.complete(new RedHxCrawlResult<>(list, errorMap));
+  }
+
+  /**
+   * start a number of reads, one for each path that has not been started. Only one thread runs the
+   * loop that starts reads. A call made while the loop is running, for example by a read that was
+   * already complete when it was returned, adds to the count and returns, so the calls do not
+   * recurse on one stack.
+   *
+   * @param count the number of reads to start.
+   */
+  private void launch(final int count) {
+    synchronized (this) {
+      launchCount += count;
+
+      if (isLaunching) {
+        return;
+      }
+
+      isLaunching = true;
+    }
+
+    while (true) {
+      final int index;
+
+      synchronized (this) {
+        if (isFinished || (launchCount == 0) || (nextIndex >= pathList.size())) {
+          launchCount = 0;
+          isLaunching = false;
+
+          return;
+        }
+
+        --launchCount;
+        index = nextIndex++;
+        ++outstandingCount;
+      }
+
+      CompletableFuture<T> future;
+
+      try {
+        future = reader.apply(pathList.get(index));
+      } catch (RuntimeException ex) {
+        future = new CompletableFuture<>();
+        future.completeExceptionally(ex);
+      }
+
+      synchronized (this) {
+        futureArray[index] = future;
+      }
+
+      future.whenComplete((resource, ex) -> onReadComplete(index, resource, ex));
+    }
+  }
+
+  private void onReadComplete(final int index, final T resource, final Throwable ex) {
+    final boolean isCrawlDone;
+
+    synchronized (this) {
+      if (isFinished) {
+        return;
+      }
+
+      if (ex != null) {
+        errorArray[index] = unwrap(ex);
+      } else if (resource == null) {
+        errorArray[index] = new IllegalStateException(
+            "The read of " + pathList.get(index).getValue() + " completed with no resource.");
+      } else {
+        resultArray[index] = resource;
+      }
+
+      futureArray[index] = null;
+      --outstandingCount;
+      isCrawlDone = (outstandingCount == 0) && (nextIndex >= pathList.size());
+    }
+
+    if (isCrawlDone) {
+      finish();
+    } else {
+      launch(1);
+    }
+  }
+
+  private void start(final long deadlineMilliseconds) {
+    if (pathList.isEmpty()) {
+      finish();
+
+      return;
+    }
+
+    if (deadlineMilliseconds > 0) {
+      synchronized (this) {
+        deadlineTask =
+            DEADLINE_TIMER.schedule(this::expire, deadlineMilliseconds, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    launch(Math.min(maxConcurrent, pathList.size()));
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.reader.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.redhelix.core.annotations.Immutable;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.util.RedHxUriPath;
+
+/**
+ * remember the ETag and Last-Modified header of each resource read from one Redfish server, with
+ * the resource that was built from the response. The next read of the resource sends them in an
+ * If-None-Match and If-Modified-Since header. When the server answers 304 Not Modified the
+ * resource built by the previous read is returned, the body is not downloaded or parsed.
+ * <p>
+ * A resource is only cached if the server sent an ETag or Last-Modified header for it. A server
+ * that sends neither is read the same way as if there were no cache.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+public final class RedHxConditionalReadCache {
+
+  private final Map<RedHxUriPath, Entry> entryMap;
+  private final AtomicLong modifiedCount;
+  private final AtomicLong notModifiedCount;
+
+  /**
+   * create an empty cache.
+   */
+  public RedHxConditionalReadCache() {
+    this.entryMap = new ConcurrentHashMap<>();
+    this.modifiedCount = new AtomicLong();
+    this.notModifiedCount = new AtomicLong();
+  }
+
+  /**
+   * remove every resource. The next read of each resource downloads the full body.
+   */
+  public void clear() {
+    entryMap.clear();
+  }
+
+  /**
+   * get the number of reads the server answered with the full resource.
+   *
+   * @return the number of reads.
+   */
+  public long getModifiedCount() {
+    return modifiedCount.get();
+  }
+
+  /**
+   * get the number of reads the server answered with 304 Not Modified.
+   *
+   * @return the number of reads.
+   */
+  public long getNotModifiedCount() {
+    return notModifiedCount.get();
+  }
+
+  /**
+   * remove a single resource. The next read of it downloads the full body.
+   *
+   * @param path the path of the resource. This shall not be null.
+   */
+  public void invalidate(final RedHxUriPath path) {
+    entryMap.remove(path);
+  }
+
+  /**
+   * get the number of resources in the cache.
+   *
+   * @return the number of resources that have an ETag or Last-Modified.
+   */
+  public int size() {
+    return entryMap.size();
+  }
+
+  Entry get(final RedHxUriPath path) {
+    return entryMap.get(path);
+  }
+
+  /**
+   * save the resource built from a full response. If the response had neither validator any
+   * previous entry is removed.
+   */
+  void put(final RedHxUriPath path, final String eTag, final String lastModified,
+      final Object resource) {
+    modifiedCount.incrementAndGet();
+
+    if ((eTag != null) || (lastModified != null)) {
+      entryMap.put(path, new Entry(eTag, lastModified, resource));
+    } else {
+      entryMap.remove(path);
+    }
+  }
+
+  void recordNotModified() {
+    notModifiedCount.incrementAndGet();
+  }
+
+  /**
+   * the validators and the resource of a single path.
+   */
+  @Immutable
+  static final class Entry {
+
+    private final String eTag;
+    private final String lastModified;
+    private final Object resource;
+
+    private Entry(final String eTag, final String lastModified, final Object resource) {
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+      this.resource = resource;
+    }
+
+    private Entry() {
+      this.eTag = null;
+      this.lastModified = null;
+      this.resource = null;
+    }
+
+    String getETag() {
+      return eTag;
+    }
+
+    String getLastModified() {
+      return lastModified;
+    }
+
+    Object getResource() {
+      return resource;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.reader.util;
+
+import java.util.Collections;
+import java.util.Map;
+import org.redhelix.core.annotations.Immutable;
+import org.redhelix.core.util.RedHxUriPath;
+
+/**
+ * the outcome of reading many Redfish resources from one server. A crawl does not stop at the first
+ * resource that can not be read, so the collection holds every resource that was read and the error
+ * map holds the reason each of the others was not.
+ *
+ * @param <C> the type of collection read, for example RedHxChassisCollection.
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@Immutable
+public final class RedHxCrawlResult<C> {
+
+  private final C collection;
+  private final Map<RedHxUriPath, Throwable> errorMap;
+
+  /**
+   * create the result of a crawl.
+   *
+   * @param collection the resources that were read. This shall not be null.
+   * @param errorMap the key is the path that was not read and the value is the reason. A
+   *        RedHxHttpResponseException, RedHxParseException or, if the deadline passed before the
+   *        resource was read, a TimeoutException. This shall not be null.
+   */
+  public RedHxCrawlResult(final C collection, final Map<RedHxUriPath, Throwable> errorMap) {
+    this.collection = collection;
+    this.errorMap = Collections.unmodifiableMap(errorMap);
+  }
+
+  private RedHxCrawlResult() {
+    this.collection = null;
+    this.errorMap = null;
+  }
+
+  /**
+   * get the resources that were read.
+   *
+   * @return A null is not returned.
+   */
+  public C getCollection() {
+    return collection;
+  }
+
+  /**
+   * get the paths that could not be read and the reason for each.
+   *
+   * @return A null is not returned.
+   */
+  public Map<RedHxUriPath, Throwable> getErrorMap() {
+    return errorMap;
+  }
+
+  /**
+   * test if every path in the crawl was read.
+   *
+   * @return true if there are no errors.
+   */
+  public boolean isComplete() {
+    return errorMap.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxCrawlResult{" + "collection=" + collection + ", errorMap=" + errorMap + '}';
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.reader.util;
+
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.redhelix.core.annotations.Immutable;
+
+/**
+ * the outcome of a conditional read of a Redfish resource. Either the server sent the resource,
+ * and the parsed entity and its validators are available, or it answered 304 Not Modified and the
+ * resource built by the previous read is available. When the context parses with
+ * {@link RedHxJsonParseModeEnum#STREAMING} the body is not parsed by Olingo, the parsed document
+ * or the raw body is available instead of the entity.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@Immutable
+public final class RedHxFetchedEntity {
+
+  private final byte[] body;
+  private final RedfishJsonDocument document;
+  private final ClientEntity entity;
+  private final String eTag;
+  private final boolean isNotModified;
+  private final String lastModified;
+  private final Object notModifiedResource;
+
+  RedHxFetchedEntity(final ClientEntity entity, final String eTag, final String lastModified) {
+    this.body = null;
+    this.document = null;
+    this.entity = entity;
+    this.eTag = eTag;
+    this.isNotModified = false;
+    this.lastModified = lastModified;
+    this.notModifiedResource = null;
+  }
+
+  RedHxFetchedEntity(final byte[] body, final String eTag, final String lastModified) {
+    this.body = body;
+    this.document = null;
+    this.entity = null;
+    this.eTag = eTag;
+    this.isNotModified = false;
+    this.lastModified = lastModified;
+    this.notModifiedResource = null;
+  }
+
+  RedHxFetchedEntity(final RedfishJsonDocument document, final String eTag,
+      final String lastModified) {
+    this.body = null;
+    this.document = document;
+    this.entity = null;
+    this.eTag = eTag;
+    this.isNotModified = false;
+    this.lastModified = lastModified;
+    this.notModifiedResource = null;
+  }
+
+  RedHxFetchedEntity(final Object notModifiedResource) {
+    this.body = null;
+    this.document = null;
+    this.entity = null;
+    this.eTag = null;
+    this.isNotModified = true;
+    this.lastModified = null;
+    this.notModifiedResource = notModifiedResource;
+  }
+
+  private RedHxFetchedEntity() {
+    this.body = null;
+    this.document = null;
+    this.entity = null;
+    this.eTag = null;
+    this.isNotModified = false;
+    this.lastModified = null;
+    this.notModifiedResource = null;
+  }
+
+  /**
+   * get the parsed response.
+   *
+   * @return null if the resource was not modified or the body was not parsed by Olingo.
+   */
+  public ClientEntity getEntity() {
+    return entity;
+  }
+
+  /**
+   * get the ETag header of the response.
+   *
+   * @return null if the server did not send one or the resource was not modified.
+   */
+  public String getETag() {
+    return eTag;
+  }
+
+  /**
+   * get the Last-Modified header of the response.
+   *
+   * @return null if the server did not send one or the resource was not modified.
+   */
+  public String getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * test if the server answered 304 Not Modified.
+   *
+   * @return true if the resource of the previous read is returned instead of a body.
+   */
+  public boolean isNotModified() {
+    return isNotModified;
+  }
+
+  /**
+   * get the raw body. The array is not copied and shall not be changed.
+   */
+  byte[] getBody() {
+    return body;
+  }
+
+  /**
+   * get the body parsed for a streaming reader.
+   */
+  RedfishJsonDocument getDocument() {
+    return document;
+  }
+
+  Object getNotModifiedResource() {
+    return notModifiedResource;
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.reader.util;
+
+/**
+ * how the readers parse the JSON body of a Redfish resource.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+public enum RedHxJsonParseModeEnum {
+  /**
+   * the body is read by Olingo into a ClientEntity and the properties are read from the entity.
+   */
+  ENTITY_TREE("Olingo builds a ClientEntity from the body."),
+
+  /**
+   * the body is read in a single pass with a Jackson streaming parser. Only the properties the
+   * readers use are kept, nested values they do not use are skipped without being built.
+   */
+  STREAMING("The body is read in a single pass.");
+
+  private final String desc;
+
+  private RedHxJsonParseModeEnum(String desc) {
+    this.desc = desc;
+  }
+
+  public String getDescription() {
+    return desc;
+  }
+}
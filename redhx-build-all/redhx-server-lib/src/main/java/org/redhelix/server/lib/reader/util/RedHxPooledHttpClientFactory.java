@@ -0,0 +1,289 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.reader.util;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLContexts;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.olingo.client.api.http.HttpClientFactory;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.redhelix.core.annotations.ThreadSafe;
+
+/**
+ * the HTTP transport shared by every RedHxServerConnectionContext in the process. Olingo's default
+ * factory creates a new HttpClient, and so a new TCP connection and TLS handshake, for every
+ * request. This factory hands out one client backed by a connection pool, so a connection to a
+ * Redfish server is kept open and reused by the next request to the same server.
+ * <p>
+ * The number of connections to a single server is limited, a BMC has few HTTP worker threads and
+ * a poll of the fleet shall not starve it. Connections are kept alive for the time the server
+ * advertises in its Keep-Alive header, or the default keep alive time if it does not advertise
+ * one, and a background thread closes connections that have been idle too long. Every TLS
+ * connection is created from one SSLContext, so a reconnect to a server resumes the cached TLS
+ * session instead of performing a full handshake.
+ * <p>
+ * The response body is read into memory before the response is returned to Olingo. Redfish
+ * resources are small and reading the body returns the connection to the pool at once, even if
+ * the caller never reads or closes the response.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+public final class RedHxPooledHttpClientFactory implements HttpClientFactory {
+
+  /**
+   * the default time in milliseconds an idle connection is kept open when the server does not
+   * advertise a keep alive time.
+   */
+  public static final long DEFAULT_KEEP_ALIVE_MILLISECONDS = 30000;
+  public static final int DEFAULT_MAX_CONNECTION_PER_HOST = 4;
+  public static final int DEFAULT_MAX_CONNECTION_TOTAL = 4096;
+  public static final int DEFAULT_TIMEOUT_MILLISECONDS = 30000;
+
+  /**
+   * the number of TLS sessions cached for resumption. One per server in a large fleet.
+   */
+  public static final int TLS_SESSION_CACHE_SIZE = 20000;
+
+  /**
+   * the time in seconds a cached TLS session may be resumed.
+   */
+  public static final int TLS_SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+  private static final long EVICTION_PERIOD_MILLISECONDS = 5000;
+  private static final SSLContext SHARED_SSL_CONTEXT = createSslContext();
+  private static volatile RedHxPooledHttpClientFactory instance;
+  private final PoolingHttpClientConnectionManager connectionManager;
+  private final ScheduledExecutorService evictionThread;
+  private final HttpClient httpClient;
+  private final long keepAliveMilliseconds;
+
+  /**
+   * create a transport with its own connection pool.
+   *
+   * @param maxConnectionTotal the maximum number of open connections to all servers.
+   * @param maxConnectionPerHost the maximum number of open connections to a single server.
+   * @param keepAliveMilliseconds the time an idle connection is kept open when the server does
+   *        not advertise a keep alive time. It is also the longest time a connection may be idle
+   *        before the eviction thread closes it.
+   * @param timeoutMilliseconds the connect and socket read timeout. It is also the longest time a
+   *        request waits for a connection from the pool.
+   */
+  public RedHxPooledHttpClientFactory(final int maxConnectionTotal, final int maxConnectionPerHost,
+      final long keepAliveMilliseconds, final int timeoutMilliseconds) {
+    final Registry<ConnectionSocketFactory> socketFactoryRegistry =
+        RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", new SSLConnectionSocketFactory(SHARED_SSL_CONTEXT,
+                SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER))
+            .build();
+    final RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(timeoutMilliseconds).setSocketTimeout(timeoutMilliseconds)
+        .setConnectionRequestTimeout(timeoutMilliseconds).build();
+
+    this.keepAliveMilliseconds = keepAliveMilliseconds;
+    this.connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+    this.connectionManager.setMaxTotal(maxConnectionTotal);
+    this.connectionManager.setDefaultMaxPerRoute(maxConnectionPerHost);
+    this.httpClient = HttpClients.custom().setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .setKeepAliveStrategy(createKeepAliveStrategy(keepAliveMilliseconds))
+        .addInterceptorLast(new BufferEntityInterceptor()).build();
+    this.evictionThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "RedHx idle connection eviction");
+
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    this.evictionThread.scheduleWithFixedDelay(this::evictIdleConnections,
+        EVICTION_PERIOD_MILLISECONDS, EVICTION_PERIOD_MILLISECONDS, TimeUnit.MILLISECONDS);
+  }
+
+  private RedHxPooledHttpClientFactory() {
+    this.connectionManager = null;
+    this.evictionThread = null;
+    this.httpClient = null;
+    this.keepAliveMilliseconds = 0;
+  }
+
+  /**
+   * get the transport used by every RedHxServerConnectionContext. It is created with the default
+   * limits the first time it is requested.
+   *
+   * @return A null is not returned.
+   */
+  public static RedHxPooledHttpClientFactory getInstance() {
+    RedHxPooledHttpClientFactory retVal = instance;
+
+    if (retVal == null) {
+      synchronized (RedHxPooledHttpClientFactory.class) {
+        retVal = instance;
+
+        if (retVal == null) {
+          retVal = new RedHxPooledHttpClientFactory(DEFAULT_MAX_CONNECTION_TOTAL,
+              DEFAULT_MAX_CONNECTION_PER_HOST, DEFAULT_KEEP_ALIVE_MILLISECONDS,
+              DEFAULT_TIMEOUT_MILLISECONDS);
+          instance = retVal;
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * replace the transport used by RedHxServerConnectionContext objects created after this call.
+   * The previous transport is not shut down, contexts created before this call still use it.
+   *
+   * @param factory the new transport. This shall not be null.
+   */
+  public static void setInstance(final RedHxPooledHttpClientFactory factory) {
+    if (factory == null) {
+      throw new IllegalArgumentException("Argument \"factory\" can not be null.");
+    }
+
+    synchronized (RedHxPooledHttpClientFactory.class) {
+      instance = factory;
+    }
+  }
+
+  /**
+   * get the SSLContext every pooled TLS connection is created from. A transport that uses it
+   * shares the TLS session cache, so a session negotiated by one transport is resumed by another.
+   *
+   * @return A null is not returned.
+   */
+  public static SSLContext getSharedSslContext() {
+    return SHARED_SSL_CONTEXT;
+  }
+
+  /**
+   * use the server's Keep-Alive timeout when it sends one, otherwise the default. A server that
+   * never advertises a timeout would otherwise have its connections kept open forever.
+   */
+  private static ConnectionKeepAliveStrategy createKeepAliveStrategy(
+      final long keepAliveMilliseconds) {
+    return (response, context) -> {
+      final long serverMilliseconds =
+          DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+      final long retVal;
+
+      if (serverMilliseconds > 0) {
+        retVal = Math.min(serverMilliseconds, keepAliveMilliseconds);
+      } else {
+        retVal = keepAliveMilliseconds;
+      }
+
+      return retVal;
+    };
+  }
+
+  private static SSLContext createSslContext() {
+    final SSLContext retVal = SSLContexts.createDefault();
+
+    retVal.getClientSessionContext().setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+    retVal.getClientSessionContext().setSessionTimeout(TLS_SESSION_TIMEOUT_SECONDS);
+
+    return retVal;
+  }
+
+  /**
+   * get the largest number of connections open to a single server.
+   *
+   * @return the per server limit this transport was created with.
+   */
+  public int getMaxConnectionPerHost() {
+    return connectionManager.getDefaultMaxPerRoute();
+  }
+
+  /**
+   * the shared client is not closed. Olingo calls this after every request.
+   */
+  @Override
+  public void close(final HttpClient client) {
+    // the connection was returned to the pool when the response body was read.
+  }
+
+  /**
+   * get the shared client. The same client is returned for every method and URI.
+   */
+  @Override
+  public HttpClient create(final HttpMethod method, final URI uri) {
+    return httpClient;
+  }
+
+  /**
+   * get the number of connections leased, idle and waited for across every server.
+   *
+   * @return A null is not returned.
+   */
+  public PoolStats getPoolStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  /**
+   * close every connection and stop the eviction thread. Requests made after this call fail.
+   */
+  public void shutdown() {
+    evictionThread.shutdownNow();
+    connectionManager.shutdown();
+  }
+
+  private void evictIdleConnections() {
+    connectionManager.closeExpiredConnections();
+    connectionManager.closeIdleConnections(keepAliveMilliseconds, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * read the response body into memory before the response is handed to Olingo. Reading the body
+   * to its end returns the connection to the pool.
+   */
+  @ThreadSafe
+  private static final class BufferEntityInterceptor implements HttpResponseInterceptor {
+
+    @Override
+    public void process(final HttpResponse response, final HttpContext context)
+        throws HttpException, IOException {
+      final HttpEntity entity = response.getEntity();
+
+      if (entity != null) {
+        response.setEntity(new BufferedHttpEntity(entity));
+      }
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.reader.util;
+
+/**
+ * how the blocking readers read a collection of Redfish resources.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+public enum RedHxReadExecutionModeEnum {
+  /**
+   * every resource is read one after the other on the thread that called the reader.
+   */
+  CALLING_THREAD("Each read runs on the calling thread."),
+
+  /**
+   * every resource is read on its own thread of a {@link RedHxReadExecutor}. The thread is a
+   * virtual thread when the JVM supports them.
+   */
+  THREAD_PER_READ("Each read runs on its own thread.");
+
+  private final String desc;
+
+  private RedHxReadExecutionModeEnum(String desc) {
+    this.desc = desc;
+  }
+
+  public String getDescription() {
+    return desc;
+  }
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.reader.util;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.util.RedHxHttpResponseException;
+import org.redhelix.core.util.RedHxParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * run each blocking Redfish read on its own thread so the synchronous readers can have many reads
+ * in flight. When the JVM supports virtual threads (Java 21 and later) each read runs on a new
+ * virtual thread, otherwise the reads run on a pool of daemon platform threads.
+ * <p>
+ * The number of reads running at the same time is capped for the whole JVM and for each Redfish
+ * server. A read waits for a permit before its thread is started so the caps also bound the number
+ * of threads.
+ * </p>
+ * <p>
+ * A virtual thread that blocks while it holds a monitor pins its carrier thread. When the JVM
+ * supports it the executor counts the JFR jdk.VirtualThreadPinned events so the cost of the
+ * blocking Olingo calls can be watched, see {@link #getPinnedEventCount()}.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+public final class RedHxReadExecutor implements Closeable {
+
+  /**
+   * the default maximum number of reads running at the same time in the JVM. It bounds the
+   * number of read threads, and so the memory of their stacks, when a large fleet is polled.
+   */
+  public static final int DEFAULT_MAX_READS_GLOBAL = 10000;
+
+  /**
+   * the default maximum number of reads running at the same time to one Redfish server. It
+   * matches the default connection limit of RedHxPooledHttpClientFactory, a BMC has few HTTP
+   * worker threads.
+   */
+  public static final int DEFAULT_MAX_READS_PER_HOST = 4;
+  private static final String JFR_PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final String THREAD_NAME = "RedHx read";
+  private final AtomicInteger activeReadCount;
+  private final AtomicLong completedReadCount;
+  private final ConcurrentMap<String, Semaphore> hostPermitMap;
+  private final Semaphore globalPermits;
+  private final boolean isVirtual;
+  private final Logger logger;
+  private final int maxReadsPerHost;
+  private final AtomicLong permitWaitCount;
+  private final AtomicLong pinnedEventCount;
+  private final Closeable pinnedEventStream;
+  private final ExecutorService platformPool;
+  private final ThreadFactory threadFactory;
+
+  /**
+   * create an executor with the default caps.
+   */
+  public RedHxReadExecutor() {
+    this(DEFAULT_MAX_READS_GLOBAL, DEFAULT_MAX_READS_PER_HOST);
+  }
+
+  /**
+   * create an executor.
+   *
+   * @param maxReadsGlobal the maximum number of reads running at the same time in the JVM.
+   * @param maxReadsPerHost the maximum number of reads running at the same time to one Redfish
+   *        server.
+   */
+  public RedHxReadExecutor(final int maxReadsGlobal, final int maxReadsPerHost) {
+    if ((maxReadsGlobal < 1) || (maxReadsPerHost < 1)) {
+      throw new IllegalArgumentException("The read caps must be greater than zero.");
+    }
+
+    this.logger = LoggerFactory.getLogger(RedHxReadExecutor.class);
+    this.activeReadCount = new AtomicInteger();
+    this.completedReadCount = new AtomicLong();
+    this.permitWaitCount = new AtomicLong();
+    this.pinnedEventCount = new AtomicLong();
+    this.hostPermitMap = new ConcurrentHashMap<>();
+    this.globalPermits = new Semaphore(maxReadsGlobal);
+    this.maxReadsPerHost = maxReadsPerHost;
+
+    final ThreadFactory virtualFactory = createVirtualThreadFactory();
+
+    if (virtualFactory != null) {
+      this.isVirtual = true;
+      this.threadFactory = virtualFactory;
+      this.platformPool = null;
+      this.pinnedEventStream = startPinnedEventStream();
+    } else {
+      this.isVirtual = false;
+      this.threadFactory = runnable -> {
+        final Thread thread = new Thread(runnable, THREAD_NAME);
+
+        thread.setDaemon(true);
+
+        return thread;
+      };
+      /*
+       * the global permits bound the reads, not the pool. A read releases its permit just before
+       * its thread returns to the pool, a pool bounded to the same size would reject the next read
+       * that takes the permit while no thread is idle yet.
+       */
+      this.platformPool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+          new SynchronousQueue<>(), threadFactory);
+      this.pinnedEventStream = null;
+    }
+  }
+
+  /**
+   * wait for a read started by {@link #submit} and get its result. The checked exceptions thrown by
+   * the read are thrown by this method.
+   *
+   * @param <T> the type of resource read.
+   * @param future the read.
+   * @return the resource.
+   * @throws RedHxHttpResponseException if the read was answered with an HTTP error.
+   * @throws URISyntaxException if the read built an invalid URI.
+   * @throws RedHxParseException if the resource read could not be parsed.
+   */
+  public static <T> T awaitRead(final CompletableFuture<T> future)
+      throws RedHxHttpResponseException, URISyntaxException, RedHxParseException {
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+
+      throw new IllegalStateException("Interrupted while waiting for a Redfish read.", ex);
+    } catch (ExecutionException ex) {
+      final Throwable cause = ex.getCause();
+
+      if (cause instanceof RedHxHttpResponseException) {
+        throw (RedHxHttpResponseException) cause;
+      } else if (cause instanceof URISyntaxException) {
+        throw (URISyntaxException) cause;
+      } else if (cause instanceof RedHxParseException) {
+        throw (RedHxParseException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * cancel the reads that have not completed. A caller that stops waiting for its reads, for
+   * example because one of them failed, calls this so a read that has not started yet is not sent
+   * and the result of a read still running is discarded.
+   *
+   * @param futureList the reads started by {@link #submit}.
+   */
+  public static void cancelReads(final Collection<? extends Future<?>> futureList) {
+    for (Future<?> future : futureList) {
+      future.cancel(false);
+    }
+  }
+
+  /**
+   * stop the JFR event stream and the platform threads. Reads that are running complete.
+   */
+  @Override
+  public void close() {
+    if (platformPool != null) {
+      platformPool.shutdown();
+    }
+
+    if (pinnedEventStream != null) {
+      try {
+        pinnedEventStream.close();
+      } catch (Exception ex) {
+        logger.debug("Can not close the JFR event stream. " + ex);
+      }
+    }
+  }
+
+  /**
+   * get the number of reads running.
+   *
+   * @return a value from zero up to the maximum number of reads in the JVM.
+   */
+  public int getActiveReadCount() {
+    return activeReadCount.get();
+  }
+
+  /**
+   * get the number of reads that have completed.
+   *
+   * @return the number of reads that returned or failed since the executor was created.
+   */
+  public long getCompletedReadCount() {
+    return completedReadCount.get();
+  }
+
+  /**
+   * get the number of reads that had to wait for a permit because a cap had been reached.
+   *
+   * @return the number of waits since the executor was created. A read may wait for both caps.
+   */
+  public long getPermitWaitCount() {
+    return permitWaitCount.get();
+  }
+
+  /**
+   * get the number of times a virtual thread pinned its carrier thread for longer than the JFR
+   * threshold, 20 milliseconds by default.
+   *
+   * @return the count. It is always zero when the JVM does not support virtual threads.
+   */
+  public long getPinnedEventCount() {
+    return pinnedEventCount.get();
+  }
+
+  /**
+   * test if the reads run on virtual threads.
+   *
+   * @return false if the JVM does not support virtual threads and platform threads are used.
+   */
+  public boolean isVirtualThreadSupported() {
+    return isVirtual;
+  }
+
+  /**
+   * run a blocking read on its own thread. The calling thread waits until a permit is available for
+   * the JVM and for the Redfish server. A read whose future is cancelled before its thread starts
+   * is not run.
+   *
+   * @param <T> the type of resource read.
+   * @param ctx the Redfish server the read is sent to.
+   * @param read the read.
+   * @return a future completed with the result of the read.
+   */
+  public <T> CompletableFuture<T> submit(final RedHxServerConnectionContext ctx,
+      final Callable<T> read) {
+    final Semaphore hostPermits = hostPermitMap.computeIfAbsent(
+        ctx.getHostName() + ":" + ctx.getTcpPortNumber(),
+        key -> new Semaphore(maxReadsPerHost));
+
+    acquire(hostPermits);
+    acquire(globalPermits);
+
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    final Runnable task = () -> {
+      T resource = null;
+      Throwable failure = null;
+
+      activeReadCount.incrementAndGet();
+
+      try {
+        if (!future.isDone()) {
+          resource = read.call();
+        }
+      } catch (Exception | Error ex) {
+        failure = ex;
+      } finally {
+        activeReadCount.decrementAndGet();
+        completedReadCount.incrementAndGet();
+        globalPermits.release();
+        hostPermits.release();
+      }
+
+      if (failure != null) {
+        future.completeExceptionally(failure);
+      } else {
+        future.complete(resource);
+      }
+    };
+
+    try {
+      if (platformPool != null) {
+        platformPool.execute(task);
+      } else {
+        threadFactory.newThread(task).start();
+      }
+    } catch (RuntimeException ex) {
+      globalPermits.release();
+      hostPermits.release();
+      future.completeExceptionally(ex);
+    }
+
+    return future;
+  }
+
+  private void acquire(final Semaphore permits) {
+    if (!permits.tryAcquire()) {
+      permitWaitCount.incrementAndGet();
+      permits.acquireUninterruptibly();
+    }
+  }
+
+  /**
+   * get a factory for virtual threads. Thread.ofVirtual() is called with reflection so this class
+   * still compiles and runs on Java 8.
+   *
+   * @return null if the JVM does not support virtual threads.
+   */
+  private ThreadFactory createVirtualThreadFactory() {
+    ThreadFactory retVal;
+
+    try {
+      final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      final Object builder = ofVirtual.invoke(null);
+      final Class<?> builderClass = ofVirtual.getReturnType();
+      final Object namedBuilder = builderClass.getMethod("name", String.class, long.class)
+          .invoke(builder, THREAD_NAME + "-", 0L);
+      final Method factory = builderClass.getMethod("factory");
+
+      retVal = (ThreadFactory) factory.invoke(namedBuilder);
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      logger.debug("Virtual threads are not supported, platform threads are used. " + ex);
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * start a JFR stream that counts the pinned virtual thread events. jdk.jfr.consumer is called
+   * with reflection so this class still compiles and runs on Java 8.
+   *
+   * @return the stream to close or null if it could not be started.
+   */
+  private Closeable startPinnedEventStream() {
+    Closeable retVal;
+
+    try {
+      final Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+      final Object stream = streamClass.getConstructor().newInstance();
+      final Consumer<Object> counter = event -> pinnedEventCount.incrementAndGet();
+
+      streamClass.getMethod("enable", String.class).invoke(stream, JFR_PINNED_EVENT);
+      streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream,
+          JFR_PINNED_EVENT, counter);
+      streamClass.getMethod("startAsync").invoke(stream);
+      retVal = (Closeable) stream;
+    } catch (Exception ex) {
+      logger.debug("Can not count pinned virtual threads. " + ex);
+      retVal = null;
+    }
+
+    return retVal;
+  }
+}
@@ -15,6 +15,7 @@ package org.redhelix.server.lib.reader.util;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.List;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.communication.request.retrieve.ODataEntityRequest;
@@ -45,13 +46,17 @@ import org.redhelix.core.util.RedHxUriPath;
 public final class RedHxServerConnectionContext {
 
   private final ODataClient client;
+  private final RedHxConditionalReadCache conditionalReadCache;
   private final String hostName;
   private final RedHxTcpProtocolTypeEnum httpProtocol;
   private final String password;
   private final RedHxRedfishProtocolVersionEnum redfishProtocolVersion;
   private final int tcpPortNumber;
   private final String userName;
-  private RedHxServiceRootLocator serviceRootLocator;
+  private volatile boolean isServiceRootStale;
+  private volatile RedHxJsonParseModeEnum parseMode;
+  private volatile RedHxReadExecutor readExecutor;
+  private volatile RedHxServiceRootLocator serviceRootLocator;
 
   /**
    * Create the context for the connection to the Redfish server with basic HTTP authentication.
@@ -81,6 +86,10 @@ public final class RedHxServerConnectionContext {
     //
     this.client = ODataClientFactory.getClient();
     this.client.getConfiguration().setDefaultPubFormat(ContentType.JSON_NO_METADATA);
+    this.client.getConfiguration()
+        .setHttpClientFactory(RedHxPooledHttpClientFactory.getInstance());
+    this.conditionalReadCache = new RedHxConditionalReadCache();
+    this.parseMode = RedHxJsonParseModeEnum.ENTITY_TREE;
   }
 
   /**
@@ -105,6 +114,10 @@ public final class RedHxServerConnectionContext {
     //
     this.client = ODataClientFactory.getClient();
     this.client.getConfiguration().setDefaultPubFormat(ContentType.JSON_NO_METADATA);
+    this.client.getConfiguration()
+        .setHttpClientFactory(RedHxPooledHttpClientFactory.getInstance());
+    this.conditionalReadCache = new RedHxConditionalReadCache();
+    this.parseMode = RedHxJsonParseModeEnum.ENTITY_TREE;
   }
 
   private RedHxServerConnectionContext() {
@@ -117,7 +130,11 @@ public final class RedHxServerConnectionContext {
 
     //
     this.client = null;
+    this.conditionalReadCache = null;
+    this.parseMode = null;
+    this.readExecutor = null;
     this.serviceRootLocator = null;
+    this.isServiceRootStale = false;
   }
 
   /**
@@ -127,7 +144,7 @@ public final class RedHxServerConnectionContext {
    * @return
    */
   public ODataEntityRequest<ClientEntity> getChassisEntityRequest() {
-    URI chassisUri = serviceRootLocator.getUri(RedHxServiceRootIdEum.CHASSIS);
+    URI chassisUri = getServiceUri(RedHxServiceRootIdEum.CHASSIS);
     ODataEntityRequest<ClientEntity> req =
         client.getRetrieveRequestFactory().getEntityRequest(chassisUri);
 
@@ -148,7 +165,7 @@ public final class RedHxServerConnectionContext {
    */
   public ODataEntityRequest<ClientEntity> getEntityRequest(RedHxUriPath pathToResource)
       throws URISyntaxException {
-    URI myUri = serviceRootLocator.getUri(pathToResource.getValue());
+    URI myUri = getResourceUri(pathToResource);
     ODataEntityRequest<ClientEntity> req =
         client.getRetrieveRequestFactory().getEntityRequest(myUri);
 
@@ -159,10 +176,145 @@ public final class RedHxServerConnectionContext {
     return req;
   }
 
+  /**
+   * get the ETag and Last-Modified of each resource read from this Redfish server. The readers use
+   * them to send conditional requests.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxConditionalReadCache getConditionalReadCache() {
+    return conditionalReadCache;
+  }
+
+  /**
+   * get how the blocking readers read a collection of resources from this Redfish server.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxReadExecutionModeEnum getExecutionMode() {
+    final RedHxReadExecutionModeEnum retVal;
+
+    if (readExecutor != null) {
+      retVal = RedHxReadExecutionModeEnum.THREAD_PER_READ;
+    } else {
+      retVal = RedHxReadExecutionModeEnum.CALLING_THREAD;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get how the readers parse the JSON body of a chassis or computer system.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxJsonParseModeEnum getParseMode() {
+    return parseMode;
+  }
+
+  /**
+   * get the executor the blocking readers run each read on.
+   *
+   * @return null if each read runs on the calling thread.
+   */
+  public RedHxReadExecutor getReadExecutor() {
+    return readExecutor;
+  }
+
   public RedHxRedfishProtocolVersionEnum getRedfishProtocolVersion() {
     return redfishProtocolVersion;
   }
 
+  /**
+   * get the name of the host the Redfish server runs on.
+   *
+   * @return
+   */
+  public String getHostName() {
+    return hostName;
+  }
+
+  /**
+   * get the TCP port number of the Redfish server.
+   *
+   * @return
+   */
+  public int getTcpPortNumber() {
+    return tcpPortNumber;
+  }
+
+  /**
+   * test if the service root has been read by {@link #openConnection()} or by
+   * {@link RedHxAsyncFetchEngine#openConnection(RedHxServerConnectionContext)}.
+   *
+   * @return true if the connection is open.
+   */
+  public boolean isConnectionOpen() {
+    return (serviceRootLocator != null) && !isServiceRootStale;
+  }
+
+  /**
+   * remove the service root of this Redfish server from the {@link RedHxServiceRootCache}. This is
+   * called when the server answers 404 Not Found for one of the service URIs, for example after a
+   * firmware update moved them. The context keeps using its locator for the resource paths it
+   * already knows but {@link #isConnectionOpen()} is false until the connection is opened again,
+   * which reads the service root from the server.
+   */
+  public void invalidateServiceRoot() {
+    RedHxServiceRootCache.getInstance().invalidate(httpProtocol, hostName, tcpPortNumber,
+        RedHxRedfishProtocolVersionEnum.VERSION_1);
+    isServiceRootStale = true;
+  }
+
+  /**
+   * get the absolute URI of a Redfish resource on this server. The connection must have been opened
+   * before this is called.
+   *
+   * @param pathToResource the path of the resource, for example /redfish/v1/Chassis/1
+   * @return the URI to the resource. A null is not returned.
+   * @throws URISyntaxException
+   */
+  public URI getResourceUri(RedHxUriPath pathToResource) throws URISyntaxException {
+    return serviceRootLocator.getUri(pathToResource.getValue());
+  }
+
+  /**
+   * get the absolute URI of one of the Redfish services listed in the service root. The connection
+   * must have been opened before this is called.
+   *
+   * @param serviceId the service.
+   * @return the URI or null if the Redfish server does not provide the service.
+   */
+  public URI getServiceUri(RedHxServiceRootIdEum serviceId) {
+    return serviceRootLocator.getUri(serviceId);
+  }
+
+  /**
+   * get the value of the HTTP Authorization header sent with every request.
+   *
+   * @return the header value or null if the context was created without basic authentication.
+   */
+  String getAuthorization() {
+    final String retVal;
+
+    if (userName != null) {
+      retVal = "Basic " + new String(Base64.encodeBase64((userName + ":" + password).getBytes()));
+    } else {
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the OData client. It is used to deserialize responses read outside of Olingo.
+   *
+   * @return
+   */
+  ODataClient getClient() {
+    return client;
+  }
+
   /**
    * open a connection to a Redfish server. The Redfish specification does not require HTTP
    * authentication or authorization when it is created so that the top level services, Chassis,
@@ -174,6 +326,97 @@ public final class RedHxServerConnectionContext {
   public void openConnection() throws URISyntaxException, RedHxHttpResponseException {
     serviceRootLocator = ServiceRootReader.getServiceRootLocator(client, httpProtocol, hostName,
         tcpPortNumber, RedHxRedfishProtocolVersionEnum.VERSION_1);
+    isServiceRootStale = false;
+  }
+
+  /**
+   * set how the readers parse the JSON body of a chassis or computer system. The default is
+   * {@link RedHxJsonParseModeEnum#ENTITY_TREE}.
+   *
+   * @param parseMode the parse mode. This shall not be null.
+   */
+  public void setParseMode(RedHxJsonParseModeEnum parseMode) {
+    if (parseMode == null) {
+      throw new IllegalArgumentException("Argument \"parseMode\" can not be null.");
+    }
+
+    this.parseMode = parseMode;
+  }
+
+  /**
+   * set the execution mode of the blocking readers. With an executor every chassis and computer
+   * system in a collection is read on its own thread, see {@link RedHxReadExecutor}. The executor is
+   * usually shared by every context in the JVM so its caps apply to the whole fleet.
+   *
+   * @param readExecutor the executor or null to read on the calling thread.
+   */
+  public void setReadExecutor(RedHxReadExecutor readExecutor) {
+    this.readExecutor = readExecutor;
+  }
+
+  /**
+   * get the URI of the entity set read when the connection is opened.
+   *
+   * @return
+   * @throws URISyntaxException
+   */
+  URI getServiceRootEntitySetUri() throws URISyntaxException {
+    return ServiceRootReader.getServiceRootEntitySetUri(client, httpProtocol, hostName,
+        tcpPortNumber, RedHxRedfishProtocolVersionEnum.VERSION_1);
+  }
+
+  /**
+   * set the locator from a service root that was read outside of {@link #openConnection()}.
+   *
+   * @param serviceRootEntityList the entities in the service root entity set.
+   * @throws URISyntaxException
+   */
+  void setServiceRootLocator(List<ClientEntity> serviceRootEntityList) throws URISyntaxException {
+    serviceRootLocator = RedHxServiceRootCache.getInstance().put(httpProtocol, hostName,
+        tcpPortNumber, RedHxRedfishProtocolVersionEnum.VERSION_1, ServiceRootReader
+            .createServiceUriMap(serviceRootEntityList, httpProtocol, hostName, tcpPortNumber));
+    isServiceRootStale = false;
+  }
+
+  /**
+   * set the locator from the {@link RedHxServiceRootCache}.
+   *
+   * @return false if the service root of this server is not cached.
+   */
+  boolean openConnectionFromCache() {
+    final RedHxServiceRootLocator locator = RedHxServiceRootCache.getInstance().get(httpProtocol,
+        hostName, tcpPortNumber, RedHxRedfishProtocolVersionEnum.VERSION_1);
+    final boolean retVal;
+
+    if (locator != null) {
+      serviceRootLocator = locator;
+      isServiceRootStale = false;
+      retVal = true;
+    } else {
+      retVal = false;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * called when the server answered 404 Not Found for a URI. If the URI is one of the services in
+   * the service root the service root is invalidated.
+   *
+   * @param uri the URI that was not found.
+   */
+  void reportNotFound(URI uri) {
+    final RedHxServiceRootLocator locator = serviceRootLocator;
+
+    if (locator != null) {
+      for (RedHxServiceRootIdEum serviceId : RedHxServiceRootIdEum.values()) {
+        if (uri.equals(locator.getUri(serviceId))) {
+          invalidateServiceRoot();
+
+          break;
+        }
+      }
+    }
   }
 
   /**
@@ -183,10 +426,7 @@ public final class RedHxServerConnectionContext {
    * @return
    */
   private ODataEntityRequest<ClientEntity> setServerAuth(ODataEntityRequest<ClientEntity> req) {
-    String authorization = "Basic ";
-
-    authorization += new String(Base64.encodeBase64((userName + ":" + password).getBytes()));
-    req.addCustomHeader("Authorization", authorization);
+    req.addCustomHeader("Authorization", getAuthorization());
 
     return req;
   }
@@ -0,0 +1,358 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.reader.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.redhelix.core.annotations.Immutable;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.service.root.RedHxServiceRootIdEum;
+import org.redhelix.core.service.root.RedHxServiceRootLocator;
+import org.redhelix.core.service.root.RedHxTcpProtocolTypeEnum;
+import org.redhelix.core.util.RedHxRedfishProtocolVersionEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * the service roots read from every Redfish server in the process. A service root practically
+ * never changes, so once it has been read {@link RedHxServerConnectionContext#openConnection()}
+ * uses the cached locator instead of reading /redfish/v1/odata again.
+ * <p>
+ * An entry is used for the time to live after it was read. An entry is removed early when a
+ * server answers 404 Not Found for one of the service URIs in it, see
+ * {@link RedHxServerConnectionContext#invalidateServiceRoot()}.
+ * </p>
+ * <p>
+ * The cache can be saved to a file when the process stops and loaded when it starts, so a restart
+ * does not read the service root of every server in the fleet. An entry loaded from a file keeps
+ * the time it was first read, the time to live is not restarted by a restart of the process.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@ThreadSafe
+public final class RedHxServiceRootCache {
+
+  /**
+   * the default time in milliseconds a service root is used before it is read again.
+   */
+  public static final long DEFAULT_TIME_TO_LIVE_MILLISECONDS = 6 * 60 * 60 * 1000L;
+  private static final String FIELD_SEPARATOR = " ";
+  private static final RedHxServiceRootCache INSTANCE = new RedHxServiceRootCache();
+  private static final String SERVICE_SEPARATOR = "=";
+  private final Map<String, Entry> entryMap;
+  private final AtomicLong hitCount;
+  private final Logger logger;
+  private final AtomicLong missCount;
+  private volatile long timeToLiveMilliseconds;
+
+  private RedHxServiceRootCache() {
+    this.entryMap = new ConcurrentHashMap<>();
+    this.hitCount = new AtomicLong();
+    this.logger = LoggerFactory.getLogger(RedHxServiceRootCache.class);
+    this.missCount = new AtomicLong();
+    this.timeToLiveMilliseconds = DEFAULT_TIME_TO_LIVE_MILLISECONDS;
+  }
+
+  /**
+   * get the cache shared by every RedHxServerConnectionContext in the process.
+   *
+   * @return A null is not returned.
+   */
+  public static RedHxServiceRootCache getInstance() {
+    return INSTANCE;
+  }
+
+  private static String createKey(final RedHxTcpProtocolTypeEnum httpProtocol,
+      final String hostName, final int tcpPortNumber,
+      final RedHxRedfishProtocolVersionEnum redfishProtocolVersion) {
+    return httpProtocol.name() + FIELD_SEPARATOR + hostName + FIELD_SEPARATOR + tcpPortNumber
+        + FIELD_SEPARATOR + redfishProtocolVersion.name();
+  }
+
+  /**
+   * remove every service root.
+   */
+  public void clear() {
+    entryMap.clear();
+  }
+
+  /**
+   * get the number of opens that used a cached service root.
+   *
+   * @return the number of opens.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * get the number of opens that had to read the service root from the server.
+   *
+   * @return the number of opens.
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getTimeToLiveMilliseconds() {
+    return timeToLiveMilliseconds;
+  }
+
+  /**
+   * remove the service root of a single server. The next open of a connection to it reads the
+   * service root from the server.
+   *
+   * @param httpProtocol the type of TCP connection. This shall not be null.
+   * @param hostName the hostname of the Redfish server. This shall not be null.
+   * @param tcpPortNumber the TCP port number of the Redfish server.
+   * @param redfishProtocolVersion the Redfish protocol version. This shall not be null.
+   */
+  public void invalidate(final RedHxTcpProtocolTypeEnum httpProtocol, final String hostName,
+      final int tcpPortNumber, final RedHxRedfishProtocolVersionEnum redfishProtocolVersion) {
+    entryMap.remove(createKey(httpProtocol, hostName, tcpPortNumber, redfishProtocolVersion));
+  }
+
+  /**
+   * add the service roots saved by {@link #save(Path)}. Entries whose time to live has passed are
+   * not added, nor are lines that can not be read.
+   *
+   * @param file the file to read. If it does not exist nothing is added.
+   * @return the number of service roots added.
+   * @throws IOException
+   */
+  public int load(final Path file) throws IOException {
+    int retVal = 0;
+
+    if (Files.exists(file)) {
+      try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+          if (!line.isEmpty() && loadLine(line)) {
+            ++retVal;
+          }
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * write every service root whose time to live has not passed to a file. The file is written
+   * under a temporary name and then moved, a reader never sees a partial file.
+   *
+   * @param file the file to write.
+   * @return the number of service roots written.
+   * @throws IOException
+   */
+  public int save(final Path file) throws IOException {
+    final Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+    final long nowMilliseconds = System.currentTimeMillis();
+    int retVal = 0;
+
+    try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, Entry> mapEntry : entryMap.entrySet()) {
+        final Entry entry = mapEntry.getValue();
+
+        if (!entry.isExpired(nowMilliseconds, timeToLiveMilliseconds)) {
+          final StringBuilder sb = new StringBuilder(mapEntry.getKey());
+
+          sb.append(FIELD_SEPARATOR).append(entry.getReadTimeMilliseconds());
+
+          for (Map.Entry<RedHxServiceRootIdEum, URI> service : entry.getServiceUriMap()
+              .entrySet()) {
+            sb.append(FIELD_SEPARATOR).append(service.getKey().name()).append(SERVICE_SEPARATOR)
+                .append(service.getValue());
+          }
+
+          writer.write(sb.toString());
+          writer.newLine();
+          ++retVal;
+        }
+      }
+    }
+
+    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+
+    return retVal;
+  }
+
+  /**
+   * set the time a service root is used before it is read again. Entries already in the cache use
+   * the new time.
+   *
+   * @param timeToLiveMilliseconds the time to live. This shall be greater than zero.
+   */
+  public void setTimeToLiveMilliseconds(final long timeToLiveMilliseconds) {
+    if (timeToLiveMilliseconds < 1) {
+      throw new IllegalArgumentException(
+          "Argument \"timeToLiveMilliseconds\" must be greater than zero, not "
+              + timeToLiveMilliseconds);
+    }
+
+    this.timeToLiveMilliseconds = timeToLiveMilliseconds;
+  }
+
+  /**
+   * get the number of service roots in the cache, including any whose time to live has passed but
+   * that have not been read since.
+   *
+   * @return the number of servers.
+   */
+  public int size() {
+    return entryMap.size();
+  }
+
+  /**
+   * get the locator of a server.
+   *
+   * @return null if the server is not cached or its time to live has passed.
+   */
+  RedHxServiceRootLocator get(final RedHxTcpProtocolTypeEnum httpProtocol, final String hostName,
+      final int tcpPortNumber, final RedHxRedfishProtocolVersionEnum redfishProtocolVersion) {
+    final String key = createKey(httpProtocol, hostName, tcpPortNumber, redfishProtocolVersion);
+    final Entry entry = entryMap.get(key);
+    final RedHxServiceRootLocator retVal;
+
+    if ((entry != null)
+        && !entry.isExpired(System.currentTimeMillis(), timeToLiveMilliseconds)) {
+      hitCount.incrementAndGet();
+      retVal = entry.getLocator();
+    } else {
+      if (entry != null) {
+        entryMap.remove(key, entry);
+      }
+
+      missCount.incrementAndGet();
+      retVal = null;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * save the services read from a server and create its locator.
+   *
+   * @return null if the server has no services. Nothing is cached.
+   */
+  RedHxServiceRootLocator put(final RedHxTcpProtocolTypeEnum httpProtocol, final String hostName,
+      final int tcpPortNumber, final RedHxRedfishProtocolVersionEnum redfishProtocolVersion,
+      final Map<RedHxServiceRootIdEum, URI> serviceUriMap) {
+    return put(createKey(httpProtocol, hostName, tcpPortNumber, redfishProtocolVersion),
+        httpProtocol, hostName, tcpPortNumber, redfishProtocolVersion, serviceUriMap,
+        System.currentTimeMillis());
+  }
+
+  private boolean loadLine(final String line) {
+    final String[] fieldArray = line.split(FIELD_SEPARATOR);
+    boolean retVal = false;
+
+    try {
+      final RedHxTcpProtocolTypeEnum httpProtocol = RedHxTcpProtocolTypeEnum.valueOf(fieldArray[0]);
+      final String hostName = fieldArray[1];
+      final int tcpPortNumber = Integer.parseInt(fieldArray[2]);
+      final RedHxRedfishProtocolVersionEnum redfishProtocolVersion =
+          RedHxRedfishProtocolVersionEnum.valueOf(fieldArray[3]);
+      final long readTimeMilliseconds = Long.parseLong(fieldArray[4]);
+      final Map<RedHxServiceRootIdEum, URI> serviceUriMap =
+          new EnumMap<>(RedHxServiceRootIdEum.class);
+
+      for (int i = 5; i < fieldArray.length; ++i) {
+        final int separatorIndex = fieldArray[i].indexOf(SERVICE_SEPARATOR);
+
+        serviceUriMap.put(RedHxServiceRootIdEum.valueOf(fieldArray[i].substring(0, separatorIndex)),
+            new URI(fieldArray[i].substring(separatorIndex + 1)));
+      }
+
+      if ((System.currentTimeMillis() - readTimeMilliseconds) < timeToLiveMilliseconds) {
+        retVal = put(createKey(httpProtocol, hostName, tcpPortNumber, redfishProtocolVersion),
+            httpProtocol, hostName, tcpPortNumber, redfishProtocolVersion, serviceUriMap,
+            readTimeMilliseconds) != null;
+      }
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | URISyntaxException ex) {
+      logger.warn("Can not read the cached service root \"" + line + "\". " + ex.getMessage());
+    }
+
+    return retVal;
+  }
+
+  private RedHxServiceRootLocator put(final String key,
+      final RedHxTcpProtocolTypeEnum httpProtocol, final String hostName,
+      final int tcpPortNumber, final RedHxRedfishProtocolVersionEnum redfishProtocolVersion,
+      final Map<RedHxServiceRootIdEum, URI> serviceUriMap, final long readTimeMilliseconds) {
+    final RedHxServiceRootLocator retVal = ServiceRootReader.createServiceRootLocator(
+        serviceUriMap, httpProtocol, hostName, tcpPortNumber, redfishProtocolVersion);
+
+    if (retVal != null) {
+      entryMap.put(key, new Entry(retVal, serviceUriMap, readTimeMilliseconds));
+    }
+
+    return retVal;
+  }
+
+  /**
+   * the service root of a single server.
+   */
+  @Immutable
+  private static final class Entry {
+
+    private final RedHxServiceRootLocator locator;
+    private final long readTimeMilliseconds;
+    private final Map<RedHxServiceRootIdEum, URI> serviceUriMap;
+
+    private Entry(final RedHxServiceRootLocator locator,
+        final Map<RedHxServiceRootIdEum, URI> serviceUriMap, final long readTimeMilliseconds) {
+      this.locator = locator;
+      this.serviceUriMap = new EnumMap<>(serviceUriMap);
+      this.readTimeMilliseconds = readTimeMilliseconds;
+    }
+
+    private Entry() {
+      this.locator = null;
+      this.readTimeMilliseconds = 0;
+      this.serviceUriMap = null;
+    }
+
+    private RedHxServiceRootLocator getLocator() {
+      return locator;
+    }
+
+    private long getReadTimeMilliseconds() {
+      return readTimeMilliseconds;
+    }
+
+    private Map<RedHxServiceRootIdEum, URI> getServiceUriMap() {
+      return serviceUriMap;
+    }
+
+    private boolean isExpired(final long nowMilliseconds, final long timeToLiveMilliseconds) {
+      return (nowMilliseconds - readTimeMilliseconds) >= timeToLiveMilliseconds;
+    }
+  }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.server.lib.reader.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.redhelix.core.action.RedHxActionNameImpl;
+import org.redhelix.core.action.RedHxActionProperties;
+import org.redhelix.core.action.RedHxActionPropertiesImpl;
+import org.redhelix.core.annotations.NotThreadSafe;
+import org.redhelix.core.util.RedHxStringPropertyInterner;
+import org.redhelix.core.util.RedHxUriPathImpl;
+
+/**
+ * the properties of a Redfish resource read in a single pass over the JSON body. It holds the same
+ * values {@link AbstractRedfishJsonReader} reads from an Olingo ClientEntity:
+ * <ul>
+ * <li>the scalar properties of the resource.</li>
+ * <li>the scalar members and the odata.id of each property that is an object.</li>
+ * <li>the actions of each property that is an object, the members that have a target.</li>
+ * <li>the links in the Links property.</li>
+ * </ul>
+ * Anything nested deeper is skipped by the parser without being built.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ *
+ */
+@NotThreadSafe
+final class RedfishJsonDocument {
+
+  private static final String JSON_KEY_LINKS = "Links";
+  private static final String JSON_KEY_OEM = "Oem";
+  private static final String JSON_KEY_ODATA_ID = "@odata.id";
+  private static final String JSON_KEY_TARGET = "target";
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private final Map<String, Set<RedHxActionProperties>> actionMap;
+  private final Map<String, Map<String, String>> complexMap;
+  private final Map<String, List<String>> linkArrayMap;
+  private final Map<String, String> linkSingleMap;
+  private final Map<String, String> odataIdMap;
+  private final Map<String, String> propertyMap;
+
+  private RedfishJsonDocument() {
+    this.actionMap = new HashMap<>();
+    this.complexMap = new HashMap<>();
+    this.linkArrayMap = new HashMap<>();
+    this.linkSingleMap = new HashMap<>();
+    this.odataIdMap = new HashMap<>();
+    this.propertyMap = new HashMap<>();
+  }
+
+  /**
+   * read a JSON body.
+   *
+   * @param in the body. It is not closed.
+   * @return A null is not returned.
+   * @throws IOException if the body is not a JSON object.
+   */
+  static RedfishJsonDocument parse(final InputStream in) throws IOException {
+    final RedfishJsonDocument retVal = new RedfishJsonDocument();
+
+    try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("The JSON body is not an object.");
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String name = parser.getCurrentName();
+        final JsonToken valueToken = parser.nextToken();
+
+        if (name.indexOf('@') >= 0) {
+          // annotations of the resource, for example @odata.context.
+          parser.skipChildren();
+        } else if (valueToken == JsonToken.START_OBJECT) {
+          if (JSON_KEY_LINKS.equals(name)) {
+            retVal.readLinks(parser);
+          } else {
+            retVal.readComplex(name, parser);
+          }
+        } else if (valueToken == JsonToken.START_ARRAY) {
+          parser.skipChildren();
+        } else if (valueToken != JsonToken.VALUE_NULL) {
+          retVal.propertyMap.put(name, parser.getText());
+        }
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * read the odata.id of an object and skip the rest of it. The parser is on the START_OBJECT.
+   */
+  private static String readODataId(final JsonParser parser) throws IOException {
+    String retVal = null;
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      final JsonToken valueToken = parser.nextToken();
+
+      if (JSON_KEY_ODATA_ID.equals(name) && (valueToken == JsonToken.VALUE_STRING)) {
+        retVal = parser.getText();
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * read the target of an action and skip the rest of it. The parser is on the START_OBJECT.
+   */
+  private static String readTarget(final JsonParser parser) throws IOException {
+    String retVal = null;
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      final JsonToken valueToken = parser.nextToken();
+
+      if (JSON_KEY_TARGET.equals(name) && (valueToken == JsonToken.VALUE_STRING)) {
+        retVal = parser.getText();
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the actions of a property that is an object.
+   *
+   * @return an empty set if there is no such property or it has no actions.
+   */
+  Set<RedHxActionProperties> getActionSet(final String propName) {
+    final Set<RedHxActionProperties> set = actionMap.get(propName);
+    final Set<RedHxActionProperties> retVal;
+
+    if (set != null) {
+      retVal = set;
+    } else {
+      retVal = new TreeSet<>();
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the scalar members of a property that is an object.
+   *
+   * @return an empty map if there is no such property.
+   */
+  Map<String, String> getComplexMap(final String propName) {
+    final Map<String, String> map = complexMap.get(propName);
+    final Map<String, String> retVal;
+
+    if (map != null) {
+      retVal = map;
+    } else {
+      retVal = Collections.emptyMap();
+    }
+
+    return retVal;
+  }
+
+  List<String> getLinkArray(final String propName) {
+    final List<String> list = linkArrayMap.get(propName);
+    final List<String> retVal;
+
+    if (list != null) {
+      retVal = list;
+    } else {
+      retVal = new ArrayList<>();
+    }
+
+    return retVal;
+  }
+
+  String getLinkSingle(final String propName) {
+    return linkSingleMap.get(propName);
+  }
+
+  String getODataId(final String propName) {
+    return odataIdMap.get(propName);
+  }
+
+  /**
+   * get a scalar property. If the property is an object its odata.id is returned.
+   */
+  String getProperty(final String propName) {
+    final String value = propertyMap.get(propName);
+    final String retVal;
+
+    if (value != null) {
+      retVal = value;
+    } else {
+      retVal = odataIdMap.get(propName);
+    }
+
+    return retVal;
+  }
+
+  private void addAction(final Set<RedHxActionProperties> set, final String name,
+      final String target) {
+    if (target != null) {
+      set.add(new RedHxActionPropertiesImpl(
+          RedHxStringPropertyInterner.intern(new RedHxActionNameImpl(name)),
+          RedHxStringPropertyInterner.intern(new RedHxUriPathImpl(target))));
+    }
+  }
+
+  /**
+   * keep the scalar members, the odata.id and the actions of an object. An action is a member that
+   * is an object with a target, the members of its Oem member are actions too. The parser is on
+   * the START_OBJECT.
+   */
+  private void readComplex(final String propName, final JsonParser parser) throws IOException {
+    final Map<String, String> map = new HashMap<>();
+    final Set<RedHxActionProperties> set = new TreeSet<>();
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      final JsonToken valueToken = parser.nextToken();
+
+      if (JSON_KEY_ODATA_ID.equals(name) && (valueToken == JsonToken.VALUE_STRING)) {
+        odataIdMap.put(propName, parser.getText());
+      } else if (valueToken.isScalarValue() && (valueToken != JsonToken.VALUE_NULL)) {
+        map.put(name, parser.getText());
+      } else if ((valueToken == JsonToken.START_OBJECT) && (name.indexOf('@') < 0)) {
+        if (JSON_KEY_OEM.equals(name)) {
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String oemName = parser.getCurrentName();
+
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+              addAction(set, oemName, readTarget(parser));
+            } else {
+              parser.skipChildren();
+            }
+          }
+        } else {
+          addAction(set, name, readTarget(parser));
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    complexMap.put(propName, map);
+
+    if (!set.isEmpty()) {
+      actionMap.put(propName, set);
+    }
+  }
+
+  /**
+   * a link is an object with an odata.id. A member of Links is either a single link or an array of
+   * links.
+   */
+  private void readLinks(final JsonParser parser) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      final JsonToken valueToken = parser.nextToken();
+
+      if (valueToken == JsonToken.START_ARRAY) {
+        final List<String> list = new ArrayList<>();
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+            final String link = readODataId(parser);
+
+            if (link != null) {
+              list.add(link);
+            }
+          } else {
+            parser.skipChildren();
+          }
+        }
+
+        linkArrayMap.put(name, list);
+      } else if (valueToken == JsonToken.START_OBJECT) {
+        final String link = readODataId(parser);
+
+        if (link != null) {
+          linkSingleMap.put(name, link);
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+}
@@ -69,9 +69,10 @@ class ServiceRootReader {
   private ServiceRootReader() {}
 
   /**
-   * read from a URL the Redfish services available on the host.
+   * read from a URL the Redfish services available on the host. If the host is in the
+   * {@link RedHxServiceRootCache} the cached locator is returned without reading the URL.
    *
-   * @param ctx the context of the server to read from.
+   * @param client the OData client used to read the service root when it is not cached.
    * @param httpProtocol the type of http protocol to use with each of the Redffish services. This
    *        value is not used for the Root Service because the Redfish specification mandates that
    *        it uses http only.
@@ -85,84 +86,160 @@ class ServiceRootReader {
       final RedHxTcpProtocolTypeEnum httpProtocol, final String hostName, final int tcpPortNumber,
       final RedHxRedfishProtocolVersionEnum redfishProtocolVersion)
           throws URISyntaxException, RedHxHttpResponseException {
-    RedHxServiceRootId serviceRoot =
-        new RedHxServiceRootIdImpl(httpProtocol, hostName, tcpPortNumber, redfishProtocolVersion);
-    final String serviceRootStr = serviceRoot.getServiceRootString();
-    final URI redfishEntitySetURI =
-        client.newURIBuilder(serviceRootStr).appendEntitySetSegment(ENTITY_SET_NAME).build();
+    final RedHxServiceRootCache cache = RedHxServiceRootCache.getInstance();
+    final RedHxServiceRootLocator cachedLocator =
+        cache.get(httpProtocol, hostName, tcpPortNumber, redfishProtocolVersion);
+
+    if (cachedLocator != null) {
+      return cachedLocator;
+    }
+
+    final URI redfishEntitySetURI = getServiceRootEntitySetUri(client, httpProtocol, hostName,
+        tcpPortNumber, redfishProtocolVersion);
 
     client.getConfiguration().setGzipCompression(true);
     client.getRetrieveRequestFactory();
 
     final ODataRetrieveResponse<ClientEntitySet> serviceRootResponse =
         client.getRetrieveRequestFactory().getEntitySetRequest(redfishEntitySetURI).execute();
-    final List<ClientEntity> list;
-    final String tcpProtocolStr;
+    final RedHxServiceRootLocator locator;
 
-    switch (httpProtocol) {
-      case HTTP:
-        tcpProtocolStr = "http";
+    if (serviceRootResponse.getStatusCode() == HttpURLConnection.HTTP_OK) {
+      locator = cache.put(httpProtocol, hostName, tcpPortNumber, redfishProtocolVersion,
+          createServiceUriMap(serviceRootResponse.getBody().getEntities(), httpProtocol, hostName,
+              tcpPortNumber));
+    } else {
+      final Logger logger = LoggerFactory.getLogger(ServiceRootReader.class);
 
-        break;
-      case HTTPS:
-        tcpProtocolStr = "https";
+      logger.info("error retriving JSON message from " + hostName + ":" + tcpPortNumber
+          + ". HTML error is " + serviceRootResponse.getStatusCode());
 
-        break;
-      default:
-        throw new IllegalArgumentException(
-            "Argument \"httpProtocol\" contains an unknown value of " + httpProtocol);
+      throw new RedHxHttpResponseException(RedHxServiceRootIdEum.REDFISH_SERVICE,
+          serviceRootResponse.getStatusCode(), "Can not read The service root.");
     }
 
-    RedHxServiceRootLocator locator = null;
-    final Logger logger = LoggerFactory.getLogger(ServiceRootReader.class);
+    return locator;
+  }
 
-    if (serviceRootResponse.getStatusCode() == HttpURLConnection.HTTP_OK) {
-      list = serviceRootResponse.getBody().getEntities();
+  /**
+   * get the URI of the OData entity set that lists the Redfish services on a host.
+   *
+   * @param client used to build the URI.
+   * @param httpProtocol the type of http protocol.
+   * @param hostName the name of the host to read from.
+   * @param tcpPortNumber the TCP port number to read the service from.
+   * @param redfishProtocolVersion the redfish protocol version.
+   * @return A null is not returned.
+   */
+  static URI getServiceRootEntitySetUri(final ODataClient client,
+      final RedHxTcpProtocolTypeEnum httpProtocol, final String hostName, final int tcpPortNumber,
+      final RedHxRedfishProtocolVersionEnum redfishProtocolVersion) {
+    final RedHxServiceRootId serviceRoot =
+        new RedHxServiceRootIdImpl(httpProtocol, hostName, tcpPortNumber, redfishProtocolVersion);
+    final String serviceRootStr = serviceRoot.getServiceRootString();
+
+    return client.newURIBuilder(serviceRootStr).appendEntitySetSegment(ENTITY_SET_NAME).build();
+  }
+
+  /**
+   * create the locator for the services of a host.
+   *
+   * @param serviceUriMap the URI of each service on the host.
+   * @param httpProtocol the type of http protocol to use with each of the Redffish services.
+   * @param hostName the name of the host the services are on.
+   * @param tcpPortNumber the TCP port number of the host.
+   * @param redfishProtocolVersion the redfish protocol version.
+   * @return the locator or null if the host has no services.
+   */
+  static RedHxServiceRootLocator createServiceRootLocator(
+      final Map<RedHxServiceRootIdEum, URI> serviceUriMap,
+      final RedHxTcpProtocolTypeEnum httpProtocol, final String hostName, final int tcpPortNumber,
+      final RedHxRedfishProtocolVersionEnum redfishProtocolVersion) {
+    final RedHxServiceRootLocator locator;
+
+    if (!serviceUriMap.isEmpty()) {
+      final RedHxServiceRootId serviceRoot = new RedHxServiceRootIdImpl(httpProtocol, hostName,
+          tcpPortNumber, redfishProtocolVersion);
 
       /**
        * Use a treemap so when the items are printed out in toString they are always in the same
        * order.
        */
-      Map<RedHxServiceRootIdEum, URI> idToUriMap = new TreeMap<>();
+      locator = new RedHxServiceRootLocatorImpl(serviceRoot, getTcpProtocolString(httpProtocol),
+          hostName, tcpPortNumber, new TreeMap<>(serviceUriMap));
+    } else {
+      locator = null;
+    }
+
+    return locator;
+  }
+
+  /**
+   * get the URI of each service from the entities in the service root entity set. This is used for
+   * both the blocking read in this class and the read by RedHxAsyncFetchEngine.
+   *
+   * @param list the entities in the service root entity set.
+   * @param httpProtocol the type of http protocol to use with each of the Redffish services.
+   * @param hostName the name of the host the entity set was read from.
+   * @param tcpPortNumber the TCP port number the entity set was read from.
+   * @return the URI of each service. A null is not returned.
+   * @throws URISyntaxException
+   */
+  static Map<RedHxServiceRootIdEum, URI> createServiceUriMap(final List<ClientEntity> list,
+      final RedHxTcpProtocolTypeEnum httpProtocol, final String hostName, final int tcpPortNumber)
+          throws URISyntaxException {
+    final String tcpProtocolStr = getTcpProtocolString(httpProtocol);
+    final Logger logger = LoggerFactory.getLogger(ServiceRootReader.class);
+    final Map<RedHxServiceRootIdEum, URI> idToUriMap = new TreeMap<>();
 
-      for (final ClientEntity entity : list) {
-        for (final ClientProperty prop : entity.getProperties()) {
-          final String nameKey = prop.getName();
+    for (final ClientEntity entity : list) {
+      for (final ClientProperty prop : entity.getProperties()) {
+        final String nameKey = prop.getName();
 
-          if (nameKey.equals("name")) {
-            final String serviceRootName = prop.getValue().toString();
-            final ClientProperty urlProp = entity.getProperty("url");
-            final String urlString = urlProp.getValue().toString();
-            final RedHxServiceRootIdEum serviceId = ODATA_STRING_TO_ENUM_MAP.get(serviceRootName);
+        if (nameKey.equals("name")) {
+          final String serviceRootName = prop.getValue().toString();
+          final ClientProperty urlProp = entity.getProperty("url");
+          final String urlString = urlProp.getValue().toString();
+          final RedHxServiceRootIdEum serviceId = ODATA_STRING_TO_ENUM_MAP.get(serviceRootName);
 
-            if (serviceId != null) {
-              final URI serviceUri =
-                  new URI(tcpProtocolStr, null, hostName, tcpPortNumber, urlString, null, null);
+          if (serviceId != null) {
+            final URI serviceUri =
+                new URI(tcpProtocolStr, null, hostName, tcpPortNumber, urlString, null, null);
 
-              idToUriMap.put(serviceId, serviceUri);
-            } else {
-              String msg = "Can not find service for " + serviceRootName + " set by host "
-                  + hostName + ":" + tcpPortNumber;
+            idToUriMap.put(serviceId, serviceUri);
+          } else {
+            String msg = "Can not find service for " + serviceRootName + " set by host " + hostName
+                + ":" + tcpPortNumber;
 
-              logger.error(msg);
+            logger.error(msg);
 
-              throw new IllegalArgumentException();
-            }
+            throw new IllegalArgumentException();
           }
         }
-
-        locator = new RedHxServiceRootLocatorImpl(serviceRoot, tcpProtocolStr, hostName,
-            tcpPortNumber, idToUriMap);
       }
-    } else {
-      logger.info("error retriving JSON message from " + hostName + ":" + tcpPortNumber
-          + ". HTML error is " + serviceRootResponse.getStatusCode());
+    }
 
-      throw new RedHxHttpResponseException(RedHxServiceRootIdEum.REDFISH_SERVICE,
-          serviceRootResponse.getStatusCode(), "Can not read The service root.");
+    return idToUriMap;
+  }
+
+  private static String getTcpProtocolString(final RedHxTcpProtocolTypeEnum httpProtocol) {
+    final String tcpProtocolStr;
+
+    switch (httpProtocol) {
+      case HTTP:
+        tcpProtocolStr = "http";
+
+        break;
+      case HTTPS:
+        tcpProtocolStr = "https";
+
+        break;
+      default:
+        throw new IllegalArgumentException(
+            "Argument \"httpProtocol\" contains an unknown value of " + httpProtocol);
     }
 
-    return locator;
+    return tcpProtocolStr;
   }
 
   private static Map<String, RedHxServiceRootIdEum> createStringToIdMap() {
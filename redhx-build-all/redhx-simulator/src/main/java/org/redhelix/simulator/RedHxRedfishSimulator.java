@@ -0,0 +1,345 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.simulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.service.root.RedHxTcpProtocolTypeEnum;
+import org.redhelix.core.util.RedHxRedfishProtocolVersionEnum;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * a Redfish service that simulates many BMCs on one machine, to load test RedHelix with a fleet of
+ * thousands of hosts before it is deployed. Each host has its own IPv4 address and all of them
+ * listen on one port, so RedHelix sees a different server, with its own connections, for each
+ * host. The simulator serves the OData service document, the service root, the chassis and
+ * computer system collections, a chassis with its Power and Thermal, and a computer system.
+ *
+ * <p>
+ * The policy sets the latency and the fraction of 503 errors of a response, the size of the
+ * payloads and how often the health and the power of the hosts change. A response that waits for
+ * its latency does not hold a thread. Every resource of a host has the version of the host as its
+ * ETag, and a request whose If-None-Match matches is answered with 304 Not Modified, so a
+ * conditional poll of a host that has not changed costs what it does against a real BMC.
+ * </p>
+ *
+ * <p>
+ * The server is bound to the wildcard address so it can accept the address of every host. A
+ * request to an address that is not a simulated host is answered with 404.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+public final class RedHxRedfishSimulator implements Closeable {
+
+  private static final String CONTENT_TYPE = "application/json;charset=utf-8";
+  private final AtomicLong changeCount;
+  private final ScheduledExecutorService delayExecutor;
+  private final AtomicLong errorCount;
+  private final ExecutorService executor;
+  private final List<RedHxSimulatedHost> hostList;
+  private final Map<InetAddress, RedHxSimulatedHost> hostMap;
+  private final Logger logger;
+  private final AtomicLong notModifiedCount;
+  private final RedHxSimulatedPayload payload;
+  private final RedHxSimulatorPolicy policy;
+  private final AtomicLong requestCount;
+  private final HttpServer server;
+
+  /**
+   * create the simulator and bind its port. No request is answered until {@link #start()} is
+   * called.
+   *
+   * @param policy the hosts to simulate and how they behave. This shall not be null.
+   * @throws IOException if the port can not be bound.
+   */
+  public RedHxRedfishSimulator(final RedHxSimulatorPolicy policy) throws IOException {
+    if (policy == null) {
+      throw new IllegalArgumentException("Argument \"policy\" can not be null.");
+    }
+
+    this.policy = policy;
+    this.logger = LoggerFactory.getLogger(RedHxRedfishSimulator.class);
+    this.hostList = createHostList(policy.getFirstAddress(), policy.getHostCount());
+    this.hostMap = createHostMap(hostList);
+    this.payload = new RedHxSimulatedPayload(policy.getPaddingByteCount());
+    this.changeCount = new AtomicLong();
+    this.errorCount = new AtomicLong();
+    this.notModifiedCount = new AtomicLong();
+    this.requestCount = new AtomicLong();
+    this.executor = Executors.newFixedThreadPool(policy.getThreadCount(), runnable -> {
+      final Thread thread = new Thread(runnable, "RedHx simulator");
+
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    this.delayExecutor = Executors.newScheduledThreadPool(1, runnable -> {
+      final Thread thread = new Thread(runnable, "RedHx simulator delay");
+
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    this.server = HttpServer.create(new InetSocketAddress(policy.getTcpPortNumber()), 0);
+    this.server.setExecutor(executor);
+    this.server.createContext(RedHxSimulatedPayload.SERVICE_ROOT_PATH, this::handle);
+  }
+
+  private RedHxRedfishSimulator() {
+    this.changeCount = null;
+    this.delayExecutor = null;
+    this.errorCount = null;
+    this.executor = null;
+    this.hostList = null;
+    this.hostMap = null;
+    this.logger = null;
+    this.notModifiedCount = null;
+    this.payload = null;
+    this.policy = null;
+    this.requestCount = null;
+    this.server = null;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    delayExecutor.shutdownNow();
+    executor.shutdownNow();
+  }
+
+  /**
+   * create the contexts that read every simulated host with HTTP and no authentication. No
+   * connection is opened.
+   *
+   * @return A null is not returned. The list is in the order of the host addresses.
+   */
+  public List<RedHxServerConnectionContext> createContextList() {
+    final List<RedHxServerConnectionContext> retVal = new ArrayList<>(hostList.size());
+
+    for (RedHxSimulatedHost host : hostList) {
+      retVal.add(new RedHxServerConnectionContext(RedHxRedfishProtocolVersionEnum.VERSION_1,
+          RedHxTcpProtocolTypeEnum.HTTP, host.getAddress().getHostAddress(),
+          policy.getTcpPortNumber()));
+    }
+
+    return retVal;
+  }
+
+  /**
+   * get the number of times a host changed its health, power state or readings.
+   *
+   * @return zero or more.
+   */
+  public long getChangeCount() {
+    return changeCount.get();
+  }
+
+  /**
+   * get the number of requests answered with 503 Service Unavailable.
+   *
+   * @return zero or more.
+   */
+  public long getErrorCount() {
+    return errorCount.get();
+  }
+
+  /**
+   * get the number of requests answered with 304 Not Modified.
+   *
+   * @return zero or more.
+   */
+  public long getNotModifiedCount() {
+    return notModifiedCount.get();
+  }
+
+  public RedHxSimulatorPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * get the number of requests received by all hosts.
+   *
+   * @return zero or more.
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * start answering requests and changing the hosts.
+   */
+  public void start() {
+    final Random random = new Random(policy.getSeed());
+    final int changePerInterval = (int) Math.round(hostList.size() * policy.getChangeFraction());
+
+    server.start();
+
+    if (changePerInterval > 0) {
+      delayExecutor.scheduleAtFixedRate(() -> changeHosts(random, changePerInterval),
+          policy.getChangeIntervalMilliseconds(), policy.getChangeIntervalMilliseconds(),
+          TimeUnit.MILLISECONDS);
+    }
+
+    logger.info("The Redfish simulator is answering for {} hosts from {} on port {}.",
+        hostList.size(), policy.getFirstAddress().getHostAddress(), policy.getTcpPortNumber());
+  }
+
+  private static List<RedHxSimulatedHost> createHostList(final Inet4Address firstAddress,
+      final int hostCount) throws IOException {
+    final long first = ByteBuffer.wrap(firstAddress.getAddress()).getInt() & 0xffffffffL;
+    final List<RedHxSimulatedHost> list = new ArrayList<>(hostCount);
+
+    if ((first + hostCount - 1) > 0xffffffffL) {
+      throw new IllegalArgumentException("The " + hostCount + " hosts from "
+          + firstAddress.getHostAddress() + " pass the end of the IPv4 addresses.");
+    }
+
+    for (int i = 0; i < hostCount; i++) {
+      final byte[] byteArray = ByteBuffer.allocate(4).putInt((int) (first + i)).array();
+
+      list.add(new RedHxSimulatedHost(i, (Inet4Address) InetAddress.getByAddress(byteArray)));
+    }
+
+    return Collections.unmodifiableList(list);
+  }
+
+  private static Map<InetAddress, RedHxSimulatedHost> createHostMap(
+      final List<RedHxSimulatedHost> hostList) {
+    final Map<InetAddress, RedHxSimulatedHost> map = new HashMap<>(hostList.size() * 2);
+
+    for (RedHxSimulatedHost host : hostList) {
+      map.put(host.getAddress(), host);
+    }
+
+    return Collections.unmodifiableMap(map);
+  }
+
+  private static String trimSlash(final String path) {
+    final String retVal;
+
+    if ((path.length() > 1) && path.endsWith("/")) {
+      retVal = path.substring(0, path.length() - 1);
+    } else {
+      retVal = path;
+    }
+
+    return retVal;
+  }
+
+  /**
+   * change randomly chosen hosts. Only the one delay thread runs this so the random numbers, and
+   * so the hosts that change, are the same in every run with the same seed.
+   */
+  private void changeHosts(final Random random, final int changePerInterval) {
+    for (int i = 0; i < changePerInterval; i++) {
+      hostList.get(random.nextInt(hostList.size())).change(random);
+    }
+
+    changeCount.addAndGet(changePerInterval);
+  }
+
+  private void handle(final HttpExchange exchange) {
+    final long minLatency = policy.getMinLatencyMilliseconds();
+    final long maxLatency = policy.getMaxLatencyMilliseconds();
+    final long latency;
+
+    requestCount.incrementAndGet();
+
+    if (maxLatency > minLatency) {
+      latency = minLatency + ThreadLocalRandom.current().nextLong(maxLatency - minLatency + 1);
+    } else {
+      latency = minLatency;
+    }
+
+    if (latency > 0) {
+      delayExecutor.schedule(() -> executor.execute(() -> respond(exchange)), latency,
+          TimeUnit.MILLISECONDS);
+    } else {
+      respond(exchange);
+    }
+  }
+
+  private void respond(final HttpExchange exchange) {
+    try {
+      final RedHxSimulatedHost host = hostMap.get(exchange.getLocalAddress().getAddress());
+
+      if (host == null) {
+        exchange.sendResponseHeaders(404, -1);
+      } else if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+      } else if (ThreadLocalRandom.current().nextDouble() < policy.getErrorFraction()) {
+        errorCount.incrementAndGet();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        exchange.sendResponseHeaders(503, -1);
+      } else {
+        respondWithResource(exchange, host);
+      }
+    } catch (IOException | RuntimeException ex) {
+      logger.debug("The response to {} was not sent.", exchange.getRequestURI(), ex);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void respondWithResource(final HttpExchange exchange, final RedHxSimulatedHost host)
+      throws IOException {
+    final RedHxSimulatedHost.State state = host.getState();
+
+    if (state.getETag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+      notModifiedCount.incrementAndGet();
+      exchange.getResponseHeaders().set("ETag", state.getETag());
+      exchange.sendResponseHeaders(304, -1);
+    } else {
+      final byte[] body =
+          payload.create(trimSlash(exchange.getRequestURI().getPath()), host, state);
+
+      if (body == null) {
+        exchange.sendResponseHeaders(404, -1);
+      } else {
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.getResponseHeaders().set("ETag", state.getETag());
+        exchange.sendResponseHeaders(200, body.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    }
+  }
+}
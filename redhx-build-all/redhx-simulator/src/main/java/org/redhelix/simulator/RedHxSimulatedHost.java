@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.simulator;
+
+import java.net.Inet4Address;
+import java.util.Random;
+import org.redhelix.core.annotations.Immutable;
+import org.redhelix.core.annotations.ThreadSafe;
+
+/**
+ * one synthetic BMC of the simulator. The values that change, the health, the power state, the
+ * power consumed and the temperature, are held in one {@link State} that is replaced as a whole so
+ * a response never mixes the values of two states. The version of the state is the ETag of every
+ * resource of the host.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@ThreadSafe
+final class RedHxSimulatedHost {
+
+  private static final String[] HEALTH_ARRAY = {"OK", "Warning", "Critical"};
+  private static final int MAX_CELSIUS = 80;
+  private static final int MAX_WATTS = 450;
+  private static final int MIN_CELSIUS = 30;
+  private static final int MIN_WATTS = 150;
+  private static final int OFF_CELSIUS = 22;
+  private final Inet4Address address;
+  private final int index;
+  private volatile State state;
+
+  RedHxSimulatedHost(final int index, final Inet4Address address) {
+    this.index = index;
+    this.address = address;
+    this.state = new State(0, HEALTH_ARRAY[0], true, MIN_WATTS + (index % (MAX_WATTS - MIN_WATTS)),
+        MIN_CELSIUS + (index % (MAX_CELSIUS - MIN_CELSIUS)));
+  }
+
+  private RedHxSimulatedHost() {
+    this.index = 0;
+    this.address = null;
+  }
+
+  Inet4Address getAddress() {
+    return address;
+  }
+
+  int getIndex() {
+    return index;
+  }
+
+  State getState() {
+    return state;
+  }
+
+  /**
+   * change the host as a BMC does: the health moves away from or back to OK, the power is turned
+   * on or off, or the power and temperature readings drift. Only one thread changes the hosts.
+   *
+   * @param random chooses the change.
+   */
+  void change(final Random random) {
+    final State current = state;
+    final int choice = random.nextInt(10);
+    String health = current.health;
+    boolean isPowerOn = current.isPowerOn;
+
+    if (choice < 3) {
+      if (HEALTH_ARRAY[0].equals(health)) {
+        health = HEALTH_ARRAY[1 + random.nextInt(HEALTH_ARRAY.length - 1)];
+      } else {
+        health = HEALTH_ARRAY[0];
+      }
+    } else if (choice < 5) {
+      isPowerOn = !isPowerOn;
+    }
+
+    final int watts;
+    final int celsius;
+
+    if (isPowerOn) {
+      watts = MIN_WATTS + random.nextInt(MAX_WATTS - MIN_WATTS);
+      celsius = MIN_CELSIUS + random.nextInt(MAX_CELSIUS - MIN_CELSIUS);
+    } else {
+      watts = 0;
+      celsius = OFF_CELSIUS;
+    }
+
+    state = new State(current.version + 1, health, isPowerOn, watts, celsius);
+  }
+
+  /**
+   * the values of a host that change.
+   */
+  @Immutable
+  static final class State {
+
+    private final int celsius;
+    private final String eTag;
+    private final String health;
+    private final boolean isPowerOn;
+    private final long version;
+    private final int watts;
+
+    State(final long version, final String health, final boolean isPowerOn, final int watts,
+        final int celsius) {
+      this.version = version;
+      this.health = health;
+      this.isPowerOn = isPowerOn;
+      this.watts = watts;
+      this.celsius = celsius;
+      this.eTag = "\"" + version + "\"";
+    }
+
+    private State() {
+      this.version = 0;
+      this.health = null;
+      this.isPowerOn = false;
+      this.watts = 0;
+      this.celsius = 0;
+      this.eTag = null;
+    }
+
+    int getCelsius() {
+      return celsius;
+    }
+
+    String getETag() {
+      return eTag;
+    }
+
+    String getHealth() {
+      return health;
+    }
+
+    String getPowerState() {
+      return isPowerOn ? "On" : "Off";
+    }
+
+    long getVersion() {
+      return version;
+    }
+
+    int getWatts() {
+      return watts;
+    }
+  }
+}
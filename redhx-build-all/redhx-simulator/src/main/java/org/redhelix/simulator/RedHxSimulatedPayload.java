@@ -0,0 +1,340 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.simulator;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.redhelix.core.annotations.Immutable;
+
+/**
+ * writes the JSON of the resources of a simulated host. The resources have the shape of the DMTF
+ * mockup, with the serial number, UUID and host name of each host made from its index and the
+ * Status, PowerState, PowerConsumedWatts and ReadingCelsius taken from the state of the host.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@Immutable
+final class RedHxSimulatedPayload {
+
+  static final String CHASSIS_COLLECTION_PATH = "/redfish/v1/Chassis";
+  static final String CHASSIS_PATH = "/redfish/v1/Chassis/1";
+  static final String COMPUTER_SYSTEM_COLLECTION_PATH = "/redfish/v1/Systems";
+  static final String COMPUTER_SYSTEM_PATH = "/redfish/v1/Systems/1";
+  static final String ODATA_SERVICE_PATH = "/redfish/v1/odata";
+  static final String POWER_PATH = "/redfish/v1/Chassis/1/Power";
+  static final String SERVICE_ROOT_PATH = "/redfish/v1";
+  static final String THERMAL_PATH = "/redfish/v1/Chassis/1/Thermal";
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final String MANAGER_PATH = "/redfish/v1/Managers/1";
+  private static final String ODATA_ID = "@odata.id";
+  private final String padding;
+
+  /**
+   * create the writer.
+   *
+   * @param paddingByteCount the length of the OEM padding of a chassis and a computer system.
+   */
+  RedHxSimulatedPayload(final int paddingByteCount) {
+    final char[] charArray = new char[paddingByteCount];
+
+    Arrays.fill(charArray, 'x');
+    this.padding = new String(charArray);
+  }
+
+  private RedHxSimulatedPayload() {
+    this.padding = null;
+  }
+
+  /**
+   * write the JSON of a resource.
+   *
+   * @param path the path of the resource without a trailing slash.
+   * @param host the host the resource belongs to.
+   * @param state the state of the host to write.
+   * @return A null is returned if the host has no resource at the path.
+   * @throws IOException if the JSON can not be written.
+   */
+  byte[] create(final String path, final RedHxSimulatedHost host,
+      final RedHxSimulatedHost.State state) throws IOException {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024 + padding.length());
+    final boolean isFound;
+
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer, JsonEncoding.UTF8)) {
+      isFound = write(generator, path, host, state);
+    }
+
+    return isFound ? buffer.toByteArray() : null;
+  }
+
+  private static void writeCollection(final JsonGenerator generator, final String path,
+      final String type, final String name, final String memberPath) throws IOException {
+    generator.writeStringField("@odata.context", "/redfish/v1/$metadata#" + type);
+    generator.writeStringField(ODATA_ID, path);
+    generator.writeStringField("@odata.type", "#" + type + "." + type);
+    generator.writeStringField("Name", name);
+    generator.writeNumberField("Members@odata.count", 1);
+    generator.writeArrayFieldStart("Members");
+    writeLink(generator, memberPath);
+    generator.writeEndArray();
+  }
+
+  private static void writeLink(final JsonGenerator generator, final String path)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField(ODATA_ID, path);
+    generator.writeEndObject();
+  }
+
+  private static void writeLinkField(final JsonGenerator generator, final String fieldName,
+      final String path) throws IOException {
+    generator.writeFieldName(fieldName);
+    writeLink(generator, path);
+  }
+
+  private static void writeODataService(final JsonGenerator generator) throws IOException {
+    generator.writeStringField("@odata.context", "/redfish/v1/$metadata");
+    generator.writeArrayFieldStart("value");
+    writeODataServiceEntry(generator, "Service", SERVICE_ROOT_PATH + "/");
+    writeODataServiceEntry(generator, "Systems", COMPUTER_SYSTEM_COLLECTION_PATH);
+    writeODataServiceEntry(generator, "Chassis", CHASSIS_COLLECTION_PATH);
+    writeODataServiceEntry(generator, "Managers", "/redfish/v1/Managers");
+    generator.writeEndArray();
+  }
+
+  private static void writeODataServiceEntry(final JsonGenerator generator, final String name,
+      final String url) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("name", name);
+    generator.writeStringField("kind", "Singleton");
+    generator.writeStringField("url", url);
+    generator.writeEndObject();
+  }
+
+  private static void writeServiceRoot(final JsonGenerator generator,
+      final RedHxSimulatedHost host) throws IOException {
+    generator.writeStringField("@odata.context", "/redfish/v1/$metadata#ServiceRoot");
+    generator.writeStringField(ODATA_ID, SERVICE_ROOT_PATH + "/");
+    generator.writeStringField("@odata.type", "#ServiceRoot.1.0.0.ServiceRoot");
+    generator.writeStringField("Id", "RootService");
+    generator.writeStringField("Name", "Root Service");
+    generator.writeStringField("RedfishVersion", "1.0.0");
+    generator.writeStringField("UUID", createUuid(host));
+    writeLinkField(generator, "Systems", COMPUTER_SYSTEM_COLLECTION_PATH);
+    writeLinkField(generator, "Chassis", CHASSIS_COLLECTION_PATH);
+    writeLinkField(generator, "Managers", "/redfish/v1/Managers");
+  }
+
+  private static void writeStatus(final JsonGenerator generator,
+      final RedHxSimulatedHost.State state, final boolean isRollUp) throws IOException {
+    generator.writeObjectFieldStart("Status");
+    generator.writeStringField("State", "Enabled");
+    generator.writeStringField("Health", state.getHealth());
+
+    if (isRollUp) {
+      generator.writeStringField("HealthRollUp", state.getHealth());
+    }
+
+    generator.writeEndObject();
+  }
+
+  private static String createSerialNumber(final RedHxSimulatedHost host) {
+    return String.format("SIM%08d", host.getIndex());
+  }
+
+  private static String createUuid(final RedHxSimulatedHost host) {
+    return String.format("00000000-0000-0000-0000-%012x", host.getIndex());
+  }
+
+  private boolean write(final JsonGenerator generator, final String path,
+      final RedHxSimulatedHost host, final RedHxSimulatedHost.State state) throws IOException {
+    boolean retVal = true;
+
+    generator.writeStartObject();
+
+    switch (path) {
+      case SERVICE_ROOT_PATH:
+        writeServiceRoot(generator, host);
+        break;
+      case ODATA_SERVICE_PATH:
+        writeODataService(generator);
+        break;
+      case CHASSIS_COLLECTION_PATH:
+        writeCollection(generator, CHASSIS_COLLECTION_PATH, "ChassisCollection",
+            "Chassis Collection", CHASSIS_PATH);
+        break;
+      case CHASSIS_PATH:
+        writeChassis(generator, host, state);
+        break;
+      case COMPUTER_SYSTEM_COLLECTION_PATH:
+        writeCollection(generator, COMPUTER_SYSTEM_COLLECTION_PATH, "ComputerSystemCollection",
+            "Computer System Collection", COMPUTER_SYSTEM_PATH);
+        break;
+      case COMPUTER_SYSTEM_PATH:
+        writeComputerSystem(generator, host, state);
+        break;
+      case POWER_PATH:
+        writePower(generator, state);
+        break;
+      case THERMAL_PATH:
+        writeThermal(generator, state);
+        break;
+      default:
+        retVal = false;
+        break;
+    }
+
+    generator.writeEndObject();
+
+    return retVal;
+  }
+
+  private void writeChassis(final JsonGenerator generator, final RedHxSimulatedHost host,
+      final RedHxSimulatedHost.State state) throws IOException {
+    generator.writeStringField("@odata.context",
+        "/redfish/v1/$metadata#Chassis/Links/Members/$entity");
+    generator.writeStringField(ODATA_ID, CHASSIS_PATH);
+    generator.writeStringField("@odata.type", "#Chassis.1.0.0.Chassis");
+    generator.writeStringField("Id", "1");
+    generator.writeStringField("Name", "Computer System Chassis");
+    generator.writeStringField("ChassisType", "RackMount");
+    generator.writeStringField("Manufacturer", "RedHelix");
+    generator.writeStringField("Model", "Simulator");
+    generator.writeStringField("SerialNumber", createSerialNumber(host));
+    generator.writeStringField("AssetTag", host.getAddress().getHostAddress());
+    generator.writeStringField("IndicatorLED", "Off");
+    generator.writeStringField("PowerState", state.getPowerState());
+    writeStatus(generator, state, false);
+    writeLinkField(generator, "Thermal", THERMAL_PATH);
+    writeLinkField(generator, "Power", POWER_PATH);
+    generator.writeObjectFieldStart("Links");
+    generator.writeArrayFieldStart("ComputerSystems");
+    writeLink(generator, COMPUTER_SYSTEM_PATH);
+    generator.writeEndArray();
+    generator.writeArrayFieldStart("ManagedBy");
+    writeLink(generator, MANAGER_PATH);
+    generator.writeEndArray();
+    generator.writeEndObject();
+    generator.writeObjectFieldStart("Actions");
+    generator.writeObjectFieldStart("#Chassis.Reset");
+    generator.writeStringField("target", CHASSIS_PATH + "/Actions/Chassis.Reset");
+    generator.writeEndObject();
+    generator.writeEndObject();
+    writeOem(generator);
+  }
+
+  private void writeComputerSystem(final JsonGenerator generator, final RedHxSimulatedHost host,
+      final RedHxSimulatedHost.State state) throws IOException {
+    generator.writeStringField("@odata.context",
+        "/redfish/v1/$metadata#Systems/Links/Members/$entity");
+    generator.writeStringField(ODATA_ID, COMPUTER_SYSTEM_PATH);
+    generator.writeStringField("@odata.type", "#ComputerSystem.1.0.0.ComputerSystem");
+    generator.writeStringField("Id", "1");
+    generator.writeStringField("Name", "Simulated System");
+    generator.writeStringField("SystemType", "Physical");
+    generator.writeStringField("Manufacturer", "RedHelix");
+    generator.writeStringField("Model", "Simulator");
+    generator.writeStringField("SerialNumber", createSerialNumber(host));
+    generator.writeStringField("UUID", createUuid(host));
+    generator.writeStringField("HostName", "sim" + host.getIndex());
+    writeStatus(generator, state, true);
+    generator.writeStringField("IndicatorLED", "Off");
+    generator.writeStringField("PowerState", state.getPowerState());
+    generator.writeStringField("BiosVersion", "SIM v1.00");
+    generator.writeObjectFieldStart("ProcessorSummary");
+    generator.writeNumberField("Count", 2);
+    generator.writeStringField("Model", "Simulated Processor");
+    writeStatus(generator, state, true);
+    generator.writeEndObject();
+    generator.writeObjectFieldStart("MemorySummary");
+    generator.writeNumberField("TotalSystemMemoryGiB", 64);
+    writeStatus(generator, state, true);
+    generator.writeEndObject();
+    generator.writeObjectFieldStart("Links");
+    generator.writeArrayFieldStart("Chassis");
+    writeLink(generator, CHASSIS_PATH);
+    generator.writeEndArray();
+    generator.writeArrayFieldStart("ManagedBy");
+    writeLink(generator, MANAGER_PATH);
+    generator.writeEndArray();
+    generator.writeEndObject();
+    generator.writeObjectFieldStart("Actions");
+    generator.writeObjectFieldStart("#ComputerSystem.Reset");
+    generator.writeStringField("target", COMPUTER_SYSTEM_PATH + "/Actions/ComputerSystem.Reset");
+    generator.writeArrayFieldStart("ResetType@DMTF.AllowableValues");
+    generator.writeString("On");
+    generator.writeString("ForceOff");
+    generator.writeString("GracefulRestart");
+    generator.writeString("ForceRestart");
+    generator.writeEndArray();
+    generator.writeEndObject();
+    generator.writeEndObject();
+    writeOem(generator);
+  }
+
+  /**
+   * write the padding as an OEM property, which a reader skips.
+   */
+  private void writeOem(final JsonGenerator generator) throws IOException {
+    generator.writeObjectFieldStart("Oem");
+
+    if (!padding.isEmpty()) {
+      generator.writeObjectFieldStart("RedHelixSimulator");
+      generator.writeStringField("Padding", padding);
+      generator.writeEndObject();
+    }
+
+    generator.writeEndObject();
+  }
+
+  private void writePower(final JsonGenerator generator, final RedHxSimulatedHost.State state)
+      throws IOException {
+    generator.writeStringField("@odata.context", "/redfish/v1/$metadata#Power");
+    generator.writeStringField(ODATA_ID, POWER_PATH);
+    generator.writeStringField("@odata.type", "#Power.1.0.0.Power");
+    generator.writeStringField("Id", "Power");
+    generator.writeStringField("Name", "Power");
+    generator.writeArrayFieldStart("PowerControl");
+    generator.writeStartObject();
+    generator.writeStringField(ODATA_ID, POWER_PATH + "#/PowerControl/0");
+    generator.writeStringField("MemberId", "0");
+    generator.writeStringField("Name", "System Power Control");
+    generator.writeNumberField("PowerConsumedWatts", state.getWatts());
+    writeStatus(generator, state, false);
+    generator.writeEndObject();
+    generator.writeEndArray();
+  }
+
+  private void writeThermal(final JsonGenerator generator, final RedHxSimulatedHost.State state)
+      throws IOException {
+    generator.writeStringField("@odata.context", "/redfish/v1/$metadata#Thermal");
+    generator.writeStringField(ODATA_ID, THERMAL_PATH);
+    generator.writeStringField("@odata.type", "#Thermal.1.0.0.Thermal");
+    generator.writeStringField("Id", "Thermal");
+    generator.writeStringField("Name", "Thermal");
+    generator.writeArrayFieldStart("Temperatures");
+    generator.writeStartObject();
+    generator.writeStringField(ODATA_ID, THERMAL_PATH + "#/Temperatures/0");
+    generator.writeStringField("MemberId", "0");
+    generator.writeStringField("Name", "CPU1 Temp");
+    generator.writeNumberField("ReadingCelsius", state.getCelsius());
+    writeStatus(generator, state, false);
+    generator.writeEndObject();
+    generator.writeEndArray();
+  }
+}
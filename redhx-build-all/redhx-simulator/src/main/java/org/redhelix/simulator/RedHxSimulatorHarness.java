@@ -0,0 +1,195 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.simulator;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.redhelix.core.annotations.ThreadSafe;
+import org.redhelix.core.chassis.RedHxChassisCollection;
+import org.redhelix.core.computer.system.RedHxComputerSystemCollection;
+import org.redhelix.server.lib.poll.RedHxPollListener;
+import org.redhelix.server.lib.poll.RedHxPollPolicyBuilder;
+import org.redhelix.server.lib.poll.RedHxPollScheduler;
+import org.redhelix.server.lib.poll.RedHxPollTypeEnum;
+import org.redhelix.server.lib.reader.util.RedHxAsyncFetchEngine;
+import org.redhelix.server.lib.reader.util.RedHxCrawlResult;
+import org.redhelix.server.lib.reader.util.RedHxServerConnectionContext;
+
+/**
+ * runs a {@link RedHxRedfishSimulator} and the RedHelix poller against it in one JVM, and prints
+ * the CPU, heap and thread count of the JVM with the number of polls and requests every few
+ * seconds. The fetch metrics of the poller are registered with JMX so the latency and parse time
+ * of each kind of resource can be watched with a JMX console. The simulator and the poller share
+ * the JVM, so the numbers are an upper bound of what the poller alone uses for the same fleet.
+ * <p>
+ * The run is set with these optional system properties.
+ * <ul>
+ * <li>param_hosts, the number of hosts. The default is 1000.</li>
+ * <li>param_seconds, how long to run. The default is 300.</li>
+ * <li>param_status_seconds, the status poll interval. The default is 60.</li>
+ * <li>param_latency_min and param_latency_max, the latency of a response in milliseconds.</li>
+ * <li>param_error_fraction, the fraction of requests answered with 503.</li>
+ * <li>param_padding, the bytes of padding in a chassis and a computer system.</li>
+ * <li>param_port, the TCP port of the simulator. The default is 8080.</li>
+ * </ul>
+ * For 10,000 hosts and more the limit of open files of the process has to be raised above twice
+ * the number of connections, since both ends of every connection are in this JVM.
+ * </p>
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+public final class RedHxSimulatorHarness {
+
+  private static final String PROP_NAME_ERROR_FRACTION = "param_error_fraction";
+  private static final String PROP_NAME_HOST_COUNT = "param_hosts";
+  private static final String PROP_NAME_MAX_LATENCY = "param_latency_max";
+  private static final String PROP_NAME_MIN_LATENCY = "param_latency_min";
+  private static final String PROP_NAME_PADDING = "param_padding";
+  private static final String PROP_NAME_SECONDS = "param_seconds";
+  private static final String PROP_NAME_STATUS_SECONDS = "param_status_seconds";
+  private static final String PROP_NAME_TCP_PORT = "param_port";
+  private static final long REPORT_INTERVAL_SECONDS = 10;
+
+  private RedHxSimulatorHarness() {
+  }
+
+  /**
+   * run the simulator and the poller until the time set by param_seconds has passed.
+   *
+   * @param args not used.
+   * @throws IOException if the simulator can not bind its port.
+   * @throws InterruptedException if the run is interrupted.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
+
+    final RedHxSimulatorPolicyBuilder simulatorBuilder = new RedHxSimulatorPolicyBuilder();
+    final long minLatency = Long.getLong(PROP_NAME_MIN_LATENCY, 0);
+
+    simulatorBuilder.setHostCount(Integer.getInteger(PROP_NAME_HOST_COUNT, 1000));
+    simulatorBuilder.setTcpPortNumber(Integer.getInteger(PROP_NAME_TCP_PORT,
+        RedHxSimulatorPolicyBuilder.DEFAULT_TCP_PORT_NUMBER));
+    simulatorBuilder.setLatencyMilliseconds(minLatency,
+        Long.getLong(PROP_NAME_MAX_LATENCY, minLatency));
+    simulatorBuilder.setErrorFraction(
+        Double.parseDouble(System.getProperty(PROP_NAME_ERROR_FRACTION, "0")));
+    simulatorBuilder.setPaddingByteCount(Integer.getInteger(PROP_NAME_PADDING, 0));
+
+    final RedHxPollPolicyBuilder pollBuilder = new RedHxPollPolicyBuilder();
+
+    pollBuilder.setStatusIntervalMilliseconds(
+        TimeUnit.SECONDS.toMillis(Long.getLong(PROP_NAME_STATUS_SECONDS, 60)));
+
+    final long runMilliseconds = TimeUnit.SECONDS.toMillis(Long.getLong(PROP_NAME_SECONDS, 300));
+    final CountingListener listener = new CountingListener();
+
+    try (RedHxRedfishSimulator simulator =
+        new RedHxRedfishSimulator(simulatorBuilder.getInstance());
+        RedHxAsyncFetchEngine engine = new RedHxAsyncFetchEngine();
+        RedHxPollScheduler scheduler =
+            new RedHxPollScheduler(engine, pollBuilder.getInstance(), listener)) {
+      System.out.println(simulator.getPolicy());
+      engine.getMetrics().registerMBean();
+      simulator.start();
+
+      for (RedHxServerConnectionContext ctx : simulator.createContextList()) {
+        scheduler.addHost(ctx);
+      }
+
+      scheduler.start();
+
+      final long startTime = System.nanoTime();
+      long elapsed = 0;
+
+      while (elapsed < runMilliseconds) {
+        Thread.sleep(Math.min(TimeUnit.SECONDS.toMillis(REPORT_INTERVAL_SECONDS),
+            runMilliseconds - elapsed));
+        elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        printReport(elapsed, simulator, engine, scheduler, listener);
+      }
+    }
+  }
+
+  /**
+   * get the CPU used by the JVM.
+   *
+   * @return the percent of all CPUs. A -1 is returned if the JVM does not report it.
+   */
+  private static double getProcessCpuPercent() {
+    final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    final double retVal;
+
+    if (os instanceof com.sun.management.OperatingSystemMXBean) {
+      retVal = ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuLoad() * 100;
+    } else {
+      retVal = -1;
+    }
+
+    return retVal;
+  }
+
+  private static void printReport(final long elapsedMilliseconds,
+      final RedHxRedfishSimulator simulator, final RedHxAsyncFetchEngine engine,
+      final RedHxPollScheduler scheduler, final CountingListener listener) {
+    final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    final ThreadMXBean thread = ManagementFactory.getThreadMXBean();
+
+    System.out.println(String.format(
+        "%6ds hosts=%d polls=%d failed=%d incomplete=%d requests=%d 503=%d 304=%d"
+            + " changes=%d inFlight=%d lagP99=%dms cpu=%.1f%% heap=%dMB threads=%d"
+            + " peakThreads=%d",
+        TimeUnit.MILLISECONDS.toSeconds(elapsedMilliseconds), scheduler.getHostCount(),
+        listener.completedCount.get(), listener.failedCount.get(),
+        listener.incompleteCount.get(), simulator.getRequestCount(), simulator.getErrorCount(),
+        simulator.getNotModifiedCount(), simulator.getChangeCount(), engine.getInFlightCount(),
+        engine.getMetrics().getSchedulerLagHistogram().getValueAtPercentile(99),
+        getProcessCpuPercent(), memory.getHeapMemoryUsage().getUsed() / (1024 * 1024),
+        thread.getThreadCount(), thread.getPeakThreadCount()));
+  }
+
+  /**
+   * counts the polls. Nothing else is done with a result so the harness measures the poller, not a
+   * consumer of its results.
+   */
+  @ThreadSafe
+  private static final class CountingListener implements RedHxPollListener {
+
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong incompleteCount = new AtomicLong();
+
+    @Override
+    public void pollCompleted(RedHxServerConnectionContext ctx, RedHxPollTypeEnum pollType,
+        RedHxCrawlResult<RedHxChassisCollection> chassisResult,
+        RedHxCrawlResult<RedHxComputerSystemCollection> computerSystemResult) {
+      completedCount.incrementAndGet();
+
+      if (!chassisResult.isComplete() || !computerSystemResult.isComplete()) {
+        incompleteCount.incrementAndGet();
+      }
+    }
+
+    @Override
+    public void pollFailed(RedHxServerConnectionContext ctx, RedHxPollTypeEnum pollType,
+        Throwable cause, int consecutiveFailureCount) {
+      failedCount.incrementAndGet();
+    }
+  }
+}
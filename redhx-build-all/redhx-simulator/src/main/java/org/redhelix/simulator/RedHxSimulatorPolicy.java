@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.simulator;
+
+import java.net.Inet4Address;
+import org.redhelix.core.annotations.Immutable;
+
+/**
+ * how a {@link RedHxRedfishSimulator} behaves: the number of hosts, the time and the errors of a
+ * response, the size of a payload and how often the health and power of the hosts change. Create
+ * one with {@link RedHxSimulatorPolicyBuilder}.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@Immutable
+public final class RedHxSimulatorPolicy {
+
+  private final double changeFraction;
+  private final long changeIntervalMilliseconds;
+  private final double errorFraction;
+  private final Inet4Address firstAddress;
+  private final int hostCount;
+  private final long maxLatencyMilliseconds;
+  private final long minLatencyMilliseconds;
+  private final int paddingByteCount;
+  private final long seed;
+  private final int tcpPortNumber;
+  private final int threadCount;
+
+  RedHxSimulatorPolicy(final int hostCount, final Inet4Address firstAddress,
+      final int tcpPortNumber, final long minLatencyMilliseconds,
+      final long maxLatencyMilliseconds, final double errorFraction, final int paddingByteCount,
+      final long changeIntervalMilliseconds, final double changeFraction, final int threadCount,
+      final long seed) {
+    this.hostCount = hostCount;
+    this.firstAddress = firstAddress;
+    this.tcpPortNumber = tcpPortNumber;
+    this.minLatencyMilliseconds = minLatencyMilliseconds;
+    this.maxLatencyMilliseconds = maxLatencyMilliseconds;
+    this.errorFraction = errorFraction;
+    this.paddingByteCount = paddingByteCount;
+    this.changeIntervalMilliseconds = changeIntervalMilliseconds;
+    this.changeFraction = changeFraction;
+    this.threadCount = threadCount;
+    this.seed = seed;
+  }
+
+  private RedHxSimulatorPolicy() {
+    this.hostCount = 0;
+    this.firstAddress = null;
+    this.tcpPortNumber = 0;
+    this.minLatencyMilliseconds = 0;
+    this.maxLatencyMilliseconds = 0;
+    this.errorFraction = 0;
+    this.paddingByteCount = 0;
+    this.changeIntervalMilliseconds = 0;
+    this.changeFraction = 0;
+    this.threadCount = 0;
+    this.seed = 0;
+  }
+
+  /**
+   * get the fraction of the hosts whose health or power changes at each change interval.
+   *
+   * @return a value from 0 to 1.
+   */
+  public double getChangeFraction() {
+    return changeFraction;
+  }
+
+  public long getChangeIntervalMilliseconds() {
+    return changeIntervalMilliseconds;
+  }
+
+  /**
+   * get the fraction of the requests answered with 503 Service Unavailable, as a busy BMC does.
+   *
+   * @return a value from 0 to 1.
+   */
+  public double getErrorFraction() {
+    return errorFraction;
+  }
+
+  /**
+   * get the address of the first host. Host n listens on this address plus n.
+   *
+   * @return A null is not returned.
+   */
+  public Inet4Address getFirstAddress() {
+    return firstAddress;
+  }
+
+  public int getHostCount() {
+    return hostCount;
+  }
+
+  public long getMaxLatencyMilliseconds() {
+    return maxLatencyMilliseconds;
+  }
+
+  public long getMinLatencyMilliseconds() {
+    return minLatencyMilliseconds;
+  }
+
+  /**
+   * get the number of bytes of OEM padding added to a chassis and a computer system, to make the
+   * payloads as large as those of a real BMC.
+   *
+   * @return zero or more.
+   */
+  public int getPaddingByteCount() {
+    return paddingByteCount;
+  }
+
+  /**
+   * get the seed of the random numbers that choose which hosts change, so two runs change the same
+   * hosts in the same order.
+   *
+   * @return the seed.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  public int getTcpPortNumber() {
+    return tcpPortNumber;
+  }
+
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  @Override
+  public String toString() {
+    return "RedHxSimulatorPolicy{" + "hostCount=" + hostCount + ", firstAddress="
+        + firstAddress.getHostAddress() + ", tcpPortNumber=" + tcpPortNumber
+        + ", minLatencyMilliseconds=" + minLatencyMilliseconds + ", maxLatencyMilliseconds="
+        + maxLatencyMilliseconds + ", errorFraction=" + errorFraction + ", paddingByteCount="
+        + paddingByteCount + ", changeIntervalMilliseconds=" + changeIntervalMilliseconds
+        + ", changeFraction=" + changeFraction + ", threadCount=" + threadCount + ", seed=" + seed
+        + '}';
+  }
+}
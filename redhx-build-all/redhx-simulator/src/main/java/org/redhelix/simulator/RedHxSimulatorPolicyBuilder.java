@@ -0,0 +1,212 @@
+/*
+ * Copyright 2015 JBlade LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License
+ */
+package org.redhelix.simulator;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import org.redhelix.core.annotations.NotThreadSafe;
+
+/**
+ * create a {@link RedHxSimulatorPolicy}. Every value has a default so only the values that differ
+ * need to be set. The defaults simulate 100 hosts that answer at once, never fail and change 1% of
+ * the hosts every 10 seconds.
+ *
+ * @since RedHelix Version 0.2
+ * @author Hank Bruning
+ */
+@NotThreadSafe
+public final class RedHxSimulatorPolicyBuilder {
+
+  public static final double DEFAULT_CHANGE_FRACTION = 0.01;
+  public static final long DEFAULT_CHANGE_INTERVAL_MILLISECONDS = 10L * 1000L;
+  public static final double DEFAULT_ERROR_FRACTION = 0;
+
+  /**
+   * Linux routes all of 127.0.0.0/8 to the loopback interface so each host gets its own address
+   * without any configuration.
+   */
+  public static final Inet4Address DEFAULT_FIRST_ADDRESS = createAddress(127, 1, 0, 1);
+  public static final int DEFAULT_HOST_COUNT = 100;
+  public static final long DEFAULT_MAX_LATENCY_MILLISECONDS = 0;
+  public static final long DEFAULT_MIN_LATENCY_MILLISECONDS = 0;
+  public static final int DEFAULT_PADDING_BYTE_COUNT = 0;
+  public static final long DEFAULT_SEED = 1;
+  public static final int DEFAULT_TCP_PORT_NUMBER = 8080;
+  public static final int DEFAULT_THREAD_COUNT = 8;
+  private double changeFraction;
+  private long changeIntervalMilliseconds;
+  private double errorFraction;
+  private Inet4Address firstAddress;
+  private int hostCount;
+  private long maxLatencyMilliseconds;
+  private long minLatencyMilliseconds;
+  private int paddingByteCount;
+  private long seed;
+  private int tcpPortNumber;
+  private int threadCount;
+
+  public RedHxSimulatorPolicyBuilder() {
+    this.changeFraction = DEFAULT_CHANGE_FRACTION;
+    this.changeIntervalMilliseconds = DEFAULT_CHANGE_INTERVAL_MILLISECONDS;
+    this.errorFraction = DEFAULT_ERROR_FRACTION;
+    this.firstAddress = DEFAULT_FIRST_ADDRESS;
+    this.hostCount = DEFAULT_HOST_COUNT;
+    this.maxLatencyMilliseconds = DEFAULT_MAX_LATENCY_MILLISECONDS;
+    this.minLatencyMilliseconds = DEFAULT_MIN_LATENCY_MILLISECONDS;
+    this.paddingByteCount = DEFAULT_PADDING_BYTE_COUNT;
+    this.seed = DEFAULT_SEED;
+    this.tcpPortNumber = DEFAULT_TCP_PORT_NUMBER;
+    this.threadCount = DEFAULT_THREAD_COUNT;
+  }
+
+  /**
+   * create the policy.
+   *
+   * @return A null is not returned.
+   */
+  public RedHxSimulatorPolicy getInstance() {
+    return new RedHxSimulatorPolicy(hostCount, firstAddress, tcpPortNumber, minLatencyMilliseconds,
+        maxLatencyMilliseconds, errorFraction, paddingByteCount, changeIntervalMilliseconds,
+        changeFraction, threadCount, seed);
+  }
+
+  /**
+   * set how often the health and power of the hosts change.
+   *
+   * @param changeIntervalMilliseconds the time between two changes. This shall be greater than
+   *        zero.
+   * @param changeFraction the fraction of the hosts that change each time, from 0 to 1.
+   */
+  public void setChange(long changeIntervalMilliseconds, double changeFraction) {
+    if (changeIntervalMilliseconds < 1) {
+      throw new IllegalArgumentException(
+          "Argument \"changeIntervalMilliseconds\" must be greater than zero.");
+    }
+
+    if ((changeFraction < 0) || (changeFraction > 1)) {
+      throw new IllegalArgumentException(
+          "Argument \"changeFraction\" must be between 0 and 1.");
+    }
+
+    this.changeIntervalMilliseconds = changeIntervalMilliseconds;
+    this.changeFraction = changeFraction;
+  }
+
+  /**
+   * set the fraction of the requests answered with 503 Service Unavailable.
+   *
+   * @param errorFraction a value from 0 to 1.
+   */
+  public void setErrorFraction(double errorFraction) {
+    if ((errorFraction < 0) || (errorFraction > 1)) {
+      throw new IllegalArgumentException("Argument \"errorFraction\" must be between 0 and 1.");
+    }
+
+    this.errorFraction = errorFraction;
+  }
+
+  /**
+   * set the address of the first host. Every address from it to the address of the last host shall
+   * be a local address, as a 127.0.0.0/8 address is on Linux.
+   *
+   * @param firstAddress the IPv4 address. This shall not be null.
+   */
+  public void setFirstAddress(Inet4Address firstAddress) {
+    if (firstAddress == null) {
+      throw new IllegalArgumentException("Argument \"firstAddress\" can not be null.");
+    }
+
+    this.firstAddress = firstAddress;
+  }
+
+  public void setHostCount(int hostCount) {
+    if (hostCount < 1) {
+      throw new IllegalArgumentException("Argument \"hostCount\" must be greater than zero.");
+    }
+
+    this.hostCount = hostCount;
+  }
+
+  /**
+   * set the time a host waits before it answers. Each request waits a random time between the
+   * minimum and the maximum. No thread is blocked while a response waits.
+   *
+   * @param minLatencyMilliseconds the shortest wait, zero or more.
+   * @param maxLatencyMilliseconds the longest wait, not less than the shortest.
+   */
+  public void setLatencyMilliseconds(long minLatencyMilliseconds, long maxLatencyMilliseconds) {
+    if ((minLatencyMilliseconds < 0) || (maxLatencyMilliseconds < minLatencyMilliseconds)) {
+      throw new IllegalArgumentException("The latency " + minLatencyMilliseconds + " to "
+          + maxLatencyMilliseconds + " milliseconds is not valid.");
+    }
+
+    this.minLatencyMilliseconds = minLatencyMilliseconds;
+    this.maxLatencyMilliseconds = maxLatencyMilliseconds;
+  }
+
+  public void setPaddingByteCount(int paddingByteCount) {
+    if (paddingByteCount < 0) {
+      throw new IllegalArgumentException("Argument \"paddingByteCount\" can not be negative.");
+    }
+
+    this.paddingByteCount = paddingByteCount;
+  }
+
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * set the port every host listens on.
+   *
+   * @param tcpPortNumber the TCP port, from 1 to 65535.
+   */
+  public void setTcpPortNumber(int tcpPortNumber) {
+    if ((tcpPortNumber < 1) || (tcpPortNumber > 65535)) {
+      throw new IllegalArgumentException(
+          "The TCP port number " + tcpPortNumber + " is not between 1 and 65535.");
+    }
+
+    this.tcpPortNumber = tcpPortNumber;
+  }
+
+  /**
+   * set the number of threads that create the responses. A thread is not used while a response
+   * waits for its latency, so a few threads answer many thousands of hosts.
+   *
+   * @param threadCount the number of threads. This shall be greater than zero.
+   */
+  public void setThreadCount(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("Argument \"threadCount\" must be greater than zero.");
+    }
+
+    this.threadCount = threadCount;
+  }
+
+  private static Inet4Address createAddress(final int... octetArray) {
+    final byte[] byteArray = new byte[octetArray.length];
+
+    for (int i = 0; i < octetArray.length; i++) {
+      byteArray[i] = (byte) octetArray[i];
+    }
+
+    try {
+      return (Inet4Address) InetAddress.getByAddress(byteArray);
+    } catch (UnknownHostException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}